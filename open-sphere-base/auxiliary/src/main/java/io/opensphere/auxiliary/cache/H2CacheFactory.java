@@ -16,6 +16,10 @@ public class H2CacheFactory implements CacheFactory
     public Cache create(String path, int rowLimit, ScheduledExecutorService executor)
         throws ClassNotFoundException, CacheException
     {
+        if (MVStoreCacheFactory.isEnabled())
+        {
+            return null;
+        }
         return new H2CacheImpl(path, rowLimit, executor);
     }
 }
@@ -0,0 +1,30 @@
+package io.opensphere.auxiliary.cache;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import io.opensphere.auxiliary.cache.mvstore.MVStoreCacheImpl;
+import io.opensphere.core.cache.Cache;
+import io.opensphere.core.cache.CacheFactory;
+
+/**
+ * Factory for {@link MVStoreCacheImpl}s. This factory is only enabled if the
+ * {@code opensphere.db.backend} system property is {@code mvstore}.
+ */
+public class MVStoreCacheFactory implements CacheFactory
+{
+    /**
+     * Get if the MVStore cache is enabled.
+     *
+     * @return {@code true} if the MVStore cache is enabled.
+     */
+    public static boolean isEnabled()
+    {
+        return "mvstore".equals(System.getProperty("opensphere.db.backend"));
+    }
+
+    @Override
+    public Cache create(String path, int rowLimit, ScheduledExecutorService executor)
+    {
+        return isEnabled() ? new MVStoreCacheImpl(path, rowLimit, executor) : null;
+    }
+}
@@ -254,6 +254,7 @@ public class H2CacheImpl extends JdbcCacheImpl
      */
     protected void compactDatabase(final int[] groupIds)
     {
+        getSatisfactionIndex().removeGroups(groupIds);
         if (isClosed())
         {
             return;
@@ -0,0 +1,369 @@
+package io.opensphere.auxiliary.cache.mvstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import io.opensphere.core.cache.CacheException;
+import io.opensphere.core.cache.util.PropertyDescriptor;
+import io.opensphere.core.data.util.DataModelCategory;
+import io.opensphere.core.util.collections.New;
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * The persistent state of a data group: its category, expiration, interval
+ * values, and the bookkeeping for the rows in the group. Instances are guarded
+ * by the lock of the cache that owns them.
+ */
+@NotThreadSafe
+class GroupRecord
+{
+    /** The byte count of the values in the group. */
+    private long myByteCount;
+
+    /** The data model category. */
+    private final DataModelCategory myCategory;
+
+    /** The creation time. */
+    private final long myCreationTime;
+
+    /** If the group is critical. */
+    private final boolean myCritical;
+
+    /** The expiration time, or {@code null} if the group is for the session. */
+    private final Long myExpiration;
+
+    /** The group id. */
+    private final int myGroupId;
+
+    /** The interval values of the group. */
+    private final Map<PropertyDescriptor<?>, Object> myIntervalValues = New.insertionOrderMap();
+
+    /** The next data id. */
+    private int myNextDataId;
+
+    /** The number of rows in the group. */
+    private int myRowCount;
+
+    /** The names of the value maps that have values for this group. */
+    private final Set<String> myValueMapNames = New.insertionOrderSet();
+
+    /**
+     * Decode a group record.
+     *
+     * @param groupId The group id.
+     * @param bytes The encoded record.
+     * @param codec The codec for the interval values.
+     * @return The group record.
+     * @throws CacheException If the record cannot be decoded.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static GroupRecord decode(int groupId, byte[] bytes, ValueCodec codec) throws CacheException
+    {
+        try
+        {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            DataModelCategory category = new DataModelCategory(readString(in), readString(in), readString(in));
+            long creationTime = in.readLong();
+            Long expiration = in.readBoolean() ? Long.valueOf(in.readLong()) : null;
+            GroupRecord group = new GroupRecord(groupId, category, creationTime, expiration, in.readBoolean());
+            group.myNextDataId = in.readInt();
+            group.myRowCount = in.readInt();
+            group.myByteCount = in.readLong();
+            for (int count = in.readInt(); count > 0; --count)
+            {
+                group.myValueMapNames.add(in.readUTF());
+            }
+            for (int count = in.readInt(); count > 0; --count)
+            {
+                String name = in.readUTF();
+                Class<?> type = Class.forName(in.readUTF());
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                group.myIntervalValues.put(new PropertyDescriptor(name, type), codec.decode(value));
+            }
+            return group;
+        }
+        catch (IOException | ClassNotFoundException e)
+        {
+            throw new CacheException("Failed to decode group " + groupId + ": " + e, e);
+        }
+    }
+
+    /**
+     * Read a string that may be {@code null}.
+     *
+     * @param in The input.
+     * @return The string.
+     * @throws IOException If the string cannot be read.
+     */
+    private static String readString(DataInputStream in) throws IOException
+    {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Write a string that may be {@code null}.
+     *
+     * @param str The string.
+     * @param out The output.
+     * @throws IOException If the string cannot be written.
+     */
+    private static void writeString(String str, DataOutputStream out) throws IOException
+    {
+        out.writeBoolean(str != null);
+        if (str != null)
+        {
+            out.writeUTF(str);
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param groupId The group id.
+     * @param category The data model category.
+     * @param creationTime The creation time.
+     * @param expiration The expiration time, or {@code null} if the group is
+     *            for the session.
+     * @param critical If the group is critical.
+     */
+    GroupRecord(int groupId, DataModelCategory category, long creationTime, Long expiration, boolean critical)
+    {
+        myGroupId = groupId;
+        myCategory = category;
+        myCreationTime = creationTime;
+        myExpiration = expiration;
+        myCritical = critical;
+        myNextDataId = 1;
+    }
+
+    /**
+     * Record rows added to the group.
+     *
+     * @param count The number of rows.
+     * @return The data id of the first row.
+     */
+    public int addRows(int count)
+    {
+        int first = myNextDataId;
+        myNextDataId += count;
+        myRowCount += count;
+        return first;
+    }
+
+    /**
+     * Adjust the byte count of the values in the group.
+     *
+     * @param delta The change in bytes.
+     */
+    public void addBytes(long delta)
+    {
+        myByteCount += delta;
+    }
+
+    /**
+     * Add the name of a value map that has values for this group.
+     *
+     * @param name The map name.
+     */
+    public void addValueMapName(String name)
+    {
+        myValueMapNames.add(name);
+    }
+
+    /**
+     * Encode the group record.
+     *
+     * @param codec The codec for the interval values.
+     * @return The encoded record.
+     * @throws CacheException If the record cannot be encoded.
+     * @throws NotSerializableException If an interval value is not
+     *             serializable.
+     */
+    public byte[] encode(ValueCodec codec) throws CacheException, NotSerializableException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try
+        {
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeString(myCategory.getSource(), out);
+            writeString(myCategory.getFamily(), out);
+            writeString(myCategory.getCategory(), out);
+            out.writeLong(myCreationTime);
+            out.writeBoolean(myExpiration != null);
+            if (myExpiration != null)
+            {
+                out.writeLong(myExpiration.longValue());
+            }
+            out.writeBoolean(myCritical);
+            out.writeInt(myNextDataId);
+            out.writeInt(myRowCount);
+            out.writeLong(myByteCount);
+            out.writeInt(myValueMapNames.size());
+            for (String name : myValueMapNames)
+            {
+                out.writeUTF(name);
+            }
+            out.writeInt(myIntervalValues.size());
+            for (Entry<PropertyDescriptor<?>, Object> entry : myIntervalValues.entrySet())
+            {
+                out.writeUTF(entry.getKey().getPropertyName());
+                out.writeUTF(entry.getKey().getType().getName());
+                byte[] value = codec.encode(entry.getValue());
+                out.writeInt(value.length);
+                out.write(value);
+            }
+        }
+        catch (NotSerializableException e)
+        {
+            throw e;
+        }
+        catch (IOException e)
+        {
+            throw new CacheException("Failed to encode group " + myGroupId + ": " + e, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Get the byte count of the values in the group.
+     *
+     * @return The byte count.
+     */
+    public long getByteCount()
+    {
+        return myByteCount;
+    }
+
+    /**
+     * Get the data model category.
+     *
+     * @return The category.
+     */
+    public DataModelCategory getCategory()
+    {
+        return myCategory;
+    }
+
+    /**
+     * Get the creation time.
+     *
+     * @return The creation time.
+     */
+    public long getCreationTime()
+    {
+        return myCreationTime;
+    }
+
+    /**
+     * Get the expiration time.
+     *
+     * @return The expiration time, or {@code null} if the group is for the
+     *         session.
+     */
+    public Long getExpiration()
+    {
+        return myExpiration;
+    }
+
+    /**
+     * Get the group id.
+     *
+     * @return The group id.
+     */
+    public int getGroupId()
+    {
+        return myGroupId;
+    }
+
+    /**
+     * Get an interval value of the group.
+     *
+     * @param desc The property descriptor.
+     * @return The value, or {@code null} if the group has none.
+     */
+    public Object getIntervalValue(PropertyDescriptor<?> desc)
+    {
+        return myIntervalValues.get(desc);
+    }
+
+    /**
+     * Get the interval values of the group.
+     *
+     * @return The interval values.
+     */
+    public Map<PropertyDescriptor<?>, Object> getIntervalValues()
+    {
+        return Collections.unmodifiableMap(myIntervalValues);
+    }
+
+    /**
+     * Get the number of rows in the group.
+     *
+     * @return The row count.
+     */
+    public int getRowCount()
+    {
+        return myRowCount;
+    }
+
+    /**
+     * Get the names of the value maps that have values for this group.
+     *
+     * @return The map names.
+     */
+    public Set<String> getValueMapNames()
+    {
+        return Collections.unmodifiableSet(myValueMapNames);
+    }
+
+    /**
+     * Get if the group is critical.
+     *
+     * @return {@code true} if the group is critical.
+     */
+    public boolean isCritical()
+    {
+        return myCritical;
+    }
+
+    /**
+     * Get if the group is unexpired at a time.
+     *
+     * @param time The time.
+     * @return {@code true} if the group is unexpired.
+     */
+    public boolean isLive(long time)
+    {
+        return myExpiration == null || myExpiration.longValue() >= time;
+    }
+
+    /**
+     * Record rows removed from the group.
+     *
+     * @param count The number of rows.
+     */
+    public void removeRows(int count)
+    {
+        myRowCount -= count;
+    }
+
+    /**
+     * Set an interval value of the group.
+     *
+     * @param desc The property descriptor.
+     * @param value The value.
+     */
+    public void setIntervalValue(PropertyDescriptor<?> desc, Object value)
+    {
+        myIntervalValues.put(desc, value);
+    }
+}
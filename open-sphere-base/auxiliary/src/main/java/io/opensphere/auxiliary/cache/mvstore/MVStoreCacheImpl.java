@@ -0,0 +1,2181 @@
+package io.opensphere.auxiliary.cache.mvstore;
+
+import java.io.File;
+import java.io.NotSerializableException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.StreamStore;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import io.opensphere.core.cache.Cache;
+import io.opensphere.core.cache.CacheDeposit;
+import io.opensphere.core.cache.CacheException;
+import io.opensphere.core.cache.CacheIdUtilities;
+import io.opensphere.core.cache.CacheModificationListener;
+import io.opensphere.core.cache.CacheModificationReport;
+import io.opensphere.core.cache.CacheRemovalListener;
+import io.opensphere.core.cache.ClassProvider;
+import io.opensphere.core.cache.DatabaseAlreadyOpenException;
+import io.opensphere.core.cache.PropertyValueMap;
+import io.opensphere.core.cache.SingleSatisfaction;
+import io.opensphere.core.cache.accessor.IntervalPropertyAccessor;
+import io.opensphere.core.cache.accessor.PersistentPropertyAccessor;
+import io.opensphere.core.cache.accessor.PropertyAccessor;
+import io.opensphere.core.cache.jdbc.TypeMapper;
+import io.opensphere.core.cache.matcher.IntervalPropertyMatcher;
+import io.opensphere.core.cache.matcher.MultiPropertyMatcher;
+import io.opensphere.core.cache.matcher.NumberPropertyMatcher;
+import io.opensphere.core.cache.matcher.PropertyMatcher;
+import io.opensphere.core.cache.matcher.PropertyMatcherUtilities;
+import io.opensphere.core.cache.matcher.TimeSpanMatcher;
+import io.opensphere.core.cache.util.IntervalPropertyValueSet;
+import io.opensphere.core.cache.util.PropertyArrayDescriptor;
+import io.opensphere.core.cache.util.PropertyDescriptor;
+import io.opensphere.core.data.util.DataModelCategory;
+import io.opensphere.core.data.util.OrderSpecifier;
+import io.opensphere.core.data.util.Satisfaction;
+import io.opensphere.core.model.Accumulator;
+import io.opensphere.core.model.time.TimeSpan;
+import io.opensphere.core.util.Constants;
+import io.opensphere.core.util.Utilities;
+import io.opensphere.core.util.collections.CollectionUtilities;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.concurrent.ProcrastinatingExecutor;
+import io.opensphere.core.util.lang.StringUtilities;
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * A {@link Cache} implementation on the H2 MVStore, an embedded ordered
+ * key-value store, as an alternative to the SQL implementations.
+ * <p>
+ * Each row is keyed by its combined id, so the rows of a group are contiguous
+ * in the B-tree maps. There is one map per property, and input stream values
+ * are written directly to a {@link StreamStore}. Queries on time span and
+ * geometry properties use packed interval and R-tree indexes that are built in
+ * memory on demand, at the group level across groups, and at the row level
+ * within large groups.
+ */
+@SuppressWarnings("PMD.GodClass")
+public class MVStoreCacheImpl implements Cache
+{
+    /** How long to keep a group after its expiration time. */
+    private static final long EXPIRATION_BUFFER_MILLISECONDS = Integer
+            .getInteger("opensphere.db.expirationBufferMilliseconds", 60000).intValue();
+
+    /**
+     * When deciding to reuse groups, if the incoming data has an expiration
+     * time after an existing group but within this buffer, the existing group
+     * will be reused.
+     */
+    private static final long EXPIRATION_TIME_BUFFER_MILLISECONDS = Utilities
+            .parseSystemProperty("opensphere.db.expirationTimeBufferMilliseconds", (long)Constants.MILLIS_PER_HOUR);
+
+    /** The name of the map of group records. */
+    private static final String GROUP_MAP_NAME = "groups";
+
+    /**
+     * The number of groups or rows required before an index is built rather
+     * than scanning the values.
+     */
+    private static final int INDEX_THRESHOLD = Integer.getInteger("opensphere.db.mvstore.indexThreshold", 64).intValue();
+
+    /** The number of row-level indexes to keep in memory. */
+    private static final int INDEX_CACHE_SIZE = Integer.getInteger("opensphere.db.mvstore.indexCacheSize", 64).intValue();
+
+    /** Logger reference. */
+    private static final Logger LOGGER = Logger.getLogger(MVStoreCacheImpl.class);
+
+    /** The limit on the number of models in an insert before a new group is created. */
+    private static final int MAX_GROUP_REUSE_SIZE = 100;
+
+    /** The meta key for the next group id. */
+    private static final String META_NEXT_GROUP_ID = "nextGroupId";
+
+    /** The meta key for the schema version. */
+    private static final String META_SCHEMA_VERSION = "schemaVersion";
+
+    /** The name of the meta map. */
+    private static final String META_MAP_NAME = "meta";
+
+    /** The name of the map of row ids. */
+    private static final String ROW_MAP_NAME = "rows";
+
+    /** The schema version required by the implementation. */
+    private static final String SCHEMA_VERSION = "1";
+
+    /** The name of the map that backs the stream store. */
+    private static final String STREAM_MAP_NAME = "streams";
+
+    /** The type mapper, used to determine which properties are supported. */
+    private static final TypeMapper TYPE_MAPPER = new TypeMapper();
+
+    /** The prefix for the names of the value maps. */
+    private static final String VALUE_MAP_PREFIX = "v.";
+
+    /** Flag indicating if the cache is closed. */
+    private volatile boolean myClosed = true;
+
+    /** The value codec. */
+    private volatile ValueCodec myCodec;
+
+    /** Row-level indexes, keyed by group id and value map name. */
+    @GuardedBy("myDataIndexes")
+    private final Map<String, ValueIndex> myDataIndexes = new LinkedHashMap<String, ValueIndex>(16, .75f, true)
+    {
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Entry<String, ValueIndex> eldest)
+        {
+            return size() > INDEX_CACHE_SIZE;
+        }
+    };
+
+    /** The executor for background tasks. */
+    private final ScheduledExecutorService myExecutor;
+
+    /** Group-level indexes, keyed by interval property. */
+    private final Map<PropertyDescriptor<?>, ValueIndex> myGroupIndexes = new ConcurrentHashMap<>();
+
+    /** The map of group ids to encoded group records. */
+    private volatile MVMap<Integer, byte[]> myGroupMap;
+
+    /** The group records, in group id order. */
+    @GuardedBy("myLock")
+    private final Map<Integer, GroupRecord> myGroups = new TreeMap<>();
+
+    /** The lock for the store. Writes take the write lock. */
+    private final ReadWriteLock myLock = new ReentrantReadWriteLock();
+
+    /** The map of meta values. */
+    private volatile MVMap<String, String> myMetaMap;
+
+    /** The limit on the size of the store file, or 0 if there is none. */
+    private volatile long myOnDiskSizeLimitBytes;
+
+    /** The path to the directory that contains the store. */
+    private final String myPath;
+
+    /** The row limit. */
+    private final int myRowLimit;
+
+    /** The map of row ids. */
+    private volatile MVMap<Long, Boolean> myRowMap;
+
+    /** The store. */
+    private volatile MVStore myStore;
+
+    /** Executor that delays trimming until there is a pause in inserts. */
+    private volatile ProcrastinatingExecutor myTrimExecutor;
+
+    /** The value maps, by name. */
+    private final Map<String, MVMap<Long, byte[]>> myValueMaps = new ConcurrentHashMap<>();
+
+    /**
+     * Get the name of the value map for a property.
+     *
+     * @param desc The property descriptor.
+     * @return The map name.
+     */
+    static String getValueMapName(PropertyDescriptor<?> desc)
+    {
+        return VALUE_MAP_PREFIX + desc.getType().getName() + '.' + desc.getPropertyName();
+    }
+
+    /**
+     * Get if a time span value overlaps a query time span, with the same
+     * semantics as the SQL implementations. An unbounded end of the query
+     * matches any value.
+     *
+     * @param value The value.
+     * @param query The query.
+     * @return {@code true} if the value overlaps the query.
+     */
+    static boolean overlaps(TimeSpan value, TimeSpan query)
+    {
+        return (query.isUnboundedStart() || ValueIndex.getEnd(value) > query.getStart())
+                && (query.isUnboundedEnd() || ValueIndex.getStart(value) < query.getEnd());
+    }
+
+    /**
+     * Construct the cache.
+     *
+     * @param path The path to the directory that contains the store. If the
+     *            path starts with "mem:" the store is kept in memory.
+     * @param rowLimit The maximum number of rows before trimming occurs. A
+     *            negative number indicates no limit.
+     * @param executor An executor for background tasks.
+     */
+    public MVStoreCacheImpl(String path, int rowLimit, ScheduledExecutorService executor)
+    {
+        myPath = Utilities.checkNull(path, "path");
+        myRowLimit = rowLimit;
+        myExecutor = executor;
+    }
+
+    @Override
+    public boolean acceptsPropertyDescriptor(PropertyDescriptor<?> desc)
+    {
+        return TYPE_MAPPER.hasValueTranslator(desc);
+    }
+
+    @Override
+    public void clear()
+    {
+        if (isClosed())
+        {
+            return;
+        }
+
+        Lock writeLock = myLock.writeLock();
+        writeLock.lock();
+        try
+        {
+            List<GroupRecord> groups = New.list();
+            for (GroupRecord group : myGroups.values())
+            {
+                if (group.getExpiration() != null)
+                {
+                    groups.add(group);
+                }
+            }
+            deleteGroups(groups);
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear(DataModelCategory dmc, boolean returnIds, CacheRemovalListener listener) throws CacheException
+    {
+        int[] groupIds = getGroupIds(dmc);
+
+        long[] ids;
+        try
+        {
+            ids = returnIds ? getIds(groupIds, null, null, 0, Integer.MAX_VALUE) : null;
+        }
+        catch (NotSerializableException e)
+        {
+            throw new CacheException(e);
+        }
+
+        clearGroups(groupIds);
+
+        listener.valuesRemoved(dmc, ids);
+    }
+
+    @Override
+    public void clear(long[] ids) throws CacheException
+    {
+        if (isClosed() || ids == null || ids.length == 0)
+        {
+            return;
+        }
+
+        Lock writeLock = myLock.writeLock();
+        writeLock.lock();
+        try
+        {
+            Set<GroupRecord> changed = New.insertionOrderSet();
+            for (long id : ids)
+            {
+                GroupRecord group = myGroups.get(Integer.valueOf(CacheIdUtilities.getGroupIdFromCombinedId(id)));
+                Long key = Long.valueOf(id);
+                if (group != null && myRowMap.remove(key) != null)
+                {
+                    for (String name : group.getValueMapNames())
+                    {
+                        removeValue(group, getValueMap(name, false), key);
+                    }
+                    group.removeRows(1);
+                    changed.add(group);
+                }
+            }
+            for (GroupRecord group : changed)
+            {
+                saveGroup(group);
+                invalidateDataIndexes(group);
+            }
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear(long[] ids, CacheRemovalListener listener) throws CacheException
+    {
+        clear(ids);
+
+        // This implementation does not notify the listener.
+    }
+
+    @Override
+    public void clearGroups(int[] groupIds) throws CacheException
+    {
+        if (isClosed() || groupIds.length == 0)
+        {
+            return;
+        }
+
+        Lock writeLock = myLock.writeLock();
+        writeLock.lock();
+        try
+        {
+            List<GroupRecord> groups = New.list(groupIds.length);
+            for (int groupId : groupIds)
+            {
+                GroupRecord group = myGroups.get(Integer.valueOf(groupId));
+                if (group != null)
+                {
+                    groups.add(group);
+                }
+            }
+            deleteGroups(groups);
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (isClosed())
+        {
+            return;
+        }
+
+        deleteSessionGroups();
+
+        if (LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("Closing cache.");
+        }
+        myClosed = true;
+        if (myExecutor != null)
+        {
+            myExecutor.shutdownNow();
+            try
+            {
+                myExecutor.awaitTermination(300, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                if (LOGGER.isDebugEnabled())
+                {
+                    LOGGER.debug("Interrupted while awaiting termination: " + e, e);
+                }
+            }
+        }
+
+        Lock writeLock = myLock.writeLock();
+        writeLock.lock();
+        try
+        {
+            myStore.close();
+            myGroups.clear();
+            myGroupIndexes.clear();
+            myValueMaps.clear();
+            synchronized (myDataIndexes)
+            {
+                myDataIndexes.clear();
+            }
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public DataModelCategory[] getDataModelCategories(long[] ids) throws CacheException
+    {
+        if (isClosed() || ids.length == 0)
+        {
+            return New.emptyArray(DataModelCategory.class);
+        }
+
+        DataModelCategory[] results = new DataModelCategory[ids.length];
+        Lock readLock = myLock.readLock();
+        readLock.lock();
+        try
+        {
+            for (int index = 0; index < ids.length; ++index)
+            {
+                GroupRecord group = myGroups.get(Integer.valueOf(CacheIdUtilities.getGroupIdFromCombinedId(ids[index])));
+                results[index] = group == null ? null : group.getCategory();
+            }
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+        return results;
+    }
+
+    @Override
+    public List<DataModelCategory> getDataModelCategoriesByGroupId(int[] groupIds, boolean source, boolean family,
+            boolean category, boolean distinct) throws CacheException
+    {
+        if (isClosed() || groupIds.length == 0 || !(source || family || category))
+        {
+            return Collections.<DataModelCategory>emptyList();
+        }
+
+        Collection<DataModelCategory> results = distinct ? New.insertionOrderSet() : New.list(groupIds.length);
+        Lock readLock = myLock.readLock();
+        readLock.lock();
+        try
+        {
+            for (int groupId : groupIds)
+            {
+                GroupRecord group = myGroups.get(Integer.valueOf(groupId));
+                if (group != null)
+                {
+                    DataModelCategory dmc = group.getCategory();
+                    results.add(new DataModelCategory(source ? dmc.getSource() : null, family ? dmc.getFamily() : null,
+                            category ? dmc.getCategory() : null));
+                }
+                else if (!distinct)
+                {
+                    results.add(null);
+                }
+            }
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+        return New.list(results);
+    }
+
+    @Override
+    public List<DataModelCategory> getDataModelCategoriesByModelId(long[] ids, boolean source, boolean family,
+            boolean category) throws CacheException
+    {
+        return getDataModelCategoriesByGroupId(getGroupIds(ids, true), source, family, category, true);
+    }
+
+    @Override
+    public int[] getGroupIds(DataModelCategory category) throws CacheException
+    {
+        if (isClosed())
+        {
+            return new int[0];
+        }
+
+        Lock readLock = myLock.readLock();
+        readLock.lock();
+        try
+        {
+            return getMatchingGroupIds(category, null);
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int[] getGroupIds(long[] ids, boolean distinct)
+    {
+        return CacheIdUtilities.getGroupIdsFromCombinedIds(ids, distinct);
+    }
+
+    @Override
+    public long[] getIds(Collection<? extends Satisfaction> satisfactions, Collection<? extends PropertyMatcher<?>> parameters,
+            List<? extends OrderSpecifier> orderSpecifiers, int startIndex, int limit)
+        throws CacheException, NotSerializableException
+    {
+        Utilities.checkNull(satisfactions, "satisfactions");
+        if (isClosed() || satisfactions.isEmpty())
+        {
+            return new long[0];
+        }
+
+        int[] groupIds = new int[satisfactions.size()];
+        int index = 0;
+        for (Satisfaction satisfaction : satisfactions)
+        {
+            groupIds[index++] = ((MVStoreSatisfaction)satisfaction).getGroupId();
+        }
+
+        return getIds(groupIds, parameters, orderSpecifiers, startIndex, limit);
+    }
+
+    @Override
+    public long[] getIds(DataModelCategory category, Collection<? extends PropertyMatcher<?>> parameters,
+            List<? extends OrderSpecifier> orderSpecifiers, int startIndex, int limit)
+        throws CacheException, NotSerializableException
+    {
+        Utilities.checkNull(category, "category");
+        if (isClosed())
+        {
+            return new long[0];
+        }
+
+        final List<IntervalPropertyMatcher<?>> intervalParameters;
+        if (CollectionUtilities.hasContent(parameters))
+        {
+            intervalParameters = getGroupMatchers(parameters);
+        }
+        else
+        {
+            intervalParameters = null;
+        }
+
+        Lock readLock = myLock.readLock();
+        readLock.lock();
+        try
+        {
+            int[] groupIds = getMatchingGroupIds(category, intervalParameters);
+            return groupIds.length == 0 ? new long[0] : doGetIds(groupIds, parameters, orderSpecifiers, startIndex, limit);
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public long[] getIds(int[] groupIds, Collection<? extends PropertyMatcher<?>> parameters,
+            List<? extends OrderSpecifier> orderSpecifiers, int startIndex, int limit)
+        throws NotSerializableException, CacheException
+    {
+        if (isClosed() || groupIds.length == 0)
+        {
+            return new long[0];
+        }
+
+        Lock readLock = myLock.readLock();
+        readLock.lock();
+        try
+        {
+            return doGetIds(groupIds, parameters, orderSpecifiers, startIndex, limit);
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Collection<? extends Satisfaction> getIntervalSatisfactions(DataModelCategory category,
+            Collection<? extends IntervalPropertyMatcher<?>> parameters)
+    {
+        Utilities.checkNull(category, "category");
+        Utilities.checkNull(parameters, "parameters");
+        if (isClosed())
+        {
+            return Collections.emptyList();
+        }
+
+        try
+        {
+            int[] groupIds;
+            List<List<Object>> values = New.list(parameters.size());
+            Lock readLock = myLock.readLock();
+            readLock.lock();
+            try
+            {
+                groupIds = getMatchingGroupIds(category, getGroupMatchers(parameters));
+
+                // Groups without data do not satisfy the query.
+                int count = 0;
+                for (int groupId : groupIds)
+                {
+                    if (myGroups.get(Integer.valueOf(groupId)).getRowCount() > 0)
+                    {
+                        groupIds[count++] = groupId;
+                    }
+                }
+                groupIds = Arrays.copyOf(groupIds, count);
+
+                for (IntervalPropertyMatcher<?> param : parameters)
+                {
+                    List<Object> list = New.randomAccessList(groupIds.length);
+                    for (int groupId : groupIds)
+                    {
+                        list.add(myGroups.get(Integer.valueOf(groupId)).getIntervalValue(param.getPropertyDescriptor()));
+                    }
+                    values.add(list);
+                }
+            }
+            finally
+            {
+                readLock.unlock();
+            }
+
+            /* Check for the case where one of the groups has an indefinite
+             * interval. In this case, retrieve the values from the rows and
+             * replace the indefinite interval with the extent of the actual
+             * values. */
+            Iterator<List<Object>> valueIter = values.iterator();
+            for (IntervalPropertyMatcher<?> param : parameters)
+            {
+                List<Object> list = valueIter.next();
+                for (int groupIndex = 0; groupIndex < groupIds.length; ++groupIndex)
+                {
+                    if (param.isIndefinite(list.get(groupIndex)))
+                    {
+                        long[] ids = getIds(new int[] { groupIds[groupIndex] }, parameters, null, 0, Integer.MAX_VALUE);
+                        if (ids.length > 0)
+                        {
+                            PropertyValueMap drillDownMap = new PropertyValueMap();
+                            drillDownMap.addResultList(param.getPropertyDescriptor(), ids.length);
+                            getValues(ids, drillDownMap, null);
+
+                            List<?> resultList = drillDownMap.getResultList(param.getPropertyDescriptor());
+                            @SuppressWarnings("unchecked")
+                            Accumulator<Object> accumulator = (Accumulator<Object>)param.getAccumulator();
+                            accumulator.addAll(resultList);
+                            list.set(groupIndex, accumulator.getExtent());
+                        }
+                    }
+                }
+            }
+
+            Collection<Satisfaction> results = New.collection(groupIds.length);
+            for (int groupIndex = 0; groupIndex < groupIds.length; ++groupIndex)
+            {
+                IntervalPropertyValueSet.Builder builder = new IntervalPropertyValueSet.Builder();
+                valueIter = values.iterator();
+                for (IntervalPropertyMatcher<?> param : parameters)
+                {
+                    builder.add(param.getPropertyDescriptor(), valueIter.next().get(groupIndex));
+                }
+                results.add(new MVStoreSatisfaction(groupIds[groupIndex], builder.create()));
+            }
+            return results;
+        }
+        catch (CacheException | NotSerializableException e)
+        {
+            LOGGER.error("Failed to retrieve satisfaction: " + e, e);
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public void getValues(long[] ids, PropertyValueMap cacheResultMap, TIntList failedIndices) throws CacheException
+    {
+        if (isClosed() || ids.length == 0 || cacheResultMap.isEmpty())
+        {
+            return;
+        }
+
+        List<PropertyDescriptor<?>> props = New.list(cacheResultMap.getPropertyDescriptors());
+        List<List<Object>> results = New.list(props.size());
+        for (PropertyDescriptor<?> desc : props)
+        {
+            @SuppressWarnings("unchecked")
+            List<Object> list = (List<Object>)cacheResultMap.getResultList(desc);
+            results.add(list);
+        }
+
+        Lock readLock = myLock.readLock();
+        readLock.lock();
+        try
+        {
+            List<MVMap<Long, byte[]>> maps = New.list(props.size());
+            for (PropertyDescriptor<?> desc : props)
+            {
+                maps.add(getValueMap(getValueMapName(desc), false));
+            }
+
+            for (int index = 0; index < ids.length; ++index)
+            {
+                Long key = Long.valueOf(ids[index]);
+                boolean failed = !myRowMap.containsKey(key);
+                for (int propIndex = 0; propIndex < props.size(); ++propIndex)
+                {
+                    Object value = null;
+                    if (!failed)
+                    {
+                        try
+                        {
+                            value = getValue(maps.get(propIndex), key);
+                        }
+                        catch (CacheException e)
+                        {
+                            LOGGER.warn("Failed to get property value: " + e, e);
+                            failed = true;
+                        }
+                    }
+                    results.get(propIndex).add(value);
+                }
+                if (failed && failedIndices != null)
+                {
+                    failedIndices.add(index);
+                }
+            }
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public long[] getValueSizes(long[] ids, PropertyDescriptor<?> desc) throws CacheException
+    {
+        if (isClosed() || ids.length == 0)
+        {
+            return new long[0];
+        }
+
+        long[] sizes = new long[ids.length];
+        Lock readLock = myLock.readLock();
+        readLock.lock();
+        try
+        {
+            MVMap<Long, byte[]> map = getValueMap(getValueMapName(desc), false);
+            if (map != null)
+            {
+                for (int index = 0; index < ids.length; ++index)
+                {
+                    byte[] bytes = map.get(Long.valueOf(ids[index]));
+                    sizes[index] = bytes == null ? 0L : myCodec.getSize(bytes);
+                }
+            }
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+        return sizes;
+    }
+
+    @Override
+    public synchronized void initialize(long millisecondsWait) throws CacheException
+    {
+        if (!myClosed)
+        {
+            return;
+        }
+
+        long t0 = System.nanoTime();
+        Lock writeLock = myLock.writeLock();
+        writeLock.lock();
+        try
+        {
+            myStore = openStore();
+            myMetaMap = myStore.openMap(META_MAP_NAME);
+            String schemaVersion = myMetaMap.get(META_SCHEMA_VERSION);
+            if (!SCHEMA_VERSION.equals(schemaVersion))
+            {
+                if (schemaVersion != null)
+                {
+                    LOGGER.info("Cache schema version is " + schemaVersion + "; expected " + SCHEMA_VERSION
+                            + ". Removing existing data.");
+                }
+                for (String name : myStore.getMapNames())
+                {
+                    if (!META_MAP_NAME.equals(name))
+                    {
+                        myStore.removeMap(myStore.openMap(name));
+                    }
+                }
+                myMetaMap.clear();
+                myMetaMap.put(META_SCHEMA_VERSION, SCHEMA_VERSION);
+            }
+
+            myGroupMap = myStore.openMap(GROUP_MAP_NAME);
+            myRowMap = myStore.openMap(ROW_MAP_NAME);
+            MVMap<Long, byte[]> streamMap = myStore.openMap(STREAM_MAP_NAME);
+            StreamStore streamStore = new StreamStore(streamMap);
+            Long lastStreamKey = streamMap.lastKey();
+            streamStore.setNextKey(lastStreamKey == null ? 0L : lastStreamKey.longValue() + 1L);
+            myCodec = new ValueCodec(streamStore);
+
+            loadGroups();
+            myClosed = false;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+
+        deleteSessionGroups();
+
+        if (myExecutor != null)
+        {
+            final int trimDelayMilliseconds = Integer.getInteger("opensphere.db.dataTrimmerDelayMilliseconds", 5000).intValue();
+            myTrimExecutor = new ProcrastinatingExecutor(myExecutor, trimDelayMilliseconds);
+
+            final long delayMilliseconds = 1000L;
+            final long periodMilliseconds = Long.getLong("opensphere.db.gcPeriodMilliseconds", 5000L).longValue();
+            myExecutor.scheduleWithFixedDelay(this::deleteExpiredGroups, delayMilliseconds, periodMilliseconds,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        if (LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug(StringUtilities.formatTimingMessage("Cache initialized in ", System.nanoTime() - t0));
+        }
+    }
+
+    /**
+     * Get if the cache has been closed.
+     *
+     * @return If the cache has been closed.
+     */
+    public boolean isClosed()
+    {
+        return myClosed;
+    }
+
+    @Override
+    public <T> long[] put(CacheDeposit<T> insert, CacheModificationListener listener)
+        throws CacheException, NotSerializableException
+    {
+        Utilities.checkNull(insert, "insert");
+        Utilities.checkNull(insert.getCategory(), "insert.getCategory()");
+        Utilities.checkNull(insert.getAccessors(), "insert.getAccessors()");
+        Utilities.checkNull(insert.getInput(), "insert.getInput()");
+
+        if (insert.isNew())
+        {
+            DataModelCategory category = insert.getCategory();
+            Utilities.checkNull(category.getSource(), "insert.getCategory().getSource()");
+            Utilities.checkNull(category.getFamily(), "insert.getCategory().getFamily()");
+            Utilities.checkNull(category.getCategory(), "insert.getCategory().getCategory()");
+        }
+
+        if (isClosed())
+        {
+            return new long[0];
+        }
+
+        Collection<PersistentPropertyAccessor<? super T, ?>> accessors = getPersistentAccessors(insert.getAccessors());
+        List<CacheModificationReport> reports = New.list();
+        long[] ids;
+        Lock writeLock = myLock.writeLock();
+        writeLock.lock();
+        try
+        {
+            if (insert.isNew())
+            {
+                ids = putNew(insert, accessors, reports);
+            }
+            else if (!accessors.isEmpty())
+            {
+                ids = putUpdate(insert, accessors, reports);
+            }
+            else
+            {
+                ids = new long[0];
+            }
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+
+        if (listener != null)
+        {
+            reports.forEach(listener::cacheModified);
+        }
+
+        if (ids.length > 0)
+        {
+            scheduleTrim();
+        }
+
+        return ids;
+    }
+
+    @Override
+    public void setClassProvider(ClassProvider provider)
+    {
+        ValueCodec codec = myCodec;
+        if (codec != null)
+        {
+            codec.setClassProvider(provider);
+        }
+    }
+
+    @Override
+    public void setInMemorySizeBytes(long bytes) throws CacheException
+    {
+        MVStore store = myStore;
+        if (store != null && !isClosed())
+        {
+            LOGGER.info("Setting MVStore cache size to " + bytes / Constants.BYTES_PER_MEGABYTE + "MB");
+            store.setCacheSize((int)Math.max(1L, bytes / Constants.BYTES_PER_MEGABYTE));
+        }
+    }
+
+    @Override
+    public void setOnDiskSizeLimitBytes(long bytes)
+    {
+        LOGGER.info("Setting database size threshold to " + bytes + "B");
+        myOnDiskSizeLimitBytes = Math.max(0L, bytes);
+        scheduleTrim();
+    }
+
+    @Override
+    public <T> void updateValues(long[] ids, Collection<? extends T> input,
+            Collection<? extends PropertyAccessor<? super T, ?>> accessors, Executor executor,
+            CacheModificationListener listener)
+        throws CacheException, NotSerializableException
+    {
+        Utilities.checkNull(ids, "ids");
+        Utilities.checkNull(input, "input");
+        Utilities.checkNull(accessors, "accessors");
+
+        if (input.size() != 1 && ids.length != input.size())
+        {
+            throw new IllegalArgumentException(
+                    "Either the input collection must be a singleton or must match the size of the id array.");
+        }
+
+        Collection<PersistentPropertyAccessor<? super T, ?>> persistentAccessors = getPersistentAccessors(accessors);
+        if (persistentAccessors.isEmpty() || isClosed())
+        {
+            return;
+        }
+
+        List<CacheModificationReport> reports = New.list();
+        Lock writeLock = myLock.writeLock();
+        writeLock.lock();
+        try
+        {
+            updateRows(ids, input, persistentAccessors, reports);
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+
+        if (listener != null)
+        {
+            reports.forEach(listener::cacheModified);
+        }
+    }
+
+    /**
+     * Delete groups that expired more than the buffer time ago.
+     */
+    protected void deleteExpiredGroups()
+    {
+        if (isClosed())
+        {
+            return;
+        }
+
+        Lock writeLock = myLock.writeLock();
+        writeLock.lock();
+        try
+        {
+            long cutoff = System.currentTimeMillis() - EXPIRATION_BUFFER_MILLISECONDS;
+            List<GroupRecord> groups = New.list();
+            for (GroupRecord group : myGroups.values())
+            {
+                if (!group.isLive(cutoff))
+                {
+                    groups.add(group);
+                }
+            }
+            if (!groups.isEmpty())
+            {
+                if (LOGGER.isDebugEnabled())
+                {
+                    LOGGER.debug("Deleting " + groups.size() + " expired groups.");
+                }
+                deleteGroups(groups);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.warn("Failed to delete expired groups: " + e, e);
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Trim the store if it is over the row limit or the on-disk size limit.
+     * Groups are removed in the same order as the SQL implementations.
+     */
+    protected void trim()
+    {
+        if (isClosed())
+        {
+            return;
+        }
+
+        Lock writeLock = myLock.writeLock();
+        writeLock.lock();
+        try
+        {
+            Comparator<GroupRecord> order = Comparator
+                    .comparing(GroupRecord::getExpiration, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(Comparator.comparingLong(GroupRecord::getCreationTime).reversed());
+
+            if (myRowLimit >= 0)
+            {
+                trimRows(order);
+            }
+
+            long sizeLimit = myOnDiskSizeLimitBytes;
+            if (sizeLimit > 0L && myStore.getFileStore() != null && myStore.getFileStore().size() > sizeLimit)
+            {
+                List<GroupRecord> groups = New.list();
+                for (GroupRecord group : myGroups.values())
+                {
+                    if (!group.isCritical())
+                    {
+                        groups.add(group);
+                    }
+                }
+                groups.sort(order);
+                LOGGER.info("Current database size is " + myStore.getFileStore().size()
+                        + "B, which is greater than the limit of " + sizeLimit + "B. Trimming/compacting database.");
+                deleteGroups(groups.subList(0, groups.size() / 2));
+                myStore.commit();
+                myStore.compactMoveChunks();
+            }
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.warn("Failed to trim cache: " + e, e);
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Add the rows of a group that match the parameters to a list.
+     *
+     * @param group The group.
+     * @param parameters The parameters.
+     * @param maxCount The maximum number of ids to collect.
+     * @param result The list of ids.
+     * @throws CacheException If the values cannot be read.
+     */
+    private void collectIds(GroupRecord group, Collection<? extends PropertyMatcher<?>> parameters, int maxCount,
+            TLongList result)
+        throws CacheException
+    {
+        PropertyMatcher<?> indexed = null;
+        if (parameters != null && group.getRowCount() >= INDEX_THRESHOLD)
+        {
+            for (PropertyMatcher<?> param : parameters)
+            {
+                if (ValueIndex.isIndexable(param) && ValueIndex.isIndexable(param.getPropertyDescriptor().getType()))
+                {
+                    indexed = param;
+                    break;
+                }
+            }
+        }
+
+        if (indexed != null)
+        {
+            long[] candidates = getDataIndex(group, indexed.getPropertyDescriptor()).getCandidates(indexed);
+            for (int index = 0; index < candidates.length && result.size() < maxCount; ++index)
+            {
+                if (matches(candidates[index], parameters, indexed instanceof TimeSpanMatcher ? indexed : null))
+                {
+                    result.add(candidates[index]);
+                }
+            }
+        }
+        else
+        {
+            long end = CacheIdUtilities.getCombinedId(group.getGroupId() + 1, 0);
+            Iterator<Long> iter = myRowMap.keyIterator(Long.valueOf(CacheIdUtilities.getCombinedId(group.getGroupId(), 0)));
+            while (iter.hasNext() && result.size() < maxCount)
+            {
+                long id = iter.next().longValue();
+                if (id >= end)
+                {
+                    break;
+                }
+                if (parameters == null || matches(id, parameters, null))
+                {
+                    result.add(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compare two values for ordering. {@code null} sorts first.
+     *
+     * @param value1 The first value.
+     * @param value2 The second value.
+     * @return The comparison result.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private int compareValues(Object value1, Object value2)
+    {
+        if (value1 == null || value2 == null)
+        {
+            return value1 == null ? value2 == null ? 0 : -1 : 1;
+        }
+        if (value1 instanceof Number && value2 instanceof Number && value1.getClass() != value2.getClass())
+        {
+            return Double.compare(((Number)value1).doubleValue(), ((Number)value2).doubleValue());
+        }
+        if (value1 instanceof Comparable)
+        {
+            return ((Comparable)value1).compareTo(value2);
+        }
+        return String.valueOf(value1).compareTo(String.valueOf(value2));
+    }
+
+    /**
+     * Delete groups and their rows.
+     *
+     * @param groups The groups.
+     */
+    @GuardedBy("myLock")
+    private void deleteGroups(Collection<GroupRecord> groups)
+    {
+        if (groups.isEmpty())
+        {
+            return;
+        }
+        for (GroupRecord group : New.list(groups))
+        {
+            Long start = Long.valueOf(CacheIdUtilities.getCombinedId(group.getGroupId(), 0));
+            long end = CacheIdUtilities.getCombinedId(group.getGroupId() + 1, 0);
+            removeRange(myRowMap, start, end, null);
+            for (String name : group.getValueMapNames())
+            {
+                MVMap<Long, byte[]> map = getValueMap(name, false);
+                if (map != null)
+                {
+                    removeRange(map, start, end, myCodec);
+                }
+            }
+            myGroupMap.remove(Integer.valueOf(group.getGroupId()));
+            myGroups.remove(Integer.valueOf(group.getGroupId()));
+            invalidateDataIndexes(group);
+        }
+        myGroupIndexes.clear();
+    }
+
+    /**
+     * Delete the groups that are only for the current session.
+     */
+    private void deleteSessionGroups()
+    {
+        Lock writeLock = myLock.writeLock();
+        writeLock.lock();
+        try
+        {
+            List<GroupRecord> groups = New.list();
+            for (GroupRecord group : myGroups.values())
+            {
+                if (group.getExpiration() == null)
+                {
+                    groups.add(group);
+                }
+            }
+            deleteGroups(groups);
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.warn("Failed to remove old session groups: " + e, e);
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Get the ids of the rows in some groups that match the parameters.
+     *
+     * @param groupIds The group ids.
+     * @param parameters The parameters.
+     * @param orderSpecifiers The order specifiers.
+     * @param startIndex The index of the first id to return.
+     * @param limit The maximum number of ids to return.
+     * @return The ids.
+     * @throws CacheException If the values cannot be read.
+     */
+    @GuardedBy("myLock")
+    private long[] doGetIds(int[] groupIds, Collection<? extends PropertyMatcher<?>> parameters,
+            List<? extends OrderSpecifier> orderSpecifiers, int startIndex, int limit)
+        throws CacheException
+    {
+        boolean ordered = CollectionUtilities.hasContent(orderSpecifiers);
+        int start = Math.max(0, startIndex);
+        int maxCount = ordered || limit < 0 ? Integer.MAX_VALUE : (int)Math.min(Integer.MAX_VALUE, (long)start + limit);
+        Collection<? extends PropertyMatcher<?>> params = CollectionUtilities.hasContent(parameters) ? parameters : null;
+
+        TLongList ids = new TLongArrayList();
+        for (int groupId : groupIds)
+        {
+            GroupRecord group = myGroups.get(Integer.valueOf(groupId));
+            if (group != null && ids.size() < maxCount)
+            {
+                collectIds(group, params, maxCount, ids);
+            }
+        }
+
+        long[] result = ids.toArray();
+        if (ordered)
+        {
+            result = sort(result, orderSpecifiers);
+        }
+
+        int end = limit < 0 ? result.length : (int)Math.min(result.length, (long)start + limit);
+        return start == 0 && end == result.length ? result : Arrays.copyOfRange(result, Math.min(start, end), end);
+    }
+
+    /**
+     * Get the row-level index for a property in a group, building it if
+     * necessary.
+     *
+     * @param group The group.
+     * @param desc The property descriptor.
+     * @return The index.
+     * @throws CacheException If the values cannot be read.
+     */
+    @GuardedBy("myLock")
+    private ValueIndex getDataIndex(GroupRecord group, PropertyDescriptor<?> desc) throws CacheException
+    {
+        String name = getValueMapName(desc);
+        String key = group.getGroupId() + ":" + name;
+        ValueIndex index;
+        synchronized (myDataIndexes)
+        {
+            index = myDataIndexes.get(key);
+        }
+        if (index == null)
+        {
+            TLongList ids = new TLongArrayList();
+            List<Object> values = New.list();
+            MVMap<Long, byte[]> map = getValueMap(name, false);
+            if (map != null)
+            {
+                long end = CacheIdUtilities.getCombinedId(group.getGroupId() + 1, 0);
+                Iterator<Long> iter = map.keyIterator(Long.valueOf(CacheIdUtilities.getCombinedId(group.getGroupId(), 0)));
+                while (iter.hasNext())
+                {
+                    Long id = iter.next();
+                    if (id.longValue() >= end)
+                    {
+                        break;
+                    }
+                    ids.add(id.longValue());
+                    values.add(getValue(map, id));
+                }
+            }
+            index = new ValueIndex(desc.getType(), ids.toArray(), values.toArray());
+            synchronized (myDataIndexes)
+            {
+                myDataIndexes.put(key, index);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the group matchers for some parameters.
+     *
+     * @param parameters The parameters.
+     * @return The group matchers.
+     */
+    private List<IntervalPropertyMatcher<?>> getGroupMatchers(Collection<? extends PropertyMatcher<?>> parameters)
+    {
+        List<IntervalPropertyMatcher<?>> intervalParameters = PropertyMatcherUtilities.getGroupMatchers(parameters);
+
+        // Replace the matchers with their group matchers.
+        ListIterator<IntervalPropertyMatcher<?>> iterator = intervalParameters.listIterator();
+        while (iterator.hasNext())
+        {
+            IntervalPropertyMatcher<?> matcher = iterator.next();
+            IntervalPropertyMatcher<?> groupMatcher = matcher.getGroupMatcher();
+            if (!Utilities.sameInstance(matcher, groupMatcher))
+            {
+                iterator.remove();
+                iterator.add(groupMatcher);
+            }
+        }
+        return intervalParameters;
+    }
+
+    /**
+     * Get the ids of the unexpired groups that match a category and interval
+     * parameters.
+     *
+     * @param category The category. Any {@code null} values are treated as
+     *            wildcards.
+     * @param parameters The interval parameters, or {@code null}.
+     * @return The group ids, in ascending order.
+     */
+    @GuardedBy("myLock")
+    private int[] getMatchingGroupIds(DataModelCategory category, Collection<? extends IntervalPropertyMatcher<?>> parameters)
+    {
+        long now = System.currentTimeMillis();
+        Collection<GroupRecord> candidates = myGroups.values();
+        IntervalPropertyMatcher<?> indexed = null;
+        if (parameters != null && myGroups.size() >= INDEX_THRESHOLD)
+        {
+            for (IntervalPropertyMatcher<?> param : parameters)
+            {
+                if (ValueIndex.isIndexable(param) && ValueIndex.isIndexable(param.getPropertyDescriptor().getType()))
+                {
+                    indexed = param;
+                    break;
+                }
+            }
+        }
+        if (indexed != null)
+        {
+            long[] groupIds = getGroupIndex(indexed.getPropertyDescriptor()).getCandidates(indexed);
+            candidates = New.list(groupIds.length);
+            for (long groupId : groupIds)
+            {
+                candidates.add(myGroups.get(Integer.valueOf((int)groupId)));
+            }
+        }
+
+        int[] result = new int[candidates.size()];
+        int count = 0;
+        for (GroupRecord group : candidates)
+        {
+            if (group.isLive(now) && category.matches(group.getCategory()) && groupMatches(group, parameters))
+            {
+                result[count++] = group.getGroupId();
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Get the group-level index for an interval property, building it if
+     * necessary.
+     *
+     * @param desc The property descriptor.
+     * @return The index.
+     */
+    @GuardedBy("myLock")
+    private ValueIndex getGroupIndex(PropertyDescriptor<?> desc)
+    {
+        return myGroupIndexes.computeIfAbsent(desc, d ->
+        {
+            long[] ids = new long[myGroups.size()];
+            Object[] values = new Object[ids.length];
+            int index = 0;
+            for (GroupRecord group : myGroups.values())
+            {
+                ids[index] = group.getGroupId();
+                values[index++] = group.getIntervalValue(d);
+            }
+            return new ValueIndex(d.getType(), ids, values);
+        });
+    }
+
+    /**
+     * Filter the persistent accessors from a collection of accessors.
+     *
+     * @param <T> The type of the input objects.
+     * @param accessors The accessors.
+     * @return The persistent accessors.
+     */
+    private <T> Collection<PersistentPropertyAccessor<? super T, ?>> getPersistentAccessors(
+            Collection<? extends PropertyAccessor<? super T, ?>> accessors)
+    {
+        Collection<PersistentPropertyAccessor<? super T, ?>> persistentAccessors = New.list(accessors.size());
+        for (PropertyAccessor<? super T, ?> propertyAccessor : accessors)
+        {
+            if (propertyAccessor instanceof PersistentPropertyAccessor)
+            {
+                persistentAccessors.add((PersistentPropertyAccessor<? super T, ?>)propertyAccessor);
+            }
+        }
+        return persistentAccessors;
+    }
+
+    /**
+     * Get the ordering value of a row.
+     *
+     * @param id The row id.
+     * @param map The value map.
+     * @param desc The property descriptor.
+     * @return The value.
+     * @throws CacheException If the value cannot be read.
+     */
+    private Object getSortValue(long id, MVMap<Long, byte[]> map, PropertyDescriptor<?> desc) throws CacheException
+    {
+        Object value = getValue(map, Long.valueOf(id));
+        if (desc instanceof PropertyArrayDescriptor && value instanceof Object[])
+        {
+            int column = ((PropertyArrayDescriptor)desc).getOrderByColumn();
+            Object[] arr = (Object[])value;
+            value = column >= 0 && column < arr.length ? arr[column] : null;
+        }
+        return value;
+    }
+
+    /**
+     * Get a value from a value map.
+     *
+     * @param map The map, which may be {@code null}.
+     * @param id The row id.
+     * @return The value, or {@code null} if there is none.
+     * @throws CacheException If the value cannot be decoded.
+     */
+    private Object getValue(MVMap<Long, byte[]> map, Long id) throws CacheException
+    {
+        byte[] bytes = map == null ? null : map.get(id);
+        return bytes == null ? null : myCodec.decode(bytes);
+    }
+
+    /**
+     * Get a value map.
+     *
+     * @param name The name of the map.
+     * @param create If the map should be created if it does not exist.
+     * @return The map, or {@code null} if it does not exist and was not
+     *         created.
+     */
+    private MVMap<Long, byte[]> getValueMap(String name, boolean create)
+    {
+        MVMap<Long, byte[]> map = myValueMaps.get(name);
+        if (map == null && (create || myStore.hasMap(name)))
+        {
+            map = myValueMaps.computeIfAbsent(name, n -> myStore.openMap(n));
+        }
+        return map;
+    }
+
+    /**
+     * Get if a group matches interval parameters, with the same semantics as
+     * the SQL implementations.
+     *
+     * @param group The group.
+     * @param parameters The parameters, or {@code null}.
+     * @return {@code true} if the group matches.
+     */
+    private boolean groupMatches(GroupRecord group, Collection<? extends IntervalPropertyMatcher<?>> parameters)
+    {
+        if (parameters != null)
+        {
+            for (IntervalPropertyMatcher<?> param : parameters)
+            {
+                Object value = group.getIntervalValue(param.getPropertyDescriptor());
+                if (param instanceof TimeSpanMatcher && ((TimeSpanMatcher)param).getOperand().isTimeless())
+                {
+                    // A timeless query matches groups without a time span.
+                    if (value != null)
+                    {
+                        return false;
+                    }
+                }
+                else if (value == null || !valueMatches(param, value))
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Invalidate the row-level indexes for a group.
+     *
+     * @param group The group.
+     */
+    private void invalidateDataIndexes(GroupRecord group)
+    {
+        String prefix = group.getGroupId() + ":";
+        synchronized (myDataIndexes)
+        {
+            myDataIndexes.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    /**
+     * Load the group records from the store.
+     */
+    @GuardedBy("myLock")
+    private void loadGroups()
+    {
+        myGroups.clear();
+        myGroupIndexes.clear();
+        List<GroupRecord> corrupt = New.list();
+        for (Entry<Integer, byte[]> entry : myGroupMap.entrySet())
+        {
+            try
+            {
+                myGroups.put(entry.getKey(), GroupRecord.decode(entry.getKey().intValue(), entry.getValue(), myCodec));
+            }
+            catch (CacheException e)
+            {
+                LOGGER.warn("Removing unreadable group: " + e, e);
+                GroupRecord group = new GroupRecord(entry.getKey().intValue(), new DataModelCategory(null, null, null), 0L,
+                        null, false);
+                for (String name : myStore.getMapNames())
+                {
+                    if (name.startsWith(VALUE_MAP_PREFIX))
+                    {
+                        group.addValueMapName(name);
+                    }
+                }
+                corrupt.add(group);
+            }
+        }
+        deleteGroups(corrupt);
+        if (LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("Loaded " + myGroups.size() + " groups from cache.");
+        }
+    }
+
+    /**
+     * Get if a row matches parameters.
+     *
+     * @param id The row id.
+     * @param parameters The parameters.
+     * @param skip A parameter that is already known to match, or
+     *            {@code null}.
+     * @return {@code true} if the row matches.
+     * @throws CacheException If a value cannot be read.
+     */
+    private boolean matches(long id, Collection<? extends PropertyMatcher<?>> parameters, PropertyMatcher<?> skip)
+        throws CacheException
+    {
+        Long key = Long.valueOf(id);
+        for (PropertyMatcher<?> param : parameters)
+        {
+            if (Utilities.sameInstance(param, skip))
+            {
+                continue;
+            }
+            if (param instanceof TimeSpanMatcher && ((TimeSpanMatcher)param).getOperand().isTimeless())
+            {
+                // A timeless query places no constraint on the rows.
+                continue;
+            }
+            Object value = getValue(getValueMap(getValueMapName(param.getPropertyDescriptor()), false), key);
+            if (value == null || !valueMatches(param, value))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Open the store, replacing it if it cannot be read.
+     *
+     * @return The store.
+     * @throws CacheException If the store cannot be opened.
+     */
+    private MVStore openStore() throws CacheException
+    {
+        if (myPath.startsWith("mem:"))
+        {
+            return MVStore.open(null);
+        }
+
+        File dir = new File(myPath);
+        if (!dir.isDirectory() && !dir.mkdirs())
+        {
+            throw new CacheException("Failed to create cache directory: " + dir);
+        }
+        File file = new File(dir, "cache.mv.db");
+        int cacheSizeMegabytes = Integer.getInteger("opensphere.db.mvstore.cacheSizeMegabytes", 16).intValue();
+        try
+        {
+            return new MVStore.Builder().fileName(file.getPath()).cacheSize(cacheSizeMegabytes).open();
+        }
+        catch (IllegalStateException e)
+        {
+            if (DataUtils.getErrorCode(e.getMessage()) == DataUtils.ERROR_FILE_LOCKED)
+            {
+                throw new DatabaseAlreadyOpenException();
+            }
+            LOGGER.warn("Failed to open cache at " + file + "; replacing it: " + e, e);
+            if (!file.delete())
+            {
+                throw new CacheException("Failed to delete unreadable cache: " + file, e);
+            }
+            try
+            {
+                return new MVStore.Builder().fileName(file.getPath()).cacheSize(cacheSizeMegabytes).open();
+            }
+            catch (IllegalStateException e2)
+            {
+                throw new CacheException("Failed to open cache: " + e2, e2);
+            }
+        }
+    }
+
+    /**
+     * Insert models into a new or reused group.
+     *
+     * @param <T> The type of the input objects.
+     * @param insert The deposit.
+     * @param accessors The persistent accessors.
+     * @param reports The output modification reports.
+     * @return The ids of the new rows.
+     * @throws CacheException If the values cannot be stored.
+     * @throws NotSerializableException If a value is not serializable.
+     */
+    @GuardedBy("myLock")
+    private <T> long[] putNew(CacheDeposit<T> insert, Collection<PersistentPropertyAccessor<? super T, ?>> accessors,
+            List<CacheModificationReport> reports)
+        throws CacheException, NotSerializableException
+    {
+        Date expirationDate = insert.getExpirationDate();
+        Long expiration = Utilities.sameInstance(expirationDate, CacheDeposit.SESSION_END) || expirationDate == null ? null
+                : Long.valueOf(expirationDate.getTime());
+
+        GroupRecord group = getReusableGroup(insert, accessors, expiration);
+        boolean newGroup = group == null;
+        if (newGroup)
+        {
+            String next = myMetaMap.get(META_NEXT_GROUP_ID);
+            int groupId = next == null ? 1 : Integer.parseInt(next);
+            myMetaMap.put(META_NEXT_GROUP_ID, Integer.toString(groupId + 1));
+            group = new GroupRecord(groupId, insert.getCategory(), System.currentTimeMillis(), expiration, insert.isCritical());
+            for (PersistentPropertyAccessor<? super T, ?> accessor : accessors)
+            {
+                if (accessor instanceof IntervalPropertyAccessor)
+                {
+                    group.setIntervalValue(accessor.getPropertyDescriptor(),
+                            ((IntervalPropertyAccessor<?, ?>)accessor).getExtent());
+                }
+            }
+        }
+
+        List<T> input = New.list();
+        insert.getInput().forEach(input::add);
+        int firstDataId = group.addRows(input.size());
+        long[] ids = new long[input.size()];
+        boolean success = false;
+        try
+        {
+            for (int index = 0; index < ids.length; ++index)
+            {
+                ids[index] = CacheIdUtilities.getCombinedId(group.getGroupId(), firstDataId + index);
+                Long key = Long.valueOf(ids[index]);
+                myRowMap.put(key, Boolean.TRUE);
+                T obj = input.get(index);
+                for (PersistentPropertyAccessor<? super T, ?> accessor : accessors)
+                {
+                    putValue(group, accessor.getPropertyDescriptor(), key, accessor.access(obj));
+                }
+            }
+            saveGroup(group);
+            success = true;
+        }
+        finally
+        {
+            if (!success)
+            {
+                if (newGroup)
+                {
+                    deleteGroups(Collections.singleton(group));
+                }
+                else
+                {
+                    // Restore the saved state of the reused group.
+                    myGroups.put(Integer.valueOf(group.getGroupId()),
+                            GroupRecord.decode(group.getGroupId(), myGroupMap.get(Integer.valueOf(group.getGroupId())), myCodec));
+                    for (long id : ids)
+                    {
+                        myRowMap.remove(Long.valueOf(id));
+                    }
+                }
+            }
+        }
+
+        myGroups.put(Integer.valueOf(group.getGroupId()), group);
+        invalidateDataIndexes(group);
+        if (newGroup)
+        {
+            myGroupIndexes.clear();
+        }
+
+        reports.add(new CacheModificationReport(insert.getCategory(), ids,
+                accessors.stream().map(a -> a.getPropertyDescriptor()).collect(Collectors.toList())));
+        return ids;
+    }
+
+    /**
+     * Update the values of all the rows in a category.
+     *
+     * @param <T> The type of the input objects.
+     * @param insert The deposit.
+     * @param accessors The persistent accessors.
+     * @param reports The output modification reports.
+     * @return The ids of the updated rows.
+     * @throws CacheException If the values cannot be stored.
+     * @throws NotSerializableException If a value is not serializable.
+     */
+    @GuardedBy("myLock")
+    private <T> long[] putUpdate(CacheDeposit<T> insert, Collection<PersistentPropertyAccessor<? super T, ?>> accessors,
+            List<CacheModificationReport> reports)
+        throws CacheException, NotSerializableException
+    {
+        int[] groupIds = getMatchingGroupIds(insert.getCategory(), null);
+        if (groupIds.length == 0)
+        {
+            return new long[0];
+        }
+        long[] ids = doGetIds(groupIds, null, null, 0, Integer.MAX_VALUE);
+
+        List<T> input = New.list();
+        insert.getInput().forEach(input::add);
+
+        // Do a quick sanity check.
+        if (input.size() != 1 && ids.length != input.size())
+        {
+            throw new CacheException("Records could not be found for update attempt.");
+        }
+
+        updateRows(ids, input, accessors, reports);
+        return ids;
+    }
+
+    /**
+     * Store a value for a row, replacing any existing value.
+     *
+     * @param group The group of the row.
+     * @param desc The property descriptor.
+     * @param key The row id.
+     * @param value The value.
+     * @throws CacheException If the value cannot be encoded.
+     * @throws NotSerializableException If the value is not serializable.
+     */
+    @GuardedBy("myLock")
+    private void putValue(GroupRecord group, PropertyDescriptor<?> desc, Long key, Object value)
+        throws CacheException, NotSerializableException
+    {
+        String name = getValueMapName(desc);
+        if (value == null)
+        {
+            removeValue(group, getValueMap(name, false), key);
+            return;
+        }
+
+        byte[] bytes = myCodec.encode(value);
+        MVMap<Long, byte[]> map = getValueMap(name, true);
+        group.addValueMapName(name);
+        group.addBytes(myCodec.getSize(bytes));
+        byte[] old = map.put(key, bytes);
+        if (old != null)
+        {
+            group.addBytes(-myCodec.getSize(old));
+            myCodec.release(old);
+        }
+    }
+
+    /**
+     * Remove the entries in a key range from a map.
+     *
+     * @param <V> The type of the values.
+     * @param map The map.
+     * @param start The first key.
+     * @param end The key after the last key.
+     * @param codec The codec used to release the values, or {@code null}.
+     */
+    private <V> void removeRange(MVMap<Long, V> map, Long start, long end, ValueCodec codec)
+    {
+        TLongList keys = new TLongArrayList();
+        Iterator<Long> iter = map.keyIterator(start);
+        while (iter.hasNext())
+        {
+            long key = iter.next().longValue();
+            if (key >= end)
+            {
+                break;
+            }
+            keys.add(key);
+        }
+        for (int index = 0; index < keys.size(); ++index)
+        {
+            V old = map.remove(Long.valueOf(keys.get(index)));
+            if (codec != null && old instanceof byte[])
+            {
+                codec.release((byte[])old);
+            }
+        }
+    }
+
+    /**
+     * Remove a value for a row.
+     *
+     * @param group The group of the row.
+     * @param map The value map, which may be {@code null}.
+     * @param key The row id.
+     */
+    @GuardedBy("myLock")
+    private void removeValue(GroupRecord group, MVMap<Long, byte[]> map, Long key)
+    {
+        byte[] old = map == null ? null : map.remove(key);
+        if (old != null)
+        {
+            group.addBytes(-myCodec.getSize(old));
+            myCodec.release(old);
+        }
+    }
+
+    /**
+     * Find an existing group that can take the deposit.
+     *
+     * @param <T> The type of the input objects.
+     * @param insert The deposit.
+     * @param accessors The persistent accessors.
+     * @param expiration The expiration of the deposit, or {@code null} if it
+     *            is for the session.
+     * @return The group, or {@code null} if none can be reused.
+     */
+    @GuardedBy("myLock")
+    private <T> GroupRecord getReusableGroup(CacheDeposit<T> insert,
+            Collection<PersistentPropertyAccessor<? super T, ?>> accessors, Long expiration)
+    {
+        if (!(insert.getInput() instanceof Collection) || ((Collection<?>)insert.getInput()).size() >= MAX_GROUP_REUSE_SIZE)
+        {
+            return null;
+        }
+
+        List<IntervalPropertyMatcher<?>> matchers = New.list();
+        for (PersistentPropertyAccessor<? super T, ?> accessor : accessors)
+        {
+            if (accessor instanceof IntervalPropertyAccessor)
+            {
+                matchers.add(((IntervalPropertyAccessor<?, ?>)accessor).createMatcher());
+            }
+        }
+
+        long minExpiration;
+        long maxExpiration;
+        if (expiration == null)
+        {
+            minExpiration = 0L;
+            maxExpiration = 0L;
+        }
+        else if (expiration.longValue() - System.currentTimeMillis() > EXPIRATION_TIME_BUFFER_MILLISECONDS * 5)
+        {
+            minExpiration = expiration.longValue() - EXPIRATION_TIME_BUFFER_MILLISECONDS;
+            maxExpiration = expiration.longValue();
+        }
+        else
+        {
+            minExpiration = expiration.longValue();
+            maxExpiration = expiration.longValue();
+        }
+
+        for (GroupRecord group : myGroups.values())
+        {
+            Long groupExpiration = group.getExpiration();
+            if (group.isCritical() == insert.isCritical() && insert.getCategory().equals(group.getCategory())
+                    && (expiration == null ? groupExpiration == null
+                            : groupExpiration != null && groupExpiration.longValue() >= minExpiration
+                                    && groupExpiration.longValue() <= maxExpiration)
+                    && groupMatches(group, matchers))
+            {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Save a group record to the store.
+     *
+     * @param group The group.
+     * @throws CacheException If the group cannot be encoded.
+     */
+    @GuardedBy("myLock")
+    private void saveGroup(GroupRecord group) throws CacheException
+    {
+        try
+        {
+            myGroupMap.put(Integer.valueOf(group.getGroupId()), group.encode(myCodec));
+        }
+        catch (NotSerializableException e)
+        {
+            throw new CacheException("Failed to save group: " + e, e);
+        }
+    }
+
+    /**
+     * Schedule the trimmer if there are limits.
+     */
+    private void scheduleTrim()
+    {
+        ProcrastinatingExecutor executor = myTrimExecutor;
+        if (executor != null && (myRowLimit >= 0 || myOnDiskSizeLimitBytes > 0L))
+        {
+            executor.execute(this::trim);
+        }
+    }
+
+    /**
+     * Sort ids by the order specifiers. Ties keep their original order.
+     *
+     * @param ids The ids.
+     * @param orderSpecifiers The order specifiers.
+     * @return The sorted ids.
+     * @throws CacheException If the values cannot be read.
+     */
+    private long[] sort(long[] ids, List<? extends OrderSpecifier> orderSpecifiers) throws CacheException
+    {
+        Object[][] keys = new Object[orderSpecifiers.size()][];
+        for (int specIndex = 0; specIndex < keys.length; ++specIndex)
+        {
+            PropertyDescriptor<?> desc = orderSpecifiers.get(specIndex).getPropertyDescriptor();
+            MVMap<Long, byte[]> map = getValueMap(getValueMapName(desc), false);
+            keys[specIndex] = new Object[ids.length];
+            for (int index = 0; index < ids.length; ++index)
+            {
+                keys[specIndex][index] = getSortValue(ids[index], map, desc);
+            }
+        }
+
+        Integer[] order = new Integer[ids.length];
+        for (int index = 0; index < order.length; ++index)
+        {
+            order[index] = Integer.valueOf(index);
+        }
+        Arrays.sort(order, (o1, o2) ->
+        {
+            for (int specIndex = 0; specIndex < keys.length; ++specIndex)
+            {
+                int result = compareValues(keys[specIndex][o1.intValue()], keys[specIndex][o2.intValue()]);
+                if (result != 0)
+                {
+                    return orderSpecifiers.get(specIndex).getOrder() == OrderSpecifier.Order.DESCENDING ? -result : result;
+                }
+            }
+            return 0;
+        });
+
+        long[] sorted = new long[ids.length];
+        for (int index = 0; index < sorted.length; ++index)
+        {
+            sorted[index] = ids[order[index].intValue()];
+        }
+        return sorted;
+    }
+
+    /**
+     * Remove the oldest groups until the row count is under the limit.
+     *
+     * @param order The order in which groups are considered.
+     */
+    @GuardedBy("myLock")
+    private void trimRows(Comparator<GroupRecord> order)
+    {
+        List<GroupRecord> groups = New.list();
+        for (GroupRecord group : myGroups.values())
+        {
+            if (!group.isCritical() && group.getExpiration() != null)
+            {
+                groups.add(group);
+            }
+        }
+        groups.sort(order);
+
+        final float targetRatio = .8f;
+        long count = 0L;
+        List<GroupRecord> toRemove = New.list();
+        for (GroupRecord group : groups)
+        {
+            count += group.getRowCount();
+            if (count >= myRowLimit * targetRatio)
+            {
+                toRemove.add(group);
+            }
+        }
+        if (count >= myRowLimit && !toRemove.isEmpty())
+        {
+            LOGGER.info("Row count " + count + " is over the limit of " + myRowLimit + "; removing " + toRemove.size()
+                    + " groups.");
+            deleteGroups(toRemove);
+        }
+    }
+
+    /**
+     * Update the values of rows.
+     *
+     * @param <T> The type of the input objects.
+     * @param ids The row ids.
+     * @param input The input objects, either a singleton or one per id.
+     * @param accessors The persistent accessors.
+     * @param reports The output modification reports.
+     * @throws CacheException If the values cannot be stored.
+     * @throws NotSerializableException If a value is not serializable.
+     */
+    @GuardedBy("myLock")
+    private <T> void updateRows(long[] ids, Collection<? extends T> input,
+            Collection<PersistentPropertyAccessor<? super T, ?>> accessors, List<CacheModificationReport> reports)
+        throws CacheException, NotSerializableException
+    {
+        List<PropertyDescriptor<?>> descriptors = New.list(accessors.size());
+        accessors.forEach(a -> descriptors.add(a.getPropertyDescriptor()));
+
+        Map<GroupRecord, TLongList> groupToIds = New.insertionOrderMap();
+        Iterator<? extends T> inputIter = input.iterator();
+        T obj = null;
+        for (long id : ids)
+        {
+            if (obj == null || input.size() > 1)
+            {
+                obj = inputIter.next();
+            }
+            Long key = Long.valueOf(id);
+            GroupRecord group = myGroups.get(Integer.valueOf(CacheIdUtilities.getGroupIdFromCombinedId(id)));
+            if (group == null || !myRowMap.containsKey(key))
+            {
+                continue;
+            }
+            for (PersistentPropertyAccessor<? super T, ?> accessor : accessors)
+            {
+                putValue(group, accessor.getPropertyDescriptor(), key, accessor.access(obj));
+            }
+            groupToIds.computeIfAbsent(group, g -> new TLongArrayList()).add(id);
+        }
+
+        boolean intervalsChanged = false;
+        for (Entry<GroupRecord, TLongList> entry : groupToIds.entrySet())
+        {
+            GroupRecord group = entry.getKey();
+            for (PersistentPropertyAccessor<? super T, ?> accessor : accessors)
+            {
+                if (accessor instanceof IntervalPropertyAccessor)
+                {
+                    group.setIntervalValue(accessor.getPropertyDescriptor(),
+                            ((IntervalPropertyAccessor<?, ?>)accessor).getExtent());
+                    intervalsChanged = true;
+                }
+            }
+            saveGroup(group);
+            invalidateDataIndexes(group);
+            reports.add(new CacheModificationReport(group.getCategory(), entry.getValue().toArray(), descriptors));
+        }
+        if (intervalsChanged)
+        {
+            myGroupIndexes.clear();
+        }
+    }
+
+    /**
+     * Get if a value matches a parameter, with the same semantics as the SQL
+     * implementations.
+     *
+     * @param param The parameter.
+     * @param value The value, which is not {@code null}.
+     * @return {@code true} if the value matches.
+     */
+    private boolean valueMatches(PropertyMatcher<?> param, Object value)
+    {
+        if (param instanceof TimeSpanMatcher)
+        {
+            return value instanceof TimeSpan && overlaps((TimeSpan)value, ((TimeSpanMatcher)param).getOperand());
+        }
+        else if (param instanceof NumberPropertyMatcher)
+        {
+            if (!(value instanceof Number))
+            {
+                return false;
+            }
+            NumberPropertyMatcher<?> numberMatcher = (NumberPropertyMatcher<?>)param;
+            int result = Double.compare(((Number)value).doubleValue(), numberMatcher.getOperand().doubleValue());
+            switch (numberMatcher.getOperator())
+            {
+                case EQ:
+                    return result == 0;
+                case GT:
+                    return result > 0;
+                case GTE:
+                    return result >= 0;
+                case LT:
+                    return result < 0;
+                case LTE:
+                    return result <= 0;
+                case NE:
+                    return result != 0;
+                default:
+                    return false;
+            }
+        }
+        else if (param instanceof MultiPropertyMatcher)
+        {
+            return ((MultiPropertyMatcher<?>)param).getOperands().contains(value);
+        }
+        else
+        {
+            return param.matches(value);
+        }
+    }
+
+    /**
+     * Implementation of {@link Satisfaction} that knows its group.
+     */
+    protected static class MVStoreSatisfaction extends SingleSatisfaction
+    {
+        /** The group id. */
+        private final int myGroupId;
+
+        /**
+         * Constructor.
+         *
+         * @param groupId The group id.
+         * @param intervalPropertyValueSet The interval property value set.
+         */
+        public MVStoreSatisfaction(int groupId, IntervalPropertyValueSet intervalPropertyValueSet)
+        {
+            super(intervalPropertyValueSet);
+            myGroupId = groupId;
+        }
+
+        /**
+         * The id for the group that provides this satisfaction.
+         *
+         * @return The group id.
+         */
+        public int getGroupId()
+        {
+            return myGroupId;
+        }
+    }
+}
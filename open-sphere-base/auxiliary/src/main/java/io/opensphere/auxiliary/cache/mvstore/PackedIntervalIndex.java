@@ -0,0 +1,186 @@
+package io.opensphere.auxiliary.cache.mvstore;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntConsumer;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A static index of half-open intervals. The intervals are sorted by their
+ * start values and the sorted array is treated as an implicit balanced binary
+ * tree, where each node also stores the maximum end value in its subtree. This
+ * needs no pointers and is built in linear time after the sort.
+ */
+@Immutable
+public final class PackedIntervalIndex
+{
+    /** Subtrees at or below this level are scanned linearly. */
+    private static final int SCAN_LEVEL = 3;
+
+    /** The end values, in start order. */
+    private final long[] myEnds;
+
+    /** The indices of the intervals as provided to the constructor. */
+    private final int[] myItems;
+
+    /** The maximum end value in the subtree of each node. */
+    private final long[] myMaxEnds;
+
+    /** The level of the root of the tree, or -1 if the index is empty. */
+    private final int myMaxLevel;
+
+    /** The start values, sorted. */
+    private final long[] myStarts;
+
+    /**
+     * Build the index.
+     *
+     * @param starts The start values of the intervals (inclusive).
+     * @param ends The end values of the intervals (exclusive).
+     */
+    public PackedIntervalIndex(long[] starts, long[] ends)
+    {
+        if (starts.length != ends.length)
+        {
+            throw new IllegalArgumentException("The start and end arrays must have the same length.");
+        }
+        int size = starts.length;
+
+        Integer[] order = new Integer[size];
+        for (int index = 0; index < size; ++index)
+        {
+            order[index] = Integer.valueOf(index);
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> starts[i.intValue()]));
+
+        myStarts = new long[size];
+        myEnds = new long[size];
+        myItems = new int[size];
+        myMaxEnds = new long[size];
+        for (int index = 0; index < size; ++index)
+        {
+            int item = order[index].intValue();
+            myStarts[index] = starts[item];
+            myEnds[index] = ends[item];
+            myItems[index] = item;
+        }
+
+        if (size == 0)
+        {
+            myMaxLevel = -1;
+            return;
+        }
+
+        // The leaves are the even positions.
+        long last = 0L;
+        int lastIndex = 0;
+        for (int index = 0; index < size; index += 2)
+        {
+            lastIndex = index;
+            last = myEnds[index];
+            myMaxEnds[index] = last;
+        }
+
+        // Each level up, the nodes are spaced twice as far apart. A node's
+        // right subtree may extend past the end of the array, in which case
+        // the maximum of the last node on the previous level is used.
+        int level;
+        for (level = 1; 1L << level <= size; ++level)
+        {
+            int half = 1 << level - 1;
+            int step = half << 2;
+            for (int index = (half << 1) - 1; index < size; index += step)
+            {
+                long leftMax = myMaxEnds[index - half];
+                long rightMax = index + half < size ? myMaxEnds[index + half] : last;
+                myMaxEnds[index] = Math.max(myEnds[index], Math.max(leftMax, rightMax));
+            }
+            lastIndex = (lastIndex >> level & 1) == 0 ? lastIndex + half : lastIndex - half;
+            if (lastIndex < size && myMaxEnds[lastIndex] > last)
+            {
+                last = myMaxEnds[lastIndex];
+            }
+        }
+        myMaxLevel = level - 1;
+    }
+
+    /**
+     * Find the intervals that overlap a query interval. An interval overlaps
+     * the query if its end is greater than the query start and its start is
+     * less than the query end.
+     *
+     * @param start The start of the query interval.
+     * @param end The end of the query interval.
+     * @param consumer Receives the indices of the matching intervals, as
+     *            provided to the constructor, in order of their start values.
+     */
+    public void search(long start, long end, IntConsumer consumer)
+    {
+        if (myMaxLevel < 0)
+        {
+            return;
+        }
+
+        int size = myStarts.length;
+
+        // Each stack frame is the level, the node index, and whether the left
+        // subtree has been visited.
+        int[] stack = new int[(myMaxLevel + 2) * 6];
+        int top = 0;
+        stack[top++] = myMaxLevel;
+        stack[top++] = (1 << myMaxLevel) - 1;
+        stack[top++] = 0;
+        while (top > 0)
+        {
+            boolean leftDone = stack[--top] != 0;
+            int node = stack[--top];
+            int level = stack[--top];
+            if (level <= SCAN_LEVEL)
+            {
+                int first = node >> level << level;
+                int limit = Math.min(size, first + (1 << level + 1) - 1);
+                for (int index = first; index < limit && myStarts[index] < end; ++index)
+                {
+                    if (myEnds[index] > start)
+                    {
+                        consumer.accept(myItems[index]);
+                    }
+                }
+            }
+            else if (!leftDone)
+            {
+                int left = node - (1 << level - 1);
+                stack[top++] = level;
+                stack[top++] = node;
+                stack[top++] = 1;
+                if (left >= size || myMaxEnds[left] > start)
+                {
+                    stack[top++] = level - 1;
+                    stack[top++] = left;
+                    stack[top++] = 0;
+                }
+            }
+            else if (node < size && myStarts[node] < end)
+            {
+                if (myEnds[node] > start)
+                {
+                    consumer.accept(myItems[node]);
+                }
+                stack[top++] = level - 1;
+                stack[top++] = node + (1 << level - 1);
+                stack[top++] = 0;
+            }
+        }
+    }
+
+    /**
+     * Get the number of intervals in the index.
+     *
+     * @return The number of intervals.
+     */
+    public int size()
+    {
+        return myStarts.length;
+    }
+}
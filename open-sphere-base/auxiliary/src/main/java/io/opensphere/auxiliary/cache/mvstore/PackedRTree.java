@@ -0,0 +1,278 @@
+package io.opensphere.auxiliary.cache.mvstore;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A static R-tree that is bulk-loaded from a set of bounding boxes. The boxes
+ * are sorted by the Hilbert value of their centers and packed into nodes of
+ * {@link #NODE_SIZE} entries, with no empty space in the nodes. The whole tree
+ * is stored in a few flat arrays, so it is compact and quick to build, but it
+ * cannot be modified after it is built.
+ */
+@Immutable
+public final class PackedRTree
+{
+    /** The number of children in each node. */
+    public static final int NODE_SIZE = 16;
+
+    /** The range of the Hilbert coordinates. */
+    private static final int HILBERT_MAX = (1 << 16) - 1;
+
+    /**
+     * The boxes of the items followed by the boxes of the nodes, each as min x,
+     * min y, max x, max y.
+     */
+    private final double[] myBoxes;
+
+    /**
+     * For items, the index of the item as provided to the constructor. For
+     * nodes, the position of the node's first child.
+     */
+    private final int[] myIndices;
+
+    /** The end position of each level of the tree, from the leaves up. */
+    private final int[] myLevelBounds;
+
+    /** The number of items. */
+    private final int mySize;
+
+    /**
+     * Calculate the position of a point on a 16-bit Hilbert curve.
+     *
+     * @param x The x coordinate, between 0 and 65535.
+     * @param y The y coordinate, between 0 and 65535.
+     * @return The position on the curve.
+     */
+    @SuppressWarnings("PMD.ShortVariable")
+    static long hilbert(int x, int y)
+    {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ (x | y);
+        int d = x & (y ^ 0xFFFF);
+
+        int aa = a | b >>> 1;
+        int bb = a >>> 1 ^ a;
+        int cc = c >>> 1 ^ b & d >>> 1 ^ c;
+        int dd = a & c >>> 1 ^ d >>> 1 ^ d;
+
+        a = aa;
+        b = bb;
+        c = cc;
+        d = dd;
+        aa = a & a >>> 2 ^ b & b >>> 2;
+        bb = a & b >>> 2 ^ b & (a ^ b) >>> 2;
+        cc ^= a & c >>> 2 ^ b & d >>> 2;
+        dd ^= b & c >>> 2 ^ (a ^ b) & d >>> 2;
+
+        a = aa;
+        b = bb;
+        c = cc;
+        d = dd;
+        aa = a & a >>> 4 ^ b & b >>> 4;
+        bb = a & b >>> 4 ^ b & (a ^ b) >>> 4;
+        cc ^= a & c >>> 4 ^ b & d >>> 4;
+        dd ^= b & c >>> 4 ^ (a ^ b) & d >>> 4;
+
+        a = aa;
+        b = bb;
+        c = cc;
+        d = dd;
+        cc ^= a & c >>> 8 ^ b & d >>> 8;
+        dd ^= b & c >>> 8 ^ (a ^ b) & d >>> 8;
+
+        a = cc ^ cc >>> 1;
+        b = dd ^ dd >>> 1;
+
+        int i0 = x ^ y;
+        int i1 = b | 0xFFFF ^ (i0 | a);
+
+        i0 = (i0 | i0 << 8) & 0x00FF00FF;
+        i0 = (i0 | i0 << 4) & 0x0F0F0F0F;
+        i0 = (i0 | i0 << 2) & 0x33333333;
+        i0 = (i0 | i0 << 1) & 0x55555555;
+
+        i1 = (i1 | i1 << 8) & 0x00FF00FF;
+        i1 = (i1 | i1 << 4) & 0x0F0F0F0F;
+        i1 = (i1 | i1 << 2) & 0x33333333;
+        i1 = (i1 | i1 << 1) & 0x55555555;
+
+        return (i1 << 1 | i0) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Scale a coordinate to the Hilbert range.
+     *
+     * @param value The coordinate.
+     * @param min The minimum coordinate of all the items.
+     * @param scale The scale factor.
+     * @return The scaled coordinate.
+     */
+    private static int scale(double value, double min, double scale)
+    {
+        return scale == 0. ? 0 : (int)Math.min(HILBERT_MAX, Math.max(0., (value - min) * scale));
+    }
+
+    /**
+     * Build the tree.
+     *
+     * @param boxes The boxes of the items, each as min x, min y, max x, max y.
+     *            The length must be a multiple of four.
+     */
+    public PackedRTree(double[] boxes)
+    {
+        if (boxes.length % 4 != 0)
+        {
+            throw new IllegalArgumentException("The box array length must be a multiple of four.");
+        }
+        mySize = boxes.length / 4;
+        if (mySize == 0)
+        {
+            myBoxes = boxes;
+            myIndices = new int[0];
+            myLevelBounds = new int[0];
+            return;
+        }
+
+        // Find the number of nodes at each level.
+        int[] levelBounds = new int[32];
+        int levels = 0;
+        int count = mySize;
+        int numNodes = count;
+        levelBounds[levels++] = numNodes;
+        do
+        {
+            count = (count + NODE_SIZE - 1) / NODE_SIZE;
+            numNodes += count;
+            levelBounds[levels++] = numNodes;
+        }
+        while (count != 1);
+        myLevelBounds = Arrays.copyOf(levelBounds, levels);
+
+        // Sort the items by the Hilbert values of their centers.
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int index = 0; index < boxes.length; index += 4)
+        {
+            minX = Math.min(minX, boxes[index]);
+            minY = Math.min(minY, boxes[index + 1]);
+            maxX = Math.max(maxX, boxes[index + 2]);
+            maxY = Math.max(maxY, boxes[index + 3]);
+        }
+        double scaleX = maxX > minX ? HILBERT_MAX / (maxX - minX) : 0.;
+        double scaleY = maxY > minY ? HILBERT_MAX / (maxY - minY) : 0.;
+        long[] keys = new long[mySize];
+        for (int item = 0; item < mySize; ++item)
+        {
+            int pos = item * 4;
+            int x = scale((boxes[pos] + boxes[pos + 2]) / 2., minX, scaleX);
+            int y = scale((boxes[pos + 1] + boxes[pos + 3]) / 2., minY, scaleY);
+            keys[item] = hilbert(x, y) << 31 | item;
+        }
+        Arrays.sort(keys);
+
+        myBoxes = new double[numNodes * 4];
+        myIndices = new int[numNodes];
+        for (int pos = 0; pos < mySize; ++pos)
+        {
+            int item = (int)(keys[pos] & Integer.MAX_VALUE);
+            System.arraycopy(boxes, item * 4, myBoxes, pos * 4, 4);
+            myIndices[pos] = item;
+        }
+
+        // Build the nodes, one level at a time.
+        int pos = 0;
+        int parent = mySize;
+        for (int level = 0; level < levels - 1; ++level)
+        {
+            int end = myLevelBounds[level];
+            while (pos < end)
+            {
+                double nodeMinX = Double.POSITIVE_INFINITY;
+                double nodeMinY = Double.POSITIVE_INFINITY;
+                double nodeMaxX = Double.NEGATIVE_INFINITY;
+                double nodeMaxY = Double.NEGATIVE_INFINITY;
+                int first = pos;
+                for (int child = 0; child < NODE_SIZE && pos < end; ++child, ++pos)
+                {
+                    nodeMinX = Math.min(nodeMinX, myBoxes[pos * 4]);
+                    nodeMinY = Math.min(nodeMinY, myBoxes[pos * 4 + 1]);
+                    nodeMaxX = Math.max(nodeMaxX, myBoxes[pos * 4 + 2]);
+                    nodeMaxY = Math.max(nodeMaxY, myBoxes[pos * 4 + 3]);
+                }
+                myBoxes[parent * 4] = nodeMinX;
+                myBoxes[parent * 4 + 1] = nodeMinY;
+                myBoxes[parent * 4 + 2] = nodeMaxX;
+                myBoxes[parent * 4 + 3] = nodeMaxY;
+                myIndices[parent++] = first;
+            }
+        }
+    }
+
+    /**
+     * Find the items whose boxes intersect a query box. Boxes that only touch
+     * the query box are included.
+     *
+     * @param minX The minimum x of the query box.
+     * @param minY The minimum y of the query box.
+     * @param maxX The maximum x of the query box.
+     * @param maxY The maximum y of the query box.
+     * @param consumer Receives the indices of the matching items, as provided
+     *            to the constructor, in no particular order.
+     */
+    public void search(double minX, double minY, double maxX, double maxY, IntConsumer consumer)
+    {
+        if (mySize == 0)
+        {
+            return;
+        }
+
+        int[] stack = new int[myLevelBounds.length * NODE_SIZE * 2];
+        int top = 0;
+        int nodeIndex = myIndices.length - 1;
+        int level = myLevelBounds.length - 1;
+        while (true)
+        {
+            int end = Math.min(nodeIndex + NODE_SIZE, myLevelBounds[level]);
+            for (int pos = nodeIndex; pos < end; ++pos)
+            {
+                int boxPos = pos * 4;
+                if (maxX < myBoxes[boxPos] || maxY < myBoxes[boxPos + 1] || minX > myBoxes[boxPos + 2]
+                        || minY > myBoxes[boxPos + 3])
+                {
+                    continue;
+                }
+                if (nodeIndex < mySize)
+                {
+                    consumer.accept(myIndices[pos]);
+                }
+                else
+                {
+                    stack[top++] = myIndices[pos];
+                    stack[top++] = level - 1;
+                }
+            }
+            if (top == 0)
+            {
+                break;
+            }
+            level = stack[--top];
+            nodeIndex = stack[--top];
+        }
+    }
+
+    /**
+     * Get the number of items in the tree.
+     *
+     * @return The number of items.
+     */
+    public int size()
+    {
+        return mySize;
+    }
+}
@@ -0,0 +1,390 @@
+package io.opensphere.auxiliary.cache.mvstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.h2.mvstore.StreamStore;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+
+import io.opensphere.auxiliary.cache.jdbc.CustomObjectInputStream;
+import io.opensphere.core.cache.CacheException;
+import io.opensphere.core.cache.ClassProvider;
+import io.opensphere.core.model.time.TimeSpan;
+
+/**
+ * Converts property values to and from bytes. Each value starts with a tag
+ * byte that identifies its type. Common types are written directly; other
+ * serializable objects use Java serialization. Input streams are copied into
+ * a {@link StreamStore} and only the stream's key is kept in the value.
+ */
+class ValueCodec
+{
+    /** Tag for an array. */
+    private static final byte TAG_ARRAY = 14;
+
+    /** Tag for a big decimal. */
+    private static final byte TAG_BIG_DECIMAL = 9;
+
+    /** Tag for a boolean. */
+    private static final byte TAG_BOOLEAN = 8;
+
+    /** Tag for a byte. */
+    private static final byte TAG_BYTE = 7;
+
+    /** Tag for a byte array. */
+    private static final byte TAG_BYTES = 12;
+
+    /** Tag for a double. */
+    private static final byte TAG_DOUBLE = 4;
+
+    /** Tag for a float. */
+    private static final byte TAG_FLOAT = 5;
+
+    /** Tag for a geometry. */
+    private static final byte TAG_GEOMETRY = 11;
+
+    /** Tag for an integer. */
+    private static final byte TAG_INTEGER = 2;
+
+    /** Tag for a long. */
+    private static final byte TAG_LONG = 3;
+
+    /** Tag for {@code null}. */
+    private static final byte TAG_NULL = 0;
+
+    /** Tag for a serialized object. */
+    private static final byte TAG_SERIALIZED = 15;
+
+    /** Tag for a short. */
+    private static final byte TAG_SHORT = 6;
+
+    /** Tag for an input stream. */
+    private static final byte TAG_STREAM = 13;
+
+    /** Tag for a string. */
+    private static final byte TAG_STRING = 1;
+
+    /** Tag for a time span. */
+    private static final byte TAG_TIME_SPAN = 10;
+
+    /** Provider for classes that are not on the system class path. */
+    private volatile ClassProvider myClassProvider;
+
+    /** The store for input stream values. */
+    private final StreamStore myStreamStore;
+
+    /**
+     * Constructor.
+     *
+     * @param streamStore The store for input stream values.
+     */
+    ValueCodec(StreamStore streamStore)
+    {
+        myStreamStore = streamStore;
+    }
+
+    /**
+     * Decode a value.
+     *
+     * @param bytes The encoded value.
+     * @return The value.
+     * @throws CacheException If the value cannot be decoded.
+     */
+    public Object decode(byte[] bytes) throws CacheException
+    {
+        try
+        {
+            return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        }
+        catch (IOException | ParseException | ClassNotFoundException | RuntimeException e)
+        {
+            throw new CacheException("Failed to decode value: " + e, e);
+        }
+    }
+
+    /**
+     * Encode a value.
+     *
+     * @param value The value.
+     * @return The encoded value.
+     * @throws CacheException If the value cannot be encoded.
+     * @throws NotSerializableException If the value is not serializable.
+     */
+    public byte[] encode(Object value) throws CacheException, NotSerializableException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try
+        {
+            write(value, new DataOutputStream(bytes));
+        }
+        catch (NotSerializableException e)
+        {
+            throw e;
+        }
+        catch (IOException e)
+        {
+            throw new CacheException("Failed to encode value: " + e, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Get the size of a value. For input streams this is the length of the
+     * stream; for other values it is the length of the encoding.
+     *
+     * @param bytes The encoded value.
+     * @return The size in bytes.
+     */
+    public long getSize(byte[] bytes)
+    {
+        return bytes.length > 0 && bytes[0] == TAG_STREAM ? myStreamStore.length(getStreamKey(bytes)) : bytes.length;
+    }
+
+    /**
+     * Release any storage used by a value that is being removed.
+     *
+     * @param bytes The encoded value.
+     */
+    public void release(byte[] bytes)
+    {
+        if (bytes.length > 0 && bytes[0] == TAG_STREAM)
+        {
+            myStreamStore.remove(getStreamKey(bytes));
+        }
+    }
+
+    /**
+     * Set the provider for classes that are not on the system class path.
+     *
+     * @param classProvider The class provider.
+     */
+    public void setClassProvider(ClassProvider classProvider)
+    {
+        myClassProvider = classProvider;
+    }
+
+    /**
+     * Get the stream store key from an encoded input stream.
+     *
+     * @param bytes The encoded value.
+     * @return The key.
+     */
+    private byte[] getStreamKey(byte[] bytes)
+    {
+        // Skip the tag and the length.
+        byte[] key = new byte[bytes.length - 5];
+        System.arraycopy(bytes, 5, key, 0, key.length);
+        return key;
+    }
+
+    /**
+     * Read a value.
+     *
+     * @param in The input.
+     * @return The value.
+     * @throws IOException If the value cannot be read.
+     * @throws ParseException If a geometry cannot be parsed.
+     * @throws ClassNotFoundException If a serialized class cannot be found.
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private Object read(DataInputStream in) throws IOException, ParseException, ClassNotFoundException
+    {
+        byte tag = in.readByte();
+        switch (tag)
+        {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case TAG_INTEGER:
+                return Integer.valueOf(in.readInt());
+            case TAG_LONG:
+                return Long.valueOf(in.readLong());
+            case TAG_DOUBLE:
+                return Double.valueOf(in.readDouble());
+            case TAG_FLOAT:
+                return Float.valueOf(in.readFloat());
+            case TAG_SHORT:
+                return Short.valueOf(in.readShort());
+            case TAG_BYTE:
+                return Byte.valueOf(in.readByte());
+            case TAG_BOOLEAN:
+                return Boolean.valueOf(in.readBoolean());
+            case TAG_BIG_DECIMAL:
+                return new BigDecimal(new String(readBytes(in), StandardCharsets.UTF_8));
+            case TAG_TIME_SPAN:
+                return TimeSpan.fromLongs(in.readLong(), in.readLong(), Long.MIN_VALUE, Long.MAX_VALUE);
+            case TAG_GEOMETRY:
+                return new WKBReader().read(readBytes(in));
+            case TAG_BYTES:
+                return readBytes(in);
+            case TAG_STREAM:
+                return myStreamStore.get(readBytes(in));
+            case TAG_ARRAY:
+                Object[] arr = new Object[in.readInt()];
+                for (int index = 0; index < arr.length; ++index)
+                {
+                    arr[index] = read(in);
+                }
+                return arr;
+            case TAG_SERIALIZED:
+                try (ObjectInputStream ois = new CustomObjectInputStream(myClassProvider, new ByteArrayInputStream(readBytes(in))))
+                {
+                    return ois.readObject();
+                }
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+
+    /**
+     * Read a length-prefixed byte array.
+     *
+     * @param in The input.
+     * @return The bytes.
+     * @throws IOException If the bytes cannot be read.
+     */
+    private byte[] readBytes(DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Write a value.
+     *
+     * @param value The value.
+     * @param out The output.
+     * @throws IOException If the value cannot be written.
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private void write(Object value, DataOutputStream out) throws IOException
+    {
+        if (value == null)
+        {
+            out.writeByte(TAG_NULL);
+        }
+        else if (value instanceof String)
+        {
+            out.writeByte(TAG_STRING);
+            writeBytes(((String)value).getBytes(StandardCharsets.UTF_8), out);
+        }
+        else if (value instanceof Integer)
+        {
+            out.writeByte(TAG_INTEGER);
+            out.writeInt(((Integer)value).intValue());
+        }
+        else if (value instanceof Long)
+        {
+            out.writeByte(TAG_LONG);
+            out.writeLong(((Long)value).longValue());
+        }
+        else if (value instanceof Double)
+        {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(((Double)value).doubleValue());
+        }
+        else if (value instanceof Float)
+        {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat(((Float)value).floatValue());
+        }
+        else if (value instanceof Short)
+        {
+            out.writeByte(TAG_SHORT);
+            out.writeShort(((Short)value).shortValue());
+        }
+        else if (value instanceof Byte)
+        {
+            out.writeByte(TAG_BYTE);
+            out.writeByte(((Byte)value).byteValue());
+        }
+        else if (value instanceof Boolean)
+        {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean(((Boolean)value).booleanValue());
+        }
+        else if (value instanceof BigDecimal)
+        {
+            out.writeByte(TAG_BIG_DECIMAL);
+            writeBytes(value.toString().getBytes(StandardCharsets.UTF_8), out);
+        }
+        else if (value instanceof TimeSpan)
+        {
+            TimeSpan span = (TimeSpan)value;
+            out.writeByte(TAG_TIME_SPAN);
+            out.writeLong(ValueIndex.getStart(span));
+            out.writeLong(ValueIndex.getEnd(span));
+        }
+        else if (value instanceof Geometry)
+        {
+            Coordinate coord = ((Geometry)value).getCoordinate();
+            int dimension = coord == null || Double.isNaN(coord.z) ? 2 : 3;
+            out.writeByte(TAG_GEOMETRY);
+            writeBytes(new WKBWriter(dimension).write((Geometry)value), out);
+        }
+        else if (value instanceof byte[])
+        {
+            out.writeByte(TAG_BYTES);
+            writeBytes((byte[])value, out);
+        }
+        else if (value instanceof InputStream)
+        {
+            out.writeByte(TAG_STREAM);
+            writeBytes(myStreamStore.put((InputStream)value), out);
+        }
+        else if (value instanceof Object[])
+        {
+            Object[] arr = (Object[])value;
+            out.writeByte(TAG_ARRAY);
+            out.writeInt(arr.length);
+            for (Object obj : arr)
+            {
+                write(obj, out);
+            }
+        }
+        else if (value instanceof Serializable)
+        {
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(serialized))
+            {
+                oos.writeObject(value);
+            }
+            out.writeByte(TAG_SERIALIZED);
+            writeBytes(serialized.toByteArray(), out);
+        }
+        else
+        {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+    }
+
+    /**
+     * Write a length-prefixed byte array.
+     *
+     * @param bytes The bytes.
+     * @param out The output.
+     * @throws IOException If the bytes cannot be written.
+     */
+    private void writeBytes(byte[] bytes, DataOutputStream out) throws IOException
+    {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
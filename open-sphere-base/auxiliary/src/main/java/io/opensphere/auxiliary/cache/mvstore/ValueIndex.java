@@ -0,0 +1,190 @@
+package io.opensphere.auxiliary.cache.mvstore;
+
+import java.util.Arrays;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+import io.opensphere.core.cache.matcher.GeometryMatcher;
+import io.opensphere.core.cache.matcher.PropertyMatcher;
+import io.opensphere.core.cache.matcher.TimeSpanMatcher;
+import io.opensphere.core.model.time.TimeSpan;
+import net.jcip.annotations.Immutable;
+
+/**
+ * An index over the time span or geometry values of a property, used to find
+ * candidate ids for a {@link TimeSpanMatcher} or a {@link GeometryMatcher}
+ * without decoding every value.
+ */
+@Immutable
+final class ValueIndex
+{
+    /** The ids of the values, in the order they were indexed. */
+    private final long[] myIds;
+
+    /** The interval index for time span values. */
+    private final PackedIntervalIndex myIntervalIndex;
+
+    /** The R-tree for geometry values. */
+    private final PackedRTree myRTree;
+
+    /**
+     * Get the end of a time span for the index.
+     *
+     * @param span The time span.
+     * @return The end.
+     */
+    static long getEnd(TimeSpan span)
+    {
+        return span.isUnboundedEnd() ? Long.MAX_VALUE : span.getEnd();
+    }
+
+    /**
+     * Get the start of a time span for the index.
+     *
+     * @param span The time span.
+     * @return The start.
+     */
+    static long getStart(TimeSpan span)
+    {
+        return span.isUnboundedStart() ? Long.MIN_VALUE : span.getStart();
+    }
+
+    /**
+     * Get if a matcher can use an index.
+     *
+     * @param matcher The matcher.
+     * @return {@code true} if the matcher can use an index.
+     */
+    static boolean isIndexable(PropertyMatcher<?> matcher)
+    {
+        return matcher instanceof TimeSpanMatcher && !((TimeSpanMatcher)matcher).getOperand().isTimeless()
+                || matcher instanceof GeometryMatcher
+                        && ((GeometryMatcher)matcher).getOperator() != GeometryMatcher.OperatorType.DISJOINT;
+    }
+
+    /**
+     * Get if the values of a type can be indexed.
+     *
+     * @param type The type.
+     * @return {@code true} if the values can be indexed.
+     */
+    static boolean isIndexable(Class<?> type)
+    {
+        return TimeSpan.class.isAssignableFrom(type) || Geometry.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param type The type of the values.
+     * @param ids The ids of the values.
+     * @param values The values. Values that are {@code null} and empty
+     *            geometries are not indexed.
+     */
+    ValueIndex(Class<?> type, long[] ids, Object[] values)
+    {
+        int count = 0;
+        for (int valueIndex = 0; valueIndex < values.length; ++valueIndex)
+        {
+            // Empty geometries do not intersect anything.
+            if (values[valueIndex] instanceof Geometry && ((Geometry)values[valueIndex]).isEmpty())
+            {
+                values[valueIndex] = null;
+            }
+            else if (values[valueIndex] != null)
+            {
+                ++count;
+            }
+        }
+        myIds = new long[count];
+
+        if (TimeSpan.class.isAssignableFrom(type))
+        {
+            long[] starts = new long[count];
+            long[] ends = new long[count];
+            int index = 0;
+            for (int valueIndex = 0; valueIndex < values.length; ++valueIndex)
+            {
+                if (values[valueIndex] != null)
+                {
+                    TimeSpan span = (TimeSpan)values[valueIndex];
+                    starts[index] = getStart(span);
+                    ends[index] = getEnd(span);
+                    myIds[index++] = ids[valueIndex];
+                }
+            }
+            myIntervalIndex = new PackedIntervalIndex(starts, ends);
+            myRTree = null;
+        }
+        else if (Geometry.class.isAssignableFrom(type))
+        {
+            double[] boxes = new double[count * 4];
+            int index = 0;
+            for (int valueIndex = 0; valueIndex < values.length; ++valueIndex)
+            {
+                if (values[valueIndex] != null)
+                {
+                    Envelope env = ((Geometry)values[valueIndex]).getEnvelopeInternal();
+                    boxes[index * 4] = env.getMinX();
+                    boxes[index * 4 + 1] = env.getMinY();
+                    boxes[index * 4 + 2] = env.getMaxX();
+                    boxes[index * 4 + 3] = env.getMaxY();
+                    myIds[index++] = ids[valueIndex];
+                }
+            }
+            myRTree = new PackedRTree(boxes);
+            myIntervalIndex = null;
+        }
+        else
+        {
+            throw new IllegalArgumentException("Values of type " + type.getName() + " cannot be indexed.");
+        }
+    }
+
+    /**
+     * Get the ids of the values that may satisfy a matcher. Time span
+     * candidates match exactly; geometry candidates only have intersecting
+     * envelopes and must still be checked.
+     *
+     * @param matcher The matcher, which must be indexable according to
+     *            {@link #isIndexable(PropertyMatcher)}.
+     * @return The sorted candidate ids.
+     */
+    long[] getCandidates(PropertyMatcher<?> matcher)
+    {
+        long[] result = new long[myIds.length];
+        int[] count = new int[1];
+        if (myIntervalIndex != null && matcher instanceof TimeSpanMatcher)
+        {
+            TimeSpan span = ((TimeSpanMatcher)matcher).getOperand();
+            myIntervalIndex.search(getStart(span), getEnd(span), index -> result[count[0]++] = myIds[index]);
+        }
+        else if (myRTree != null && matcher instanceof GeometryMatcher)
+        {
+            Envelope env = ((GeometryMatcher)matcher).getSimplifiedBounds().getEnvelopeInternal();
+            if (!env.isNull())
+            {
+                myRTree.search(env.getMinX(), env.getMinY(), env.getMaxX(), env.getMaxY(),
+                        index -> result[count[0]++] = myIds[index]);
+            }
+        }
+        else
+        {
+            throw new IllegalArgumentException("Matcher " + matcher + " cannot use this index.");
+        }
+        long[] candidates = Arrays.copyOf(result, count[0]);
+        Arrays.sort(candidates);
+        return candidates;
+    }
+
+    /**
+     * Get the number of indexed values.
+     *
+     * @return The number of values.
+     */
+    int size()
+    {
+        return myIds.length;
+    }
+}
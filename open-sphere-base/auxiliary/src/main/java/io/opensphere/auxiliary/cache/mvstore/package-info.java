@@ -0,0 +1,5 @@
+/**
+ * Implementation of {@link io.opensphere.core.cache.Cache} using the H2
+ * MVStore key-value store, with in-memory spatial and time indexes.
+ */
+package io.opensphere.auxiliary.cache.mvstore;
@@ -0,0 +1,480 @@
+package io.opensphere.auxiliary.cache.mvstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import io.opensphere.core.cache.CacheDeposit;
+import io.opensphere.core.cache.CacheException;
+import io.opensphere.core.cache.CacheModificationListener;
+import io.opensphere.core.cache.DefaultCacheDeposit;
+import io.opensphere.core.cache.PropertyValueMap;
+import io.opensphere.core.cache.accessor.GeometryAccessor;
+import io.opensphere.core.cache.accessor.PropertyAccessor;
+import io.opensphere.core.cache.accessor.SerializableAccessor;
+import io.opensphere.core.cache.accessor.TimeSpanAccessor;
+import io.opensphere.core.cache.matcher.GeometryMatcher;
+import io.opensphere.core.cache.matcher.IntervalPropertyMatcher;
+import io.opensphere.core.cache.matcher.PropertyMatcher;
+import io.opensphere.core.cache.matcher.StringPropertyMatcher;
+import io.opensphere.core.cache.matcher.TimeSpanMatcher;
+import io.opensphere.core.cache.util.PropertyDescriptor;
+import io.opensphere.core.data.util.DataModelCategory;
+import io.opensphere.core.data.util.DefaultOrderSpecifier;
+import io.opensphere.core.data.util.OrderSpecifier;
+import io.opensphere.core.data.util.OrderSpecifier.Order;
+import io.opensphere.core.data.util.Satisfaction;
+import io.opensphere.core.model.time.TimeSpan;
+import io.opensphere.core.util.lang.Nulls;
+
+/**
+ * Test for {@link MVStoreCacheImpl}.
+ */
+public class MVStoreCacheImplTest
+{
+    /** The path for the in-memory store. */
+    private static final String MEMORY_PATH = "mem:test";
+
+    /** The name property descriptor. */
+    private static final PropertyDescriptor<String> NAME_PROPERTY = new PropertyDescriptor<>("name", String.class);
+
+    /** The test category. */
+    private static final DataModelCategory CATEGORY = new DataModelCategory("source1", "family1", "category1");
+
+    /**
+     * Test clearing rows and groups.
+     *
+     * @throws CacheException If there is a cache error.
+     * @throws NotSerializableException If an object cannot be serialized.
+     */
+    @Test
+    public void testClear() throws CacheException, NotSerializableException
+    {
+        MVStoreCacheImpl cache = new MVStoreCacheImpl(MEMORY_PATH, -1, null);
+        cache.initialize(-1L);
+
+        List<TestObject> objects = createTestObjects(200, new Random(1L));
+        long[] ids = cache.put(createDeposit(CATEGORY, objects, TimeSpan.TIMELESS), (CacheModificationListener)null);
+        long[] ids2 = cache.put(createDeposit(new DataModelCategory("source1", "family1", "category2"), objects,
+                TimeSpan.TIMELESS), (CacheModificationListener)null);
+
+        cache.clear(new long[] { ids[0], ids[1] });
+        Assert.assertEquals(ids.length - 2, getAllIds(cache, CATEGORY).length);
+
+        List<String> names = getNames(cache, new long[] { ids[0], ids[2] });
+        Assert.assertNull(names.get(0));
+        Assert.assertEquals(objects.get(2).getName(), names.get(1));
+
+        cache.clearGroups(cache.getGroupIds(CATEGORY));
+        Assert.assertEquals(0, getAllIds(cache, CATEGORY).length);
+        Assert.assertEquals(ids2.length, getAllIds(cache, new DataModelCategory("source1", null, null)).length);
+
+        cache.clear();
+        Assert.assertEquals(0, getAllIds(cache, new DataModelCategory(null, null, null)).length);
+        cache.close();
+    }
+
+    /**
+     * Test getting interval satisfactions and using them to query ids.
+     *
+     * @throws CacheException If there is a cache error.
+     * @throws NotSerializableException If an object cannot be serialized.
+     */
+    @Test
+    public void testIntervalSatisfactions() throws CacheException, NotSerializableException
+    {
+        MVStoreCacheImpl cache = new MVStoreCacheImpl(MEMORY_PATH, -1, null);
+        cache.initialize(-1L);
+
+        // Enough groups that the group index is used.
+        Random random = new Random(2L);
+        for (int index = 0; index < 100; ++index)
+        {
+            TimeSpan extent = TimeSpan.get(index * 1000L, (index + 1) * 1000L);
+            cache.put(createDeposit(CATEGORY, createTestObjects(120, random, extent), extent), (CacheModificationListener)null);
+        }
+
+        TimeSpan query = TimeSpan.get(10500L, 12500L);
+        List<? extends IntervalPropertyMatcher<?>> params = Collections
+                .singletonList(new TimeSpanMatcher(TimeSpanAccessor.TIME_PROPERTY_NAME, query));
+        Collection<? extends Satisfaction> satisfactions = cache.getIntervalSatisfactions(CATEGORY, params);
+        Assert.assertEquals(3, satisfactions.size());
+
+        long[] ids = cache.getIds(satisfactions, params, null, 0, Integer.MAX_VALUE);
+        Assert.assertArrayEquals(cache.getIds(CATEGORY, params, null, 0, Integer.MAX_VALUE), ids);
+        for (TimeSpan span : getTimes(cache, ids))
+        {
+            Assert.assertTrue(span.overlaps(query));
+        }
+        cache.close();
+    }
+
+    /**
+     * Test ordering and paging ids.
+     *
+     * @throws CacheException If there is a cache error.
+     * @throws NotSerializableException If an object cannot be serialized.
+     */
+    @Test
+    public void testOrder() throws CacheException, NotSerializableException
+    {
+        MVStoreCacheImpl cache = new MVStoreCacheImpl(MEMORY_PATH, -1, null);
+        cache.initialize(-1L);
+
+        List<TestObject> objects = createTestObjects(50, new Random(3L));
+        cache.put(createDeposit(CATEGORY, objects, TimeSpan.TIMELESS), (CacheModificationListener)null);
+
+        List<? extends OrderSpecifier> order = Collections.singletonList(new DefaultOrderSpecifier(Order.DESCENDING, NAME_PROPERTY));
+        long[] ids = cache.getIds(CATEGORY, null, order, 5, 10);
+        Assert.assertEquals(10, ids.length);
+
+        List<String> expected = new ArrayList<>();
+        objects.forEach(o -> expected.add(o.getName()));
+        Collections.sort(expected, Collections.reverseOrder());
+        Assert.assertEquals(expected.subList(5, 15), getNames(cache, ids));
+
+        List<PropertyMatcher<?>> params = Collections
+                .singletonList(new StringPropertyMatcher(NAME_PROPERTY, objects.get(7).getName()));
+        ids = cache.getIds(CATEGORY, params, null, 0, -1);
+        Assert.assertEquals(Collections.singletonList(objects.get(7).getName()), getNames(cache, ids));
+        cache.close();
+    }
+
+    /**
+     * Test that data that is not for the session survives reopening the
+     * store, and that session data does not.
+     *
+     * @throws CacheException If there is a cache error.
+     * @throws NotSerializableException If an object cannot be serialized.
+     * @throws IOException If the temporary directory cannot be created.
+     */
+    @Test
+    public void testReopen() throws CacheException, NotSerializableException, IOException
+    {
+        File dir = Files.createTempDirectory("mvstore").toFile();
+        try
+        {
+            MVStoreCacheImpl cache = new MVStoreCacheImpl(dir.getPath(), -1, null);
+            cache.initialize(-1L);
+            List<TestObject> objects = createTestObjects(20, new Random(4L));
+            long[] ids = cache.put(createDeposit(CATEGORY, objects, TimeSpan.TIMELESS), (CacheModificationListener)null);
+            DataModelCategory sessionCategory = new DataModelCategory("source1", "family1", "session");
+            cache.put(new DefaultCacheDeposit<TestObject>(sessionCategory, createAccessors(TimeSpan.TIMELESS), objects, true,
+                    CacheDeposit.SESSION_END, false), (CacheModificationListener)null);
+            cache.close();
+
+            cache = new MVStoreCacheImpl(dir.getPath(), -1, null);
+            cache.initialize(-1L);
+            Assert.assertArrayEquals(ids, getAllIds(cache, CATEGORY));
+            Assert.assertEquals(0, getAllIds(cache, sessionCategory).length);
+            Assert.assertEquals(objects.get(3).getName(), getNames(cache, new long[] { ids[3] }).get(0));
+            cache.close();
+        }
+        finally
+        {
+            for (File file : dir.listFiles())
+            {
+                Assert.assertTrue(file.delete());
+            }
+            Assert.assertTrue(dir.delete());
+        }
+    }
+
+    /**
+     * Test spatial queries, which use the row-level R-tree.
+     *
+     * @throws CacheException If there is a cache error.
+     * @throws NotSerializableException If an object cannot be serialized.
+     */
+    @Test
+    public void testSpatialQuery() throws CacheException, NotSerializableException
+    {
+        MVStoreCacheImpl cache = new MVStoreCacheImpl(MEMORY_PATH, -1, null);
+        cache.initialize(-1L);
+
+        List<TestObject> objects = createTestObjects(2000, new Random(5L));
+        long[] ids = cache.put(createDeposit(CATEGORY, objects, TimeSpan.TIMELESS), (CacheModificationListener)null);
+
+        Geometry bounds = new GeometryFactory().toGeometry(new Envelope(-20., 20., -20., 20.));
+        List<GeometryMatcher> params = Collections.singletonList(
+                new GeometryMatcher(GeometryAccessor.GEOMETRY_PROPERTY_NAME, GeometryMatcher.OperatorType.INTERSECTS, bounds));
+        long[] result = cache.getIds(CATEGORY, params, null, 0, Integer.MAX_VALUE);
+
+        List<Long> expected = new ArrayList<>();
+        for (int index = 0; index < objects.size(); ++index)
+        {
+            if (objects.get(index).getGeometry().intersects(bounds))
+            {
+                expected.add(Long.valueOf(ids[index]));
+            }
+        }
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected.size(), result.length);
+        for (int index = 0; index < result.length; ++index)
+        {
+            Assert.assertEquals(expected.get(index).longValue(), result[index]);
+        }
+        cache.close();
+    }
+
+    /**
+     * Test time queries, which use the row-level interval index.
+     *
+     * @throws CacheException If there is a cache error.
+     * @throws NotSerializableException If an object cannot be serialized.
+     */
+    @Test
+    public void testTimeQuery() throws CacheException, NotSerializableException
+    {
+        MVStoreCacheImpl cache = new MVStoreCacheImpl(MEMORY_PATH, -1, null);
+        cache.initialize(-1L);
+
+        List<TestObject> objects = createTestObjects(2000, new Random(6L));
+        long[] ids = cache.put(createDeposit(CATEGORY, objects, TimeSpan.get(0L, 100000L)), (CacheModificationListener)null);
+
+        TimeSpan query = TimeSpan.get(20000L, 25000L);
+        List<TimeSpanMatcher> params = Collections.singletonList(new TimeSpanMatcher(TimeSpanAccessor.TIME_PROPERTY_NAME, query));
+        long[] result = cache.getIds(CATEGORY, params, null, 0, Integer.MAX_VALUE);
+
+        List<Long> expected = new ArrayList<>();
+        for (int index = 0; index < objects.size(); ++index)
+        {
+            if (objects.get(index).getTime().overlaps(query))
+            {
+                expected.add(Long.valueOf(ids[index]));
+            }
+        }
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected.size(), result.length);
+        for (int index = 0; index < result.length; ++index)
+        {
+            Assert.assertEquals(expected.get(index).longValue(), result[index]);
+        }
+
+        List<TimeSpan> times = getTimes(cache, result);
+        for (TimeSpan span : times)
+        {
+            Assert.assertTrue(span.overlaps(query));
+        }
+
+        // Updating the values invalidates the index.
+        TimeSpan newTime = TimeSpan.get(1L, 2L);
+        Collection<PropertyAccessor<TestObject, ?>> accessors = Collections.singleton(new TimeSpanAccessor<TestObject>(newTime)
+        {
+            @Override
+            public TimeSpan access(TestObject input)
+            {
+                return newTime;
+            }
+        });
+        cache.updateValues(result, Collections.singleton(objects.get(0)), accessors, null, null);
+        Assert.assertEquals(0, cache.getIds(CATEGORY, params, null, 0, Integer.MAX_VALUE).length);
+        cache.close();
+    }
+
+    /**
+     * Create the accessors for the test objects.
+     *
+     * @param extent The time extent.
+     * @return The accessors.
+     */
+    private Collection<PropertyAccessor<TestObject, ?>> createAccessors(TimeSpan extent)
+    {
+        Collection<PropertyAccessor<TestObject, ?>> accessors = new ArrayList<>();
+        accessors.add(new SerializableAccessor<TestObject, String>(NAME_PROPERTY)
+        {
+            @Override
+            public String access(TestObject input)
+            {
+                return input.getName();
+            }
+        });
+        accessors.add(new TimeSpanAccessor<TestObject>(extent)
+        {
+            @Override
+            public TimeSpan access(TestObject input)
+            {
+                return input.getTime();
+            }
+        });
+        accessors.add(new GeometryAccessor<TestObject>(new GeometryFactory().toGeometry(new Envelope(-180., 180., -90., 90.)))
+        {
+            @Override
+            public Geometry access(TestObject input)
+            {
+                return input.getGeometry();
+            }
+        });
+        return accessors;
+    }
+
+    /**
+     * Create a deposit of test objects.
+     *
+     * @param category The category.
+     * @param objects The objects.
+     * @param extent The time extent.
+     * @return The deposit.
+     */
+    private CacheDeposit<TestObject> createDeposit(DataModelCategory category, List<TestObject> objects, TimeSpan extent)
+    {
+        return new DefaultCacheDeposit<>(category, createAccessors(extent), objects, true,
+                new Date(System.currentTimeMillis() + 3600000L), false);
+    }
+
+    /**
+     * Create test objects at random places and times.
+     *
+     * @param count The number of objects.
+     * @param random The random number generator.
+     * @return The objects.
+     */
+    private List<TestObject> createTestObjects(int count, Random random)
+    {
+        return createTestObjects(count, random, TimeSpan.get(0L, 100000L));
+    }
+
+    /**
+     * Create test objects at random places and times.
+     *
+     * @param count The number of objects.
+     * @param random The random number generator.
+     * @param extent The extent of the times.
+     * @return The objects.
+     */
+    private List<TestObject> createTestObjects(int count, Random random, TimeSpan extent)
+    {
+        GeometryFactory factory = new GeometryFactory();
+        List<TestObject> objects = new ArrayList<>(count);
+        for (int index = 0; index < count; ++index)
+        {
+            long start = extent.getStart() + (long)(random.nextDouble() * (extent.getEnd() - extent.getStart()));
+            TimeSpan time = TimeSpan.get(start, Math.min(extent.getEnd(), start + 1 + random.nextInt(1000)));
+            Geometry geom = factory
+                    .createPoint(new Coordinate(random.nextDouble() * 360. - 180., random.nextDouble() * 180. - 90.));
+            objects.add(new TestObject("name" + random.nextInt(), time, geom));
+        }
+        return objects;
+    }
+
+    /**
+     * Get all the ids in a category.
+     *
+     * @param cache The cache.
+     * @param category The category.
+     * @return The ids.
+     * @throws CacheException If there is a cache error.
+     * @throws NotSerializableException If an object cannot be serialized.
+     */
+    private long[] getAllIds(MVStoreCacheImpl cache, DataModelCategory category) throws CacheException, NotSerializableException
+    {
+        return cache.getIds(category, Nulls.<PropertyMatcher<?>>list(), Nulls.<OrderSpecifier>list(), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the names for some ids.
+     *
+     * @param cache The cache.
+     * @param ids The ids.
+     * @return The names.
+     * @throws CacheException If there is a cache error.
+     */
+    private List<String> getNames(MVStoreCacheImpl cache, long[] ids) throws CacheException
+    {
+        PropertyValueMap cacheResultMap = new PropertyValueMap();
+        List<String> results = new ArrayList<>(ids.length);
+        cacheResultMap.addResultList(NAME_PROPERTY, results);
+        cache.getValues(ids, cacheResultMap, null);
+        return results;
+    }
+
+    /**
+     * Get the times for some ids.
+     *
+     * @param cache The cache.
+     * @param ids The ids.
+     * @return The times.
+     * @throws CacheException If there is a cache error.
+     */
+    private List<TimeSpan> getTimes(MVStoreCacheImpl cache, long[] ids) throws CacheException
+    {
+        PropertyValueMap cacheResultMap = new PropertyValueMap();
+        List<TimeSpan> results = new ArrayList<>(ids.length);
+        cacheResultMap.addResultList(TimeSpanAccessor.PROPERTY_DESCRIPTOR, results);
+        cache.getValues(ids, cacheResultMap, null);
+        Assert.assertEquals(ids.length, results.size());
+        return results;
+    }
+
+    /** Test object. */
+    private static class TestObject
+    {
+        /** The geometry. */
+        private final Geometry myGeometry;
+
+        /** The name. */
+        private final String myName;
+
+        /** The time. */
+        private final TimeSpan myTime;
+
+        /**
+         * Constructor.
+         *
+         * @param name The name.
+         * @param time The time.
+         * @param geometry The geometry.
+         */
+        public TestObject(String name, TimeSpan time, Geometry geometry)
+        {
+            myName = name;
+            myTime = time;
+            myGeometry = geometry;
+        }
+
+        /**
+         * Get the geometry.
+         *
+         * @return The geometry.
+         */
+        public Geometry getGeometry()
+        {
+            return myGeometry;
+        }
+
+        /**
+         * Get the name.
+         *
+         * @return The name.
+         */
+        public String getName()
+        {
+            return myName;
+        }
+
+        /**
+         * Get the time.
+         *
+         * @return The time.
+         */
+        public TimeSpan getTime()
+        {
+            return myTime;
+        }
+    }
+}
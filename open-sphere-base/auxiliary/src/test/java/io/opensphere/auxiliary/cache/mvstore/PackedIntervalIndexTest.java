@@ -0,0 +1,67 @@
+package io.opensphere.auxiliary.cache.mvstore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link PackedIntervalIndex}.
+ */
+public class PackedIntervalIndexTest
+{
+    /**
+     * Test that an empty index finds nothing.
+     */
+    @Test
+    public void testEmpty()
+    {
+        PackedIntervalIndex index = new PackedIntervalIndex(new long[0], new long[0]);
+        Assert.assertEquals(0, index.size());
+        index.search(Long.MIN_VALUE, Long.MAX_VALUE, i -> Assert.fail("Unexpected result " + i));
+    }
+
+    /**
+     * Test searches against a linear scan, for sizes on both sides of the
+     * powers of two.
+     */
+    @Test
+    public void testSearch()
+    {
+        Random random = new Random(1L);
+        for (int size : new int[] { 1, 2, 3, 7, 8, 9, 15, 16, 17, 100, 1023, 1024, 1025, 5000 })
+        {
+            long[] starts = new long[size];
+            long[] ends = new long[size];
+            for (int i = 0; i < size; ++i)
+            {
+                starts[i] = random.nextInt(100000);
+                ends[i] = starts[i] + random.nextInt(random.nextInt(10) == 0 ? 50000 : 500);
+            }
+            PackedIntervalIndex index = new PackedIntervalIndex(starts, ends);
+            Assert.assertEquals(size, index.size());
+
+            for (int query = 0; query < 50; ++query)
+            {
+                long start = random.nextInt(110000) - 5000;
+                long end = start + random.nextInt(5000);
+
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < size; ++i)
+                {
+                    if (ends[i] > start && starts[i] < end)
+                    {
+                        expected.add(Integer.valueOf(i));
+                    }
+                }
+
+                List<Integer> actual = new ArrayList<>();
+                index.search(start, end, i -> actual.add(Integer.valueOf(i)));
+                actual.sort(null);
+                Assert.assertEquals("size " + size + " query [" + start + "," + end + ")", expected, actual);
+            }
+        }
+    }
+}
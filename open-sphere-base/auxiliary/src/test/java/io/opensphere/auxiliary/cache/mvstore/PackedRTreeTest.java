@@ -0,0 +1,71 @@
+package io.opensphere.auxiliary.cache.mvstore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link PackedRTree}.
+ */
+public class PackedRTreeTest
+{
+    /**
+     * Test that an empty tree finds nothing.
+     */
+    @Test
+    public void testEmpty()
+    {
+        PackedRTree tree = new PackedRTree(new double[0]);
+        Assert.assertEquals(0, tree.size());
+        tree.search(-180., -90., 180., 90., i -> Assert.fail("Unexpected result " + i));
+    }
+
+    /**
+     * Test searches against a linear scan, for sizes around the node size.
+     */
+    @Test
+    public void testSearch()
+    {
+        Random random = new Random(1L);
+        for (int size : new int[] { 1, 15, 16, 17, 256, 257, 3000 })
+        {
+            double[] boxes = new double[size * 4];
+            for (int i = 0; i < size; ++i)
+            {
+                double x = random.nextDouble() * 360. - 180.;
+                double y = random.nextDouble() * 180. - 90.;
+                boxes[i * 4] = x;
+                boxes[i * 4 + 1] = y;
+                boxes[i * 4 + 2] = x + random.nextDouble() * 5.;
+                boxes[i * 4 + 3] = y + random.nextDouble() * 5.;
+            }
+            PackedRTree tree = new PackedRTree(boxes);
+            Assert.assertEquals(size, tree.size());
+
+            for (int query = 0; query < 50; ++query)
+            {
+                double minX = random.nextDouble() * 360. - 180.;
+                double minY = random.nextDouble() * 180. - 90.;
+                double maxX = minX + random.nextDouble() * 40.;
+                double maxY = minY + random.nextDouble() * 40.;
+
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < size; ++i)
+                {
+                    if (boxes[i * 4] <= maxX && boxes[i * 4 + 1] <= maxY && boxes[i * 4 + 2] >= minX && boxes[i * 4 + 3] >= minY)
+                    {
+                        expected.add(Integer.valueOf(i));
+                    }
+                }
+
+                List<Integer> actual = new ArrayList<>();
+                tree.search(minX, minY, maxX, maxY, i -> actual.add(Integer.valueOf(i)));
+                actual.sort(null);
+                Assert.assertEquals(expected, actual);
+            }
+        }
+    }
+}
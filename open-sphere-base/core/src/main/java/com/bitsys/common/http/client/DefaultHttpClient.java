@@ -28,6 +28,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpHeaders;
+import org.apache.http.auth.AuthState;
 import org.apache.http.client.CookieStore;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.RedirectStrategy;
@@ -42,6 +43,7 @@ import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpTrace;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.params.ClientPNames;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
@@ -71,6 +73,7 @@ import com.bitsys.common.http.ssl.EnhancedSSLSocketFactory.SSLSocketCustomizer;
 import com.bitsys.common.http.ssl.InteractiveX509KeyManager;
 import com.bitsys.common.http.ssl.InteractiveX509TrustManager;
 import com.bitsys.common.http.ssl.X509HostNameVerifierCourtRoom;
+import com.bitsys.common.http.util.cache.HttpResponseCache;
 
 /**
  * This class is a thin wrapper around Apache's
@@ -137,6 +140,9 @@ public class DefaultHttpClient implements CloseableHttpClient
     /** The store in which cookies are exposed. */
     private CookieStore myCookieStore;
 
+    /** The SSL context used for HTTPS connections. */
+    private SSLContext mySslContext;
+
     @Override
     public HttpClientOptions getOptions()
     {
@@ -145,6 +151,19 @@ public class DefaultHttpClient implements CloseableHttpClient
 
     @Override
     public HttpResponse execute(final HttpRequest httpRequest) throws IOException
+    {
+        final HttpResponseCache responseCache = myOptions.getResponseCache();
+        return responseCache == null ? executeDirect(httpRequest) : responseCache.execute(httpRequest, this::executeDirect);
+    }
+
+    /**
+     * Sends a request to the server without consulting the response cache.
+     *
+     * @param httpRequest the request.
+     * @return the response.
+     * @throws IOException if an I/O error occurs.
+     */
+    private HttpResponse executeDirect(final HttpRequest httpRequest) throws IOException
     {
         // Transform to Apache's request.
         final HttpUriRequest apacheRequest = toApacheRequest(httpRequest);
@@ -162,13 +181,34 @@ public class DefaultHttpClient implements CloseableHttpClient
         }
 
         // Execute the request.
-        final org.apache.http.HttpResponse apacheResponse = getHttpClient().execute(apacheRequest);
+        final HttpClientContext context = HttpClientContext.create();
+        final org.apache.http.HttpResponse apacheResponse = getHttpClient().execute(apacheRequest, context);
 
         // Update the HTTP request headers based on what Apache set.
         setHttpHeaders(httpRequest, apacheRequest);
 
         // Transform from Apache's response.
-        return fromApacheResponse(apacheResponse);
+        final HttpResponse response = fromApacheResponse(apacheResponse);
+        if (response instanceof BasicHttpResponse)
+        {
+            ((BasicHttpResponse)response).setAuthenticated(isAuthenticated(context));
+        }
+        return response;
+    }
+
+    /**
+     * Determines if the client authenticated itself to the target server in
+     * an exchange. Credentials are recorded in the target authentication
+     * state, and client certificates and connection-based schemes such as
+     * NTLM are recorded as the user token.
+     *
+     * @param context the context of the exchange.
+     * @return <code>true</code> if the client was authenticated.
+     */
+    private static boolean isAuthenticated(final HttpClientContext context)
+    {
+        final AuthState authState = context.getTargetAuthState();
+        return context.getUserToken() != null || authState != null && authState.getCredentials() != null;
     }
 
     /**
@@ -324,6 +364,21 @@ public class DefaultHttpClient implements CloseableHttpClient
         return response;
     }
 
+    /**
+     * Returns the SSL context used for HTTPS connections. The context has the
+     * key managers and trust managers of the {@link SslConfig}, so another
+     * transport that uses it presents the same client certificate and trusts
+     * the same servers as this client.
+     *
+     * @return the SSL context.
+     * @throws HttpClientException if unable to configure HTTPS.
+     */
+    public synchronized SSLContext getSslContext()
+    {
+        getHttpClient();
+        return mySslContext;
+    }
+
     /**
      * Returns the Apache {@link org.apache.http.client.HttpClient HttpClient}
      * for this client.
@@ -476,6 +531,7 @@ public class DefaultHttpClient implements CloseableHttpClient
             final KeyManager[] km = createKeyManagers(sslConfig);
             final TrustManager[] tm = createTrustManagers(sslConfig);
             sslContext.init(km, tm, null);
+            mySslContext = sslContext;
             // TODO: Handle the host name verification better: ALL vs.
             // Browser vs. Strict. Rename the internal verifier to callback?
             myCachingHostNameVerifier = new CachingHostNameVerifier(sslConfig.getHostNameVerifier());
@@ -613,6 +669,11 @@ public class DefaultHttpClient implements CloseableHttpClient
             myCachingCertificateVerifier.clearCache(options.getClearSince());
         }
 
+        if (myOptions.getResponseCache() != null)
+        {
+            myOptions.getResponseCache().clear(options.getClearSince());
+        }
+
         // TODO: Implement cache clearing.
         throw new UnsupportedOperationException("The clearCache method has not yet been implemented");
     }
@@ -2,6 +2,7 @@ package com.bitsys.common.http.client;
 
 import com.bitsys.common.http.auth.CredentialsProvider;
 import com.bitsys.common.http.auth.DefaultCredentialsProvider;
+import com.bitsys.common.http.util.cache.HttpResponseCache;
 import com.google.common.annotations.Beta;
 
 /**
@@ -78,6 +79,9 @@ public class HttpClientOptions
     /** Indicates if circular redirects are allowed. */
     private boolean allowCircularRedirects;
 
+    /** The cache of HTTP responses or <code>null</code>. */
+    private HttpResponseCache responseCache;
+
     /**
      * Sets the proxy configuration for this client. If not set or the argument
      * is <code>null</code>, a minimal configuration will be used.
@@ -410,4 +414,28 @@ public class HttpClientOptions
         this.allowCircularRedirects = allowCircularRedirects;
     }
 
+    /**
+     * Specifies the cache used to store and revalidate HTTP responses. The
+     * cache may be shared by several clients.
+     *
+     * @param responseCache the response cache or <code>null</code> to send
+     *            every request to the server.
+     * @since 1.1.13
+     */
+    public void setResponseCache(final HttpResponseCache responseCache)
+    {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Returns the cache used to store and revalidate HTTP responses.
+     *
+     * @return the response cache or <code>null</code>.
+     * @since 1.1.13
+     */
+    public HttpResponseCache getResponseCache()
+    {
+        return responseCache;
+    }
+
 }
@@ -25,6 +25,12 @@ public class BasicHttpResponse extends AbstractHttpMessage implements HttpRespon
      */
     private final HttpEntity entity;
 
+    /**
+     * Indicates if the client authenticated itself in the exchange that
+     * produced this response.
+     */
+    private boolean authenticated;
+
     /**
      * Constructs a <code>BasicHttpResponse</code>.
      *
@@ -102,6 +108,23 @@ public class BasicHttpResponse extends AbstractHttpMessage implements HttpRespon
         return statusMessage;
     }
 
+    @Override
+    public boolean isAuthenticated()
+    {
+        return authenticated;
+    }
+
+    /**
+     * Sets whether the client authenticated itself, with credentials or a
+     * client certificate, in the exchange that produced this response.
+     *
+     * @param authenticated <code>true</code> if the client was authenticated.
+     */
+    public void setAuthenticated(final boolean authenticated)
+    {
+        this.authenticated = authenticated;
+    }
+
     /**
      * Closes the entity's input stream.
      */
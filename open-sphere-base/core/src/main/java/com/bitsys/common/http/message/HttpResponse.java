@@ -70,4 +70,14 @@ public interface HttpResponse extends HttpMessage, Closeable
      * @return the HTTP status message.
      */
     String getStatusMessage();
+
+    /**
+     * Returns <code>true</code> if the client authenticated itself to the
+     * server, with credentials or a client certificate, in the exchange that
+     * produced this response.
+     *
+     * @return <code>true</code> if the response was produced for an
+     *         authenticated client.
+     */
+    boolean isAuthenticated();
 }
@@ -0,0 +1,161 @@
+package com.bitsys.common.http.util.cache;
+
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * This class holds the <code>Cache-Control</code> directives of an HTTP
+ * message that are relevant to the {@link HttpResponseCache}, as defined by
+ * RFC 7234.
+ */
+public final class CacheControl
+{
+    /** The directives of a message without a <code>Cache-Control</code> header. */
+    public static final CacheControl NONE = new CacheControl(false, false, false, false, -1L);
+
+    /** Indicates if the <code>no-store</code> directive is present. */
+    private final boolean noStore;
+
+    /** Indicates if the <code>no-cache</code> directive is present. */
+    private final boolean noCache;
+
+    /** Indicates if the <code>must-revalidate</code> directive is present. */
+    private final boolean mustRevalidate;
+
+    /** Indicates if the <code>private</code> directive is present. */
+    private final boolean privateResponse;
+
+    /** The <code>max-age</code> in seconds or <code>-1</code> if absent. */
+    private final long maxAgeSeconds;
+
+    /**
+     * Parses the value of a <code>Cache-Control</code> header. Unknown and
+     * malformed directives are ignored.
+     *
+     * @param value the header value, which may be <code>null</code>.
+     * @return the directives.
+     */
+    public static CacheControl parse(final String value)
+    {
+        if (StringUtils.isBlank(value))
+        {
+            return NONE;
+        }
+
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean mustRevalidate = false;
+        boolean privateResponse = false;
+        long maxAgeSeconds = -1L;
+        for (final String token : value.split(","))
+        {
+            final String directive = token.trim().toLowerCase(Locale.ROOT);
+            if ("no-store".equals(directive))
+            {
+                noStore = true;
+            }
+            else if (directive.startsWith("no-cache"))
+            {
+                noCache = true;
+            }
+            else if ("must-revalidate".equals(directive) || "proxy-revalidate".equals(directive))
+            {
+                mustRevalidate = true;
+            }
+            else if (directive.startsWith("private"))
+            {
+                privateResponse = true;
+            }
+            else if (directive.startsWith("max-age="))
+            {
+                try
+                {
+                    maxAgeSeconds = Math.max(0L, Long.parseLong(StringUtils.strip(directive.substring(8), "\"")));
+                }
+                catch (final NumberFormatException e)
+                {
+                    // A malformed max-age makes the response stale.
+                    maxAgeSeconds = 0L;
+                }
+            }
+        }
+        return new CacheControl(noStore, noCache, mustRevalidate, privateResponse, maxAgeSeconds);
+    }
+
+    /**
+     * Constructs a new {@linkplain CacheControl}.
+     *
+     * @param noStore indicates if the <code>no-store</code> directive is
+     *            present.
+     * @param noCache indicates if the <code>no-cache</code> directive is
+     *            present.
+     * @param mustRevalidate indicates if the <code>must-revalidate</code>
+     *            directive is present.
+     * @param privateResponse indicates if the <code>private</code> directive
+     *            is present.
+     * @param maxAgeSeconds the <code>max-age</code> in seconds or
+     *            <code>-1</code>.
+     */
+    private CacheControl(final boolean noStore, final boolean noCache, final boolean mustRevalidate,
+            final boolean privateResponse, final long maxAgeSeconds)
+    {
+        this.noStore = noStore;
+        this.noCache = noCache;
+        this.mustRevalidate = mustRevalidate;
+        this.privateResponse = privateResponse;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    /**
+     * Returns the <code>max-age</code> directive.
+     *
+     * @return the maximum age in seconds or <code>-1</code> if absent.
+     */
+    public long getMaxAgeSeconds()
+    {
+        return maxAgeSeconds;
+    }
+
+    /**
+     * Indicates if the <code>must-revalidate</code> directive is present.
+     *
+     * @return <code>true</code> if stale responses must be revalidated.
+     */
+    public boolean isMustRevalidate()
+    {
+        return mustRevalidate;
+    }
+
+    /**
+     * Indicates if the <code>no-cache</code> directive is present.
+     *
+     * @return <code>true</code> if a stored response must be revalidated
+     *         before it is used.
+     */
+    public boolean isNoCache()
+    {
+        return noCache;
+    }
+
+    /**
+     * Indicates if the <code>private</code> directive is present.
+     *
+     * @return <code>true</code> if the response is intended for a single
+     *         user.
+     */
+    public boolean isPrivate()
+    {
+        return privateResponse;
+    }
+
+    /**
+     * Indicates if the <code>no-store</code> directive is present.
+     *
+     * @return <code>true</code> if the response must not be stored.
+     */
+    public boolean isNoStore()
+    {
+        return noStore;
+    }
+}
@@ -0,0 +1,594 @@
+package com.bitsys.common.http.util.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.utils.DateUtils;
+
+import com.bitsys.common.http.entity.HttpEntity;
+import com.bitsys.common.http.entity.InputStreamEntity;
+import com.bitsys.common.http.header.ContentType;
+import com.bitsys.common.http.message.BasicHttpResponse;
+import com.bitsys.common.http.message.HttpMessage;
+import com.bitsys.common.http.message.HttpRequest;
+import com.bitsys.common.http.message.HttpResponse;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+
+/**
+ * This class is an HTTP response stored by the {@link HttpResponseCache}. It
+ * holds the status, headers and body of the response along with the times at
+ * which the request was sent and the response was received, from which the
+ * freshness of the response is calculated as defined by RFC 7234.
+ */
+public class CachedResponse
+{
+    /** The magic number at the start of a serialized response. */
+    private static final int MAGIC = 0x4F534843;
+
+    /** The current version of the serialized format. */
+    private static final byte VERSION = 1;
+
+    /** The maximum heuristic freshness lifetime in milliseconds. */
+    private static final long MAX_HEURISTIC_LIFETIME = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * The prefixes of the content types of tiles and images, which are the
+     * only responses given a heuristic freshness lifetime. Other responses,
+     * such as features, are revalidated unless the server gives them an
+     * explicit lifetime.
+     */
+    private static final List<String> HEURISTIC_CONTENT_TYPES = List.of("image/", "application/vnd.mapbox-vector-tile",
+            "application/x-protobuf");
+
+    /** The response headers that are not replaced by a 304 response. */
+    private static final List<String> UNMERGED_HEADERS = List.of("content-length", "content-encoding", "transfer-encoding");
+
+    /** The status code. */
+    private final int statusCode;
+
+    /** The status message. */
+    private final String statusMessage;
+
+    /** The response headers. */
+    private final ListMultimap<String, String> headers;
+
+    /** The values of the request headers named by the <code>Vary</code> header. */
+    private final Map<String, String> varyValues;
+
+    /** The response body. */
+    private final byte[] body;
+
+    /** The time in milliseconds at which the request was sent. */
+    private final long requestTime;
+
+    /** The time in milliseconds at which the response was received. */
+    private final long responseTime;
+
+    /**
+     * Creates a cached response from a response whose body has been read.
+     *
+     * @param request the request.
+     * @param response the response.
+     * @param body the response body.
+     * @param requestTime the time in milliseconds at which the request was
+     *            sent.
+     * @param responseTime the time in milliseconds at which the response was
+     *            received.
+     * @return the cached response.
+     */
+    public static CachedResponse create(final HttpRequest request, final HttpResponse response, final byte[] body,
+            final long requestTime, final long responseTime)
+    {
+        final ListMultimap<String, String> headers = LinkedListMultimap.create();
+        for (final Map.Entry<String, String> entry : response.getHeaders().entries())
+        {
+            if (entry.getKey() != null && entry.getValue() != null)
+            {
+                headers.put(entry.getKey(), entry.getValue());
+            }
+        }
+        final HttpEntity entity = response.getEntity();
+        if (entity != null)
+        {
+            putIfAbsent(headers, "Content-Type", entity.getContentType() == null ? null : entity.getContentType().toString());
+            putIfAbsent(headers, "Content-Encoding", entity.getContentEncoding());
+        }
+        return new CachedResponse(response.getStatusCode(), response.getStatusMessage(), headers,
+                getVaryValues(request, response), body, requestTime, responseTime);
+    }
+
+    /**
+     * Indicates if the given response may be stored for the given request. A
+     * response may be stored if it is a complete <code>200</code> or
+     * <code>203</code> response, neither message forbids storage, and the
+     * response can either be validated or has an explicit freshness lifetime.
+     * Because the cache is shared by clients with different identities,
+     * responses to requests that carried credentials or a client certificate
+     * and responses marked <code>private</code> are not stored.
+     *
+     * @param request the request.
+     * @param response the response.
+     * @return <code>true</code> if the response may be stored.
+     */
+    public static boolean isStorable(final HttpRequest request, final HttpResponse response)
+    {
+        final int status = response.getStatusCode();
+        if (status != 200 && status != 203)
+        {
+            return false;
+        }
+        if (CacheControl.parse(request.getHeaderValue("Cache-Control")).isNoStore() || isAuthenticated(request, response))
+        {
+            return false;
+        }
+        final CacheControl cacheControl = CacheControl.parse(response.getHeaderValue("Cache-Control"));
+        if (cacheControl.isNoStore() || cacheControl.isPrivate() || "*".equals(StringUtils.trim(response.getHeaderValue("Vary"))))
+        {
+            return false;
+        }
+        return response.getHeaderValue("ETag") != null || response.getHeaderValue("Last-Modified") != null
+                || cacheControl.getMaxAgeSeconds() > 0 || response.getHeaderValue("Expires") != null;
+    }
+
+    /**
+     * Indicates if a request identifies the client, either with an explicit
+     * <code>Authorization</code> header or, once it has been executed, because
+     * the client authenticated itself in the exchange that produced the
+     * response.
+     *
+     * @param request the request.
+     * @param response the response or <code>null</code> if the request has
+     *            not been executed.
+     * @return <code>true</code> if the request identifies the client.
+     */
+    public static boolean isAuthenticated(final HttpRequest request, final HttpResponse response)
+    {
+        return request.getHeaderValue("Authorization") != null || response != null && response.isAuthenticated();
+    }
+
+    /**
+     * Reads a cached response written by {@link #write(OutputStream)}.
+     *
+     * @param stream the stream.
+     * @return the cached response.
+     * @throws IOException if the stream cannot be read or does not contain a
+     *             cached response.
+     */
+    public static CachedResponse read(final InputStream stream) throws IOException
+    {
+        final DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC || in.readByte() != VERSION)
+        {
+            throw new IOException("The stream does not contain a supported cached response");
+        }
+        final long requestTime = in.readLong();
+        final long responseTime = in.readLong();
+        final int statusCode = in.readInt();
+        final String statusMessage = in.readUTF();
+        final ListMultimap<String, String> headers = LinkedListMultimap.create();
+        for (int count = in.readInt(); count > 0; --count)
+        {
+            headers.put(in.readUTF(), in.readUTF());
+        }
+        final Map<String, String> vary = new LinkedHashMap<>();
+        for (int count = in.readInt(); count > 0; --count)
+        {
+            final String name = in.readUTF();
+            vary.put(name, in.readBoolean() ? in.readUTF() : null);
+        }
+        final int length = in.readInt();
+        if (length < 0)
+        {
+            throw new IOException("Invalid cached response length: " + length);
+        }
+        final byte[] body = new byte[length];
+        in.readFully(body);
+        return new CachedResponse(statusCode, statusMessage, headers, vary, body, requestTime, responseTime);
+    }
+
+    /**
+     * Returns the values of the request headers named by the response's
+     * <code>Vary</code> header.
+     *
+     * @param request the request.
+     * @param response the response.
+     * @return the request header values keyed by lower-case header name.
+     */
+    private static Map<String, String> getVaryValues(final HttpRequest request, final HttpMessage response)
+    {
+        final String vary = response.getHeaderValue("Vary");
+        if (StringUtils.isBlank(vary))
+        {
+            return Map.of();
+        }
+        final Map<String, String> values = new LinkedHashMap<>();
+        for (final String name : vary.split(","))
+        {
+            final String key = name.trim().toLowerCase(Locale.ROOT);
+            if (!key.isEmpty())
+            {
+                values.put(key, request.getHeaderValue(key));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Adds a header if no header with the same name is present.
+     *
+     * @param headers the headers.
+     * @param name the header name.
+     * @param value the header value, which may be <code>null</code>.
+     */
+    private static void putIfAbsent(final ListMultimap<String, String> headers, final String name, final String value)
+    {
+        if (value != null && getValue(headers, name) == null)
+        {
+            headers.put(name, value);
+        }
+    }
+
+    /**
+     * Returns the comma-joined values of the headers with the given name.
+     *
+     * @param headers the headers.
+     * @param name the header name, which is matched ignoring case.
+     * @return the value or <code>null</code> if no header is present.
+     */
+    private static String getValue(final ListMultimap<String, String> headers, final String name)
+    {
+        final List<String> values = new ArrayList<>();
+        for (final Map.Entry<String, String> entry : headers.entries())
+        {
+            if (entry.getKey().equalsIgnoreCase(name))
+            {
+                values.add(entry.getValue());
+            }
+        }
+        return values.isEmpty() ? null : StringUtils.join(values, ',');
+    }
+
+    /**
+     * Returns the value of a date header.
+     *
+     * @param headers the headers.
+     * @param name the header name.
+     * @return the date in milliseconds or <code>-1</code> if the header is
+     *         absent or malformed.
+     */
+    private static long getDate(final ListMultimap<String, String> headers, final String name)
+    {
+        final String value = getValue(headers, name);
+        final Date date = value == null ? null : DateUtils.parseDate(value);
+        return date == null ? -1L : date.getTime();
+    }
+
+    /**
+     * Constructs a new {@linkplain CachedResponse}.
+     *
+     * @param statusCode the status code.
+     * @param statusMessage the status message.
+     * @param headers the response headers.
+     * @param varyValues the values of the request headers named by the
+     *            <code>Vary</code> header.
+     * @param body the response body.
+     * @param requestTime the time in milliseconds at which the request was
+     *            sent.
+     * @param responseTime the time in milliseconds at which the response was
+     *            received.
+     */
+    protected CachedResponse(final int statusCode, final String statusMessage, final ListMultimap<String, String> headers,
+            final Map<String, String> varyValues, final byte[] body, final long requestTime, final long responseTime)
+    {
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage == null ? "" : statusMessage;
+        this.headers = headers;
+        this.varyValues = varyValues;
+        this.body = body;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+    }
+
+    /**
+     * Returns the response body.
+     *
+     * @return the body.
+     */
+    public byte[] getBody()
+    {
+        return body;
+    }
+
+    /**
+     * Returns the cache directives of the response.
+     *
+     * @return the directives.
+     */
+    public CacheControl getCacheControl()
+    {
+        return CacheControl.parse(getHeaderValue("Cache-Control"));
+    }
+
+    /**
+     * Returns the current age of the response as defined by RFC 7234 section
+     * 4.2.3.
+     *
+     * @param now the current time in milliseconds.
+     * @return the age in milliseconds.
+     */
+    public long getCurrentAge(final long now)
+    {
+        final long date = getDate(headers, "Date");
+        final long apparentAge = date < 0L ? 0L : Math.max(0L, responseTime - date);
+        long ageValue = 0L;
+        final String age = getValue(headers, "Age");
+        if (age != null)
+        {
+            try
+            {
+                ageValue = TimeUnit.SECONDS.toMillis(Long.parseLong(age.trim()));
+            }
+            catch (final NumberFormatException e)
+            {
+                ageValue = 0L;
+            }
+        }
+        final long correctedAge = ageValue + responseTime - requestTime;
+        return Math.max(apparentAge, correctedAge) + Math.max(0L, now - responseTime);
+    }
+
+    /**
+     * Returns the entity tag of the response.
+     *
+     * @return the entity tag or <code>null</code>.
+     */
+    public String getETag()
+    {
+        return getValue(headers, "ETag");
+    }
+
+    /**
+     * Returns the freshness lifetime of the response. The lifetime is taken
+     * from the <code>max-age</code> directive, or else the
+     * <code>Expires</code> header. Failing both, tiles and images are given a
+     * heuristic lifetime of ten percent of the time since they were last
+     * modified, and other responses have no lifetime.
+     *
+     * @return the lifetime in milliseconds.
+     */
+    public long getFreshnessLifetime()
+    {
+        final CacheControl cacheControl = getCacheControl();
+        if (cacheControl.getMaxAgeSeconds() >= 0L)
+        {
+            return TimeUnit.SECONDS.toMillis(cacheControl.getMaxAgeSeconds());
+        }
+        final long date = getDate(headers, "Date");
+        final long baseTime = date < 0L ? responseTime : date;
+        if (getValue(headers, "Expires") != null)
+        {
+            final long expires = getDate(headers, "Expires");
+            return expires < 0L ? 0L : Math.max(0L, expires - baseTime);
+        }
+        final long lastModified = getDate(headers, "Last-Modified");
+        if (lastModified >= 0L && lastModified < baseTime && isHeuristicContentType())
+        {
+            return Math.min(MAX_HEURISTIC_LIFETIME, (baseTime - lastModified) / 10L);
+        }
+        return 0L;
+    }
+
+    /**
+     * Returns the values of the response headers with the given name.
+     *
+     * @param name the header name, which is matched ignoring case.
+     * @return the comma-joined value or <code>null</code>.
+     */
+    public String getHeaderValue(final String name)
+    {
+        return getValue(headers, name);
+    }
+
+    /**
+     * Returns the <code>Last-Modified</code> header of the response.
+     *
+     * @return the header value or <code>null</code>.
+     */
+    public String getLastModified()
+    {
+        return getValue(headers, "Last-Modified");
+    }
+
+    /**
+     * Returns the approximate number of bytes used by this response.
+     *
+     * @return the size in bytes.
+     */
+    public long getSize()
+    {
+        long size = body.length + 64L;
+        for (final Map.Entry<String, String> entry : headers.entries())
+        {
+            size += 2L * (entry.getKey().length() + entry.getValue().length()) + 32L;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the time at which the response was received.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getResponseTime()
+    {
+        return responseTime;
+    }
+
+    /**
+     * Indicates if the response may be used without revalidation.
+     *
+     * @param now the current time in milliseconds.
+     * @return <code>true</code> if the response is fresh.
+     */
+    public boolean isFresh(final long now)
+    {
+        return !getCacheControl().isNoCache() && getFreshnessLifetime() > getCurrentAge(now);
+    }
+
+    /**
+     * Indicates if the response is a tile or image, which may be given a
+     * heuristic freshness lifetime.
+     *
+     * @return <code>true</code> if the content type allows a heuristic
+     *         lifetime.
+     */
+    private boolean isHeuristicContentType()
+    {
+        final String contentType = getValue(headers, "Content-Type");
+        if (contentType == null)
+        {
+            return false;
+        }
+        final String type = contentType.trim().toLowerCase(Locale.ROOT);
+        return HEURISTIC_CONTENT_TYPES.stream().anyMatch(type::startsWith);
+    }
+
+    /**
+     * Indicates if the response can be validated with a conditional request.
+     *
+     * @return <code>true</code> if the response has a validator.
+     */
+    public boolean hasValidator()
+    {
+        return getETag() != null || getLastModified() != null;
+    }
+
+    /**
+     * Indicates if this response was selected by a request with the same
+     * values for the headers named by the <code>Vary</code> header as the
+     * given request.
+     *
+     * @param request the request.
+     * @return <code>true</code> if this response may be used for the request.
+     */
+    public boolean matches(final HttpRequest request)
+    {
+        for (final Map.Entry<String, String> entry : varyValues.entrySet())
+        {
+            if (!Objects.equals(entry.getValue(), request.getHeaderValue(entry.getKey())))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a copy of this response that has been updated by a
+     * <code>304 Not Modified</code> response to a conditional request.
+     *
+     * @param notModified the <code>304</code> response.
+     * @param newRequestTime the time in milliseconds at which the conditional
+     *            request was sent.
+     * @param newResponseTime the time in milliseconds at which the
+     *            <code>304</code> response was received.
+     * @return the updated response.
+     */
+    public CachedResponse revalidated(final HttpResponse notModified, final long newRequestTime, final long newResponseTime)
+    {
+        final ListMultimap<String, String> merged = LinkedListMultimap.create(headers);
+        for (final String name : notModified.getHeaders().keySet())
+        {
+            if (!UNMERGED_HEADERS.contains(name.toLowerCase(Locale.ROOT)))
+            {
+                merged.keySet().removeIf(key -> key.equalsIgnoreCase(name));
+            }
+        }
+        for (final Map.Entry<String, String> entry : notModified.getHeaders().entries())
+        {
+            if (entry.getKey() != null && entry.getValue() != null
+                    && !UNMERGED_HEADERS.contains(entry.getKey().toLowerCase(Locale.ROOT)))
+            {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new CachedResponse(statusCode, statusMessage, merged, varyValues, body, newRequestTime, newResponseTime);
+    }
+
+    /**
+     * Creates a response that reads from this cached response.
+     *
+     * @param now the current time in milliseconds, used for the
+     *            <code>Age</code> header.
+     * @return the response.
+     */
+    public HttpResponse toResponse(final long now)
+    {
+        final String contentType = getValue(headers, "Content-Type");
+        final InputStreamEntity entity = new InputStreamEntity(new ByteArrayInputStream(body), body.length,
+                contentType == null ? null : ContentType.parse(contentType));
+        entity.setContentEncoding(getValue(headers, "Content-Encoding"));
+        final BasicHttpResponse response = new BasicHttpResponse(statusCode, statusMessage, entity);
+        for (final Map.Entry<String, String> entry : headers.entries())
+        {
+            if (!"Age".equalsIgnoreCase(entry.getKey()))
+            {
+                response.getHeaders().put(entry.getKey(), entry.getValue());
+            }
+        }
+        response.getHeaders().put("Age", String.valueOf(TimeUnit.MILLISECONDS.toSeconds(getCurrentAge(now))));
+        return response;
+    }
+
+    /**
+     * Writes this response to a stream.
+     *
+     * @param stream the stream.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void write(final OutputStream stream) throws IOException
+    {
+        final DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(requestTime);
+        out.writeLong(responseTime);
+        out.writeInt(statusCode);
+        out.writeUTF(statusMessage);
+        final Collection<Map.Entry<String, String>> entries = headers.entries();
+        out.writeInt(entries.size());
+        for (final Map.Entry<String, String> entry : entries)
+        {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+        out.writeInt(varyValues.size());
+        for (final Map.Entry<String, String> entry : varyValues.entrySet())
+        {
+            out.writeUTF(entry.getKey());
+            out.writeBoolean(entry.getValue() != null);
+            if (entry.getValue() != null)
+            {
+                out.writeUTF(entry.getValue());
+            }
+        }
+        out.writeInt(body.length);
+        out.write(body);
+        out.flush();
+    }
+}
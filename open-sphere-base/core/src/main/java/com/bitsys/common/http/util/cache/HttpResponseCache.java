@@ -0,0 +1,841 @@
+package com.bitsys.common.http.util.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bitsys.common.http.entity.HttpEntity;
+import com.bitsys.common.http.entity.InputStreamEntity;
+import com.bitsys.common.http.message.BasicHttpResponse;
+import com.bitsys.common.http.message.HttpRequest;
+import com.bitsys.common.http.message.HttpResponse;
+import com.google.common.hash.Hashing;
+
+/**
+ * This class is a private HTTP response cache as described by RFC 7234.
+ * Responses to <code>GET</code> requests are stored according to their
+ * <code>Cache-Control</code>, <code>Expires</code>, <code>ETag</code> and
+ * <code>Last-Modified</code> headers. Fresh responses are served without
+ * contacting the server and stale responses are revalidated with a
+ * conditional request, so that a <code>304 Not Modified</code> response
+ * avoids transferring the body again.
+ * <p>
+ * Responses are kept in memory and, optionally, in a directory on disk. Each
+ * tier is bounded by a byte budget and evicts its least recently used
+ * responses when the budget is exceeded. Responses larger than the maximum
+ * entry size are never stored. Responses on disk may be encrypted by a
+ * {@link DiskEncryption}.
+ * <p>
+ * The cache may be shared by clients with different identities, so requests
+ * that carry credentials or a client certificate neither use nor store
+ * responses.
+ */
+public class HttpResponseCache
+{
+    /**
+     * The interface for the object that sends requests to the server.
+     */
+    @FunctionalInterface
+    public interface RequestExecutor
+    {
+        /**
+         * Sends a request to the server.
+         *
+         * @param request the request.
+         * @return the response.
+         * @throws IOException if an I/O error occurs.
+         */
+        HttpResponse execute(HttpRequest request) throws IOException;
+    }
+
+    /**
+     * The interface for the object that sends requests to the server without
+     * blocking the calling thread.
+     */
+    @FunctionalInterface
+    public interface AsyncRequestExecutor
+    {
+        /**
+         * Sends a request to the server. The request must be read before this
+         * method returns, because the caller may modify its headers
+         * afterward.
+         *
+         * @param request the request.
+         * @return the future response.
+         */
+        CompletableFuture<HttpResponse> execute(HttpRequest request);
+    }
+
+    /**
+     * The interface for the object that encrypts the responses stored on
+     * disk.
+     */
+    public interface DiskEncryption
+    {
+        /**
+         * Wraps a stream so that the bytes written to it are encrypted.
+         *
+         * @param stream the stream to the file.
+         * @return the encrypting stream.
+         * @throws IOException if the stream cannot be encrypted.
+         */
+        OutputStream encrypt(OutputStream stream) throws IOException;
+
+        /**
+         * Wraps a stream written by {@link #encrypt(OutputStream)} so that the
+         * bytes read from it are decrypted.
+         *
+         * @param stream the stream from the file.
+         * @return the decrypting stream.
+         * @throws IOException if the stream cannot be decrypted.
+         */
+        InputStream decrypt(InputStream stream) throws IOException;
+    }
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpResponseCache.class);
+
+    /** The file name suffix of responses stored on disk. */
+    private static final String SUFFIX = ".cache";
+
+    /** The request methods that do not modify resources on the server. */
+    private static final List<String> SAFE_METHODS = List.of(HttpRequest.GET, HttpRequest.HEAD, HttpRequest.OPTIONS,
+            HttpRequest.TRACE);
+
+    /** The maximum number of bytes of responses kept in memory. */
+    private final long memoryBudget;
+
+    /** The directory of responses stored on disk or <code>null</code>. */
+    private final File directory;
+
+    /** The encryption of the responses stored on disk or <code>null</code>. */
+    private final DiskEncryption encryption;
+
+    /** The maximum number of bytes of responses stored on disk. */
+    private final long diskBudget;
+
+    /** The maximum size of a response body that will be stored. */
+    private final long maxEntrySize;
+
+    /** The responses kept in memory in least recently used order. */
+    private final Map<String, CachedResponse> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The sizes of the files on disk, keyed by name in least recently used order. */
+    private final Map<String, Long> diskIndex = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The number of bytes of responses kept in memory. */
+    private long memoryBytes;
+
+    /** The number of bytes of responses stored on disk. */
+    private long diskBytes;
+
+    /** The number of requests answered without contacting the server. */
+    private final AtomicLong hits = new AtomicLong();
+
+    /** The number of requests answered by the server with a full response. */
+    private final AtomicLong misses = new AtomicLong();
+
+    /** The number of requests answered by revalidating a stored response. */
+    private final AtomicLong revalidations = new AtomicLong();
+
+    /**
+     * Constructs a new {@linkplain HttpResponseCache} that keeps responses in
+     * memory only.
+     *
+     * @param memoryBudget the maximum number of bytes of responses kept in
+     *            memory.
+     * @param maxEntrySize the maximum size in bytes of a response body that
+     *            will be stored.
+     */
+    public HttpResponseCache(final long memoryBudget, final long maxEntrySize)
+    {
+        this(memoryBudget, null, 0L, maxEntrySize);
+    }
+
+    /**
+     * Constructs a new {@linkplain HttpResponseCache}. Responses already in the
+     * directory are made available to the new cache.
+     *
+     * @param memoryBudget the maximum number of bytes of responses kept in
+     *            memory.
+     * @param directory the directory for responses stored on disk or
+     *            <code>null</code> to keep responses in memory only.
+     * @param diskBudget the maximum number of bytes of responses stored on
+     *            disk.
+     * @param maxEntrySize the maximum size in bytes of a response body that
+     *            will be stored.
+     */
+    public HttpResponseCache(final long memoryBudget, final File directory, final long diskBudget, final long maxEntrySize)
+    {
+        this(memoryBudget, directory, diskBudget, maxEntrySize, null);
+    }
+
+    /**
+     * Constructs a new {@linkplain HttpResponseCache} that encrypts the
+     * responses stored on disk. Responses already in the directory are made
+     * available to the new cache; those that cannot be decrypted are removed
+     * when they are requested.
+     *
+     * @param memoryBudget the maximum number of bytes of responses kept in
+     *            memory.
+     * @param directory the directory for responses stored on disk or
+     *            <code>null</code> to keep responses in memory only.
+     * @param diskBudget the maximum number of bytes of responses stored on
+     *            disk.
+     * @param maxEntrySize the maximum size in bytes of a response body that
+     *            will be stored.
+     * @param encryption the encryption of the responses stored on disk or
+     *            <code>null</code> to store them unencrypted.
+     */
+    public HttpResponseCache(final long memoryBudget, final File directory, final long diskBudget, final long maxEntrySize,
+            final DiskEncryption encryption)
+    {
+        this.memoryBudget = memoryBudget;
+        this.encryption = encryption;
+        this.diskBudget = diskBudget;
+        this.maxEntrySize = maxEntrySize;
+        this.directory = directory != null && (directory.isDirectory() || directory.mkdirs()) ? directory : null;
+        if (directory != null && this.directory == null)
+        {
+            LOGGER.warn("Unable to create the HTTP cache directory " + directory + "; responses will not be stored on disk");
+        }
+        loadIndex();
+    }
+
+    /**
+     * Executes a request, using a stored response where possible.
+     *
+     * @param request the request.
+     * @param executor the object that sends requests to the server.
+     * @return the response.
+     * @throws IOException if an I/O error occurs.
+     */
+    public HttpResponse execute(final HttpRequest request, final RequestExecutor executor) throws IOException
+    {
+        final String key = getKey(request);
+        if (!HttpRequest.GET.equals(request.getMethod()))
+        {
+            return invalidate(key, request, executor.execute(request));
+        }
+        if (isBypassed(request))
+        {
+            return executor.execute(request);
+        }
+
+        final long requestTime = System.currentTimeMillis();
+        final CachedResponse cached = getMatching(key, request);
+        if (isUsable(request, cached, requestTime))
+        {
+            hits.incrementAndGet();
+            return cached.toResponse(requestTime);
+        }
+
+        final HttpResponse response = executeConditional(request, executor, cached);
+        return handleResponse(key, request, cached, response, requestTime);
+    }
+
+    /**
+     * Executes a request without blocking the calling thread, using a stored
+     * response where possible. A fresh stored response completes the returned
+     * future immediately. A storable response is read and stored by the
+     * thread that completes the executor's future.
+     *
+     * @param request the request.
+     * @param executor the object that sends requests to the server.
+     * @return the future response.
+     */
+    public CompletableFuture<HttpResponse> executeAsync(final HttpRequest request, final AsyncRequestExecutor executor)
+    {
+        final String key = getKey(request);
+        if (!HttpRequest.GET.equals(request.getMethod()))
+        {
+            return executor.execute(request).thenApply(response -> invalidate(key, request, response));
+        }
+        if (isBypassed(request))
+        {
+            return executor.execute(request);
+        }
+
+        final long requestTime = System.currentTimeMillis();
+        final CachedResponse cached = getMatching(key, request);
+        if (isUsable(request, cached, requestTime))
+        {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached.toResponse(requestTime));
+        }
+
+        final CompletableFuture<HttpResponse> future;
+        addValidators(request, cached);
+        try
+        {
+            future = executor.execute(request);
+        }
+        finally
+        {
+            removeValidators(request, cached);
+        }
+        return future.thenApply(response ->
+        {
+            try
+            {
+                return handleResponse(key, request, cached, response, requestTime);
+            }
+            catch (final IOException e)
+            {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the stored response for a URI.
+     *
+     * @param key the URI of the request.
+     * @return the response or <code>null</code> if none is stored.
+     */
+    public CachedResponse get(final String key)
+    {
+        final String fileName = getFileName(key);
+        synchronized (this)
+        {
+            final CachedResponse response = memory.get(key);
+            if (response != null || diskIndex.get(fileName) == null)
+            {
+                return response;
+            }
+        }
+
+        final File file = new File(directory, fileName);
+        try (InputStream fileIn = new BufferedInputStream(Files.newInputStream(file.toPath()));
+                InputStream in = encryption == null ? fileIn : encryption.decrypt(fileIn))
+        {
+            final CachedResponse response = CachedResponse.read(in);
+            if (!file.setLastModified(System.currentTimeMillis()))
+            {
+                LOGGER.debug("Unable to update the modification time of " + file);
+            }
+            putMemory(key, response);
+            return response;
+        }
+        catch (final IOException e)
+        {
+            LOGGER.debug("Unable to read the cached response " + file, e);
+            removeFile(fileName);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a response for a URI, replacing any previous response.
+     *
+     * @param key the URI of the request.
+     * @param response the response.
+     */
+    public void put(final String key, final CachedResponse response)
+    {
+        if (response.getBody().length > maxEntrySize)
+        {
+            remove(key);
+            return;
+        }
+        putMemory(key, response);
+        if (directory == null)
+        {
+            return;
+        }
+
+        final String fileName = getFileName(key);
+        final File file = new File(directory, fileName);
+        try
+        {
+            final File temp = File.createTempFile("response", ".tmp", directory);
+            try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(temp.toPath()));
+                    OutputStream out = encryption == null ? fileOut : encryption.encrypt(fileOut))
+            {
+                response.write(out);
+            }
+            catch (final IOException e)
+            {
+                Files.deleteIfExists(temp.toPath());
+                throw e;
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this)
+            {
+                final Long previous = diskIndex.put(fileName, Long.valueOf(file.length()));
+                diskBytes += file.length() - (previous == null ? 0L : previous.longValue());
+                evictDisk();
+            }
+        }
+        catch (final IOException e)
+        {
+            LOGGER.warn("Unable to store the cached response for " + key + ": " + e, e);
+        }
+    }
+
+    /**
+     * Removes the stored response for a URI.
+     *
+     * @param key the URI of the request.
+     */
+    public void remove(final String key)
+    {
+        synchronized (this)
+        {
+            final CachedResponse response = memory.remove(key);
+            if (response != null)
+            {
+                memoryBytes -= response.getSize();
+            }
+        }
+        if (directory != null)
+        {
+            removeFile(getFileName(key));
+        }
+    }
+
+    /**
+     * Removes the responses that were stored or used at or after the given
+     * time.
+     *
+     * @param since the time or <code>null</code> to remove every response.
+     */
+    public void clear(final Date since)
+    {
+        final long sinceTime = since == null ? Long.MIN_VALUE : since.getTime();
+        synchronized (this)
+        {
+            for (final Iterator<CachedResponse> iter = memory.values().iterator(); iter.hasNext();)
+            {
+                final CachedResponse response = iter.next();
+                if (response.getResponseTime() >= sinceTime)
+                {
+                    memoryBytes -= response.getSize();
+                    iter.remove();
+                }
+            }
+            if (directory != null)
+            {
+                for (final Iterator<Map.Entry<String, Long>> iter = diskIndex.entrySet().iterator(); iter.hasNext();)
+                {
+                    final Map.Entry<String, Long> entry = iter.next();
+                    final File file = new File(directory, entry.getKey());
+                    if (file.lastModified() >= sinceTime || !file.exists())
+                    {
+                        diskBytes -= entry.getValue().longValue();
+                        deleteFile(file);
+                        iter.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of requests answered without contacting the server.
+     *
+     * @return the number of hits.
+     */
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of requests answered by the server with a full
+     * response.
+     *
+     * @return the number of misses.
+     */
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of requests answered by revalidating a stored
+     * response.
+     *
+     * @return the number of revalidations.
+     */
+    public long getRevalidationCount()
+    {
+        return revalidations.get();
+    }
+
+    /**
+     * Returns the number of bytes of responses kept in memory.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long getMemoryBytes()
+    {
+        return memoryBytes;
+    }
+
+    /**
+     * Returns the number of bytes of responses stored on disk.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long getDiskBytes()
+    {
+        return diskBytes;
+    }
+
+    /**
+     * Returns the key used to store the response to a request.
+     *
+     * @param request the request.
+     * @return the key.
+     */
+    protected String getKey(final HttpRequest request)
+    {
+        return request.getURI().toASCIIString();
+    }
+
+    /**
+     * Sends a request to the server, adding validators from the stored
+     * response so that the server can answer with
+     * <code>304 Not Modified</code>. The validators are removed from the
+     * request afterward.
+     *
+     * @param request the request.
+     * @param executor the object that sends requests to the server.
+     * @param cached the stored response or <code>null</code>.
+     * @return the response.
+     * @throws IOException if an I/O error occurs.
+     */
+    private HttpResponse executeConditional(final HttpRequest request, final RequestExecutor executor,
+            final CachedResponse cached)
+        throws IOException
+    {
+        addValidators(request, cached);
+        try
+        {
+            return executor.execute(request);
+        }
+        finally
+        {
+            removeValidators(request, cached);
+        }
+    }
+
+    /**
+     * Updates the cache with the response from the server to a
+     * <code>GET</code> request that was not answered from the cache.
+     *
+     * @param key the URI of the request.
+     * @param request the request.
+     * @param cached the stored response that was revalidated or
+     *            <code>null</code>.
+     * @param response the response from the server.
+     * @param requestTime the time at which the request was sent.
+     * @return the response to return to the caller.
+     * @throws IOException if the body cannot be read.
+     */
+    private HttpResponse handleResponse(final String key, final HttpRequest request, final CachedResponse cached,
+            final HttpResponse response, final long requestTime)
+        throws IOException
+    {
+        final long responseTime = System.currentTimeMillis();
+        if (cached != null && response.getStatusCode() == 304)
+        {
+            response.close();
+            revalidations.incrementAndGet();
+            final CachedResponse updated = cached.revalidated(response, requestTime, responseTime);
+            put(key, updated);
+            return updated.toResponse(responseTime);
+        }
+
+        misses.incrementAndGet();
+        if (!CachedResponse.isStorable(request, response))
+        {
+            if (cached != null && response.getStatusCode() < 500)
+            {
+                remove(key);
+            }
+            return response;
+        }
+        return store(key, request, response, requestTime, responseTime);
+    }
+
+    /**
+     * Adds the validators from a stored response to a request so that the
+     * server can answer with <code>304 Not Modified</code>.
+     *
+     * @param request the request.
+     * @param cached the stored response or <code>null</code>.
+     */
+    private void addValidators(final HttpRequest request, final CachedResponse cached)
+    {
+        if (cached == null || !cached.hasValidator())
+        {
+            return;
+        }
+        if (cached.getETag() != null)
+        {
+            request.getHeaders().put("If-None-Match", cached.getETag());
+        }
+        if (cached.getLastModified() != null)
+        {
+            request.getHeaders().put("If-Modified-Since", cached.getLastModified());
+        }
+    }
+
+    /**
+     * Removes the validators added by
+     * {@link #addValidators(HttpRequest, CachedResponse)}.
+     *
+     * @param request the request.
+     * @param cached the stored response or <code>null</code>.
+     */
+    private void removeValidators(final HttpRequest request, final CachedResponse cached)
+    {
+        if (cached != null && cached.hasValidator())
+        {
+            request.getHeaders().keySet()
+                    .removeIf(name -> "If-None-Match".equalsIgnoreCase(name) || "If-Modified-Since".equalsIgnoreCase(name));
+        }
+    }
+
+    /**
+     * Removes the stored response for the URI of a request that may have
+     * modified the resource.
+     *
+     * @param key the URI of the request.
+     * @param request the request, which is not a <code>GET</code>.
+     * @param response the response from the server.
+     * @return the response.
+     */
+    private HttpResponse invalidate(final String key, final HttpRequest request, final HttpResponse response)
+    {
+        if (!SAFE_METHODS.contains(request.getMethod()) && response.getStatusCode() < 400)
+        {
+            remove(key);
+        }
+        return response;
+    }
+
+    /**
+     * Determines if a <code>GET</code> request must neither use nor store
+     * responses.
+     *
+     * @param request the request.
+     * @return <code>true</code> if the request bypasses the cache.
+     */
+    private boolean isBypassed(final HttpRequest request)
+    {
+        return CacheControl.parse(request.getHeaderValue("Cache-Control")).isNoStore()
+                || CachedResponse.isAuthenticated(request, null) || request.getHeaderValue("Range") != null
+                || request.getHeaderValue("If-None-Match") != null || request.getHeaderValue("If-Modified-Since") != null;
+    }
+
+    /**
+     * Returns the stored response for a request if it matches the request's
+     * varying headers.
+     *
+     * @param key the URI of the request.
+     * @param request the request.
+     * @return the stored response or <code>null</code>.
+     */
+    private CachedResponse getMatching(final String key, final HttpRequest request)
+    {
+        final CachedResponse cached = get(key);
+        return cached != null && cached.matches(request) ? cached : null;
+    }
+
+    /**
+     * Determines if a stored response can answer a request without contacting
+     * the server.
+     *
+     * @param request the request.
+     * @param cached the stored response or <code>null</code>.
+     * @param requestTime the time of the request.
+     * @return <code>true</code> if the stored response is usable.
+     */
+    private boolean isUsable(final HttpRequest request, final CachedResponse cached, final long requestTime)
+    {
+        return cached != null && !CacheControl.parse(request.getHeaderValue("Cache-Control")).isNoCache()
+                && cached.isFresh(requestTime);
+    }
+
+    /**
+     * Reads the body of a storable response and stores it. If the body is
+     * larger than the maximum entry size, the response is returned with a body
+     * that reads the bytes already consumed followed by the rest of the
+     * original content.
+     *
+     * @param key the URI of the request.
+     * @param request the request.
+     * @param response the response.
+     * @param requestTime the time at which the request was sent.
+     * @param responseTime the time at which the response was received.
+     * @return the response to return to the caller.
+     * @throws IOException if the body cannot be read.
+     */
+    private HttpResponse store(final String key, final HttpRequest request, final HttpResponse response, final long requestTime,
+            final long responseTime)
+        throws IOException
+    {
+        final HttpEntity entity = response.getEntity();
+        final InputStream content = entity == null ? null : entity.getContent();
+        if (content == null)
+        {
+            final CachedResponse cached = CachedResponse.create(request, response, new byte[0], requestTime, responseTime);
+            put(key, cached);
+            return cached.toResponse(responseTime);
+        }
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+                (int)Math.min(maxEntrySize + 1, Math.max(entity.getContentLength(), 8192L)));
+        final byte[] chunk = new byte[8192];
+        int count;
+        while (buffer.size() <= maxEntrySize && (count = content.read(chunk)) >= 0)
+        {
+            buffer.write(chunk, 0, count);
+        }
+
+        if (buffer.size() > maxEntrySize)
+        {
+            remove(key);
+            final InputStreamEntity passThrough = new InputStreamEntity(
+                    new SequenceInputStream(new ByteArrayInputStream(buffer.toByteArray()), content), entity.getContentLength(),
+                    entity.getContentType());
+            passThrough.setContentEncoding(entity.getContentEncoding());
+            final BasicHttpResponse result = new BasicHttpResponse(response.getStatusCode(), response.getStatusMessage(),
+                    passThrough);
+            result.getHeaders().putAll(response.getHeaders());
+            return result;
+        }
+
+        content.close();
+        final CachedResponse cached = CachedResponse.create(request, response, buffer.toByteArray(), requestTime,
+                responseTime);
+        put(key, cached);
+        return cached.toResponse(responseTime);
+    }
+
+    /**
+     * Adds a response to the memory tier and evicts the least recently used
+     * responses that exceed the memory budget.
+     *
+     * @param key the URI of the request.
+     * @param response the response.
+     */
+    private synchronized void putMemory(final String key, final CachedResponse response)
+    {
+        final CachedResponse previous = memory.put(key, response);
+        memoryBytes += response.getSize() - (previous == null ? 0L : previous.getSize());
+        for (final Iterator<CachedResponse> iter = memory.values().iterator(); memoryBytes > memoryBudget && iter.hasNext();)
+        {
+            memoryBytes -= iter.next().getSize();
+            iter.remove();
+        }
+    }
+
+    /**
+     * Deletes the least recently used files that exceed the disk budget. The
+     * caller must hold the lock on this object.
+     */
+    private void evictDisk()
+    {
+        for (final Iterator<Map.Entry<String, Long>> iter = diskIndex.entrySet().iterator(); diskBytes > diskBudget
+                && iter.hasNext();)
+        {
+            final Map.Entry<String, Long> entry = iter.next();
+            diskBytes -= entry.getValue().longValue();
+            deleteFile(new File(directory, entry.getKey()));
+            iter.remove();
+        }
+    }
+
+    /**
+     * Removes a file from the disk tier.
+     *
+     * @param fileName the name of the file.
+     */
+    private synchronized void removeFile(final String fileName)
+    {
+        final Long size = diskIndex.remove(fileName);
+        if (size != null)
+        {
+            diskBytes -= size.longValue();
+            deleteFile(new File(directory, fileName));
+        }
+    }
+
+    /**
+     * Deletes a file, logging a failure.
+     *
+     * @param file the file.
+     */
+    private void deleteFile(final File file)
+    {
+        try
+        {
+            Files.deleteIfExists(file.toPath());
+        }
+        catch (final IOException e)
+        {
+            LOGGER.warn("Unable to delete the cached response " + file + ": " + e, e);
+        }
+    }
+
+    /**
+     * Returns the name of the file that stores the response for a URI.
+     *
+     * @param key the URI of the request.
+     * @return the file name.
+     */
+    private String getFileName(final String key)
+    {
+        return Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString() + SUFFIX;
+    }
+
+    /**
+     * Builds the index of the disk tier from the files in the directory,
+     * ordered by the time each file was last used.
+     */
+    private synchronized void loadIndex()
+    {
+        if (directory == null)
+        {
+            return;
+        }
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null)
+        {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (final File file : files)
+        {
+            diskIndex.put(file.getName(), Long.valueOf(file.length()));
+            diskBytes += file.length();
+        }
+        evictDisk();
+    }
+}
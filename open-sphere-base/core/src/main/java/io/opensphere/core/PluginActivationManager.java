@@ -0,0 +1,36 @@
+package io.opensphere.core;
+
+import java.util.Collection;
+
+/**
+ * Manager for plug-ins whose initialization has been deferred until they are
+ * first used. A plug-in is deferred when it is marked deferrable in its
+ * {@link PluginLoaderData} and lazy plug-in initialization is enabled.
+ * <p>
+ * A plug-in that is initialized late receives the application lifecycle
+ * events that were published before it was initialized, so that it sees the
+ * same lifecycle as the plug-ins initialized at startup.
+ */
+public interface PluginActivationManager
+{
+    /**
+     * Initialize all plug-ins that are still deferred. This blocks until the
+     * plug-ins have been initialized.
+     */
+    void activateAllPlugins();
+
+    /**
+     * Initialize the deferred plug-ins that provide module state (see
+     * {@link PluginLoaderData#isStateProvider()}), along with any deferred
+     * plug-ins they require. This blocks until the plug-ins have been
+     * initialized.
+     */
+    void activateStatePlugins();
+
+    /**
+     * Get the ids of the plug-ins that have not been initialized yet.
+     *
+     * @return The plug-in ids.
+     */
+    Collection<String> getDeferredPluginIds();
+}
@@ -14,10 +14,17 @@ import javax.xml.bind.annotation.XmlType;
  * pluginLoader.xml.
  */
 @XmlAccessorType(XmlAccessType.FIELD)
-@XmlType(name = "", propOrder = { "myId", "myEnabled", "myClass", "myAppVersion", "myPluginVersion", "myDescription", "mySummary",
-    "myAuthor", "myLanguage", "myRequiredPluginDependency", "myOptionalPluginDependency", "myPluginProperty" })
+@XmlType(name = "", propOrder = { "myId", "myEnabled", "myDeferrable", "myClass", "myAppVersion", "myPluginVersion", "myDescription",
+    "mySummary", "myAuthor", "myLanguage", "myRequiredPluginDependency", "myOptionalPluginDependency", "myPluginProperty" })
 public class PluginLoaderData
 {
+    /**
+     * Key of the plug-in property that is set to {@code true} when a
+     * deferrable plug-in registers module state controllers, so that it is
+     * initialized before states are detected or activated.
+     */
+    public static final String PROVIDES_STATE_PROPERTY = "providesState";
+
     /** The id of the plug-in. */
     @XmlElement(name = "id")
     private String myId;
@@ -69,6 +76,13 @@ public class PluginLoaderData
     @XmlElement(name = "enabled")
     private boolean myEnabled = true;
 
+    /**
+     * Flag indicating if the plugin may be initialized on first use rather
+     * than at startup.
+     */
+    @XmlElement(name = "deferrable")
+    private boolean myDeferrable;
+
     @Override
     public boolean equals(Object obj)
     {
@@ -276,6 +290,17 @@ public class PluginLoaderData
         return result;
     }
 
+    /**
+     * Get if the plugin may be initialized on first use rather than at
+     * startup.
+     *
+     * @return If the plugin is deferrable.
+     */
+    public boolean isDeferrable()
+    {
+        return myDeferrable;
+    }
+
     /**
      * Get if the plugin is enabled.
      *
@@ -286,6 +311,18 @@ public class PluginLoaderData
         return myEnabled;
     }
 
+    /**
+     * Get if the plugin registers module state controllers, as indicated by
+     * the {@value #PROVIDES_STATE_PROPERTY} plug-in property.
+     *
+     * @return If the plugin provides module state.
+     */
+    public boolean isStateProvider()
+    {
+        return getPluginProperty().stream()
+                .anyMatch(p -> PROVIDES_STATE_PROPERTY.equals(p.getKey()) && Boolean.parseBoolean(p.getValue()));
+    }
+
     /**
      * Sets the value of the appVersion property.
      *
@@ -319,6 +356,17 @@ public class PluginLoaderData
         myClass = value;
     }
 
+    /**
+     * Sets if the plugin may be initialized on first use rather than at
+     * startup.
+     *
+     * @param deferrable The deferrable flag.
+     */
+    public void setDeferrable(boolean deferrable)
+    {
+        myDeferrable = deferrable;
+    }
+
     /**
      * Sets the value of the description property.
      *
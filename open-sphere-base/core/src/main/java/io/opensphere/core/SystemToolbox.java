@@ -19,6 +19,14 @@ public interface SystemToolbox
      */
     NetworkConfigurationManager getNetworkConfigurationManager();
 
+    /**
+     * Get the manager for plug-ins whose initialization has been deferred
+     * until first use.
+     *
+     * @return The plug-in activation manager.
+     */
+    PluginActivationManager getPluginActivationManager();
+
     /**
      * Get the manager for the splash screen. This allows the consumer to put
      * test messages on the splash image.
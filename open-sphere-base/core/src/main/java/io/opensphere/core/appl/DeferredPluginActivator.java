@@ -0,0 +1,410 @@
+package io.opensphere.core.appl;
+
+import java.awt.EventQueue;
+import java.awt.SecondaryLoop;
+import java.awt.Toolkit;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Logger;
+
+import io.opensphere.core.PluginActivationManager;
+import io.opensphere.core.PluginLoaderData;
+import io.opensphere.core.event.ApplicationLifecycleEvent;
+import io.opensphere.core.event.EventListener;
+import io.opensphere.core.event.EventManagerImpl;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.lang.NamedThreadFactory;
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * Keeps track of the plug-ins whose initialization has been deferred, and
+ * initializes them when they are requested.
+ * <p>
+ * Deferred plug-ins are initialized one at a time on a dedicated thread. The
+ * application lifecycle events published through
+ * {@link #publishLifecycleEvent(ApplicationLifecycleEvent.Stage)} are
+ * published on the same thread, so a plug-in is either initialized before an
+ * event is published and receives it normally, or initialized afterwards and
+ * has the event replayed to the lifecycle subscribers it added.
+ */
+class DeferredPluginActivator implements PluginActivationManager
+{
+    /** Logger reference. */
+    private static final Logger LOGGER = Logger.getLogger(DeferredPluginActivator.class);
+
+    /** The executor used to initialize deferred plug-ins. */
+    private final ThreadPoolExecutor myActivationExecutor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new NamedThreadFactory("DeferredPluginInit"));
+
+    /** The thread currently initializing deferred plug-ins. */
+    private volatile Thread myActivationThread;
+
+    /** The plug-ins that have not been initialized yet, in dependency order. */
+    @GuardedBy("myDeferredPlugins")
+    private final Map<String, PluginLoaderData> myDeferredPlugins = new LinkedHashMap<>();
+
+    /** The event manager. */
+    private final EventManagerImpl myEventManager;
+
+    /** The ids of the plug-ins that have been initialized. */
+    private final Set<String> myInitializedPluginIds = Collections.synchronizedSet(New.<String>set());
+
+    /** Initializes a plug-in, returning {@code true} if it succeeded. */
+    private final Predicate<PluginLoaderData> myInitializer;
+
+    /** If deferrable plug-ins should be deferred. */
+    private final boolean myLazy;
+
+    /**
+     * The lifecycle events that have been published, in order. This is only
+     * used by the activation thread once plug-ins have been deferred.
+     */
+    private final List<ApplicationLifecycleEvent> myPublishedEvents = New.list();
+
+    /** If any plug-ins have been deferred. */
+    private volatile boolean myDeferring;
+
+    /**
+     * Constructor.
+     *
+     * @param eventManager The event manager.
+     * @param initializer Initializes a deferred plug-in, returning
+     *            {@code true} if it succeeded.
+     * @param lazy If deferrable plug-ins should be deferred.
+     */
+    public DeferredPluginActivator(EventManagerImpl eventManager, Predicate<PluginLoaderData> initializer, boolean lazy)
+    {
+        myEventManager = eventManager;
+        myInitializer = initializer;
+        myLazy = lazy;
+        myActivationExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void activateAllPlugins()
+    {
+        if (!getDeferredPluginIds().isEmpty())
+        {
+            runActivation(() ->
+            {
+                activateDeferredPlugins(data -> true);
+                return Boolean.TRUE;
+            });
+        }
+    }
+
+    /**
+     * Initialize the deferred plug-ins in the background, without waiting for
+     * them.
+     */
+    public void activateAllPluginsLater()
+    {
+        if (!getDeferredPluginIds().isEmpty())
+        {
+            myActivationExecutor.execute(() -> runAsActivationThread(() ->
+            {
+                activateDeferredPlugins(data -> true);
+                return Boolean.TRUE;
+            }));
+        }
+    }
+
+    @Override
+    public void activateStatePlugins()
+    {
+        if (hasDeferredPlugin(PluginLoaderData::isStateProvider))
+        {
+            runActivation(() ->
+            {
+                activateDeferredPlugins(PluginLoaderData::isStateProvider);
+                return Boolean.TRUE;
+            });
+        }
+    }
+
+    /**
+     * Move the deferrable plug-ins and the plug-ins that require them to the
+     * deferred plug-ins, if lazy initialization is enabled.
+     *
+     * @param orderedPlugins The plug-ins, ordered by their dependencies.
+     * @return The plug-ins to initialize at startup.
+     */
+    public List<PluginLoaderData> deferPlugins(List<PluginLoaderData> orderedPlugins)
+    {
+        if (!myLazy)
+        {
+            return orderedPlugins;
+        }
+
+        final List<PluginLoaderData> startupPlugins = New.list(orderedPlugins.size());
+        synchronized (myDeferredPlugins)
+        {
+            for (final PluginLoaderData data : orderedPlugins)
+            {
+                if (data.isEnabled() && (data.isDeferrable()
+                        || data.getRequiredPluginDependency().stream().anyMatch(myDeferredPlugins::containsKey)))
+                {
+                    myDeferredPlugins.put(data.getId(), data);
+                }
+                else
+                {
+                    startupPlugins.add(data);
+                }
+            }
+            if (!myDeferredPlugins.isEmpty())
+            {
+                myDeferring = true;
+                LOGGER.info("Deferring initialization of plugins: " + myDeferredPlugins.keySet());
+            }
+        }
+        return startupPlugins;
+    }
+
+    @Override
+    public Collection<String> getDeferredPluginIds()
+    {
+        synchronized (myDeferredPlugins)
+        {
+            return New.list(myDeferredPlugins.keySet());
+        }
+    }
+
+    /**
+     * Get the ids of the plug-ins that have been initialized. Plug-ins
+     * initialized at startup are added to this set as well.
+     *
+     * @return The live, synchronized set of plug-in ids.
+     */
+    public Set<String> getInitializedPluginIds()
+    {
+        return myInitializedPluginIds;
+    }
+
+    /**
+     * Publish an application lifecycle event, and keep it to be replayed to
+     * plug-ins that are initialized later.
+     *
+     * @param stage The application stage.
+     */
+    public void publishLifecycleEvent(ApplicationLifecycleEvent.Stage stage)
+    {
+        if (myDeferring)
+        {
+            runActivation(() ->
+            {
+                myPublishedEvents.add(ApplicationLifecycleEvent.publishEvent(myEventManager, stage));
+                return Boolean.TRUE;
+            });
+        }
+        else
+        {
+            ApplicationLifecycleEvent.publishEvent(myEventManager, stage);
+        }
+    }
+
+    /**
+     * Initialize a deferred plug-in after initializing any deferred plug-ins
+     * it requires, and replay the published lifecycle events to it. This must
+     * be run by the activation thread.
+     *
+     * @param pluginId The plug-in id.
+     * @return {@code true} if the plug-in is active.
+     */
+    private boolean activateDeferredPlugin(String pluginId)
+    {
+        final PluginLoaderData data;
+        synchronized (myDeferredPlugins)
+        {
+            data = myDeferredPlugins.remove(pluginId);
+        }
+        if (data == null)
+        {
+            return myInitializedPluginIds.contains(pluginId);
+        }
+
+        for (final String dependency : data.getRequiredPluginDependency())
+        {
+            if (!activateDeferredPlugin(dependency))
+            {
+                LOGGER.error("Unable to initialize plugin [" + pluginId + "]: Because required plugin [" + dependency
+                        + "] could not be initialized.");
+                return false;
+            }
+        }
+
+        LOGGER.info("Activating deferred plugin: " + pluginId);
+        final Collection<EventListener<ApplicationLifecycleEvent>> previousSubscribers = myEventManager
+                .getSubscribers(ApplicationLifecycleEvent.class);
+        if (myInitializer.test(data))
+        {
+            myInitializedPluginIds.add(pluginId);
+            replayLifecycleEvents(previousSubscribers);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Initialize the deferred plug-ins that match a predicate, along with the
+     * deferred plug-ins they require. This must be run by the activation
+     * thread.
+     *
+     * @param predicate The predicate.
+     */
+    private void activateDeferredPlugins(Predicate<? super PluginLoaderData> predicate)
+    {
+        for (String pluginId; (pluginId = getNextDeferredPluginId(predicate)) != null;)
+        {
+            activateDeferredPlugin(pluginId);
+        }
+    }
+
+    /**
+     * Get the id of the first deferred plug-in that matches a predicate.
+     *
+     * @param predicate The predicate.
+     * @return The plug-in id, or {@code null} if there is none.
+     */
+    private String getNextDeferredPluginId(Predicate<? super PluginLoaderData> predicate)
+    {
+        synchronized (myDeferredPlugins)
+        {
+            return myDeferredPlugins.values().stream().filter(predicate).map(PluginLoaderData::getId).findFirst().orElse(null);
+        }
+    }
+
+    /**
+     * Get if any deferred plug-in matches a predicate.
+     *
+     * @param predicate The predicate.
+     * @return If there is a match.
+     */
+    private boolean hasDeferredPlugin(Predicate<? super PluginLoaderData> predicate)
+    {
+        return getNextDeferredPluginId(predicate) != null;
+    }
+
+    /**
+     * Publish the lifecycle events that have already been published to the
+     * lifecycle subscribers that have been added since. This must be run by
+     * the activation thread.
+     *
+     * @param previousSubscribers The subscribers before the plug-in was
+     *            initialized.
+     */
+    private void replayLifecycleEvents(Collection<EventListener<ApplicationLifecycleEvent>> previousSubscribers)
+    {
+        if (myPublishedEvents.isEmpty())
+        {
+            return;
+        }
+
+        final Set<EventListener<ApplicationLifecycleEvent>> previous = Collections.newSetFromMap(new IdentityHashMap<>());
+        previous.addAll(previousSubscribers);
+        final List<EventListener<ApplicationLifecycleEvent>> added = myEventManager
+                .getSubscribers(ApplicationLifecycleEvent.class).stream().filter(s -> !previous.contains(s))
+                .collect(Collectors.toList());
+        if (!added.isEmpty())
+        {
+            for (final ApplicationLifecycleEvent event : myPublishedEvents)
+            {
+                myEventManager.publishEvent(event, added);
+            }
+        }
+    }
+
+    /**
+     * Run an activation task on the activation thread and wait for it. If
+     * this is called on the event dispatch thread, events continue to be
+     * dispatched while waiting, so that plug-ins that initialize their
+     * components on the event dispatch thread do not deadlock.
+     *
+     * @param task The task.
+     * @return The result of the task, or {@code false} if it failed.
+     */
+    private Boolean runActivation(Callable<Boolean> task)
+    {
+        if (Thread.currentThread() == myActivationThread)
+        {
+            return runAsActivationThread(task);
+        }
+
+        final Future<Boolean> future;
+        if (EventQueue.isDispatchThread())
+        {
+            final SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+            future = myActivationExecutor.submit(() ->
+            {
+                try
+                {
+                    return runAsActivationThread(task);
+                }
+                finally
+                {
+                    loop.exit();
+                }
+            });
+            loop.enter();
+        }
+        else
+        {
+            future = myActivationExecutor.submit(() -> runAsActivationThread(task));
+        }
+
+        try
+        {
+            return future.get();
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted waiting for plugins to initialize: " + e, e);
+        }
+        catch (final ExecutionException e)
+        {
+            LOGGER.error("Failed to initialize deferred plugins: " + e, e);
+        }
+        return Boolean.FALSE;
+    }
+
+    /**
+     * Run an activation task, marking the current thread as the activation
+     * thread so that re-entrant activation requests do not wait on
+     * themselves.
+     *
+     * @param task The task.
+     * @return The result of the task, or {@code false} if it failed.
+     */
+    private Boolean runAsActivationThread(Callable<Boolean> task)
+    {
+        final Thread previous = myActivationThread;
+        myActivationThread = Thread.currentThread();
+        try
+        {
+            return task.call();
+        }
+        catch (final Exception e)
+        {
+            LOGGER.error("Failed to initialize deferred plugins: " + e, e);
+            return Boolean.FALSE;
+        }
+        finally
+        {
+            myActivationThread = previous;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import edu.umd.cs.findbugs.annotations.Nullable;
 import io.opensphere.core.MemoryManager;
 import io.opensphere.core.MemoryManager.MemoryListener;
 import io.opensphere.core.MemoryManager.Status;
+import io.opensphere.core.geometry.TileRequestScheduler;
 import io.opensphere.core.util.Utilities;
 import io.opensphere.core.util.collections.LazyMap;
 import io.opensphere.core.util.collections.LazyMap.Factory;
@@ -194,7 +195,8 @@ class ExecutorManager
     }
 
     /**
-     * Get the executor for geometry data retrievers.
+     * Get the executor for geometry data retrievers. Tile image requests are
+     * scheduled by a {@link TileRequestScheduler}.
      *
      * @return The executor.
      */
@@ -202,12 +204,17 @@ class ExecutorManager
     {
         final int priority = 3;
         final int maxPriority = 4;
+        final int threadCount = 10;
         final long timeoutSeconds = 30L;
-        ThreadPoolExecutor executor = new PriorityThreadPoolExecutor(10, 10, timeoutSeconds, TimeUnit.SECONDS,
+        ThreadPoolExecutor executor = new PriorityThreadPoolExecutor(threadCount, threadCount, timeoutSeconds, TimeUnit.SECONDS,
                 new PriorityBlockingQueue<Runnable>(), new NamedThreadFactory("GeometryDataRetriever", priority, maxPriority),
                 SuppressableRejectedExecutionHandler.getInstance());
         executor.allowCoreThreadTimeOut(true);
-        return executor;
+        ThreadPoolExecutor tileExecutor = new ThreadPoolExecutor(threadCount, threadCount, timeoutSeconds, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("TileDataRetriever", priority, maxPriority),
+                SuppressableRejectedExecutionHandler.getInstance());
+        tileExecutor.allowCoreThreadTimeOut(true);
+        return new TileRequestScheduler(executor, tileExecutor, threadCount, TileRequestScheduler.DEFAULT_SERVER_CONCURRENCY);
     }
 
     /**
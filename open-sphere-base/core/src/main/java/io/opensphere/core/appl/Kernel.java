@@ -14,6 +14,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
@@ -179,8 +180,8 @@ public class Kernel
     /** The collection of pipelines. */
     private final Collection<PipelineImpl> myPipelines = new ArrayList<>();
 
-    /** The plug-in instances. */
-    private final Collection<Plugin> myPluginInstances = new ArrayList<>();
+    /** The plug-in initializer. */
+    private PluginInit myPluginInit;
 
     /** The post plugin initializer. */
     private final PostPluginInit myPostPluginInit;
@@ -191,6 +192,9 @@ public class Kernel
     /** The collection of transformers. */
     private final Collection<Transformer> myTransformers = new ArrayList<>();
 
+    /** The tracer that records the time spent in each startup phase. */
+    private final StartupTracer myStartupTracer = new StartupTracer();
+
     /** The cache initializer. */
     private final CacheInit myCacheInit = new CacheInit(myExecutorManager.createCacheExecutor());
 
@@ -232,11 +236,14 @@ public class Kernel
         logSystemInfo();
 
         initJavaFx();
+        long phaseStart = System.nanoTime();
         final Cache cache = initializeCache();
+        myStartupTracer.recordPhase("Initialize cache", phaseStart);
 
         final MainFrameInit mainFrameInit = new MainFrameInit();
         myMainFrame = mainFrameInit.getMainFrame();
 
+        phaseStart = System.nanoTime();
         myToolbox = new ToolboxImpl(myExecutorManager, cache, myMainFrame)
         {
             @Override
@@ -245,6 +252,7 @@ public class Kernel
                 shutdown(2);
             }
         };
+        myStartupTracer.recordPhase("Initialize toolbox", phaseStart);
 
         Preferences preferences = myToolbox.getPreferencesRegistry().getPreferences(org.apache.log4j.LogManager.class);
         preferences.keys().stream().forEach(key ->
@@ -276,8 +284,11 @@ public class Kernel
         {
             URLConnection.setContentHandlerFactory(OpenSphereContentHandlerFactory.getInstance());
 
+            phaseStart = System.nanoTime();
             myPipelineComponent = initializePipeline();
+            myStartupTracer.recordPhase("Initialize pipeline", phaseStart);
 
+            phaseStart = System.nanoTime();
             EventQueue.invokeAndWait(() ->
             {
                 try
@@ -297,12 +308,19 @@ public class Kernel
                 myToolbox.finishBinding();
             });
 
-            myPluginInstances.addAll(new PluginInit(myToolbox).initializePlugins());
+            myStartupTracer.recordPhase("Initialize main frame", phaseStart);
 
-            ApplicationLifecycleEvent.publishEvent(myToolbox.getEventManager(),
-                    ApplicationLifecycleEvent.Stage.PLUGINS_INITIALIZED);
+            phaseStart = System.nanoTime();
+            myPluginInit = new PluginInit(myToolbox, myStartupTracer);
+            myToolbox.setPluginActivationManager(myPluginInit.getActivator());
+            myPluginInit.initializePlugins();
+            myStartupTracer.recordPhase("Initialize plugins", phaseStart);
 
+            myPluginInit.getActivator().publishLifecycleEvent(ApplicationLifecycleEvent.Stage.PLUGINS_INITIALIZED);
+
+            phaseStart = System.nanoTime();
             myPostPluginInit.open();
+            myStartupTracer.recordPhase("Post-plugin initialization", phaseStart);
 
             initializeMemoryLogger();
 
@@ -460,7 +478,7 @@ public class Kernel
      */
     private Collection<Plugin> getPluginInstances()
     {
-        return myPluginInstances;
+        return myPluginInit == null ? Collections.emptyList() : myPluginInit.getPluginInstances();
     }
 
     /**
@@ -660,6 +678,7 @@ public class Kernel
      */
     final void displayMainFrame()
     {
+        final long start = System.nanoTime();
         LOGGER.info(DISPLAYING_MAIN_FRAME_MSG);
         myPipelineComponent.setVisible(true);
         if (Boolean.getBoolean("opensphere.enablePopToBack"))
@@ -670,7 +689,10 @@ public class Kernel
             myMainFrame.setAlwaysOnTop(true);
             myMainFrame.setAlwaysOnTop(false);
         }
-        ApplicationLifecycleEvent.publishEvent(myToolbox.getEventManager(), ApplicationLifecycleEvent.Stage.MAIN_FRAME_VISIBLE);
+        myPluginInit.getActivator().publishLifecycleEvent(ApplicationLifecycleEvent.Stage.MAIN_FRAME_VISIBLE);
+        myStartupTracer.recordPhase("Display main frame", start);
+        myStartupTracer.report();
+        myPluginInit.getActivator().activateAllPluginsLater();
 
         if ("x86".equals(System.getProperty("os.arch")) && StringUtils.isNotEmpty(System.getenv("ProgramW6432")))
         {
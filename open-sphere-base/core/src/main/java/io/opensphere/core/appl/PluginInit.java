@@ -39,7 +39,9 @@ import io.opensphere.core.util.predicate.InPredicate;
 import net.jcip.annotations.GuardedBy;
 
 /**
- * Initializer for plug-ins.
+ * Initializer for plug-ins. When lazy initialization is enabled, plug-ins that
+ * are marked deferrable (and any plug-ins that require them) are not
+ * initialized at startup, but when they are first activated.
  */
 @SuppressWarnings("PMD.GodClass")
 class PluginInit
@@ -50,10 +52,16 @@ class PluginInit
     /** The Constant UNABLE_TO_INITIALIZE_PLUGIN. */
     private static final String UNABLE_TO_INITIALIZE_PLUGIN = "Unable to initialize plugin [";
 
+    /** The manager of the plug-ins whose initialization has been deferred. */
+    private final DeferredPluginActivator myActivator;
+
     /** The collection of plug-ins. */
     @GuardedBy("myPluginInstances")
     private final Map<Class<?>, List<MetaAndInstance>> myPluginInstances = new LinkedHashMap<>();
 
+    /** The tracer that records plug-in initialization times. */
+    private final StartupTracer myStartupTracer;
+
     /** The toolbox, containing various application control interfaces. */
     private final ToolboxImpl myToolbox;
 
@@ -115,10 +123,46 @@ class PluginInit
      * Construct the initializer.
      *
      * @param toolbox The toolbox.
+     * @param startupTracer The tracer that records plug-in initialization
+     *            times.
      */
-    public PluginInit(ToolboxImpl toolbox)
+    public PluginInit(ToolboxImpl toolbox, StartupTracer startupTracer)
     {
         myToolbox = toolbox;
+        myStartupTracer = startupTracer;
+        myActivator = new DeferredPluginActivator(toolbox.getEventManager(), this::initDeferredPlugin,
+                Boolean.getBoolean("opensphere.pluginInit.lazy"));
+    }
+
+    /**
+     * Get the manager of the plug-ins whose initialization has been deferred.
+     *
+     * @return The activator.
+     */
+    public DeferredPluginActivator getActivator()
+    {
+        return myActivator;
+    }
+
+    /**
+     * Get the plug-ins that have been initialized.
+     *
+     * @return The plug-ins.
+     */
+    public Collection<Plugin> getPluginInstances()
+    {
+        final Collection<Plugin> result = new ArrayList<>();
+        synchronized (myPluginInstances)
+        {
+            for (final List<MetaAndInstance> list : myPluginInstances.values())
+            {
+                for (final MetaAndInstance metaAndInstance : list)
+                {
+                    result.add(metaAndInstance.getPluginInstance());
+                }
+            }
+        }
+        return result;
     }
 
     /**
@@ -129,21 +173,17 @@ class PluginInit
     public Collection<? extends Plugin> initializePlugins()
     {
         registerAndInitClasses();
-        final ApplicationStatistics applicationStatistics = myToolbox.getStatisticsManager().getApplicationStatistics();
 
-        final Collection<List<MetaAndInstance>> values;
+        final Collection<MetaAndInstance> values = New.list();
         synchronized (myPluginInstances)
         {
-            values = myPluginInstances.values();
+            myPluginInstances.values().forEach(values::addAll);
         }
         final Collection<Plugin> result = new ArrayList<>(values.size());
-        for (final List<MetaAndInstance> list : values)
+        for (final MetaAndInstance metaAndInstance : values)
         {
-            for (final MetaAndInstance metaAndInstance : list)
-            {
-                applicationStatistics.getAvailablePlugins().add(gatherPluginStatistics(metaAndInstance.getMetadata()));
-                result.add(metaAndInstance.getPluginInstance());
-            }
+            addStatistics(metaAndInstance.getMetadata());
+            result.add(metaAndInstance.getPluginInstance());
         }
         return result;
     }
@@ -173,6 +213,18 @@ class PluginInit
         return pluginStatistics;
     }
 
+    /**
+     * Add the statistics for an initialized plug-in to the application
+     * statistics.
+     *
+     * @param data The plug-in data.
+     */
+    private void addStatistics(PluginLoaderData data)
+    {
+        final ApplicationStatistics applicationStatistics = myToolbox.getStatisticsManager().getApplicationStatistics();
+        applicationStatistics.getAvailablePlugins().add(gatherPluginStatistics(data));
+    }
+
     /**
      * Builds the circular path string.
      *
@@ -397,9 +449,10 @@ class PluginInit
             final Map<String, Collection<PluginLoaderData>> dependencyToPluginsMap, final Set<String> initializedPluginIds,
             final Set<String> failedPluginIds, final BlockingQueue<PluginLoaderData> workQueue)
     {
+        final long queuedNanos = System.nanoTime();
         return new PluginInitFuture(data.getId(), executor.submit(() ->
         {
-            if (initPlugin(data))
+            if (initPlugin(data, queuedNanos, false))
             {
                 initializedPluginIds.add(data.getId());
             }
@@ -426,13 +479,32 @@ class PluginInit
         return timeout == null ? TimeBudget.INDEFINITE : TimeBudget.startMilliseconds(timeout.longValue());
     }
 
+    /**
+     * Initialize a plugin whose initialization was deferred.
+     *
+     * @param plugindata The plugin data.
+     * @return {@code true} iff successful.
+     */
+    private boolean initDeferredPlugin(PluginLoaderData plugindata)
+    {
+        if (initPlugin(plugindata, System.nanoTime(), true))
+        {
+            addStatistics(plugindata);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Initialize the plugin.
      *
      * @param plugindata The plugin data.
+     * @param queuedNanos The system time when the plugin was ready to be
+     *            initialized.
+     * @param deferred If the plugin is being initialized after startup.
      * @return {@code true} iff successful.
      */
-    private boolean initPlugin(PluginLoaderData plugindata)
+    private boolean initPlugin(PluginLoaderData plugindata, long queuedNanos, boolean deferred)
     {
         final String initMsg = "Loading Plugin: " + plugindata.getId();
         myToolbox.getSystemToolbox().getSplashScreenManager().setInitMessage(initMsg);
@@ -441,12 +513,14 @@ class PluginInit
             LOGGER.info(initMsg);
         }
 
+        final long startNanos = System.nanoTime();
         final Plugin pluginInstance = createPluginInstance(plugindata);
         if (pluginInstance == null)
         {
             return false;
         }
 
+        final long instantiatedNanos = System.nanoTime();
         final Class<? extends Plugin> c = pluginInstance.getClass();
         try
         {
@@ -456,9 +530,8 @@ class PluginInit
                 LOGGER.debug("Initializing plug-in: " + pkg.getImplementationTitle() + " version: "
                         + pkg.getImplementationVersion() + " vendor: " + pkg.getImplementationVendor());
             }
-            final long t0 = System.nanoTime();
             pluginInstance.initialize(plugindata, myToolbox);
-            final long initTime = System.nanoTime() - t0;
+            final long initTime = System.nanoTime() - instantiatedNanos;
             final String initTimeMessage = StringUtilities
                     .formatTimingMessage("Time to initialize plugin " + plugindata.getId() + ": ", initTime);
             LOGGER.log(initTime > 2_000_000_000 ? Level.INFO : Level.DEBUG, initTimeMessage);
@@ -492,6 +565,8 @@ class PluginInit
         {
             myPluginInstances.computeIfAbsent(c, k -> new ArrayList<>(1)).add(instance);
         }
+        myStartupTracer.recordPlugin(plugindata.getId(), plugindata.getRequiredPluginDependency(), queuedNanos, startNanos,
+                instantiatedNanos, System.nanoTime(), deferred);
 
         return true;
     }
@@ -571,13 +646,14 @@ class PluginInit
      */
     private void registerAndInitClasses()
     {
-        final List<PluginLoaderData> classesToLoad = orderByDependencies(new PluginConfigLoader().getPluginConfigurations());
+        final List<PluginLoaderData> classesToLoad = myActivator.deferPlugins(
+                orderByDependencies(new PluginConfigLoader().getPluginConfigurations()));
         final Map<String, Collection<PluginLoaderData>> dependencyToPluginsMap = createDependencyToPluginsMap(classesToLoad);
 
         final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
                 new NamedThreadFactory("PluginInit"));
         final Set<String> forkedPluginIds = New.<String>set();
-        final Set<String> initializedPluginIds = Collections.synchronizedSet(New.<String>set());
+        final Set<String> initializedPluginIds = myActivator.getInitializedPluginIds();
         final Set<String> failedPluginIds = Collections.synchronizedSet(New.<String>set());
         final BlockingQueue<PluginLoaderData> workQueue = new LinkedBlockingQueue<>(classesToLoad);
         int count = 0;
@@ -0,0 +1,368 @@
+package io.opensphere.core.appl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import io.opensphere.core.util.collections.New;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Records the wall time spent in each startup phase and in each plug-in's
+ * initialization, and produces a report that includes the chain of plug-in
+ * dependencies that determined when plug-in initialization finished.
+ */
+@ThreadSafe
+class StartupTracer
+{
+    /** Logger reference. */
+    private static final Logger LOGGER = Logger.getLogger(StartupTracer.class);
+
+    /** The system property that names the file the report is written to. */
+    private static final String REPORT_FILE_PROPERTY = "opensphere.startupTrace.file";
+
+    /** The recorded phases, in the order they finished. */
+    @GuardedBy("this")
+    private final List<PhaseTrace> myPhases = New.list();
+
+    /** The recorded plug-ins, by id. */
+    @GuardedBy("this")
+    private final Map<String, PluginTrace> myPlugins = New.insertionOrderMap();
+
+    /** The system time when the tracer was created. */
+    private final long myStartNanos = System.nanoTime();
+
+    /**
+     * Format nanoseconds as milliseconds.
+     *
+     * @param nanos The nanoseconds.
+     * @return The formatted string.
+     */
+    private static String millis(long nanos)
+    {
+        return String.format("%,8d ms", Long.valueOf(TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+
+    /**
+     * Get the chain of plug-ins that ends with the plug-in that finished
+     * initializing last at startup. Each plug-in in the chain is the required
+     * dependency of the next that finished last.
+     *
+     * @return The plug-ins in the chain, in initialization order.
+     */
+    public synchronized List<String> getCriticalPath()
+    {
+        PluginTrace last = null;
+        for (final PluginTrace trace : myPlugins.values())
+        {
+            if (!trace.isDeferred() && (last == null || trace.getEndNanos() > last.getEndNanos()))
+            {
+                last = trace;
+            }
+        }
+
+        final LinkedList<String> path = new LinkedList<>();
+        while (last != null && !path.contains(last.getId()))
+        {
+            path.addFirst(last.getId());
+            PluginTrace latestDependency = null;
+            for (final String dependency : last.getDependencies())
+            {
+                final PluginTrace trace = myPlugins.get(dependency);
+                if (trace != null && (latestDependency == null || trace.getEndNanos() > latestDependency.getEndNanos()))
+                {
+                    latestDependency = trace;
+                }
+            }
+            last = latestDependency;
+        }
+        return path;
+    }
+
+    /**
+     * Get the report.
+     *
+     * @return The report text.
+     */
+    public synchronized String getReport()
+    {
+        final StringBuilder sb = new StringBuilder(1024);
+        final String newline = System.lineSeparator();
+        sb.append("Startup trace (").append(millis(System.nanoTime() - myStartNanos).trim()).append(" elapsed)").append(newline);
+
+        sb.append("Phases:").append(newline);
+        for (final PhaseTrace phase : myPhases)
+        {
+            sb.append("  ").append(millis(phase.getDurationNanos())).append("  ").append(phase.getName()).append(newline);
+        }
+
+        final List<PluginTrace> plugins = New.list(myPlugins.values());
+        plugins.sort(Comparator.comparingLong(PluginTrace::getTotalNanos).reversed());
+        sb.append("Plug-ins (total, queued, instantiate, initialize):").append(newline);
+        for (final PluginTrace trace : plugins)
+        {
+            sb.append("  ").append(millis(trace.getTotalNanos())).append(millis(trace.getQueuedNanos()))
+                    .append(millis(trace.getInstantiateNanos())).append(millis(trace.getInitializeNanos())).append("  ")
+                    .append(trace.getId());
+            if (trace.isDeferred())
+            {
+                sb.append(" (deferred)");
+            }
+            sb.append(" [").append(trace.getThreadName()).append(']').append(newline);
+        }
+
+        sb.append("Critical path: ").append(String.join(" -> ", getCriticalPath())).append(newline);
+        return sb.toString();
+    }
+
+    /**
+     * Record that a startup phase has finished.
+     *
+     * @param name The name of the phase.
+     * @param startNanos The system time when the phase started.
+     */
+    public synchronized void recordPhase(String name, long startNanos)
+    {
+        myPhases.add(new PhaseTrace(name, System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Record that a plug-in has been initialized.
+     *
+     * @param id The plug-in id.
+     * @param dependencies The ids of the plug-ins required by the plug-in.
+     * @param queuedNanos The system time when the plug-in was ready to be
+     *            initialized.
+     * @param startNanos The system time when instantiation started.
+     * @param instantiatedNanos The system time when instantiation finished.
+     * @param endNanos The system time when initialization finished.
+     * @param deferred If the plug-in was initialized after startup.
+     */
+    public synchronized void recordPlugin(String id, Collection<String> dependencies, long queuedNanos, long startNanos,
+            long instantiatedNanos, long endNanos, boolean deferred)
+    {
+        myPlugins.put(id, new PluginTrace(id, New.list(dependencies), queuedNanos, startNanos, instantiatedNanos, endNanos,
+                deferred, Thread.currentThread().getName()));
+    }
+
+    /**
+     * Log the report, and write it to the file named by the
+     * {@value #REPORT_FILE_PROPERTY} system property if it is set.
+     */
+    public void report()
+    {
+        final String report = getReport();
+        LOGGER.info(report);
+
+        final String fileName = System.getProperty(REPORT_FILE_PROPERTY);
+        if (fileName != null && !fileName.isEmpty())
+        {
+            try
+            {
+                Files.write(new File(fileName).toPath(), report.getBytes(StandardCharsets.UTF_8));
+            }
+            catch (final IOException e)
+            {
+                LOGGER.warn("Failed to write startup trace to " + fileName + ": " + e, e);
+            }
+        }
+    }
+
+    /** The time spent in a startup phase. */
+    private static class PhaseTrace
+    {
+        /** The duration in nanoseconds. */
+        private final long myDurationNanos;
+
+        /** The phase name. */
+        private final String myName;
+
+        /**
+         * Constructor.
+         *
+         * @param name The phase name.
+         * @param durationNanos The duration in nanoseconds.
+         */
+        public PhaseTrace(String name, long durationNanos)
+        {
+            myName = name;
+            myDurationNanos = durationNanos;
+        }
+
+        /**
+         * Get the duration.
+         *
+         * @return The duration in nanoseconds.
+         */
+        public long getDurationNanos()
+        {
+            return myDurationNanos;
+        }
+
+        /**
+         * Get the phase name.
+         *
+         * @return The name.
+         */
+        public String getName()
+        {
+            return myName;
+        }
+    }
+
+    /** The times recorded for a plug-in. */
+    private static class PluginTrace
+    {
+        /** If the plug-in was initialized after startup. */
+        private final boolean myDeferred;
+
+        /** The ids of the plug-ins required by the plug-in. */
+        private final List<String> myDependencies;
+
+        /** The system time when initialization finished. */
+        private final long myEndNanos;
+
+        /** The plug-in id. */
+        private final String myId;
+
+        /** The system time when instantiation finished. */
+        private final long myInstantiatedNanos;
+
+        /** The system time when the plug-in was ready to be initialized. */
+        private final long myQueuedNanos;
+
+        /** The system time when instantiation started. */
+        private final long myStartNanos;
+
+        /** The name of the thread that initialized the plug-in. */
+        private final String myThreadName;
+
+        /**
+         * Constructor.
+         *
+         * @param id The plug-in id.
+         * @param dependencies The ids of the plug-ins required by the plug-in.
+         * @param queuedNanos The system time when the plug-in was ready to be
+         *            initialized.
+         * @param startNanos The system time when instantiation started.
+         * @param instantiatedNanos The system time when instantiation
+         *            finished.
+         * @param endNanos The system time when initialization finished.
+         * @param deferred If the plug-in was initialized after startup.
+         * @param threadName The name of the thread that initialized the
+         *            plug-in.
+         */
+        public PluginTrace(String id, List<String> dependencies, long queuedNanos, long startNanos, long instantiatedNanos,
+                long endNanos, boolean deferred, String threadName)
+        {
+            myId = id;
+            myDependencies = dependencies;
+            myQueuedNanos = queuedNanos;
+            myStartNanos = startNanos;
+            myInstantiatedNanos = instantiatedNanos;
+            myEndNanos = endNanos;
+            myDeferred = deferred;
+            myThreadName = threadName;
+        }
+
+        /**
+         * Get the ids of the plug-ins required by the plug-in.
+         *
+         * @return The plug-in ids.
+         */
+        public List<String> getDependencies()
+        {
+            return myDependencies;
+        }
+
+        /**
+         * Get the system time when initialization finished.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getEndNanos()
+        {
+            return myEndNanos;
+        }
+
+        /**
+         * Get the plug-in id.
+         *
+         * @return The id.
+         */
+        public String getId()
+        {
+            return myId;
+        }
+
+        /**
+         * Get the time spent initializing.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getInitializeNanos()
+        {
+            return myEndNanos - myInstantiatedNanos;
+        }
+
+        /**
+         * Get the time spent instantiating.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getInstantiateNanos()
+        {
+            return myInstantiatedNanos - myStartNanos;
+        }
+
+        /**
+         * Get the time spent waiting for a thread.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getQueuedNanos()
+        {
+            return myStartNanos - myQueuedNanos;
+        }
+
+        /**
+         * Get the name of the thread that initialized the plug-in.
+         *
+         * @return The thread name.
+         */
+        public String getThreadName()
+        {
+            return myThreadName;
+        }
+
+        /**
+         * Get the total time from being ready until initialization finished.
+         *
+         * @return The time in nanoseconds.
+         */
+        public long getTotalNanos()
+        {
+            return myEndNanos - myQueuedNanos;
+        }
+
+        /**
+         * Get if the plug-in was initialized after startup.
+         *
+         * @return If the plug-in was deferred.
+         */
+        public boolean isDeferred()
+        {
+            return myDeferred;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package io.opensphere.core.appl;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import io.opensphere.core.MemoryManager;
 import io.opensphere.core.NetworkConfigurationManager;
+import io.opensphere.core.PluginActivationManager;
 import io.opensphere.core.SplashScreenManager;
 import io.opensphere.core.SystemToolbox;
 import io.opensphere.core.net.NetworkConfigurationManagerImpl;
@@ -16,6 +20,26 @@ public abstract class SystemToolboxImpl implements SystemToolbox
     /** The network configuration manager. */
     private final NetworkConfigurationManager myNetworkConfigurationManager;
 
+    /** The plug-in activation manager. */
+    private volatile PluginActivationManager myPluginActivationManager = new PluginActivationManager()
+    {
+        @Override
+        public void activateAllPlugins()
+        {
+        }
+
+        @Override
+        public void activateStatePlugins()
+        {
+        }
+
+        @Override
+        public Collection<String> getDeferredPluginIds()
+        {
+            return Collections.emptySet();
+        }
+    };
+
     /** The splash screen manager. */
     private final SplashScreenManager mySplashScreenManager;
 
@@ -43,9 +67,25 @@ public abstract class SystemToolboxImpl implements SystemToolbox
         return myNetworkConfigurationManager;
     }
 
+    @Override
+    public PluginActivationManager getPluginActivationManager()
+    {
+        return myPluginActivationManager;
+    }
+
     @Override
     public SplashScreenManager getSplashScreenManager()
     {
         return mySplashScreenManager;
     }
+
+    /**
+     * Set the plug-in activation manager.
+     *
+     * @param manager The plug-in activation manager.
+     */
+    void setPluginActivationManager(PluginActivationManager manager)
+    {
+        myPluginActivationManager = manager;
+    }
 }
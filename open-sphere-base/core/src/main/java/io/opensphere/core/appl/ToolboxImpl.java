@@ -12,6 +12,7 @@ import io.opensphere.core.AnimationManager;
 import io.opensphere.core.FrameBufferCaptureManager;
 import io.opensphere.core.MapManager;
 import io.opensphere.core.MemoryManager.MemoryListener;
+import io.opensphere.core.PluginActivationManager;
 import io.opensphere.core.PluginToolboxRegistry;
 import io.opensphere.core.SecurityManager;
 import io.opensphere.core.StatisticsManager;
@@ -28,7 +29,6 @@ import io.opensphere.core.control.ControlRegistry;
 import io.opensphere.core.control.ui.UIRegistry;
 import io.opensphere.core.data.DataRegistry;
 import io.opensphere.core.datafilter.DataFilterRegistry;
-import io.opensphere.core.event.EventManager;
 import io.opensphere.core.event.EventManagerImpl;
 import io.opensphere.core.geometry.GeometryRegistry;
 import io.opensphere.core.importer.ImporterRegistry;
@@ -64,7 +64,7 @@ abstract class ToolboxImpl implements Toolbox
     private final AnimationManagerStateController myAnimationManagerStateController;
 
     /** The event manager. */
-    private final EventManager myEventManager;
+    private final EventManagerImpl myEventManager;
 
     /** The frame buffer capture manager. */
     private final FrameBufferCaptureManagerImpl myFrameBufferCaptureManager;
@@ -85,7 +85,7 @@ abstract class ToolboxImpl implements Toolbox
     private final SecurityManagerImpl mySecurityManager;
 
     /** The system toolbox. */
-    private final SystemToolbox mySystemToolbox;
+    private final SystemToolboxImpl mySystemToolbox;
 
     /** The time manager. */
     private final TimeManagerImpl myTimeManager;
@@ -154,7 +154,9 @@ abstract class ToolboxImpl implements Toolbox
         myStatisticsManager = new StatisticsManagerImpl();
         myEventManager = new EventManagerImpl();
         myTimeManager = new TimeManagerImpl();
-        myModuleStateManager = new ModuleStateManagerImpl(myRegistryManager.getPreferencesRegistry());
+        final ModuleStateManagerImpl moduleStateManager = new ModuleStateManagerImpl(myRegistryManager.getPreferencesRegistry());
+        moduleStateManager.setModuleLoader(() -> mySystemToolbox.getPluginActivationManager().activateStatePlugins());
+        myModuleStateManager = moduleStateManager;
 
         myAnimationManager = new AnimationManagerImpl(myTimeManager,
                 myRegistryManager.getPreferencesRegistry().getPreferences(AnimationManager.class),
@@ -241,7 +243,7 @@ abstract class ToolboxImpl implements Toolbox
     }
 
     @Override
-    public EventManager getEventManager()
+    public EventManagerImpl getEventManager()
     {
         return myEventManager;
     }
@@ -386,6 +388,16 @@ abstract class ToolboxImpl implements Toolbox
      */
     abstract void requestRestart();
 
+    /**
+     * Set the manager for plug-ins whose initialization has been deferred.
+     *
+     * @param manager The plug-in activation manager.
+     */
+    void setPluginActivationManager(PluginActivationManager manager)
+    {
+        mySystemToolbox.setPluginActivationManager(manager);
+    }
+
     /**
      * Installs the {@link UserInteractionSSLSocketFactory} to the system.
      *
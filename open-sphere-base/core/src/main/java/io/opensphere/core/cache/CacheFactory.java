@@ -15,7 +15,8 @@ public interface CacheFactory
      * @param rowLimit The maximum number of rows in a table before trimming
      *            occurs. A negative number indicates no limit.
      * @param executor An executor service for background cache tasks.
-     * @return The cache implementation.
+     * @return The cache implementation, or {@code null} if this factory is
+     *         not enabled.
      * @throws ClassNotFoundException If the database driver cannot be loaded.
      * @throws CacheException If the tables cannot be created.
      */
@@ -70,9 +70,15 @@ public class CacheInit
                     LOGGER.debug("Creating cache at path '" + path + "'");
                 }
 
-                myCache = cacheFactory.create(path, rowLimit, myExecutor);
+                final Cache cache = cacheFactory.create(path, rowLimit, myExecutor);
+                if (cache == null)
+                {
+                    continue;
+                }
+                myCache = cache;
                 final int millisecondsWait = Utilities.parseSystemProperty("opensphere.cache.delay.ms", Constants.MILLI_PER_UNIT);
                 myCache.initialize(millisecondsWait);
+                break;
             }
             catch (final ClassNotFoundException e)
             {
@@ -299,6 +299,25 @@ public class DatabaseTaskFactory
         return new RetrieveGroupIdsTask(category, parameters, this, expirationRange, critical);
     }
 
+    /**
+     * Get a database task for loading group interval values into the
+     * satisfaction index.
+     *
+     * @param category The data model category. Any <code>null</code> values are
+     *            treated as wildcards.
+     * @param properties The interval properties.
+     * @param countTimeSpans Indicates if the groups' time span values should be
+     *            counted.
+     * @param groupIds Optional ids of the groups to load, or <code>null</code>
+     *            to load all of the groups in the category.
+     * @return The task.
+     */
+    public RetrieveGroupIntervalsTask getRetrieveGroupIntervalsTask(DataModelCategory category,
+            List<PropertyDescriptor<?>> properties, boolean countTimeSpans, int[] groupIds)
+    {
+        return new RetrieveGroupIntervalsTask(category, properties, countTimeSpans, groupIds, this);
+    }
+
     /**
      * Get a database task for retrieving group property values.
      *
@@ -108,6 +108,9 @@ public class InsertTask<T> extends DatabaseTask implements ConnectionUser<long[]
     /** The objects providing the property values. */
     private final Iterable<? extends T> myInput;
 
+    /** The id of the group created by this task, or -1 if none was created. */
+    private transient int myNewGroupId = -1;
+
     /** Flag indicating if this is a new insert (rather than an update). */
     private final boolean myNew;
 
@@ -309,7 +312,11 @@ public class InsertTask<T> extends DatabaseTask implements ConnectionUser<long[]
 
         final long[] ids = postProcessPut(conn, propertyDescriptors, groupId, dataIds);
 
-        if (!newGroup)
+        if (newGroup)
+        {
+            myNewGroupId = groupId;
+        }
+        else
         {
             postPopulateDataTable(conn, TableNames.getDataTableName(groupId), propertyDescriptors, columnNames);
         }
@@ -524,6 +531,16 @@ public class InsertTask<T> extends DatabaseTask implements ConnectionUser<long[]
         return list;
     }
 
+    /**
+     * Get the id of the group created by this task, after it has run.
+     *
+     * @return The group id, or -1 if no group was created.
+     */
+    public int getNewGroupId()
+    {
+        return myNewGroupId;
+    }
+
     /**
      * Get the next available group id.
      *
@@ -27,10 +27,12 @@ import io.opensphere.core.cache.Cache;
 import io.opensphere.core.cache.CacheDeposit;
 import io.opensphere.core.cache.CacheException;
 import io.opensphere.core.cache.CacheModificationListener;
+import io.opensphere.core.cache.CacheModificationReport;
 import io.opensphere.core.cache.CacheRemovalListener;
 import io.opensphere.core.cache.ClassProvider;
 import io.opensphere.core.cache.PropertyValueMap;
 import io.opensphere.core.cache.SingleSatisfaction;
+import io.opensphere.core.cache.accessor.IntervalPropertyAccessor;
 import io.opensphere.core.cache.accessor.PersistentPropertyAccessor;
 import io.opensphere.core.cache.accessor.PropertyAccessor;
 import io.opensphere.core.cache.jdbc.ConnectionAppropriator.ConnectionUser;
@@ -70,6 +72,13 @@ public class JdbcCacheImpl implements Cache
     /** The type mapper responsible for mapping Java types to database types. */
     private static final TypeMapper TYPE_MAPPER = new TypeMapper();
 
+    /**
+     * The maximum number of query shapes kept in the satisfaction index. Zero
+     * disables the index.
+     */
+    private static final int SATISFACTION_INDEX_MAX_SHAPES = Integer
+            .getInteger("opensphere.db.satisfactionIndex.maxShapes", 256).intValue();
+
     /** Cache utility class. */
     private final CacheUtilities myCacheUtil;
 
@@ -117,6 +126,16 @@ public class JdbcCacheImpl implements Cache
     /** The DB username. */
     private final String myUsername;
 
+    /** In-memory index of the groups' interval values. */
+    private final SatisfactionIndex mySatisfactionIndex = new SatisfactionIndex(SATISFACTION_INDEX_MAX_SHAPES,
+        (category, properties, countTimeSpans, groupIds) -> runTask(
+                getDatabaseTaskFactory().getRetrieveGroupIntervalsTask(category, properties, countTimeSpans, groupIds)),
+        groupIds ->
+        {
+            long[] ids = runTask(getDatabaseTaskFactory().getRetrieveCombinedIdsTask(groupIds, New.collection(), New.list(), 0, 1));
+            return ids.length == 0 ? -1 : getCacheUtil().getGroupIdFromCombinedId(ids[0]);
+        });
+
     /**
      * Create the JDBC cache implementation.
      *
@@ -170,6 +189,7 @@ public class JdbcCacheImpl implements Cache
         }
         finally
         {
+            mySatisfactionIndex.clear();
             writeLock.unlock();
         }
     }
@@ -206,6 +226,7 @@ public class JdbcCacheImpl implements Cache
         }
 
         runTask(getDatabaseTaskFactory().getDeleteModelsTask(ids));
+        mySatisfactionIndex.removeValues(getGroupIds(ids, true));
     }
 
     @Override
@@ -225,6 +246,7 @@ public class JdbcCacheImpl implements Cache
         }
 
         runTask(getDatabaseTaskFactory().getDeleteGroupsTask(groupIds));
+        mySatisfactionIndex.removeGroups(groupIds);
     }
 
     @Override
@@ -243,6 +265,7 @@ public class JdbcCacheImpl implements Cache
         {
             LOGGER.warn("Failed to remove old session groups: " + e, e);
         }
+        mySatisfactionIndex.clear();
 
         if (LOGGER.isDebugEnabled())
         {
@@ -450,23 +473,14 @@ public class JdbcCacheImpl implements Cache
             resultMap.put(param.getPropertyDescriptor(), New.randomAccessList());
         }
 
-        int[] groupIds;
         try
         {
-            // Get the group ids that overlap the intervals.
-            RetrieveGroupValuesTask task = getDatabaseTaskFactory().getRetrieveGroupValuesTask(category, parameters, resultMap);
-            groupIds = runTask(task);
-
-            // Now check to see if the group tables are empty, if so this
-            // interval does not satisfy the query.
-            RetrieveCombinedIdsTask idsTask = getDatabaseTaskFactory().getRetrieveCombinedIdsTask(groupIds, New.collection(),
-                    New.list(), 0, 1);
-            long[] combinedIds = runTask(idsTask);
+            int[] groupIds = getSatisfyingGroupIds(category, parameters, resultMap);
             Collection<Satisfaction> results = null;
-            if (combinedIds != null && combinedIds.length > 0)
+            if (groupIds.length > 0)
             {
                 // Create an ipvs builder for each group.
-                for (int index = 0; index < task.getResultCount(); ++index)
+                for (int index = 0; index < groupIds.length; ++index)
                 {
                     ipvsBuilders.add(new IntervalPropertyValueSet.Builder());
                 }
@@ -669,7 +683,23 @@ public class JdbcCacheImpl implements Cache
             return new long[0];
         }
 
-        long[] ids = runTask(getDatabaseTaskFactory().getInsertTask(insert, listener));
+        // Notify the satisfaction index after the task is done, so that the
+        // changes are visible to the index when it reloads.
+        List<CacheModificationReport> reports = New.list();
+        InsertTask<T> task = getDatabaseTaskFactory().getInsertTask(insert, report ->
+        {
+            reports.add(report);
+            if (listener != null)
+            {
+                listener.cacheModified(report);
+            }
+        });
+        long[] ids = runTask(task);
+        reports.forEach(mySatisfactionIndex::cacheModified);
+        if (task.getNewGroupId() != -1)
+        {
+            mySatisfactionIndex.addGroup(insert.getCategory(), task.getNewGroupId());
+        }
 
         if (ids.length > 0 && myRowLimit >= 0)
         {
@@ -721,6 +751,13 @@ public class JdbcCacheImpl implements Cache
         if (!persistentAccessors.isEmpty())
         {
             runTask(getDatabaseTaskFactory().getUpdateTask(ids, input, persistentAccessors, listener));
+
+            // Interval values added to existing groups may change which
+            // groups belong in the satisfaction index.
+            if (persistentAccessors.stream().anyMatch(a -> a instanceof IntervalPropertyAccessor))
+            {
+                mySatisfactionIndex.clear();
+            }
         }
     }
 
@@ -774,7 +811,7 @@ public class JdbcCacheImpl implements Cache
         if (myRowLimit >= 0)
         {
             myDataTrimmer = new RowLimitDataTrimmer(myRowLimit, getCacheUtil(), getConnectionAppropriator(), getSQLGenerator(),
-                    getLock().readLock());
+                    getLock().readLock(), mySatisfactionIndex);
         }
     }
 
@@ -897,6 +934,16 @@ public class JdbcCacheImpl implements Cache
         return myPassword;
     }
 
+    /**
+     * Get the in-memory index of the groups' interval values.
+     *
+     * @return The satisfaction index.
+     */
+    protected SatisfactionIndex getSatisfactionIndex()
+    {
+        return mySatisfactionIndex;
+    }
+
     /**
      * Get the SQL generator.
      *
@@ -1110,6 +1157,40 @@ public class JdbcCacheImpl implements Cache
         }
     }
 
+    /**
+     * Get the ids of the groups that satisfy some interval parameters, and
+     * their values for the parameters' properties. The in-memory index is used
+     * if it supports the parameters; otherwise the database is queried. If
+     * none of the groups has any data, no groups are returned.
+     *
+     * @param category The data model category.
+     * @param parameters The interval parameters.
+     * @param resultMap An input/output map of the parameters' property
+     *            descriptors to lists to be populated with the groups' values.
+     * @return The group ids.
+     * @throws CacheException If there is a database error.
+     */
+    private int[] getSatisfyingGroupIds(DataModelCategory category, Collection<? extends IntervalPropertyMatcher<?>> parameters,
+            Map<PropertyDescriptor<?>, List<Object>> resultMap)
+                throws CacheException
+    {
+        int[] groupIds = mySatisfactionIndex.getGroupIds(category, parameters, resultMap);
+        if (groupIds != null)
+        {
+            return groupIds;
+        }
+
+        // Get the group ids that overlap the intervals.
+        groupIds = runTask(getDatabaseTaskFactory().getRetrieveGroupValuesTask(category, parameters, resultMap));
+
+        // Now check to see if the group tables are empty, if so this interval
+        // does not satisfy the query.
+        RetrieveCombinedIdsTask idsTask = getDatabaseTaskFactory().getRetrieveCombinedIdsTask(groupIds, New.collection(),
+                New.list(), 0, 1);
+        long[] combinedIds = runTask(idsTask);
+        return combinedIds != null && combinedIds.length > 0 ? groupIds : new int[0];
+    }
+
     /**
      * Implementation of {@link io.opensphere.core.data.util.Satisfaction}.
      */
@@ -0,0 +1,172 @@
+package io.opensphere.core.cache.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+import io.opensphere.core.cache.CacheException;
+import io.opensphere.core.cache.jdbc.ConnectionAppropriator.ConnectionUser;
+import io.opensphere.core.cache.jdbc.StatementAppropriator.PreparedStatementUser;
+import io.opensphere.core.cache.util.PropertyDescriptor;
+import io.opensphere.core.data.util.DataModelCategory;
+import io.opensphere.core.model.time.TimeSpan;
+import io.opensphere.core.util.Utilities;
+import io.opensphere.core.util.collections.New;
+
+/**
+ * Database task for loading the interval property values of the unexpired
+ * groups in a category into the {@link SatisfactionIndex}.
+ */
+public class RetrieveGroupIntervalsTask extends DatabaseTask implements ConnectionUser<List<SatisfactionIndex.Group>>
+{
+    /**
+     * The data model category. Any <code>null</code> values are treated as
+     * wildcards.
+     */
+    private final DataModelCategory myCategory;
+
+    /** Indicates if the groups' time span values should be counted. */
+    private final boolean myCountTimeSpans;
+
+    /**
+     * Optional ids of the groups to load, or <code>null</code> to load all of
+     * the groups in the category.
+     */
+    private final int[] myGroupIds;
+
+    /** The interval properties. */
+    private final List<PropertyDescriptor<?>> myProperties;
+
+    /** The result count. */
+    private transient int myResultCount;
+
+    /**
+     * Constructor.
+     *
+     * @param category The data model category. Any <code>null</code> values are
+     *            treated as wildcards.
+     * @param properties The interval properties.
+     * @param countTimeSpans Indicates if the groups' time span values should be
+     *            counted.
+     * @param groupIds Optional ids of the groups to load, or <code>null</code>
+     *            to load all of the groups in the category.
+     * @param databaseTaskFactory The database task factory.
+     */
+    public RetrieveGroupIntervalsTask(DataModelCategory category, List<PropertyDescriptor<?>> properties,
+            boolean countTimeSpans, int[] groupIds, DatabaseTaskFactory databaseTaskFactory)
+    {
+        super(databaseTaskFactory);
+        myCategory = Utilities.checkNull(category, "category");
+        myProperties = properties;
+        myCountTimeSpans = countTimeSpans;
+        myGroupIds = groupIds;
+    }
+
+    @Override
+    public String getTimingMessage()
+    {
+        return "Time to load intervals for " + myProperties.size() + " properties over " + myResultCount + " groups: ";
+    }
+
+    @Override
+    public List<SatisfactionIndex.Group> run(Connection conn) throws CacheException
+    {
+        final TimeSpan expirationRange = TimeSpan.newUnboundedEndTimeSpan(System.currentTimeMillis());
+        final String sql = getSQLGenerator().generateRetrieveGroupIntervalsSql(myCategory, myProperties, myCountTimeSpans,
+                expirationRange, myGroupIds);
+        return new StatementAppropriator(conn).appropriateStatement(
+                (PreparedStatementUser<List<SatisfactionIndex.Group>>)(conn1, pstmt) ->
+                {
+                    try
+                    {
+                        int index = 1;
+                        if (myCategory.getFamily() != null)
+                        {
+                            pstmt.setString(index++, myCategory.getFamily());
+                        }
+                        if (myCategory.getCategory() != null)
+                        {
+                            pstmt.setString(index++, myCategory.getCategory());
+                        }
+                        if (myCategory.getSource() != null)
+                        {
+                            pstmt.setString(index++, myCategory.getSource());
+                        }
+                        pstmt.setLong(index++, expirationRange.getStart());
+                        for (PropertyDescriptor<?> desc : myProperties)
+                        {
+                            // The geometry table does not have a property name.
+                            if (!Geometry.class.isAssignableFrom(desc.getType()))
+                            {
+                                pstmt.setString(index++, desc.getPropertyName());
+                            }
+                        }
+
+                        ResultSet rs = getCacheUtilities().executeQuery(pstmt, sql);
+                        try
+                        {
+                            return convertResultSet(rs);
+                        }
+                        finally
+                        {
+                            rs.close();
+                        }
+                    }
+                    catch (SQLException e)
+                    {
+                        throw new CacheException("Failed to read group intervals from cache: " + e, e);
+                    }
+                }, sql);
+    }
+
+    /**
+     * Convert the result set to groups.
+     *
+     * @param rs The result set.
+     * @return The groups.
+     * @throws CacheException If the values cannot be read.
+     */
+    private List<SatisfactionIndex.Group> convertResultSet(ResultSet rs) throws CacheException
+    {
+        int offset = myCountTimeSpans ? 3 : 2;
+        PropertyDescriptor<?>[] props = new PropertyDescriptor<?>[offset + myProperties.size()];
+        props[0] = new PropertyDescriptor<>("", Integer.class);
+        props[1] = new PropertyDescriptor<>("", Long.class);
+        if (myCountTimeSpans)
+        {
+            props[2] = new PropertyDescriptor<>("", Long.class);
+        }
+        List<?>[] results = new List<?>[props.length];
+        for (int index = 0; index < props.length; ++index)
+        {
+            if (index >= offset)
+            {
+                props[index] = myProperties.get(index - offset);
+            }
+            results[index] = New.list();
+        }
+
+        getCacheUtilities().convertResultSetToPropertyValues(rs, props, results, getTypeMapper(), null, null);
+
+        int count = results[0].size();
+        List<SatisfactionIndex.Group> groups = New.list(count);
+        for (int row = 0; row < count; ++row)
+        {
+            Object[] values = new Object[myProperties.size()];
+            for (int index = 0; index < values.length; ++index)
+            {
+                values[index] = results[offset + index].get(row);
+            }
+            Number expiration = (Number)results[1].get(row);
+            Number timeSpanCount = myCountTimeSpans ? (Number)results[2].get(row) : null;
+            boolean hasTimeSpans = myCountTimeSpans && (timeSpanCount == null || timeSpanCount.longValue() > 0L);
+            groups.add(new SatisfactionIndex.Group(((Number)results[0].get(row)).intValue(),
+                    expiration == null ? Long.MAX_VALUE : expiration.longValue(), hasTimeSpans, values));
+        }
+        myResultCount = count;
+        return groups;
+    }
+}
@@ -35,6 +35,9 @@ public class RowLimitDataTrimmer implements Runnable
     /** The threshold on the number of rows in the database. */
     private final int myRowLimit;
 
+    /** The index to be notified when groups are expired. */
+    private final SatisfactionIndex mySatisfactionIndex;
+
     /** The SQL generator. */
     private final SQLGenerator mySQLGenerator;
 
@@ -46,15 +49,18 @@ public class RowLimitDataTrimmer implements Runnable
      * @param connectionAppropriator A database connection appropriator.
      * @param sqlGenerator A generator for SQL.
      * @param lock A lock to use when accessing the database.
+     * @param satisfactionIndex The index to be notified when groups are
+     *            expired.
      */
     public RowLimitDataTrimmer(int rowLimit, CacheUtilities cacheUtilities, ConnectionAppropriator connectionAppropriator,
-            SQLGenerator sqlGenerator, Lock lock)
+            SQLGenerator sqlGenerator, Lock lock, SatisfactionIndex satisfactionIndex)
     {
         myRowLimit = rowLimit;
         myCacheUtilities = cacheUtilities;
         myConnectionAppropriator = connectionAppropriator;
         mySQLGenerator = sqlGenerator;
         myLock = lock;
+        mySatisfactionIndex = satisfactionIndex;
     }
 
     @Override
@@ -75,9 +81,10 @@ public class RowLimitDataTrimmer implements Runnable
      *
      * @param rowLimit The maximum number of rows in the table.
      * @param stmt A database statement.
+     * @return The ids of the groups that were expired.
      * @throws CacheException If there's a database error.
      */
-    public void trimDataTable(final int rowLimit, Statement stmt) throws CacheException
+    public int[] trimDataTable(final int rowLimit, Statement stmt) throws CacheException
     {
         try
         {
@@ -87,7 +94,9 @@ public class RowLimitDataTrimmer implements Runnable
             {
                 String sql = mySQLGenerator.generateExpireGroups(groupIds.toArray());
                 myCacheUtilities.execute(sql, stmt);
+                return groupIds.toArray();
             }
+            return new int[0];
         }
         catch (SQLException | CacheException e)
         {
@@ -159,11 +168,9 @@ public class RowLimitDataTrimmer implements Runnable
         {
             try
             {
-                myConnectionAppropriator.appropriateStatement((StatementUser<Void>)(conn, stmt) ->
-                {
-                    trimDataTable(myRowLimit, stmt);
-                    return null;
-                }, false);
+                int[] groupIds = myConnectionAppropriator.appropriateStatement(
+                        (StatementUser<int[]>)(conn, stmt) -> trimDataTable(myRowLimit, stmt), false);
+                mySatisfactionIndex.removeGroups(groupIds);
             }
             finally
             {
@@ -201,6 +201,29 @@ public interface SQLGenerator
     String generateRetrieveDataModelCategories(boolean selectSource, boolean selectFamily, boolean selectCategory,
             boolean distinct, JoinTableColumn joinTableColumn, String whereExpression);
 
+    /**
+     * Build the SQL for retrieving the interval property values of all the
+     * groups in a category, for the in-memory satisfaction index. The
+     * selected columns are the group id, the expiration time, optionally the
+     * number of time span values for the group, and then the values of each of
+     * the properties. Only groups that have values for all of the properties
+     * are selected.
+     *
+     * @param category The data model category filter. Any of its components
+     *            may be {@code null} to indicate wildcards.
+     * @param properties The interval properties to be selected.
+     * @param countTimeSpans Indicates if the number of time span values for
+     *            each group should be selected.
+     * @param expirationRange The range that the groups' expiration times must
+     *            lie within.
+     * @param groupIds Optional ids of the groups to select, or {@code null}
+     *            to select all of the groups in the category.
+     * @return The SQL.
+     * @throws CacheException If an unsupported property type is encountered.
+     */
+    String generateRetrieveGroupIntervalsSql(DataModelCategory category, List<? extends PropertyDescriptor<?>> properties,
+            boolean countTimeSpans, TimeSpan expirationRange, int[] groupIds) throws CacheException;
+
     /**
      * Build the SQL for a group query.
      *
@@ -11,6 +11,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import com.vividsolutions.jts.geom.Geometry;
+
 import io.opensphere.core.cache.CacheException;
 import io.opensphere.core.cache.matcher.GeneralPropertyMatcher;
 import io.opensphere.core.cache.matcher.GeometryMatcher;
@@ -504,6 +506,52 @@ public class SQLGeneratorImpl implements SQLGenerator
         return sb.toString();
     }
 
+    @Override
+    public String generateRetrieveGroupIntervalsSql(DataModelCategory category, List<? extends PropertyDescriptor<?>> properties,
+            boolean countTimeSpans, TimeSpan expirationRange, int[] groupIds) throws CacheException
+    {
+        StringBuilder selectExpression = new StringBuilder(256).append(SQL.SELECT).append(SQL.DATA_GROUP_GROUP_ID).append(", ")
+                .append(SQL.EXPIRATION_TIME_QUERY).append(", ");
+        StringBuilder joinExpression = new StringBuilder(256);
+        StringBuilder whereExpression = new StringBuilder(256);
+
+        addStandardWhereConditions(category, expirationRange, (Boolean)null, whereExpression);
+        if (groupIds != null)
+        {
+            appendWhereOrAnd(whereExpression).append(SQL.DATA_GROUP_GROUP_ID).append(IN_PAREN);
+            StringUtilities.join(whereExpression, ", ", groupIds).append(')');
+        }
+
+        if (countTimeSpans)
+        {
+            selectExpression.append("(SELECT COUNT(*)").append(SQL.FROM).append(TableNames.getGroupTableName(TimeSpan.class))
+                    .append(SQL.AS).append("TS").append(SQL.WHERE).append("TS").append(SQL.DOT_GROUP_ID).append(SQL.EQUALS)
+                    .append(SQL.DATA_GROUP_GROUP_ID).append("), ");
+        }
+
+        Map<PropertyDescriptor<?>, String> aliasMap = New.map(properties.size());
+        int index = 0;
+        for (PropertyDescriptor<?> desc : properties)
+        {
+            String alias = "T" + index++;
+            aliasMap.put(desc, alias);
+            joinExpression.append(SQL.INNER_JOIN).append(TableNames.getGroupTableName(desc.getType())).append(SQL.AS)
+                    .append(alias).append(SQL.ON).append(alias).append(SQL.DOT_GROUP_ID).append(SQL.EQUALS)
+                    .append(SQL.DATA_GROUP_GROUP_ID);
+
+            // The geometry table does not have a property name.
+            if (!Geometry.class.isAssignableFrom(desc.getType()))
+            {
+                appendWhereOrAnd(whereExpression).append(alias).append('.').append(ColumnNames.PROPERTY).append(" = ?");
+            }
+        }
+        processSelectProperties(properties, selectExpression, joinExpression, Collections.emptyMap(), aliasMap, index);
+        selectExpression.setLength(selectExpression.length() - 2);
+
+        return selectExpression.append(SQL.FROM).append(TableNames.DATA_GROUP).append(joinExpression).append(whereExpression)
+                .toString();
+    }
+
     @Override
     public String generateRetrieveGroupValuesSql(int[] groupIds, JoinTableColumn joinTableColumn, DataModelCategory category,
             Collection<? extends PropertyMatcher<?>> parameters, Collection<? extends PropertyDescriptor<?>> selectProperties,
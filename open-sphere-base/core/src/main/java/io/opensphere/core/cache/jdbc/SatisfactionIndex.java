@@ -0,0 +1,1174 @@
+package io.opensphere.core.cache.jdbc;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+import io.opensphere.core.cache.CacheException;
+import io.opensphere.core.cache.CacheIdUtilities;
+import io.opensphere.core.cache.CacheModificationListener;
+import io.opensphere.core.cache.CacheModificationReport;
+import io.opensphere.core.cache.matcher.GeometryMatcher;
+import io.opensphere.core.cache.matcher.IntervalPropertyMatcher;
+import io.opensphere.core.cache.matcher.TimeSpanMatcher;
+import io.opensphere.core.cache.util.PropertyDescriptor;
+import io.opensphere.core.data.util.DataModelCategory;
+import io.opensphere.core.model.time.TimeSpan;
+import io.opensphere.core.util.collections.New;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * An in-memory index of the interval property values of the data groups in the
+ * cache, which answers satisfaction queries without going to the database.
+ * <p>
+ * The groups are loaded from the database once for each combination of data
+ * model category and interval properties that is queried. After that, the
+ * index is kept current by the cache: inserts are reported through the
+ * {@link CacheModificationListener} interface and
+ * {@link #addGroup(DataModelCategory, int)}, and removals through
+ * {@link #removeGroups(int[])}, {@link #removeValues(int[])} and
+ * {@link #clear()}. Groups that are added after the groups for a combination
+ * have been loaded are loaded by id the next time the combination is queried,
+ * rather than loading all of the groups again. Any change that arrives while
+ * all of the groups for a combination are being loaded causes the loaded
+ * groups to be discarded, so the index never holds groups that are older than
+ * the last change.
+ * <p>
+ * The groups for each combination are indexed by their time span and geometry
+ * values, so a query only checks the groups whose time spans or bounding boxes
+ * may overlap its own.
+ * <p>
+ * Only {@link TimeSpanMatcher}s and {@link GeometryMatcher}s are supported.
+ * For any other query the index returns {@code null} and the caller should
+ * use the database.
+ */
+@ThreadSafe
+public class SatisfactionIndex implements CacheModificationListener
+{
+    /** Finds groups that have data. */
+    private final DataFinder myDataFinder;
+
+    /**
+     * A counter that is incremented every time the index is changed, used to
+     * detect changes while groups are being loaded.
+     */
+    @GuardedBy("this")
+    private long myGeneration;
+
+    /** The number of queries answered from groups that were already loaded. */
+    private final AtomicLong myHitCount = new AtomicLong();
+
+    /** Loads groups from the database. */
+    private final GroupLoader myLoader;
+
+    /** The number of times groups were loaded from the database. */
+    private final AtomicLong myLoadCount = new AtomicLong();
+
+    /**
+     * The number of times groups that were added after a shape was loaded
+     * were loaded from the database.
+     */
+    private final AtomicLong myAddedLoadCount = new AtomicLong();
+
+    /** Map of query shapes to the groups for each shape. */
+    @GuardedBy("this")
+    private final Map<Shape, ShapeGroups> myShapes;
+
+    /**
+     * Constructor.
+     *
+     * @param maxShapes The maximum number of combinations of category and
+     *            properties for which groups are kept. If this is zero, the
+     *            index is disabled.
+     * @param loader Loads groups from the database.
+     * @param dataFinder Finds groups that have data.
+     */
+    public SatisfactionIndex(final int maxShapes, GroupLoader loader, DataFinder dataFinder)
+    {
+        myLoader = loader;
+        myDataFinder = dataFinder;
+        myShapes = maxShapes <= 0 ? null : new LinkedHashMap<Shape, ShapeGroups>(16, .75f, true)
+        {
+            /** Serial version UID. */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<Shape, ShapeGroups> eldest)
+            {
+                return size() > maxShapes;
+            }
+        };
+    }
+
+    @Override
+    public void cacheModified(CacheModificationReport report)
+    {
+        if (myShapes == null)
+        {
+            return;
+        }
+        int[] groupIds = CacheIdUtilities.getGroupIdsFromCombinedIds(report.getIds(), true);
+        synchronized (this)
+        {
+            ++myGeneration;
+            for (Entry<Shape, ShapeGroups> entry : myShapes.entrySet())
+            {
+                if (entry.getKey().includes(report.getDataModelCategory()))
+                {
+                    for (int groupId : groupIds)
+                    {
+                        Group group = entry.getValue().getGroups().get(groupId);
+                        if (group == null)
+                        {
+                            // A group that may belong to this shape.
+                            entry.getValue().addPending(groupId, myGeneration);
+                        }
+                        else
+                        {
+                            group.setHasData(Boolean.TRUE);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a group that has been created in the cache. The group's values are
+     * loaded the next time a shape that may include it is queried.
+     *
+     * @param category The data model category of the group.
+     * @param groupId The group id.
+     */
+    public synchronized void addGroup(DataModelCategory category, int groupId)
+    {
+        ++myGeneration;
+        if (myShapes == null)
+        {
+            return;
+        }
+        for (Entry<Shape, ShapeGroups> entry : myShapes.entrySet())
+        {
+            if (entry.getKey().includes(category) && entry.getValue().getGroups().get(groupId) == null)
+            {
+                entry.getValue().addPending(groupId, myGeneration);
+            }
+        }
+    }
+
+    /**
+     * Remove all groups from the index.
+     */
+    public synchronized void clear()
+    {
+        ++myGeneration;
+        if (myShapes != null)
+        {
+            myShapes.clear();
+        }
+    }
+
+    /**
+     * Get the number of times groups that were added after their shape was
+     * loaded were loaded from the database.
+     *
+     * @return The count.
+     */
+    public long getAddedLoadCount()
+    {
+        return myAddedLoadCount.get();
+    }
+
+    /**
+     * Get the number of queries that were answered from groups that were
+     * already loaded.
+     *
+     * @return The count.
+     */
+    public long getHitCount()
+    {
+        return myHitCount.get();
+    }
+
+    /**
+     * Get the number of times groups were loaded from the database.
+     *
+     * @return The count.
+     */
+    public long getLoadCount()
+    {
+        return myLoadCount.get();
+    }
+
+    /**
+     * Get the ids of the unexpired groups that satisfy some interval
+     * parameters, and their values for the parameters' properties. If none of
+     * the satisfying groups has any data, no groups are returned.
+     *
+     * @param category The data model category. Any {@code null} values are
+     *            treated as wildcards.
+     * @param parameters The interval parameters.
+     * @param resultMap An input/output map of the parameters' property
+     *            descriptors to lists to be populated with the groups' values.
+     * @return The group ids, or {@code null} if the index cannot answer the
+     *         query.
+     * @throws CacheException If the groups cannot be loaded from the
+     *             database.
+     */
+    public int[] getGroupIds(DataModelCategory category, Collection<? extends IntervalPropertyMatcher<?>> parameters,
+            Map<? extends PropertyDescriptor<?>, ? extends List<?>> resultMap)
+        throws CacheException
+    {
+        if (myShapes == null || resultMap.size() != parameters.size()
+                || !parameters.stream().allMatch(p -> p instanceof TimeSpanMatcher || p instanceof GeometryMatcher))
+        {
+            return null;
+        }
+
+        Shape shape = new Shape(category, parameters);
+        ShapeGroups shapeGroups;
+        IndexedGroups groups = null;
+        Map<Integer, Long> pending = null;
+        long generation;
+        synchronized (this)
+        {
+            shapeGroups = myShapes.get(shape);
+            generation = myGeneration;
+            if (shapeGroups != null)
+            {
+                groups = shapeGroups.getGroups();
+                pending = shapeGroups.getPending();
+            }
+        }
+        if (shapeGroups == null)
+        {
+            groups = new IndexedGroups(shape, myLoader.load(category, shape.getProperties(), shape.isTimeless(), null));
+            myLoadCount.incrementAndGet();
+            synchronized (this)
+            {
+                if (generation == myGeneration)
+                {
+                    myShapes.put(shape, new ShapeGroups(groups));
+                }
+            }
+        }
+        else
+        {
+            myHitCount.incrementAndGet();
+            if (pending != null)
+            {
+                groups = loadPending(category, shape, shapeGroups, pending);
+            }
+        }
+
+        List<Group> matches = groups.find(parameters, System.currentTimeMillis());
+        if (matches.isEmpty() || !hasData(matches))
+        {
+            return new int[0];
+        }
+
+        int[] groupIds = new int[matches.size()];
+        for (int index = 0; index < groupIds.length; ++index)
+        {
+            Group group = matches.get(index);
+            groupIds[index] = group.getGroupId();
+            int column = 0;
+            for (IntervalPropertyMatcher<?> param : parameters)
+            {
+                @SuppressWarnings("unchecked")
+                List<Object> values = (List<Object>)resultMap.get(param.getPropertyDescriptor());
+                values.add(isTimeless(param) ? TimeSpan.TIMELESS : group.getValues()[column++]);
+            }
+        }
+        return groupIds;
+    }
+
+    /**
+     * Remove groups that have been deleted or expired.
+     *
+     * @param groupIds The group ids.
+     */
+    public synchronized void removeGroups(int[] groupIds)
+    {
+        ++myGeneration;
+        if (myShapes == null || groupIds.length == 0)
+        {
+            return;
+        }
+        for (ShapeGroups shapeGroups : myShapes.values())
+        {
+            shapeGroups.remove(groupIds);
+        }
+    }
+
+    /**
+     * Indicate that some models have been deleted from some groups, so the
+     * groups may no longer have data.
+     *
+     * @param groupIds The group ids.
+     */
+    public synchronized void removeValues(int[] groupIds)
+    {
+        ++myGeneration;
+        if (myShapes == null)
+        {
+            return;
+        }
+        for (ShapeGroups shapeGroups : myShapes.values())
+        {
+            for (int groupId : groupIds)
+            {
+                Group group = shapeGroups.getGroups().get(groupId);
+                if (group != null)
+                {
+                    group.setHasData(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Determine if a parameter is the special time span matcher that matches
+     * groups that do not have any time span values.
+     *
+     * @param param The parameter.
+     * @return {@code true} if the parameter is timeless.
+     */
+    private static boolean isTimeless(IntervalPropertyMatcher<?> param)
+    {
+        return param instanceof TimeSpanMatcher && ((TimeSpanMatcher)param).getOperand().isTimeless();
+    }
+
+    /**
+     * Determine if a group's time span matches a time span parameter, using the
+     * same comparisons as the database query.
+     *
+     * @param value The group's time span.
+     * @param operand The parameter's time span.
+     * @return {@code true} if the time span matches.
+     */
+    private static boolean matches(TimeSpan value, TimeSpan operand)
+    {
+        long start = value.isUnboundedStart() ? Long.MIN_VALUE : value.getStart();
+        long end = value.isUnboundedEnd() ? Long.MAX_VALUE : value.getEnd();
+        return (operand.isUnboundedStart() || end > operand.getStart()) && (operand.isUnboundedEnd() || start < operand.getEnd());
+    }
+
+    /**
+     * Determine if at least one of some groups has data, asking the database
+     * about groups whose state is not known.
+     *
+     * @param groups The groups.
+     * @return {@code true} if at least one group has data.
+     * @throws CacheException If the database cannot be queried.
+     */
+    private boolean hasData(List<Group> groups) throws CacheException
+    {
+        List<Group> unknown = New.list();
+        for (Group group : groups)
+        {
+            Boolean hasData = group.getHasData();
+            if (hasData == null)
+            {
+                unknown.add(group);
+            }
+            else if (hasData.booleanValue())
+            {
+                return true;
+            }
+        }
+        if (unknown.isEmpty())
+        {
+            return false;
+        }
+
+        long generation;
+        synchronized (this)
+        {
+            generation = myGeneration;
+        }
+        int[] groupIds = unknown.stream().mapToInt(Group::getGroupId).toArray();
+        int found = myDataFinder.findGroupWithData(groupIds);
+        synchronized (this)
+        {
+            if (generation == myGeneration)
+            {
+                for (Group group : unknown)
+                {
+                    if (found == -1)
+                    {
+                        group.setHasData(Boolean.FALSE);
+                    }
+                    else if (group.getGroupId() == found)
+                    {
+                        group.setHasData(Boolean.TRUE);
+                    }
+                }
+            }
+        }
+        return found != -1;
+    }
+
+    /**
+     * Determine if a group matches some parameters.
+     *
+     * @param group The group.
+     * @param parameters The parameters.
+     * @return {@code true} if the group matches.
+     */
+    private static boolean matches(Group group, Collection<? extends IntervalPropertyMatcher<?>> parameters)
+    {
+        int column = 0;
+        for (IntervalPropertyMatcher<?> param : parameters)
+        {
+            if (isTimeless(param))
+            {
+                if (group.hasTimeSpans())
+                {
+                    return false;
+                }
+            }
+            else
+            {
+                Object value = group.getValues()[column++];
+                if (param instanceof TimeSpanMatcher ? !(value instanceof TimeSpan)
+                        || !matches((TimeSpan)value, ((TimeSpanMatcher)param).getOperand()) : !param.matches(value))
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Load the groups that were added to a shape after it was loaded, and add
+     * them to the shape.
+     *
+     * @param category The data model category.
+     * @param shape The shape.
+     * @param shapeGroups The groups for the shape.
+     * @param pending The ids of the added groups, mapped to the generations
+     *            when they were added.
+     * @return The groups for the shape, including the added groups.
+     * @throws CacheException If the groups cannot be loaded from the
+     *             database.
+     */
+    private IndexedGroups loadPending(DataModelCategory category, Shape shape, ShapeGroups shapeGroups,
+            Map<Integer, Long> pending)
+        throws CacheException
+    {
+        int[] groupIds = pending.keySet().stream().mapToInt(Integer::intValue).toArray();
+        List<Group> loaded = myLoader.load(category, shape.getProperties(), shape.isTimeless(), groupIds);
+        myAddedLoadCount.incrementAndGet();
+        synchronized (this)
+        {
+            return shapeGroups.addLoaded(pending, loaded);
+        }
+    }
+
+    /**
+     * An index of the values in one column of some groups.
+     */
+    @FunctionalInterface
+    private interface ColumnIndex
+    {
+        /**
+         * Get the positions of the groups that may match a parameter.
+         *
+         * @param param The parameter.
+         * @return The positions in ascending order, or {@code null} if the
+         *         index cannot narrow the groups for the parameter.
+         */
+        int[] getCandidates(IntervalPropertyMatcher<?> param);
+    }
+
+    /**
+     * The interface for the object that finds groups that have data.
+     */
+    @FunctionalInterface
+    public interface DataFinder
+    {
+        /**
+         * Find a group that has data.
+         *
+         * @param groupIds The ids of the groups to check.
+         * @return The id of one of the groups that has data, or {@code -1} if
+         *         none of them has data.
+         * @throws CacheException If the database cannot be queried.
+         */
+        int findGroupWithData(int[] groupIds) throws CacheException;
+    }
+
+    /**
+     * An index of the bounding boxes of the geometry values of some groups.
+     */
+    private static final class GeometryIndex implements ColumnIndex
+    {
+        /** The tree of group positions, keyed by bounding box. */
+        private final STRtree myTree = new STRtree();
+
+        /**
+         * Constructor.
+         *
+         * @param groups The groups.
+         * @param column The column of the geometry values.
+         */
+        public GeometryIndex(List<Group> groups, int column)
+        {
+            for (int position = 0; position < groups.size(); ++position)
+            {
+                Object value = groups.get(position).getValues()[column];
+                if (value instanceof Geometry)
+                {
+                    myTree.insert(((Geometry)value).getEnvelopeInternal(), Integer.valueOf(position));
+                }
+            }
+            // Build the tree now so that it may be queried concurrently.
+            myTree.build();
+        }
+
+        @Override
+        public int[] getCandidates(IntervalPropertyMatcher<?> param)
+        {
+            Geometry operand = param instanceof GeometryMatcher ? ((GeometryMatcher)param).getMinimumOverlapInterval() : null;
+            if (operand == null)
+            {
+                return null;
+            }
+            List<?> positions = myTree.query(operand.getEnvelopeInternal());
+            return positions.stream().mapToInt(p -> ((Integer)p).intValue()).sorted().toArray();
+        }
+    }
+
+    /**
+     * A group and its interval property values.
+     */
+    public static class Group
+    {
+        /** The expiration time of the group. */
+        private final long myExpirationTime;
+
+        /** The group id. */
+        private final int myGroupId;
+
+        /**
+         * If the group has data, or {@code null} if it is not known. This is
+         * written while holding the index's lock.
+         */
+        private volatile Boolean myHasData;
+
+        /** If the group has any time span values. */
+        private final boolean myHasTimeSpans;
+
+        /** The values of the properties. */
+        private final Object[] myValues;
+
+        /**
+         * Constructor.
+         *
+         * @param groupId The group id.
+         * @param expirationTime The expiration time of the group.
+         * @param hasTimeSpans If the group has any time span values.
+         * @param values The values of the properties.
+         */
+        public Group(int groupId, long expirationTime, boolean hasTimeSpans, Object[] values)
+        {
+            myGroupId = groupId;
+            myExpirationTime = expirationTime;
+            myHasTimeSpans = hasTimeSpans;
+            myValues = values.clone();
+        }
+
+        /**
+         * Get the expiration time of the group.
+         *
+         * @return The expiration time.
+         */
+        public long getExpirationTime()
+        {
+            return myExpirationTime;
+        }
+
+        /**
+         * Get the group id.
+         *
+         * @return The group id.
+         */
+        public int getGroupId()
+        {
+            return myGroupId;
+        }
+
+        /**
+         * Get if the group has any time span values.
+         *
+         * @return {@code true} if the group has time span values.
+         */
+        public boolean hasTimeSpans()
+        {
+            return myHasTimeSpans;
+        }
+
+        /**
+         * Get if the group has data.
+         *
+         * @return If the group has data, or {@code null} if it is not known.
+         */
+        Boolean getHasData()
+        {
+            return myHasData;
+        }
+
+        /**
+         * Get the values of the properties.
+         *
+         * @return The values.
+         */
+        Object[] getValues()
+        {
+            return myValues;
+        }
+
+        /**
+         * Set if the group has data.
+         *
+         * @param hasData If the group has data, or {@code null} if it is not
+         *            known.
+         */
+        void setHasData(Boolean hasData)
+        {
+            myHasData = hasData;
+        }
+    }
+
+    /**
+     * The interface for the object that loads groups from the database.
+     */
+    @FunctionalInterface
+    public interface GroupLoader
+    {
+        /**
+         * Load the unexpired groups in a category that have values for some
+         * interval properties.
+         *
+         * @param category The data model category. Any {@code null} values
+         *            are treated as wildcards.
+         * @param properties The properties.
+         * @param countTimeSpans Indicates if the groups' time span values
+         *            should be counted.
+         * @param groupIds Optional ids of the groups to load, or {@code null}
+         *            to load all of the groups in the category.
+         * @return The groups, with their values in the same order as the
+         *         properties.
+         * @throws CacheException If the database cannot be queried.
+         */
+        List<Group> load(DataModelCategory category, List<PropertyDescriptor<?>> properties, boolean countTimeSpans,
+                int[] groupIds)
+            throws CacheException;
+    }
+
+    /**
+     * The groups for a shape, indexed by their values. This is never modified
+     * once it is created, so it may be used without holding the lock.
+     */
+    private static final class IndexedGroups
+    {
+        /** The indexes for the value columns, created on first use. */
+        private volatile ColumnIndex[] myColumnIndexes;
+
+        /** Map of group ids to the groups. */
+        private final Map<Integer, Group> myGroupMap;
+
+        /** The groups, in the order they were loaded. */
+        private final List<Group> myGroups;
+
+        /** The shape. */
+        private final Shape myShape;
+
+        /**
+         * Constructor.
+         *
+         * @param shape The shape.
+         * @param groups The groups.
+         */
+        public IndexedGroups(Shape shape, List<Group> groups)
+        {
+            myShape = shape;
+            myGroups = Collections.unmodifiableList(New.list(groups));
+            myGroupMap = New.map(groups.size());
+            for (Group group : groups)
+            {
+                myGroupMap.put(Integer.valueOf(group.getGroupId()), group);
+            }
+        }
+
+        /**
+         * Get a copy of these groups with some groups added. Groups that are
+         * already present are not added again.
+         *
+         * @param groups The groups to add.
+         * @return The groups.
+         */
+        public IndexedGroups add(List<Group> groups)
+        {
+            if (groups.isEmpty())
+            {
+                return this;
+            }
+            List<Group> combined = New.list(myGroups.size() + groups.size());
+            combined.addAll(myGroups);
+            for (Group group : groups)
+            {
+                if (get(group.getGroupId()) == null)
+                {
+                    combined.add(group);
+                }
+            }
+            return new IndexedGroups(myShape, combined);
+        }
+
+        /**
+         * Find the unexpired groups that match some parameters.
+         *
+         * @param parameters The parameters.
+         * @param now The current time.
+         * @return The matching groups, in the order they were loaded.
+         */
+        public List<Group> find(Collection<? extends IntervalPropertyMatcher<?>> parameters, long now)
+        {
+            ColumnIndex[] indexes = getColumnIndexes();
+            int[] candidates = null;
+            int column = 0;
+            for (IntervalPropertyMatcher<?> param : parameters)
+            {
+                if (!isTimeless(param))
+                {
+                    ColumnIndex index = indexes[column++];
+                    int[] columnCandidates = index == null ? null : index.getCandidates(param);
+                    if (columnCandidates != null && (candidates == null || columnCandidates.length < candidates.length))
+                    {
+                        candidates = columnCandidates;
+                    }
+                }
+            }
+
+            List<Group> matches = New.list();
+            int count = candidates == null ? myGroups.size() : candidates.length;
+            for (int index = 0; index < count; ++index)
+            {
+                Group group = myGroups.get(candidates == null ? index : candidates[index]);
+                if (group.getExpirationTime() >= now && matches(group, parameters))
+                {
+                    matches.add(group);
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * Get a group.
+         *
+         * @param groupId The group id.
+         * @return The group, or {@code null} if it is not one of these groups.
+         */
+        public Group get(int groupId)
+        {
+            return myGroupMap.get(Integer.valueOf(groupId));
+        }
+
+        /**
+         * Get a copy of these groups with some groups removed.
+         *
+         * @param groupIds The ids of the groups to remove.
+         * @return The groups.
+         */
+        public IndexedGroups remove(int[] groupIds)
+        {
+            boolean found = false;
+            for (int groupId : groupIds)
+            {
+                found |= get(groupId) != null;
+            }
+            if (!found)
+            {
+                return this;
+            }
+            int[] sorted = groupIds.clone();
+            Arrays.sort(sorted);
+            List<Group> retained = New.list(myGroups.size());
+            for (Group group : myGroups)
+            {
+                if (Arrays.binarySearch(sorted, group.getGroupId()) < 0)
+                {
+                    retained.add(group);
+                }
+            }
+            return new IndexedGroups(myShape, retained);
+        }
+
+        /**
+         * Get the indexes for the value columns, creating them if necessary.
+         *
+         * @return The indexes, with {@code null} for columns that are not
+         *         indexed.
+         */
+        private ColumnIndex[] getColumnIndexes()
+        {
+            ColumnIndex[] indexes = myColumnIndexes;
+            if (indexes == null)
+            {
+                synchronized (this)
+                {
+                    indexes = myColumnIndexes;
+                    if (indexes == null)
+                    {
+                        List<PropertyDescriptor<?>> properties = myShape.getProperties();
+                        indexes = new ColumnIndex[properties.size()];
+                        for (int column = 0; column < indexes.length; ++column)
+                        {
+                            Class<?> type = properties.get(column).getType();
+                            if (TimeSpan.class.isAssignableFrom(type))
+                            {
+                                indexes[column] = new TimeSpanIndex(myGroups, column);
+                            }
+                            else if (Geometry.class.isAssignableFrom(type))
+                            {
+                                indexes[column] = new GeometryIndex(myGroups, column);
+                            }
+                        }
+                        myColumnIndexes = indexes;
+                    }
+                }
+            }
+            return indexes;
+        }
+    }
+
+    /**
+     * The shape of a query: the category and the properties that the groups
+     * must have values for.
+     */
+    private static final class Shape
+    {
+        /** The data model category. */
+        private final DataModelCategory myCategory;
+
+        /** The properties, not including any timeless time span property. */
+        private final List<PropertyDescriptor<?>> myProperties;
+
+        /** If the query has a timeless time span parameter. */
+        private final boolean myTimeless;
+
+        /**
+         * Constructor.
+         *
+         * @param category The data model category.
+         * @param parameters The interval parameters.
+         */
+        public Shape(DataModelCategory category, Collection<? extends IntervalPropertyMatcher<?>> parameters)
+        {
+            myCategory = category;
+            myProperties = New.list(parameters.size());
+            boolean timeless = false;
+            for (IntervalPropertyMatcher<?> param : parameters)
+            {
+                if (SatisfactionIndex.isTimeless(param))
+                {
+                    timeless = true;
+                }
+                else
+                {
+                    myProperties.add(param.getPropertyDescriptor());
+                }
+            }
+            myTimeless = timeless;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass())
+            {
+                return false;
+            }
+            Shape other = (Shape)obj;
+            return myTimeless == other.myTimeless && myCategory.equals(other.myCategory)
+                    && myProperties.equals(other.myProperties);
+        }
+
+        /**
+         * Get the properties, not including any timeless time span property.
+         *
+         * @return The properties.
+         */
+        public List<PropertyDescriptor<?>> getProperties()
+        {
+            return myProperties;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + myCategory.hashCode();
+            result = prime * result + myProperties.hashCode();
+            result = prime * result + (myTimeless ? 1231 : 1237);
+            return result;
+        }
+
+        /**
+         * Determine if a category is included in the shape's category.
+         *
+         * @param category The category.
+         * @return {@code true} if the category may be included.
+         */
+        public boolean includes(DataModelCategory category)
+        {
+            return category == null
+                    || (myCategory.getSource() == null || Objects.equals(myCategory.getSource(), category.getSource()))
+                            && (myCategory.getFamily() == null || Objects.equals(myCategory.getFamily(), category.getFamily()))
+                            && (myCategory.getCategory() == null
+                                    || Objects.equals(myCategory.getCategory(), category.getCategory()));
+        }
+
+        /**
+         * Get if the query has a timeless time span parameter.
+         *
+         * @return {@code true} if the query is timeless.
+         */
+        public boolean isTimeless()
+        {
+            return myTimeless;
+        }
+    }
+
+    /**
+     * The groups for a shape, and the ids of the groups that have been added
+     * since. The fields are guarded by the index's lock.
+     */
+    private static final class ShapeGroups
+    {
+        /** The loaded groups. */
+        private IndexedGroups myGroups;
+
+        /**
+         * The ids of the groups that may belong to the shape and have not been
+         * loaded, mapped to the generations when they were added.
+         */
+        private final Map<Integer, Long> myPending = New.map();
+
+        /**
+         * Constructor.
+         *
+         * @param groups The loaded groups.
+         */
+        public ShapeGroups(IndexedGroups groups)
+        {
+            myGroups = groups;
+        }
+
+        /**
+         * Add the loaded values of some of the pending groups. Groups that
+         * have been removed or added again since the snapshot of the pending
+         * groups was taken are not added.
+         *
+         * @param pending The snapshot of the pending groups that were loaded.
+         * @param loaded The loaded groups.
+         * @return The groups, including the added groups.
+         */
+        public IndexedGroups addLoaded(Map<Integer, Long> pending, List<Group> loaded)
+        {
+            List<Group> added = New.list(loaded.size());
+            for (Group group : loaded)
+            {
+                Integer groupId = Integer.valueOf(group.getGroupId());
+                Long generation = pending.get(groupId);
+                if (generation != null && generation.equals(myPending.get(groupId)))
+                {
+                    added.add(group);
+                }
+            }
+            for (Entry<Integer, Long> entry : pending.entrySet())
+            {
+                myPending.remove(entry.getKey(), entry.getValue());
+            }
+            myGroups = myGroups.add(added);
+            return myGroups;
+        }
+
+        /**
+         * Add a group that may belong to the shape.
+         *
+         * @param groupId The group id.
+         * @param generation The generation when the group was added.
+         */
+        public void addPending(int groupId, long generation)
+        {
+            myPending.put(Integer.valueOf(groupId), Long.valueOf(generation));
+        }
+
+        /**
+         * Get the loaded groups.
+         *
+         * @return The groups.
+         */
+        public IndexedGroups getGroups()
+        {
+            return myGroups;
+        }
+
+        /**
+         * Get a snapshot of the groups that have been added and not loaded.
+         *
+         * @return The group ids mapped to the generations when they were
+         *         added, or {@code null} if there are none.
+         */
+        public Map<Integer, Long> getPending()
+        {
+            return myPending.isEmpty() ? null : New.map(myPending);
+        }
+
+        /**
+         * Remove some groups.
+         *
+         * @param groupIds The group ids.
+         */
+        public void remove(int[] groupIds)
+        {
+            for (int groupId : groupIds)
+            {
+                myPending.remove(Integer.valueOf(groupId));
+            }
+            myGroups = myGroups.remove(groupIds);
+        }
+    }
+
+    /**
+     * An index of the time span values of some groups. The groups with
+     * bounded time spans are sorted by start time; since none of them is
+     * longer than the longest, only those that start less than that duration
+     * before a query's start may overlap it.
+     */
+    private static final class TimeSpanIndex implements ColumnIndex
+    {
+        /** The duration of the longest bounded time span. */
+        private final long myMaxDuration;
+
+        /** The positions of the groups with bounded time spans, by start. */
+        private final int[] myPositions;
+
+        /** The start times of the groups in {@link #myPositions}. */
+        private final long[] myStarts;
+
+        /** The positions of the groups with unbounded time spans. */
+        private final int[] myUnbounded;
+
+        /**
+         * Constructor.
+         *
+         * @param groups The groups.
+         * @param column The column of the time span values.
+         */
+        public TimeSpanIndex(List<Group> groups, int column)
+        {
+            long[] starts = new long[groups.size()];
+            List<Integer> bounded = New.list(groups.size());
+            int[] unbounded = new int[groups.size()];
+            int unboundedCount = 0;
+            long maxDuration = 0L;
+            for (int position = 0; position < groups.size(); ++position)
+            {
+                Object value = groups.get(position).getValues()[column];
+                if (value instanceof TimeSpan)
+                {
+                    TimeSpan span = (TimeSpan)value;
+                    if (span.isUnboundedStart() || span.isUnboundedEnd())
+                    {
+                        unbounded[unboundedCount++] = position;
+                    }
+                    else
+                    {
+                        starts[position] = span.getStart();
+                        bounded.add(Integer.valueOf(position));
+                        maxDuration = Math.max(maxDuration, span.getEnd() - span.getStart());
+                    }
+                }
+            }
+            bounded.sort(Comparator.comparingLong(p -> starts[p.intValue()]));
+
+            myMaxDuration = maxDuration;
+            myPositions = bounded.stream().mapToInt(Integer::intValue).toArray();
+            myStarts = new long[myPositions.length];
+            for (int index = 0; index < myPositions.length; ++index)
+            {
+                myStarts[index] = starts[myPositions[index]];
+            }
+            myUnbounded = Arrays.copyOf(unbounded, unboundedCount);
+        }
+
+        @Override
+        public int[] getCandidates(IntervalPropertyMatcher<?> param)
+        {
+            if (!(param instanceof TimeSpanMatcher))
+            {
+                return null;
+            }
+            TimeSpan operand = ((TimeSpanMatcher)param).getOperand();
+            int from = operand.isUnboundedStart() ? 0
+                    : firstStartAtOrAfter(operand.getStart() < Long.MIN_VALUE + myMaxDuration ? Long.MIN_VALUE
+                            : operand.getStart() - myMaxDuration);
+            int to = operand.isUnboundedEnd() ? myStarts.length : firstStartAtOrAfter(operand.getEnd());
+
+            int boundedCount = Math.max(0, to - from);
+            int[] candidates = Arrays.copyOf(myUnbounded, myUnbounded.length + boundedCount);
+            if (boundedCount > 0)
+            {
+                System.arraycopy(myPositions, from, candidates, myUnbounded.length, boundedCount);
+            }
+            Arrays.sort(candidates);
+            return candidates;
+        }
+
+        /**
+         * Find the first bounded time span that starts at or after a time.
+         *
+         * @param time The time.
+         * @return The index in {@link #myStarts}.
+         */
+        private int firstStartAtOrAfter(long time)
+        {
+            int low = 0;
+            int high = myStarts.length;
+            while (low < high)
+            {
+                int mid = low + high >>> 1;
+                if (myStarts[mid] < time)
+                {
+                    low = mid + 1;
+                }
+                else
+                {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
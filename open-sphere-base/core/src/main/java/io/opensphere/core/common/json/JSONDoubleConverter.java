@@ -0,0 +1,189 @@
+package io.opensphere.core.common.json;
+
+import java.math.BigInteger;
+
+/**
+ * Converts a decimal significand and exponent to the nearest double without
+ * going through a string. Exact small values use the classic fast path; other
+ * values use the Eisel-Lemire algorithm with a 128-bit table of powers of
+ * five. In the rare cases where neither can decide the rounding, NaN is
+ * returned and the caller must fall back to {@link Double#parseDouble}.
+ */
+final class JSONDoubleConverter
+{
+    /** The largest decimal exponent that does not overflow to infinity. */
+    private static final int LARGEST_POWER_OF_TEN = 308;
+
+    /** The largest power of ten that is exact as a double. */
+    private static final int MAX_EXACT_POWER_OF_TEN = 22;
+
+    /** The number of explicit mantissa bits in a double. */
+    private static final int MANTISSA_BITS = 52;
+
+    /** The smallest decimal exponent that does not underflow to zero. */
+    private static final int SMALLEST_POWER_OF_TEN = -342;
+
+    /** The exactly representable powers of ten. */
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13,
+        1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22, };
+
+    /** Disallow instantiation. */
+    private JSONDoubleConverter()
+    {
+    }
+
+    /**
+     * Converts {@code significand * 10^exponent} to a double.
+     *
+     * @param significand the decimal significand, treated as unsigned
+     * @param exponent the decimal exponent
+     * @param negative whether the value is negative
+     * @return the nearest double, or NaN if the conversion must be done by
+     *         {@link Double#parseDouble}
+     */
+    static double toDouble(long significand, int exponent, boolean negative)
+    {
+        if (significand == 0 || exponent < SMALLEST_POWER_OF_TEN)
+        {
+            return negative ? -0. : 0.;
+        }
+        if (exponent > LARGEST_POWER_OF_TEN)
+        {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+
+        double value;
+        if (significand >= 0 && significand <= 1L << MANTISSA_BITS + 1 && exponent >= -MAX_EXACT_POWER_OF_TEN
+                && exponent <= MAX_EXACT_POWER_OF_TEN)
+        {
+            // Both operands are exact, so IEEE arithmetic rounds correctly.
+            value = exponent < 0 ? significand / POWERS_OF_TEN[-exponent] : significand * POWERS_OF_TEN[exponent];
+        }
+        else
+        {
+            value = eiselLemire(significand, exponent);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Converts a significand and exponent using the Eisel-Lemire algorithm.
+     *
+     * @param significand the non-zero significand, treated as unsigned
+     * @param exponent the decimal exponent, within the table range
+     * @return the positive double, or NaN if the result could not be decided
+     */
+    private static double eiselLemire(long significand, int exponent)
+    {
+        int lz = Long.numberOfLeadingZeros(significand);
+        long w = significand << lz;
+        int index = 2 * (exponent - SMALLEST_POWER_OF_TEN);
+        long[] table = PowersOfFive.TABLE;
+
+        long high = unsignedMultiplyHigh(w, table[index]);
+        long low = w * table[index];
+        long precisionMask = -1L >>> MANTISSA_BITS + 3;
+        if ((high & precisionMask) == precisionMask)
+        {
+            long secondHigh = unsignedMultiplyHigh(w, table[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0)
+            {
+                high++;
+            }
+        }
+        if (low == -1L && (exponent < -27 || exponent > 55))
+        {
+            return Double.NaN;
+        }
+
+        int upperBit = (int)(high >>> 63);
+        int shift = upperBit + 64 - MANTISSA_BITS - 3;
+        long mantissa = high >>> shift;
+        int power2 = (217_706 * exponent >> 16) + 63 + upperBit - lz + 1023;
+        if (power2 <= 0)
+        {
+            // Subnormal results are rare enough to leave to the JDK.
+            return Double.NaN;
+        }
+
+        // Round to nearest, ties to even. A product that is exactly halfway
+        // between two doubles is only possible for small exponents.
+        if (Long.compareUnsigned(low, 1) <= 0 && exponent >= -4 && exponent <= 23 && (mantissa & 3) == 1
+                && mantissa << shift == high)
+        {
+            mantissa &= ~1L;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 2L << MANTISSA_BITS)
+        {
+            mantissa = 1L << MANTISSA_BITS;
+            power2++;
+        }
+        mantissa &= ~(1L << MANTISSA_BITS);
+        if (power2 >= 0x7FF)
+        {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Double.longBitsToDouble(mantissa | (long)power2 << MANTISSA_BITS);
+    }
+
+    /**
+     * Gets the high 64 bits of the unsigned 128-bit product of two longs.
+     *
+     * @param a the first factor, treated as unsigned
+     * @param b the second factor, treated as unsigned
+     * @return the high bits of the product
+     */
+    private static long unsignedMultiplyHigh(long a, long b)
+    {
+        return Math.multiplyHigh(a, b) + (a >> 63 & b) + (b >> 63 & a);
+    }
+
+    /**
+     * Holder for the table of powers of five, so it is only computed once a
+     * value needs it.
+     */
+    private static final class PowersOfFive
+    {
+        /**
+         * The most significant 128 bits of each power of five from
+         * {@link JSONDoubleConverter#SMALLEST_POWER_OF_TEN} to
+         * {@link JSONDoubleConverter#LARGEST_POWER_OF_TEN}, as pairs of high
+         * and low words. Negative powers are rounded up.
+         */
+        static final long[] TABLE = createTable();
+
+        /**
+         * Computes the table.
+         *
+         * @return the table
+         */
+        private static long[] createTable()
+        {
+            long[] table = new long[2 * (LARGEST_POWER_OF_TEN - SMALLEST_POWER_OF_TEN + 1)];
+            int index = 0;
+            for (int q = SMALLEST_POWER_OF_TEN; q <= LARGEST_POWER_OF_TEN; ++q)
+            {
+                BigInteger value;
+                if (q < 0)
+                {
+                    BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                    int z = power5.bitLength();
+                    int b = q >= -27 ? z + 127 : 2 * z + 128;
+                    value = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                }
+                else
+                {
+                    value = BigInteger.valueOf(5).pow(q);
+                }
+                value = value.bitLength() > 128 ? value.shiftRight(value.bitLength() - 128)
+                        : value.shiftLeft(128 - value.bitLength());
+                table[index++] = value.shiftRight(64).longValue();
+                table[index++] = value.longValue();
+            }
+            return table;
+        }
+    }
+}
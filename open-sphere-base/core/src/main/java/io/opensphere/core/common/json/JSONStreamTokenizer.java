@@ -0,0 +1,838 @@
+package io.opensphere.core.common.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * A pull tokenizer that reads UTF-8 JSON directly from an
+ * {@link InputStream}. Unlike {@link JSONSaxParser}, bytes are not decoded
+ * into a character stream first: structural characters are matched as bytes,
+ * strings are decoded (including escapes) into a single reused character
+ * buffer, and numbers are converted from their digits without creating
+ * strings.
+ * <p>
+ * Nesting is checked, but separators are only used to tell keys from values,
+ * so the tokenizer is lenient about misplaced commas and colons.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class JSONStreamTokenizer
+{
+    /** The size of the byte buffer. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The maximum number of significand digits that fit in a long. */
+    private static final int MAX_SIGNIFICAND_DIGITS = 19;
+
+    /** The unicode replacement character used for malformed input. */
+    private static final char REPLACEMENT_CHAR = '\uFFFD';
+
+    /** The byte buffer. */
+    private final byte[] myBuffer = new byte[BUFFER_SIZE];
+
+    /** The stream offset of the start of the byte buffer. */
+    private long myBufferOffset;
+
+    /** The number of significant digits in the current number. */
+    private int myDigits;
+
+    /** The nesting depth. */
+    private int myDepth;
+
+    /** The decimal exponent of the current number. */
+    private int myExponent;
+
+    /** Whether the next string in the current object is a key. */
+    private boolean myExpectKey;
+
+    /** The input stream. */
+    private final InputStream myInput;
+
+    /** Whether the current number has a fraction or exponent part. */
+    private boolean myIsInteger;
+
+    /** The number of valid bytes in the buffer. */
+    private int myLimit;
+
+    /** The number of the current line, starting at one. */
+    private long myLine = 1;
+
+    /** The stream offset of the start of the current line. */
+    private long myLineStart;
+
+    /** Whether the current number is negative. */
+    private boolean myNegative;
+
+    /** Whether each open container is an object (true) or array (false). */
+    private boolean[] myObjectStack = new boolean[32];
+
+    /** The position of the next byte in the buffer. */
+    private int myPosition;
+
+    /**
+     * The decimal significand of the current number, treated as unsigned.
+     * Only valid if the number has no more than
+     * {@link #MAX_SIGNIFICAND_DIGITS} significant digits.
+     */
+    private long mySignificand;
+
+    /** The text of the current key, string, number or literal. */
+    private char[] myText = new char[256];
+
+    /** The number of characters in {@link #myText}. */
+    private int myTextLength;
+
+    /** The current token. */
+    private Token myToken;
+
+    /**
+     * Constructor.
+     *
+     * @param input the UTF-8 input stream, which is not closed by the
+     *            tokenizer
+     */
+    public JSONStreamTokenizer(InputStream input)
+    {
+        myInput = input;
+    }
+
+    /**
+     * Gets the current boolean value.
+     *
+     * @return true if the current token is {@link Token#TRUE}
+     */
+    public boolean getBoolean()
+    {
+        return myToken == Token.TRUE;
+    }
+
+    /**
+     * Gets the current value as a double. Numbers are converted without
+     * creating strings; strings are parsed as decimal text.
+     *
+     * @return the value
+     * @throws NumberFormatException if the current token is not a number and
+     *             its text is not a number
+     */
+    public double getDouble()
+    {
+        if (myToken == Token.NUMBER && myDigits <= MAX_SIGNIFICAND_DIGITS)
+        {
+            double value = JSONDoubleConverter.toDouble(mySignificand, myExponent, myNegative);
+            if (!Double.isNaN(value))
+            {
+                return value;
+            }
+        }
+        return Double.parseDouble(getString());
+    }
+
+    /**
+     * Gets the current value as a long.
+     *
+     * @return the value
+     * @throws NumberFormatException if the current value is not an integer
+     *             that fits in a long
+     */
+    public long getLong()
+    {
+        if (myToken == Token.NUMBER && myIsInteger && myDigits < MAX_SIGNIFICAND_DIGITS)
+        {
+            return myNegative ? -mySignificand : mySignificand;
+        }
+        return Long.parseLong(getString());
+    }
+
+    /**
+     * Gets the text of the current key, string, number or literal.
+     *
+     * @return the text
+     */
+    public String getString()
+    {
+        return new String(myText, 0, myTextLength);
+    }
+
+    /**
+     * Gets the current token.
+     *
+     * @return the token, or null before the first call to {@link #next()}
+     */
+    public Token getToken()
+    {
+        return myToken;
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @return the token
+     * @throws IOException if the stream cannot be read
+     * @throws JSONSaxParseException if the document is malformed
+     */
+    public Token next() throws IOException, JSONSaxParseException
+    {
+        while (true)
+        {
+            int b = skipWhiteSpace();
+            switch (b)
+            {
+                case -1:
+                    if (myDepth != 0)
+                    {
+                        throw error("Unexpected end of document");
+                    }
+                    return setToken(Token.END_DOCUMENT);
+                case '{':
+                    push(true);
+                    myExpectKey = true;
+                    return setToken(Token.OBJECT_START);
+                case '}':
+                    pop(true);
+                    return setToken(Token.OBJECT_END);
+                case '[':
+                    push(false);
+                    return setToken(Token.ARRAY_START);
+                case ']':
+                    pop(false);
+                    return setToken(Token.ARRAY_END);
+                case ',':
+                    myExpectKey = myDepth > 0 && myObjectStack[myDepth - 1];
+                    break;
+                case ':':
+                    break;
+                case '"':
+                    readString();
+                    if (myExpectKey)
+                    {
+                        myExpectKey = false;
+                        return setToken(Token.KEY);
+                    }
+                    return setToken(Token.STRING);
+                case 't':
+                    readLiteral("true");
+                    return setToken(Token.TRUE);
+                case 'f':
+                    readLiteral("false");
+                    return setToken(Token.FALSE);
+                case 'n':
+                    readLiteral("null");
+                    return setToken(Token.NULL);
+                default:
+                    if (b == '-' || b >= '0' && b <= '9')
+                    {
+                        readNumber(b);
+                        return setToken(Token.NUMBER);
+                    }
+                    throw error("Illegal character '" + (char)b + "'");
+            }
+        }
+    }
+
+    /**
+     * Reads the rest of an array of position arrays, such as the "paths" or
+     * "rings" of an Esri geometry or the coordinates of a GeoJSON polygon,
+     * without creating any objects per position. The opening bracket of the
+     * outer array must have just been returned by {@link #next()}. The first
+     * two numbers of each position are appended to {@code coordinates}; any
+     * further ordinates (such as z or m) are skipped. After each part, the
+     * size of {@code coordinates} is appended to {@code partEnds}.
+     *
+     * @param coordinates receives the x and y of each position
+     * @param partEnds receives the end index of each part in the coordinates
+     * @return the number of parts read
+     * @throws IOException if the stream cannot be read
+     * @throws JSONSaxParseException if the arrays are malformed
+     */
+    public int readPositionArrays(TDoubleArrayList coordinates, TIntArrayList partEnds)
+        throws IOException, JSONSaxParseException
+    {
+        if (myToken != Token.ARRAY_START)
+        {
+            throw error("Expected start of array");
+        }
+        int parts = 0;
+        for (Token part = next(); part != Token.ARRAY_END; part = next())
+        {
+            if (part != Token.ARRAY_START)
+            {
+                throw error("Expected array of positions");
+            }
+            for (Token position = next(); position != Token.ARRAY_END; position = next())
+            {
+                if (position != Token.ARRAY_START)
+                {
+                    throw error("Expected position array");
+                }
+                int ordinates = 0;
+                for (Token ordinate = next(); ordinate != Token.ARRAY_END; ordinate = next())
+                {
+                    if (ordinates < 2)
+                    {
+                        if (ordinate != Token.NUMBER)
+                        {
+                            throw error("Expected number in position");
+                        }
+                        coordinates.add(getDouble());
+                    }
+                    ++ordinates;
+                }
+                if (ordinates < 2)
+                {
+                    throw error("Position has fewer than two ordinates");
+                }
+            }
+            partEnds.add(coordinates.size());
+            ++parts;
+        }
+        return parts;
+    }
+
+    /**
+     * Tests whether the text of the current token equals a string, without
+     * creating a string.
+     *
+     * @param text the text to compare
+     * @return true if the text is equal
+     */
+    public boolean textEquals(String text)
+    {
+        if (text.length() != myTextLength)
+        {
+            return false;
+        }
+        for (int i = 0; i < myTextLength; ++i)
+        {
+            if (myText[i] != text.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends a character to the text buffer.
+     *
+     * @param c the character
+     */
+    private void appendText(char c)
+    {
+        if (myTextLength == myText.length)
+        {
+            myText = Arrays.copyOf(myText, myTextLength << 1);
+        }
+        myText[myTextLength++] = c;
+    }
+
+    /**
+     * Creates an exception describing a problem at the current position.
+     *
+     * @param message the message
+     * @return the exception
+     */
+    private JSONSaxParseException error(String message)
+    {
+        long column = myBufferOffset + myPosition - myLineStart;
+        return new JSONSaxParseException(myLine, column, message + " at position " + column + " line " + myLine);
+    }
+
+    /**
+     * Fills the buffer if it has been consumed.
+     *
+     * @return false if the end of the stream has been reached
+     * @throws IOException if the stream cannot be read
+     */
+    private boolean fill() throws IOException
+    {
+        if (myPosition < myLimit)
+        {
+            return true;
+        }
+        myBufferOffset += myLimit;
+        myPosition = 0;
+        myLimit = 0;
+        int read;
+        do
+        {
+            read = myInput.read(myBuffer);
+        }
+        while (read == 0);
+        if (read < 0)
+        {
+            return false;
+        }
+        myLimit = read;
+        return true;
+    }
+
+    /**
+     * Reads a byte that must be a continuation byte of a multi-byte sequence.
+     *
+     * @return the six payload bits, or -1 if the byte is not a continuation
+     *         byte (in which case it is not consumed)
+     * @throws IOException if the stream cannot be read
+     */
+    private int readContinuation() throws IOException
+    {
+        if (!fill())
+        {
+            return -1;
+        }
+        int b = myBuffer[myPosition];
+        if ((b & 0xC0) != 0x80)
+        {
+            return -1;
+        }
+        ++myPosition;
+        return b & 0x3F;
+    }
+
+    /**
+     * Peeks at the next byte.
+     *
+     * @return the byte, or -1 at the end of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    private int peek() throws IOException
+    {
+        return fill() ? myBuffer[myPosition] & 0xFF : -1;
+    }
+
+    /**
+     * Pops a container off the nesting stack.
+     *
+     * @param object whether the container is expected to be an object
+     * @throws JSONSaxParseException if the container does not match
+     */
+    private void pop(boolean object) throws JSONSaxParseException
+    {
+        if (myDepth == 0 || myObjectStack[myDepth - 1] != object)
+        {
+            throw error("Unexpected character '" + (object ? '}' : ']') + "'");
+        }
+        --myDepth;
+        myExpectKey = false;
+    }
+
+    /**
+     * Pushes a container onto the nesting stack.
+     *
+     * @param object whether the container is an object
+     */
+    private void push(boolean object)
+    {
+        if (myDepth == myObjectStack.length)
+        {
+            myObjectStack = Arrays.copyOf(myObjectStack, myDepth << 1);
+        }
+        myObjectStack[myDepth++] = object;
+    }
+
+    /**
+     * Reads a number whose first byte has not been consumed. The digits are
+     * accumulated into the significand and also copied to the text buffer.
+     *
+     * @param first the first byte
+     * @throws IOException if the stream cannot be read
+     * @throws JSONSaxParseException if the number is malformed
+     */
+    private void readNumber(int first) throws IOException, JSONSaxParseException
+    {
+        myTextLength = 0;
+        myNegative = first == '-';
+        myIsInteger = true;
+        mySignificand = 0;
+        myDigits = 0;
+        myExponent = 0;
+        int b = first;
+        if (myNegative)
+        {
+            appendText('-');
+            ++myPosition;
+            b = peek();
+        }
+
+        int integerDigits = 0;
+        while (b >= '0' && b <= '9')
+        {
+            addDigit(b);
+            ++integerDigits;
+            b = peek();
+        }
+        if (integerDigits == 0)
+        {
+            throw error("Invalid number format '" + getString() + "'");
+        }
+
+        if (b == '.')
+        {
+            myIsInteger = false;
+            appendText('.');
+            ++myPosition;
+            b = peek();
+            int fractionDigits = 0;
+            while (b >= '0' && b <= '9')
+            {
+                addDigit(b);
+                --myExponent;
+                ++fractionDigits;
+                b = peek();
+            }
+            if (fractionDigits == 0)
+            {
+                throw error("Invalid number format '" + getString() + "'");
+            }
+        }
+
+        if (b == 'e' || b == 'E')
+        {
+            myIsInteger = false;
+            appendText((char)b);
+            ++myPosition;
+            b = peek();
+            boolean negativeExponent = b == '-';
+            if (b == '-' || b == '+')
+            {
+                appendText((char)b);
+                ++myPosition;
+                b = peek();
+            }
+            int exponentDigits = 0;
+            int exponent = 0;
+            while (b >= '0' && b <= '9')
+            {
+                // Clamp huge exponents; the converter saturates them anyway.
+                if (exponent < 100_000)
+                {
+                    exponent = exponent * 10 + b - '0';
+                }
+                ++exponentDigits;
+                appendText((char)b);
+                ++myPosition;
+                b = peek();
+            }
+            if (exponentDigits == 0)
+            {
+                throw error("Invalid number format '" + getString() + "'");
+            }
+            myExponent += negativeExponent ? -exponent : exponent;
+        }
+    }
+
+    /**
+     * Consumes a digit of the current number, adding it to the significand
+     * and the text buffer. Leading zeros are not counted as significant.
+     *
+     * @param b the digit byte
+     * @throws IOException if the stream cannot be read
+     */
+    private void addDigit(int b) throws IOException
+    {
+        if (myDigits > 0 || b != '0')
+        {
+            if (++myDigits <= MAX_SIGNIFICAND_DIGITS)
+            {
+                mySignificand = mySignificand * 10 + b - '0';
+            }
+        }
+        appendText((char)b);
+        ++myPosition;
+    }
+
+    /**
+     * Reads the rest of a literal whose first byte has been consumed.
+     *
+     * @param literal the expected literal
+     * @throws IOException if the stream cannot be read
+     * @throws JSONSaxParseException if the literal does not match
+     */
+    private void readLiteral(String literal) throws IOException, JSONSaxParseException
+    {
+        ++myPosition;
+        for (int i = 1; i < literal.length(); ++i)
+        {
+            if (peek() != literal.charAt(i))
+            {
+                throw error("Invalid literal, expected '" + literal + "'");
+            }
+            ++myPosition;
+        }
+        myTextLength = 0;
+        for (int i = 0; i < literal.length(); ++i)
+        {
+            appendText(literal.charAt(i));
+        }
+    }
+
+    /**
+     * Reads a string whose opening quote has not been consumed, decoding
+     * UTF-8 and escapes into the text buffer.
+     *
+     * @throws IOException if the stream cannot be read
+     * @throws JSONSaxParseException if the string is not terminated or has a
+     *             bad escape
+     */
+    private void readString() throws IOException, JSONSaxParseException
+    {
+        ++myPosition;
+        myTextLength = 0;
+        while (true)
+        {
+            if (!fill())
+            {
+                throw error("Unterminated string");
+            }
+
+            // Copy runs of plain ASCII straight from the buffer.
+            int start = myPosition;
+            int limit = myLimit;
+            byte[] buffer = myBuffer;
+            int end = start;
+            while (end < limit)
+            {
+                byte b = buffer[end];
+                if (b == '"' || b == '\\' || b < 0)
+                {
+                    break;
+                }
+                ++end;
+            }
+            int count = end - start;
+            if (count > 0)
+            {
+                if (myTextLength + count > myText.length)
+                {
+                    myText = Arrays.copyOf(myText, Math.max(myText.length << 1, myTextLength + count));
+                }
+                for (int i = 0; i < count; ++i)
+                {
+                    myText[myTextLength++] = (char)buffer[start + i];
+                }
+                myPosition = end;
+            }
+            if (end == limit)
+            {
+                continue;
+            }
+
+            int b = buffer[myPosition++] & 0xFF;
+            if (b == '"')
+            {
+                return;
+            }
+            else if (b == '\\')
+            {
+                readEscape();
+            }
+            else
+            {
+                readMultiByte(b);
+            }
+        }
+    }
+
+    /**
+     * Reads an escape sequence whose backslash has been consumed.
+     *
+     * @throws IOException if the stream cannot be read
+     * @throws JSONSaxParseException if the escape is malformed
+     */
+    private void readEscape() throws IOException, JSONSaxParseException
+    {
+        int b = peek();
+        ++myPosition;
+        switch (b)
+        {
+            case '"':
+            case '\\':
+            case '/':
+                appendText((char)b);
+                break;
+            case 'b':
+                appendText('\b');
+                break;
+            case 'f':
+                appendText('\f');
+                break;
+            case 'n':
+                appendText('\n');
+                break;
+            case 'r':
+                appendText('\r');
+                break;
+            case 't':
+                appendText('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; ++i)
+                {
+                    int digit = Character.digit(peek(), 16);
+                    if (digit < 0)
+                    {
+                        throw error("Invalid unicode escape");
+                    }
+                    value = value << 4 | digit;
+                    ++myPosition;
+                }
+                appendText((char)value);
+                break;
+            default:
+                throw error("Invalid escape character");
+        }
+    }
+
+    /**
+     * Decodes a multi-byte UTF-8 sequence whose lead byte has been consumed.
+     * Malformed sequences are replaced by U+FFFD.
+     *
+     * @param lead the lead byte
+     * @throws IOException if the stream cannot be read
+     */
+    private void readMultiByte(int lead) throws IOException
+    {
+        int continuations;
+        int codePoint;
+        int min;
+        if ((lead & 0xE0) == 0xC0)
+        {
+            continuations = 1;
+            codePoint = lead & 0x1F;
+            min = 0x80;
+        }
+        else if ((lead & 0xF0) == 0xE0)
+        {
+            continuations = 2;
+            codePoint = lead & 0x0F;
+            min = 0x800;
+        }
+        else if ((lead & 0xF8) == 0xF0)
+        {
+            continuations = 3;
+            codePoint = lead & 0x07;
+            min = 0x10000;
+        }
+        else
+        {
+            appendText(REPLACEMENT_CHAR);
+            return;
+        }
+        for (int i = 0; i < continuations; ++i)
+        {
+            int bits = readContinuation();
+            if (bits < 0)
+            {
+                appendText(REPLACEMENT_CHAR);
+                return;
+            }
+            codePoint = codePoint << 6 | bits;
+        }
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                || codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)
+        {
+            appendText(REPLACEMENT_CHAR);
+        }
+        else if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT)
+        {
+            appendText(Character.highSurrogate(codePoint));
+            appendText(Character.lowSurrogate(codePoint));
+        }
+        else
+        {
+            appendText((char)codePoint);
+        }
+    }
+
+    /**
+     * Sets the current token.
+     *
+     * @param token the token
+     * @return the token
+     */
+    private Token setToken(Token token)
+    {
+        myToken = token;
+        return token;
+    }
+
+    /**
+     * Skips white space, counting lines.
+     *
+     * @return the next byte, which is not consumed, or -1 at the end of the
+     *         stream
+     * @throws IOException if the stream cannot be read
+     */
+    private int skipWhiteSpace() throws IOException
+    {
+        while (fill())
+        {
+            int b = myBuffer[myPosition];
+            switch (b)
+            {
+                case '\n':
+                    ++myLine;
+                    myLineStart = myBufferOffset + myPosition + 1;
+                    ++myPosition;
+                    break;
+                case ' ':
+                case '\t':
+                case '\r':
+                    ++myPosition;
+                    break;
+                case '{':
+                case '}':
+                case '[':
+                case ']':
+                case ',':
+                case ':':
+                    ++myPosition;
+                    return b;
+                default:
+                    return b & 0xFF;
+            }
+        }
+        return -1;
+    }
+
+    /** The tokens returned by the tokenizer. */
+    public enum Token
+    {
+        /** The start of an array. */
+        ARRAY_START,
+
+        /** The end of an array. */
+        ARRAY_END,
+
+        /** The end of the input. */
+        END_DOCUMENT,
+
+        /** The literal {@code false}. */
+        FALSE,
+
+        /** A key in an object. */
+        KEY,
+
+        /** The literal {@code null}. */
+        NULL,
+
+        /** A number. */
+        NUMBER,
+
+        /** The start of an object. */
+        OBJECT_START,
+
+        /** The end of an object. */
+        OBJECT_END,
+
+        /** A string value. */
+        STRING,
+
+        /** The literal {@code true}. */
+        TRUE,
+    }
+}
@@ -0,0 +1,80 @@
+package io.opensphere.core.data;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import io.opensphere.core.cache.matcher.PropertyMatcher;
+import io.opensphere.core.cache.util.PropertyDescriptor;
+import io.opensphere.core.data.util.DataModelCategory;
+import io.opensphere.core.data.util.OrderSpecifier;
+import io.opensphere.core.data.util.Satisfaction;
+
+/**
+ * A provider of data to the {@link DataRegistry} that does not block the query
+ * thread while it waits for its data. The data registry calls
+ * {@link #queryAsync} instead of {@link #query}, so the thread from the
+ * provider's pool is released as soon as the requests have been sent and a
+ * handful of threads can keep many queries in flight.
+ */
+public interface AsyncDataRegistryDataProvider extends DataRegistryDataProvider
+{
+    /**
+     * Query this data provider without blocking. Results are sent to the
+     * provided {@code queryReceiver}, possibly from another thread, before the
+     * returned future completes.
+     * <p>
+     * The future is cancelled if the query is cancelled. It completes
+     * exceptionally with a {@link QueryException} if the query fails.
+     *
+     * @param category The data model category.
+     * @param satisfactions What portion of the interval bounds of the query
+     *            this provider claims to satisfy. This will be {@code null} if
+     *            the query has no interval bounds.
+     * @param parameters The non-interval bounds on the query.
+     * @param orderSpecifiers The order specifiers for the query.
+     * @param limit The limit on the number of results returned by this query.
+     * @param propertyDescriptors Descriptors for the properties to be returned.
+     * @param queryReceiver An object that will receive the results produced by
+     *            this data provider.
+     * @return The future that completes when the query is done.
+     */
+    CompletableFuture<Void> queryAsync(DataModelCategory category, Collection<? extends Satisfaction> satisfactions,
+            List<? extends PropertyMatcher<?>> parameters, List<? extends OrderSpecifier> orderSpecifiers, int limit,
+            Collection<? extends PropertyDescriptor<?>> propertyDescriptors, CacheDepositReceiver queryReceiver);
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation calls {@link #queryAsync} and waits for the result.
+     */
+    @Override
+    default void query(DataModelCategory category, Collection<? extends Satisfaction> satisfactions,
+            List<? extends PropertyMatcher<?>> parameters, List<? extends OrderSpecifier> orderSpecifiers, int limit,
+            Collection<? extends PropertyDescriptor<?>> propertyDescriptors, CacheDepositReceiver queryReceiver)
+        throws InterruptedException, QueryException
+    {
+        CompletableFuture<Void> future = queryAsync(category, satisfactions, parameters, orderSpecifiers, limit,
+                propertyDescriptors, queryReceiver);
+        try
+        {
+            future.get();
+        }
+        catch (InterruptedException e)
+        {
+            future.cancel(true);
+            throw e;
+        }
+        catch (CancellationException e)
+        {
+            throw new InterruptedException("The query was cancelled.");
+        }
+        catch (ExecutionException e)
+        {
+            throw e.getCause() instanceof QueryException ? (QueryException)e.getCause()
+                    : new QueryException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -6,6 +6,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.log4j.Logger;
@@ -23,7 +26,9 @@ import io.opensphere.core.data.DataRegistryListenerManager.ChangeType;
 import io.opensphere.core.data.util.DataModelCategory;
 import io.opensphere.core.data.util.PropertyValueReceiver;
 import io.opensphere.core.data.util.Query;
+import io.opensphere.core.data.util.QueryTracker;
 import io.opensphere.core.data.util.QueryTracker.QueryStatus;
+import io.opensphere.core.data.util.QueryTrackerListenerAdapter;
 import io.opensphere.core.data.util.Satisfaction;
 import io.opensphere.core.util.Utilities;
 import io.opensphere.core.util.collections.New;
@@ -155,6 +160,11 @@ public class CachingDataRegistryDataProvider
             try
             {
                 Collection<? extends Satisfaction> satisfactions = intervalQuery ? tracker.getSatisfactions() : null;
+                if (myDataProvider instanceof AsyncDataRegistryDataProvider)
+                {
+                    queryAsync(tracker, satisfactions, propertyDescriptors, cacheDepositReceiver);
+                    return;
+                }
                 myDataProvider.query(query.getDataModelCategory(), satisfactions, tracker.getParameters(),
                         query.getOrderSpecifiers(), query.getLimit(), propertyDescriptors, cacheDepositReceiver);
                 tracker.setQueryStatus(QueryStatus.SUCCESS, (Throwable)null);
@@ -210,6 +220,73 @@ public class CachingDataRegistryDataProvider
         return propertyDescriptors;
     }
 
+    /**
+     * Start a query of an asynchronous data provider and update the tracker
+     * when it completes, so that the calling thread is not held while the
+     * query is in flight. Cancelling the tracker cancels the query.
+     *
+     * @param tracker The query tracker.
+     * @param satisfactions The satisfactions, or {@code null} if the query has
+     *            no interval bounds.
+     * @param propertyDescriptors The descriptors of the properties to be
+     *            returned.
+     * @param cacheDepositReceiver The receiver for the results.
+     */
+    private void queryAsync(final MutableQueryTracker tracker, Collection<? extends Satisfaction> satisfactions,
+            Collection<PropertyDescriptor<?>> propertyDescriptors, CacheDepositReceiver cacheDepositReceiver)
+    {
+        Query query = tracker.getQuery();
+        final CompletableFuture<Void> future = ((AsyncDataRegistryDataProvider)myDataProvider).queryAsync(
+                query.getDataModelCategory(), satisfactions, tracker.getParameters(), query.getOrderSpecifiers(),
+                query.getLimit(), propertyDescriptors, cacheDepositReceiver);
+
+        final QueryTrackerListenerAdapter cancelListener = new QueryTrackerListenerAdapter()
+        {
+            @Override
+            public void statusChanged(QueryTracker queryTracker, QueryStatus status)
+            {
+                if (status == QueryStatus.CANCELLED)
+                {
+                    future.cancel(true);
+                }
+            }
+        };
+        tracker.addListener(cancelListener);
+        if (tracker.isCancelled())
+        {
+            future.cancel(true);
+        }
+
+        future.whenComplete((v, e) ->
+        {
+            tracker.removeListener(cancelListener);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause == null)
+            {
+                tracker.setQueryStatus(QueryStatus.SUCCESS, (Throwable)null);
+            }
+            else if (cause instanceof CancellationException || tracker.isCancelled())
+            {
+                tracker.cancel(true);
+            }
+            else
+            {
+                tracker.setQueryStatus(QueryStatus.FAILED, cause);
+                if (cause instanceof QueryException)
+                {
+                    if (LOGGER.isDebugEnabled())
+                    {
+                        LOGGER.debug("Query failed: " + cause, cause);
+                    }
+                }
+                else
+                {
+                    LOGGER.error("Query failed: " + cause, cause);
+                }
+            }
+        });
+    }
+
     /**
      * Send any input streams associated with some model ids to some property
      * value receivers.
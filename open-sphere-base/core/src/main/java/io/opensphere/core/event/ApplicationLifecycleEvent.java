@@ -14,10 +14,13 @@ public class ApplicationLifecycleEvent extends AbstractSingleStateEvent
      *
      * @param manager An event manager.
      * @param stage The application stage.
+     * @return The published event.
      */
-    public static void publishEvent(EventManager manager, Stage stage)
+    public static ApplicationLifecycleEvent publishEvent(EventManager manager, Stage stage)
     {
-        manager.publishEvent(new ApplicationLifecycleEvent(stage));
+        ApplicationLifecycleEvent event = new ApplicationLifecycleEvent(stage);
+        manager.publishEvent(event);
+        return event;
     }
 
     /**
@@ -26,6 +26,19 @@ public interface EventConsolidator<E extends Event>
      */
     void addEvents(Collection<E> events);
 
+    /**
+     * Returns true if an event may be consolidated with the events already
+     * added. If it may not, the consolidated event for the events already
+     * added should be issued before the event is added to a new consolidation.
+     *
+     * @param event - the event.
+     * @return true if the event may be added.
+     */
+    default boolean canConsolidate(E event)
+    {
+        return true;
+    }
+
     /**
      * Complete the consolidation and constructs the consolidated event.
      *
@@ -0,0 +1,111 @@
+package io.opensphere.core.event;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.opensphere.core.util.lang.StringUtilities;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Counters describing how quickly the event manager delivers events to its
+ * subscribers. The queue depth is the number of deliveries that have been
+ * scheduled but not started; the dispatch latency is the time from an event
+ * being published until a subscriber starts handling it.
+ */
+@ThreadSafe
+public class EventDispatchMetrics
+{
+    /** The number of deliveries that have started. */
+    private final LongAdder myDeliveredCount = new LongAdder();
+
+    /** The largest dispatch latency seen, in nanoseconds. */
+    private final AtomicLong myMaxLatencyNanos = new AtomicLong();
+
+    /** The largest queue depth seen. */
+    private final AtomicInteger myPeakQueueDepth = new AtomicInteger();
+
+    /** The number of deliveries waiting to start. */
+    private final AtomicInteger myQueueDepth = new AtomicInteger();
+
+    /** The total dispatch latency, in nanoseconds. */
+    private final LongAdder myTotalLatencyNanos = new LongAdder();
+
+    /**
+     * Get the number of deliveries that have started.
+     *
+     * @return The count.
+     */
+    public long getDeliveredCount()
+    {
+        return myDeliveredCount.sum();
+    }
+
+    /**
+     * Get the largest dispatch latency seen.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getMaxLatencyNanos()
+    {
+        return myMaxLatencyNanos.get();
+    }
+
+    /**
+     * Get the mean dispatch latency.
+     *
+     * @return The latency in nanoseconds.
+     */
+    public long getMeanLatencyNanos()
+    {
+        final long count = myDeliveredCount.sum();
+        return count == 0 ? 0 : myTotalLatencyNanos.sum() / count;
+    }
+
+    /**
+     * Get the largest queue depth seen.
+     *
+     * @return The depth.
+     */
+    public int getPeakQueueDepth()
+    {
+        return myPeakQueueDepth.get();
+    }
+
+    /**
+     * Get the number of deliveries waiting to start.
+     *
+     * @return The depth.
+     */
+    public int getQueueDepth()
+    {
+        return myQueueDepth.get();
+    }
+
+    /**
+     * Record that a delivery has started.
+     *
+     * @param latencyNanos The time since the event was published.
+     */
+    void recordDelivered(long latencyNanos)
+    {
+        myQueueDepth.decrementAndGet();
+        myDeliveredCount.increment();
+        myTotalLatencyNanos.add(latencyNanos);
+        myMaxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    /** Record that a delivery has been scheduled. */
+    void recordQueued()
+    {
+        myPeakQueueDepth.accumulateAndGet(myQueueDepth.incrementAndGet(), Math::max);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Event dispatch: queued " + getQueueDepth() + " (peak " + getPeakQueueDepth() + "), delivered "
+                + getDeliveredCount() + StringUtilities.formatTimingMessage(", mean latency ", getMeanLatencyNanos())
+                + StringUtilities.formatTimingMessage(", max latency ", getMaxLatencyNanos());
+    }
+}
@@ -25,6 +25,23 @@ public interface EventManager
      */
     <T extends AbstractMultiStateEvent> void setEventState(T event, Event.State state);
 
+    /**
+     * Coalesce events of a particular type. Events whose class is exactly
+     * {@code type} are not delivered as they are published; they are added to
+     * the consolidator, and the consolidated event is delivered once the
+     * coalescing interval has passed. Publishing an event of the barrier type
+     * (or one of its descendants) delivers the coalesced events first, so
+     * that subscribers do not see the barrier event ahead of them.
+     *
+     * @param <T> The event type.
+     * @param type The event type.
+     * @param consolidator The consolidator, or {@code null} to stop
+     *            coalescing. Any events already coalesced are delivered.
+     * @param barrierType The barrier type, or {@code null} if there is none.
+     */
+    <T extends Event> void setConsolidator(Class<T> type, EventConsolidator<T> consolidator,
+            Class<? extends Event> barrierType);
+
     /**
      * Subscribe to events that are of a particular type or its descendants.
      * Only a weak reference will be held to the subscriber, so a strong
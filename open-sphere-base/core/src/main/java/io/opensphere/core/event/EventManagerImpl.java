@@ -3,67 +3,158 @@ package io.opensphere.core.event;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
 import io.opensphere.core.event.Event.State;
+import io.opensphere.core.util.concurrent.CommonTimer;
 import io.opensphere.core.util.concurrent.FixedThreadPoolExecutor;
+import io.opensphere.core.util.concurrent.SequentialExecutor;
 import io.opensphere.core.util.lang.NamedThreadFactory;
 import io.opensphere.core.util.lang.StringUtilities;
 import io.opensphere.core.util.ref.WeakReference;
+import net.jcip.annotations.GuardedBy;
 
 /**
  * Implementation of {@link EventManager}.
+ * <p>
+ * Subscribers are kept in copy-on-write lists, so publishing does not lock.
+ * By default events are delivered on a single thread, so every subscriber
+ * receives every event in the order it was published. Setting the
+ * {@code opensphere.events.threadCount} system property to more than one
+ * delivers events on a shared pool instead; each subscriber is then always
+ * notified through the same sequential lane, so it still receives events one
+ * at a time and in publication order, and a slow subscriber only delays the
+ * subscribers that share its lane. Different subscribers may then see events
+ * from different publishers in different orders, which is why several
+ * delivery threads must be asked for: subscribers that react to related
+ * events (such as a data type being added and its elements being added) may
+ * depend on every other subscriber having seen the same order.
+ * <p>
+ * High-rate event types may be coalesced (see
+ * {@link #setConsolidator(Class, EventConsolidator, Class)}), in which case
+ * their events are collected for {@code opensphere.events.coalesceMs}
+ * milliseconds (100 by default) and delivered as one consolidated event.
  */
 public class EventManagerImpl implements EventManager
 {
     /** Logger reference. */
     private static final Logger LOGGER = Logger.getLogger(EventManagerImpl.class);
 
-    /** Executor used to publish events. */
-    private final Executor myExecutor;
+    /** The number of sequential lanes per delivery thread. */
+    private static final int LANES_PER_THREAD = 8;
+
+    /** How long events are coalesced before being delivered. */
+    private final long myCoalesceMillis;
+
+    /** The coalescers for event types that are coalesced, by event type. */
+    private final Map<Class<? extends Event>, Coalescer<?>> myCoalescers = new ConcurrentHashMap<>();
+
+    /** The sequential lanes that subscribers are notified through. */
+    private final Executor[] myLanes;
+
+    /** The dispatch metrics. */
+    private final EventDispatchMetrics myMetrics = new EventDispatchMetrics();
 
     /** My event listeners. */
-    private final Map<Class<? extends Event>, Collection<WeakReference<EventListener<?>>>> mySubscribers = Collections
-            .synchronizedMap(new HashMap<Class<? extends Event>, Collection<WeakReference<EventListener<?>>>>());
+    private final Map<Class<? extends Event>, Subscribers> mySubscribers = new ConcurrentHashMap<>();
 
     /** Constructor. */
     public EventManagerImpl()
     {
+        this(Integer.getInteger("opensphere.events.threadCount", 1).intValue());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param threadCount The number of threads used to deliver events. If
+     *            this is one, all events are delivered in publication order.
+     */
+    EventManagerImpl(int threadCount)
+    {
+        this(threadCount, Long.getLong("opensphere.events.coalesceMs", 100L).longValue());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param threadCount The number of threads used to deliver events. If
+     *            this is one, all events are delivered in publication order.
+     * @param coalesceMillis How long events are coalesced before being
+     *            delivered.
+     */
+    EventManagerImpl(int threadCount, long coalesceMillis)
+    {
+        myCoalesceMillis = coalesceMillis;
         int priority = 1;
         int maxPriority = 1;
         NamedThreadFactory factory = new NamedThreadFactory("EventManager", priority, maxPriority);
-        myExecutor = new FixedThreadPoolExecutor(1, factory);
+        Executor executor = new FixedThreadPoolExecutor(Math.max(1, threadCount), factory);
+
+        if (threadCount > 1)
+        {
+            myLanes = new Executor[Integer.highestOneBit(threadCount * LANES_PER_THREAD)];
+            for (int index = 0; index < myLanes.length; ++index)
+            {
+                myLanes[index] = new SequentialExecutor(executor);
+            }
+        }
+        else
+        {
+            myLanes = new Executor[] { executor };
+        }
+    }
+
+    /**
+     * Get the metrics describing how quickly events are delivered.
+     *
+     * @return The metrics.
+     */
+    public EventDispatchMetrics getDispatchMetrics()
+    {
+        return myMetrics;
     }
 
     @Override
     public <T extends Event> void publishEvent(final T event)
     {
-        Class<?> type = event.getClass();
-
-        // Start with the concrete event type
-        while (Event.class.isAssignableFrom(type))
+        Coalescer<?> coalescer = myCoalescers.get(event.getClass());
+        if (!myCoalescers.isEmpty())
         {
-            @SuppressWarnings("unchecked")
-            Class<? extends Event> typedType = (Class<? extends Event>)type;
-            publishEvent(event, typedType);
-
-            for (Class<?> intf : type.getInterfaces())
+            for (Coalescer<?> other : myCoalescers.values())
             {
-                if (Event.class.isAssignableFrom(intf))
+                if (other != coalescer && other.isBarrier(event))
                 {
-                    @SuppressWarnings("unchecked")
-                    Class<? extends Event> typedIntf = (Class<? extends Event>)intf;
-                    publishEvent(event, typedIntf);
+                    other.flush();
                 }
             }
+        }
 
-            type = type.getSuperclass();
+        if (coalescer == null)
+        {
+            dispatch(event);
+        }
+        else
+        {
+            coalescer.add(event);
+        }
+    }
+
+    @Override
+    public <T extends Event> void setConsolidator(Class<T> type, EventConsolidator<T> consolidator,
+            Class<? extends Event> barrierType)
+    {
+        Coalescer<?> previous = consolidator == null ? myCoalescers.remove(type)
+                : myCoalescers.put(type, new Coalescer<>(type, consolidator, barrierType));
+        if (previous != null)
+        {
+            previous.flush();
         }
     }
 
@@ -77,40 +168,47 @@ public class EventManagerImpl implements EventManager
     @Override
     public <T extends Event> void subscribe(Class<T> type, EventListener<? super T> subscriber)
     {
-        Collection<WeakReference<EventListener<?>>> subscribers;
-        synchronized (mySubscribers)
-        {
-            subscribers = mySubscribers.get(type);
-            if (subscribers == null)
-            {
-                subscribers = new ArrayList<>();
-                mySubscribers.put(type, subscribers);
-            }
-        }
-        synchronized (subscribers)
-        {
-            subscribers.add(new WeakReference<EventListener<?>>(subscriber));
-        }
+        mySubscribers.computeIfAbsent(type, k -> new Subscribers()).add(subscriber);
     }
 
     @Override
     public <T extends Event> void unsubscribe(Class<T> type, EventListener<? super T> subscriber)
     {
-        Collection<WeakReference<EventListener<?>>> subscribers = mySubscribers.get(type);
+        Subscribers subscribers = mySubscribers.get(type);
         if (subscribers != null)
         {
-            synchronized (subscribers)
+            subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * Deliver an event to the subscribers of its type and of its super types,
+     * without coalescing it.
+     *
+     * @param event The event.
+     */
+    private void dispatch(Event event)
+    {
+        Class<?> type = event.getClass();
+
+        // Start with the concrete event type
+        while (Event.class.isAssignableFrom(type))
+        {
+            @SuppressWarnings("unchecked")
+            Class<? extends Event> typedType = (Class<? extends Event>)type;
+            publishEvent(event, typedType);
+
+            for (Class<?> intf : type.getInterfaces())
             {
-                for (Iterator<WeakReference<EventListener<?>>> iter = subscribers.iterator(); iter.hasNext();)
+                if (Event.class.isAssignableFrom(intf))
                 {
-                    WeakReference<EventListener<?>> ref = iter.next();
-                    if (ref.get() == subscriber)
-                    {
-                        iter.remove();
-                        break;
-                    }
+                    @SuppressWarnings("unchecked")
+                    Class<? extends Event> typedIntf = (Class<? extends Event>)intf;
+                    publishEvent(event, typedIntf);
                 }
             }
+
+            type = type.getSuperclass();
         }
     }
 
@@ -121,35 +219,35 @@ public class EventManagerImpl implements EventManager
      * @param type The event type.
      * @return The subscribers.
      */
-    protected <T extends Event> Collection<EventListener<T>> getSubscribers(Class<T> type)
+    public <T extends Event> Collection<EventListener<T>> getSubscribers(Class<T> type)
     {
-        // Remove any that have been garbage-collected.
-        Collection<EventListener<T>> subscribers;
-        Collection<WeakReference<EventListener<?>>> refs = mySubscribers.get(type);
-        if (refs != null)
+        Subscribers refs = mySubscribers.get(type);
+        if (refs == null)
+        {
+            return Collections.emptySet();
+        }
+
+        List<WeakReference<EventListener<?>>> snapshot = refs.getSnapshot();
+        Collection<EventListener<T>> subscribers = new ArrayList<>(snapshot.size());
+        boolean collected = false;
+        for (WeakReference<EventListener<?>> ref : snapshot)
         {
-            synchronized (refs)
+            @SuppressWarnings("unchecked")
+            EventListener<T> subscriber = (EventListener<T>)ref.get();
+            if (subscriber == null)
             {
-                subscribers = new ArrayList<>(refs.size());
-                for (Iterator<WeakReference<EventListener<?>>> iter = refs.iterator(); iter.hasNext();)
-                {
-                    WeakReference<EventListener<?>> ref = iter.next();
-                    @SuppressWarnings("unchecked")
-                    EventListener<T> subscriber = (EventListener<T>)ref.get();
-                    if (subscriber == null)
-                    {
-                        iter.remove();
-                    }
-                    else
-                    {
-                        subscribers.add(subscriber);
-                    }
-                }
+                collected = true;
+            }
+            else
+            {
+                subscribers.add(subscriber);
             }
         }
-        else
+
+        // Remove any that have been garbage-collected.
+        if (collected)
         {
-            subscribers = Collections.emptySet();
+            refs.prune();
         }
         return subscribers;
     }
@@ -164,19 +262,46 @@ public class EventManagerImpl implements EventManager
      */
     protected <S extends Event, T extends Event> void publishEvent(final S event, Class<T> type)
     {
-        final Collection<EventListener<T>> subscribers = getSubscribers(type);
+        this.<T>deliver(event, getSubscribers(type));
+    }
 
+    /**
+     * Publish an event to some of its subscribers only, such as subscribers
+     * that were added after the event was first published.
+     *
+     * @param <T> The type of the event.
+     * @param event The event.
+     * @param subscribers The subscribers to notify.
+     */
+    public <T extends Event> void publishEvent(T event, Collection<? extends EventListener<? super T>> subscribers)
+    {
+        this.<T>deliver(event, subscribers);
+    }
+
+    /**
+     * Queue notifications of an event to some subscribers.
+     *
+     * @param <T> The type of listener. This must be assignable from the type
+     *            of the event.
+     * @param event The event.
+     * @param subscribers The subscribers.
+     */
+    private <T extends Event> void deliver(final Event event, Collection<? extends EventListener<? super T>> subscribers)
+    {
         if (!subscribers.isEmpty())
         {
+            final long publishTime = System.nanoTime();
             for (final EventListener<? super T> subscriber : subscribers)
             {
-                myExecutor.execute(() ->
+                myMetrics.recordQueued();
+                getLane(subscriber).execute(() ->
                 {
                     try
                     {
                         long start = System.nanoTime();
+                        myMetrics.recordDelivered(start - publishTime);
 
-                        // This is safe as long as T is assignable from S.
+                        // This is safe as long as T is assignable from the event type.
                         @SuppressWarnings("unchecked")
                         T castEvent = (T)event;
                         subscriber.notify(castEvent);
@@ -190,6 +315,10 @@ public class EventManagerImpl implements EventManager
                             String message = StringUtilities.formatTimingMessage(subscriberMsgProxy + " took ", deltaNS)
                                     + " to handle event notification for " + castEvent;
                             LOGGER.log(deltaNS > 1_000_000_000 ? Level.ERROR : Level.WARN, message);
+                            if (LOGGER.isDebugEnabled())
+                            {
+                                LOGGER.debug(myMetrics);
+                            }
                         }
                     }
                     catch (RuntimeException e)
@@ -200,4 +329,184 @@ public class EventManagerImpl implements EventManager
             }
         }
     }
+
+    /**
+     * Get the sequential lane used to notify a subscriber. The lane depends
+     * only on the identity of the subscriber, so all of its notifications are
+     * run in order. With a single lane, all notifications are run in order.
+     *
+     * @param subscriber The subscriber.
+     * @return The lane.
+     */
+    private Executor getLane(EventListener<?> subscriber)
+    {
+        int hash = System.identityHashCode(subscriber);
+        return myLanes[(hash ^ hash >>> 16) & myLanes.length - 1];
+    }
+
+    /**
+     * Collects events of one type in a consolidator, and delivers the
+     * consolidated event once the coalescing interval has passed.
+     *
+     * @param <T> The event type.
+     */
+    private final class Coalescer<T extends Event>
+    {
+        /** The type of the events that flush this coalescer, or null. */
+        private final Class<? extends Event> myBarrierType;
+
+        /** The consolidator for the current interval. */
+        @GuardedBy("this")
+        private EventConsolidator<T> myConsolidator;
+
+        /** If a flush has been scheduled for the current interval. */
+        @GuardedBy("this")
+        private boolean myFlushScheduled;
+
+        /** The event type. */
+        private final Class<T> myType;
+
+        /**
+         * Constructor.
+         *
+         * @param type The event type.
+         * @param consolidator The consolidator.
+         * @param barrierType The type of the events that flush this
+         *            coalescer, or null.
+         */
+        public Coalescer(Class<T> type, EventConsolidator<T> consolidator, Class<? extends Event> barrierType)
+        {
+            myType = type;
+            myConsolidator = consolidator;
+            myBarrierType = barrierType;
+        }
+
+        /**
+         * Add an event to the current interval. If the event cannot be
+         * consolidated with the events already added, those are delivered
+         * first.
+         *
+         * @param event The event, which must be of my type.
+         */
+        public synchronized void add(Event event)
+        {
+            T typedEvent = myType.cast(event);
+            if (myConsolidator.hadEvents() && !myConsolidator.canConsolidate(typedEvent))
+            {
+                flush();
+            }
+            myConsolidator.addEvent(typedEvent);
+            if (!myFlushScheduled)
+            {
+                myFlushScheduled = true;
+                CommonTimer.schedule(this::intervalElapsed, myCoalesceMillis);
+            }
+        }
+
+        /**
+         * Deliver the consolidated event for the current interval. The
+         * consolidated event is dispatched directly, so it is not coalesced
+         * again even if it has my type.
+         */
+        public synchronized void flush()
+        {
+            if (myConsolidator.hadEvents())
+            {
+                Event consolidated = myConsolidator.createConsolidatedEvent();
+                myConsolidator = myConsolidator.newInstance();
+                dispatch(consolidated);
+            }
+        }
+
+        /**
+         * Get if an event must flush this coalescer before it is delivered.
+         *
+         * @param event The event.
+         * @return True if the event is a barrier.
+         */
+        public boolean isBarrier(Event event)
+        {
+            return myBarrierType != null && myBarrierType.isInstance(event);
+        }
+
+        /** Deliver the consolidated event once the coalescing interval has passed. */
+        private synchronized void intervalElapsed()
+        {
+            myFlushScheduled = false;
+            flush();
+        }
+    }
+
+    /** A copy-on-write list of weakly referenced subscribers. */
+    private static final class Subscribers
+    {
+        /** The current subscribers. */
+        private volatile List<WeakReference<EventListener<?>>> mySnapshot = Collections.emptyList();
+
+        /**
+         * Add a subscriber.
+         *
+         * @param subscriber The subscriber.
+         */
+        public synchronized void add(EventListener<?> subscriber)
+        {
+            List<WeakReference<EventListener<?>>> list = copyLive(mySnapshot.size() + 1);
+            list.add(new WeakReference<EventListener<?>>(subscriber));
+            mySnapshot = list;
+        }
+
+        /**
+         * Get the current subscribers. The returned list must not be modified.
+         *
+         * @return The subscribers.
+         */
+        public List<WeakReference<EventListener<?>>> getSnapshot()
+        {
+            return mySnapshot;
+        }
+
+        /** Remove subscribers that have been garbage-collected. */
+        public synchronized void prune()
+        {
+            mySnapshot = copyLive(mySnapshot.size());
+        }
+
+        /**
+         * Remove a subscriber.
+         *
+         * @param subscriber The subscriber.
+         */
+        public synchronized void remove(EventListener<?> subscriber)
+        {
+            List<WeakReference<EventListener<?>>> list = copyLive(mySnapshot.size());
+            for (int index = 0; index < list.size(); ++index)
+            {
+                if (list.get(index).get() == subscriber)
+                {
+                    list.remove(index);
+                    break;
+                }
+            }
+            mySnapshot = list;
+        }
+
+        /**
+         * Copy the subscribers that have not been garbage-collected.
+         *
+         * @param capacity The capacity of the new list.
+         * @return The new list.
+         */
+        private List<WeakReference<EventListener<?>>> copyLive(int capacity)
+        {
+            List<WeakReference<EventListener<?>>> list = new ArrayList<>(capacity);
+            for (WeakReference<EventListener<?>> ref : mySnapshot)
+            {
+                if (ref.get() != null)
+                {
+                    list.add(ref);
+                }
+            }
+            return list;
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package io.opensphere.core.export;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import io.opensphere.core.util.collections.New;
+
+/**
+ * An {@link ExportCursor} over objects that are already in memory.
+ *
+ * @param <T> The type of the objects.
+ */
+public class CollectionExportCursor<T> implements ExportCursor<T>
+{
+    /** The number of objects in each batch. */
+    private final int myBatchSize;
+
+    /** The number of objects. */
+    private final int myCount;
+
+    /** Iterates over the objects. */
+    private final Iterator<? extends T> myIterator;
+
+    /**
+     * Constructor.
+     *
+     * @param objects The objects.
+     * @param batchSize The number of objects in each batch.
+     */
+    public CollectionExportCursor(Collection<? extends T> objects, int batchSize)
+    {
+        myCount = objects.size();
+        myIterator = objects.iterator();
+        myBatchSize = batchSize;
+    }
+
+    @Override
+    public int getCount()
+    {
+        return myCount;
+    }
+
+    @Override
+    public List<T> nextBatch()
+    {
+        if (!myIterator.hasNext())
+        {
+            return Collections.emptyList();
+        }
+
+        List<T> batch = New.list(myBatchSize);
+        while (batch.size() < myBatchSize && myIterator.hasNext())
+        {
+            batch.add(myIterator.next());
+        }
+        return batch;
+    }
+}
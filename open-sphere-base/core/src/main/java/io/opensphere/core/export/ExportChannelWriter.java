@@ -0,0 +1,98 @@
+package io.opensphere.core.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writes formatted text to a channel through a buffer, encoding it with a
+ * character set. The channel is not closed by {@link #close()}; the caller
+ * that opened it is responsible for that.
+ */
+public class ExportChannelWriter implements StreamingExportEngine.BatchWriter<CharSequence>, Closeable
+{
+    /** The default buffer size. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** The buffer for the encoded bytes. */
+    private final ByteBuffer myBuffer;
+
+    /** The channel to write to. */
+    private final WritableByteChannel myChannel;
+
+    /** The character set encoder. */
+    private final CharsetEncoder myEncoder;
+
+    /**
+     * Constructor.
+     *
+     * @param channel The channel to write to.
+     * @param charset The character set for the text.
+     */
+    public ExportChannelWriter(WritableByteChannel channel, Charset charset)
+    {
+        myChannel = channel;
+        myEncoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        myBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Writes the buffered bytes to the channel. The channel is not closed.
+     *
+     * @throws IOException If the bytes cannot be written.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        drain();
+    }
+
+    @Override
+    public void write(CharSequence text) throws IOException
+    {
+        CharBuffer chars = CharBuffer.wrap(text);
+        myEncoder.reset();
+        CoderResult result;
+        do
+        {
+            result = myEncoder.encode(chars, myBuffer, true);
+            if (result.isOverflow())
+            {
+                drain();
+            }
+            else if (result.isError())
+            {
+                throw new CharacterCodingException();
+            }
+        }
+        while (result.isOverflow());
+
+        while (myEncoder.flush(myBuffer).isOverflow())
+        {
+            drain();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     *
+     * @throws IOException If the bytes cannot be written.
+     */
+    private void drain() throws IOException
+    {
+        myBuffer.flip();
+        while (myBuffer.hasRemaining())
+        {
+            myChannel.write(myBuffer);
+        }
+        myBuffer.clear();
+    }
+}
@@ -0,0 +1,27 @@
+package io.opensphere.core.export;
+
+import java.util.List;
+
+/**
+ * A cursor over the objects being exported that hands them out in batches, so
+ * that an export does not need all of them in memory at once.
+ *
+ * @param <T> The type of the objects.
+ */
+public interface ExportCursor<T>
+{
+    /**
+     * Gets the total number of objects the cursor will return.
+     *
+     * @return The number of objects.
+     */
+    int getCount();
+
+    /**
+     * Gets the next batch of objects.
+     *
+     * @return The next batch, or an empty list if there are no more objects.
+     * @throws ExportException If the objects could not be retrieved.
+     */
+    List<T> nextBatch() throws ExportException;
+}
@@ -0,0 +1,265 @@
+package io.opensphere.core.export;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.lang.NamedThreadFactory;
+import io.opensphere.core.util.taskactivity.CancellableTaskActivity;
+
+/**
+ * Exports objects in batches: batches are pulled from an
+ * {@link ExportCursor}, formatted in parallel, and handed to a writer one at a
+ * time in cursor order. Only a bounded number of batches are in flight at
+ * once, so the memory needed does not depend on the number of objects.
+ */
+public class StreamingExportEngine
+{
+    /** The default number of objects in a batch. */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /** The default engine, which formats on a shared pool. */
+    private static final StreamingExportEngine ourDefault;
+
+    /** The executor that formats the batches. */
+    private final ExecutorService myExecutor;
+
+    /** The maximum number of batches that are read but not yet written. */
+    private final int myMaxInFlight;
+
+    static
+    {
+        int threadCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("ExportFormatter"));
+        executor.allowCoreThreadTimeOut(true);
+        ourDefault = new StreamingExportEngine(executor, threadCount * 2);
+    }
+
+    /**
+     * Gets the default engine.
+     *
+     * @return The default engine.
+     */
+    public static StreamingExportEngine getDefault()
+    {
+        return ourDefault;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param executor The executor that formats the batches.
+     * @param maxInFlight The maximum number of batches that are read but not
+     *            yet written.
+     */
+    public StreamingExportEngine(ExecutorService executor, int maxInFlight)
+    {
+        myExecutor = executor;
+        myMaxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Exports the objects from a cursor.
+     *
+     * @param <T> The type of the objects.
+     * @param <R> The type of a formatted batch.
+     * @param cursor The cursor over the objects.
+     * @param formatter Formats a batch. This is called concurrently for
+     *            different batches, so it must be thread-safe.
+     * @param writer Writes the formatted batches, in cursor order.
+     * @param activity Optional activity that receives progress and can cancel
+     *            the export.
+     * @return The number of objects exported.
+     * @throws IOException If the writer fails.
+     * @throws ExportException If reading or formatting fails, or the export
+     *             is cancelled.
+     */
+    public <T, R> int export(ExportCursor<? extends T> cursor, BatchFormatter<T, R> formatter, BatchWriter<? super R> writer,
+            @Nullable CancellableTaskActivity activity)
+        throws IOException, ExportException
+    {
+        int total = cursor.getCount();
+        int read = 0;
+        int written = 0;
+        Deque<Pending<R>> pending = New.deque();
+        try
+        {
+            boolean exhausted = false;
+            while (!exhausted || !pending.isEmpty())
+            {
+                checkCancelled(activity);
+
+                while (!exhausted && pending.size() < myMaxInFlight)
+                {
+                    List<? extends T> batch = cursor.nextBatch();
+                    if (batch.isEmpty())
+                    {
+                        exhausted = true;
+                    }
+                    else
+                    {
+                        int offset = read;
+                        pending.add(new Pending<>(batch.size(), myExecutor.submit(() -> formatter.format(batch, offset))));
+                        read += batch.size();
+                    }
+                }
+
+                Pending<R> next = pending.poll();
+                if (next != null)
+                {
+                    writer.write(await(next.getFuture()));
+                    written += next.getSize();
+                    if (activity != null && total > 0)
+                    {
+                        activity.setProgress((double)written / total);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            for (Pending<R> remaining : pending)
+            {
+                remaining.getFuture().cancel(true);
+            }
+        }
+
+        return written;
+    }
+
+    /**
+     * Waits for a batch to be formatted.
+     *
+     * @param <R> The type of a formatted batch.
+     * @param future The future for the formatted batch.
+     * @return The formatted batch.
+     * @throws ExportException If formatting failed or the wait was
+     *             interrupted.
+     */
+    private <R> R await(Future<R> future) throws ExportException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            throw new ExportException("Export cancelled.", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof ExportException)
+            {
+                throw (ExportException)e.getCause();
+            }
+            throw new ExportException("Failed to format export: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /**
+     * Throws if the export has been cancelled.
+     *
+     * @param activity The optional activity.
+     * @throws ExportException If the export has been cancelled.
+     */
+    private void checkCancelled(@Nullable CancellableTaskActivity activity) throws ExportException
+    {
+        if (activity != null && activity.isCancelled() || Thread.currentThread().isInterrupted())
+        {
+            throw new ExportException("Export cancelled.");
+        }
+    }
+
+    /**
+     * Formats a batch of objects for export.
+     *
+     * @param <T> The type of the objects.
+     * @param <R> The type of a formatted batch.
+     */
+    @FunctionalInterface
+    public interface BatchFormatter<T, R>
+    {
+        /**
+         * Formats a batch.
+         *
+         * @param batch The batch.
+         * @param offset The index of the batch's first object among all the
+         *            objects being exported.
+         * @return The formatted batch.
+         * @throws ExportException If the batch cannot be formatted.
+         */
+        R format(List<? extends T> batch, int offset) throws ExportException;
+    }
+
+    /**
+     * Writes formatted batches.
+     *
+     * @param <R> The type of a formatted batch.
+     */
+    @FunctionalInterface
+    public interface BatchWriter<R>
+    {
+        /**
+         * Writes a formatted batch.
+         *
+         * @param formatted The formatted batch.
+         * @throws IOException If the batch cannot be written.
+         */
+        void write(R formatted) throws IOException;
+    }
+
+    /**
+     * A batch that is being formatted.
+     *
+     * @param <R> The type of a formatted batch.
+     */
+    private static class Pending<R>
+    {
+        /** The future for the formatted batch. */
+        private final Future<R> myFuture;
+
+        /** The number of objects in the batch. */
+        private final int mySize;
+
+        /**
+         * Constructor.
+         *
+         * @param size The number of objects in the batch.
+         * @param future The future for the formatted batch.
+         */
+        public Pending(int size, Future<R> future)
+        {
+            mySize = size;
+            myFuture = future;
+        }
+
+        /**
+         * Gets the future for the formatted batch.
+         *
+         * @return The future.
+         */
+        public Future<R> getFuture()
+        {
+            return myFuture;
+        }
+
+        /**
+         * Gets the number of objects in the batch.
+         *
+         * @return The number of objects.
+         */
+        public int getSize()
+        {
+            return mySize;
+        }
+    }
+}
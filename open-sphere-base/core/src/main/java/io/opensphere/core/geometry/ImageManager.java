@@ -19,6 +19,7 @@ import io.opensphere.core.image.Image;
 import io.opensphere.core.image.ImageProvider;
 import io.opensphere.core.image.ImmediateImageProvider;
 import io.opensphere.core.image.ObservableImageProvider;
+import io.opensphere.core.image.TileRecord;
 import io.opensphere.core.util.ChangeSupport;
 import io.opensphere.core.util.StrongChangeSupport;
 import io.opensphere.core.util.TimeBudget;
@@ -324,6 +325,68 @@ public class ImageManager
         return getDirtyRegions(DIRTY_REGION_UPDATER.getAndSet(this, null));
     }
 
+    /**
+     * Request the image data in the background before anybody needs it, so
+     * that it is cached when it is requested. Unlike
+     * {@link #requestImageData(Comparator, Object, ExecutorService, TimeBudget)}
+     * this does not require an observer. This has no effect if the image is
+     * cached, a request is already active, or the image provider can provide
+     * images immediately.
+     *
+     * @param <T> The type of the subject.
+     * @param subject The geometry whose image is requested.
+     * @param executor The executor to use when requesting data from the image
+     *            provider.
+     * @return {@code true} if a request was started.
+     */
+    public final <T> boolean prefetchImageData(T subject, ExecutorService executor)
+    {
+        Utilities.checkNull(executor, "executor");
+        if (myImageProvider == null || myImageProvider instanceof ImmediateImageProvider)
+        {
+            return false;
+        }
+        synchronized (this)
+        {
+            if (getCachedImageData() != null || myFuture != null)
+            {
+                return false;
+            }
+            myRequestChangeSupport.notifyListeners(listener -> listener.requestStarted());
+            myTask = new DataRequester<T>(null, subject, true);
+            myFuture = executor.submit(myTask);
+            if (myFuture.isDone())
+            {
+                myFuture = null;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Dispose the cached image if nobody is observing this manager. This
+     * releases images that were prefetched but never needed.
+     *
+     * @return {@code true} if an image was released.
+     */
+    public boolean releaseUnobservedImageData()
+    {
+        synchronized (myChangeSupport)
+        {
+            if (!myChangeSupport.isEmpty())
+            {
+                return false;
+            }
+            ImageGroup images = pollCachedImageData();
+            if (images == null)
+            {
+                return false;
+            }
+            images.dispose();
+            return true;
+        }
+    }
+
     /**
      * Remove an observer. If I have an image request active and the last
      * observer is removed, I will cancel the request.
@@ -552,13 +615,13 @@ public class ImageManager
             if (myFuture == null)
             {
                 myRequestChangeSupport.notifyListeners(listener -> listener.requestStarted());
-                myTask = new DataRequester<>(comparator, comparable);
+                myTask = new DataRequester<>(comparator, comparable, false);
                 myFuture = executor.submit(myTask);
             }
             else
             {
                 // Cancel the current task if the new one has higher priority.
-                DataRequester<T> task = new DataRequester<>(comparator, comparable);
+                DataRequester<T> task = new DataRequester<>(comparator, comparable, false);
                 @SuppressWarnings("unchecked")
                 DataRequester<T> currentTask = (DataRequester<T>)myTask;
                 if (task.compareTo(currentTask) < 0 && myFuture.cancel(false))
@@ -566,6 +629,12 @@ public class ImageManager
                     myTask = task;
                     myFuture = executor.submit(myTask);
                 }
+                else
+                {
+                    // Somebody needs the image now, so it is no longer a
+                    // prefetch.
+                    currentTask.myPrefetch = false;
+                }
             }
             future = myFuture;
 
@@ -768,7 +837,8 @@ public class ImageManager
      *
      * @param <T> The type provided to the comparator.
      */
-    private final class DataRequester<T> implements Runnable, Comparable<DataRequester<T>>
+    private final class DataRequester<T>
+            implements Runnable, Comparable<DataRequester<T>>, TileRequestScheduler.TileRequest
     {
         /** The object to use in comparisons. */
         private final T myComparable;
@@ -776,16 +846,34 @@ public class ImageManager
         /** The comparator. */
         private final Comparator<? super T> myComparator;
 
+        /** If the image is being requested before anybody needs it. */
+        private volatile boolean myPrefetch;
+
         /**
          * Constructor.
          *
          * @param comparator The comparator that prioritizes the data requests.
          * @param comparable The object to use in the comparator.
+         * @param prefetch If the image is being requested before anybody needs
+         *            it.
          */
-        public DataRequester(Comparator<? super T> comparator, T comparable)
+        public DataRequester(Comparator<? super T> comparator, T comparable, boolean prefetch)
         {
             myComparable = comparable;
             myComparator = comparator;
+            myPrefetch = prefetch;
+        }
+
+        @Override
+        public void cancel()
+        {
+            synchronized (ImageManager.this)
+            {
+                if (myTask == this)
+                {
+                    cancelRequest(true);
+                }
+            }
         }
 
         @Override
@@ -809,6 +897,18 @@ public class ImageManager
             return super.equals(obj);
         }
 
+        @Override
+        public Object getServer()
+        {
+            return myImageProvider == null ? ImageManager.this : myImageProvider;
+        }
+
+        @Override
+        public Object getSubject()
+        {
+            return myComparable;
+        }
+
         @Override
         @SuppressWarnings("PMD.OverrideMerelyCallsSuper")
         public int hashCode()
@@ -816,9 +916,35 @@ public class ImageManager
             return super.hashCode();
         }
 
+        @Override
+        public boolean isPrefetch()
+        {
+            return myPrefetch;
+        }
+
+        @Override
+        public void releaseIfUnused()
+        {
+            releaseUnobservedImageData();
+        }
+
+        @Override
+        public void resubmit(ExecutorService executor)
+        {
+            requestImageFromProvider(myComparator, myComparable, executor, TimeBudget.ZERO);
+        }
+
         @Override
         public void run()
         {
+            // Prefetched images may be held for a while without being
+            // displayed, so they do not take buffers from the pools shared
+            // with the visible tiles.
+            boolean prefetch = myPrefetch;
+            if (prefetch)
+            {
+                TileRecord.setThreadPooled(false);
+            }
             try
             {
                 fetchImageData();
@@ -830,6 +956,10 @@ public class ImageManager
             }
             finally
             {
+                if (prefetch)
+                {
+                    TileRecord.setThreadPooled(true);
+                }
                 synchronized (ImageManager.this)
                 {
                     if (myFuture != null)
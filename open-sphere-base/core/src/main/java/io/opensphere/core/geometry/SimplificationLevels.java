@@ -0,0 +1,655 @@
+package io.opensphere.core.geometry;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import gnu.trove.list.array.TIntArrayList;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.model.GeographicPosition;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.util.Constants;
+import io.opensphere.core.util.MathUtil;
+import io.opensphere.core.util.SizeProvider;
+
+/**
+ * Precomputed simplifications of the vertex lists of a geometry at several
+ * levels of detail. Each level is stored as the indices of the vertices that
+ * are kept in each part (the outer line or ring and any holes), and levels are
+ * nested, so a coarser level keeps a subset of the vertices of a finer level.
+ * <p>
+ * The simplification is Visvalingam-Whyatt: vertices are removed in order of
+ * the area of the triangle they form with their neighbors. To preserve
+ * topology, a vertex is not removed if another remaining vertex of any part
+ * lies within its triangle, since the new segment could then cross another
+ * segment. The first and last vertex of each part are never removed, nor are
+ * vertices that occur more than once in the geometry, so edges shared between
+ * parts (or a ring's closing vertex) simplify consistently.
+ */
+public final class SimplificationLevels implements SizeProvider
+{
+    /**
+     * The area of a removed vertex's triangle, in square pixels, below which
+     * the removal is not noticeable.
+     */
+    private static final double AREA_TOLERANCE_PIXELS = 0.5;
+
+    /** The maximum number of levels. */
+    private static final int MAX_LEVELS = 12;
+
+    /** The bounding box of all of the parts. */
+    private final GeographicBoundingBox myBoundingBox;
+
+    /** The vertex indices for each level and part. */
+    private final int[][][] myIndices;
+
+    /**
+     * The minimum resolution (in degrees per pixel) at which each level may
+     * be used, in increasing order.
+     */
+    private final double[] myResolutions;
+
+    /**
+     * Compute the simplification levels for some lines or rings.
+     *
+     * @param parts The vertices of each part of the geometry.
+     * @param minimumVertices The fewest vertices to leave in each part.
+     * @return The simplification levels.
+     */
+    public static SimplificationLevels create(List<? extends List<? extends GeographicPosition>> parts, int minimumVertices)
+    {
+        int count = 0;
+        int[] offsets = new int[parts.size() + 1];
+        for (int part = 0; part < parts.size(); ++part)
+        {
+            offsets[part] = count;
+            count += parts.get(part).size();
+        }
+        offsets[parts.size()] = count;
+
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        Map<Point2D, Integer> occurrences = new HashMap<>();
+        for (int part = 0; part < parts.size(); ++part)
+        {
+            List<? extends GeographicPosition> vertices = parts.get(part);
+            for (int index = 0; index < vertices.size(); ++index)
+            {
+                LatLonAlt lla = vertices.get(index).getLatLonAlt();
+                int vertex = offsets[part] + index;
+                x[vertex] = lla.getLonD();
+                y[vertex] = lla.getLatD();
+                minX = Math.min(minX, x[vertex]);
+                minY = Math.min(minY, y[vertex]);
+                maxX = Math.max(maxX, x[vertex]);
+                maxY = Math.max(maxY, y[vertex]);
+                occurrences.merge(new Point2D.Double(x[vertex], y[vertex]), Integer.valueOf(1), (a, b) -> Integer.valueOf(a + b));
+            }
+        }
+        if (count == 0)
+        {
+            return new SimplificationLevels(null, new double[0], new int[0][][]);
+        }
+
+        boolean[] pinned = new boolean[count];
+        for (int part = 0; part < parts.size(); ++part)
+        {
+            if (offsets[part + 1] > offsets[part])
+            {
+                pinned[offsets[part]] = true;
+                pinned[offsets[part + 1] - 1] = true;
+            }
+        }
+        for (int vertex = 0; vertex < count; ++vertex)
+        {
+            pinned[vertex] |= occurrences.get(new Point2D.Double(x[vertex], y[vertex])).intValue() > 1;
+        }
+
+        double[] areas = new Eliminator(x, y, offsets, pinned, Math.max(2, minimumVertices), minX, minY, maxX, maxY)
+                .computeEffectiveAreas();
+
+        GeographicBoundingBox bbox = new GeographicBoundingBox(LatLonAlt.createFromDegrees(minY, minX),
+                LatLonAlt.createFromDegrees(maxY, maxX));
+        return createLevels(bbox, areas, offsets);
+    }
+
+    /**
+     * Build the levels from the effective areas of the vertices. Each level
+     * removes about half of the vertices remaining in the previous level.
+     *
+     * @param bbox The bounding box of the parts.
+     * @param areas The effective areas.
+     * @param offsets The index of the first vertex of each part, followed by
+     *            the total vertex count.
+     * @return The levels.
+     */
+    private static SimplificationLevels createLevels(GeographicBoundingBox bbox, double[] areas, int[] offsets)
+    {
+        double[] sorted = Arrays.stream(areas).filter(area -> area < Double.POSITIVE_INFINITY).sorted().toArray();
+
+        List<Double> resolutions = new ArrayList<>();
+        List<int[][]> levels = new ArrayList<>();
+        int remaining = areas.length;
+        int removed = 0;
+        while (levels.size() < MAX_LEVELS && removed < sorted.length)
+        {
+            removed = Math.min(sorted.length, removed + (remaining + 1) / 2);
+
+            // Removals with equal areas must all be in the same level for the
+            // levels to be nested.
+            while (removed < sorted.length && sorted[removed] == sorted[removed - 1])
+            {
+                ++removed;
+            }
+            double threshold = sorted[removed - 1];
+            remaining = areas.length - removed;
+
+            int[][] indices = new int[offsets.length - 1][];
+            for (int part = 0; part < indices.length; ++part)
+            {
+                TIntArrayList kept = new TIntArrayList();
+                for (int vertex = offsets[part]; vertex < offsets[part + 1]; ++vertex)
+                {
+                    if (areas[vertex] > threshold)
+                    {
+                        kept.add(vertex - offsets[part]);
+                    }
+                }
+                indices[part] = kept.toArray();
+            }
+            levels.add(indices);
+            resolutions.add(Double.valueOf(Math.sqrt(threshold / AREA_TOLERANCE_PIXELS)));
+        }
+
+        return new SimplificationLevels(bbox, resolutions.stream().mapToDouble(Double::doubleValue).toArray(),
+                levels.toArray(new int[levels.size()][][]));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param bbox The bounding box of all of the parts.
+     * @param resolutions The minimum resolution for each level.
+     * @param indices The vertex indices for each level and part.
+     */
+    private SimplificationLevels(GeographicBoundingBox bbox, double[] resolutions, int[][][] indices)
+    {
+        myBoundingBox = bbox;
+        myResolutions = resolutions;
+        myIndices = indices;
+    }
+
+    /**
+     * Get the bounding box of all of the parts.
+     *
+     * @return The bounding box, or {@code null} if there are no vertices.
+     */
+    public GeographicBoundingBox getBoundingBox()
+    {
+        return myBoundingBox;
+    }
+
+    /**
+     * Get the indices of the vertices kept in a part at a level.
+     *
+     * @param level The level.
+     * @param part The index of the part.
+     * @return The indices, in increasing order.
+     */
+    public int[] getIndices(int level, int part)
+    {
+        return myIndices[level][part];
+    }
+
+    /**
+     * Get the number of levels.
+     *
+     * @return The number of levels.
+     */
+    public int getLevelCount()
+    {
+        return myResolutions.length;
+    }
+
+    /**
+     * Get the minimum resolution at which a level may be used.
+     *
+     * @param level The level.
+     * @return The resolution, in degrees per pixel.
+     */
+    public double getResolution(int level)
+    {
+        return myResolutions[level];
+    }
+
+    @Override
+    public long getSizeBytes()
+    {
+        long size = MathUtil.roundUpTo(Constants.OBJECT_SIZE_BYTES + 3 * Constants.REFERENCE_SIZE_BYTES,
+                Constants.MEMORY_BLOCK_SIZE_BYTES) + Constants.ARRAY_SIZE_BYTES
+                + myResolutions.length * (long)Constants.DOUBLE_SIZE_BYTES;
+        for (int[][] level : myIndices)
+        {
+            size += Constants.ARRAY_SIZE_BYTES;
+            for (int[] part : level)
+            {
+                size += Constants.ARRAY_SIZE_BYTES + part.length * (long)Constants.INT_SIZE_BYTES;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Select the coarsest level that may be used at a resolution.
+     *
+     * @param degreesPerPixel The resolution of the view.
+     * @return The level, or -1 if the full vertex lists should be used.
+     */
+    public int selectLevel(double degreesPerPixel)
+    {
+        int level = -1;
+        while (level + 1 < myResolutions.length && myResolutions[level + 1] <= degreesPerPixel)
+        {
+            ++level;
+        }
+        return level;
+    }
+
+    /**
+     * Get the vertices of a part at a level.
+     *
+     * @param <T> The type of the vertices.
+     * @param vertices The full vertex list of the part.
+     * @param level The level, or -1 for the full list.
+     * @param part The index of the part.
+     * @return The vertices.
+     */
+    public <T> List<T> selectVertices(List<T> vertices, int level, int part)
+    {
+        if (level < 0)
+        {
+            return vertices;
+        }
+        int[] indices = myIndices[level][part];
+        List<T> result = new ArrayList<>(indices.length);
+        for (int index : indices)
+        {
+            result.add(vertices.get(index));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Removes vertices in order of increasing effective area, recording the
+     * area at which each vertex was removed.
+     */
+    private static final class Eliminator
+    {
+        /** The effective areas of the vertices. */
+        private final double[] myAreas;
+
+        /** The cells of the spatial grid, each containing vertex indices. */
+        private final TIntArrayList[] myCells;
+
+        /** The number of columns in the spatial grid. */
+        private final int myColumns;
+
+        /** The width and height of the grid cells. */
+        private final double myCellHeight;
+
+        /** The width of the grid cells. */
+        private final double myCellWidth;
+
+        /** The minimum x-coordinate of the grid. */
+        private final double myMinX;
+
+        /** The minimum y-coordinate of the grid. */
+        private final double myMinY;
+
+        /** The fewest vertices to leave in each part. */
+        private final int myMinimumVertices;
+
+        /** The next remaining vertex in the same part, or -1. */
+        private final int[] myNext;
+
+        /** The index of the first vertex of each part. */
+        private final int[] myOffsets;
+
+        /** Which vertices may not be removed. */
+        private final boolean[] myPinned;
+
+        /** The previous remaining vertex in the same part, or -1. */
+        private final int[] myPrevious;
+
+        /** Which vertices have been removed. */
+        private final boolean[] myRemoved;
+
+        /** The number of rows in the spatial grid. */
+        private final int myRows;
+
+        /** Stamps for each vertex, used to discard stale queue entries. */
+        private final int[] myStamps;
+
+        /** The x-coordinates of the vertices. */
+        private final double[] myX;
+
+        /** The y-coordinates of the vertices. */
+        private final double[] myY;
+
+        /**
+         * Constructor.
+         *
+         * @param x The x-coordinates of the vertices.
+         * @param y The y-coordinates of the vertices.
+         * @param offsets The index of the first vertex of each part, followed
+         *            by the total vertex count.
+         * @param pinned Which vertices may not be removed.
+         * @param minimumVertices The fewest vertices to leave in each part.
+         * @param minX The minimum x-coordinate.
+         * @param minY The minimum y-coordinate.
+         * @param maxX The maximum x-coordinate.
+         * @param maxY The maximum y-coordinate.
+         */
+        Eliminator(double[] x, double[] y, int[] offsets, boolean[] pinned, int minimumVertices, double minX, double minY,
+                double maxX, double maxY)
+        {
+            myX = x;
+            myY = y;
+            myOffsets = offsets;
+            myPinned = pinned;
+            myMinimumVertices = minimumVertices;
+            int count = x.length;
+            myAreas = new double[count];
+            myRemoved = new boolean[count];
+            myStamps = new int[count];
+            myPrevious = new int[count];
+            myNext = new int[count];
+            for (int part = 0; part < offsets.length - 1; ++part)
+            {
+                for (int vertex = offsets[part]; vertex < offsets[part + 1]; ++vertex)
+                {
+                    myPrevious[vertex] = vertex == offsets[part] ? -1 : vertex - 1;
+                    myNext[vertex] = vertex == offsets[part + 1] - 1 ? -1 : vertex + 1;
+                }
+            }
+
+            // Size the grid for a few vertices per cell.
+            double width = Math.max(maxX - minX, MathUtil.DBL_EPSILON);
+            double height = Math.max(maxY - minY, MathUtil.DBL_EPSILON);
+            int cellCount = Math.max(1, count / 4);
+            myColumns = (int)Math.max(1, Math.min(cellCount, Math.round(Math.sqrt(cellCount * width / height))));
+            myRows = Math.max(1, cellCount / myColumns);
+            myMinX = minX;
+            myMinY = minY;
+            myCellWidth = width / myColumns;
+            myCellHeight = height / myRows;
+            myCells = new TIntArrayList[myColumns * myRows];
+            for (int vertex = 0; vertex < count; ++vertex)
+            {
+                int cell = row(myY[vertex]) * myColumns + column(myX[vertex]);
+                if (myCells[cell] == null)
+                {
+                    myCells[cell] = new TIntArrayList(4);
+                }
+                myCells[cell].add(vertex);
+            }
+        }
+
+        /**
+         * Remove vertices until no more can be removed.
+         *
+         * @return The area at which each vertex was removed, or
+         *         {@link Double#POSITIVE_INFINITY} for vertices that are kept
+         *         at every level.
+         */
+        public double[] computeEffectiveAreas()
+        {
+            Arrays.fill(myAreas, Double.POSITIVE_INFINITY);
+            int[] remaining = new int[myOffsets.length - 1];
+            PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+            for (int part = 0; part < remaining.length; ++part)
+            {
+                remaining[part] = myOffsets[part + 1] - myOffsets[part];
+                for (int vertex = myOffsets[part]; vertex < myOffsets[part + 1]; ++vertex)
+                {
+                    enqueue(queue, vertex);
+                }
+            }
+
+            double lastArea = 0.;
+            while (!queue.isEmpty())
+            {
+                QueueEntry entry = queue.poll();
+                int vertex = entry.myVertex;
+                if (entry.myStamp != myStamps[vertex] || myRemoved[vertex])
+                {
+                    continue;
+                }
+
+                int part = partOf(vertex);
+                if (remaining[part] <= myMinimumVertices || isObstructed(vertex))
+                {
+                    continue;
+                }
+
+                // Keep the removal areas non-decreasing so that every level
+                // is a prefix of the removal order.
+                lastArea = Math.max(lastArea, entry.myArea);
+                myAreas[vertex] = lastArea;
+                myRemoved[vertex] = true;
+                --remaining[part];
+
+                int previous = myPrevious[vertex];
+                int next = myNext[vertex];
+                myNext[previous] = next;
+                myPrevious[next] = previous;
+                enqueue(queue, previous);
+                enqueue(queue, next);
+            }
+            return myAreas;
+        }
+
+        /**
+         * Get the grid column for an x-coordinate.
+         *
+         * @param x The x-coordinate.
+         * @return The column.
+         */
+        private int column(double x)
+        {
+            return Math.min(myColumns - 1, Math.max(0, (int)((x - myMinX) / myCellWidth)));
+        }
+
+        /**
+         * Queue a vertex for removal if it may be removed.
+         *
+         * @param queue The queue.
+         * @param vertex The vertex.
+         */
+        private void enqueue(PriorityQueue<QueueEntry> queue, int vertex)
+        {
+            ++myStamps[vertex];
+            if (!myPinned[vertex] && myPrevious[vertex] != -1 && myNext[vertex] != -1)
+            {
+                queue.add(new QueueEntry(triangleArea(myPrevious[vertex], vertex, myNext[vertex]), vertex, myStamps[vertex]));
+            }
+        }
+
+        /**
+         * Determine if removing a vertex could cause the new segment to cross
+         * another segment, which is the case if another remaining vertex is
+         * within the triangle formed by the vertex and its neighbors.
+         *
+         * @param vertex The vertex.
+         * @return {@code true} if the vertex may not be removed.
+         */
+        private boolean isObstructed(int vertex)
+        {
+            int a = myPrevious[vertex];
+            int c = myNext[vertex];
+            double minX = Math.min(myX[a], Math.min(myX[vertex], myX[c]));
+            double maxX = Math.max(myX[a], Math.max(myX[vertex], myX[c]));
+            double minY = Math.min(myY[a], Math.min(myY[vertex], myY[c]));
+            double maxY = Math.max(myY[a], Math.max(myY[vertex], myY[c]));
+            for (int row = row(minY); row <= row(maxY); ++row)
+            {
+                for (int column = column(minX); column <= column(maxX); ++column)
+                {
+                    TIntArrayList cell = myCells[row * myColumns + column];
+                    if (cell == null)
+                    {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size(); ++i)
+                    {
+                        int other = cell.getQuick(i);
+                        if (other != a && other != vertex && other != c && !myRemoved[other] && myX[other] >= minX
+                                && myX[other] <= maxX && myY[other] >= minY && myY[other] <= maxY
+                                && isInTriangle(other, a, vertex, c))
+                        {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Determine if a vertex is within a triangle or on its edges, other
+         * than at the corners of the new segment.
+         *
+         * @param p The vertex to test.
+         * @param a The first corner.
+         * @param b The second corner.
+         * @param c The third corner.
+         * @return {@code true} if the vertex is in the triangle.
+         */
+        private boolean isInTriangle(int p, int a, int b, int c)
+        {
+            if (myX[p] == myX[a] && myY[p] == myY[a] || myX[p] == myX[c] && myY[p] == myY[c])
+            {
+                return false;
+            }
+            double d1 = cross(a, b, p);
+            double d2 = cross(b, c, p);
+            double d3 = cross(c, a, p);
+            boolean hasNegative = d1 < 0. || d2 < 0. || d3 < 0.;
+            boolean hasPositive = d1 > 0. || d2 > 0. || d3 > 0.;
+            return !(hasNegative && hasPositive);
+        }
+
+        /**
+         * Get the z-component of the cross product of (b - a) and (p - a).
+         *
+         * @param a The first vertex.
+         * @param b The second vertex.
+         * @param p The third vertex.
+         * @return The cross product.
+         */
+        private double cross(int a, int b, int p)
+        {
+            return (myX[b] - myX[a]) * (myY[p] - myY[a]) - (myY[b] - myY[a]) * (myX[p] - myX[a]);
+        }
+
+        /**
+         * Get the part that contains a vertex.
+         *
+         * @param vertex The vertex.
+         * @return The index of the part.
+         */
+        private int partOf(int vertex)
+        {
+            int index = Arrays.binarySearch(myOffsets, vertex);
+            if (index < 0)
+            {
+                return -index - 2;
+            }
+            // Skip empty parts that share the same offset.
+            while (index + 1 < myOffsets.length && myOffsets[index + 1] == vertex)
+            {
+                ++index;
+            }
+            return index;
+        }
+
+        /**
+         * Get the grid row for a y-coordinate.
+         *
+         * @param y The y-coordinate.
+         * @return The row.
+         */
+        private int row(double y)
+        {
+            return Math.min(myRows - 1, Math.max(0, (int)((y - myMinY) / myCellHeight)));
+        }
+
+        /**
+         * Get the area of a triangle.
+         *
+         * @param a The first vertex.
+         * @param b The second vertex.
+         * @param c The third vertex.
+         * @return The area.
+         */
+        private double triangleArea(int a, int b, int c)
+        {
+            return Math.abs(cross(a, b, c)) * .5;
+        }
+    }
+
+    /** An entry in the removal queue. */
+    private static final class QueueEntry implements Comparable<QueueEntry>
+    {
+        /** The effective area of the vertex. */
+        private final double myArea;
+
+        /** The stamp of the vertex when the entry was queued. */
+        private final int myStamp;
+
+        /** The vertex. */
+        private final int myVertex;
+
+        /**
+         * Constructor.
+         *
+         * @param area The effective area of the vertex.
+         * @param vertex The vertex.
+         * @param stamp The stamp of the vertex when the entry was queued.
+         */
+        QueueEntry(double area, int vertex, int stamp)
+        {
+            myArea = area;
+            myVertex = vertex;
+            myStamp = stamp;
+        }
+
+        @Override
+        public int compareTo(QueueEntry o)
+        {
+            int result = Double.compare(myArea, o.myArea);
+            return result == 0 ? Integer.compare(myVertex, o.myVertex) : result;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            return obj instanceof QueueEntry && compareTo((QueueEntry)obj) == 0;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Double.hashCode(myArea) * 31 + myVertex;
+        }
+    }
+}
@@ -0,0 +1,1062 @@
+package io.opensphere.core.geometry;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.opensphere.core.math.Ellipsoid;
+import io.opensphere.core.math.Vector3d;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.projection.Projection;
+import io.opensphere.core.util.Constants;
+import io.opensphere.core.util.collections.CollectionUtilities;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.concurrent.ProcrastinatingExecutor;
+import io.opensphere.core.viewer.ViewChangeSupport.ViewChangeListener;
+import io.opensphere.core.viewer.Viewer;
+import io.opensphere.core.viewer.impl.MapContext;
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * An executor that schedules image requests for tiles based on the current
+ * view. Requests for {@link AbstractTileGeometry}s are held in a queue which
+ * is re-prioritized each time the view changes, favoring tiles that are large
+ * on screen and near the center of the view. Requests for tiles that have
+ * left the view are cancelled through {@link ImageManager#cancelRequest}
+ * unless the tile is ahead of the camera's motion, and are resubmitted if the
+ * tile comes back into view. This applies to running requests as well as
+ * waiting ones; the threads running cancelled requests are interrupted. The
+ * parents of visible tiles are prefetched so that zooming out does not wait
+ * on the server. Prefetched images that nobody has started observing within
+ * {@link #PREFETCH_LIFETIME_NANOSECONDS} of being loaded are released.
+ * <p>
+ * At most {@link #getServerConcurrency()} requests run at once for each image
+ * provider, and at most {@link #getMaxActive()} run in total. Other tasks are
+ * passed directly to the wrapped executor.
+ */
+@SuppressWarnings("PMD.GodClass")
+public class TileRequestScheduler extends AbstractExecutorService
+{
+    /**
+     * The default number of requests that may run at once for one server,
+     * which may be set with the {@code opensphere.tiles.serverConcurrency}
+     * system property.
+     */
+    public static final int DEFAULT_SERVER_CONCURRENCY = Integer.getInteger("opensphere.tiles.serverConcurrency", 6).intValue();
+
+    /**
+     * How long a prefetched image is kept without being observed, which may
+     * be set in seconds with the {@code opensphere.tiles.prefetchLifetimeSeconds}
+     * system property.
+     */
+    static final long PREFETCH_LIFETIME_NANOSECONDS = TimeUnit.SECONDS
+            .toNanos(Long.getLong("opensphere.tiles.prefetchLifetimeSeconds", 30L).longValue());
+
+    /** The weight applied to the priority of prefetch requests. */
+    static final double PREFETCH_WEIGHT = 1e-3;
+
+    /**
+     * The minimum cosine of the angle between the camera's motion and the
+     * direction to a tile for the tile to be considered ahead of the camera.
+     */
+    private static final double AHEAD_COSINE = .5;
+
+    /** The cosine used for culling bounding ellipsoids. */
+    private static final double CULL_COSINE = .25;
+
+    /** The minimum time between re-prioritizations while the view changes. */
+    private static final int FRAME_MILLISECONDS = 16;
+
+    /** The number of frames of camera motion to look ahead when prefetching. */
+    private static final int LOOK_AHEAD_FRAMES = 30;
+
+    /** The maximum number of cancelled requests remembered for resubmission. */
+    private static final int MAX_PARKED = 1024;
+
+    /** How long cancelled requests are remembered for resubmission. */
+    private static final long PARKED_TIMEOUT_NANOSECONDS = TimeUnit.SECONDS.toNanos(30L);
+
+    /** Orders tasks by descending priority. */
+    private static final Comparator<ScheduledTask<?>> PRIORITY_ORDER = (o1, o2) -> Double.compare(o2.getPriority(),
+            o1.getPriority());
+
+    /** The number of requests that are running. */
+    @GuardedBy("this")
+    private int myActiveCount;
+
+    /** The number of requests that are running for each server. */
+    @GuardedBy("this")
+    private final Map<Object, Integer> myActiveByServer = New.map();
+
+    /** The number of requests cancelled because their tiles left the view. */
+    private final AtomicLong myCancelledCount = new AtomicLong();
+
+    /** The number of requests that have completed. */
+    private final AtomicLong myCompletedCount = new AtomicLong();
+
+    /** The executor for tasks which are not tile requests. */
+    private final ExecutorService myExecutor;
+
+    /** The maximum number of requests that may run at once. */
+    private final int myMaxActive;
+
+    /** Requests cancelled because their tiles left the view. */
+    @GuardedBy("this")
+    private final List<ParkedRequest> myParked = New.linkedList();
+
+    /** The number of parent tiles that have been prefetched. */
+    private final AtomicLong myPrefetchCount = new AtomicLong();
+
+    /**
+     * Prefetch requests that have completed, in the order they completed,
+     * with their completion times.
+     */
+    @GuardedBy("this")
+    private final List<ParkedRequest> myPrefetched = New.linkedList();
+
+    /** The requests waiting to run, in descending priority. */
+    @GuardedBy("this")
+    private final List<ScheduledTask<?>> myQueue = New.list();
+
+    /** The executor used to re-prioritize the queue when the view changes. */
+    private final ProcrastinatingExecutor myReprioritizeExecutor = new ProcrastinatingExecutor("TileRequestScheduler", 0,
+            FRAME_MILLISECONDS);
+
+    /** The requests that are running. */
+    @GuardedBy("this")
+    private final Set<ScheduledTask<?>> myRunning = New.set();
+
+    /** The maximum number of requests that may run at once for one server. */
+    private final int myServerConcurrency;
+
+    /** The executor that runs the tile requests. */
+    private final ExecutorService myTileExecutor;
+
+    /**
+     * The total time between the submission and completion of the completed
+     * requests.
+     */
+    private final AtomicLong myTotalLatencyNanoseconds = new AtomicLong();
+
+    /** The view used for the most recent re-prioritization. */
+    private volatile ViewSnapshot myView;
+
+    /** The map context whose view changes cause re-prioritization. */
+    @GuardedBy("this")
+    private MapContext<?> myMapContext;
+
+    /**
+     * The listener for view changes, once a map context is set. A reference
+     * is kept because the view change support holds its listeners weakly.
+     */
+    @GuardedBy("this")
+    private ViewChangeListener myViewChangeListener;
+
+    /**
+     * Compute the priority of a request for a tile. Tiles that cover more of
+     * the screen have more screen-space error while they are missing, so
+     * their priority is proportional to their width in pixels. The priority
+     * falls off with the distance of the tile from the center of the view,
+     * measured in tile radii.
+     *
+     * @param pixelWidth The width of the tile in pixels.
+     * @param distance The distance from the center of the tile to the center
+     *            of the view in model coordinates.
+     * @param radius The radius of the tile in model coordinates.
+     * @return The priority; larger values are more important.
+     */
+    static double computePriority(double pixelWidth, double distance, double radius)
+    {
+        return pixelWidth / (1. + distance / Math.max(radius, Double.MIN_NORMAL));
+    }
+
+    /**
+     * Get the bounding ellipsoid for the subject of a request.
+     *
+     * @param subject The subject.
+     * @param projection The projection.
+     * @return The ellipsoid, or {@code null} if the subject is not a
+     *         geographic tile.
+     */
+    private static Ellipsoid getEllipsoid(Object subject, Projection projection)
+    {
+        if (subject instanceof AbstractTileGeometry)
+        {
+            Object bounds = ((AbstractTileGeometry<?>)subject).getBounds();
+            if (bounds instanceof GeographicBoundingBox)
+            {
+                return projection.getBoundingEllipsoid((GeographicBoundingBox)bounds, Vector3d.ORIGIN, false);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the largest radius of an ellipsoid.
+     *
+     * @param ellipsoid The ellipsoid.
+     * @return The radius.
+     */
+    private static double getRadius(Ellipsoid ellipsoid)
+    {
+        return Math.max(ellipsoid.getXAxis().getLength(),
+                Math.max(ellipsoid.getYAxis().getLength(), ellipsoid.getZAxis().getLength()));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param executor The executor for tasks which are not tile requests.
+     * @param tileExecutor The executor that runs the tile requests. This
+     *            should have at least {@code maxActive} threads.
+     * @param maxActive The maximum number of tile requests that may run at
+     *            once.
+     * @param serverConcurrency The maximum number of tile requests that may
+     *            run at once for one server.
+     */
+    public TileRequestScheduler(ExecutorService executor, ExecutorService tileExecutor, int maxActive, int serverConcurrency)
+    {
+        myExecutor = executor;
+        myTileExecutor = tileExecutor;
+        myMaxActive = maxActive;
+        myServerConcurrency = serverConcurrency;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return myTileExecutor.awaitTermination(timeout, unit)
+                && myExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void execute(Runnable command)
+    {
+        if (command instanceof ScheduledTask)
+        {
+            enqueue((ScheduledTask<?>)command);
+        }
+        else if (isTileRequest(command))
+        {
+            enqueue(new ScheduledTask<>(command, null));
+        }
+        else
+        {
+            myExecutor.execute(command);
+        }
+    }
+
+    /**
+     * Get the number of tile requests that are running.
+     *
+     * @return The number of requests.
+     */
+    public synchronized int getActiveCount()
+    {
+        return myActiveCount;
+    }
+
+    /**
+     * Get the average time between the submission and completion of the tile
+     * requests that have completed.
+     *
+     * @return The average latency in milliseconds.
+     */
+    public double getAverageLatencyMilliseconds()
+    {
+        long count = myCompletedCount.get();
+        return count == 0L ? 0. : (double)myTotalLatencyNanoseconds.get() / count / Constants.NANO_PER_MILLI;
+    }
+
+    /**
+     * Get the number of tile requests that have been cancelled because their
+     * tiles left the view.
+     *
+     * @return The number of requests.
+     */
+    public long getCancelledCount()
+    {
+        return myCancelledCount.get();
+    }
+
+    /**
+     * Get the number of tile requests that have completed.
+     *
+     * @return The number of requests.
+     */
+    public long getCompletedCount()
+    {
+        return myCompletedCount.get();
+    }
+
+    /**
+     * Get the maximum number of tile requests that may run at once.
+     *
+     * @return The maximum number of requests.
+     */
+    public int getMaxActive()
+    {
+        return myMaxActive;
+    }
+
+    /**
+     * Get the number of parent tiles that have been prefetched.
+     *
+     * @return The number of tiles.
+     */
+    public long getPrefetchCount()
+    {
+        return myPrefetchCount.get();
+    }
+
+    /**
+     * Get the number of tile requests that are waiting to run.
+     *
+     * @return The number of requests.
+     */
+    public synchronized int getQueueSize()
+    {
+        return myQueue.size();
+    }
+
+    /**
+     * Get the maximum number of tile requests that may run at once for one
+     * server.
+     *
+     * @return The maximum number of requests.
+     */
+    public int getServerConcurrency()
+    {
+        return myServerConcurrency;
+    }
+
+    @Override
+    public boolean isShutdown()
+    {
+        return myExecutor.isShutdown() && myTileExecutor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated()
+    {
+        return myExecutor.isTerminated() && myTileExecutor.isTerminated();
+    }
+
+    /**
+     * Re-prioritize the waiting tile requests for a view, cancel the waiting
+     * and running requests for tiles that have left the view, resubmit
+     * cancelled requests for tiles that have come back into view, prefetch
+     * the parents of the visible tiles, and release the expired prefetched
+     * images.
+     *
+     * @param viewer The viewer.
+     * @param projection The projection.
+     */
+    public void reprioritize(Viewer viewer, Projection projection)
+    {
+        ViewSnapshot previous = myView;
+        Vector3d center = viewer.getModelIntersection();
+        if (center == null)
+        {
+            center = viewer.getClosestModelPosition();
+        }
+        Vector3d motion = previous == null || previous.getCenter() == null || center == null ? Vector3d.ORIGIN
+                : center.subtract(previous.getCenter());
+        ViewSnapshot view = new ViewSnapshot(viewer, projection, center, motion);
+        myView = view;
+
+        List<ScheduledTask<?>> tasks;
+        List<ParkedRequest> parked;
+        synchronized (this)
+        {
+            tasks = New.list(myQueue);
+            tasks.addAll(myRunning);
+            parked = New.list(myParked);
+        }
+
+        Collection<ScheduledTask<?>> cancels = null;
+        Set<AbstractTileGeometry<?>> parents = New.set();
+        for (ScheduledTask<?> task : tasks)
+        {
+            if (task.isDone())
+            {
+                continue;
+            }
+            TileRequest request = task.getRequest();
+            Ellipsoid ellipsoid = getEllipsoid(request.getSubject(), projection);
+            if (ellipsoid == null)
+            {
+                continue;
+            }
+            double priority = view.getPriority(ellipsoid, request.isPrefetch());
+            if (Double.isNaN(priority))
+            {
+                cancels = CollectionUtilities.lazyAdd(task, cancels);
+            }
+            else
+            {
+                task.setPriority(priority);
+                if (!request.isPrefetch() && viewer.isInView(ellipsoid, CULL_COSINE))
+                {
+                    AbstractTileGeometry<?> parent = ((AbstractTileGeometry<?>)request.getSubject()).getParent();
+                    if (parent != null)
+                    {
+                        parents.add(parent);
+                    }
+                }
+            }
+        }
+
+        if (cancels != null)
+        {
+            cancel(cancels);
+        }
+        resubmit(parked, view);
+
+        for (AbstractTileGeometry<?> parent : parents)
+        {
+            ImageManager imageManager = parent.getImageManager();
+            if (imageManager != null && imageManager.prefetchImageData(parent, this))
+            {
+                myPrefetchCount.incrementAndGet();
+            }
+        }
+        releaseExpiredPrefetches(System.nanoTime());
+
+        synchronized (this)
+        {
+            myQueue.removeIf(t -> t.isDone());
+            myQueue.sort(PRIORITY_ORDER);
+        }
+        dispatch();
+    }
+
+    /**
+     * Set the map context whose view changes cause the requests to be
+     * re-prioritized. This replaces any previous map context.
+     *
+     * @param mapContext The map context.
+     */
+    public synchronized void setMapContext(final MapContext<?> mapContext)
+    {
+        if (myMapContext != null)
+        {
+            myMapContext.getViewChangeSupport().removeViewChangeListener(myViewChangeListener);
+        }
+        myMapContext = mapContext;
+        myViewChangeListener = (viewer, type) -> myReprioritizeExecutor
+                .execute(() -> reprioritize(viewer, mapContext.getProjection()));
+        mapContext.getViewChangeSupport().addViewChangeListener(myViewChangeListener);
+    }
+
+    @Override
+    public void shutdown()
+    {
+        myReprioritizeExecutor.shutdown();
+        myTileExecutor.shutdown();
+        myExecutor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow()
+    {
+        myReprioritizeExecutor.shutdown();
+        List<Runnable> result;
+        synchronized (this)
+        {
+            result = New.list(myQueue);
+            myQueue.clear();
+            myParked.clear();
+            myPrefetched.clear();
+        }
+        result.addAll(myTileExecutor.shutdownNow());
+        result.addAll(myExecutor.shutdownNow());
+        return result;
+    }
+
+    @Override
+    public Future<?> submit(Runnable task)
+    {
+        if (isTileRequest(task))
+        {
+            ScheduledTask<?> future = new ScheduledTask<>(task, null);
+            enqueue(future);
+            return future;
+        }
+        return myExecutor.submit(task);
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable task, T result)
+    {
+        if (isTileRequest(task))
+        {
+            ScheduledTask<T> future = new ScheduledTask<>(task, result);
+            enqueue(future);
+            return future;
+        }
+        return myExecutor.submit(task, result);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task)
+    {
+        return myExecutor.submit(task);
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + " [queued=" + getQueueSize() + ", active=" + getActiveCount() + ", completed="
+                + getCompletedCount() + ", cancelled=" + getCancelledCount() + ", prefetched=" + getPrefetchCount()
+                + ", averageLatencyMs=" + getAverageLatencyMilliseconds() + "]";
+    }
+
+    /**
+     * Release the images for prefetch requests that completed more than
+     * {@link #PREFETCH_LIFETIME_NANOSECONDS} before a time, unless somebody
+     * has started observing them.
+     *
+     * @param now The time, from {@link System#nanoTime()}.
+     */
+    void releaseExpiredPrefetches(long now)
+    {
+        Collection<TileRequest> releases = null;
+        synchronized (this)
+        {
+            while (!myPrefetched.isEmpty() && now - myPrefetched.get(0).getTime() > PREFETCH_LIFETIME_NANOSECONDS)
+            {
+                releases = CollectionUtilities.lazyAdd(myPrefetched.remove(0).getRequest(), releases);
+            }
+        }
+        if (releases != null)
+        {
+            for (TileRequest request : releases)
+            {
+                request.releaseIfUnused();
+            }
+        }
+    }
+
+    /**
+     * Cancel the requests for tiles which have left the view, remembering
+     * them so that they can be resubmitted if the tiles come back. Requests
+     * that are running are interrupted.
+     *
+     * @param cancels The tasks to cancel.
+     */
+    private void cancel(Collection<ScheduledTask<?>> cancels)
+    {
+        long now = System.nanoTime();
+        for (ScheduledTask<?> task : cancels)
+        {
+            TileRequest request = task.getRequest();
+            request.cancel();
+            task.cancel(true);
+            myCancelledCount.incrementAndGet();
+            if (!request.isPrefetch())
+            {
+                synchronized (this)
+                {
+                    myParked.add(new ParkedRequest(request, now));
+                    if (myParked.size() > MAX_PARKED)
+                    {
+                        myParked.remove(0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Start the highest priority requests whose servers are below their
+     * concurrency limits, until the maximum number of requests are running.
+     */
+    private void dispatch()
+    {
+        List<ScheduledTask<?>> starts = null;
+        synchronized (this)
+        {
+            for (Iterator<ScheduledTask<?>> iter = myQueue.iterator(); iter.hasNext() && myActiveCount < myMaxActive;)
+            {
+                ScheduledTask<?> task = iter.next();
+                if (task.isDone())
+                {
+                    iter.remove();
+                    continue;
+                }
+                Object server = task.getRequest().getServer();
+                int serverCount = myActiveByServer.getOrDefault(server, Integer.valueOf(0)).intValue();
+                if (serverCount < myServerConcurrency)
+                {
+                    myActiveByServer.put(server, Integer.valueOf(serverCount + 1));
+                    ++myActiveCount;
+                    iter.remove();
+                    myRunning.add(task);
+                    starts = CollectionUtilities.lazyAdd(task, starts);
+                }
+            }
+        }
+
+        if (starts != null)
+        {
+            for (ScheduledTask<?> task : starts)
+            {
+                start(task);
+            }
+        }
+    }
+
+    /**
+     * Add a request to the queue and start requests if possible.
+     *
+     * @param task The request.
+     */
+    private void enqueue(ScheduledTask<?> task)
+    {
+        ViewSnapshot view = myView;
+        if (view != null)
+        {
+            Ellipsoid ellipsoid = getEllipsoid(task.getRequest().getSubject(), view.getProjection());
+            if (ellipsoid != null)
+            {
+                double priority = view.getPriority(ellipsoid, task.getRequest().isPrefetch());
+                task.setPriority(Double.isNaN(priority) ? 0. : priority);
+            }
+        }
+
+        synchronized (this)
+        {
+            int index = myQueue.size();
+            while (index > 0 && myQueue.get(index - 1).getPriority() < task.getPriority())
+            {
+                --index;
+            }
+            myQueue.add(index, task);
+        }
+        dispatch();
+    }
+
+    /**
+     * Release the slot held by a request that has finished, remember it if it
+     * was a prefetch so that its image can be released if nobody needs it,
+     * and start more requests.
+     *
+     * @param task The request.
+     */
+    private void finish(ScheduledTask<?> task)
+    {
+        long now = System.nanoTime();
+        TileRequest request = task.getRequest();
+        boolean completed = !task.isCancelled();
+        synchronized (this)
+        {
+            --myActiveCount;
+            myActiveByServer.computeIfPresent(request.getServer(),
+                    (k, v) -> v.intValue() <= 1 ? null : Integer.valueOf(v.intValue() - 1));
+            myRunning.remove(task);
+            if (completed && request.isPrefetch())
+            {
+                myPrefetched.add(new ParkedRequest(request, now));
+            }
+        }
+        if (completed)
+        {
+            myCompletedCount.incrementAndGet();
+            myTotalLatencyNanoseconds.addAndGet(now - task.getSubmitTime());
+        }
+        releaseExpiredPrefetches(now);
+        releaseExcessPrefetches();
+        dispatch();
+    }
+
+    /**
+     * Determine if a task is a request for a tile.
+     *
+     * @param task The task.
+     * @return {@code true} if the task is a tile request.
+     */
+    private boolean isTileRequest(Runnable task)
+    {
+        return task instanceof TileRequest && ((TileRequest)task).getSubject() instanceof AbstractTileGeometry;
+    }
+
+    /**
+     * Release the images for the oldest prefetch requests if more than
+     * {@link #MAX_PARKED} are being remembered.
+     */
+    private void releaseExcessPrefetches()
+    {
+        Collection<TileRequest> releases = null;
+        synchronized (this)
+        {
+            while (myPrefetched.size() > MAX_PARKED)
+            {
+                releases = CollectionUtilities.lazyAdd(myPrefetched.remove(0).getRequest(), releases);
+            }
+        }
+        if (releases != null)
+        {
+            for (TileRequest request : releases)
+            {
+                request.releaseIfUnused();
+            }
+        }
+    }
+
+    /**
+     * Resubmit the cancelled requests whose tiles have come back into view
+     * and forget the ones that have expired.
+     *
+     * @param parked The cancelled requests.
+     * @param view The current view.
+     */
+    private void resubmit(List<ParkedRequest> parked, ViewSnapshot view)
+    {
+        long now = System.nanoTime();
+        Collection<ParkedRequest> removes = null;
+        Collection<TileRequest> resubmits = null;
+        for (ParkedRequest entry : parked)
+        {
+            if (now - entry.getTime() > PARKED_TIMEOUT_NANOSECONDS)
+            {
+                removes = CollectionUtilities.lazyAdd(entry, removes);
+            }
+            else
+            {
+                Ellipsoid ellipsoid = getEllipsoid(entry.getRequest().getSubject(), view.getProjection());
+                if (ellipsoid != null && view.getViewer().isInView(ellipsoid, CULL_COSINE))
+                {
+                    removes = CollectionUtilities.lazyAdd(entry, removes);
+                    resubmits = CollectionUtilities.lazyAdd(entry.getRequest(), resubmits);
+                }
+            }
+        }
+
+        if (removes != null)
+        {
+            synchronized (this)
+            {
+                myParked.removeAll(removes);
+            }
+        }
+        if (resubmits != null)
+        {
+            for (TileRequest request : resubmits)
+            {
+                request.resubmit(this);
+            }
+        }
+    }
+
+    /**
+     * Hand a request to the tile executor.
+     *
+     * @param task The request.
+     */
+    private void start(ScheduledTask<?> task)
+    {
+        try
+        {
+            myTileExecutor.execute(() ->
+            {
+                try
+                {
+                    task.run();
+                }
+                finally
+                {
+                    finish(task);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            task.cancel(false);
+            finish(task);
+        }
+    }
+
+    /**
+     * A request for the image for a tile. This is implemented by the runnables
+     * submitted to the scheduler by {@link ImageManager}.
+     */
+    public interface TileRequest
+    {
+        /** Cancel the request and release any partial results. */
+        void cancel();
+
+        /**
+         * Get the object that identifies the server for the request. The
+         * number of requests that run at once is limited for each server.
+         *
+         * @return The server key.
+         */
+        Object getServer();
+
+        /**
+         * Get the geometry whose image is being requested.
+         *
+         * @return The geometry.
+         */
+        Object getSubject();
+
+        /**
+         * Get if the image is being requested before anybody needs it.
+         *
+         * @return {@code true} if this is a prefetch.
+         */
+        boolean isPrefetch();
+
+        /**
+         * Release the image loaded by the request if nobody has started
+         * observing it. This is called for prefetch requests whose images
+         * have not been needed for a while.
+         */
+        void releaseIfUnused();
+
+        /**
+         * Submit the request again after it was cancelled.
+         *
+         * @param executor The executor to submit the request to.
+         */
+        void resubmit(ExecutorService executor);
+    }
+
+    /**
+     * A request that is remembered after it stops running: one cancelled
+     * because its tile left the view, or a prefetch that has completed.
+     */
+    private static final class ParkedRequest
+    {
+        /**
+         * The time the request was cancelled or completed, from
+         * {@link System#nanoTime()}.
+         */
+        private final long myTime;
+
+        /** The request. */
+        private final TileRequest myRequest;
+
+        /**
+         * Constructor.
+         *
+         * @param request The request.
+         * @param time The time the request was cancelled or completed.
+         */
+        public ParkedRequest(TileRequest request, long time)
+        {
+            myRequest = request;
+            myTime = time;
+        }
+
+        /**
+         * Get the time the request was cancelled or completed.
+         *
+         * @return The time from {@link System#nanoTime()}.
+         */
+        public long getTime()
+        {
+            return myTime;
+        }
+
+        /**
+         * Get the request.
+         *
+         * @return The request.
+         */
+        public TileRequest getRequest()
+        {
+            return myRequest;
+        }
+    }
+
+    /**
+     * The future for a tile request.
+     *
+     * @param <V> The result type.
+     */
+    private static final class ScheduledTask<V> extends FutureTask<V>
+    {
+        /** The priority; larger values are more important. */
+        private volatile double myPriority;
+
+        /** The request. */
+        private final TileRequest myRequest;
+
+        /** The time the request was submitted, from {@link System#nanoTime()}. */
+        private final long mySubmitTime = System.nanoTime();
+
+        /**
+         * Constructor.
+         *
+         * @param runnable The request, which must implement
+         *            {@link TileRequest}.
+         * @param result The result to return upon successful completion.
+         */
+        public ScheduledTask(Runnable runnable, V result)
+        {
+            super(runnable, result);
+            myRequest = (TileRequest)runnable;
+        }
+
+        /**
+         * Get the priority.
+         *
+         * @return The priority.
+         */
+        public double getPriority()
+        {
+            return myPriority;
+        }
+
+        /**
+         * Get the request.
+         *
+         * @return The request.
+         */
+        public TileRequest getRequest()
+        {
+            return myRequest;
+        }
+
+        /**
+         * Get the time the request was submitted.
+         *
+         * @return The time from {@link System#nanoTime()}.
+         */
+        public long getSubmitTime()
+        {
+            return mySubmitTime;
+        }
+
+        /**
+         * Set the priority.
+         *
+         * @param priority The priority.
+         */
+        public void setPriority(double priority)
+        {
+            myPriority = priority;
+        }
+    }
+
+    /** The view state used to prioritize requests. */
+    private static final class ViewSnapshot
+    {
+        /** The center of the view in model coordinates, or {@code null}. */
+        private final Vector3d myCenter;
+
+        /** The motion of the center since the previous view. */
+        private final Vector3d myMotion;
+
+        /** The projection. */
+        private final Projection myProjection;
+
+        /** The viewer. */
+        private final Viewer myViewer;
+
+        /**
+         * Constructor.
+         *
+         * @param viewer The viewer.
+         * @param projection The projection.
+         * @param center The center of the view, or {@code null}.
+         * @param motion The motion of the center since the previous view.
+         */
+        public ViewSnapshot(Viewer viewer, Projection projection, Vector3d center, Vector3d motion)
+        {
+            myViewer = viewer;
+            myProjection = projection;
+            myCenter = center;
+            myMotion = motion;
+        }
+
+        /**
+         * Get the center of the view.
+         *
+         * @return The center in model coordinates, or {@code null}.
+         */
+        public Vector3d getCenter()
+        {
+            return myCenter;
+        }
+
+        /**
+         * Get the priority of a request for a tile in this view.
+         *
+         * @param ellipsoid The bounding ellipsoid of the tile.
+         * @param prefetch If the request is a prefetch.
+         * @return The priority, or {@link Double#NaN} if the tile is out of
+         *         view and is not ahead of the camera.
+         */
+        public double getPriority(Ellipsoid ellipsoid, boolean prefetch)
+        {
+            double radius = getRadius(ellipsoid);
+            double distance = myCenter == null ? 0. : ellipsoid.getCenter().subtract(myCenter).getLength();
+            double priority = computePriority(myViewer.getPixelWidth(ellipsoid), distance, radius);
+            if (myViewer.isInView(ellipsoid, CULL_COSINE))
+            {
+                return prefetch ? priority * PREFETCH_WEIGHT : priority;
+            }
+            else if (isAhead(ellipsoid, distance, radius))
+            {
+                return priority * PREFETCH_WEIGHT;
+            }
+            return Double.NaN;
+        }
+
+        /**
+         * Get the projection.
+         *
+         * @return The projection.
+         */
+        public Projection getProjection()
+        {
+            return myProjection;
+        }
+
+        /**
+         * Get the viewer.
+         *
+         * @return The viewer.
+         */
+        public Viewer getViewer()
+        {
+            return myViewer;
+        }
+
+        /**
+         * Determine if a tile is ahead of the camera's motion and close enough
+         * to come into view within {@link #LOOK_AHEAD_FRAMES}.
+         *
+         * @param ellipsoid The bounding ellipsoid of the tile.
+         * @param distance The distance from the center of the view to the
+         *            center of the tile.
+         * @param radius The radius of the tile.
+         * @return {@code true} if the tile is ahead of the camera.
+         */
+        private boolean isAhead(Ellipsoid ellipsoid, double distance, double radius)
+        {
+            double speed = myMotion.getLength();
+            if (myCenter == null || speed == 0. || distance > speed * LOOK_AHEAD_FRAMES + radius)
+            {
+                return false;
+            }
+            double along = ellipsoid.getCenter().subtract(myCenter).dot(myMotion) / speed;
+            return along > distance * AHEAD_COSINE;
+        }
+    }
+}
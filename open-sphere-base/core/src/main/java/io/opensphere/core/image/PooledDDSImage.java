@@ -0,0 +1,64 @@
+package io.opensphere.core.image;
+
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+
+import io.opensphere.core.util.collections.MappedObjectPool;
+
+/**
+ * A {@link DDSImage} whose data is in a buffer that was taken from a pool. The
+ * buffer is returned to the pool when the image is disposed. The buffer may
+ * be direct, so the image is serialized as a plain {@link DDSImage}.
+ */
+final class PooledDDSImage extends DDSImage
+{
+    /** Serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The buffer which was taken from the pool. */
+    private final transient ByteBuffer myPooledBuffer;
+
+    /** The pool, or {@code null} if the buffer was not pooled. */
+    private final transient MappedObjectPool<Integer, ByteBuffer> myPool;
+
+    /**
+     * Constructor.
+     *
+     * @param buffer The DDS data.
+     * @param pool The pool the buffer was taken from, or {@code null}.
+     */
+    public PooledDDSImage(ByteBuffer buffer, MappedObjectPool<Integer, ByteBuffer> pool)
+    {
+        super(buffer);
+        myPooledBuffer = buffer;
+        myPool = pool;
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        if (!isDisposed())
+        {
+            super.dispose();
+            if (myPool != null)
+            {
+                myPool.surrender(Integer.valueOf(myPooledBuffer.capacity()), myPooledBuffer);
+            }
+        }
+    }
+
+    /**
+     * Replace this image with a heap-backed {@link DDSImage} when it is
+     * serialized.
+     *
+     * @return The replacement.
+     * @throws ObjectStreamException Never.
+     */
+    private Object writeReplace() throws ObjectStreamException
+    {
+        ByteBuffer data = getByteBuffer();
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        return new DDSImage(bytes);
+    }
+}
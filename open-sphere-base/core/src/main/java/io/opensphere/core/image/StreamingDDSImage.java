@@ -84,7 +84,7 @@ public class StreamingDDSImage extends DDSImage
             throw new IllegalStateException("Byte buffer pool can only be set once.");
         }
         int imageSize = in.readInt();
-        myByteBufferPool = ourThreadByteBufferPool.get();
+        myByteBufferPool = TileRecord.isThreadPooled() ? ourThreadByteBufferPool.get() : null;
         ByteBuffer buffer;
         try
         {
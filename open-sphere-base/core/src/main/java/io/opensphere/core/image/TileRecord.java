@@ -0,0 +1,321 @@
+package io.opensphere.core.image;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ReadableByteChannel;
+
+import io.opensphere.core.util.collections.MappedObjectPool;
+
+/**
+ * Reads and writes the compact record format for cached tile images. A record
+ * is a fixed header followed by the raw DDS or PNG bytes, so reading a tile
+ * does not require Java deserialization. DDS payloads are read directly into
+ * a (typically direct) buffer taken from a pool.
+ * <p>
+ * The header is, in big-endian order:
+ *
+ * <pre>
+ * int  magic ("OSTR")
+ * byte version
+ * byte format ({@link #FORMAT_DDS} or {@link #FORMAT_PNG})
+ * byte compression (the {@link Image.CompressionType} ordinal)
+ * byte mip map count
+ * int  width
+ * int  height
+ * int  payload length
+ * </pre>
+ *
+ * Tiles cached before this format was introduced are serialized
+ * {@link Image} objects; {@link #isTileRecord(InputStream)} distinguishes the
+ * two so that readers can fall back to deserialization for old tiles.
+ */
+public final class TileRecord
+{
+    /** Format code for a DDS payload. */
+    public static final byte FORMAT_DDS = 1;
+
+    /** Format code for a PNG payload. */
+    public static final byte FORMAT_PNG = 2;
+
+    /** The size of the header in bytes. */
+    public static final int HEADER_SIZE = 20;
+
+    /** The offset of the mip map count in a DDS header. */
+    private static final int DDS_MIP_MAP_COUNT_OFFSET = 28;
+
+    /** The magic number at the start of each record. */
+    private static final int MAGIC = 0x4F535452;
+
+    /** The current version of the format. */
+    private static final byte VERSION = 1;
+
+    /**
+     * Set on threads whose reads should allocate their own buffers instead of
+     * taking them from the pool.
+     */
+    private static final ThreadLocal<Boolean> ourThreadUnpooled = new ThreadLocal<>();
+
+    /**
+     * Determine if a stream starts with a tile record. The stream must support
+     * {@link InputStream#mark(int)}; its position is not changed.
+     *
+     * @param stream The stream.
+     * @return {@code true} if the stream contains a tile record, or
+     *         {@code false} if it contains something else, such as a
+     *         serialized image.
+     * @throws IOException If the stream cannot be read.
+     */
+    public static boolean isTileRecord(InputStream stream) throws IOException
+    {
+        if (!stream.markSupported())
+        {
+            throw new IllegalArgumentException("Stream must support mark.");
+        }
+        stream.mark(Integer.BYTES);
+        try
+        {
+            int magic = 0;
+            for (int i = 0; i < Integer.BYTES; ++i)
+            {
+                int b = stream.read();
+                if (b < 0)
+                {
+                    return false;
+                }
+                magic = magic << 8 | b;
+            }
+            return magic == MAGIC;
+        }
+        finally
+        {
+            stream.reset();
+        }
+    }
+
+    /**
+     * Read a tile record.
+     *
+     * @param stream The stream, positioned at the start of the record.
+     * @param pool Optional pool for the DDS buffers. Its factory should create
+     *            buffers whose capacity is the key.
+     * @return The image.
+     * @throws IOException If the stream cannot be read or does not contain a
+     *             tile record.
+     */
+    public static Image read(InputStream stream, MappedObjectPool<Integer, ByteBuffer> pool) throws IOException
+    {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC)
+        {
+            throw new IOException("Stream does not contain a tile record.");
+        }
+        byte version = in.readByte();
+        if (version > VERSION)
+        {
+            throw new IOException("Unsupported tile record version: " + version);
+        }
+        byte format = in.readByte();
+        in.readByte();
+        in.readByte();
+        int width = in.readInt();
+        int height = in.readInt();
+        int length = in.readInt();
+        if (length < 0)
+        {
+            throw new IOException("Invalid tile record length: " + length);
+        }
+
+        if (format == FORMAT_PNG)
+        {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            Image image = ImageIOImage.read(new ByteArrayInputStream(bytes));
+            if (image == null)
+            {
+                throw new IOException("Failed to decode PNG tile of size " + width + "x" + height);
+            }
+            return image;
+        }
+        else if (format != FORMAT_DDS)
+        {
+            throw new IOException("Unsupported tile record format: " + format);
+        }
+
+        MappedObjectPool<Integer, ByteBuffer> bufferPool = isThreadPooled() ? pool : null;
+        ByteBuffer buffer = take(bufferPool, length);
+        try
+        {
+            buffer.clear();
+            buffer.limit(length);
+            ReadableByteChannel channel = Channels.newChannel(in);
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer) < 0)
+                {
+                    throw new IOException("Tile record is truncated.");
+                }
+            }
+            buffer.flip();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            if (bufferPool != null)
+            {
+                bufferPool.surrender(Integer.valueOf(length), buffer);
+            }
+            throw e;
+        }
+        return new PooledDDSImage(buffer.order(ByteOrder.LITTLE_ENDIAN), bufferPool);
+    }
+
+    /**
+     * Get whether reads on this thread take their DDS buffers from a pool.
+     *
+     * @return {@code false} if reads on this thread should allocate their own
+     *         buffers.
+     * @see #setThreadPooled(boolean)
+     */
+    public static boolean isThreadPooled()
+    {
+        return !Boolean.TRUE.equals(ourThreadUnpooled.get());
+    }
+
+    /**
+     * Set whether reads on this thread take their DDS buffers from the pool
+     * passed to {@link #read(InputStream, MappedObjectPool)}, or from the
+     * thread's pool when a {@link StreamingDDSImage} is deserialized. Reads
+     * for images that may be held for a while without being displayed, such
+     * as prefetched tiles, should not hold pooled buffers, since that could
+     * leave the readers of visible tiles waiting for the pool.
+     *
+     * @param pooled {@code false} if reads on this thread should allocate
+     *            their own buffers.
+     */
+    public static void setThreadPooled(boolean pooled)
+    {
+        if (pooled)
+        {
+            ourThreadUnpooled.remove();
+        }
+        else
+        {
+            ourThreadUnpooled.set(Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Write a DDS image as a tile record.
+     *
+     * @param image The image.
+     * @param stream The stream.
+     * @throws IOException If the stream cannot be written.
+     */
+    public static void write(DDSImage image, OutputStream stream) throws IOException
+    {
+        ByteBuffer data = image.getByteBuffer();
+        data.rewind();
+        int mipMapCount = data.remaining() >= DDS_MIP_MAP_COUNT_OFFSET + Integer.BYTES
+                ? data.getInt(DDS_MIP_MAP_COUNT_OFFSET) : 0;
+        DataOutputStream out = writeHeader(stream, FORMAT_DDS, image.getCompressionType(), mipMapCount, image.getWidth(),
+                image.getHeight(), data.remaining());
+        if (data.hasArray())
+        {
+            out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+        else
+        {
+            byte[] chunk = new byte[Math.min(data.remaining(), 8192)];
+            while (data.hasRemaining())
+            {
+                int count = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, count);
+                out.write(chunk, 0, count);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Write an encoded PNG image as a tile record.
+     *
+     * @param png The PNG bytes.
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @param stream The stream.
+     * @throws IOException If the stream cannot be written.
+     */
+    public static void writePng(byte[] png, int width, int height, OutputStream stream) throws IOException
+    {
+        DataOutputStream out = writeHeader(stream, FORMAT_PNG, Image.CompressionType.UNDEFINED, 1, width, height, png.length);
+        out.write(png);
+        out.flush();
+    }
+
+    /**
+     * Take a buffer from a pool, or allocate one if there is no pool.
+     *
+     * @param pool The pool, or {@code null}.
+     * @param length The required capacity.
+     * @return The buffer.
+     * @throws ClosedByInterruptException If the thread is interrupted while
+     *             waiting for the pool.
+     */
+    private static ByteBuffer take(MappedObjectPool<Integer, ByteBuffer> pool, int length) throws ClosedByInterruptException
+    {
+        if (pool == null)
+        {
+            return ByteBuffer.allocateDirect(length);
+        }
+        try
+        {
+            return pool.take(Integer.valueOf(length));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ClosedByInterruptException();
+        }
+    }
+
+    /**
+     * Write a record header.
+     *
+     * @param stream The stream.
+     * @param format The payload format.
+     * @param compression The compression type.
+     * @param mipMapCount The number of mip maps.
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @param length The length of the payload.
+     * @return The data stream wrapping the stream.
+     * @throws IOException If the stream cannot be written.
+     */
+    private static DataOutputStream writeHeader(OutputStream stream, byte format, Image.CompressionType compression,
+            int mipMapCount, int width, int height, int length)
+        throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(format);
+        out.writeByte(compression.ordinal());
+        out.writeByte(Math.min(mipMapCount, Byte.MAX_VALUE));
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(length);
+        return out;
+    }
+
+    /** Disallow instantiation. */
+    private TileRecord()
+    {
+    }
+}
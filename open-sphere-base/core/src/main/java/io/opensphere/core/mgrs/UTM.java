@@ -12,6 +12,15 @@ import io.opensphere.core.model.LatLonAlt;
  */
 public class UTM
 {
+    /** The largest easting accepted by the constructor. */
+    public static final double MAX_EASTING = 833000d;
+
+    /** The largest northing accepted by the constructor. */
+    public static final double MAX_NORTHING = 10000000d;
+
+    /** The smallest easting accepted by the constructor. */
+    public static final double MIN_EASTING = 167000d;
+
     /** False easting. */
     private static final double FALSE_EASTING = 500000d;
 
@@ -144,13 +153,13 @@ public class UTM
         myZone = zone;
         myHemisphere = hemisphere;
 
-        if (easting < 167000 || easting > 833000)
+        if (easting < MIN_EASTING || easting > MAX_EASTING)
         {
             throw new IllegalArgumentException("Easting is outside of allowable range (0 - 99999)");
         }
         myEasting = easting;
 
-        if (northing < 0 || northing > 10000000)
+        if (northing < 0 || northing > MAX_NORTHING)
         {
             throw new IllegalArgumentException("Northing is outside of allowable range (0 - 99999)");
         }
@@ -158,11 +167,22 @@ public class UTM
     }
 
     /**
-     * Convert to lat/lon (GeographicPosition).
+     * Convert a UTM coordinate to latitude and longitude without creating any
+     * objects. The longitude is not normalized, so it may be slightly outside
+     * of the -180 to 180 range for coordinates near the anti-meridian. Unlike
+     * the constructor, the easting and northing are not range checked.
      *
-     * @return The geographic position.
+     * @param zone The zone.
+     * @param hemisphere The hemisphere.
+     * @param easting The easting.
+     * @param northing The northing.
+     * @param latLonD The array which receives the latitude and longitude in
+     *            degrees.
+     * @param offset The index in the array for the latitude; the longitude is
+     *            written at the following index.
      */
-    public GeographicPosition convertToLatLon()
+    public static void convertToLatLon(int zone, Hemisphere hemisphere, double easting, double northing, double[] latLonD,
+            int offset)
     {
         double ecc2 = WGS84EarthConstants.FIRST_ECCENTRICITY_SQ;
         double ecc4 = WGS84EarthConstants.FIRST_ECCENTRICITY_FOURTH;
@@ -173,15 +193,15 @@ public class UTM
         double e3 = e2 * e;
         double e4 = e3 * e;
 
-        double x = myEasting - 500000;
-        double y = myNorthing;
-        if (myHemisphere == Hemisphere.SOUTH)
+        double x = easting - 500000;
+        double y = northing;
+        if (hemisphere == Hemisphere.SOUTH)
         {
             y -= 10000000;
         }
 
         final double zoneHalfWidth = 3.;
-        double orginLongitude = (myZone - 1) * 6 - 180. + zoneHalfWidth;
+        double orginLongitude = (zone - 1) * 6 - 180. + zoneHalfWidth;
 
         double m = y / SCALE;
 
@@ -215,14 +235,25 @@ public class UTM
         double longitudeRad = (d - (1 + 2 * t + c) * d3 / 6 + (5 - 2 * c + 28 * t - 3 * c2 + 8 * ePrime2 + 24 * t2) * d5 / 120)
                 / phiRadCos;
 
-        double longitudeDeg = orginLongitude + Math.toDegrees(longitudeRad);
+        latLonD[offset] = Math.toDegrees(latitudeRad);
+        latLonD[offset + 1] = orginLongitude + Math.toDegrees(longitudeRad);
+    }
+
+    /**
+     * Convert to lat/lon (GeographicPosition).
+     *
+     * @return The geographic position.
+     */
+    public GeographicPosition convertToLatLon()
+    {
+        double[] latLon = new double[2];
+        convertToLatLon(myZone, myHemisphere, myEasting, myNorthing, latLon, 0);
 
-        GeographicPosition geoPos = new GeographicPosition(
-                LatLonAlt.createFromDegrees(Math.toDegrees(latitudeRad), longitudeDeg).getNormalized());
+        GeographicPosition geoPos = new GeographicPosition(LatLonAlt.createFromDegrees(latLon[0], latLon[1]).getNormalized());
 
         if (LOGGER.isTraceEnabled())
         {
-            LOGGER.trace(" Latitude = " + Math.toDegrees(latitudeRad) + " Longitude = " + longitudeDeg);
+            LOGGER.trace(" Latitude = " + latLon[0] + " Longitude = " + latLon[1]);
         }
 
         return geoPos;
@@ -0,0 +1,428 @@
+package io.opensphere.core.model;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+import io.opensphere.core.model.Altitude.ReferenceLevel;
+
+/**
+ * A modifiable list of {@link LatLonAlt}s that stores the coordinates in a
+ * single interleaved primitive array (lat, lon, alt, lat, lon, alt, etc.)
+ * rather than as objects. The altitude reference level is shared by the whole
+ * list until a location with a different reference level is added, at which
+ * point a byte per location is used to track it.
+ * <p>
+ * {@link #get(int)} creates a new {@link LatLonAlt} on each call; use the
+ * primitive accessors to avoid that when iterating over many locations.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class PackedLatLonAltList extends AbstractList<LatLonAlt> implements RandomAccess, Serializable
+{
+    /**
+     * The precision used when none is specified, which may be set with the
+     * {@code opensphere.geometry.packedPrecision} system property.
+     */
+    public static final Precision DEFAULT_PRECISION = "float"
+            .equalsIgnoreCase(System.getProperty("opensphere.geometry.packedPrecision")) ? Precision.FLOAT : Precision.DOUBLE;
+
+    /** The number of values stored for each location. */
+    private static final int DIM = 3;
+
+    /** The reference levels, indexed by ordinal. */
+    private static final ReferenceLevel[] REFERENCE_LEVELS = ReferenceLevel.values();
+
+    /** Serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The coordinates, if the precision is double. */
+    private double[] myDoubles;
+
+    /** The coordinates, if the precision is float. */
+    private float[] myFloats;
+
+    /** The precision of the stored coordinates. */
+    private final Precision myPrecision;
+
+    /** The reference level shared by all locations, if there is one. */
+    private ReferenceLevel myReferenceLevel;
+
+    /**
+     * The reference level ordinal for each location, or null if all the
+     * locations share {@link #myReferenceLevel}.
+     */
+    private byte[] myReferenceLevels;
+
+    /** The number of locations. */
+    private int mySize;
+
+    /**
+     * Creates a packed copy of some locations. If the locations are already
+     * packed, their precision is kept; otherwise the default precision is
+     * used.
+     *
+     * @param locations The locations.
+     * @return The packed copy.
+     */
+    public static PackedLatLonAltList copyOf(Collection<? extends LatLonAlt> locations)
+    {
+        if (locations instanceof PackedLatLonAltList)
+        {
+            return new PackedLatLonAltList((PackedLatLonAltList)locations);
+        }
+        return new PackedLatLonAltList(DEFAULT_PRECISION, locations);
+    }
+
+    /**
+     * Constructs an empty list with the default precision.
+     */
+    public PackedLatLonAltList()
+    {
+        this(DEFAULT_PRECISION, 10);
+    }
+
+    /**
+     * Constructs a list containing some locations.
+     *
+     * @param precision The precision of the stored coordinates.
+     * @param locations The locations.
+     */
+    public PackedLatLonAltList(Precision precision, Collection<? extends LatLonAlt> locations)
+    {
+        this(precision, locations.size());
+        addAll(locations);
+    }
+
+    /**
+     * Constructs an empty list.
+     *
+     * @param precision The precision of the stored coordinates.
+     * @param initialCapacity The number of locations that may be added before
+     *            the storage must grow.
+     */
+    public PackedLatLonAltList(Precision precision, int initialCapacity)
+    {
+        myPrecision = precision;
+        if (precision == Precision.FLOAT)
+        {
+            myFloats = new float[Math.max(1, initialCapacity) * DIM];
+        }
+        else
+        {
+            myDoubles = new double[Math.max(1, initialCapacity) * DIM];
+        }
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param source The list to copy.
+     */
+    private PackedLatLonAltList(PackedLatLonAltList source)
+    {
+        myPrecision = source.myPrecision;
+        myDoubles = source.myDoubles == null ? null : Arrays.copyOf(source.myDoubles, source.mySize * DIM);
+        myFloats = source.myFloats == null ? null : Arrays.copyOf(source.myFloats, source.mySize * DIM);
+        myReferenceLevel = source.myReferenceLevel;
+        myReferenceLevels = source.myReferenceLevels == null ? null : Arrays.copyOf(source.myReferenceLevels, source.mySize);
+        mySize = source.mySize;
+    }
+
+    /**
+     * Appends a location without creating a {@link LatLonAlt}.
+     *
+     * @param latD The latitude in degrees.
+     * @param lonD The longitude in degrees.
+     * @param altM The altitude in meters.
+     * @param referenceLevel The altitude reference level.
+     */
+    public void add(double latD, double lonD, double altM, ReferenceLevel referenceLevel)
+    {
+        ensureCapacity(mySize + 1);
+        setValues(mySize, latD, lonD, altM, referenceLevel);
+        ++mySize;
+        ++modCount;
+    }
+
+    @Override
+    public void add(int index, LatLonAlt element)
+    {
+        if (index < 0 || index > mySize)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mySize);
+        }
+        ensureCapacity(mySize + 1);
+        if (index < mySize)
+        {
+            shift(index, index + 1, mySize - index);
+        }
+        setValues(index, element.getLatD(), element.getLonD(), element.getAltM(), element.getAltitudeReference());
+        ++mySize;
+        ++modCount;
+    }
+
+    @Override
+    public void clear()
+    {
+        mySize = 0;
+        myReferenceLevel = null;
+        myReferenceLevels = null;
+        ++modCount;
+    }
+
+    @Override
+    public LatLonAlt get(int index)
+    {
+        checkIndex(index);
+        return LatLonAlt.createFromDegreesMeters(getValue(index * DIM), getValue(index * DIM + 1), getValue(index * DIM + 2),
+                getReferenceLevel(index));
+    }
+
+    /**
+     * Gets the altitude of a location.
+     *
+     * @param index The index of the location.
+     * @return The altitude in meters.
+     */
+    public double getAltM(int index)
+    {
+        checkIndex(index);
+        return getValue(index * DIM + 2);
+    }
+
+    /**
+     * Gets the latitude of a location.
+     *
+     * @param index The index of the location.
+     * @return The latitude in degrees.
+     */
+    public double getLatD(int index)
+    {
+        checkIndex(index);
+        return getValue(index * DIM);
+    }
+
+    /**
+     * Gets the longitude of a location.
+     *
+     * @param index The index of the location.
+     * @return The longitude in degrees.
+     */
+    public double getLonD(int index)
+    {
+        checkIndex(index);
+        return getValue(index * DIM + 1);
+    }
+
+    /**
+     * Gets the precision of the stored coordinates.
+     *
+     * @return The precision.
+     */
+    public Precision getPrecision()
+    {
+        return myPrecision;
+    }
+
+    /**
+     * Gets the altitude reference level of a location.
+     *
+     * @param index The index of the location.
+     * @return The reference level.
+     */
+    public ReferenceLevel getReferenceLevel(int index)
+    {
+        checkIndex(index);
+        return myReferenceLevels == null ? myReferenceLevel : REFERENCE_LEVELS[myReferenceLevels[index]];
+    }
+
+    @Override
+    public LatLonAlt remove(int index)
+    {
+        LatLonAlt removed = get(index);
+        if (index < mySize - 1)
+        {
+            shift(index + 1, index, mySize - index - 1);
+        }
+        --mySize;
+        ++modCount;
+        return removed;
+    }
+
+    @Override
+    public LatLonAlt set(int index, LatLonAlt element)
+    {
+        LatLonAlt previous = get(index);
+        setValues(index, element.getLatD(), element.getLonD(), element.getAltM(), element.getAltitudeReference());
+        return previous;
+    }
+
+    @Override
+    public int size()
+    {
+        return mySize;
+    }
+
+    /**
+     * Releases any storage beyond what is needed for the current locations.
+     */
+    public void trimToSize()
+    {
+        int length = Math.max(1, mySize) * DIM;
+        if (myDoubles != null && myDoubles.length > length)
+        {
+            myDoubles = Arrays.copyOf(myDoubles, length);
+        }
+        else if (myFloats != null && myFloats.length > length)
+        {
+            myFloats = Arrays.copyOf(myFloats, length);
+        }
+        if (myReferenceLevels != null && myReferenceLevels.length > mySize)
+        {
+            myReferenceLevels = Arrays.copyOf(myReferenceLevels, mySize);
+        }
+    }
+
+    /**
+     * Throws if an index is not in the list.
+     *
+     * @param index The index.
+     */
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= mySize)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mySize);
+        }
+    }
+
+    /**
+     * Grows the storage if necessary.
+     *
+     * @param minCapacity The number of locations that must fit.
+     */
+    private void ensureCapacity(int minCapacity)
+    {
+        int capacity = (myDoubles == null ? myFloats.length : myDoubles.length) / DIM;
+        if (minCapacity > capacity)
+        {
+            int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+            if (myDoubles != null)
+            {
+                myDoubles = Arrays.copyOf(myDoubles, newCapacity * DIM);
+            }
+            else
+            {
+                myFloats = Arrays.copyOf(myFloats, newCapacity * DIM);
+            }
+        }
+        if (myReferenceLevels != null && minCapacity > myReferenceLevels.length)
+        {
+            myReferenceLevels = Arrays.copyOf(myReferenceLevels, Math.max(minCapacity, myReferenceLevels.length * 3 / 2));
+        }
+    }
+
+    /**
+     * Gets a value from the coordinate array.
+     *
+     * @param offset The offset into the array.
+     * @return The value.
+     */
+    private double getValue(int offset)
+    {
+        return myDoubles == null ? myFloats[offset] : myDoubles[offset];
+    }
+
+    /**
+     * Stores the reference level for a location, switching to per-location
+     * reference levels if it does not match the shared one.
+     *
+     * @param index The index of the location.
+     * @param referenceLevel The reference level.
+     */
+    private void setReferenceLevel(int index, ReferenceLevel referenceLevel)
+    {
+        if (myReferenceLevels == null)
+        {
+            if (mySize == 0 || myReferenceLevel == null)
+            {
+                myReferenceLevel = referenceLevel;
+                return;
+            }
+            if (myReferenceLevel == referenceLevel)
+            {
+                return;
+            }
+            int capacity = (myDoubles == null ? myFloats.length : myDoubles.length) / DIM;
+            myReferenceLevels = new byte[capacity];
+            Arrays.fill(myReferenceLevels, (byte)myReferenceLevel.ordinal());
+        }
+        myReferenceLevels[index] = (byte)referenceLevel.ordinal();
+    }
+
+    /**
+     * Stores the values for a location.
+     *
+     * @param index The index of the location.
+     * @param latD The latitude in degrees.
+     * @param lonD The longitude in degrees.
+     * @param altM The altitude in meters.
+     * @param referenceLevel The altitude reference level.
+     */
+    private void setValues(int index, double latD, double lonD, double altM, ReferenceLevel referenceLevel)
+    {
+        int offset = index * DIM;
+        if (myDoubles != null)
+        {
+            myDoubles[offset] = latD;
+            myDoubles[offset + 1] = lonD;
+            myDoubles[offset + 2] = altM;
+        }
+        else
+        {
+            myFloats[offset] = (float)latD;
+            myFloats[offset + 1] = (float)lonD;
+            myFloats[offset + 2] = (float)altM;
+        }
+        setReferenceLevel(index, referenceLevel);
+    }
+
+    /**
+     * Moves locations within the storage.
+     *
+     * @param from The index of the first location to move.
+     * @param to The index to move the first location to.
+     * @param count The number of locations to move.
+     */
+    private void shift(int from, int to, int count)
+    {
+        if (myDoubles != null)
+        {
+            System.arraycopy(myDoubles, from * DIM, myDoubles, to * DIM, count * DIM);
+        }
+        else
+        {
+            System.arraycopy(myFloats, from * DIM, myFloats, to * DIM, count * DIM);
+        }
+        if (myReferenceLevels != null)
+        {
+            System.arraycopy(myReferenceLevels, from, myReferenceLevels, to, count);
+        }
+    }
+
+    /** The precision of the stored coordinates. */
+    public enum Precision
+    {
+        /**
+         * Single precision, which takes half the memory but is only accurate
+         * to a couple of meters.
+         */
+        FLOAT,
+
+        /** Double precision, which is the same as {@link LatLonAlt}. */
+        DOUBLE,
+    }
+}
@@ -20,10 +20,23 @@ import net.jcip.annotations.GuardedBy;
  */
 public abstract class AbstractLayerStateController<T> extends AbstractModuleStateController
 {
+    /**
+     * The modules whose states are activated before layers, so the layers
+     * query with the state's filters, query areas and time.
+     */
+    public static final List<String> LAYER_ACTIVATION_DEPENDENCIES = New.unmodifiableList("Filters", "Query Areas", "Time",
+            "Animation");
+
     /** The map of state ID to activated resources. */
     @GuardedBy("myActivedResources")
     private final Map<String, List<T>> myActivedResources = New.map();
 
+    @Override
+    public Collection<? extends String> getActivationDependencies()
+    {
+        return LAYER_ACTIVATION_DEPENDENCIES;
+    }
+
     @Override
     public void deactivateState(String id, Node node)
     {
@@ -110,6 +110,18 @@ public interface ModuleStateController
      */
     void deactivateState(String id, StateType state) throws InterruptedException;
 
+    /**
+     * Gets the names of the modules whose states must finish activating before
+     * this controller's state is activated. Controllers that do not depend on
+     * each other may be activated at the same time.
+     *
+     * @return The module names.
+     */
+    default Collection<? extends String> getActivationDependencies()
+    {
+        return Collections.emptyList();
+    }
+
     /**
      * Gets the module state dependencies.
      *
@@ -34,7 +34,6 @@ import io.opensphere.core.util.collections.CollectionUtilities;
 import io.opensphere.core.util.collections.LazyMap;
 import io.opensphere.core.util.collections.New;
 import io.opensphere.core.util.lang.StringUtilities;
-import io.opensphere.core.util.lang.ThreadControl;
 import io.opensphere.core.util.ref.Reference;
 import io.opensphere.core.util.ref.WeakReference;
 import net.jcip.annotations.GuardedBy;
@@ -57,9 +56,25 @@ public class ModuleStateManagerImpl implements ModuleStateManager
         return JAXBContextHelper.getCachedContext(array);
     };
 
+    /**
+     * The number of modules that may be activated at the same time. Setting
+     * this to one activates the modules one after the other.
+     */
+    private static final int ACTIVATION_THREADS = Integer.getInteger("opensphere.state.activationThreads", 4).intValue();
+
     /** Logger reference. */
     private static final Logger LOGGER = Logger.getLogger(ModuleStateManagerImpl.class);
 
+    /**
+     * Map of state ids to the controllers that were activated for them, in
+     * activation order.
+     */
+    @GuardedBy("myActivatedControllers")
+    private final Map<String, List<Reference<ModuleStateController>>> myActivatedControllers = New.map();
+
+    /** Schedules the controllers when a state is activated. */
+    private final StateActivationScheduler myActivationScheduler = new StateActivationScheduler(ACTIVATION_THREADS);
+
     /** The active states. */
     @GuardedBy("myActiveStates")
     private final Set<String> myActiveStates = New.set();
@@ -70,6 +85,12 @@ public class ModuleStateManagerImpl implements ModuleStateManager
             New.<String, List<Reference<ModuleStateController>>>insertionOrderMap(), String.class,
             New.<Reference<ModuleStateController>>listFactory());
 
+    /**
+     * Optional callback that makes sure all modules that might register state
+     * controllers are loaded before states are examined.
+     */
+    private volatile Runnable myModuleLoader;
+
     /**
      * The preferences.
      */
@@ -120,6 +141,7 @@ public class ModuleStateManagerImpl implements ModuleStateManager
     @Override
     public Collection<String> detectModules(Node node)
     {
+        loadModules();
         Collection<String> moduleNames = New.set();
         synchronized (myControllerMap)
         {
@@ -142,6 +164,7 @@ public class ModuleStateManagerImpl implements ModuleStateManager
     @Override
     public Collection<String> detectModules(StateType state)
     {
+        loadModules();
         Collection<String> moduleNames = New.set();
         synchronized (myControllerMap)
         {
@@ -182,6 +205,7 @@ public class ModuleStateManagerImpl implements ModuleStateManager
     @Override
     public Collection<? extends String> getModulesThatCanSaveState()
     {
+        loadModules();
         Collection<String> moduleNames = New.set();
         synchronized (myControllerMap)
         {
@@ -204,6 +228,7 @@ public class ModuleStateManagerImpl implements ModuleStateManager
     @Override
     public Collection<? extends String> getModulesThatSaveStateByDefault()
     {
+        loadModules();
         Collection<String> moduleNames = New.set();
         synchronized (myControllerMap)
         {
@@ -455,6 +480,7 @@ public class ModuleStateManagerImpl implements ModuleStateManager
     @Override
     public void toggleState(String id)
     {
+        loadModules();
         StateDataExtended data;
         synchronized (myStateMap)
         {
@@ -484,6 +510,18 @@ public class ModuleStateManagerImpl implements ModuleStateManager
         saveToPreferences();
     }
 
+    /**
+     * Set a callback that makes sure all modules that might register state
+     * controllers are loaded. It is called before states are detected, saved
+     * or activated.
+     *
+     * @param moduleLoader The module loader.
+     */
+    public void setModuleLoader(Runnable moduleLoader)
+    {
+        myModuleLoader = moduleLoader;
+    }
+
     @Override
     public void unregisterModuleStateController(String moduleName, ModuleStateController controller)
     {
@@ -535,14 +573,13 @@ public class ModuleStateManagerImpl implements ModuleStateManager
     protected void activateStates(StateDataExtended data)
     {
         LOGGER.info("Activating module state [" + data.getId() + "]");
-        Collection<ModuleStateController> controllers = getControllers(data.getModules());
+        Map<String, List<ModuleStateController>> controllers = getControllersByModule(data.getModules());
         if (!controllers.isEmpty())
         {
-            for (ModuleStateController controller : controllers)
+            StateActivationScheduler.Result result = myActivationScheduler.activate(data.getId(), controllers, controller ->
             {
                 try
                 {
-                    ThreadControl.check();
                     if (data.getElement() != null)
                     {
                         controller.activateState(data.getId(), data.getDescription(), data.getTags(), data.getElement());
@@ -552,18 +589,28 @@ public class ModuleStateManagerImpl implements ModuleStateManager
                         controller.activateState(data.getId(), data.getDescription(), data.getTags(), data.getState());
                     }
                 }
-                catch (InterruptedException e)
-                {
-                    // This may leave the state partially active.
-                    LOGGER.info("Activation cancelled for state: " + data.getId());
-                    break;
-                }
                 catch (RuntimeException e)
                 {
                     String message = "Error while activating states: " + e;
                     Notify.error(message);
                     LOGGER.error(message, e);
                 }
+            });
+            if (result.isCancelled())
+            {
+                // The state is left partially active; only the controllers
+                // that were started will be deactivated.
+                LOGGER.info("Activation cancelled for state: " + data.getId());
+            }
+
+            List<Reference<ModuleStateController>> activated = New.list(result.getStarted().size());
+            for (ModuleStateController controller : result.getStarted())
+            {
+                activated.add(new WeakReference<>(controller));
+            }
+            synchronized (myActivatedControllers)
+            {
+                myActivatedControllers.put(data.getId(), activated);
             }
         }
     }
@@ -576,7 +623,7 @@ public class ModuleStateManagerImpl implements ModuleStateManager
     protected void deactivateStates(StateDataExtended data)
     {
         LOGGER.info("Deactivating module state [" + data.getId() + "]");
-        Collection<ModuleStateController> controllers = getControllers(data.getModules());
+        Collection<ModuleStateController> controllers = getActivatedControllers(data);
         if (!controllers.isEmpty())
         {
             for (ModuleStateController controller : controllers)
@@ -614,6 +661,58 @@ public class ModuleStateManagerImpl implements ModuleStateManager
     protected Collection<ModuleStateController> getControllers(Collection<? extends String> moduleNames)
     {
         Collection<ModuleStateController> controllers = New.collection(moduleNames.size());
+        for (List<ModuleStateController> moduleControllers : getControllersByModule(moduleNames).values())
+        {
+            controllers.addAll(moduleControllers);
+        }
+        return controllers;
+    }
+
+    /**
+     * Get the controllers that need to be deactivated for a state. If the
+     * state was activated, these are the controllers that were activated, in
+     * reverse order, so that a state whose activation was cancelled is only
+     * deactivated by the controllers that activated it.
+     *
+     * @param data The state data.
+     * @return The controllers.
+     */
+    private Collection<ModuleStateController> getActivatedControllers(StateDataExtended data)
+    {
+        List<Reference<ModuleStateController>> activated;
+        synchronized (myActivatedControllers)
+        {
+            activated = myActivatedControllers.remove(data.getId());
+        }
+        if (activated == null)
+        {
+            return getControllers(data.getModules());
+        }
+
+        List<ModuleStateController> controllers = New.list(activated.size());
+        for (int index = activated.size() - 1; index >= 0; --index)
+        {
+            ModuleStateController controller = activated.get(index).get();
+            if (controller != null)
+            {
+                controllers.add(controller);
+            }
+        }
+        return controllers;
+    }
+
+    /**
+     * Get the controllers with the given module names, plus the controllers
+     * that always save or activate state, keyed by module name. Each
+     * controller is only included once.
+     *
+     * @param moduleNames The module names.
+     * @return The controllers, in registration order.
+     */
+    protected Map<String, List<ModuleStateController>> getControllersByModule(Collection<? extends String> moduleNames)
+    {
+        Map<String, List<ModuleStateController>> controllers = New.insertionOrderMap();
+        Set<ModuleStateController> added = New.set();
         synchronized (myControllerMap)
         {
             for (Entry<String, List<Reference<ModuleStateController>>> entry : myControllerMap.entrySet())
@@ -627,9 +726,9 @@ public class ModuleStateManagerImpl implements ModuleStateManager
                         {
                             LOGGER.warn("Module state controller with module name " + entry.getKey() + " not found.");
                         }
-                        else
+                        else if (added.add(controller))
                         {
-                            controllers.add(controller);
+                            controllers.computeIfAbsent(entry.getKey(), k -> New.list()).add(controller);
                         }
                     }
                 }
@@ -642,9 +741,10 @@ public class ModuleStateManagerImpl implements ModuleStateManager
                 for (Reference<ModuleStateController> ref : entry.getValue())
                 {
                     ModuleStateController controller = ref == null ? null : ref.get();
-                    if (controller != null && (controller.isAlwaysSaveState() || controller.isAlwaysActivateState()))
+                    if (controller != null && (controller.isAlwaysSaveState() || controller.isAlwaysActivateState())
+                            && added.add(controller))
                     {
-                        controllers.add(controller);
+                        controllers.computeIfAbsent(entry.getKey(), k -> New.list()).add(controller);
                     }
                 }
             }
@@ -717,6 +817,18 @@ public class ModuleStateManagerImpl implements ModuleStateManager
                 .trim();
     }
 
+    /**
+     * Make sure all modules that might register state controllers are loaded.
+     */
+    private void loadModules()
+    {
+        Runnable moduleLoader = myModuleLoader;
+        if (moduleLoader != null)
+        {
+            moduleLoader.run();
+        }
+    }
+
     /**
      * Load the states from the preferences.
      */
@@ -0,0 +1,511 @@
+package io.opensphere.core.modulestate;
+
+import java.awt.EventQueue;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.lang.NamedThreadFactory;
+import io.opensphere.core.util.lang.ThreadControl;
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * Activates the module state controllers for a state. The modules are ordered
+ * by the {@link ModuleStateController#getActivationDependencies() activation
+ * dependencies} of their controllers, and modules that do not depend on each
+ * other are activated at the same time on a bounded pool. The controllers of
+ * a single module are activated one after the other in the order they were
+ * registered. Controllers that
+ * {@link ModuleStateController#isAlwaysActivateState() always activate} are
+ * activated after everything else.
+ * <p>
+ * If activation is cancelled, no more controllers are started and the
+ * controllers that are running are interrupted and waited for, so the
+ * controllers reported as started are exactly the ones that need to be
+ * deactivated.
+ */
+class StateActivationScheduler
+{
+    /** Logger reference. */
+    private static final Logger LOGGER = Logger.getLogger(StateActivationScheduler.class);
+
+    /** The executor used to activate the modules, or null to activate them on the calling thread. */
+    private final Executor myExecutor;
+
+    /**
+     * Constructor.
+     *
+     * @param threadCount The number of modules that may be activated at the
+     *            same time. If this is one, the modules are activated on the
+     *            calling thread.
+     */
+    public StateActivationScheduler(int threadCount)
+    {
+        if (threadCount > 1)
+        {
+            // States are activated rarely, so let the threads go when idle.
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new NamedThreadFactory("StateActivation"));
+            executor.allowCoreThreadTimeOut(true);
+            myExecutor = executor;
+        }
+        else
+        {
+            myExecutor = null;
+        }
+    }
+
+    /**
+     * Activates the controllers.
+     *
+     * @param stateId The id of the state, used for reporting.
+     * @param controllers The controllers keyed by module name, in
+     *            registration order.
+     * @param activator Activates a single controller.
+     * @return The result of the activation.
+     */
+    public Result activate(String stateId, Map<String, ? extends List<ModuleStateController>> controllers,
+            Activator activator)
+    {
+        Run run = new Run(activator);
+        long start = System.nanoTime();
+
+        Map<String, Set<String>> waitingOn = New.insertionOrderMap();
+        Map<String, Collection<String>> dependents = New.map();
+        buildGraph(controllers, waitingOn, dependents);
+
+        Deque<String> ready = New.deque();
+        moveReady(waitingOn, ready);
+
+        boolean sequential = myExecutor == null || EventQueue.isDispatchThread();
+        int running = 0;
+        while (!run.isCancelled() && (!ready.isEmpty() || !waitingOn.isEmpty() || running > 0))
+        {
+            if (ready.isEmpty() && running == 0)
+            {
+                // Only a dependency cycle gets here; break it in registration order.
+                String module = waitingOn.keySet().iterator().next();
+                LOGGER.warn("Module state activation dependencies of [" + module + "] could not be satisfied: "
+                        + waitingOn.remove(module));
+                ready.add(module);
+            }
+
+            while (!ready.isEmpty())
+            {
+                String module = ready.poll();
+                List<ModuleStateController> moduleControllers = controllers.get(module);
+                if (sequential)
+                {
+                    run.activateModule(module, moduleControllers);
+                    finish(module, dependents, waitingOn, ready);
+                }
+                else
+                {
+                    ++running;
+                    myExecutor.execute(() ->
+                    {
+                        run.activateModule(module, moduleControllers);
+                        // Do not leave a cancellation interrupt on the pool thread.
+                        Thread.interrupted();
+                    });
+                }
+            }
+
+            if (running > 0)
+            {
+                try
+                {
+                    String finished = run.takeFinished();
+                    --running;
+                    finish(finished, dependents, waitingOn, ready);
+                }
+                catch (InterruptedException e)
+                {
+                    run.cancel();
+                }
+            }
+        }
+
+        if (running > 0)
+        {
+            run.cancel();
+            run.awaitFinished(running);
+        }
+
+        Result result = new Result(run, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        report(stateId, result);
+        return result;
+    }
+
+    /**
+     * Builds the module dependency graph.
+     *
+     * @param controllers The controllers keyed by module name.
+     * @param waitingOn Populated with the modules that each module must wait
+     *            for.
+     * @param dependents Populated with the modules that wait for each module.
+     */
+    private void buildGraph(Map<String, ? extends List<ModuleStateController>> controllers,
+            Map<String, Set<String>> waitingOn, Map<String, Collection<String>> dependents)
+    {
+        Set<String> alwaysActivate = New.set();
+        for (Entry<String, ? extends List<ModuleStateController>> entry : controllers.entrySet())
+        {
+            Set<String> dependencies = New.set();
+            for (ModuleStateController controller : entry.getValue())
+            {
+                Collection<? extends String> declared = controller.getActivationDependencies();
+                if (declared != null)
+                {
+                    dependencies.addAll(declared);
+                }
+                if (controller.isAlwaysActivateState())
+                {
+                    alwaysActivate.add(entry.getKey());
+                }
+            }
+            dependencies.remove(entry.getKey());
+            dependencies.retainAll(controllers.keySet());
+            waitingOn.put(entry.getKey(), dependencies);
+        }
+
+        for (String module : alwaysActivate)
+        {
+            for (String other : controllers.keySet())
+            {
+                if (!alwaysActivate.contains(other))
+                {
+                    waitingOn.get(module).add(other);
+                }
+            }
+        }
+
+        for (Entry<String, Set<String>> entry : waitingOn.entrySet())
+        {
+            for (String dependency : entry.getValue())
+            {
+                dependents.computeIfAbsent(dependency, k -> New.list()).add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Marks a module finished and moves any modules that were waiting only on
+     * it to the ready queue.
+     *
+     * @param module The finished module.
+     * @param dependents The modules that wait for each module.
+     * @param waitingOn The modules that each waiting module must wait for.
+     * @param ready The ready queue.
+     */
+    private void finish(String module, Map<String, Collection<String>> dependents, Map<String, Set<String>> waitingOn,
+            Deque<String> ready)
+    {
+        for (String dependent : dependents.getOrDefault(module, Collections.emptyList()))
+        {
+            Set<String> remaining = waitingOn.get(dependent);
+            if (remaining != null)
+            {
+                remaining.remove(module);
+            }
+        }
+        moveReady(waitingOn, ready);
+    }
+
+    /**
+     * Moves the modules that are not waiting on anything to the ready queue.
+     *
+     * @param waitingOn The modules that each waiting module must wait for.
+     * @param ready The ready queue.
+     */
+    private void moveReady(Map<String, Set<String>> waitingOn, Deque<String> ready)
+    {
+        for (Iterator<Entry<String, Set<String>>> iter = waitingOn.entrySet().iterator(); iter.hasNext();)
+        {
+            Entry<String, Set<String>> entry = iter.next();
+            if (entry.getValue().isEmpty())
+            {
+                ready.add(entry.getKey());
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Logs how long each controller took to activate.
+     *
+     * @param stateId The id of the state.
+     * @param result The result of the activation.
+     */
+    private void report(String stateId, Result result)
+    {
+        if (LOGGER.isInfoEnabled())
+        {
+            StringBuilder sb = new StringBuilder(128).append("Activated state [").append(stateId).append("] in ")
+                    .append(result.getElapsedMillis()).append(" ms");
+            if (result.isCancelled())
+            {
+                sb.append(" (cancelled)");
+            }
+            result.getTimings().entrySet().stream().sorted((a, b) -> Long.compare(b.getValue().longValue(),
+                    a.getValue().longValue())).forEach(e -> sb.append(System.lineSeparator()).append("  ")
+                            .append(e.getKey()).append(": ").append(e.getValue()).append(" ms"));
+            LOGGER.info(sb.toString());
+        }
+    }
+
+    /** Activates a single controller. */
+    @FunctionalInterface
+    public interface Activator
+    {
+        /**
+         * Activates the controller.
+         *
+         * @param controller The controller.
+         * @throws InterruptedException If activation is interrupted.
+         */
+        void activate(ModuleStateController controller) throws InterruptedException;
+    }
+
+    /** The result of an activation. */
+    public static class Result
+    {
+        /** Whether activation was cancelled. */
+        private final boolean myCancelled;
+
+        /** The time the activation took, in milliseconds. */
+        private final long myElapsedMillis;
+
+        /** The controllers whose activation was started, in start order. */
+        private final List<ModuleStateController> myStarted;
+
+        /** How long each controller took to activate, in milliseconds, keyed by module and controller. */
+        private final Map<String, Long> myTimings;
+
+        /**
+         * Constructor.
+         *
+         * @param run The finished run.
+         * @param elapsedMillis The time the activation took, in milliseconds.
+         */
+        Result(Run run, long elapsedMillis)
+        {
+            synchronized (run)
+            {
+                myCancelled = run.isCancelled();
+                myStarted = New.unmodifiableList(run.myStarted);
+                myTimings = New.unmodifiableMap(run.myTimings);
+            }
+            myElapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Gets the time the activation took.
+         *
+         * @return The time in milliseconds.
+         */
+        public long getElapsedMillis()
+        {
+            return myElapsedMillis;
+        }
+
+        /**
+         * Gets the controllers whose activation was started, in the order
+         * they were started. This includes controllers that failed or were
+         * interrupted, since they may have partially activated.
+         *
+         * @return The started controllers.
+         */
+        public List<ModuleStateController> getStarted()
+        {
+            return myStarted;
+        }
+
+        /**
+         * Gets how long each controller took to activate.
+         *
+         * @return The times in milliseconds, keyed by module name and
+         *         controller type.
+         */
+        public Map<String, Long> getTimings()
+        {
+            return myTimings;
+        }
+
+        /**
+         * Gets whether activation was cancelled before all the controllers
+         * were activated.
+         *
+         * @return True if cancelled.
+         */
+        public boolean isCancelled()
+        {
+            return myCancelled;
+        }
+    }
+
+    /** The bookkeeping for a single activation. */
+    private static class Run
+    {
+        /** Activates a single controller. */
+        private final Activator myActivator;
+
+        /** Whether activation has been cancelled. */
+        @GuardedBy("this")
+        private boolean myCancelled;
+
+        /** The modules that have finished, in finish order. */
+        private final BlockingQueue<String> myFinished = new LinkedBlockingQueue<>();
+
+        /** The threads that are activating controllers. */
+        @GuardedBy("this")
+        private final Set<Thread> myRunners = New.set();
+
+        /** The controllers whose activation was started, in start order. */
+        @GuardedBy("this")
+        private final List<ModuleStateController> myStarted = New.list();
+
+        /** How long each controller took to activate, keyed by module and controller. */
+        @GuardedBy("this")
+        private final Map<String, Long> myTimings = New.insertionOrderMap();
+
+        /**
+         * Constructor.
+         *
+         * @param activator Activates a single controller.
+         */
+        public Run(Activator activator)
+        {
+            myActivator = activator;
+        }
+
+        /**
+         * Activates the controllers for a module, one after the other.
+         *
+         * @param module The module name.
+         * @param controllers The module's controllers.
+         */
+        public void activateModule(String module, List<ModuleStateController> controllers)
+        {
+            try
+            {
+                for (ModuleStateController controller : controllers)
+                {
+                    synchronized (this)
+                    {
+                        if (myCancelled)
+                        {
+                            break;
+                        }
+                        myStarted.add(controller);
+                        myRunners.add(Thread.currentThread());
+                    }
+
+                    long start = System.nanoTime();
+                    try
+                    {
+                        ThreadControl.check();
+                        myActivator.activate(controller);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        LOGGER.info("Activation of module [" + module + "] was interrupted.");
+                        cancel();
+                    }
+                    finally
+                    {
+                        synchronized (this)
+                        {
+                            myRunners.remove(Thread.currentThread());
+                            myTimings.merge(module + "/" + controller.getClass().getSimpleName(),
+                                    Long.valueOf(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)), Long::sum);
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                myFinished.add(module);
+            }
+        }
+
+        /**
+         * Waits for the running modules to finish, ignoring interrupts.
+         *
+         * @param count The number of modules still running.
+         */
+        public void awaitFinished(int count)
+        {
+            boolean interrupted = false;
+            for (int remaining = count; remaining > 0;)
+            {
+                try
+                {
+                    myFinished.take();
+                    --remaining;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Stops any more controllers from starting and interrupts the ones
+         * that are running.
+         */
+        public synchronized void cancel()
+        {
+            if (!myCancelled)
+            {
+                myCancelled = true;
+                for (Thread runner : myRunners)
+                {
+                    if (runner != Thread.currentThread())
+                    {
+                        runner.interrupt();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Gets whether activation has been cancelled.
+         *
+         * @return True if cancelled.
+         */
+        public synchronized boolean isCancelled()
+        {
+            return myCancelled;
+        }
+
+        /**
+         * Waits for a module to finish.
+         *
+         * @return The finished module.
+         * @throws InterruptedException If the wait is interrupted.
+         */
+        public String takeFinished() throws InterruptedException
+        {
+            return myFinished.take();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
 import io.opensphere.core.Toolbox;
+import io.opensphere.core.geometry.TileRequestScheduler;
 import io.opensphere.core.pipeline.cache.CacheProvider;
 import io.opensphere.core.pipeline.processor.LabelOcclusionManager;
 import io.opensphere.core.pipeline.processor.ProcessorBuilder;
@@ -38,7 +39,12 @@ public final class ProcessorBuilderInit
         processorBuilder.setScheduledExecutorService(scheduledExecutorService);
         processorBuilder
         .setPriorityComparator(new SpatialTemporalGeometryComparator(toolbox.getMapManager(), toolbox.getTimeManager()));
-        processorBuilder.setDataRetriever(toolbox.getGeometryRegistry().getDataRetrieverExecutor());
+        ExecutorService dataRetriever = toolbox.getGeometryRegistry().getDataRetrieverExecutor();
+        if (dataRetriever instanceof TileRequestScheduler)
+        {
+            ((TileRequestScheduler)dataRetriever).setMapContext(toolbox.getMapManager());
+        }
+        processorBuilder.setDataRetriever(dataRetriever);
         processorBuilder.setTimeManager(toolbox.getTimeManager());
         processorBuilder.setAnimationManager(toolbox.getAnimationManager());
         processorBuilder.setRepaintListener(repaintListener);
@@ -21,6 +21,7 @@ import io.opensphere.core.geometry.ConstrainableGeometry;
 import io.opensphere.core.geometry.Geometry;
 import io.opensphere.core.geometry.HierarchicalGeometry;
 import io.opensphere.core.geometry.RenderableGeometry;
+import io.opensphere.core.geometry.constraint.Constraints;
 import io.opensphere.core.geometry.constraint.ConstraintsChangedEvent;
 import io.opensphere.core.geometry.constraint.TimeConstraint;
 import io.opensphere.core.geometry.renderproperties.BaseRenderProperties;
@@ -88,7 +89,7 @@ public abstract class AbstractProcessor<E extends Geometry> implements Renderabl
     private volatile boolean myClosed;
 
     /** The constraint checker. */
-    private final ConstraintChecker myConstraintChecker;
+    private volatile ConstraintChecker myConstraintChecker;
 
     /** Executor to handle setting myOnscreenDirty. */
     private final ProcrastinatingExecutor myDirtyExecutor;
@@ -762,6 +763,18 @@ public abstract class AbstractProcessor<E extends Geometry> implements Renderabl
         return GeographicPosition.class.isAssignableFrom(getPositionType());
     }
 
+    @Override
+    public boolean setGroupConstraints(Constraints positiveGroupConstraints, Constraints negativeGroupConstraints)
+    {
+        // Keep the old status so the on-screen geometries are recalculated if
+        // it was unknown.
+        ConstraintChecker checker = new ConstraintChecker(positiveGroupConstraints, negativeGroupConstraints);
+        checker.setTimeConstraintStatus(myConstraintChecker.getTimeConstraintStatus());
+        myConstraintChecker = checker;
+        handleTimeSpansChanged();
+        return true;
+    }
+
     @Override
     public void switchToProjection(Projection projectionSnapshot)
     {
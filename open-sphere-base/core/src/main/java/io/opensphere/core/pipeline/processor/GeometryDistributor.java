@@ -104,7 +104,8 @@ public class GeometryDistributor
                 myActiveTimeSpans = newActive;
                 myPendingActiveTimeSpans = newActive;
 
-                boolean setTimedToUnprocessed;
+                boolean primaryChanged;
+                boolean setTimedToUnprocessed = false;
                 final Collection<TimeSpan> newSecondary = New.collection();
                 myProcessorsLock.readLock().lock();
                 try
@@ -113,8 +114,8 @@ public class GeometryDistributor
                     // processors should be the ones that correspond with the
                     // active time spans. So if the covered primary time spans
                     // contain time spans that are not currently active, the
-                    // processors for those times need to be removed.
-                    setTimedToUnprocessed = myAnimationPlan == null
+                    // processors for those times need to be moved or removed.
+                    primaryChanged = myAnimationPlan == null
                             && !newActive.getPrimary().containsAll(myCoveredPrimaryTimeSpans);
 
                     // If there are any new secondary time spans, redistribute
@@ -157,13 +158,19 @@ public class GeometryDistributor
                     myProcessorsLock.readLock().unlock();
                 }
 
+                // When only the primary time spans have moved, move the
+                // processors along with them rather than redistributing.
+                if (primaryChanged && !setTimedToUnprocessed && !moveProcessors(newActive))
+                {
+                    setTimedToUnprocessed = true;
+                }
                 if (setTimedToUnprocessed)
                 {
                     setTimedToUnprocessed(new TimeSpanArrayList(newSecondary), newActive);
                 }
 
-                if (!myUnprocessedAdds.isEmpty()
-                        && (setTimedToUnprocessed || !myCoveredPrimaryTimeSpans.covers(newActive.getPrimary())))
+                if (!myUnprocessedAdds.isEmpty() && (primaryChanged || setTimedToUnprocessed
+                        || !myCoveredPrimaryTimeSpans.covers(newActive.getPrimary())))
                 {
                     processUnprocessed();
                 }
@@ -398,13 +405,24 @@ public class GeometryDistributor
     /** The system time manager. */
     private final TimeManager myTimeManager;
 
+    /**
+     * All of the geometries with time constraints, wherever they have been
+     * distributed. These are indexed by time and kept across time changes so
+     * that the geometries that enter and leave a time span can be found
+     * without collecting the geometries from the processors.
+     */
+    @GuardedBy("myUnprocessedGeometryLock")
+    private final TimeIndexedGeometrySet myTimedGeometries = new TimeIndexedGeometrySet();
+
     /**
      * Any time there are geometries which are time constrained, but there is no
      * animation plan for determining the processor keys, the geometries must be
      * stored until the animation plan is available or until the geometries are
-     * removed from the distributor.
+     * removed from the distributor. These are indexed by time so that when the
+     * time spans change only the geometries that may be in the new time spans
+     * need to be sorted again.
      */
-    private List<Geometry> myUnprocessedAdds = New.list();
+    private final TimeIndexedGeometrySet myUnprocessedAdds = new TimeIndexedGeometrySet();
 
     /** Lock for changing the unprocessed geometries. */
     private final Lock myUnprocessedGeometryLock = new ReentrantLock();
@@ -508,6 +526,7 @@ public class GeometryDistributor
         myUnprocessedGeometryLock.lock();
         try
         {
+            myTimedGeometries.clear();
             removeTimeListeners();
         }
         finally
@@ -703,6 +722,17 @@ public class GeometryDistributor
                 myUnprocessedAdds.removeAll(adds);
                 myUnprocessedAdds.removeAll(removes);
             }
+            if (!myTimedGeometries.isEmpty())
+            {
+                myTimedGeometries.removeAll(removes);
+            }
+            for (final Geometry geom : adds)
+            {
+                if (getTimeConstraint(geom) != null)
+                {
+                    myTimedGeometries.add(geom);
+                }
+            }
 
             // In order to ensure that the removes are not added to the
             // unprocessed adds until distribution is complete, keep the
@@ -759,6 +789,29 @@ public class GeometryDistributor
         myProcessorBuilder.getAnimationManager().addAnimationChangeListener(myAnimationListener);
     }
 
+    /**
+     * Add a geometry to the collection for its processor key.
+     *
+     * @param keyToGeoms The geometries by processor key.
+     * @param geom The geometry.
+     * @param hull A mutable key to be used in order to avoid allocating memory.
+     * @param constraintKey The constraint key, which may be {@code null}.
+     * @param time The time span of the processor key.
+     */
+    private void addByKey(LazyMap<ProcessorDistributionKey, Collection<Geometry>> keyToGeoms, Geometry geom,
+            ProcessorDistributionKey hull, Object constraintKey, TimeSpan time)
+    {
+        hull.set(geom, constraintKey, time);
+        if (keyToGeoms.containsKey(hull))
+        {
+            keyToGeoms.get(hull).add(geom);
+        }
+        else
+        {
+            keyToGeoms.get(new ImmutableProcessorDistributionKey(geom, constraintKey, time)).add(geom);
+        }
+    }
+
     /**
      * Check the given time span against the active time span to see if the
      * input time span should be active.
@@ -1077,6 +1130,71 @@ public class GeometryDistributor
         }
     }
 
+    /**
+     * Get the time spans that timed geometries without a constraint key are
+     * sorted into, if those are the only time spans they can be sorted into.
+     *
+     * @param activeTimeSpans The active time spans.
+     * @return The time spans, or {@code null} if geometries may also be sorted
+     *         into wildcard secondary time spans or there are no time spans.
+     */
+    private Collection<? extends TimeSpan> getPrimarySortTimeSpans(ActiveTimeSpans activeTimeSpans)
+    {
+        if (activeTimeSpans == null)
+        {
+            return myAnimationPlan == null ? null : myAnimationPlan.getTimeCoverage();
+        }
+        if (activeTimeSpans.getSecondary().get(TimeManager.WILDCARD_CONSTRAINT_KEY) != null)
+        {
+            return null;
+        }
+        return myAnimationPlan == null ? activeTimeSpans.getPrimary() : myAnimationPlan.getTimeCoverage();
+    }
+
+    /**
+     * Get all of the time spans that timed geometries may be sorted into.
+     *
+     * @param activeTimeSpans The active time spans.
+     * @return The time spans.
+     */
+    private Collection<TimeSpan> getSortTimeSpans(ActiveTimeSpans activeTimeSpans)
+    {
+        final Collection<TimeSpan> spans = New.set();
+        if (activeTimeSpans != null)
+        {
+            for (final Collection<? extends TimeSpan> secondary : activeTimeSpans.getSecondary().values())
+            {
+                spans.addAll(secondary);
+            }
+        }
+        if (myAnimationPlan != null)
+        {
+            spans.addAll(myAnimationPlan.getTimeCoverage());
+        }
+        else if (activeTimeSpans != null)
+        {
+            spans.addAll(activeTimeSpans.getPrimary());
+        }
+        return spans;
+    }
+
+    /**
+     * Get the time constraint of a geometry.
+     *
+     * @param geom The geometry.
+     * @return The time constraint, or {@code null} if the geometry does not
+     *         have one.
+     */
+    private static TimeConstraint getTimeConstraint(Geometry geom)
+    {
+        if (geom instanceof ConstrainableGeometry)
+        {
+            final Constraints constraints = ((ConstrainableGeometry)geom).getConstraints();
+            return constraints == null ? null : constraints.getTimeConstraint();
+        }
+        return null;
+    }
+
     /**
      * Determine whether the processor key is in the valid range for having a
      * processor created. If it is not in range, it should be put into the
@@ -1127,6 +1245,183 @@ public class GeometryDistributor
         return inRange;
     }
 
+    /**
+     * Determine if a timed geometry is sorted into the primary time spans,
+     * which is when it is not sorted into any secondary time spans.
+     *
+     * @param constraint The geometry's time constraint.
+     * @param activeTimeSpans The active time spans, which must not include
+     *            wildcard secondary time spans.
+     * @return {@code true} if the geometry is sorted into the primary time
+     *         spans.
+     */
+    private boolean isSortedToPrimary(TimeConstraint constraint, ActiveTimeSpans activeTimeSpans)
+    {
+        if (constraint.getKey() == null)
+        {
+            return true;
+        }
+        final Collection<? extends TimeSpan> secondary = activeTimeSpans.getSecondary().get(constraint.getKey());
+        return secondary == null || !secondary.stream().anyMatch(constraint::check);
+    }
+
+    /**
+     * Move the processors for the primary time spans that are no longer active
+     * to the primary time spans that have become active, and send them only
+     * the geometries that enter and leave their time spans. The old and new
+     * time spans are paired in time order. This is only done when there is no
+     * animation plan, the secondary time spans have not changed, and the same
+     * number of time spans were replaced as were added. A lock must be
+     * obtained on {@link #myUnprocessedGeometryLock} prior to making this
+     * call.
+     *
+     * @param activeTimeSpans The new active time spans.
+     * @return {@code false} if the processors could not be moved and must be
+     *         redistributed instead.
+     */
+    private boolean moveProcessors(ActiveTimeSpans activeTimeSpans)
+    {
+        if (myAnimationPlan != null || activeTimeSpans.getSecondary().get(TimeManager.WILDCARD_CONSTRAINT_KEY) != null)
+        {
+            return false;
+        }
+
+        myProcessorsLock.writeLock().lock();
+        try
+        {
+            for (final ProcessorDistributionKey key : myInactiveGeometries.keySet())
+            {
+                if (!key.getTimeSpan().isTimeless())
+                {
+                    return false;
+                }
+            }
+
+            final Map<TimeSpan, List<Entry<ProcessorDistributionKey, GeometryProcessor<? extends Geometry>>>> oldProcessors = New
+                    .naturalOrderMap();
+            final Set<TimeSpan> coveredSpans = New.set();
+            for (final Entry<ProcessorDistributionKey, GeometryProcessor<? extends Geometry>> entry : myGeometryProcessorsMap
+                    .entrySet())
+            {
+                final TimeSpan span = entry.getKey().getTimeSpan();
+                if (entry.getKey().getConstraintKey() == null && !span.isTimeless())
+                {
+                    coveredSpans.add(span);
+                    if (!activeTimeSpans.getPrimary().contains(span))
+                    {
+                        oldProcessors.computeIfAbsent(span, k -> New.list()).add(entry);
+                    }
+                }
+            }
+            final List<TimeSpan> newSpans = New.list(activeTimeSpans.getPrimary());
+            newSpans.removeAll(coveredSpans);
+            if (oldProcessors.size() != newSpans.size())
+            {
+                return false;
+            }
+            Collections.sort(newSpans);
+
+            final LazyMap<ProcessorDistributionKey, Collection<Geometry>> enters = LazyMap.create(
+                    New.<ProcessorDistributionKey, Collection<Geometry>>map(), ProcessorDistributionKey.class,
+                    New.<Geometry>listFactory());
+            final LazyMap<ProcessorDistributionKey, Collection<Geometry>> leaves = LazyMap.create(
+                    New.<ProcessorDistributionKey, Collection<Geometry>>map(), ProcessorDistributionKey.class,
+                    New.<Geometry>listFactory());
+            final Collection<Geometry> left = New.collection();
+            final ProcessorDistributionKey hull = new ProcessorDistributionKey();
+            final Iterator<TimeSpan> newSpanIter = newSpans.iterator();
+            for (final Entry<TimeSpan, List<Entry<ProcessorDistributionKey, GeometryProcessor<? extends Geometry>>>> oldEntry : oldProcessors
+                    .entrySet())
+            {
+                final TimeSpan oldSpan = oldEntry.getKey();
+                final TimeSpan newSpan = newSpanIter.next();
+                for (final Entry<ProcessorDistributionKey, GeometryProcessor<? extends Geometry>> entry : oldEntry.getValue())
+                {
+                    moveProcessor(entry.getKey(), entry.getValue(), newSpan);
+                }
+
+                // Only the geometries near the edges that moved can enter or
+                // leave the span.
+                for (final Geometry geom : myTimedGeometries.getChangeCandidates(oldSpan, newSpan))
+                {
+                    final TimeConstraint constraint = getTimeConstraint(geom);
+                    if (!isSortedToPrimary(constraint, activeTimeSpans))
+                    {
+                        continue;
+                    }
+                    final boolean inOld = constraint.check(oldSpan);
+                    final boolean inNew = constraint.check(newSpan);
+                    if (inOld && !inNew)
+                    {
+                        addByKey(leaves, geom, hull, null, newSpan);
+                        left.add(geom);
+                    }
+                    else if (inNew && !inOld)
+                    {
+                        addByKey(enters, geom, hull, null, newSpan);
+                        myUnprocessedAdds.remove(geom);
+                    }
+                }
+            }
+
+            // Send the adds and removes for each processor together, so a
+            // processor is not closed because it is briefly empty.
+            for (final Entry<ProcessorDistributionKey, Collection<Geometry>> addEntry : enters.entrySet())
+            {
+                distributeAddByKey(addEntry, leaves);
+            }
+            for (final Entry<ProcessorDistributionKey, Collection<Geometry>> removeEntry : leaves.entrySet())
+            {
+                distributeRemoveByKey(removeEntry);
+            }
+
+            // Geometries that are no longer in any time span wait in the
+            // unprocessed adds.
+            for (final Geometry geom : left)
+            {
+                if (!getTimeConstraint(geom).check(activeTimeSpans.getPrimary()))
+                {
+                    myUnprocessedAdds.add(geom);
+                }
+            }
+
+            recalculateCoveredTimeSpans();
+            myGeometryProcessorsSnapshot = Collections.unmodifiableCollection(New.collection(myGeometryProcessorsMap.values()));
+        }
+        finally
+        {
+            myProcessorsLock.writeLock().unlock();
+        }
+        populateRenderableProcessors();
+        return true;
+    }
+
+    /**
+     * Move a processor to a new primary time span. If the processor does not
+     * support moving, it is closed and its geometries and the geometries that
+     * may be in the new time span are put in my unprocessed adds. This
+     * assumes that {@link #myProcessorsLock} is already locked.
+     *
+     * @param key The processor's key.
+     * @param processor The processor.
+     * @param newSpan The new time span.
+     */
+    private void moveProcessor(ProcessorDistributionKey key, GeometryProcessor<? extends Geometry> processor, TimeSpan newSpan)
+    {
+        myGeometryProcessorsMap.remove(key);
+        if (processor.setGroupConstraints(new Constraints(new StrictTimeConstraint(null, newSpan)),
+                new Constraints(TimeConstraint.getNegativeTimeConstraint(null, newSpan))))
+        {
+            myGeometryProcessorsMap.put(new ImmutableProcessorDistributionKey(key, newSpan), processor);
+        }
+        else
+        {
+            myUnprocessedAdds.addAll(processor.getGeometries());
+            myUnprocessedAdds.addAll(myTimedGeometries.getCandidates(Collections.singleton(newSpan)));
+            processor.close();
+        }
+    }
+
     /**
      * Populate my renderable processors from my current processors based on
      * type.
@@ -1179,16 +1474,18 @@ public class GeometryDistributor
         try
         {
             // Processing the unprocessed geometries may result in them being
-            // added back to one of the unprocessed maps, so create a clean set
-            // of maps for them to be added to.
+            // added back to the unprocessed set, so remove them first. Only
+            // the geometries that may overlap the time spans used for sorting
+            // are removed, since the rest would just be added back.
             if (myUnprocessedAdds.isEmpty())
             {
                 unprocAdds = null;
             }
             else
             {
-                unprocAdds = myUnprocessedAdds;
-                myUnprocessedAdds = New.list();
+                final Collection<? extends TimeSpan> sortSpans = getPrimarySortTimeSpans(myActiveTimeSpans);
+                unprocAdds = sortSpans == null ? myUnprocessedAdds.removeAllGeometries()
+                        : myUnprocessedAdds.removeCandidates(sortSpans);
             }
         }
         finally
@@ -1263,11 +1560,13 @@ public class GeometryDistributor
     }
 
     /**
-     * Collect up the time restrained geometries from their respective
-     * processors and put them in my list of unprocessed adds. This should be
-     * done when the processors are being removed or recreated because of
-     * animation plan changes. A lock must be obtained on
-     * {@link #myUnprocessedGeometryLock} prior to making this call.
+     * Remove the timed processors that no longer match the time spans and put
+     * their geometries in my unprocessed adds, along with the geometries that
+     * may belong in processors for new time spans. The processors that are
+     * kept keep their geometries. This should be done when the processors are
+     * being removed or recreated because of animation plan changes. A lock
+     * must be obtained on {@link #myUnprocessedGeometryLock} prior to making
+     * this call.
      *
      * @param newSecondary List of new secondary time spans.
      * @param activeTimeSpans The active time spans.
@@ -1278,6 +1577,7 @@ public class GeometryDistributor
         myProcessorsLock.writeLock().lock();
         try
         {
+            final Set<TimeSpan> keptSpans = New.set();
             for (final Iterator<Entry<ProcessorDistributionKey, GeometryProcessor<? extends Geometry>>> iter = myGeometryProcessorsMap
                     .entrySet().iterator(); iter.hasNext();)
             {
@@ -1285,11 +1585,6 @@ public class GeometryDistributor
                 final GeometryProcessor<? extends Geometry> proc = entry.getValue();
                 if (!entry.getKey().getTimeSpan().isTimeless())
                 {
-                    // Always move geometries to unprocessed in case new
-                    // processors are created that overlap the time spans of
-                    // the existing processors.
-                    moveToUnprocessed.addAll(proc.getGeometries());
-
                     // Determine if the processor can still be used.
                     boolean remove;
                     if (entry.getKey().getConstraintKey() == null)
@@ -1314,11 +1609,26 @@ public class GeometryDistributor
 
                     if (remove)
                     {
+                        moveToUnprocessed.addAll(proc.getGeometries());
                         iter.remove();
                         proc.close();
                     }
+                    else
+                    {
+                        keptSpans.add(entry.getKey().getTimeSpan());
+                    }
                 }
             }
+
+            // The geometries in the processors that are kept may also belong
+            // in processors that are created for new time spans, so find them
+            // in the time index.
+            final Collection<TimeSpan> newSpans = getSortTimeSpans(activeTimeSpans);
+            newSpans.removeAll(keptSpans);
+            if (!newSpans.isEmpty())
+            {
+                moveToUnprocessed.addAll(myTimedGeometries.getCandidates(newSpans));
+            }
             recalculateCoveredTimeSpans();
             myGeometryProcessorsSnapshot = Collections.unmodifiableCollection(New.collection(myGeometryProcessorsMap.values()));
 
@@ -1504,15 +1814,7 @@ public class GeometryDistributor
                             if (timeConstr == null || timeConstr.check(time))
                             {
                                 foundKey = true;
-                                hull.set(geom, constraintKey, time);
-                                if (keyToGeoms.containsKey(hull))
-                                {
-                                    keyToGeoms.get(hull).add(geom);
-                                }
-                                else
-                                {
-                                    keyToGeoms.get(new ImmutableProcessorDistributionKey(geom, constraintKey, time)).add(geom);
-                                }
+                                addByKey(keyToGeoms, geom, hull, constraintKey, time);
                             }
                         }
                         return foundKey;
@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Comparator;
 
 import io.opensphere.core.geometry.Geometry;
+import io.opensphere.core.geometry.constraint.Constraints;
 import io.opensphere.core.messaging.GenericSubscriber;
 import io.opensphere.core.projection.Projection;
 import io.opensphere.core.projection.ProjectionChangedEvent;
@@ -98,6 +99,24 @@ public interface GeometryProcessor<E extends Geometry> extends GenericSubscriber
      */
     boolean sensitiveToProjectionChanges();
 
+    /**
+     * Replace the constraints that are satisfied by all or none of this
+     * processor's geometries. This allows the processor to be moved to a new
+     * time span when the geometries that enter and leave the time span are
+     * sent to it.
+     *
+     * @param positiveGroupConstraints If these constraints are satisfied,
+     *            individual constraints are all satisfied.
+     * @param negativeGroupConstraints If these constraints are satisfied,
+     *            individual constraints are all <b>not</b> satisfied.
+     * @return {@code true} if the constraints were replaced, {@code false}
+     *         if this processor does not support it.
+     */
+    default boolean setGroupConstraints(Constraints positiveGroupConstraints, Constraints negativeGroupConstraints)
+    {
+        return false;
+    }
+
     /**
      * Switch to using this projection snapshot.
      *
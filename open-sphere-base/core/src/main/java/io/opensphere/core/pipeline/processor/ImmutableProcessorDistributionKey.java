@@ -21,6 +21,17 @@ public class ImmutableProcessorDistributionKey extends ProcessorDistributionKey
         super(geom, constraintKey, timeSpan);
     }
 
+    /**
+     * Constructor that copies another key with a different time span.
+     *
+     * @param key The key to copy.
+     * @param timeSpan The time over which this key is valid.
+     */
+    public ImmutableProcessorDistributionKey(ProcessorDistributionKey key, TimeSpan timeSpan)
+    {
+        super(key, timeSpan);
+    }
+
     @Override
     @SuppressWarnings("PMD.UselessOverridingMethod")
     public boolean equals(Object obj)
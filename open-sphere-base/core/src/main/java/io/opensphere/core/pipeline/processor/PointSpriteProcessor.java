@@ -2,20 +2,30 @@ package io.opensphere.core.pipeline.processor;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.nio.IntBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Lock;
 import java.util.function.Function;
 
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2GL3;
+import javax.media.opengl.GLContext;
+
+import org.apache.log4j.Logger;
+
 import com.jogamp.opengl.util.texture.TextureCoords;
 
 import io.opensphere.core.geometry.AbstractGeometry.RenderMode;
 import io.opensphere.core.geometry.Geometry;
+import io.opensphere.core.geometry.ImageGroup;
 import io.opensphere.core.geometry.ImageManager;
 import io.opensphere.core.geometry.PointSpriteGeometry;
 import io.opensphere.core.geometry.SingletonImageProvider;
@@ -24,6 +34,8 @@ import io.opensphere.core.geometry.renderproperties.PointRenderProperties;
 import io.opensphere.core.geometry.renderproperties.PointScaleRenderProperty;
 import io.opensphere.core.geometry.renderproperties.PointSizeRenderProperty;
 import io.opensphere.core.geometry.renderproperties.RenderPropertyChangedEvent;
+import io.opensphere.core.image.Image;
+import io.opensphere.core.image.ImageIOImage;
 import io.opensphere.core.math.Vector3d;
 import io.opensphere.core.model.Altitude;
 import io.opensphere.core.model.GeographicPosition;
@@ -31,11 +43,17 @@ import io.opensphere.core.model.LatLonAlt;
 import io.opensphere.core.pipeline.renderer.AbstractRenderer;
 import io.opensphere.core.pipeline.renderer.DelegatingRenderer;
 import io.opensphere.core.pipeline.renderer.GeometryRenderer;
+import io.opensphere.core.pipeline.renderer.buffered.PointSpriteRendererBuffered;
+import io.opensphere.core.pipeline.util.AtlasTextureGroup;
+import io.opensphere.core.pipeline.util.GLUtilities;
+import io.opensphere.core.pipeline.util.TextureAtlas;
+import io.opensphere.core.pipeline.util.TextureDataGroup;
 import io.opensphere.core.pipeline.util.TextureGroup;
 import io.opensphere.core.pipeline.util.TextureHandle;
 import io.opensphere.core.projection.Projection;
 import io.opensphere.core.projection.ProjectionChangedEvent;
 import io.opensphere.core.units.length.Kilometers;
+import io.opensphere.core.util.BufferUtilities;
 import io.opensphere.core.util.Constants;
 import io.opensphere.core.util.MemoizingSupplier;
 import io.opensphere.core.util.TimeBudget;
@@ -48,6 +66,7 @@ import io.opensphere.core.util.concurrent.ThreadedStateMachine.StateController;
 import io.opensphere.core.viewer.ViewChangeSupport;
 import io.opensphere.core.viewer.Viewer;
 import io.opensphere.core.viewer.impl.DynamicViewer;
+import net.jcip.annotations.GuardedBy;
 
 /**
  * Processor for {@link PointSpriteGeometry}s. This class determines the model
@@ -56,9 +75,40 @@ import io.opensphere.core.viewer.impl.DynamicViewer;
  */
 public class PointSpriteProcessor extends TextureProcessor<PointSpriteGeometry>
 {
+    /** Whether small sprite images are packed into a texture atlas. */
+    private static final boolean ATLAS_ENABLED = Boolean
+            .parseBoolean(System.getProperty("opensphere.pipeline.spriteAtlas", "true"));
+
+    /** The maximum width or height of an image packed into the texture atlas. */
+    private static final int ATLAS_MAX_IMAGE_SIZE = Integer.getInteger("opensphere.pipeline.spriteAtlas.maxImageSize", 128)
+            .intValue();
+
+    /** The maximum number of pages in the texture atlas. */
+    private static final int ATLAS_MAX_PAGES = Integer.getInteger("opensphere.pipeline.spriteAtlas.maxPages", 8).intValue();
+
+    /** The width and height of each page of the texture atlas. */
+    private static final int ATLAS_PAGE_SIZE = Integer.getInteger("opensphere.pipeline.spriteAtlas.pageSize", 512).intValue();
+
+    /** Logger reference. */
+    private static final Logger LOGGER = Logger.getLogger(PointSpriteProcessor.class);
+
     /** Sensitivity of heading rotation for triggering point sprite rotation. */
     private static final double HEADING_SENSITIVITY = Math.toRadians(1);
 
+    /**
+     * The texture atlas that small sprite images are packed into, so that
+     * sprites with different images can be drawn with one texture, or
+     * {@code null} if the renderer cannot draw from an atlas.
+     */
+    private final TextureAtlas<ImageManager> myAtlas;
+
+    /**
+     * The images in the texture atlas, by image manager. Each image holds one
+     * reference to its region of the atlas.
+     */
+    @GuardedBy("myAtlas")
+    private final Map<ImageManager, BufferedImage> myAtlasImages = New.map();
+
     /** Comparator that determines geometry processing priority. */
     private final Comparator<? super PointSpriteGeometry> myPriorityComparator;
 
@@ -85,6 +135,11 @@ public class PointSpriteProcessor extends TextureProcessor<PointSpriteGeometry>
         Utilities.checkNull(builder.getPriorityComparator(), "builder.getPriorityComparator()");
         myPriorityComparator = builder.getPriorityComparator();
 
+        // Only the buffered renderer has the shader that draws sprites from
+        // part of a texture.
+        myAtlas = ATLAS_ENABLED && renderer instanceof PointSpriteRendererBuffered
+                ? new TextureAtlas<>(ATLAS_PAGE_SIZE, 1, ATLAS_MAX_PAGES) : null;
+
         myViewAltitudeSupplier = new MemoizingSupplier<>(() ->
         {
             GeographicPosition viewPosition = getMapContext().getProjection()
@@ -93,6 +148,19 @@ public class PointSpriteProcessor extends TextureProcessor<PointSpriteGeometry>
         });
     }
 
+    @Override
+    public void close()
+    {
+        super.close();
+        if (myAtlas != null)
+        {
+            for (TextureAtlas.Page page : myAtlas.getPages())
+            {
+                getCache().clearCacheAssociation(page, TextureHandle.class);
+            }
+        }
+    }
+
     @Override
     public void generateDryRunGeometries()
     {
@@ -155,6 +223,14 @@ public class PointSpriteProcessor extends TextureProcessor<PointSpriteGeometry>
         getCache().clearCacheAssociations(geoms, PointSpriteProcessor.SpriteModelCoordinates.class);
     }
 
+    @Override
+    protected TextureGroup createTexture(PointSpriteGeometry geom, TextureDataGroup textureData, TextureGroup textureGroup)
+    {
+        // The texture for an atlas texture group is the whole page, so an
+        // image loaded outside of the atlas gets a texture of its own.
+        return super.createTexture(geom, textureData, textureGroup instanceof AtlasTextureGroup ? null : textureGroup);
+    }
+
     @Override
     protected SpriteModelCoordinates getCachedModelData(PointSpriteGeometry geo, TextureCoords imageTexCoords,
             AbstractRenderer.ModelData override)
@@ -244,6 +320,76 @@ public class PointSpriteProcessor extends TextureProcessor<PointSpriteGeometry>
         return new TextureModelData(modelData, textureGroup);
     }
 
+    @Override
+    protected void processImageLoaded(Collection<? extends PointSpriteGeometry> objects,
+            StateController<PointSpriteGeometry> controller)
+    {
+        if (myAtlas == null)
+        {
+            super.processImageLoaded(objects, controller);
+            return;
+        }
+
+        List<PointSpriteGeometry> packed = New.list();
+        List<PointSpriteGeometry> unpacked = New.list();
+        for (PointSpriteGeometry geom : objects)
+        {
+            if (packImage(geom))
+            {
+                packed.add(geom);
+            }
+            else
+            {
+                unpacked.add(geom);
+            }
+        }
+
+        if (!unpacked.isEmpty())
+        {
+            super.processImageLoaded(unpacked, controller);
+        }
+
+        // The page textures are created or updated on the GL thread.
+        if (!packed.isEmpty())
+        {
+            controller.changeState(packed, TextureState.TEXTURE_DATA_LOADED);
+        }
+    }
+
+    @Override
+    protected void processRemoves(Collection<? extends Geometry> removes)
+    {
+        super.processRemoves(removes);
+        if (myAtlas != null && removes != null && !removes.isEmpty())
+        {
+            releaseAtlasImages(removes);
+        }
+    }
+
+    @Override
+    protected void processTextureDataLoaded(Collection<? extends PointSpriteGeometry> textureDataLoaded,
+            StateController<PointSpriteGeometry> controller)
+    {
+        if (myAtlas != null && !textureDataLoaded.isEmpty())
+        {
+            updateAtlasTextures();
+        }
+        super.processTextureDataLoaded(textureDataLoaded, controller);
+    }
+
+    @Override
+    protected TextureGroup processTextureForGeometry(PointSpriteGeometry geom, AbstractRenderer.ModelData override,
+            TimeBudget timeBudget)
+    {
+        // Restore a page texture that has been evicted from the cache.
+        TextureGroup textureGroup = override == null ? null : ((TextureModelData)override).getTextureGroup();
+        if (textureGroup instanceof AtlasTextureGroup && GLUtilities.isGLThread() && checkForMissingTextureHandles(textureGroup))
+        {
+            updateAtlasTextures();
+        }
+        return super.processTextureForGeometry(geom, override, timeBudget);
+    }
+
     @Override
     protected void processTextureLoaded(Collection<? extends PointSpriteGeometry> textureLoaded,
             StateController<PointSpriteGeometry> controller)
@@ -324,6 +470,140 @@ public class PointSpriteProcessor extends TextureProcessor<PointSpriteGeometry>
         super.handleViewChanged(view, type);
     }
 
+    /**
+     * Get the image to pack into the texture atlas from some image data.
+     *
+     * @param imageData The image data.
+     * @return The image, or {@code null} if the image data should not be
+     *         packed into the atlas.
+     */
+    private BufferedImage getAtlasImage(ImageGroup imageData)
+    {
+        // Images with a separate pick image, images that are already
+        // textures, and blank images are left to the regular processing.
+        Map<RenderMode, ? extends Image> imageMap = imageData.getImageMap();
+        Image image = imageMap.get(RenderMode.DRAW);
+        if (imageMap.size() != 1 || !(image instanceof ImageIOImage))
+        {
+            return null;
+        }
+        try
+        {
+            BufferedImage awtImage = ((ImageIOImage)image).getAWTImage();
+            return awtImage.getWidth() <= ATLAS_MAX_IMAGE_SIZE && awtImage.getHeight() <= ATLAS_MAX_IMAGE_SIZE
+                    && !image.isBlank() ? awtImage : null;
+        }
+        catch (IllegalStateException e)
+        {
+            // The image has been disposed by another thread.
+            return null;
+        }
+    }
+
+    /**
+     * Pack the image for a geometry into the texture atlas and cache an
+     * {@link AtlasTextureGroup} for its image manager.
+     *
+     * @param geom The geometry.
+     * @return {@code true} if the image is in the atlas, or {@code false} if
+     *         it should be processed into a texture of its own.
+     */
+    private boolean packImage(PointSpriteGeometry geom)
+    {
+        ImageManager imageManager = geom.getImageManager();
+        ImageGroup imageData = imageManager.getCachedImageData();
+        BufferedImage image = imageData == null ? null : getAtlasImage(imageData);
+        if (image == null)
+        {
+            return false;
+        }
+
+        AtlasTextureGroup textureGroup;
+        synchronized (myAtlas)
+        {
+            BufferedImage current = myAtlasImages.get(imageManager);
+            if (!Utilities.sameInstance(current, image))
+            {
+                // Replace the image if it has been updated.
+                if (current != null)
+                {
+                    myAtlasImages.remove(imageManager);
+                    myAtlas.remove(imageManager);
+                }
+                if (myAtlas.acquire(imageManager, () -> image) == null)
+                {
+                    return false;
+                }
+                myAtlasImages.put(imageManager, image);
+            }
+            TextureAtlas.Region region = myAtlas.get(imageManager);
+            textureGroup = new AtlasTextureGroup(region.getPage(), region.getTextureCoords());
+        }
+
+        imageManager.pollCachedImageData();
+        getCache().putCacheAssociation(imageManager, textureGroup, TextureGroup.class, textureGroup.getSizeBytes(), 0L);
+
+        // Remove the observer so that the geometry is allowed to get to the
+        // ready state before processing another image update.
+        removeObserverFromGeometry(geom);
+        return true;
+    }
+
+    /**
+     * Release the atlas images of removed geometries if no other geometries
+     * use them. The texture groups are cleared so that a geometry added later
+     * packs its image again rather than using a region that may have been
+     * reused.
+     *
+     * @param removes The removed geometries.
+     */
+    private void releaseAtlasImages(Collection<? extends Geometry> removes)
+    {
+        Set<ImageManager> released = New.set();
+        synchronized (myAtlas)
+        {
+            for (Geometry geom : removes)
+            {
+                if (geom instanceof PointSpriteGeometry)
+                {
+                    ImageManager imageManager = ((PointSpriteGeometry)geom).getImageManager();
+                    if (myAtlasImages.containsKey(imageManager))
+                    {
+                        released.add(imageManager);
+                    }
+                }
+            }
+        }
+        if (released.isEmpty())
+        {
+            return;
+        }
+
+        Collection<PointSpriteGeometry> geoms = getGeometrySet();
+        synchronized (geoms)
+        {
+            for (PointSpriteGeometry geom : geoms)
+            {
+                if (released.remove(geom.getImageManager()) && released.isEmpty())
+                {
+                    return;
+                }
+            }
+        }
+
+        synchronized (myAtlas)
+        {
+            for (ImageManager imageManager : released)
+            {
+                if (myAtlasImages.remove(imageManager) != null)
+                {
+                    myAtlas.release(imageManager);
+                }
+            }
+        }
+        getCache().clearCacheAssociations(released, TextureGroup.class);
+    }
+
     /**
      * Resets projection-sensitive geometries so they get re-processed.
      *
@@ -399,8 +679,14 @@ public class PointSpriteProcessor extends TextureProcessor<PointSpriteGeometry>
                     : getCache().getCacheAssociation(textureKey, TextureHandle.class);
             if (textureHandle != null)
             {
-                size = textureHandle.getWidth() * scaleProperty.getSize();
-                highlightSize = textureHandle.getWidth() * scaleProperty.getHighlightSize();
+                // An atlas texture is the whole page, so use the width of
+                // the image's region.
+                float width = textureGroup instanceof AtlasTextureGroup
+                        ? Math.round((textureGroup.getImageTexCoords().right() - textureGroup.getImageTexCoords().left())
+                                * textureHandle.getWidth())
+                        : textureHandle.getWidth();
+                size = width * scaleProperty.getSize();
+                highlightSize = width * scaleProperty.getHighlightSize();
             }
         }
         else
@@ -422,6 +708,69 @@ public class PointSpriteProcessor extends TextureProcessor<PointSpriteGeometry>
         modelData.setHighlightSize(Math.round(highlightSize));
     }
 
+    /**
+     * Create the textures for new pages of the texture atlas and upload the
+     * pixels that have changed in existing pages. This must be called on the
+     * GL thread.
+     */
+    private void updateAtlasTextures()
+    {
+        GL gl = GLContext.getCurrentGL();
+        boolean updated = false;
+        for (TextureAtlas.Page page : myAtlas.getPages())
+        {
+            TextureHandle handle = getCache().getCacheAssociation(page, TextureHandle.class);
+            Rectangle bounds;
+            IntBuffer pixels;
+            synchronized (myAtlas)
+            {
+                bounds = page.takeDirtyBounds();
+                if (handle == null)
+                {
+                    bounds = new Rectangle(page.getImage().getWidth(), page.getImage().getHeight());
+                }
+                else if (bounds == null)
+                {
+                    continue;
+                }
+                int[] rgb = page.getImage().getRGB(bounds.x, bounds.y, bounds.width, bounds.height, null, 0, bounds.width);
+                pixels = BufferUtilities.newIntBuffer(rgb.length);
+                pixels.put(rgb);
+                pixels.rewind();
+            }
+
+            // Each int is ARGB, which is BGRA with the reversed packed type
+            // regardless of the byte order.
+            if (handle == null)
+            {
+                int[] textureId = new int[1];
+                gl.glGenTextures(1, textureId, 0);
+                gl.glBindTexture(GL.GL_TEXTURE_2D, textureId[0]);
+                gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MIN_FILTER, GL.GL_LINEAR);
+                gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MAG_FILTER, GL.GL_LINEAR);
+                gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_WRAP_S, GL.GL_CLAMP_TO_EDGE);
+                gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_WRAP_T, GL.GL_CLAMP_TO_EDGE);
+                gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA, bounds.width, bounds.height, 0, GL.GL_BGRA,
+                        GL2GL3.GL_UNSIGNED_INT_8_8_8_8_REV, pixels);
+                handle = new TextureHandle(textureId[0], bounds.width * bounds.height * Constants.INT_SIZE_BYTES, bounds.width,
+                        bounds.height);
+                getCache().putCacheAssociation(page, handle, TextureHandle.class, 0L, handle.getSizeGPU());
+            }
+            else
+            {
+                gl.glBindTexture(GL.GL_TEXTURE_2D, handle.getTextureId());
+                gl.glTexSubImage2D(GL.GL_TEXTURE_2D, 0, bounds.x, bounds.y, bounds.width, bounds.height, GL.GL_BGRA,
+                        GL2GL3.GL_UNSIGNED_INT_8_8_8_8_REV, pixels);
+            }
+            updated = true;
+        }
+        GLUtilities.checkGLErrors(gl, LOGGER, "Update sprite atlas textures");
+        if (updated)
+        {
+            setOnscreenDirty();
+        }
+    }
+
     /**
      * Gets the scale function of the geometry if there is one.
      *
@@ -5,6 +5,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Lock;
 
 import org.apache.log4j.Logger;
@@ -17,6 +18,7 @@ import com.vividsolutions.jts.precision.GeometryPrecisionReducer;
 import io.opensphere.core.geometry.Geometry;
 import io.opensphere.core.geometry.MultiPolygonGeometry;
 import io.opensphere.core.geometry.PolygonGeometry;
+import io.opensphere.core.geometry.SimplificationLevels;
 import io.opensphere.core.geometry.constraint.MultiTimeConstraint;
 import io.opensphere.core.geometry.renderproperties.ColorRenderProperties;
 import io.opensphere.core.geometry.renderproperties.DefaultColorRenderProperties;
@@ -49,11 +51,15 @@ import io.opensphere.core.util.TimeBudget;
 import io.opensphere.core.util.Utilities;
 import io.opensphere.core.util.collections.CollectionUtilities;
 import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.concurrent.CommonTimer;
 import io.opensphere.core.util.concurrent.ThreadedStateMachine;
+import io.opensphere.core.util.jts.JTSUtilities;
 import io.opensphere.core.util.jts.PolygonTriangulationUtil;
 import io.opensphere.core.util.jts.PolygonTriangulationUtil.AbstractSimpleVertexGenerator;
 import io.opensphere.core.util.jts.PolygonTriangulationUtil.VertexGenerator;
 import io.opensphere.core.util.jts.core.JTSCoreGeometryUtilities;
+import io.opensphere.core.viewer.ViewChangeSupport;
+import io.opensphere.core.viewer.Viewer;
 import io.opensphere.core.viewer.impl.PositionConverter;
 
 /**
@@ -69,6 +75,12 @@ public class PolygonProcessor<E extends PolygonGeometry> extends AbstractProcess
     /** The logger used to capture output from this class. */
     private static final Logger LOG = Logger.getLogger(PolygonProcessor.class);
 
+    /** Helper for choosing simplified vertices for the current view. */
+    private final SimplificationHelper<E> mySimplificationHelper = new SimplificationHelper<>(getCache());
+
+    /** An executor that procrastinates before running tasks. */
+    private final Executor myViewChangeExecutor = CommonTimer.createProcrastinatingExecutor(100);
+
     /**
      * Construct a polyline processor.
      *
@@ -210,6 +222,16 @@ public class PolygonProcessor<E extends PolygonGeometry> extends AbstractProcess
         return getCache().getCacheAssociation(geo, PolygonModelData.class);
     }
 
+    @Override
+    protected void handleViewChanged(Viewer view, ViewChangeSupport.ViewChangeType type)
+    {
+        super.handleViewChanged(view, type);
+        if (mySimplificationHelper.hasAppliedLevels())
+        {
+            myViewChangeExecutor.execute(this::resetSimplifiedGeometries);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     protected boolean isOnScreen(E geom, boolean useTime)
@@ -246,6 +268,16 @@ public class PolygonProcessor<E extends PolygonGeometry> extends AbstractProcess
         }
     }
 
+    @Override
+    protected void processRemoves(Collection<? extends Geometry> removes)
+    {
+        super.processRemoves(removes);
+        if (removes != null)
+        {
+            mySimplificationHelper.remove(removes);
+        }
+    }
+
     /**
      * Convert the vertices of a screen coordinate based geometry into model
      * coordinates for the line and/or the the fill mesh as necessary.
@@ -341,7 +373,9 @@ public class PolygonProcessor<E extends PolygonGeometry> extends AbstractProcess
 
     /**
      * Convert the vertices of a geographic geometry into model coordinates for
-     * the line and/or the the fill mesh as necessary.
+     * the line and/or the the fill mesh as necessary. If the geometry has been
+     * simplified, only the vertices in the level for the current view are
+     * used.
      *
      * @param geo The geometry.
      * @param projection The projection to be used to convert the coordinates.
@@ -356,6 +390,9 @@ public class PolygonProcessor<E extends PolygonGeometry> extends AbstractProcess
         List<PolygonMeshData> meshBlocks = New.list(1);
         if (drawLine || drawFill)
         {
+            int level = mySimplificationHelper.applyLevel(geo, getViewer(), projection);
+            SimplificationLevels levels = level < 0 ? null : mySimplificationHelper.getLevels(geo);
+
             if (drawLine)
             {
                 lineData = New.collection();
@@ -363,19 +400,35 @@ public class PolygonProcessor<E extends PolygonGeometry> extends AbstractProcess
                 {
                     for (PolygonGeometry child : ((MultiPolygonGeometry)geo).getGeometries())
                     {
-                        generateLineData(child, projection, lineData);
+                        generateLineData(child, null, -1, projection, lineData);
                     }
                 }
                 else
                 {
-                    generateLineData(geo, projection, lineData);
+                    generateLineData(geo, levels, level, projection, lineData);
                 }
             }
 
             if (drawFill)
             {
+                Polygon jtsPolygon;
+                if (levels == null)
+                {
+                    jtsPolygon = JTSCoreGeometryUtilities.convertToJTSPolygon(geo);
+                }
+                else
+                {
+                    List<List<? extends Position>> holes = New.list(geo.getHoles().size());
+                    int part = 1;
+                    for (List<? extends Position> hole : geo.getHoles())
+                    {
+                        holes.add(levels.selectVertices(hole, level, part++));
+                    }
+                    jtsPolygon = JTSUtilities.createJTSPolygon(levels.selectVertices(geo.getVertices(), level, 0), holes);
+                }
+
                 GeometryPrecisionReducer reducer = new GeometryPrecisionReducer(new PrecisionModel(100000));
-                for (Polygon polygon : getPolygons(reducer.reduce(JTSCoreGeometryUtilities.convertToJTSPolygon(geo))))
+                for (Polygon polygon : getPolygons(reducer.reduce(jtsPolygon)))
                 {
                     TesseraList<? extends GeographicProjectedTesseraVertex> mesh = projection.convertPolygonToModelMesh(polygon,
                             projection.getModelCenter());
@@ -444,22 +497,36 @@ public class PolygonProcessor<E extends PolygonGeometry> extends AbstractProcess
      * Generates line data for the geometry.
      *
      * @param geo the polygon geometry
+     * @param levels the simplification levels for the geometry, or
+     *            {@code null} to use all of the vertices
+     * @param level the simplification level to use
      * @param projection the projection
      * @param lineData the line data collection to which to add
      */
-    private void generateLineData(PolygonGeometry geo, Projection projection, Collection<? super PolylineModelData> lineData)
+    private void generateLineData(PolygonGeometry geo, SimplificationLevels levels, int level, Projection projection,
+            Collection<? super PolylineModelData> lineData)
     {
         @SuppressWarnings("unchecked")
         List<? extends GeographicPosition> geoVertices = (List<? extends GeographicPosition>)geo.getVertices();
+        if (levels != null)
+        {
+            geoVertices = levels.selectVertices(geoVertices, level, 0);
+        }
 
         List<Vector3d> line = getPositionConverter().convertLinesToModel(geoVertices, GeographicPosition.class, geo.getLineType(),
                 null, projection.getModelCenter());
         lineData.add(new PolylineModelData(line, getConstraintTimeSpans(line.size(), geo)));
 
+        int part = 1;
         for (List<? extends Position> hole : geo.getHoles())
         {
             @SuppressWarnings("unchecked")
             List<? extends GeographicPosition> holeVerts = (List<? extends GeographicPosition>)hole;
+            if (levels != null)
+            {
+                holeVerts = levels.selectVertices(holeVerts, level, part);
+            }
+            ++part;
             line = getPositionConverter().convertLinesToModel(holeVerts, GeographicPosition.class, geo.getLineType(), null,
                     projection.getModelCenter());
             lineData.add(new PolylineModelData(line, getConstraintTimeSpans(line.size(), geo)));
@@ -520,6 +587,36 @@ public class PolygonProcessor<E extends PolygonGeometry> extends AbstractProcess
         return new PolygonModelData(lineData, meshData);
     }
 
+    /**
+     * Re-process the simplified geometries that need a different level for
+     * the current view.
+     */
+    private void resetSimplifiedGeometries()
+    {
+        Projection projection = getProjectionSnapshot();
+        if (projection == null)
+        {
+            return;
+        }
+
+        // Forget geometries that were removed while they were being processed.
+        synchronized (getGeometrySet())
+        {
+            mySimplificationHelper.retain(getGeometrySet());
+        }
+
+        Collection<E> changed = mySimplificationHelper.getChangedGeometries(getViewer(), projection);
+        if (!changed.isEmpty())
+        {
+            synchronized (getGeometrySet())
+            {
+                changed.retainAll(getGeometrySet());
+                clearCachedData(changed);
+                resetState(changed, State.UNPROCESSED);
+            }
+        }
+    }
+
     /**
      * The data in model coordinates which is required in order to render a
      * polygon.
@@ -4,6 +4,7 @@ import java.awt.Color;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Lock;
 
 import org.apache.log4j.Logger;
@@ -35,7 +36,10 @@ import io.opensphere.core.projection.ProjectionChangedEvent;
 import io.opensphere.core.util.TimeBudget;
 import io.opensphere.core.util.collections.CollectionUtilities;
 import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.concurrent.CommonTimer;
 import io.opensphere.core.util.lang.Pair;
+import io.opensphere.core.viewer.ViewChangeSupport;
+import io.opensphere.core.viewer.Viewer;
 
 /**
  * Processor for {@link PolylineGeometry}s. This class determines the model
@@ -50,6 +54,12 @@ public class PolylineProcessor<E extends PolylineGeometry> extends AbstractProce
     /** Logger reference. */
     private static final Logger LOGGER = Logger.getLogger(PolylineProcessor.class);
 
+    /** Helper for choosing simplified vertices for the current view. */
+    private final SimplificationHelper<E> mySimplificationHelper = new SimplificationHelper<>(getCache());
+
+    /** An executor that procrastinates before running tasks. */
+    private final Executor myViewChangeExecutor = CommonTimer.createProcrastinatingExecutor(100);
+
     /**
      * Construct a polyline processor.
      *
@@ -158,6 +168,16 @@ public class PolylineProcessor<E extends PolylineGeometry> extends AbstractProce
         getCache().clearCacheAssociation(geoms, PolylineModelData.class);
     }
 
+    @Override
+    protected void handleViewChanged(Viewer view, ViewChangeSupport.ViewChangeType type)
+    {
+        super.handleViewChanged(view, type);
+        if (mySimplificationHelper.hasAppliedLevels())
+        {
+            myViewChangeExecutor.execute(this::resetSimplifiedGeometries);
+        }
+    }
+
     @Override
     protected PolylineModelData getCachedData(PolylineGeometry geo, AbstractRenderer.ModelData override)
     {
@@ -217,34 +237,46 @@ public class PolylineProcessor<E extends PolylineGeometry> extends AbstractProce
         return new PolylineModelData(modelList, timeSpans);
     }
 
+    @Override
+    protected void processRemoves(Collection<? extends Geometry> removes)
+    {
+        super.processRemoves(removes);
+        if (removes != null)
+        {
+            mySimplificationHelper.remove(removes);
+        }
+    }
+
     /**
      * Add time spans for some model vertices that were generated for a segment
      * of the polyline.
      *
      * @param timeConstraint The geometry time constraint.
-     * @param geometryVertexIndex The index of the geometry vertex at the end of
+     * @param startVertexIndex The index of the geometry vertex at the start of
      *            the current segment.
+     * @param endVertexIndex The index of the geometry vertex at the end of the
+     *            current segment.
      * @param lineSegmentSize The number of tesserae in the segment.
      * @param lineSegmentIndices Which tesserae were added.
      * @param timeSpans The output time spans.
      */
-    private void addTimeSpansForMultiTimeConstraint(TimeConstraint timeConstraint, int geometryVertexIndex,
+    private void addTimeSpansForMultiTimeConstraint(TimeConstraint timeConstraint, int startVertexIndex, int endVertexIndex,
             final int lineSegmentSize, TIntArrayList lineSegmentIndices, final List<TimeSpan> timeSpans)
     {
         List<? extends TimeConstraint> childTimeConstraints = ((MultiTimeConstraint)timeConstraint).getChildren();
         final TimeSpan ts1;
         final TimeSpan ts2;
-        if (childTimeConstraints.size() >= geometryVertexIndex)
+        if (childTimeConstraints.size() > Math.max(startVertexIndex, endVertexIndex))
         {
-            TimeConstraint tc1 = childTimeConstraints.get(geometryVertexIndex - 1);
+            TimeConstraint tc1 = childTimeConstraints.get(startVertexIndex);
             ts1 = tc1 == null ? TimeSpan.TIMELESS : tc1.getTimeSpan();
-            TimeConstraint tc2 = childTimeConstraints.get(geometryVertexIndex);
+            TimeConstraint tc2 = childTimeConstraints.get(endVertexIndex);
             ts2 = tc2 == null ? TimeSpan.TIMELESS : tc2.getTimeSpan();
         }
         else
         {
             LOGGER.warn(MultiTimeConstraint.class.getSimpleName() + " has too few child constraints ("
-                    + childTimeConstraints.size() + " < " + geometryVertexIndex + ")");
+                    + childTimeConstraints.size() + " <= " + Math.max(startVertexIndex, endVertexIndex) + ")");
             ts1 = TimeSpan.TIMELESS;
             ts2 = TimeSpan.TIMELESS;
         }
@@ -257,6 +289,8 @@ public class PolylineProcessor<E extends PolylineGeometry> extends AbstractProce
 
     /**
      * Convert the vertices of a geographic geometry into model coordinates.
+     * If the geometry has been simplified, only the vertices in the level for
+     * the current view are used.
      *
      * @param geo The geometry.
      * @param timeSpans The output list of time spans, one for each set of model
@@ -265,10 +299,13 @@ public class PolylineProcessor<E extends PolylineGeometry> extends AbstractProce
      * @param projection The projection to be used to convert the coordinates.
      * @return The model coordinates.
      */
-    private List<Vector3d> processGeographic(PolylineGeometry geo, final List<TimeSpan> timeSpans, Projection projection)
+    private List<Vector3d> processGeographic(E geo, final List<TimeSpan> timeSpans, Projection projection)
     {
         List<Vector3d> modelList = New.list();
 
+        int level = mySimplificationHelper.applyLevel(geo, getViewer(), projection);
+        int[] indices = level < 0 ? null : mySimplificationHelper.getLevels(geo).getIndices(level, 0);
+
         TimeConstraint timeConstraint = geo.getConstraints() == null ? null : geo.getConstraints().getTimeConstraint();
 
         @SuppressWarnings("unchecked")
@@ -279,10 +316,12 @@ public class PolylineProcessor<E extends PolylineGeometry> extends AbstractProce
         // handling for the time constraints. Can these be re-factored?
         Pair<Tessera<GeographicPosition>, ProjectionCursor> tessera = null;
         Vector3d previousModelPosition = null;
-        int limit = geoVertices.size() + (geo instanceof PolygonGeometry ? 1 : 0);
+        int count = indices == null ? geoVertices.size() : indices.length;
+        int limit = count + (geo instanceof PolygonGeometry ? 1 : 0);
+        int lineStartIndex = 0;
         for (int i = 1; i < limit; ++i)
         {
-            int lineEndIndex = i % geoVertices.size();
+            int lineEndIndex = indices == null ? i % count : indices[i % count];
             GeographicPosition lineEnd = geoVertices.get(lineEndIndex);
             if (tessera == null)
             {
@@ -313,11 +352,12 @@ public class PolylineProcessor<E extends PolylineGeometry> extends AbstractProce
                     }
                     if (timeSpans != null && timeConstraint instanceof MultiTimeConstraint)
                     {
-                        addTimeSpansForMultiTimeConstraint(timeConstraint, lineEndIndex, modelVertexCount, indicesAdded,
-                                timeSpans);
+                        addTimeSpansForMultiTimeConstraint(timeConstraint, lineStartIndex, lineEndIndex, modelVertexCount,
+                                indicesAdded, timeSpans);
                     }
                 }
             }
+            lineStartIndex = lineEndIndex;
         }
         return modelList;
     }
@@ -364,4 +404,34 @@ public class PolylineProcessor<E extends PolylineGeometry> extends AbstractProce
         }
         return modelList;
     }
+
+    /**
+     * Re-process the simplified geometries that need a different level for
+     * the current view.
+     */
+    private void resetSimplifiedGeometries()
+    {
+        Projection projection = getProjectionSnapshot();
+        if (projection == null)
+        {
+            return;
+        }
+
+        // Forget geometries that were removed while they were being processed.
+        synchronized (getGeometrySet())
+        {
+            mySimplificationHelper.retain(getGeometrySet());
+        }
+
+        Collection<E> changed = mySimplificationHelper.getChangedGeometries(getViewer(), projection);
+        if (!changed.isEmpty())
+        {
+            synchronized (getGeometrySet())
+            {
+                changed.retainAll(getGeometrySet());
+                clearCachedData(changed);
+                resetState(changed, State.UNPROCESSED);
+            }
+        }
+    }
 }
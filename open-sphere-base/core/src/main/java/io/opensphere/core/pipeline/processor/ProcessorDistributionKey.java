@@ -63,6 +63,22 @@ public class ProcessorDistributionKey implements Comparable<ProcessorDistributio
         myGeometryOrderKey = geom.getGeometryOrderKey();
     }
 
+    /**
+     * Constructor that copies another key with a different time span.
+     *
+     * @param key The key to copy.
+     * @param timeSpan The time over which this key is valid.
+     */
+    public ProcessorDistributionKey(ProcessorDistributionKey key, TimeSpan timeSpan)
+    {
+        myGeometryType = key.myGeometryType;
+        myConstraintKey = key.myConstraintKey;
+        myTimeSpan = Utilities.checkNull(timeSpan, "timeSpan");
+        myPositionType = key.myPositionType;
+        myZOrder = key.myZOrder;
+        myGeometryOrderKey = key.myGeometryOrderKey;
+    }
+
     @Override
     public int compareTo(ProcessorDistributionKey key)
     {
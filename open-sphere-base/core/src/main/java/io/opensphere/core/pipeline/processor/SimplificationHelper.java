@@ -0,0 +1,223 @@
+package io.opensphere.core.pipeline.processor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.opensphere.core.geometry.Geometry;
+import io.opensphere.core.geometry.MultiPolygonGeometry;
+import io.opensphere.core.geometry.PolygonGeometry;
+import io.opensphere.core.geometry.PolylineGeometry;
+import io.opensphere.core.geometry.SimplificationLevels;
+import io.opensphere.core.math.Ellipsoid;
+import io.opensphere.core.math.Vector3d;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.model.GeographicPosition;
+import io.opensphere.core.model.Position;
+import io.opensphere.core.pipeline.cache.CacheProvider;
+import io.opensphere.core.projection.Projection;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.viewer.Viewer;
+
+/**
+ * Helper for processors that draw geographic polylines and polygons using
+ * precomputed {@link SimplificationLevels}. The levels are cached with the
+ * geometry, and the level used for each geometry is chosen from the ground
+ * resolution of the current view and remembered so that geometries can be
+ * re-processed when the view moves to a different level.
+ *
+ * @param <E> The type of geometry.
+ */
+final class SimplificationHelper<E extends PolylineGeometry>
+{
+    /** The fewest vertices in a geometry for it to be simplified. */
+    private static final int MIN_VERTICES = Integer.getInteger("opensphere.pipeline.simplificationMinVertices", 256).intValue();
+
+    /**
+     * The corner-to-corner size in degrees beyond which a geometry's bounding
+     * ellipsoid is not used to estimate its resolution.
+     */
+    private static final double MAX_ELLIPSOID_DEGREES = 90.;
+
+    /** The levels used for the geometries that were last processed. */
+    private final Map<E, Integer> myAppliedLevels = new ConcurrentHashMap<>();
+
+    /** The cache provider. */
+    private final CacheProvider myCache;
+
+    /**
+     * Constructor.
+     *
+     * @param cache The cache provider.
+     */
+    SimplificationHelper(CacheProvider cache)
+    {
+        myCache = cache;
+    }
+
+    /**
+     * Choose the level to use for a geometry for the current view and
+     * remember it.
+     *
+     * @param geom The geometry.
+     * @param viewer The current viewer.
+     * @param projection The current projection.
+     * @return The level, or -1 if the geometry should be drawn with all of
+     *         its vertices.
+     */
+    public int applyLevel(E geom, Viewer viewer, Projection projection)
+    {
+        SimplificationLevels levels = getLevels(geom);
+        if (levels == null)
+        {
+            return -1;
+        }
+        int level = selectLevel(geom, levels, viewer, projection);
+        myAppliedLevels.put(geom, Integer.valueOf(level));
+        return level;
+    }
+
+    /**
+     * Get the geometries for which the current view calls for a different
+     * level than was used when they were last processed. Geometries whose
+     * levels have been evicted from the cache are forgotten, since they will
+     * be simplified again when they are next processed.
+     *
+     * @param viewer The current viewer.
+     * @param projection The current projection.
+     * @return The geometries.
+     */
+    public Collection<E> getChangedGeometries(Viewer viewer, Projection projection)
+    {
+        Collection<E> changed = New.collection();
+        for (Map.Entry<E, Integer> entry : myAppliedLevels.entrySet())
+        {
+            SimplificationLevels levels = myCache.getCacheAssociation(entry.getKey(), SimplificationLevels.class);
+            if (levels == null)
+            {
+                myAppliedLevels.remove(entry.getKey());
+            }
+            else if (selectLevel(entry.getKey(), levels, viewer, projection) != entry.getValue().intValue())
+            {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Get the levels for a geometry, computing and caching them if necessary.
+     *
+     * @param geom The geometry.
+     * @return The levels, or {@code null} if the geometry is not simplified.
+     */
+    public SimplificationLevels getLevels(E geom)
+    {
+        if (geom instanceof MultiPolygonGeometry || !GeographicPosition.class.isAssignableFrom(geom.getPositionType()))
+        {
+            return null;
+        }
+
+        SimplificationLevels levels = myCache.getCacheAssociation(geom, SimplificationLevels.class);
+        if (levels == null)
+        {
+            List<List<? extends GeographicPosition>> parts = getParts(geom);
+            int count = parts.stream().mapToInt(List::size).sum();
+            if (count < MIN_VERTICES)
+            {
+                return null;
+            }
+            levels = SimplificationLevels.create(parts, geom instanceof PolygonGeometry ? 4 : 2);
+            myCache.putCacheAssociation(geom, levels, SimplificationLevels.class, levels.getSizeBytes(), 0L);
+        }
+        return levels;
+    }
+
+    /**
+     * Determine if any geometries have been processed with simplification.
+     *
+     * @return {@code true} if there are simplified geometries.
+     */
+    public boolean hasAppliedLevels()
+    {
+        return !myAppliedLevels.isEmpty();
+    }
+
+    /**
+     * Forget the levels for some geometries that have been removed.
+     *
+     * @param removes The removed geometries.
+     */
+    public void remove(Collection<? extends Geometry> removes)
+    {
+        myAppliedLevels.keySet().removeAll(removes);
+    }
+
+    /**
+     * Forget the levels for any geometries that are not in a collection.
+     *
+     * @param geometries The geometries that are still being processed.
+     */
+    public void retain(Collection<? extends Geometry> geometries)
+    {
+        myAppliedLevels.keySet().retainAll(geometries);
+    }
+
+    /**
+     * Get the vertex lists of a geometry, with the outer vertices first,
+     * followed by any holes.
+     *
+     * @param geom The geometry.
+     * @return The parts.
+     */
+    @SuppressWarnings("unchecked")
+    private List<List<? extends GeographicPosition>> getParts(E geom)
+    {
+        List<List<? extends GeographicPosition>> parts = New.list();
+        parts.add((List<? extends GeographicPosition>)geom.getVertices());
+        if (geom instanceof PolygonGeometry)
+        {
+            for (List<? extends Position> hole : ((PolygonGeometry)geom).getHoles())
+            {
+                parts.add((List<? extends GeographicPosition>)hole);
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Select the level for a geometry from the number of degrees covered by a
+     * pixel near the geometry.
+     *
+     * @param geom The geometry.
+     * @param levels The levels for the geometry.
+     * @param viewer The current viewer.
+     * @param projection The current projection.
+     * @return The level, or -1 for all of the vertices.
+     */
+    private int selectLevel(E geom, SimplificationLevels levels, Viewer viewer, Projection projection)
+    {
+        GeographicBoundingBox bbox = levels.getBoundingBox();
+        double degrees = Math.hypot(bbox.getDeltaLonD(), bbox.getDeltaLatD());
+        Ellipsoid ellipsoid;
+        if (degrees > MAX_ELLIPSOID_DEGREES)
+        {
+            // The ellipsoid for a large box is loose, so use the whole globe,
+            // which spans 180 degrees across its diameter.
+            ellipsoid = projection.getBoundingEllipsoid(GeographicBoundingBox.WHOLE_GLOBE, Vector3d.ORIGIN, false);
+            degrees = 180.;
+        }
+        else
+        {
+            ellipsoid = myCache.getCacheAssociation(geom, Ellipsoid.class);
+            if (ellipsoid == null)
+            {
+                ellipsoid = projection.getBoundingEllipsoid(bbox, Vector3d.ORIGIN, false);
+            }
+        }
+
+        double pixels = viewer.getPixelWidth(ellipsoid);
+        return pixels > 0. ? levels.selectLevel(degrees / pixels) : -1;
+    }
+}
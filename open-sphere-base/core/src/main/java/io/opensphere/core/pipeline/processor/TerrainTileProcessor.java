@@ -35,7 +35,10 @@ import io.opensphere.core.projection.impl.MutableGlobeProjection;
 import io.opensphere.core.terrain.util.AbsoluteElevationProvider;
 import io.opensphere.core.terrain.util.ElevationImageReader;
 import io.opensphere.core.terrain.util.ElevationImageReaderException;
+import io.opensphere.core.terrain.util.ElevationGrid;
 import io.opensphere.core.terrain.util.ElevationManager;
+import io.opensphere.core.terrain.util.ElevationTileCache;
+import io.opensphere.core.terrain.util.ElevationTileCache.TileKey;
 import io.opensphere.core.util.TimeBudget;
 import io.opensphere.core.util.Utilities;
 import io.opensphere.core.util.collections.BatchingBlockingQueue;
@@ -131,6 +134,28 @@ public class TerrainTileProcessor implements GeometryProcessor<TerrainTileGeomet
             return elevation == ELEVATION_NO_VALUE ? 0 : elevation;
         }
 
+        @Override
+        public void getElevationsM(List<? extends GeographicPosition> positions, boolean approximate, double[] elevations)
+        {
+            ElevationGrid grid = null;
+            for (int i = 0; i < positions.size(); ++i)
+            {
+                GeographicPosition position = positions.get(i);
+                double latD = position.getLatLonAlt().getLatD();
+                double lonD = position.getLatLonAlt().getLonD();
+                if (grid == null || !grid.contains(latD, lonD))
+                {
+                    grid = myClosed ? null : getGridForTiles(getDeepestTilesAtPosition(position));
+                }
+
+                // Fall back to the single position lookup when the grid has no
+                // value so that parent tiles and approximation are used.
+                double elevation = grid == null ? ELEVATION_NO_VALUE : grid.getElevationM(latD, lonD);
+                elevations[i] = elevation == ELEVATION_NO_VALUE || elevation == grid.getMissingDataValue()
+                        ? getElevationM(position, approximate) : elevation;
+            }
+        }
+
         @Override
         public String getElevationOrderId()
         {
@@ -225,8 +250,16 @@ public class TerrainTileProcessor implements GeometryProcessor<TerrainTileGeomet
                     Image sampleImage = imageGroup.getImageMap().values().iterator().next();
                     try
                     {
-                        elevation = tile.getReader().readElevation(position, sampleImage, (GeographicBoundingBox)tile.getBounds(),
-                                true);
+                        ElevationGrid grid = getGrid(tile, sampleImage);
+                        if (grid != null)
+                        {
+                            elevation = grid.getElevationM(position.getLatLonAlt().getLatD(), position.getLatLonAlt().getLonD());
+                        }
+                        if (grid == null || elevation == grid.getMissingDataValue())
+                        {
+                            elevation = tile.getReader().readElevation(position, sampleImage,
+                                    (GeographicBoundingBox)tile.getBounds(), true);
+                        }
                     }
                     catch (ElevationImageReaderException e)
                     {
@@ -256,6 +289,45 @@ public class TerrainTileProcessor implements GeometryProcessor<TerrainTileGeomet
 
             return elevation;
         }
+
+        /**
+         * Get the decoded elevation grid for a tile's image.
+         *
+         * @param tile The tile.
+         * @param image The tile's image.
+         * @return The grid, or {@code null} if the tile's reader cannot decode
+         *         grids.
+         */
+        private ElevationGrid getGrid(TerrainTileGeometry tile, Image image)
+        {
+            GeographicBoundingBox bounds = (GeographicBoundingBox)tile.getBounds();
+            TileKey key = new TileKey(tile.getReader().getElevationOrderId(), tile.getGeneration(), bounds);
+            return ElevationTileCache.getDefault().getGrid(key, tile.getReader(), image, bounds);
+        }
+
+        /**
+         * Get the decoded elevation grid for the first of some tiles which
+         * has an image available.
+         *
+         * @param tiles The tiles.
+         * @return The grid, or {@code null} if none of the tiles has a grid.
+         */
+        private ElevationGrid getGridForTiles(Collection<? extends TerrainTileGeometry> tiles)
+        {
+            for (TerrainTileGeometry tile : tiles)
+            {
+                ImageGroup imageGroup = myCache.getCacheAssociation(tile, ImageGroup.class);
+                if (imageGroup != null)
+                {
+                    ElevationGrid grid = getGrid(tile, imageGroup.getImageMap().values().iterator().next());
+                    if (grid != null)
+                    {
+                        return grid;
+                    }
+                }
+            }
+            return null;
+        }
     };
 
     /** The set of top level geometries this processor is currently managing. */
@@ -0,0 +1,437 @@
+package io.opensphere.core.pipeline.processor;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import io.opensphere.core.geometry.ConstrainableGeometry;
+import io.opensphere.core.geometry.Geometry;
+import io.opensphere.core.geometry.constraint.Constraints;
+import io.opensphere.core.geometry.constraint.TimeConstraint;
+import io.opensphere.core.model.time.TimeSpan;
+import io.opensphere.core.util.collections.New;
+
+/**
+ * A set of geometries used by the geometry distributor, either the ones that
+ * are waiting to be distributed to processors or all of its timed geometries.
+ * Geometries with a bounded, positive, primary time constraint are indexed by
+ * both the start and the end of the constraint, so the geometries that may
+ * overlap some time spans, or whose overlap changes when a time span moves,
+ * can be found in {@code O(log n + k)} time rather than by checking every
+ * geometry. Geometries that are in every time span are kept apart, since a
+ * time span moving cannot change them. Other geometries are kept in insertion
+ * order and are always considered candidates.
+ * <p>
+ * This class is not thread-safe.
+ */
+class TimeIndexedGeometrySet extends AbstractCollection<Geometry>
+{
+    /** The indexed geometries, by the end of their time constraints. */
+    private final NavigableMap<Long, Set<Geometry>> myByEnd = new TreeMap<>();
+
+    /** The indexed geometries, by the start of their time constraints. */
+    private final NavigableMap<Long, Set<Geometry>> myByStart = new TreeMap<>();
+
+    /**
+     * The number of indexed time constraints with each duration, so the
+     * longest duration can be found after geometries are removed.
+     */
+    private final NavigableMap<Long, Integer> myDurations = new TreeMap<>();
+
+    /** The time span of the time constraint of each indexed geometry. */
+    private final Map<Geometry, TimeSpan> mySpans = New.map();
+
+    /** The geometries that are in every time span. */
+    private final Set<Geometry> myTimeless = New.insertionOrderSet();
+
+    /**
+     * The geometries that cannot be indexed by time and may not be in every
+     * time span.
+     */
+    private final Set<Geometry> myUnindexed = New.insertionOrderSet();
+
+    /**
+     * Add the geometries in a range of one of the indices to a collection.
+     *
+     * @param index The index.
+     * @param from The first time in the range.
+     * @param to The last time in the range.
+     * @param result The collection.
+     */
+    private static void addRange(NavigableMap<Long, Set<Geometry>> index, long from, long to,
+            Collection<? super Geometry> result)
+    {
+        for (final Set<Geometry> geoms : index.subMap(Long.valueOf(from), true, Long.valueOf(to), true).values())
+        {
+            result.addAll(geoms);
+        }
+    }
+
+    /**
+     * Get the time constraint of a geometry if it can be indexed.
+     *
+     * @param geom The geometry.
+     * @return The time constraint, or {@code null} if the geometry cannot be
+     *         indexed.
+     */
+    private static TimeConstraint getIndexableConstraint(Geometry geom)
+    {
+        final TimeConstraint constraint = getTimeConstraint(geom);
+        return constraint != null && constraint.getKey() == null && !constraint.isNegative() && !constraint.isMostRecent()
+                && isBounded(constraint.getTimeSpan()) ? constraint : null;
+    }
+
+    /**
+     * Get the time constraint of a geometry.
+     *
+     * @param geom The geometry.
+     * @return The time constraint, or {@code null} if the geometry has none.
+     */
+    private static TimeConstraint getTimeConstraint(Geometry geom)
+    {
+        if (geom instanceof ConstrainableGeometry)
+        {
+            final Constraints constraints = ((ConstrainableGeometry)geom).getConstraints();
+            return constraints == null ? null : constraints.getTimeConstraint();
+        }
+        return null;
+    }
+
+    /**
+     * Get if a time span is bounded at both ends.
+     *
+     * @param span The time span.
+     * @return {@code true} if the time span is bounded.
+     */
+    private static boolean isBounded(TimeSpan span)
+    {
+        return !span.isTimeless() && !span.isUnboundedStart() && !span.isUnboundedEnd();
+    }
+
+    /**
+     * Get if a geometry is in every time span.
+     *
+     * @param geom The geometry.
+     * @return {@code true} if the geometry is in every time span.
+     */
+    private static boolean isTimeless(Geometry geom)
+    {
+        final TimeConstraint constraint = getTimeConstraint(geom);
+        return constraint == null || constraint.getKey() == null && !constraint.isNegative() && !constraint.isMostRecent()
+                && constraint.getTimeSpan().isTimeless();
+    }
+
+    @Override
+    public boolean add(Geometry geom)
+    {
+        final TimeConstraint constraint = getIndexableConstraint(geom);
+        if (constraint == null)
+        {
+            return isTimeless(geom) ? myTimeless.add(geom) : myUnindexed.add(geom);
+        }
+        if (mySpans.containsKey(geom))
+        {
+            return false;
+        }
+        final TimeSpan span = constraint.getTimeSpan();
+        mySpans.put(geom, span);
+        myByStart.computeIfAbsent(Long.valueOf(span.getStart()), k -> New.set()).add(geom);
+        myByEnd.computeIfAbsent(Long.valueOf(span.getEnd()), k -> New.set()).add(geom);
+        myDurations.merge(Long.valueOf(span.getDurationMs()), Integer.valueOf(1), (a, b) -> Integer.valueOf(a.intValue() + b.intValue()));
+        return true;
+    }
+
+    @Override
+    public void clear()
+    {
+        myByEnd.clear();
+        myByStart.clear();
+        myDurations.clear();
+        mySpans.clear();
+        myTimeless.clear();
+        myUnindexed.clear();
+    }
+
+    @Override
+    public boolean contains(Object o)
+    {
+        return mySpans.containsKey(o) || myTimeless.contains(o) || myUnindexed.contains(o);
+    }
+
+    /**
+     * Get the geometries whose time constraints may overlap any of the given
+     * time spans, without removing them. The geometries that cannot be indexed
+     * are always returned.
+     *
+     * @param spans The time spans.
+     * @return The geometries.
+     */
+    public Set<Geometry> getCandidates(Collection<? extends TimeSpan> spans)
+    {
+        final Set<Geometry> result = New.insertionOrderSet(myTimeless);
+        result.addAll(myUnindexed);
+        for (final TimeSpan span : spans)
+        {
+            if (!isBounded(span))
+            {
+                result.addAll(mySpans.keySet());
+                break;
+            }
+            addOverlapping(span, result);
+        }
+        return result;
+    }
+
+    /**
+     * Get the geometries that may overlap exactly one of two time spans, which
+     * are the geometries that may enter or leave a time span when it moves
+     * from the old span to the new one. Only the edges that moved are
+     * searched: the geometries that end between the old and new starts and
+     * the ones that start between the old and new ends. The geometries that
+     * are in every time span are never returned, and the other geometries that
+     * cannot be indexed are always returned.
+     *
+     * @param oldSpan The old time span.
+     * @param newSpan The new time span.
+     * @return The geometries, which are not removed.
+     */
+    public Set<Geometry> getChangeCandidates(TimeSpan oldSpan, TimeSpan newSpan)
+    {
+        final Set<Geometry> result = New.insertionOrderSet(myUnindexed);
+        if (!isBounded(oldSpan) || !isBounded(newSpan))
+        {
+            result.addAll(mySpans.keySet());
+            return result;
+        }
+        if (oldSpan.getStart() != newSpan.getStart())
+        {
+            addRange(myByEnd, Math.min(oldSpan.getStart(), newSpan.getStart()), Math.max(oldSpan.getStart(), newSpan.getStart()),
+                    result);
+        }
+        if (oldSpan.getEnd() != newSpan.getEnd())
+        {
+            addRange(myByStart, Math.min(oldSpan.getEnd(), newSpan.getEnd()), Math.max(oldSpan.getEnd(), newSpan.getEnd()),
+                    result);
+        }
+        return result;
+    }
+
+    /**
+     * Get the longest duration of any indexed time constraint.
+     *
+     * @return The duration in milliseconds.
+     */
+    long getMaxDuration()
+    {
+        return myDurations.isEmpty() ? 0L : myDurations.lastKey().longValue();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return mySpans.isEmpty() && myTimeless.isEmpty() && myUnindexed.isEmpty();
+    }
+
+    @Override
+    public Iterator<Geometry> iterator()
+    {
+        final Iterator<Geometry> timeless = myTimeless.iterator();
+        final Iterator<Geometry> unindexed = myUnindexed.iterator();
+        final Iterator<Map.Entry<Geometry, TimeSpan>> indexed = mySpans.entrySet().iterator();
+        return new Iterator<Geometry>()
+        {
+            /** The last geometry returned. */
+            private Geometry myLast;
+
+            /** The iterator that returned the last geometry, if it is not indexed. */
+            private Iterator<Geometry> myLastIterator;
+
+            /** The time span of the last geometry returned, if it is indexed. */
+            private TimeSpan myLastSpan;
+
+            @Override
+            public boolean hasNext()
+            {
+                return timeless.hasNext() || unindexed.hasNext() || indexed.hasNext();
+            }
+
+            @Override
+            public Geometry next()
+            {
+                if (timeless.hasNext() || unindexed.hasNext())
+                {
+                    myLastIterator = timeless.hasNext() ? timeless : unindexed;
+                    myLast = myLastIterator.next();
+                    myLastSpan = null;
+                }
+                else
+                {
+                    final Map.Entry<Geometry, TimeSpan> entry = indexed.next();
+                    myLast = entry.getKey();
+                    myLastIterator = null;
+                    myLastSpan = entry.getValue();
+                }
+                return myLast;
+            }
+
+            @Override
+            public void remove()
+            {
+                if (myLastSpan == null)
+                {
+                    myLastIterator.remove();
+                }
+                else
+                {
+                    indexed.remove();
+                    removeFromIndex(myLast, myLastSpan);
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        if (myTimeless.remove(o) || myUnindexed.remove(o))
+        {
+            return true;
+        }
+        final TimeSpan span = mySpans.remove(o);
+        if (span == null)
+        {
+            return false;
+        }
+        removeFromIndex(o, span);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c)
+    {
+        boolean changed = false;
+        for (final Object o : c)
+        {
+            changed |= remove(o);
+        }
+        return changed;
+    }
+
+    /**
+     * Remove and return the geometries whose time constraints may overlap any
+     * of the given time spans. The geometries that cannot be indexed are
+     * always returned. The geometries that are returned are not guaranteed to
+     * overlap, but the ones that are kept are guaranteed not to.
+     *
+     * @param spans The time spans.
+     * @return The removed geometries.
+     */
+    public List<Geometry> removeCandidates(Collection<? extends TimeSpan> spans)
+    {
+        final List<Geometry> result = New.list(myTimeless);
+        result.addAll(myUnindexed);
+        myTimeless.clear();
+        myUnindexed.clear();
+        for (final TimeSpan span : spans)
+        {
+            if (mySpans.isEmpty())
+            {
+                break;
+            }
+            if (!isBounded(span))
+            {
+                result.addAll(removeAllGeometries());
+                break;
+            }
+
+            final List<Geometry> overlapping = New.list();
+            addOverlapping(span, overlapping);
+            for (final Geometry geom : overlapping)
+            {
+                remove(geom);
+            }
+            result.addAll(overlapping);
+        }
+        return result;
+    }
+
+    /**
+     * Remove and return all of the geometries.
+     *
+     * @return The geometries.
+     */
+    public List<Geometry> removeAllGeometries()
+    {
+        final List<Geometry> result = New.list(this);
+        clear();
+        return result;
+    }
+
+    @Override
+    public int size()
+    {
+        return mySpans.size() + myTimeless.size() + myUnindexed.size();
+    }
+
+    /**
+     * Add the indexed geometries whose time constraints overlap a bounded time
+     * span to a collection.
+     *
+     * @param span The time span.
+     * @param result The collection.
+     */
+    private void addOverlapping(TimeSpan span, Collection<? super Geometry> result)
+    {
+        if (mySpans.isEmpty())
+        {
+            return;
+        }
+        final long maxDuration = getMaxDuration();
+        final long from = span.getStart() < Long.MIN_VALUE + maxDuration ? Long.MIN_VALUE : span.getStart() - maxDuration;
+        for (final Set<Geometry> geoms : myByStart.subMap(Long.valueOf(from), true, Long.valueOf(span.getEnd()), true).values())
+        {
+            for (final Geometry geom : geoms)
+            {
+                if (((ConstrainableGeometry)geom).getConstraints().getTimeConstraint().check(span))
+                {
+                    result.add(geom);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a geometry from the start, end and duration indices.
+     *
+     * @param geom The geometry.
+     * @param span The time span of the geometry's time constraint.
+     */
+    private void removeFromIndex(Object geom, TimeSpan span)
+    {
+        removeFromIndex(myByStart, Long.valueOf(span.getStart()), geom);
+        removeFromIndex(myByEnd, Long.valueOf(span.getEnd()), geom);
+        myDurations.computeIfPresent(Long.valueOf(span.getDurationMs()),
+                (k, count) -> count.intValue() == 1 ? null : Integer.valueOf(count.intValue() - 1));
+    }
+
+    /**
+     * Remove a geometry from one of the indices.
+     *
+     * @param index The index.
+     * @param time The time the geometry is indexed by.
+     * @param geom The geometry.
+     */
+    private void removeFromIndex(NavigableMap<Long, Set<Geometry>> index, Long time, Object geom)
+    {
+        final Set<Geometry> geoms = index.get(time);
+        if (geoms != null && geoms.remove(geom) && geoms.isEmpty())
+        {
+            index.remove(time);
+        }
+    }
+}
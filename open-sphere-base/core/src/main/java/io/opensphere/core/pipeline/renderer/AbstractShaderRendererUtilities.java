@@ -15,30 +15,19 @@ import io.opensphere.core.util.MathUtil;
  */
 public abstract class AbstractShaderRendererUtilities implements ShaderRendererUtilities
 {
+    @Override
+    public void enableSpriteAtlasShader(GL gl, TimeSpan span, TimeSpan groupTimeSpan, Fade fade, boolean pickEffect)
+    {
+        enableSpriteAtlasShader(gl, span == null || groupTimeSpan == null ? null : getActiveInterval(span, groupTimeSpan, fade),
+                pickEffect);
+    }
+
     @Override
     public void initIntervalFilter(GL gl, TimeSpan activeSpan, TimeSpan groupTimeSpan, Fade fade, boolean pickEffect,
             boolean useTextures)
     {
-        final TimeInstant start = activeSpan.isUnboundedStart() ? groupTimeSpan.getStartInstant() : activeSpan.getStartInstant();
-        final TimeInstant end = activeSpan.isUnboundedEnd() ? groupTimeSpan.getEndInstant() : activeSpan.getEndInstant();
-        float modulatedStart = MathUtil.getModulatedFloat(start.getEpochMillis(), groupTimeSpan.getStart(),
-                groupTimeSpan.getEnd());
-        float modulatedEnd = MathUtil.getModulatedFloat(end.getEpochMillis(), groupTimeSpan.getStart(), groupTimeSpan.getEnd());
-        float modulatedFadeStart;
-        float modulatedFadeEnd;
-        if (fade == null)
-        {
-            modulatedFadeStart = modulatedStart;
-            modulatedFadeEnd = modulatedEnd;
-        }
-        else
-        {
-            long fadeStart = start.minus(fade.getFadeOut()).getEpochMillis();
-            modulatedFadeStart = MathUtil.getModulatedFloat(fadeStart, groupTimeSpan.getStart(), groupTimeSpan.getEnd());
-            long fadeEnd = end.plus(fade.getFadeIn()).getEpochMillis();
-            modulatedFadeEnd = MathUtil.getModulatedFloat(fadeEnd, groupTimeSpan.getStart(), groupTimeSpan.getEnd());
-        }
-        initIntervalFilter(gl, modulatedFadeStart, modulatedStart, modulatedEnd, modulatedFadeEnd, pickEffect, useTextures);
+        float[] interval = getActiveInterval(activeSpan, groupTimeSpan, fade);
+        initIntervalFilter(gl, interval[0], interval[1], interval[2], interval[3], pickEffect, useTextures);
     }
 
     /**
@@ -84,6 +73,20 @@ public abstract class AbstractShaderRendererUtilities implements ShaderRendererU
         return params;
     }
 
+    /**
+     * Enable the shader that draws point sprites from a page of a texture
+     * atlas.
+     *
+     * @param gl The OpenGL context.
+     * @param activeInterval The fade minimum, minimum, maximum, and fade
+     *            maximum bounds for interval filtering, or {@code null} if the
+     *            points are not filtered by time.
+     * @param pickEffect Indicates if the pick effect should be enabled in the
+     *            shader, i.e., if the glColor rgb should be used rather than
+     *            the texture rgb.
+     */
+    protected abstract void enableSpriteAtlasShader(GL gl, float[] activeInterval, boolean pickEffect);
+
     /**
      * Initialize the shader used for interval filtering. Vertices will be
      * transparent at less than the fadeMin, have gradually more opacity between
@@ -104,4 +107,40 @@ public abstract class AbstractShaderRendererUtilities implements ShaderRendererU
      */
     protected abstract void initIntervalFilter(GL gl, float fadeMin, float min, float max, float fadeMax, boolean pickEffect,
             boolean useTexture);
+
+    /**
+     * Get the bounds for interval filtering, modulated to the group time
+     * span.
+     *
+     * @param activeSpan The interval during which vertices should be at full
+     *            opacity.
+     * @param groupTimeSpan The interval that represents that minimum and
+     *            maximum of the vertex times.
+     * @param fade The optional fade that specifies a translucent period on
+     *            either side of the activeSpan.
+     * @return The fade minimum, minimum, maximum, and fade maximum bounds.
+     */
+    private float[] getActiveInterval(TimeSpan activeSpan, TimeSpan groupTimeSpan, Fade fade)
+    {
+        final TimeInstant start = activeSpan.isUnboundedStart() ? groupTimeSpan.getStartInstant() : activeSpan.getStartInstant();
+        final TimeInstant end = activeSpan.isUnboundedEnd() ? groupTimeSpan.getEndInstant() : activeSpan.getEndInstant();
+        float modulatedStart = MathUtil.getModulatedFloat(start.getEpochMillis(), groupTimeSpan.getStart(),
+                groupTimeSpan.getEnd());
+        float modulatedEnd = MathUtil.getModulatedFloat(end.getEpochMillis(), groupTimeSpan.getStart(), groupTimeSpan.getEnd());
+        float modulatedFadeStart;
+        float modulatedFadeEnd;
+        if (fade == null)
+        {
+            modulatedFadeStart = modulatedStart;
+            modulatedFadeEnd = modulatedEnd;
+        }
+        else
+        {
+            long fadeStart = start.minus(fade.getFadeOut()).getEpochMillis();
+            modulatedFadeStart = MathUtil.getModulatedFloat(fadeStart, groupTimeSpan.getStart(), groupTimeSpan.getEnd());
+            long fadeEnd = end.plus(fade.getFadeIn()).getEpochMillis();
+            modulatedFadeEnd = MathUtil.getModulatedFloat(fadeEnd, groupTimeSpan.getStart(), groupTimeSpan.getEnd());
+        }
+        return new float[] { modulatedFadeStart, modulatedStart, modulatedEnd, modulatedFadeEnd };
+    }
 }
@@ -30,12 +30,26 @@ import io.opensphere.core.util.lang.UnexpectedEnumException;
 /** Utilities methods for renderers which use GLSL shaders. */
 public final class ShaderRendererUtilitiesGLSL extends AbstractShaderRendererUtilities
 {
+    /**
+     * The index bound to the vertex time interval attribute. The built-in
+     * attributes are bound to fixed indices so that every program agrees on
+     * them. Indices 6 and 7 are not used by the conventional vertex
+     * attributes on drivers that alias them.
+     */
+    private static final int INTERVAL_FILTER_VERTEX_TIME_ATTRIBUTE_INDEX = 6;
+
     /** The key for the built-in interval shading fragment program. */
     private static final String INTERVAL_SHADER_KEY = "BUILT_IN_INTERVAL_SHADER";
 
     /** Logger reference. */
     private static final Logger LOGGER = Logger.getLogger(ShaderRendererUtilitiesGLSL.class);
 
+    /** The index bound to the point sprite atlas region attribute. */
+    private static final int SPRITE_ATLAS_REGION_ATTRIBUTE_INDEX = 7;
+
+    /** The key for the built-in point sprite atlas program. */
+    private static final String SPRITE_ATLAS_SHADER_KEY = "BUILT_IN_SPRITE_ATLAS_SHADER";
+
     /**
      * The currently loaded fragment tile shader function, or <code>null</code>.
      */
@@ -174,32 +188,9 @@ public final class ShaderRendererUtilitiesGLSL extends AbstractShaderRendererUti
                     : useTexture ? "/GLSL/IntervalFilterDrawFrag.glsl" : "/GLSL/IntervalFilterFrag.glsl");
             gl.getGL2().glAttachShader(intervalFilterProgram, vertShader);
             gl.getGL2().glAttachShader(intervalFilterProgram, fragShader);
-            gl.getGL2().glLinkProgram(intervalFilterProgram);
-            GLUtilities.checkGLErrors(gl, LOGGER, "Link Program");
-
-            IntBuffer intbuf = IntBuffer.allocate(16);
-            gl.getGL2().glGetProgramiv(intervalFilterProgram, GL2ES2.GL_LINK_STATUS, intbuf);
-            int linkStatus = intbuf.get();
-            if (LOGGER.isDebugEnabled() || linkStatus != GL.GL_TRUE)
-            {
-                // get log of link operation
-                intbuf.rewind();
-                gl.getGL2().glGetProgramiv(intervalFilterProgram, GL2ES2.GL_INFO_LOG_LENGTH, intbuf);
-                intbuf.rewind();
-                int logLength = intbuf.get();
-                ByteBuffer bytebuf = ByteBuffer.allocate(logLength + 1);
-                gl.getGL2().glGetProgramInfoLog(intervalFilterProgram, logLength, intbuf, bytebuf);
-                bytebuf.rewind();
-                String logText = new String(bytebuf.array(), StringUtilities.DEFAULT_CHARSET);
-                LOGGER.log(linkStatus == GL.GL_TRUE ? Level.DEBUG : Level.ERROR, "Interval shader link log: " + logText);
-            }
-
-            int vertAttrIndex = gl.getGL2().glGetAttribLocation(intervalFilterProgram, "vertexInterval");
-            if (vertAttrIndex == -1)
-            {
-                throw new IllegalStateException("No index found for vertexInterval attribute.");
-            }
-            myVertAttributeIndexMap.put(INTERVAL_FILTER_VERTEX_TIME_ATTRIBUTE_NAME, Integer.valueOf(vertAttrIndex));
+            bindVertAttrIndices(gl, intervalFilterProgram);
+            linkProgram(gl, intervalFilterProgram, "Interval");
+            putVertAttrIndex(gl, intervalFilterProgram, INTERVAL_FILTER_VERTEX_TIME_ATTRIBUTE_NAME);
 
             gl.getGL2().glDeleteShader(vertShader);
             gl.getGL2().glDeleteShader(fragShader);
@@ -222,6 +213,85 @@ public final class ShaderRendererUtilitiesGLSL extends AbstractShaderRendererUti
         shaderProg.setUniforms(gl, (FragmentShaderProperties)null);
     }
 
+    @Override
+    protected void enableSpriteAtlasShader(GL gl, float[] activeInterval, boolean pickEffect)
+    {
+        assert ThreadValidator.isSingleThread(this);
+
+        String programKey = SPRITE_ATLAS_SHADER_KEY + (pickEffect ? "_PICK" : "_DRAW")
+                + (activeInterval == null ? "" : "_INTERVAL");
+        ShaderProgramGLSL shaderProg = myShaderPrograms.get(programKey);
+        if (shaderProg == null)
+        {
+            int spriteAtlasProgram = gl.getGL2().glCreateProgram();
+            shaderProg = new ShaderProgramGLSL(spriteAtlasProgram, new DefaultFragmentShaderProperties());
+
+            // The variants share the shader code and are selected by defines,
+            // which must come before the code.
+            StringBuilder defines = new StringBuilder(64);
+            if (activeInterval != null)
+            {
+                defines.append("#define INTERVAL_FILTER\n");
+            }
+            if (pickEffect)
+            {
+                defines.append("#define PICK_EFFECT\n");
+            }
+            int vertShader = compileShader(gl, GL2ES2.GL_VERTEX_SHADER,
+                    defines + readShaderCode("/GLSL/PointSpriteAtlasVert.glsl"));
+            int fragShader = compileShader(gl, GL2ES2.GL_FRAGMENT_SHADER,
+                    defines + readShaderCode("/GLSL/PointSpriteAtlasFrag.glsl"));
+            gl.getGL2().glAttachShader(spriteAtlasProgram, vertShader);
+            gl.getGL2().glAttachShader(spriteAtlasProgram, fragShader);
+            bindVertAttrIndices(gl, spriteAtlasProgram);
+            linkProgram(gl, spriteAtlasProgram, "Sprite atlas");
+            putVertAttrIndex(gl, spriteAtlasProgram, SPRITE_ATLAS_REGION_ATTRIBUTE_NAME);
+            if (activeInterval != null)
+            {
+                putVertAttrIndex(gl, spriteAtlasProgram, INTERVAL_FILTER_VERTEX_TIME_ATTRIBUTE_NAME);
+            }
+
+            gl.getGL2().glDeleteShader(vertShader);
+            gl.getGL2().glDeleteShader(fragShader);
+
+            myShaderPrograms.put(programKey, shaderProg);
+        }
+        gl.getGL2().glUseProgram(shaderProg.getShaderProgramRef());
+
+        // This replaces any tile shader, so the next tile shader must be
+        // loaded again.
+        myCurrentTileShader = null;
+
+        if (activeInterval != null)
+        {
+            FragmentShaderProperties intervalProps = shaderProg.getExtendedProps();
+            ShaderPropertiesSet intervalSet = new ShaderPropertiesSet();
+            intervalSet.setShaderCode("");
+
+            Collection<Pair<String, float[]>> intervalUnis = New.collection();
+            intervalUnis.add(new Pair<>("activeInterval", activeInterval));
+            intervalSet.setFloatUniforms(intervalUnis);
+
+            intervalProps.setupShader(intervalSet);
+        }
+        shaderProg.setUniforms(gl, (FragmentShaderProperties)null);
+    }
+
+    /**
+     * Bind the built-in vertex attributes to their fixed indices in a program
+     * which is about to be linked, so that the indices used by the buffer
+     * objects are correct for every program.
+     *
+     * @param gl The OpenGL context.
+     * @param program The program.
+     */
+    private void bindVertAttrIndices(GL gl, int program)
+    {
+        gl.getGL2().glBindAttribLocation(program, INTERVAL_FILTER_VERTEX_TIME_ATTRIBUTE_INDEX,
+                INTERVAL_FILTER_VERTEX_TIME_ATTRIBUTE_NAME);
+        gl.getGL2().glBindAttribLocation(program, SPRITE_ATLAS_REGION_ATTRIBUTE_INDEX, SPRITE_ATLAS_REGION_ATTRIBUTE_NAME);
+    }
+
     /**
      * Compile the shader program.
      *
@@ -260,6 +330,54 @@ public final class ShaderRendererUtilitiesGLSL extends AbstractShaderRendererUti
         return shaderId;
     }
 
+    /**
+     * Link a program and log the result.
+     *
+     * @param gl The OpenGL context.
+     * @param program The program.
+     * @param name The name of the program for the log.
+     */
+    private void linkProgram(GL gl, int program, String name)
+    {
+        gl.getGL2().glLinkProgram(program);
+        GLUtilities.checkGLErrors(gl, LOGGER, "Link Program");
+
+        IntBuffer intbuf = IntBuffer.allocate(16);
+        gl.getGL2().glGetProgramiv(program, GL2ES2.GL_LINK_STATUS, intbuf);
+        int linkStatus = intbuf.get();
+        if (LOGGER.isDebugEnabled() || linkStatus != GL.GL_TRUE)
+        {
+            // get log of link operation
+            intbuf.rewind();
+            gl.getGL2().glGetProgramiv(program, GL2ES2.GL_INFO_LOG_LENGTH, intbuf);
+            intbuf.rewind();
+            int logLength = intbuf.get();
+            ByteBuffer bytebuf = ByteBuffer.allocate(logLength + 1);
+            gl.getGL2().glGetProgramInfoLog(program, logLength, intbuf, bytebuf);
+            bytebuf.rewind();
+            String logText = new String(bytebuf.array(), StringUtilities.DEFAULT_CHARSET);
+            LOGGER.log(linkStatus == GL.GL_TRUE ? Level.DEBUG : Level.ERROR, name + " shader link log: " + logText);
+        }
+    }
+
+    /**
+     * Look up the index of a vertex attribute in a linked program and
+     * remember it for {@link #getVertAttrIndex(String)}.
+     *
+     * @param gl The OpenGL context.
+     * @param program The program.
+     * @param attributeName The name of the attribute.
+     */
+    private void putVertAttrIndex(GL gl, int program, String attributeName)
+    {
+        int vertAttrIndex = gl.getGL2().glGetAttribLocation(program, attributeName);
+        if (vertAttrIndex == -1)
+        {
+            throw new IllegalStateException("No index found for " + attributeName + " attribute.");
+        }
+        myVertAttributeIndexMap.put(attributeName, Integer.valueOf(vertAttrIndex));
+    }
+
     /**
      * Build the filename for the shader.
      *
@@ -307,6 +425,18 @@ public final class ShaderRendererUtilitiesGLSL extends AbstractShaderRendererUti
      * @throws GLException If the shader cannot be loaded and compiled.
      */
     private int loadAndCompileShader(GL gl, int type, String resource) throws GLException
+    {
+        return compileShader(gl, type, readShaderCode(resource));
+    }
+
+    /**
+     * Read the shader code from the specified resource.
+     *
+     * @param resource The resource to read.
+     * @return The shader code.
+     * @throws GLException If the shader code cannot be read.
+     */
+    private String readShaderCode(String resource) throws GLException
     {
         String code;
         InputStream strm = ShaderRendererUtilitiesGLSL.class.getResourceAsStream(resource);
@@ -329,7 +459,6 @@ public final class ShaderRendererUtilitiesGLSL extends AbstractShaderRendererUti
                 LOGGER.warn("Exception closing stream: " + e, e);
             }
         }
-
-        return compileShader(gl, type, code);
+        return code;
     }
 }
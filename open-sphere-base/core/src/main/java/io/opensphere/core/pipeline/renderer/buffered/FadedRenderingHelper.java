@@ -33,6 +33,23 @@ public class FadedRenderingHelper
     /** The current time span. */
     private TimeSpan myTimeSpan;
 
+    /**
+     * Enable the shader used for drawing point sprites from a texture atlas,
+     * with interval filtering if the time spans set by
+     * {@link #renderEachTimeSpan(RenderContext, TimeSpan, Runnable)} call for
+     * it. This is intended to be called from the {@link Runnable} passed to
+     * that method.
+     *
+     * @param rc The render context.
+     * @param pickEffect If the pick effect should be enabled in the shader,
+     *            i.e., if the glColor rgb should be used rather than the
+     *            texture rgb.
+     */
+    public void enableSpriteAtlasShader(RenderContext rc, boolean pickEffect)
+    {
+        rc.getShaderRendererUtilities().enableSpriteAtlasShader(rc.getGL(), myTimeSpan, myGroupTimeSpan, getFade(), pickEffect);
+    }
+
     /**
      * Initialize the shader used for interval filtering. This is intended to be
      * called from the {@link Runnable} passed to
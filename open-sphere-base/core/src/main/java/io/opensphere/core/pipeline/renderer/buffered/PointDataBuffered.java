@@ -5,6 +5,9 @@ import java.nio.FloatBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
+
+import com.jogamp.opengl.util.texture.TextureCoords;
 
 import io.opensphere.core.geometry.AbstractGeometry;
 import io.opensphere.core.geometry.PointGeometry;
@@ -44,9 +47,34 @@ public class PointDataBuffered extends BufferObjectList<PointDataBufferedBlock>
      */
     public <T extends PointGeometry> PointDataBuffered(Collection<? extends T> geometries, boolean highlight,
             PickManager pickManager, ModelDataRetriever<T> dataRetriever, Projection projectionSnapshot, TimeSpan groupTimeSpan)
+    {
+        this(geometries, highlight, pickManager, dataRetriever, projectionSnapshot, groupTimeSpan, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param geometries The geometries.
+     * @param highlight Flag indicating if the points should be highlighted.
+     * @param pickManager The pick manager used to get pick colors.
+     * @param dataRetriever Component that provides the model coordinates for
+     *            the points.
+     * @param projectionSnapshot If non-null this snapshot will be used when
+     *            creating model data.
+     * @param groupTimeSpan If non-null this will be used to upload time
+     *            constraint information.
+     * @param atlasRegions If non-null this provides the texture coordinates
+     *            of each point's image within a texture atlas page, which will
+     *            be uploaded for the point sprite atlas shader.
+     *
+     * @param <T> The geometry type.
+     */
+    public <T extends PointGeometry> PointDataBuffered(Collection<? extends T> geometries, boolean highlight,
+            PickManager pickManager, ModelDataRetriever<T> dataRetriever, Projection projectionSnapshot, TimeSpan groupTimeSpan,
+            Function<? super T, TextureCoords> atlasRegions)
     {
         super(Collections.singletonList(new PointDataBufferedBlock(geometries, highlight, pickManager, dataRetriever,
-                projectionSnapshot, groupTimeSpan)));
+                projectionSnapshot, groupTimeSpan, atlasRegions)));
     }
 
     /** A block which backs part or all of the geometry. */
@@ -66,19 +94,23 @@ public class PointDataBuffered extends BufferObjectList<PointDataBufferedBlock>
          *            creating model data.
          * @param groupTimeSpan If non-null this will be used to upload time
          *            constraint information.
+         * @param atlasRegions If non-null this provides the texture
+         *            coordinates of each point's image within a texture atlas
+         *            page.
          * @return The list of buffer objects.
          */
         private static <T extends PointGeometry> List<? extends BufferObject> getBufferObjects(Collection<? extends T> geometries,
                 boolean highlight, PickManager pickManager, ModelDataRetriever<T> dataRetriever, Projection projectionSnapshot,
-                TimeSpan groupTimeSpan)
+                TimeSpan groupTimeSpan, Function<? super T, TextureCoords> atlasRegions)
         {
-            List<BufferObject> bufferObjects = New.list(4);
+            List<BufferObject> bufferObjects = New.list(5);
             if (!geometries.isEmpty())
             {
                 FloatBuffer modelCoords = BufferUtilities.newFloatBuffer(geometries.size() * 3);
                 ByteBuffer colors = BufferUtilities.newByteBuffer(geometries.size() * 4);
                 ByteBuffer pickColors = BufferUtilities.newByteBuffer(geometries.size() * 4);
                 FloatBuffer timeIntervals = groupTimeSpan == null ? null : BufferUtilities.newFloatBuffer(geometries.size() * 2);
+                FloatBuffer regions = atlasRegions == null ? null : BufferUtilities.newFloatBuffer(geometries.size() * 4);
                 for (T geom : geometries)
                 {
                     ModelCoordinates coords = (ModelCoordinates)dataRetriever.getModelData(geom, projectionSnapshot,
@@ -114,6 +146,18 @@ public class PointDataBuffered extends BufferObjectList<PointDataBufferedBlock>
                             timeIntervals.put(min);
                             timeIntervals.put(max);
                         }
+
+                        if (regions != null && atlasRegions != null)
+                        {
+                            // Left, top, right, bottom, so that the shader can
+                            // interpolate across the region with the point
+                            // sprite coordinate.
+                            TextureCoords region = atlasRegions.apply(geom);
+                            regions.put(region.left());
+                            regions.put(region.top());
+                            regions.put(region.right());
+                            regions.put(region.bottom());
+                        }
                     }
                 }
                 bufferObjects.add(new ColorBufferObject(colors, 4, AbstractGeometry.RenderMode.DRAW));
@@ -123,6 +167,12 @@ public class PointDataBuffered extends BufferObjectList<PointDataBufferedBlock>
                     bufferObjects.add(new VertexAttributeBufferObject(
                             ShaderRendererUtilities.INTERVAL_FILTER_VERTEX_TIME_ATTRIBUTE_NAME, timeIntervals));
                 }
+                if (regions != null)
+                {
+                    bufferObjects.add(new VertexAttributeBufferObject(
+                            ShaderRendererUtilities.SPRITE_ATLAS_REGION_ATTRIBUTE_NAME, regions, 4,
+                            (AbstractGeometry.RenderMode)null));
+                }
                 bufferObjects.add(new VertexBufferObject(modelCoords, true));
             }
             return bufferObjects;
@@ -142,12 +192,16 @@ public class PointDataBuffered extends BufferObjectList<PointDataBufferedBlock>
          *            creating model data.
          * @param groupTimeSpan If non-null this will be used to upload time
          *            constraint information.
+         * @param atlasRegions If non-null this provides the texture
+         *            coordinates of each point's image within a texture atlas
+         *            page.
          */
         public <T extends PointGeometry> PointDataBufferedBlock(Collection<? extends T> geometries, boolean highlight,
                 PickManager pickManager, ModelDataRetriever<T> dataRetriever, Projection projectionSnapshot,
-                TimeSpan groupTimeSpan)
+                TimeSpan groupTimeSpan, Function<? super T, TextureCoords> atlasRegions)
         {
-            super(getBufferObjects(geometries, highlight, pickManager, dataRetriever, projectionSnapshot, groupTimeSpan));
+            super(getBufferObjects(geometries, highlight, pickManager, dataRetriever, projectionSnapshot, groupTimeSpan,
+                    atlasRegions));
         }
     }
 }
@@ -13,6 +13,8 @@ import javax.media.opengl.GL2ES1;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
+import com.jogamp.opengl.util.texture.TextureCoords;
+
 import io.opensphere.core.geometry.AbstractGeometry.RenderMode;
 import io.opensphere.core.geometry.Geometry;
 import io.opensphere.core.geometry.PointSpriteGeometry;
@@ -22,6 +24,7 @@ import io.opensphere.core.pipeline.processor.PointSpriteProcessor.SpriteModelCoo
 import io.opensphere.core.pipeline.processor.TextureModelData;
 import io.opensphere.core.pipeline.renderer.AbstractRenderer;
 import io.opensphere.core.pipeline.renderer.GeometryRenderer;
+import io.opensphere.core.pipeline.util.AtlasTextureGroup;
 import io.opensphere.core.pipeline.util.PickManager;
 import io.opensphere.core.pipeline.util.RenderContext;
 import io.opensphere.core.pipeline.util.TextureGroup;
@@ -83,13 +86,14 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
 
         Map<PointSpriteRenderKey, PointDataBuffered> buffers = New.map();
         List<PointSpriteGeometry> rejects = New.list();
-        Map<PointSpriteRenderKey, List<T>> sorted = groupByTextureAndSize(input, rejects, dataRetriever, false);
+        Map<T, TextureCoords> atlasRegions = New.map();
+        Map<PointSpriteRenderKey, List<T>> sorted = groupByTextureAndSize(input, rejects, atlasRegions, dataRetriever, false);
         TimeSpan groupTimeSpan = getGroupInterval();
         for (Entry<PointSpriteRenderKey, List<T>> entry : sorted.entrySet())
         {
             List<T> list = entry.getValue();
             PointDataBuffered pointData = new PointDataBuffered(list, false, pickManager, specialDataRetriever, projection,
-                    groupTimeSpan);
+                    groupTimeSpan, entry.getKey().isAtlas() ? atlasRegions::get : null);
             buffers.put(entry.getKey(), pointData);
         }
         setRenderData(new PointSpriteRenderData<>(buffers, rejects, projection, groupTimeSpan));
@@ -108,7 +112,7 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
                 PointDataBuffered pointData = entry.getValue();
                 PointSpriteRenderKey key = entry.getKey();
 
-                TextureHandle handle = getTextureHandle(rc, key.getTextureGroup(), rc.getRenderMode());
+                TextureHandle handle = getTextureHandle(rc, key, rc.getRenderMode());
                 if (handle != null)
                 {
                     rc.getGL().getGL2().glPointSize(key.getSize());
@@ -172,8 +176,9 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
         Collection<T> pickedGeomsToRender = getPickedGeometries(input, pickManager);
         if (!pickedGeomsToRender.isEmpty())
         {
-            Map<PointSpriteRenderKey, List<T>> sizeSorted = groupByTextureAndSize(pickedGeomsToRender, New.list(), dataRetriever,
-                    true);
+            Map<T, TextureCoords> atlasRegions = New.map();
+            Map<PointSpriteRenderKey, List<T>> sizeSorted = groupByTextureAndSize(pickedGeomsToRender, New.list(), atlasRegions,
+                    dataRetriever, true);
             AbstractRenderer.ModelDataRetriever<T> specialDataRetriever = createSpecialDataRetriever(dataRetriever);
             for (Entry<PointSpriteRenderKey, List<T>> entry : sizeSorted.entrySet())
             {
@@ -181,7 +186,7 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
                 PointSpriteRenderKey key = entry.getKey();
 
                 PointDataBuffered highlightData = new PointDataBuffered(pointData, true, pickManager, specialDataRetriever,
-                        renderData.getProjection(), renderData.getGroupTimeSpan());
+                        renderData.getProjection(), renderData.getGroupTimeSpan(), key.isAtlas() ? atlasRegions::get : null);
                 if (rc.getRenderMode() == RenderMode.DRAW)
                 {
                     rc.getGL().getGL2().glPointSize(key.getSize());
@@ -194,7 +199,7 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
                     // occluded.
                     rc.getGL().getGL2().glPointSize(key.getSize());
                 }
-                TextureHandle handle = getTextureHandle(rc, key.getTextureGroup(), rc.getRenderMode());
+                TextureHandle handle = getTextureHandle(rc, key, rc.getRenderMode());
                 if (handle != null)
                 {
                     rc.getGL().glBindTexture(GL.GL_TEXTURE_2D, handle.getTextureId());
@@ -247,22 +252,30 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
     }
 
     /**
-     * Get the texture handle associated with the key for a render mode.
+     * Get the texture handle associated with the key for a render mode and
+     * enable the shader for it. Sprites from a texture atlas use the atlas
+     * shader, which samples each sprite's region of the page texture.
      *
      * @param rc The render context.
-     * @param textureGroup The texture group.
+     * @param key The render key.
      * @param renderMode The render mode.
      * @return The texture handle, or {@code null} if one could not be found.
      */
-    private TextureHandle getTextureHandle(RenderContext rc, TextureGroup textureGroup, RenderMode renderMode)
+    private TextureHandle getTextureHandle(RenderContext rc, PointSpriteRenderKey key, RenderMode renderMode)
     {
+        TextureGroup textureGroup = key.getTextureGroup();
         Object texture;
-        if (textureGroup == null)
+        if (key.isAtlas())
         {
-            texture = null;
+            texture = ((AtlasTextureGroup)textureGroup).getPageTextureKey();
+            getFadedRenderingHelper().enableSpriteAtlasShader(rc, renderMode == RenderMode.PICK);
         }
         else
         {
+            // Go back to the fixed-function pipeline in case an atlas was
+            // drawn before this.
+            rc.getShaderRendererUtilities().cleanupShaders(rc.getGL());
+
             texture = textureGroup.getTextureMap().get(renderMode);
             boolean pickEffect;
             if (texture == null && rc.getRenderMode() == RenderMode.PICK)
@@ -285,13 +298,15 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
      * @param input Geometries to be grouped.
      * @param rejects Geometries that could not be rendered and need
      *            reprocessing.
+     * @param atlasRegions Return map of the texture coordinates of the images
+     *            of geometries drawn from a texture atlas.
      * @param dataRetriever The data retriever for the texture groups.
      * @param isHighlighted Whether to use the highlighted size (false means use
      *            the size)
      * @return Grouped geometries.
      */
     private Map<PointSpriteRenderKey, List<T>> groupByTextureAndSize(Collection<? extends T> input, List<? super T> rejects,
-            ModelDataRetriever<T> dataRetriever, boolean isHighlighted)
+            Map<? super T, TextureCoords> atlasRegions, ModelDataRetriever<T> dataRetriever, boolean isHighlighted)
     {
         Map<PointSpriteRenderKey, List<T>> sizeSorted = New.map();
 
@@ -307,6 +322,10 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
                     PointSpriteRenderKey key = new PointSpriteRenderKey(size, modelData.getTextureGroup(),
                             geom.getRenderProperties().isObscurant());
                     CollectionUtilities.multiMapAdd(sizeSorted, key, geom, false);
+                    if (key.isAtlas())
+                    {
+                        atlasRegions.put(geom, modelData.getTextureGroup().getImageTexCoords());
+                    }
                 }
             }
             else
@@ -400,7 +419,9 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
     }
 
     /**
-     * Encapsulation of a point size property and a texture group.
+     * Encapsulation of a point size property and a texture group. Texture
+     * groups from the same texture atlas page share a key so that their
+     * sprites are drawn together.
      */
     private static class PointSpriteRenderKey
     {
@@ -410,6 +431,12 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
         /** The texture group. */
         private final TextureGroup myTextureGroup;
 
+        /**
+         * The key for the texture, which is the page texture key for a
+         * texture atlas and otherwise the texture group.
+         */
+        private final Object myTextureKey;
+
         /**
          * When true, the geometries may obscure other geometries based on depth
          * from the viewer, otherwise depth is ignored.
@@ -428,6 +455,8 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
             Utilities.checkNull(textureGroup, "textureGroup");
             mySize = size;
             myTextureGroup = textureGroup;
+            myTextureKey = textureGroup instanceof AtlasTextureGroup ? ((AtlasTextureGroup)textureGroup).getPageTextureKey()
+                    : textureGroup;
             myObscurant = obscurant;
         }
 
@@ -451,6 +480,16 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
             return myTextureGroup;
         }
 
+        /**
+         * Get whether the geometries are drawn from a texture atlas.
+         *
+         * @return true when the texture group is from a texture atlas.
+         */
+        public boolean isAtlas()
+        {
+            return myTextureGroup instanceof AtlasTextureGroup;
+        }
+
         /**
          * Get whether the geometries are obscurant.
          *
@@ -468,7 +507,7 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
             int result = 1;
             result = prime * result + HashCodeHelper.getHashCode(mySize);
             result = prime * result + HashCodeHelper.getHashCode(myObscurant);
-            result = prime * result + HashCodeHelper.getHashCode(myTextureGroup);
+            result = prime * result + HashCodeHelper.getHashCode(myTextureKey);
             return result;
         }
 
@@ -485,7 +524,7 @@ public class PointSpriteRendererBuffered<T extends PointSpriteGeometry> extends
             }
             PointSpriteRenderKey other = (PointSpriteRenderKey)obj;
             return mySize == other.mySize && myObscurant == other.myObscurant
-                    && Objects.equals(myTextureGroup, other.myTextureGroup);
+                    && Objects.equals(myTextureKey, other.myTextureKey);
         }
     }
 }
@@ -22,6 +22,9 @@ public class VertexAttributeBufferObject extends AbstractBufferObject<FloatBuffe
      */
     private final String myAttributeName;
 
+    /** The number of components in each vertex attribute. */
+    private final int myComponentCount;
+
     /**
      * Constructor.
      *
@@ -44,9 +47,31 @@ public class VertexAttributeBufferObject extends AbstractBufferObject<FloatBuffe
      *            buffer object is applicable to.
      */
     public VertexAttributeBufferObject(String attributeName, FloatBuffer buffer, @Nullable AbstractGeometry.RenderMode renderMode)
+    {
+        this(attributeName, buffer, 2, renderMode);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param attributeName The attribute name, which is used to look up the
+     *            vertex attribute index in the render context.
+     * @param buffer The buffer to be uploaded to the card.
+     * @param componentCount The number of components in each vertex
+     *            attribute, from 1 to 4.
+     * @param renderMode If non-null, this indicates which render mode the
+     *            buffer object is applicable to.
+     */
+    public VertexAttributeBufferObject(String attributeName, FloatBuffer buffer, int componentCount,
+            @Nullable AbstractGeometry.RenderMode renderMode)
     {
         super(buffer, renderMode);
         myAttributeName = Utilities.checkNull(attributeName, "attributeName");
+        if (componentCount < 1 || componentCount > 4)
+        {
+            throw new IllegalArgumentException("Invalid component count: " + componentCount);
+        }
+        myComponentCount = componentCount;
     }
 
     @Override
@@ -60,7 +85,7 @@ public class VertexAttributeBufferObject extends AbstractBufferObject<FloatBuffe
                 throw new IllegalStateException("No index found for vertex attribute " + myAttributeName);
             }
             rc.getGL2().glEnableVertexAttribArray(vertAttrIndex);
-            rc.getGL2().glVertexAttribPointer(vertAttrIndex, 2, GL.GL_FLOAT, false, 0, 0);
+            rc.getGL2().glVertexAttribPointer(vertAttrIndex, myComponentCount, GL.GL_FLOAT, false, 0, 0);
             return true;
         }
         return false;
@@ -0,0 +1,38 @@
+package io.opensphere.core.pipeline.util;
+
+import java.util.Collections;
+
+import com.jogamp.opengl.util.texture.TextureCoords;
+
+import io.opensphere.core.geometry.AbstractGeometry.RenderMode;
+
+/**
+ * A texture group for an image that has been packed into a page of a
+ * {@link TextureAtlas}. The draw texture is the texture for the whole page and
+ * the image texture coordinates locate the image within the page.
+ */
+public class AtlasTextureGroup extends TextureGroup
+{
+    /**
+     * Constructor.
+     *
+     * @param pageTextureKey The key for the texture handle of the page.
+     * @param regionTexCoords The texture coordinates of the image within the
+     *            page.
+     */
+    public AtlasTextureGroup(Object pageTextureKey, TextureCoords regionTexCoords)
+    {
+        super(Collections.singletonMap(RenderMode.DRAW, pageTextureKey), regionTexCoords);
+    }
+
+    /**
+     * Get the key for the texture handle of the page. Images in the same page
+     * can be drawn together.
+     *
+     * @return The key.
+     */
+    public Object getPageTextureKey()
+    {
+        return getTextureMap().get(RenderMode.DRAW);
+    }
+}
@@ -19,6 +19,12 @@ public interface ShaderRendererUtilities
      */
     String INTERVAL_FILTER_VERTEX_TIME_ATTRIBUTE_NAME = "vertexInterval";
 
+    /**
+     * The attribute name used with {@link #getVertAttrIndex(String)} for the
+     * region of each point sprite's image within a texture atlas page.
+     */
+    String SPRITE_ATLAS_REGION_ATTRIBUTE_NAME = "atlasRegion";
+
     /**
      * Clean up any active shaders.
      *
@@ -33,6 +39,28 @@ public interface ShaderRendererUtilities
      */
     void clear(GL gl);
 
+    /**
+     * Enable the shader that draws point sprites from a page of a texture
+     * atlas. Each point samples the region of the page given by its
+     * {@link #SPRITE_ATLAS_REGION_ATTRIBUTE_NAME} attribute rather than the
+     * whole texture. If a time span is given, the points are also filtered
+     * by time like {@link #initIntervalFilter}.
+     *
+     * @param gl The OpenGL context.
+     * @param span The interval during which vertices should be at full
+     *            opacity, or {@code null} if the points are not filtered by
+     *            time.
+     * @param groupTimeSpan The interval that represents that minimum and
+     *            maximum of the vertex times, or {@code null} if the points
+     *            are not filtered by time.
+     * @param fade The optional fade that specifies a translucent period on
+     *            either side of the activeSpan.
+     * @param pickEffect Indicates if the pick effect should be enabled in the
+     *            shader, i.e., if the glColor rgb should be used rather than
+     *            the texture rgb.
+     */
+    void enableSpriteAtlasShader(GL gl, TimeSpan span, TimeSpan groupTimeSpan, Fade fade, boolean pickEffect);
+
     /**
      * Enable the named tile shader.
      *
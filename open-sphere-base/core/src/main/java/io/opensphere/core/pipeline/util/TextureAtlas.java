@@ -0,0 +1,797 @@
+package io.opensphere.core.pipeline.util;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.jogamp.opengl.util.texture.TextureCoords;
+
+import io.opensphere.core.util.Utilities;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * A CPU-side texture atlas that packs small images (such as icons) into shared
+ * square pages so that sprites using different images can be drawn from the
+ * same texture.
+ * <p>
+ * Images are packed into each page using a bottom-left skyline. Images are
+ * reference counted; when an image is no longer used it stays in its page
+ * (so that using it again is free) until the space is needed for another
+ * image, at which point the least recently released images are evicted and
+ * their rectangles are reused. Neighboring freed rectangles are merged so
+ * that the space left by several small images can be reused for a larger one.
+ * A page with no images left is reset to an empty skyline.
+ * <p>
+ * Each page has a version and dirty bounds which change whenever its pixels
+ * change, so that a texture created from the page can be refreshed. Access to
+ * the page images should be synchronized on the atlas.
+ *
+ * @param <K> The type of the keys for the images.
+ */
+@ThreadSafe
+public class TextureAtlas<K>
+{
+    /** The maximum number of pages. */
+    private final int myMaxPages;
+
+    /** The transparent border around each image, in pixels. */
+    private final int myPadding;
+
+    /** The width and height of each page. */
+    private final int myPageSize;
+
+    /** The pages. */
+    @GuardedBy("this")
+    private final List<Page> myPages = new ArrayList<>();
+
+    /** The regions, by key. */
+    @GuardedBy("this")
+    private final Map<K, Region> myRegions = new HashMap<>();
+
+    /** The regions that are not in use, least recently released first. */
+    @GuardedBy("this")
+    private final Map<K, Region> myUnusedRegions = new LinkedHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param pageSize The width and height of each page, in pixels.
+     * @param padding The transparent border to leave around each image, in
+     *            pixels.
+     * @param maxPages The maximum number of pages.
+     */
+    public TextureAtlas(int pageSize, int padding, int maxPages)
+    {
+        if (pageSize <= 0 || padding < 0 || maxPages <= 0)
+        {
+            throw new IllegalArgumentException(
+                    "Invalid atlas parameters: pageSize " + pageSize + " padding " + padding + " maxPages " + maxPages);
+        }
+        myPageSize = pageSize;
+        myPadding = padding;
+        myMaxPages = maxPages;
+    }
+
+    /**
+     * Get the region for an image, adding the image to the atlas if it is not
+     * already there, and increment its reference count. Each call to this
+     * method should be balanced by a call to {@link #release(Object)}.
+     *
+     * @param key The key for the image.
+     * @param imageSupplier Supplier for the image, only called if the image is
+     *            not already in the atlas.
+     * @return The region, or {@code null} if the image is not available or is
+     *         too large to be packed.
+     */
+    public synchronized Region acquire(K key, Supplier<? extends BufferedImage> imageSupplier)
+    {
+        Utilities.checkNull(key, "key");
+        Region region = myRegions.get(key);
+        if (region == null)
+        {
+            BufferedImage image = imageSupplier.get();
+            if (image == null)
+            {
+                return null;
+            }
+            region = add(image);
+            if (region == null)
+            {
+                return null;
+            }
+            myRegions.put(key, region);
+        }
+        else if (region.myReferenceCount == 0)
+        {
+            myUnusedRegions.remove(key);
+        }
+        ++region.myReferenceCount;
+        return region;
+    }
+
+    /**
+     * Evict all of the images that are not in use.
+     *
+     * @return The number of images evicted.
+     */
+    public synchronized int evictUnused()
+    {
+        int count = myUnusedRegions.size();
+        for (Iterator<Map.Entry<K, Region>> iter = myUnusedRegions.entrySet().iterator(); iter.hasNext();)
+        {
+            Map.Entry<K, Region> entry = iter.next();
+            iter.remove();
+            evict(entry.getKey(), entry.getValue());
+        }
+        return count;
+    }
+
+    /**
+     * Get the region for an image that is already in the atlas. This does not
+     * change the reference count of the image.
+     *
+     * @param key The key for the image.
+     * @return The region, or {@code null} if the image is not in the atlas.
+     */
+    public synchronized Region get(K key)
+    {
+        return myRegions.get(key);
+    }
+
+    /**
+     * Get the pages in the atlas.
+     *
+     * @return The pages.
+     */
+    public synchronized List<Page> getPages()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(myPages));
+    }
+
+    /**
+     * Get the width and height of each page.
+     *
+     * @return The page size, in pixels.
+     */
+    public int getPageSize()
+    {
+        return myPageSize;
+    }
+
+    /**
+     * Decrement the reference count for an image. When the count reaches zero
+     * the image may be evicted to make room for other images.
+     *
+     * @param key The key for the image.
+     */
+    public synchronized void release(K key)
+    {
+        Region region = myRegions.get(key);
+        if (region != null && region.myReferenceCount > 0 && --region.myReferenceCount == 0)
+        {
+            myUnusedRegions.put(key, region);
+        }
+    }
+
+    /**
+     * Remove an image from the atlas regardless of its reference count, for
+     * instance because the image for the key has changed.
+     *
+     * @param key The key for the image.
+     * @return {@code true} if the image was in the atlas.
+     */
+    public synchronized boolean remove(K key)
+    {
+        Region region = myRegions.get(key);
+        if (region == null)
+        {
+            return false;
+        }
+        myUnusedRegions.remove(key);
+        evict(key, region);
+        return true;
+    }
+
+    /**
+     * Get the number of images in the atlas, including those that are not in
+     * use.
+     *
+     * @return The number of images.
+     */
+    public synchronized int size()
+    {
+        return myRegions.size();
+    }
+
+    /**
+     * Add an image to the atlas, evicting unused images if necessary.
+     *
+     * @param image The image.
+     * @return The region, or {@code null} if there is no room for the image.
+     */
+    @GuardedBy("this")
+    private Region add(BufferedImage image)
+    {
+        int width = image.getWidth() + 2 * myPadding;
+        int height = image.getHeight() + 2 * myPadding;
+        if (width > myPageSize || height > myPageSize)
+        {
+            return null;
+        }
+
+        Region region = place(width, height);
+        if (region == null && myPages.size() < myMaxPages)
+        {
+            Page page = new Page(myPages.size(), myPageSize);
+            myPages.add(page);
+            region = page.place(width, height);
+        }
+        for (Iterator<Map.Entry<K, Region>> iter = myUnusedRegions.entrySet().iterator(); region == null && iter.hasNext();)
+        {
+            Map.Entry<K, Region> entry = iter.next();
+            iter.remove();
+            evict(entry.getKey(), entry.getValue());
+            region = place(width, height);
+        }
+
+        if (region != null)
+        {
+            region.myPage.draw(image, region.myX + myPadding, region.myY + myPadding);
+            region.setImageBounds(myPadding, image.getWidth(), image.getHeight());
+        }
+        return region;
+    }
+
+    /**
+     * Remove an image from the atlas.
+     *
+     * @param key The key for the image.
+     * @param region The region for the image.
+     */
+    @GuardedBy("this")
+    private void evict(K key, Region region)
+    {
+        myRegions.remove(key);
+        region.myPage.free(region);
+    }
+
+    /**
+     * Find room for a rectangle in the existing pages.
+     *
+     * @param width The width, including padding.
+     * @param height The height, including padding.
+     * @return The region, or {@code null} if there is no room.
+     */
+    @GuardedBy("this")
+    private Region place(int width, int height)
+    {
+        for (Page page : myPages)
+        {
+            Region region = page.place(width, height);
+            if (region != null)
+            {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    /** A page of the atlas. */
+    public static final class Page
+    {
+        /** Rectangles below the skyline that have been freed by evictions. */
+        private final List<int[]> myFreeRects = new ArrayList<>();
+
+        /** The bounds of the pixels changed since they were last taken. */
+        private Rectangle myDirtyBounds;
+
+        /** The image for the page. */
+        private final BufferedImage myImage;
+
+        /** The index of the page in the atlas. */
+        private final int myIndex;
+
+        /** The number of regions in the page. */
+        private int myRegionCount;
+
+        /**
+         * The skyline, as a list of {x, y, width} segments ordered by x, each
+         * with the lowest free y-coordinate over its span.
+         */
+        private final List<int[]> mySkyline = new ArrayList<>();
+
+        /** The version of the page pixels. */
+        private int myVersion;
+
+        /**
+         * Constructor.
+         *
+         * @param index The index of the page in the atlas.
+         * @param size The width and height of the page.
+         */
+        Page(int index, int size)
+        {
+            myIndex = index;
+            myImage = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            mySkyline.add(new int[] { 0, 0, size });
+        }
+
+        /**
+         * Get the image for the page.
+         *
+         * @return The image.
+         */
+        public BufferedImage getImage()
+        {
+            return myImage;
+        }
+
+        /**
+         * Get the index of the page in the atlas.
+         *
+         * @return The index.
+         */
+        public int getIndex()
+        {
+            return myIndex;
+        }
+
+        /**
+         * Get the number of images in the page.
+         *
+         * @return The number of images.
+         */
+        public int getRegionCount()
+        {
+            return myRegionCount;
+        }
+
+        /**
+         * Get the version of the page pixels. This changes whenever an image
+         * is added to or evicted from the page.
+         *
+         * @return The version.
+         */
+        public int getVersion()
+        {
+            return myVersion;
+        }
+
+        /**
+         * Get the bounds of the pixels that have changed since the last call
+         * to this method, and reset them.
+         *
+         * @return The bounds, or {@code null} if no pixels have changed.
+         */
+        public Rectangle takeDirtyBounds()
+        {
+            Rectangle bounds = myDirtyBounds;
+            myDirtyBounds = null;
+            return bounds;
+        }
+
+        /**
+         * Add a rectangle to the dirty bounds and increment the version.
+         *
+         * @param x The x-coordinate.
+         * @param y The y-coordinate.
+         * @param width The width.
+         * @param height The height.
+         */
+        private void markDirty(int x, int y, int width, int height)
+        {
+            Rectangle rect = new Rectangle(x, y, width, height);
+            myDirtyBounds = myDirtyBounds == null ? rect : myDirtyBounds.union(rect);
+            ++myVersion;
+        }
+
+        /**
+         * Draw an image into the page.
+         *
+         * @param image The image.
+         * @param x The x-coordinate of the image in the page.
+         * @param y The y-coordinate of the image in the page.
+         */
+        void draw(BufferedImage image, int x, int y)
+        {
+            Graphics2D g = myImage.createGraphics();
+            try
+            {
+                g.setComposite(AlphaComposite.Src);
+                g.drawImage(image, x, y, null);
+            }
+            finally
+            {
+                g.dispose();
+            }
+            markDirty(x, y, image.getWidth(), image.getHeight());
+        }
+
+        /**
+         * Free the space used by a region.
+         *
+         * @param region The region.
+         */
+        void free(Region region)
+        {
+            Graphics2D g = myImage.createGraphics();
+            try
+            {
+                g.setComposite(AlphaComposite.Clear);
+                g.fillRect(region.myX, region.myY, region.myPackedWidth, region.myPackedHeight);
+            }
+            finally
+            {
+                g.dispose();
+            }
+            markDirty(region.myX, region.myY, region.myPackedWidth, region.myPackedHeight);
+
+            if (--myRegionCount == 0)
+            {
+                myFreeRects.clear();
+                mySkyline.clear();
+                mySkyline.add(new int[] { 0, 0, myImage.getWidth() });
+            }
+            else
+            {
+                addFreeRect(region.myX, region.myY, region.myPackedWidth, region.myPackedHeight);
+            }
+        }
+
+        /**
+         * Find room for a rectangle in the page.
+         *
+         * @param width The width.
+         * @param height The height.
+         * @return The region, or {@code null} if there is no room.
+         */
+        Region place(int width, int height)
+        {
+            Region region = placeInFreeRect(width, height);
+            if (region == null)
+            {
+                region = placeOnSkyline(width, height);
+            }
+            if (region != null)
+            {
+                ++myRegionCount;
+            }
+            return region;
+        }
+
+        /**
+         * Find room for a rectangle in the freed rectangles, choosing the one
+         * that leaves the shortest leftover side, and split what is left into
+         * two new free rectangles.
+         *
+         * @param width The width.
+         * @param height The height.
+         * @return The region, or {@code null} if no freed rectangle fits.
+         */
+        private Region placeInFreeRect(int width, int height)
+        {
+            int bestIndex = -1;
+            int bestFit = Integer.MAX_VALUE;
+            for (int index = 0; index < myFreeRects.size(); ++index)
+            {
+                int[] rect = myFreeRects.get(index);
+                if (rect[2] >= width && rect[3] >= height)
+                {
+                    int fit = Math.min(rect[2] - width, rect[3] - height);
+                    if (fit < bestFit)
+                    {
+                        bestFit = fit;
+                        bestIndex = index;
+                    }
+                }
+            }
+            if (bestIndex == -1)
+            {
+                return null;
+            }
+
+            int[] rect = myFreeRects.remove(bestIndex);
+            int rightWidth = rect[2] - width;
+            int bottomHeight = rect[3] - height;
+
+            // Split along the longer leftover side so the larger remainder
+            // stays in one piece.
+            if (rightWidth > bottomHeight)
+            {
+                addFreeRect(rect[0] + width, rect[1], rightWidth, rect[3]);
+                addFreeRect(rect[0], rect[1] + height, width, bottomHeight);
+            }
+            else
+            {
+                addFreeRect(rect[0] + width, rect[1], rightWidth, height);
+                addFreeRect(rect[0], rect[1] + height, rect[2], bottomHeight);
+            }
+            return new Region(this, rect[0], rect[1], width, height);
+        }
+
+        /**
+         * Add a free rectangle if it is not empty, merging it with any free
+         * rectangles that share a whole edge with it.
+         *
+         * @param x The x-coordinate.
+         * @param y The y-coordinate.
+         * @param width The width.
+         * @param height The height.
+         */
+        private void addFreeRect(int x, int y, int width, int height)
+        {
+            if (width <= 0 || height <= 0)
+            {
+                return;
+            }
+
+            int[] merged = new int[] { x, y, width, height };
+            boolean mergedAny = true;
+            while (mergedAny)
+            {
+                mergedAny = false;
+                for (Iterator<int[]> iter = myFreeRects.iterator(); iter.hasNext();)
+                {
+                    int[] rect = iter.next();
+                    if (rect[1] == merged[1] && rect[3] == merged[3]
+                            && (rect[0] + rect[2] == merged[0] || merged[0] + merged[2] == rect[0]))
+                    {
+                        merged[0] = Math.min(merged[0], rect[0]);
+                        merged[2] += rect[2];
+                    }
+                    else if (rect[0] == merged[0] && rect[2] == merged[2]
+                            && (rect[1] + rect[3] == merged[1] || merged[1] + merged[3] == rect[1]))
+                    {
+                        merged[1] = Math.min(merged[1], rect[1]);
+                        merged[3] += rect[3];
+                    }
+                    else
+                    {
+                        continue;
+                    }
+                    iter.remove();
+                    mergedAny = true;
+                }
+            }
+            myFreeRects.add(merged);
+        }
+
+        /**
+         * Find room for a rectangle on the skyline, choosing the position that
+         * leaves the rectangle's top edge lowest, and raise the skyline.
+         *
+         * @param width The width.
+         * @param height The height.
+         * @return The region, or {@code null} if the rectangle does not fit.
+         */
+        private Region placeOnSkyline(int width, int height)
+        {
+            int size = myImage.getWidth();
+            int bestIndex = -1;
+            int bestY = Integer.MAX_VALUE;
+            int bestSegmentWidth = Integer.MAX_VALUE;
+            for (int index = 0; index < mySkyline.size(); ++index)
+            {
+                int[] segment = mySkyline.get(index);
+                if (segment[0] + width > size)
+                {
+                    break;
+                }
+                int y = fitY(index, width);
+                if (y + height <= size && (y < bestY || y == bestY && segment[2] < bestSegmentWidth))
+                {
+                    bestIndex = index;
+                    bestY = y;
+                    bestSegmentWidth = segment[2];
+                }
+            }
+            if (bestIndex == -1)
+            {
+                return null;
+            }
+
+            int x = mySkyline.get(bestIndex)[0];
+            mySkyline.add(bestIndex, new int[] { x, bestY + height, width });
+
+            // Shrink or remove the segments now under the new one.
+            int right = x + width;
+            for (int index = bestIndex + 1; index < mySkyline.size();)
+            {
+                int[] segment = mySkyline.get(index);
+                if (segment[0] >= right)
+                {
+                    break;
+                }
+                int overlap = right - segment[0];
+                if (overlap >= segment[2])
+                {
+                    mySkyline.remove(index);
+                }
+                else
+                {
+                    segment[0] += overlap;
+                    segment[2] -= overlap;
+                    break;
+                }
+            }
+
+            // Merge neighboring segments at the same height.
+            for (int index = 0; index < mySkyline.size() - 1;)
+            {
+                int[] segment = mySkyline.get(index);
+                int[] next = mySkyline.get(index + 1);
+                if (segment[1] == next[1])
+                {
+                    segment[2] += next[2];
+                    mySkyline.remove(index + 1);
+                }
+                else
+                {
+                    ++index;
+                }
+            }
+
+            return new Region(this, x, bestY, width, height);
+        }
+
+        /**
+         * Get the y-coordinate at which a rectangle of a given width starting
+         * at a skyline segment would rest.
+         *
+         * @param startIndex The index of the first segment.
+         * @param width The width of the rectangle.
+         * @return The y-coordinate.
+         */
+        private int fitY(int startIndex, int width)
+        {
+            int y = 0;
+            int remaining = width;
+            for (int index = startIndex; remaining > 0; ++index)
+            {
+                int[] segment = mySkyline.get(index);
+                y = Math.max(y, segment[1]);
+                remaining -= segment[2];
+            }
+            return y;
+        }
+    }
+
+    /** The location of an image in a page of the atlas. */
+    public static final class Region
+    {
+        /** The height of the image. */
+        private int myHeight;
+
+        /** The height of the region, including padding. */
+        private final int myPackedHeight;
+
+        /** The width of the region, including padding. */
+        private final int myPackedWidth;
+
+        /** The page. */
+        private final Page myPage;
+
+        /** The number of users of the region. */
+        private int myReferenceCount;
+
+        /** The texture coordinates of the image within the page. */
+        private TextureCoords myTextureCoords;
+
+        /** The width of the image. */
+        private int myWidth;
+
+        /** The x-coordinate of the region in the page. */
+        private final int myX;
+
+        /** The y-coordinate of the region in the page. */
+        private final int myY;
+
+        /**
+         * Constructor.
+         *
+         * @param page The page.
+         * @param x The x-coordinate of the region in the page.
+         * @param y The y-coordinate of the region in the page.
+         * @param packedWidth The width of the region, including padding.
+         * @param packedHeight The height of the region, including padding.
+         */
+        Region(Page page, int x, int y, int packedWidth, int packedHeight)
+        {
+            myPage = page;
+            myX = x;
+            myY = y;
+            myPackedWidth = packedWidth;
+            myPackedHeight = packedHeight;
+        }
+
+        /**
+         * Get the height of the image.
+         *
+         * @return The height, in pixels.
+         */
+        public int getHeight()
+        {
+            return myHeight;
+        }
+
+        /**
+         * Get the page that contains the image.
+         *
+         * @return The page.
+         */
+        public Page getPage()
+        {
+            return myPage;
+        }
+
+        /**
+         * Get the texture coordinates of the image within the page. The
+         * coordinates follow the same orientation as a texture loaded from the
+         * page image, with the top row of the image at the top coordinate.
+         *
+         * @return The texture coordinates.
+         */
+        public TextureCoords getTextureCoords()
+        {
+            return myTextureCoords;
+        }
+
+        /**
+         * Get the width of the image.
+         *
+         * @return The width, in pixels.
+         */
+        public int getWidth()
+        {
+            return myWidth;
+        }
+
+        /**
+         * Get the x-coordinate of the image in the page.
+         *
+         * @return The x-coordinate, in pixels.
+         */
+        public int getX()
+        {
+            return myX + (myPackedWidth - myWidth) / 2;
+        }
+
+        /**
+         * Get the y-coordinate of the image in the page.
+         *
+         * @return The y-coordinate, in pixels.
+         */
+        public int getY()
+        {
+            return myY + (myPackedHeight - myHeight) / 2;
+        }
+
+        /**
+         * Set the bounds of the image within the region and compute its
+         * texture coordinates.
+         *
+         * @param padding The padding around the image.
+         * @param width The width of the image.
+         * @param height The height of the image.
+         */
+        void setImageBounds(int padding, int width, int height)
+        {
+            myWidth = width;
+            myHeight = height;
+            float size = myPage.getImage().getWidth();
+            float left = (myX + padding) / size;
+            float top = (myY + padding) / size;
+            myTextureCoords = new TextureCoords(left, top + height / size, left + width / size, top);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.net.Proxy;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import io.opensphere.core.util.io.CancellableInputStream;
 import io.opensphere.core.util.lang.Pair;
@@ -142,6 +143,40 @@ public interface HttpServer
      */
     CancellableInputStream sendGet(URL url, ResponseValues response) throws IOException, URISyntaxException;
 
+    /**
+     * Sends a get request to the server without blocking the calling thread
+     * while the request is in flight. Implementations with an asynchronous
+     * transport can keep many requests in flight with a few threads. The
+     * default implementation sends the request synchronously and returns a
+     * completed future.
+     * <p>
+     * The response values are populated before the future completes. The
+     * future completes exceptionally with an {@link IOException} or
+     * {@link URISyntaxException} if the request fails. Cancelling the future
+     * aborts the request.
+     *
+     * @param url The url to the server which should include any parameters.
+     * @param extraHeaderValues Header values to add to the request header.
+     * @param response The response code and message returned from the get
+     *            request.
+     * @return The future input stream containing the data returned by the get
+     *         request.
+     */
+    default CompletableFuture<CancellableInputStream> sendGetAsync(URL url, Map<String, String> extraHeaderValues,
+            ResponseValues response)
+    {
+        CompletableFuture<CancellableInputStream> future = new CompletableFuture<>();
+        try
+        {
+            future.complete(sendGet(url, extraHeaderValues, response));
+        }
+        catch (IOException | URISyntaxException | RuntimeException e)
+        {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Sends a HEAD request to the server.
      *
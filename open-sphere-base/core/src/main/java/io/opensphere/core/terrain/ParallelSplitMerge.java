@@ -0,0 +1,223 @@
+package io.opensphere.core.terrain;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.viewer.Viewer;
+
+/**
+ * Runs the per-triangle parts of a split/merge pass on a fork-join pool. The
+ * triangle forest is partitioned by subtree, and each task only computes
+ * values for the triangles in its own subtree (view sizes and the vertices
+ * that will be used to split them). The splits and merges themselves change
+ * neighboring triangles, so they are still applied serially in the usual
+ * order; the resulting mesh is the same as for a serial pass.
+ */
+final class ParallelSplitMerge
+{
+    /** The depth below a root at which subtrees are handled by one task. */
+    private static final int FORK_DEPTH = 10;
+
+    /** The number of threads for the shared pool. */
+    private static final int PARALLELISM = Integer.getInteger("opensphere.terrain.splitMergeThreads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1)).intValue();
+
+    /** The shared pool, created on first use. */
+    private static ForkJoinPool ourDefaultPool;
+
+    /**
+     * Get the shared pool for split/merge work.
+     *
+     * @return The pool, or {@code null} if split/merge work should be done
+     *         serially.
+     */
+    public static synchronized ForkJoinPool getDefaultPool()
+    {
+        if (PARALLELISM <= 1)
+        {
+            return null;
+        }
+        if (ourDefaultPool == null)
+        {
+            ourDefaultPool = new ForkJoinPool(PARALLELISM, pool ->
+            {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("TerrainSplitMerge-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        return ourDefaultPool;
+    }
+
+    /**
+     * Compute the split vertices for the leaves in a tree that the next
+     * {@link TerrainTriangle#checkSplit(Viewer, GeographicBoundingBox)} will
+     * split. This must be called after the view sizes and elevation parameters
+     * are current.
+     *
+     * @param pool The pool.
+     * @param root The root of the tree.
+     * @param bounds The region over which splitting will occur.
+     * @param pass The split/merge pass for which the vertices are valid.
+     */
+    public static void prepareSplits(ForkJoinPool pool, TerrainTriangle root, GeographicBoundingBox bounds, int pass)
+    {
+        pool.invoke(new PrepareSplitsAction(root, bounds, pass, 0));
+    }
+
+    /**
+     * Reset the view sizes of the triangles in a tree. This is equivalent to
+     * {@link TerrainTriangle#resetViewSize(Viewer)}.
+     *
+     * @param pool The pool.
+     * @param root The root of the tree.
+     * @param view The current viewer.
+     */
+    public static void resetViewSize(ForkJoinPool pool, TerrainTriangle root, Viewer view)
+    {
+        if (view != null)
+        {
+            pool.invoke(new ResetViewSizeAction(root, view, 0));
+        }
+    }
+
+    /** Disallow instantiation. */
+    private ParallelSplitMerge()
+    {
+    }
+
+    /**
+     * Task which prepares the split vertices for a subtree, following the
+     * same traversal as
+     * {@link TerrainTriangleSplitMergeHelper#checkSplit(Viewer, GeographicBoundingBox)}.
+     */
+    private static class PrepareSplitsAction extends RecursiveAction
+    {
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** The region over which splitting will occur. */
+        private final transient GeographicBoundingBox myBounds;
+
+        /** The depth of the triangle below the root. */
+        private final int myDepth;
+
+        /** The split/merge pass. */
+        private final int myPass;
+
+        /** The root of the subtree. */
+        private final transient TerrainTriangle myTriangle;
+
+        /**
+         * Constructor.
+         *
+         * @param triangle The root of the subtree.
+         * @param bounds The region over which splitting will occur.
+         * @param pass The split/merge pass.
+         * @param depth The depth of the triangle below the root.
+         */
+        public PrepareSplitsAction(TerrainTriangle triangle, GeographicBoundingBox bounds, int pass, int depth)
+        {
+            myTriangle = triangle;
+            myBounds = bounds;
+            myPass = pass;
+            myDepth = depth;
+        }
+
+        @Override
+        protected void compute()
+        {
+            prepare(myTriangle, myDepth);
+        }
+
+        /**
+         * Prepare the split vertices for a subtree.
+         *
+         * @param triangle The root of the subtree.
+         * @param depth The depth of the triangle below the root.
+         */
+        private void prepare(TerrainTriangle triangle, int depth)
+        {
+            if (triangle.isPetrified() || triangle.getAdjacentC() != null && triangle.getAdjacentC().isPetrified())
+            {
+                return;
+            }
+
+            TerrainTriangleSplitMergeHelper helper = triangle.getSplitMergeHelper();
+            TriangleGlobeModel globe = triangle.getGlobe();
+            if (helper.getGeneration() > globe.getMaximumGenerations() || helper.getGeneration() > globe.getMinimumGenerations()
+                    && myBounds != null && !myBounds.overlaps(triangle.getGeographicPolygon().getBoundingBox(), 0.))
+            {
+                return;
+            }
+
+            if (triangle.getLeftChild() == null)
+            {
+                if (helper.splitConditionsSatisfied())
+                {
+                    helper.prepareSplit(myPass);
+                }
+            }
+            else if (depth < FORK_DEPTH)
+            {
+                invokeAll(new PrepareSplitsAction(triangle.getLeftChild(), myBounds, myPass, depth + 1),
+                        new PrepareSplitsAction(triangle.getRightChild(), myBounds, myPass, depth + 1));
+            }
+            else
+            {
+                prepare(triangle.getLeftChild(), depth + 1);
+                prepare(triangle.getRightChild(), depth + 1);
+            }
+        }
+    }
+
+    /** Task which resets the view sizes for a subtree. */
+    private static class ResetViewSizeAction extends RecursiveAction
+    {
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** The depth of the triangle below the root. */
+        private final int myDepth;
+
+        /** The root of the subtree. */
+        private final transient TerrainTriangle myTriangle;
+
+        /** The current viewer. */
+        private final transient Viewer myView;
+
+        /**
+         * Constructor.
+         *
+         * @param triangle The root of the subtree.
+         * @param view The current viewer.
+         * @param depth The depth of the triangle below the root.
+         */
+        public ResetViewSizeAction(TerrainTriangle triangle, Viewer view, int depth)
+        {
+            myTriangle = triangle;
+            myView = view;
+            myDepth = depth;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (myDepth >= FORK_DEPTH)
+            {
+                myTriangle.resetViewSize(myView);
+            }
+            else if (!myTriangle.isPetrified())
+            {
+                myTriangle.getSplitMergeHelper().resetViewSize(myView);
+                if (myTriangle.getLeftChild() != null)
+                {
+                    invokeAll(new ResetViewSizeAction(myTriangle.getLeftChild(), myView, myDepth + 1),
+                            new ResetViewSizeAction(myTriangle.getRightChild(), myView, myDepth + 1));
+                }
+            }
+        }
+    }
+}
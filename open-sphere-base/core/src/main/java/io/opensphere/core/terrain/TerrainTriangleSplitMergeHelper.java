@@ -1,5 +1,8 @@
 package io.opensphere.core.terrain;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
 import io.opensphere.core.math.Vector3d;
 import io.opensphere.core.math.WGS84EarthConstants;
 import io.opensphere.core.model.GeographicBoundingBox;
@@ -58,6 +61,15 @@ public class TerrainTriangleSplitMergeHelper
     /** The triangle for which this helper is an agent. */
     private final TerrainTriangle myOwner;
 
+    /** The split/merge pass for which the split vertex was prepared. */
+    private int myPreparedPass;
+
+    /**
+     * The vertex which will divide my hypotenuse, computed ahead of the split,
+     * or {@code null}.
+     */
+    private CompletableFuture<TerrainVertex> myPreparedSplitVertex;
+
     /**
      * Hint for how dense the resolution of the terrain should be. This is used
      * to determine splitting and merging.
@@ -424,6 +436,69 @@ public class TerrainTriangleSplitMergeHelper
                 .getSplitMergeHelper().getMinVariance());
     }
 
+    /**
+     * Compute the vertex which will be used to split this triangle, so that
+     * the split does not have to wait for the elevation lookup. The vertex is
+     * only used during the given split/merge pass.
+     *
+     * @param pass The split/merge pass.
+     */
+    void prepareSplit(int pass)
+    {
+        myPreparedPass = pass;
+        myPreparedSplitVertex = CompletableFuture.completedFuture(calculateSplitMidVertex());
+    }
+
+    /**
+     * Start computing the vertex which will be used to split this triangle on
+     * a pool. The vertex is only used during the given split/merge pass.
+     *
+     * @param pool The pool.
+     * @param pass The split/merge pass.
+     */
+    void prepareSplitAsync(ForkJoinPool pool, int pass)
+    {
+        myPreparedPass = pass;
+        myPreparedSplitVertex = CompletableFuture.supplyAsync(this::calculateSplitMidVertex, pool);
+    }
+
+    /**
+     * Check to see whether the conditions required for splitting this triangle
+     * are satisfied.
+     *
+     * @return True when this triangle should be split.
+     */
+    boolean splitConditionsSatisfied()
+    {
+        if (myGeneration < myOwner.getGlobe().getMinimumGenerations() - 1)
+        {
+            return true;
+        }
+
+        if (!myInView && myResolutionHintM < 0.
+                || Math.abs(myOwner.getVertexA().getCoordinates().getLatLonAlt().getLatD()) > LATITUDE_LIMIT)
+        {
+            return false;
+        }
+
+        if (myResolutionHintM < 0.)
+        {
+            if (myViewSize > ourSplitViewSize)
+            {
+                return true;
+            }
+        }
+        else
+        {
+            if (myArcSize > myResolutionHintM)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Get the maximum linear size of the triangle on the model.
      *
@@ -439,11 +514,11 @@ public class TerrainTriangleSplitMergeHelper
     }
 
     /**
-     * Get the vertex which should be used to split this triangle.
+     * Calculate the vertex which should be used to split this triangle.
      *
      * @return The vertex which divides my hypotenuse.
      */
-    private TerrainVertex getSplitMidVertex()
+    private TerrainVertex calculateSplitMidVertex()
     {
         double midLat = (myOwner.getVertexA().getCoordinates().getLatLonAlt().getLatD()
                 + myOwner.getVertexB().getCoordinates().getLatLonAlt().getLatD()) * .5;
@@ -468,7 +543,31 @@ public class TerrainTriangleSplitMergeHelper
         {
             return myOwner.getPlane().getDistance(myOwner.getLeftChild().getVertexC().getModelCoordinates()) / myArcSize;
         }
-        return myOwner.getPlane().getDistance(getSplitMidVertex().getModelCoordinates()) / myArcSize;
+        return myOwner.getPlane().getDistance(calculateSplitMidVertex().getModelCoordinates()) / myArcSize;
+    }
+
+    /**
+     * Get the vertex which should be used to split this triangle, using the
+     * prepared vertex if there is one for the current split/merge pass.
+     *
+     * @return The vertex which divides my hypotenuse.
+     */
+    private TerrainVertex getSplitMidVertex()
+    {
+        CompletableFuture<TerrainVertex> prepared = myPreparedSplitVertex;
+        if (prepared != null)
+        {
+            myPreparedSplitVertex = null;
+            // If the vertex could not be computed, calculate it again below so
+            // that the error is reported in the same way as for a serial pass.
+            TerrainVertex vertex = myPreparedPass == myOwner.getGlobe().getSplitMergePass()
+                    ? prepared.exceptionally(e -> null).join() : null;
+            if (vertex != null)
+            {
+                return vertex;
+            }
+        }
+        return calculateSplitMidVertex();
     }
 
     /**
@@ -486,6 +585,31 @@ public class TerrainTriangleSplitMergeHelper
         parent.getRightChild().resetElevationParameters();
         parent.getRightChild().resetViewSize(view);
         parent.getRightChild().resetElevationProvider();
+
+        // The children are likely to be split next, so get started on their
+        // split vertices while the rest of the pass continues.
+        ForkJoinPool pool = myOwner.getGlobe().getSplitMergePool();
+        if (pool != null)
+        {
+            prepareChildSplit(parent.getLeftChild(), pool);
+            prepareChildSplit(parent.getRightChild(), pool);
+        }
+    }
+
+    /**
+     * Start computing the split vertex for a new child if it will be split.
+     *
+     * @param child The child.
+     * @param pool The pool.
+     */
+    private void prepareChildSplit(TerrainTriangle child, ForkJoinPool pool)
+    {
+        TerrainTriangleSplitMergeHelper helper = child.getSplitMergeHelper();
+        if (!child.isPetrified() && helper.getGeneration() <= myOwner.getGlobe().getMaximumGenerations()
+                && helper.splitConditionsSatisfied())
+        {
+            helper.prepareSplitAsync(pool, myOwner.getGlobe().getSplitMergePass());
+        }
     }
 
     /**
@@ -547,41 +671,4 @@ public class TerrainTriangleSplitMergeHelper
 
         return true;
     }
-
-    /**
-     * Check to see whether the conditions required for splitting this triangle
-     * are satisfied.
-     *
-     * @return True when this triangle should be split.
-     */
-    private boolean splitConditionsSatisfied()
-    {
-        if (myGeneration < myOwner.getGlobe().getMinimumGenerations() - 1)
-        {
-            return true;
-        }
-
-        if (!myInView && myResolutionHintM < 0.
-                || Math.abs(myOwner.getVertexA().getCoordinates().getLatLonAlt().getLatD()) > LATITUDE_LIMIT)
-        {
-            return false;
-        }
-
-        if (myResolutionHintM < 0.)
-        {
-            if (myViewSize > ourSplitViewSize)
-            {
-                return true;
-            }
-        }
-        else
-        {
-            if (myArcSize > myResolutionHintM)
-            {
-                return true;
-            }
-        }
-
-        return false;
-    }
 }
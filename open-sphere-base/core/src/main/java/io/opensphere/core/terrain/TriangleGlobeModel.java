@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.log4j.Logger;
@@ -80,6 +81,18 @@ public class TriangleGlobeModel extends GeographicProjectionModel
     /** The largest triangle whose a and b vertices are on the south pole. */
     private TerrainTriangle mySouthBottom;
 
+    /**
+     * A counter which is incremented at the start of each split/merge pass, so
+     * that values prepared for one pass are not used in another.
+     */
+    private int mySplitMergePass;
+
+    /**
+     * The pool for the parallel parts of split/merge passes, or {@code null}
+     * if they are done serially.
+     */
+    private ForkJoinPool mySplitMergePool = ParallelSplitMerge.getDefaultPool();
+
     /**
      * Construct this globe.
      *
@@ -436,8 +449,7 @@ public class TriangleGlobeModel extends GeographicProjectionModel
         try
         {
             myCurrentViewer = view;
-            myNorthBottom.resetViewSize(view);
-            mySouthBottom.resetViewSize(view);
+            resetViewSize(view);
 
             return doSplitsAndMerges(null);
         }
@@ -450,6 +462,8 @@ public class TriangleGlobeModel extends GeographicProjectionModel
     /** Create the globe from scratch. */
     protected final void createBaseGlobe()
     {
+        ++mySplitMergePass;
+
         GeographicPosition northPole = new GeographicPosition(LatLonAlt.createFromDegrees(90, 0));
         GeographicPosition southPole = new GeographicPosition(LatLonAlt.createFromDegrees(-90, 0));
         GeographicPosition topLeft = new GeographicPosition(LatLonAlt.createFromDegrees(90, -180));
@@ -499,11 +513,30 @@ public class TriangleGlobeModel extends GeographicProjectionModel
 
         if (myCelestialBody != null)
         {
-            myNorthBottom.resetViewSize(myCurrentViewer);
-            mySouthBottom.resetViewSize(myCurrentViewer);
+            resetViewSize(myCurrentViewer);
         }
     }
 
+    /**
+     * Get the current split/merge pass.
+     *
+     * @return The split/merge pass.
+     */
+    int getSplitMergePass()
+    {
+        return mySplitMergePass;
+    }
+
+    /**
+     * Get the pool for the parallel parts of split/merge passes.
+     *
+     * @return The pool, or {@code null} if split/merge passes are serial.
+     */
+    ForkJoinPool getSplitMergePool()
+    {
+        return mySplitMergePool;
+    }
+
     /**
      * Get the northBottom.
      *
@@ -534,6 +567,16 @@ public class TriangleGlobeModel extends GeographicProjectionModel
         myNorthBottom = northBottom;
     }
 
+    /**
+     * Set the pool for the parallel parts of split/merge passes.
+     *
+     * @param pool The pool, or {@code null} to make split/merge passes serial.
+     */
+    void setSplitMergePool(ForkJoinPool pool)
+    {
+        mySplitMergePool = pool;
+    }
+
     /**
      * Set the southBottom.
      *
@@ -635,9 +678,19 @@ public class TriangleGlobeModel extends GeographicProjectionModel
      */
     private Collection<GeographicBoundingBox> doSplitsAndMerges(GeographicBoundingBox bounds)
     {
+        ++mySplitMergePass;
+
         myNorthBottom.checkMerge(bounds);
         mySouthBottom.checkMerge(bounds);
 
+        // Find the split vertices in parallel. The splits are still done
+        // serially since they also modify the neighboring triangles.
+        if (mySplitMergePool != null)
+        {
+            ParallelSplitMerge.prepareSplits(mySplitMergePool, myNorthBottom, bounds, mySplitMergePass);
+            ParallelSplitMerge.prepareSplits(mySplitMergePool, mySouthBottom, bounds, mySplitMergePass);
+        }
+
         myNorthBottom.checkSplit(myCurrentViewer, bounds);
         mySouthBottom.checkSplit(myCurrentViewer, bounds);
 
@@ -650,4 +703,23 @@ public class TriangleGlobeModel extends GeographicProjectionModel
 
         return changes;
     }
+
+    /**
+     * Reset the size of the triangles in the view based on the given viewer.
+     *
+     * @param view The current viewer.
+     */
+    private void resetViewSize(Viewer view)
+    {
+        if (mySplitMergePool != null)
+        {
+            ParallelSplitMerge.resetViewSize(mySplitMergePool, myNorthBottom, view);
+            ParallelSplitMerge.resetViewSize(mySplitMergePool, mySouthBottom, view);
+        }
+        else
+        {
+            myNorthBottom.resetViewSize(view);
+            mySouthBottom.resetViewSize(view);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package io.opensphere.core.terrain.util;
 
 import java.util.Collection;
+import java.util.List;
 
 import io.opensphere.core.model.GeographicPolygon;
 import io.opensphere.core.model.GeographicPosition;
@@ -26,6 +27,24 @@ public interface AbsoluteElevationProvider extends ElevationMetadataProvider
      */
     double getElevationM(GeographicPosition position, boolean approximate);
 
+    /**
+     * Provide the elevations for many positions in meters. Providers which can
+     * sample many positions from the same source data should override this.
+     *
+     * @param positions The positions for which to provide the elevations.
+     * @param approximate When true, return the an approximate value when the
+     *            actual value is missing.
+     * @param elevations The array which receives the elevations, in the same
+     *            order as the positions.
+     */
+    default void getElevationsM(List<? extends GeographicPosition> positions, boolean approximate, double[] elevations)
+    {
+        for (int i = 0; i < positions.size(); ++i)
+        {
+            elevations[i] = getElevationM(positions.get(i), approximate);
+        }
+    }
+
     /**
      * Get the minimum change in elevation which should be used to generate
      * terrain features.
@@ -1,9 +1,11 @@
 package io.opensphere.core.terrain.util;
 
+import java.awt.Dimension;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 
 import org.apache.log4j.Logger;
 
@@ -93,6 +95,12 @@ public class BilSrtmImageReader implements ElevationImageReader
         return myElevationOrderId;
     }
 
+    @Override
+    public Dimension getGridSize(Image image)
+    {
+        return image instanceof StreamingImage ? new Dimension(image.getWidth(), image.getHeight()) : null;
+    }
+
     @Override
     public String getImageFormat()
     {
@@ -193,6 +201,56 @@ public class BilSrtmImageReader implements ElevationImageReader
         return elevation;
     }
 
+    @Override
+    public void readGrid(Image image, GeographicBoundingBox bounds, FloatBuffer grid) throws ElevationImageReaderException
+    {
+        if (!(image instanceof StreamingImage))
+        {
+            throw new ElevationImageReaderException("Image cannot provide a stream.");
+        }
+
+        InputStream stream = ((StreamingImage<?>)image).getInputStream();
+        if (stream == null)
+        {
+            throw new ElevationImageReaderException("Elevation sampling failed. Stream unavailable for streaming image.");
+        }
+
+        try
+        {
+            int count = image.getWidth() * image.getHeight();
+            byte[] bytes = new byte[Math.min(count, 8192) * BYTES_PER_PIXEL];
+            ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
+            int index = 0;
+            while (index < count)
+            {
+                int toRead = Math.min(count - index, bytes.length / BYTES_PER_PIXEL) * BYTES_PER_PIXEL;
+                int read = 0;
+                while (read < toRead)
+                {
+                    int n = stream.read(bytes, read, toRead - read);
+                    if (n < 0)
+                    {
+                        throw new ElevationImageReaderException(
+                                "Could not read elevation grid. Image dimensions do not match buffer size.");
+                    }
+                    read += n;
+                }
+                for (int offset = 0; offset < toRead; offset += BYTES_PER_PIXEL)
+                {
+                    grid.put(index++, buf.getShort(offset));
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ElevationImageReaderException("Failed to read from stream." + e, e);
+        }
+        finally
+        {
+            closeStream(stream);
+        }
+    }
+
     /**
      * Approximate a value based on the values nearest the point in which we are
      * interested.
@@ -0,0 +1,235 @@
+package io.opensphere.core.terrain.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.nio.FloatBuffer;
+
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.util.MathUtil;
+
+/**
+ * A decoded grid of elevations covering a geographic bounding box. The first
+ * row of the grid is the northern edge of the box and the first column is the
+ * western edge, which matches the layout of elevation images. Elevations
+ * between grid posts are bilinearly interpolated, ignoring posts which have
+ * the "missing data" value.
+ * <p>
+ * The grid is read-only once it has been created, so it may be sampled by
+ * multiple threads concurrently.
+ */
+public final class ElevationGrid
+{
+    /** The number of posts in the east-west direction. */
+    private final int myColumns;
+
+    /** The elevations in meters in row-major order. */
+    private final FloatBuffer myHeights;
+
+    /** The maximum latitude in degrees. */
+    private final double myMaxLatD;
+
+    /** The minimum latitude in degrees. */
+    private final double myMinLatD;
+
+    /** The minimum longitude in degrees. */
+    private final double myMinLonD;
+
+    /** The value given for posts which have no data. */
+    private final double myMissingDataValue;
+
+    /** The missing data value as it is stored in the grid. */
+    private final float myMissingSample;
+
+    /** The number of posts in the north-south direction. */
+    private final int myRows;
+
+    /** The number of columns per degree of longitude. */
+    private final double myColumnsPerDegree;
+
+    /** The number of rows per degree of latitude. */
+    private final double myRowsPerDegree;
+
+    /** The maximum longitude in degrees. */
+    private final double myMaxLonD;
+
+    /** The object which the grid was decoded from. */
+    private final Reference<Object> mySource;
+
+    /**
+     * Constructor.
+     *
+     * @param bounds The bounds covered by the grid.
+     * @param columns The number of posts in the east-west direction.
+     * @param rows The number of posts in the north-south direction.
+     * @param missingDataValue The value given for posts which have no data.
+     * @param heights The elevations in meters in row-major order, starting at
+     *            the north-west corner.
+     * @param source The object which the grid was decoded from, which is only
+     *            weakly referenced.
+     */
+    public ElevationGrid(GeographicBoundingBox bounds, int columns, int rows, double missingDataValue, FloatBuffer heights,
+            Object source)
+    {
+        if (columns < 2 || rows < 2)
+        {
+            throw new IllegalArgumentException("An elevation grid must have at least 2 rows and columns.");
+        }
+        if (heights.capacity() < columns * rows)
+        {
+            throw new IllegalArgumentException("Buffer capacity " + heights.capacity() + " is less than " + columns * rows);
+        }
+        myMinLatD = bounds.getMinLatD();
+        myMaxLatD = bounds.getMaxLatD();
+        myMinLonD = bounds.getMinLonD();
+        myMaxLonD = bounds.getMaxLonD();
+        myColumns = columns;
+        myRows = rows;
+        myColumnsPerDegree = (columns - 1) / (myMaxLonD - myMinLonD);
+        myRowsPerDegree = (rows - 1) / (myMaxLatD - myMinLatD);
+        myMissingDataValue = missingDataValue;
+        myMissingSample = (float)missingDataValue;
+        myHeights = heights;
+        mySource = new WeakReference<>(source);
+    }
+
+    /**
+     * Determine whether the grid covers a location.
+     *
+     * @param latD The latitude in degrees.
+     * @param lonD The longitude in degrees.
+     * @return true when the location is within the grid.
+     */
+    public boolean contains(double latD, double lonD)
+    {
+        return latD >= myMinLatD && latD <= myMaxLatD && lonD >= myMinLonD && lonD <= myMaxLonD;
+    }
+
+    /**
+     * Get the number of posts in the east-west direction.
+     *
+     * @return The number of columns.
+     */
+    public int getColumns()
+    {
+        return myColumns;
+    }
+
+    /**
+     * Get the interpolated elevation at a location.
+     *
+     * @param latD The latitude in degrees.
+     * @param lonD The longitude in degrees.
+     * @return The elevation in meters, or the "missing data" value if the
+     *         location is not within the grid or none of the surrounding posts
+     *         have data.
+     */
+    public double getElevationM(double latD, double lonD)
+    {
+        if (!contains(latD, lonD))
+        {
+            return myMissingDataValue;
+        }
+
+        double x = (lonD - myMinLonD) * myColumnsPerDegree;
+        double y = (myMaxLatD - latD) * myRowsPerDegree;
+        int col = Math.min((int)x, myColumns - 2);
+        int row = Math.min((int)y, myRows - 2);
+        double xPct = x - col;
+        double yPct = y - row;
+
+        int index = row * myColumns + col;
+        double top = interpolate(xPct, myHeights.get(index), myHeights.get(index + 1));
+        double bottom = interpolate(xPct, myHeights.get(index + myColumns), myHeights.get(index + myColumns + 1));
+        double elevation = interpolate(yPct, top, bottom);
+        return elevation == myMissingSample ? myMissingDataValue : elevation;
+    }
+
+    /**
+     * Get the interpolated elevations for many locations. Results are only
+     * written for the locations which are within the grid.
+     *
+     * @param latD The latitudes in degrees.
+     * @param lonD The longitudes in degrees.
+     * @param elevations The array which receives the elevations in meters.
+     * @param from The index of the first location to sample.
+     * @param to One past the index of the last location to sample.
+     * @return The number of locations which were within the grid.
+     */
+    public int getElevationsM(double[] latD, double[] lonD, double[] elevations, int from, int to)
+    {
+        int count = 0;
+        for (int i = from; i < to; ++i)
+        {
+            if (contains(latD[i], lonD[i]))
+            {
+                elevations[i] = getElevationM(latD[i], lonD[i]);
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the value given for posts which have no data.
+     *
+     * @return The missing data value.
+     */
+    public double getMissingDataValue()
+    {
+        return myMissingDataValue;
+    }
+
+    /**
+     * Get the number of posts in the north-south direction.
+     *
+     * @return The number of rows.
+     */
+    public int getRows()
+    {
+        return myRows;
+    }
+
+    /**
+     * Get the size of the grid data.
+     *
+     * @return The size in bytes.
+     */
+    public long getSizeBytes()
+    {
+        return (long)myColumns * myRows * Float.BYTES;
+    }
+
+    /**
+     * Determine whether the grid was decoded from the given object.
+     *
+     * @param source The possible source.
+     * @return true when the grid was decoded from the object.
+     */
+    public boolean isFrom(Object source)
+    {
+        return mySource.get() == source;
+    }
+
+    /**
+     * Interpolation which excludes the "missing data" value. If one sample is
+     * missing, the other sample is returned.
+     *
+     * @param pct The percentage from sample1 to sample2.
+     * @param sample1 The starting sample.
+     * @param sample2 The ending sample.
+     * @return The interpolated value, or the "missing data" value if both
+     *         samples are missing.
+     */
+    private double interpolate(double pct, double sample1, double sample2)
+    {
+        if (sample1 == myMissingSample)
+        {
+            return sample2;
+        }
+        else if (sample2 == myMissingSample)
+        {
+            return sample1;
+        }
+        return MathUtil.lerp(pct, sample1, sample2);
+    }
+}
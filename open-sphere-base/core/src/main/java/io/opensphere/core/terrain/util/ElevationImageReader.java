@@ -1,5 +1,8 @@
 package io.opensphere.core.terrain.util;
 
+import java.awt.Dimension;
+import java.nio.FloatBuffer;
+
 import io.opensphere.core.image.Image;
 import io.opensphere.core.model.GeographicBoundingBox;
 import io.opensphere.core.model.GeographicPosition;
@@ -14,6 +17,19 @@ public interface ElevationImageReader extends ElevationMetadataProvider
      */
     String getImageFormat();
 
+    /**
+     * Get the size of the elevation grid which {@link #readGrid} will decode
+     * from an image.
+     *
+     * @param image The image which contains the elevation data.
+     * @return The number of columns and rows in the grid, or {@code null} if
+     *         this reader cannot decode grids.
+     */
+    default Dimension getGridSize(Image image)
+    {
+        return null;
+    }
+
     /**
      * Initializes the reader if it was constructed by a ServiceLoader.
      *
@@ -40,4 +56,20 @@ public interface ElevationImageReader extends ElevationMetadataProvider
      */
     double readElevation(GeographicPosition position, Image image, GeographicBoundingBox bounds, boolean approximate)
             throws ElevationImageReaderException;
+
+    /**
+     * Decode all of the elevations in an image into a grid. The grid is
+     * written in row-major order starting at the north-west corner, and its
+     * size is given by {@link #getGridSize(Image)}.
+     *
+     * @param image The image which contains the elevation data.
+     * @param bounds the bounding box which the image covers.
+     * @param grid The buffer which receives the elevations in meters.
+     * @throws ElevationImageReaderException If there is an error reading from
+     *             the image.
+     */
+    default void readGrid(Image image, GeographicBoundingBox bounds, FloatBuffer grid) throws ElevationImageReaderException
+    {
+        throw new ElevationImageReaderException("Reader for " + getImageFormat() + " cannot decode elevation grids.");
+    }
 }
@@ -9,6 +9,8 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.log4j.Logger;
 
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TObjectIntMap;
 import io.opensphere.core.model.GeographicBoundingBox;
 import io.opensphere.core.model.GeographicConvexPolygon;
@@ -155,6 +157,7 @@ public class ElevationManager
         {
             myProvidersLock.writeLock().unlock();
         }
+        ElevationTileCache.getDefault().invalidate(provider.getElevationOrderId());
 
         ElevationChangedEvent event = new ElevationChangedEvent(Collections.singleton(provider), null,
                 ProviderChangeType.PROVIDER_REMOVED);
@@ -181,6 +184,68 @@ public class ElevationManager
         return 0;
     }
 
+    /**
+     * Get the elevations for many positions in meters. The positions are
+     * grouped by the highest priority provider for each position, and each
+     * provider samples all of its positions at once.
+     *
+     * @param positions The positions for which the elevations are desired.
+     * @param approximate When true, return the an approximate value when the
+     *            actual value is missing.
+     * @return The elevations in meters, in the same order as the positions.
+     *         The elevation is zero for positions which have no provider.
+     */
+    public double[] getElevationsM(List<? extends GeographicPosition> positions, boolean approximate)
+    {
+        double[] elevations = new double[positions.size()];
+        Map<String, AbsoluteElevationProvider> providers = getProviders();
+        if (providers.isEmpty() || myOrderManager == null || positions.isEmpty())
+        {
+            return elevations;
+        }
+
+        List<AbsoluteElevationProvider> ordered = New.list();
+        List<OrderParticipantKey> keys = myOrderManager.getActiveParticipants();
+        for (int i = keys.size() - 1; i >= 0; --i)
+        {
+            AbsoluteElevationProvider provider = providers.get(keys.get(i).getId());
+            // providers which are ordered, may not be registered
+            if (provider != null)
+            {
+                ordered.add(provider);
+            }
+        }
+
+        Map<AbsoluteElevationProvider, TIntList> indicesByProvider = New.insertionOrderMap();
+        for (int i = 0; i < positions.size(); ++i)
+        {
+            GeographicPosition position = positions.get(i);
+            for (AbsoluteElevationProvider provider : ordered)
+            {
+                if (provider.providesForPosition(position))
+                {
+                    indicesByProvider.computeIfAbsent(provider, p -> new TIntArrayList()).add(i);
+                    break;
+                }
+            }
+        }
+
+        for (Map.Entry<AbsoluteElevationProvider, TIntList> entry : indicesByProvider.entrySet())
+        {
+            TIntList indices = entry.getValue();
+            List<GeographicPosition> subset = New.list(indices.size());
+            indices.forEach(i -> subset.add(positions.get(i)));
+            double[] results = new double[indices.size()];
+            entry.getKey().getElevationsM(subset, approximate, results);
+            for (int i = 0; i < results.length; ++i)
+            {
+                elevations[indices.get(i)] = results[i];
+            }
+        }
+
+        return elevations;
+    }
+
     /**
      * For all elevation providers which overlap the polygon, get the highest
      * density resolution hint.
@@ -0,0 +1,451 @@
+package io.opensphere.core.terrain.util;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import io.opensphere.core.image.Image;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.lang.EqualsHelper;
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * A cache of decoded elevation grids. The grids are stored in memory-mapped
+ * files rather than on the Java heap, so that elevation tiles only need to be
+ * decoded once and many positions can be sampled from each tile without
+ * re-reading the image. The least recently used grids are evicted (and their
+ * files deleted) when the total size of the grids exceeds a byte budget.
+ * <p>
+ * A file that is still mapped cannot be deleted on some platforms, so files
+ * that fail to delete are retried when later grids are evicted and when the
+ * cache is closed.
+ */
+public class ElevationTileCache
+{
+    /**
+     * The default byte budget, which may be set with the
+     * {@code opensphere.elevation.tileCacheBytes} system property.
+     */
+    private static final long DEFAULT_BUDGET_BYTES = Long.getLong("opensphere.elevation.tileCacheBytes", 256L << 20).longValue();
+
+    /** Logger reference. */
+    private static final Logger LOGGER = Logger.getLogger(ElevationTileCache.class);
+
+    /** The shared instance. */
+    private static final ElevationTileCache ourDefault = new ElevationTileCache(null, DEFAULT_BUDGET_BYTES);
+
+    static
+    {
+        Runtime.getRuntime().addShutdownHook(new Thread(ourDefault::close, "ElevationTileCache-shutdown"));
+    }
+
+    /** The maximum total size of the grids. */
+    private final long myBudgetBytes;
+
+    /**
+     * The directory for the grid files, or {@code null} if a temporary
+     * directory has not been created yet.
+     */
+    @GuardedBy("this")
+    private File myDirectory;
+
+    /** Whether the directory is a temporary one created by this cache. */
+    @GuardedBy("this")
+    private boolean myTemporaryDirectory;
+
+    /** Grid files which could not be deleted yet. */
+    @GuardedBy("this")
+    private final List<File> myUndeletedFiles = New.list();
+
+    /** The grids, in least recently used order. */
+    @GuardedBy("this")
+    private final LinkedHashMap<TileKey, CacheEntry> myEntries = new LinkedHashMap<>(16, .75f, true);
+
+    /** The total size of the grids. */
+    @GuardedBy("this")
+    private long mySizeBytes;
+
+    /**
+     * Get the shared instance.
+     *
+     * @return The shared cache.
+     */
+    public static ElevationTileCache getDefault()
+    {
+        return ourDefault;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param directory The directory in which to create the grid files, or
+     *            {@code null} to use a temporary directory.
+     * @param budgetBytes The maximum total size of the grids.
+     */
+    public ElevationTileCache(File directory, long budgetBytes)
+    {
+        myDirectory = directory;
+        myBudgetBytes = budgetBytes;
+    }
+
+    /**
+     * Remove all of the grids.
+     */
+    public synchronized void clear()
+    {
+        for (CacheEntry entry : myEntries.values())
+        {
+            deleteFile(entry.getFile());
+        }
+        myEntries.clear();
+        mySizeBytes = 0L;
+    }
+
+    /**
+     * Remove all of the grids and delete their files, and the directory if it
+     * was created by this cache. Files which still cannot be deleted are
+     * logged.
+     */
+    public synchronized void close()
+    {
+        clear();
+        retryDeletes();
+        for (File file : myUndeletedFiles)
+        {
+            LOGGER.warn("Failed to delete elevation grid file " + file);
+        }
+        myUndeletedFiles.clear();
+
+        if (myTemporaryDirectory && myDirectory != null)
+        {
+            if (!myDirectory.delete())
+            {
+                LOGGER.warn("Failed to delete elevation grid directory " + myDirectory);
+            }
+            myDirectory = null;
+            myTemporaryDirectory = false;
+        }
+    }
+
+    /**
+     * Get a grid if it is in the cache.
+     *
+     * @param key The key for the tile.
+     * @return The grid, or {@code null} if it is not cached.
+     */
+    public synchronized ElevationGrid get(TileKey key)
+    {
+        CacheEntry entry = myEntries.get(key);
+        return entry == null ? null : entry.getGrid();
+    }
+
+    /**
+     * Get the grid for a tile, decoding it from the tile's image if it is not
+     * cached or was decoded from a different image.
+     *
+     * @param key The key for the tile.
+     * @param reader The reader for the image.
+     * @param image The image which contains the elevation data.
+     * @param bounds The bounds covered by the image.
+     * @return The grid, or {@code null} if the reader cannot decode grids or
+     *         the grid could not be created.
+     */
+    public ElevationGrid getGrid(TileKey key, ElevationImageReader reader, Image image, GeographicBoundingBox bounds)
+    {
+        ElevationGrid grid = get(key);
+        if (grid != null && grid.isFrom(image))
+        {
+            return grid;
+        }
+
+        Dimension size = reader.getGridSize(image);
+        if (size == null)
+        {
+            return null;
+        }
+
+        File file = null;
+        try
+        {
+            file = createFile();
+            FloatBuffer heights = map(file, size.width * size.height);
+            reader.readGrid(image, bounds, heights);
+            grid = new ElevationGrid(bounds, size.width, size.height, reader.getMissingDataValue(), heights, image);
+        }
+        catch (IOException | ElevationImageReaderException | RuntimeException e)
+        {
+            LOGGER.warn("Failed to cache elevation grid for " + key + ": " + e, e);
+            if (file != null)
+            {
+                synchronized (this)
+                {
+                    deleteFile(file);
+                }
+            }
+            return null;
+        }
+
+        put(key, grid, file);
+        return grid;
+    }
+
+    /**
+     * Get the total size of the cached grids.
+     *
+     * @return The size in bytes.
+     */
+    public synchronized long getSizeBytes()
+    {
+        return mySizeBytes;
+    }
+
+    /**
+     * Remove the grids for a provider.
+     *
+     * @param providerId The elevation order id of the provider.
+     */
+    public synchronized void invalidate(String providerId)
+    {
+        for (Iterator<Map.Entry<TileKey, CacheEntry>> iter = myEntries.entrySet().iterator(); iter.hasNext();)
+        {
+            Map.Entry<TileKey, CacheEntry> entry = iter.next();
+            if (entry.getKey().getProviderId().equals(providerId))
+            {
+                iter.remove();
+                mySizeBytes -= entry.getValue().getGrid().getSizeBytes();
+                deleteFile(entry.getValue().getFile());
+            }
+        }
+    }
+
+    /**
+     * Get the directory for the grid files, creating a temporary one if
+     * necessary.
+     *
+     * @return The directory.
+     * @throws IOException If the directory cannot be created.
+     */
+    private synchronized File getDirectory() throws IOException
+    {
+        if (myDirectory == null)
+        {
+            myDirectory = Files.createTempDirectory("opensphere-elevation").toFile();
+            myTemporaryDirectory = true;
+        }
+        else if (!myDirectory.isDirectory() && !myDirectory.mkdirs())
+        {
+            throw new IOException("Failed to create directory " + myDirectory);
+        }
+        return myDirectory;
+    }
+
+    /**
+     * Create a file for a grid.
+     *
+     * @return The file.
+     * @throws IOException If the file cannot be created.
+     */
+    private File createFile() throws IOException
+    {
+        return File.createTempFile("grid", ".elev", getDirectory());
+    }
+
+    /**
+     * Delete a grid file. The mapping for the file remains valid until it is
+     * garbage collected, so grids which are in use may still be sampled. If
+     * the file cannot be deleted (because it is still mapped), it is retried
+     * later.
+     *
+     * @param file The file.
+     */
+    @GuardedBy("this")
+    private void deleteFile(File file)
+    {
+        if (!file.delete() && file.exists())
+        {
+            LOGGER.warn("Could not delete elevation grid file " + file + "; it will be retried.");
+            myUndeletedFiles.add(file);
+        }
+    }
+
+    /**
+     * Map a file for a grid.
+     *
+     * @param file The file.
+     * @param count The number of elevations in the grid.
+     * @return The mapped buffer.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private FloatBuffer map(File file, int count) throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel())
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0L, (long)count * Float.BYTES);
+            return buffer.order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+    }
+
+    /**
+     * Add a grid to the cache and evict the least recently used grids if the
+     * budget is exceeded.
+     *
+     * @param key The key for the tile.
+     * @param grid The grid.
+     * @param file The file which backs the grid.
+     */
+    private synchronized void put(TileKey key, ElevationGrid grid, File file)
+    {
+        CacheEntry previous = myEntries.put(key, new CacheEntry(grid, file));
+        if (previous != null)
+        {
+            mySizeBytes -= previous.getGrid().getSizeBytes();
+            deleteFile(previous.getFile());
+        }
+        mySizeBytes += grid.getSizeBytes();
+
+        retryDeletes();
+        for (Iterator<CacheEntry> iter = myEntries.values().iterator(); mySizeBytes > myBudgetBytes && iter.hasNext();)
+        {
+            CacheEntry eldest = iter.next();
+            if (eldest.getGrid() != grid)
+            {
+                iter.remove();
+                mySizeBytes -= eldest.getGrid().getSizeBytes();
+                deleteFile(eldest.getFile());
+            }
+        }
+    }
+
+    /**
+     * Try again to delete the files which could not be deleted before.
+     */
+    @GuardedBy("this")
+    private void retryDeletes()
+    {
+        myUndeletedFiles.removeIf(file -> file.delete() || !file.exists());
+    }
+
+    /** The key for a cached grid. */
+    public static final class TileKey
+    {
+        /** The bounds of the tile. */
+        private final GeographicBoundingBox myBounds;
+
+        /** The elevation order id of the provider. */
+        private final String myProviderId;
+
+        /** The zoom level of the tile. */
+        private final int myZoom;
+
+        /**
+         * Constructor.
+         *
+         * @param providerId The elevation order id of the provider.
+         * @param zoom The zoom level of the tile.
+         * @param bounds The bounds of the tile.
+         */
+        public TileKey(String providerId, int zoom, GeographicBoundingBox bounds)
+        {
+            myProviderId = providerId;
+            myZoom = zoom;
+            myBounds = bounds;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass())
+            {
+                return false;
+            }
+            TileKey other = (TileKey)obj;
+            return myZoom == other.myZoom && EqualsHelper.equals(myProviderId, other.myProviderId, myBounds, other.myBounds);
+        }
+
+        /**
+         * Get the elevation order id of the provider.
+         *
+         * @return The provider id.
+         */
+        public String getProviderId()
+        {
+            return myProviderId;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + myProviderId.hashCode();
+            result = prime * result + myZoom;
+            result = prime * result + myBounds.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString()
+        {
+            return myProviderId + "/" + myZoom + "/" + myBounds;
+        }
+    }
+
+    /** A cached grid and the file which backs it. */
+    private static final class CacheEntry
+    {
+        /** The file. */
+        private final File myFile;
+
+        /** The grid. */
+        private final ElevationGrid myGrid;
+
+        /**
+         * Constructor.
+         *
+         * @param grid The grid.
+         * @param file The file.
+         */
+        public CacheEntry(ElevationGrid grid, File file)
+        {
+            myGrid = grid;
+            myFile = file;
+        }
+
+        /**
+         * Get the file.
+         *
+         * @return The file.
+         */
+        public File getFile()
+        {
+            return myFile;
+        }
+
+        /**
+         * Get the grid.
+         *
+         * @return The grid.
+         */
+        public ElevationGrid getGrid()
+        {
+            return myGrid;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package io.opensphere.core.util;
 
+import java.util.List;
+
 import io.opensphere.core.model.GeographicPosition;
 import io.opensphere.core.projection.Projection;
 import io.opensphere.core.viewer.impl.DynamicViewer;
@@ -53,4 +55,30 @@ public final class TerrainUtil
 
         return elevation;
     }
+
+    /**
+     * Gets the elevations in meters at many positions. This is much faster
+     * than getting the elevations one at a time when many of the positions
+     * are close together.
+     *
+     * @param mapContext The {@link MapContext} which can be retrieved from
+     *            toolbox.getMapManager().
+     * @param positions The positions to get the elevations at.
+     * @return The elevations at the given locations, in the same order.
+     */
+    public double[] getElevationsInMeters(MapContext<DynamicViewer> mapContext, List<? extends GeographicPosition> positions)
+    {
+        Projection proj = mapContext.getRawProjection();
+        if (proj.getElevationManager() == null)
+        {
+            return new double[positions.size()];
+        }
+
+        double[] elevations = proj.getElevationManager().getElevationsM(positions, true);
+        for (int i = 0; i < elevations.length; ++i)
+        {
+            elevations[i] = Math.max(0., elevations[i]);
+        }
+        return elevations;
+    }
 }
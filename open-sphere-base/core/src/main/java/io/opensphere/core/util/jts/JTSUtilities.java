@@ -25,6 +25,7 @@ import io.opensphere.core.model.GeographicBoundingBox;
 import io.opensphere.core.model.GeographicPosition;
 import io.opensphere.core.model.GeographicPositionArrayList;
 import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.model.PackedLatLonAltList;
 import io.opensphere.core.model.Position;
 import io.opensphere.core.model.ScreenPosition;
 import io.opensphere.core.util.MathUtil;
@@ -125,10 +126,10 @@ public final class JTSUtilities
      */
     public static List<LatLonAlt> convertToLatLonAlt(Altitude.ReferenceLevel reference, Coordinate... coordinates)
     {
-        List<LatLonAlt> llas = New.list(coordinates.length);
+        PackedLatLonAltList llas = new PackedLatLonAltList(PackedLatLonAltList.DEFAULT_PRECISION, coordinates.length);
         for (int i = 0; i < coordinates.length; ++i)
         {
-            llas.add(LatLonAlt.createFromDegrees(coordinates[i].y, coordinates[i].x, reference));
+            llas.add(coordinates[i].y, coordinates[i].x, 0., reference);
         }
         return llas;
     }
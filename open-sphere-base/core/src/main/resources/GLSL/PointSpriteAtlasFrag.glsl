@@ -0,0 +1,27 @@
+uniform sampler2D texture;
+
+// Left, top, right, and bottom of the sprite image within the atlas page.
+varying vec4 spriteRegion;
+
+// Sample the sprite image from its region of the atlas page. The point
+// coordinate runs from the upper left to the lower right of the sprite, the
+// same as the texture coordinates generated by GL_COORD_REPLACE for a sprite
+// with its own texture.
+void main(void)
+{
+   if (gl_Color.a == 0.0)
+   {
+      discard;
+   }
+   else
+   {
+      vec4 texColor = texture2D(texture, mix(spriteRegion.xy, spriteRegion.zw, gl_PointCoord));
+#ifdef PICK_EFFECT
+      vec4 fragColor = gl_Color;
+      fragColor.a = sign(texColor.a);
+      gl_FragColor = fragColor;
+#else
+      gl_FragColor = texColor * gl_Color;
+#endif
+   }
+}
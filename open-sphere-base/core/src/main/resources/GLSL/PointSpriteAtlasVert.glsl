@@ -0,0 +1,43 @@
+// Left, top, right, and bottom of the sprite image within the atlas page.
+attribute vec4 atlasRegion;
+varying vec4 spriteRegion;
+
+#ifdef INTERVAL_FILTER
+uniform vec4 activeInterval;
+attribute vec2 vertexInterval;
+#endif
+
+// Pass the atlas region of each point sprite to the fragment shader, and fade
+// the point if it is outside of the input activeInterval.
+void main(void)
+{
+   gl_Position = gl_ModelViewProjectionMatrix * gl_Vertex;
+   gl_FrontColor = gl_Color;
+   spriteRegion = atlasRegion;
+
+#ifdef INTERVAL_FILTER
+   // Smoothstep behavior is undefined if the edges are equal, so branches are necessary here.
+
+   float preFade;
+   if (activeInterval.y > activeInterval.x)
+   {
+      preFade = smoothstep(activeInterval.x, activeInterval.y, vertexInterval.y);
+   }
+   else
+   {
+      preFade = step(activeInterval.y, vertexInterval.y);
+   }
+
+   float postFade;
+   if (activeInterval.w > activeInterval.z)
+   {
+      postFade = smoothstep(-activeInterval.w, -activeInterval.z, -vertexInterval.x);
+   }
+   else
+   {
+      postFade = step(-activeInterval.z, -vertexInterval.x);
+   }
+
+   gl_FrontColor.a = gl_Color.a * preFade * postFade;
+#endif
+}
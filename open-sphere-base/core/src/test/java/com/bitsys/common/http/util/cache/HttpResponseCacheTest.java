@@ -0,0 +1,468 @@
+package com.bitsys.common.http.util.cache;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.client.utils.DateUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bitsys.common.http.auth.AuthenticationScope;
+import com.bitsys.common.http.auth.UsernamePasswordCredentials;
+import com.bitsys.common.http.client.DefaultHttpClient;
+import com.bitsys.common.http.message.BasicHttpRequest;
+import com.bitsys.common.http.message.HttpRequest;
+import com.bitsys.common.http.message.HttpResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/** Tests for {@link HttpResponseCache} against a local HTTP server. */
+public class HttpResponseCacheTest
+{
+    /** The entity tag of the revalidated resource. */
+    private static final String ETAG = "\"v1\"";
+
+    /** The number of requests received by the server. */
+    private final AtomicInteger myRequestCount = new AtomicInteger();
+
+    /** The number of <code>304</code> responses sent by the server. */
+    private final AtomicInteger myNotModifiedCount = new AtomicInteger();
+
+    /** The local server. */
+    private HttpServer myServer;
+
+    /** The base URI of the local server. */
+    private String myBaseUri;
+
+    /**
+     * Start the local server.
+     *
+     * @throws IOException If the server cannot be started.
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        myServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        myServer.createContext("/fresh", exchange -> respond(exchange, "Cache-Control", "max-age=3600", "fresh"));
+        myServer.createContext("/etag", exchange ->
+        {
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+            {
+                myRequestCount.incrementAndGet();
+                myNotModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            }
+            else
+            {
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                respond(exchange, "Cache-Control", "no-cache", "validated");
+            }
+        });
+        myServer.createContext("/nostore", exchange -> respond(exchange, "Cache-Control", "no-store", "private"));
+        myServer.createContext("/big", exchange -> respond(exchange, "Cache-Control", "max-age=3600", "0123456789"));
+        myServer.createContext("/auth", exchange ->
+        {
+            if (exchange.getRequestHeaders().getFirst("Authorization") == null)
+            {
+                exchange.getResponseHeaders().add("WWW-Authenticate", "Basic realm=\"test\"");
+                exchange.sendResponseHeaders(401, -1);
+                exchange.close();
+            }
+            else
+            {
+                respond(exchange, "Cache-Control", "max-age=3600", "secret");
+            }
+        });
+        String lastModified = DateUtils.formatDate(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(10)));
+        myServer.createContext("/features", exchange -> respond(exchange, "Last-Modified", lastModified, "text/xml", "features"));
+        myServer.createContext("/tile", exchange -> respond(exchange, "Last-Modified", lastModified, "image/png", "tile"));
+        myServer.start();
+        myBaseUri = "http://127.0.0.1:" + myServer.getAddress().getPort();
+    }
+
+    /** Stop the local server. */
+    @After
+    public void tearDown()
+    {
+        myServer.stop(0);
+    }
+
+    /**
+     * Tests that a fresh response is served without contacting the server.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testFreshResponse() throws IOException
+    {
+        HttpResponseCache cache = new HttpResponseCache(1 << 20, 1 << 16);
+        DefaultHttpClient client = createClient(cache);
+
+        Assert.assertEquals("fresh", get(client, "/fresh"));
+        Assert.assertEquals("fresh", get(client, "/fresh"));
+        Assert.assertEquals(1, myRequestCount.get());
+        Assert.assertEquals(1L, cache.getHitCount());
+        Assert.assertEquals(1L, cache.getMissCount());
+        client.close();
+    }
+
+    /**
+     * Tests that a stale response is revalidated with its entity tag and that
+     * the stored body is served for a <code>304</code> response.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testRevalidation() throws IOException
+    {
+        HttpResponseCache cache = new HttpResponseCache(1 << 20, 1 << 16);
+        DefaultHttpClient client = createClient(cache);
+
+        Assert.assertEquals("validated", get(client, "/etag"));
+        Assert.assertEquals("validated", get(client, "/etag"));
+        Assert.assertEquals("validated", get(client, "/etag"));
+        Assert.assertEquals(3, myRequestCount.get());
+        Assert.assertEquals(2, myNotModifiedCount.get());
+        Assert.assertEquals(2L, cache.getRevalidationCount());
+        client.close();
+    }
+
+    /**
+     * Tests that asynchronous requests use and revalidate stored responses
+     * like synchronous requests.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testExecuteAsync() throws IOException
+    {
+        HttpResponseCache cache = new HttpResponseCache(1 << 20, 1 << 16);
+        DefaultHttpClient client = createClient(null);
+        HttpResponseCache.AsyncRequestExecutor executor = request ->
+        {
+            HttpRequest copy = new BasicHttpRequest(request.getURI(), request.getMethod());
+            copy.getHeaders().putAll(request.getHeaders());
+            return CompletableFuture.supplyAsync(() ->
+            {
+                try
+                {
+                    return client.execute(copy);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+
+        Assert.assertEquals("fresh", getAsync(cache, executor, "/fresh"));
+        Assert.assertTrue(cache.executeAsync(new BasicHttpRequest(URI.create(myBaseUri + "/fresh"), HttpRequest.GET), executor)
+                .isDone());
+        Assert.assertEquals(1, myRequestCount.get());
+        Assert.assertEquals(1L, cache.getHitCount());
+
+        Assert.assertEquals("validated", getAsync(cache, executor, "/etag"));
+        Assert.assertEquals("validated", getAsync(cache, executor, "/etag"));
+        Assert.assertEquals(1, myNotModifiedCount.get());
+        Assert.assertEquals(1L, cache.getRevalidationCount());
+        client.close();
+    }
+
+    /**
+     * Tests that responses which forbid storage or exceed the entry size are
+     * not stored and that the memory budget is respected.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testLimits() throws IOException
+    {
+        HttpResponseCache cache = new HttpResponseCache(1 << 20, 4);
+        DefaultHttpClient client = createClient(cache);
+
+        Assert.assertEquals("private", get(client, "/nostore"));
+        Assert.assertEquals("private", get(client, "/nostore"));
+        Assert.assertEquals("0123456789", get(client, "/big"));
+        Assert.assertEquals("0123456789", get(client, "/big"));
+        Assert.assertEquals(4, myRequestCount.get());
+        Assert.assertEquals(0L, cache.getMemoryBytes());
+        client.close();
+
+        cache = new HttpResponseCache(1, 1 << 16);
+        client = createClient(cache);
+        Assert.assertEquals("fresh", get(client, "/fresh"));
+        Assert.assertEquals("fresh", get(client, "/fresh"));
+        Assert.assertEquals(6, myRequestCount.get());
+        Assert.assertEquals(0L, cache.getMemoryBytes());
+        client.close();
+    }
+
+    /**
+     * Tests that responses stored on disk are available to a new cache.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testDiskPersistence() throws IOException
+    {
+        File directory = Files.createTempDirectory("httpcache").toFile();
+        try
+        {
+            HttpResponseCache cache = new HttpResponseCache(1 << 20, directory, 1 << 20, 1 << 16);
+            DefaultHttpClient client = createClient(cache);
+            Assert.assertEquals("fresh", get(client, "/fresh"));
+            Assert.assertTrue(cache.getDiskBytes() > 0L);
+            client.close();
+
+            cache = new HttpResponseCache(1 << 20, directory, 1 << 20, 1 << 16);
+            client = createClient(cache);
+            Assert.assertEquals("fresh", get(client, "/fresh"));
+            Assert.assertEquals(1, myRequestCount.get());
+            Assert.assertEquals(1L, cache.getHitCount());
+
+            cache.clear(null);
+            Assert.assertEquals(0L, cache.getDiskBytes());
+            Assert.assertEquals(0, directory.list().length);
+            client.close();
+        }
+        finally
+        {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Tests that responses to requests that carried credentials are neither
+     * stored nor served from the cache.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testAuthenticated() throws IOException
+    {
+        HttpResponseCache cache = new HttpResponseCache(1 << 20, 1 << 16);
+        DefaultHttpClient client = createClient(cache);
+        client.getOptions().getCredentialsProvider().setCredentials(
+                new AuthenticationScope("127.0.0.1", myServer.getAddress().getPort()),
+                new UsernamePasswordCredentials("user", "password".toCharArray()));
+
+        Assert.assertEquals("secret", get(client, "/auth"));
+        Assert.assertEquals("secret", get(client, "/auth"));
+        Assert.assertEquals(2, myRequestCount.get());
+        Assert.assertEquals(0L, cache.getHitCount());
+        Assert.assertEquals(0L, cache.getMemoryBytes());
+
+        HttpRequest request = new BasicHttpRequest(URI.create(myBaseUri + "/fresh"), HttpRequest.GET);
+        request.getHeaders().put("Authorization", "Bearer token");
+        client.execute(request).close();
+        Assert.assertEquals(0L, cache.getMemoryBytes());
+        client.close();
+    }
+
+    /**
+     * Tests that responses stored on disk are encrypted.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testDiskEncryption() throws IOException
+    {
+        File directory = Files.createTempDirectory("httpcache").toFile();
+        HttpResponseCache.DiskEncryption encryption = new HttpResponseCache.DiskEncryption()
+        {
+            @Override
+            public OutputStream encrypt(OutputStream stream)
+            {
+                return new FilterOutputStream(stream)
+                {
+                    @Override
+                    public void write(int b) throws IOException
+                    {
+                        out.write(b ^ 0x5A);
+                    }
+                };
+            }
+
+            @Override
+            public InputStream decrypt(InputStream stream)
+            {
+                return new FilterInputStream(stream)
+                {
+                    @Override
+                    public int read() throws IOException
+                    {
+                        int b = in.read();
+                        return b < 0 ? b : b ^ 0x5A;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException
+                    {
+                        int count = in.read(b, off, len);
+                        for (int i = off; i < off + count; ++i)
+                        {
+                            b[i] ^= 0x5A;
+                        }
+                        return count;
+                    }
+                };
+            }
+        };
+        try
+        {
+            HttpResponseCache cache = new HttpResponseCache(1 << 20, directory, 1 << 20, 1 << 16, encryption);
+            DefaultHttpClient client = createClient(cache);
+            Assert.assertEquals("fresh", get(client, "/fresh"));
+            client.close();
+            File[] files = directory.listFiles();
+            Assert.assertEquals(1, files.length);
+            Assert.assertFalse(new String(Files.readAllBytes(files[0].toPath()), StandardCharsets.ISO_8859_1).contains("fresh"));
+
+            cache = new HttpResponseCache(1 << 20, directory, 1 << 20, 1 << 16, encryption);
+            client = createClient(cache);
+            Assert.assertEquals("fresh", get(client, "/fresh"));
+            Assert.assertEquals(1, myRequestCount.get());
+            client.close();
+
+            cache = new HttpResponseCache(1 << 20, directory, 1 << 20, 1 << 16);
+            client = createClient(cache);
+            Assert.assertEquals("fresh", get(client, "/fresh"));
+            Assert.assertEquals(2, myRequestCount.get());
+            client.close();
+        }
+        finally
+        {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Tests that only tiles and images are given a heuristic freshness
+     * lifetime.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testHeuristicFreshness() throws IOException
+    {
+        HttpResponseCache cache = new HttpResponseCache(1 << 20, 1 << 16);
+        DefaultHttpClient client = createClient(cache);
+
+        Assert.assertEquals("features", get(client, "/features"));
+        Assert.assertEquals("features", get(client, "/features"));
+        Assert.assertEquals(2, myRequestCount.get());
+
+        Assert.assertEquals("tile", get(client, "/tile"));
+        Assert.assertEquals("tile", get(client, "/tile"));
+        Assert.assertEquals(3, myRequestCount.get());
+        Assert.assertEquals(1L, cache.getHitCount());
+        client.close();
+    }
+
+    /**
+     * Create a client that uses a cache.
+     *
+     * @param cache The cache.
+     * @return The client.
+     */
+    private DefaultHttpClient createClient(HttpResponseCache cache)
+    {
+        DefaultHttpClient client = new DefaultHttpClient();
+        client.getOptions().setResponseCache(cache);
+        return client;
+    }
+
+    /**
+     * Get a resource from the local server.
+     *
+     * @param client The client.
+     * @param path The path of the resource.
+     * @return The body of the response.
+     * @throws IOException If the request fails.
+     */
+    private String get(DefaultHttpClient client, String path) throws IOException
+    {
+        HttpRequest request = new BasicHttpRequest(URI.create(myBaseUri + path), HttpRequest.GET);
+        try (HttpResponse response = client.execute(request); InputStream content = response.getEntity().getContent())
+        {
+            Assert.assertEquals(200, response.getStatusCode());
+            return IOUtils.toString(content, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Get a resource from the local server asynchronously.
+     *
+     * @param cache The cache.
+     * @param executor The executor that sends requests to the server.
+     * @param path The path of the resource.
+     * @return The body of the response.
+     * @throws IOException If the request fails.
+     */
+    private String getAsync(HttpResponseCache cache, HttpResponseCache.AsyncRequestExecutor executor, String path)
+        throws IOException
+    {
+        HttpRequest request = new BasicHttpRequest(URI.create(myBaseUri + path), HttpRequest.GET);
+        try (HttpResponse response = cache.executeAsync(request, executor).join();
+                InputStream content = response.getEntity().getContent())
+        {
+            Assert.assertEquals(200, response.getStatusCode());
+            return IOUtils.toString(content, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Send a response from the local server.
+     *
+     * @param exchange The exchange.
+     * @param name The name of a header to send.
+     * @param value The value of the header.
+     * @param body The body.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void respond(HttpExchange exchange, String name, String value, String body) throws IOException
+    {
+        respond(exchange, name, value, "text/plain", body);
+    }
+
+    /**
+     * Send a response from the local server.
+     *
+     * @param exchange The exchange.
+     * @param name The name of a header to send.
+     * @param value The value of the header.
+     * @param contentType The content type.
+     * @param body The body.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void respond(HttpExchange exchange, String name, String value, String contentType, String body) throws IOException
+    {
+        myRequestCount.incrementAndGet();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add(name, value);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(bytes);
+        }
+    }
+}
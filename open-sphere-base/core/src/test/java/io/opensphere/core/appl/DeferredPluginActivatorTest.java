@@ -0,0 +1,177 @@
+package io.opensphere.core.appl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.PluginLoaderData;
+import io.opensphere.core.PluginProperty;
+import io.opensphere.core.event.ApplicationLifecycleEvent;
+import io.opensphere.core.event.ApplicationLifecycleEvent.Stage;
+import io.opensphere.core.event.EventListener;
+import io.opensphere.core.event.EventManagerImpl;
+import io.opensphere.core.util.collections.New;
+
+/** Test for {@link DeferredPluginActivator}. */
+public class DeferredPluginActivatorTest
+{
+    /** The ids of the plug-ins that have been initialized, in order. */
+    private final List<String> myInitialized = New.list();
+
+    /** The lifecycle subscriber added when a plug-in is initialized. */
+    private final List<EventListener<ApplicationLifecycleEvent>> mySubscribers = New.list();
+
+    /** The stages received by the lifecycle subscriber added at startup. */
+    private final BlockingQueue<Stage> myStartupStages = new LinkedBlockingQueue<>();
+
+    /** The lifecycle subscriber added at startup. */
+    private final EventListener<ApplicationLifecycleEvent> myStartupSubscriber = event -> myStartupStages.add(event.getStage());
+
+    /** The event manager. */
+    private final EventManagerImpl myEventManager = new EventManagerImpl();
+
+    /**
+     * Test that deferrable plug-ins and the plug-ins that require them are
+     * deferred only when lazy initialization is enabled.
+     */
+    @Test
+    public void testDeferPlugins()
+    {
+        List<PluginLoaderData> plugins = createPlugins();
+
+        Assert.assertEquals(plugins, new DeferredPluginActivator(myEventManager, this::initialize, false).deferPlugins(plugins));
+
+        DeferredPluginActivator activator = new DeferredPluginActivator(myEventManager, this::initialize, true);
+        List<PluginLoaderData> startup = activator.deferPlugins(plugins);
+        Assert.assertEquals(Arrays.asList("Base"), startup.stream().map(PluginLoaderData::getId).collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList("Deferred", "Dependent", "Stateful"), activator.getDeferredPluginIds());
+    }
+
+    /**
+     * Test that activating the state plug-ins leaves the other deferred
+     * plug-ins alone.
+     */
+    @Test
+    public void testActivateStatePlugins()
+    {
+        DeferredPluginActivator activator = createActivator();
+
+        activator.activateStatePlugins();
+        Assert.assertEquals(Arrays.asList("Stateful"), myInitialized);
+        Assert.assertEquals(Arrays.asList("Deferred", "Dependent"), activator.getDeferredPluginIds());
+
+        activator.activateAllPlugins();
+        Assert.assertEquals(Arrays.asList("Stateful", "Deferred", "Dependent"), myInitialized);
+        Assert.assertTrue(activator.getDeferredPluginIds().isEmpty());
+    }
+
+    /**
+     * Test that a plug-in that is initialized after lifecycle events have
+     * been published receives them, and that the subscribers that already
+     * received them do not receive them again.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testLifecycleReplay() throws InterruptedException
+    {
+        DeferredPluginActivator activator = createActivator();
+
+        myEventManager.subscribe(ApplicationLifecycleEvent.class, myStartupSubscriber);
+
+        activator.publishLifecycleEvent(Stage.PLUGINS_INITIALIZED);
+        activator.publishLifecycleEvent(Stage.MAIN_FRAME_VISIBLE);
+        Assert.assertEquals(Stage.PLUGINS_INITIALIZED, myStartupStages.poll(10, TimeUnit.SECONDS));
+        Assert.assertEquals(Stage.MAIN_FRAME_VISIBLE, myStartupStages.poll(10, TimeUnit.SECONDS));
+
+        BlockingQueue<Stage> deferredStages = new LinkedBlockingQueue<>();
+        mySubscribers.add(event -> deferredStages.add(event.getStage()));
+        activator.activateStatePlugins();
+        Assert.assertEquals(Arrays.asList("Stateful"), myInitialized);
+
+        Assert.assertEquals(Stage.PLUGINS_INITIALIZED, deferredStages.poll(10, TimeUnit.SECONDS));
+        Assert.assertEquals(Stage.MAIN_FRAME_VISIBLE, deferredStages.poll(10, TimeUnit.SECONDS));
+
+        // Events are delivered in order, so anything replayed to the startup
+        // subscriber would have arrived before this.
+        activator.publishLifecycleEvent(Stage.BEGIN_SHUTDOWN);
+        Assert.assertEquals(Stage.BEGIN_SHUTDOWN, deferredStages.poll(10, TimeUnit.SECONDS));
+        Assert.assertEquals(Stage.BEGIN_SHUTDOWN, myStartupStages.poll(10, TimeUnit.SECONDS));
+        Assert.assertTrue(myStartupStages.isEmpty());
+        Assert.assertTrue(deferredStages.isEmpty());
+    }
+
+    /**
+     * Create an activator with the test plug-ins deferred.
+     *
+     * @return The activator.
+     */
+    private DeferredPluginActivator createActivator()
+    {
+        DeferredPluginActivator activator = new DeferredPluginActivator(myEventManager, this::initialize, true);
+        for (PluginLoaderData data : activator.deferPlugins(createPlugins()))
+        {
+            activator.getInitializedPluginIds().add(data.getId());
+        }
+        return activator;
+    }
+
+    /**
+     * Create the test plug-ins: a startup plug-in, a deferrable plug-in, a
+     * plug-in that requires it, and a deferrable plug-in that provides state.
+     *
+     * @return The plug-ins, in dependency order.
+     */
+    private List<PluginLoaderData> createPlugins()
+    {
+        PluginLoaderData base = createPlugin("Base", false);
+        PluginLoaderData deferred = createPlugin("Deferred", true);
+        deferred.getRequiredPluginDependency().add("Base");
+        PluginLoaderData dependent = createPlugin("Dependent", false);
+        dependent.getRequiredPluginDependency().add("Deferred");
+        PluginLoaderData stateful = createPlugin("Stateful", true);
+        PluginProperty property = new PluginProperty();
+        property.setKey(PluginLoaderData.PROVIDES_STATE_PROPERTY);
+        property.setValue("true");
+        stateful.getPluginProperty().add(property);
+        return Arrays.asList(base, deferred, dependent, stateful);
+    }
+
+    /**
+     * Create a plug-in.
+     *
+     * @param id The plug-in id.
+     * @param deferrable If the plug-in is deferrable.
+     * @return The plug-in data.
+     */
+    private PluginLoaderData createPlugin(String id, boolean deferrable)
+    {
+        PluginLoaderData data = new PluginLoaderData();
+        data.setId(id);
+        data.setDeferrable(deferrable);
+        return data;
+    }
+
+    /**
+     * Initialize a plug-in, subscribing the next test subscriber to lifecycle
+     * events.
+     *
+     * @param data The plug-in data.
+     * @return {@code true}.
+     */
+    private boolean initialize(PluginLoaderData data)
+    {
+        myInitialized.add(data.getId());
+        if (!mySubscribers.isEmpty())
+        {
+            myEventManager.subscribe(ApplicationLifecycleEvent.class, mySubscribers.get(0));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+package io.opensphere.core.appl;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link StartupTracer}. */
+public class StartupTracerTest
+{
+    /** Test that the critical path follows the latest required dependency. */
+    @Test
+    public void testCriticalPath()
+    {
+        StartupTracer tracer = new StartupTracer();
+        tracer.recordPlugin("base", Collections.emptyList(), 0, 0, 10, 100, false);
+        tracer.recordPlugin("fast", Collections.emptyList(), 0, 0, 5, 20, false);
+        tracer.recordPlugin("slow", Collections.emptyList(), 0, 0, 5, 300, false);
+        tracer.recordPlugin("mid", Arrays.asList("base", "fast"), 100, 100, 110, 350, false);
+        tracer.recordPlugin("top", Arrays.asList("mid", "slow"), 350, 360, 370, 400, false);
+        tracer.recordPlugin("lazy", Arrays.asList("top"), 5000, 5000, 5010, 9000, true);
+
+        Assert.assertEquals(Arrays.asList("base", "mid", "top"), tracer.getCriticalPath());
+    }
+
+    /** Test that the report lists the phases and plug-ins. */
+    @Test
+    public void testReport()
+    {
+        StartupTracer tracer = new StartupTracer();
+        tracer.recordPhase("Initialize cache", System.nanoTime());
+        tracer.recordPlugin("a", Collections.emptyList(), 0, 1_000_000, 2_000_000, 5_000_000, false);
+        tracer.recordPlugin("b", Collections.singletonList("a"), 5_000_000, 5_000_000, 6_000_000, 50_000_000, true);
+
+        String report = tracer.getReport();
+        Assert.assertTrue(report, report.contains("Initialize cache"));
+        Assert.assertTrue(report, report.indexOf("b (deferred)") < report.indexOf("  a ["));
+        Assert.assertTrue(report, report.contains("Critical path: a"));
+    }
+}
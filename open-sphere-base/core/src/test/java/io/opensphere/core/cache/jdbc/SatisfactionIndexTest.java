@@ -0,0 +1,316 @@
+package io.opensphere.core.cache.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import io.opensphere.core.cache.CacheIdUtilities;
+import io.opensphere.core.cache.CacheModificationReport;
+import io.opensphere.core.cache.matcher.GeneralIntervalPropertyMatcher;
+import io.opensphere.core.cache.matcher.GeometryMatcher;
+import io.opensphere.core.cache.matcher.IntervalPropertyMatcher;
+import io.opensphere.core.cache.matcher.TimeSpanMatcher;
+import io.opensphere.core.cache.util.PropertyDescriptor;
+import io.opensphere.core.data.util.DataModelCategory;
+import io.opensphere.core.model.time.TimeSpan;
+import io.opensphere.core.util.collections.New;
+
+/**
+ * Tests for {@link SatisfactionIndex}.
+ */
+public class SatisfactionIndexTest
+{
+    /** The data model category. */
+    private static final DataModelCategory ourCategory = new DataModelCategory("source", "family", "category");
+
+    /** The time span property name. */
+    private static final String ourTimeProperty = "time";
+
+    /**
+     * Test that time span queries are answered from the loaded groups.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testTimeSpanMatching() throws Exception
+    {
+        AtomicInteger loads = new AtomicInteger();
+        SatisfactionIndex index = new SatisfactionIndex(16, (category, properties, countTimeSpans, ids) ->
+        {
+            loads.incrementAndGet();
+            return New.list(group(1, TimeSpan.get(0L, 100L)), group(2, TimeSpan.get(100L, 200L)),
+                    new SatisfactionIndex.Group(3, 0L, true, new Object[] { TimeSpan.get(0L, 200L) }));
+        }, groupIds -> groupIds[0]);
+
+        assertArrayEquals(new int[] { 1 }, query(index, TimeSpan.get(50L, 100L)));
+        assertArrayEquals(new int[] { 1, 2 }, query(index, TimeSpan.get(50L, 150L)));
+        assertArrayEquals(new int[] { 2 }, query(index, TimeSpan.get(100L, 300L)));
+        assertArrayEquals(new int[0], query(index, TimeSpan.get(300L, 400L)));
+
+        // Group 3 is expired, so it is never returned.
+        assertEquals(1, loads.get());
+        assertEquals(1L, index.getLoadCount());
+        assertEquals(3L, index.getHitCount());
+    }
+
+    /**
+     * Test that no groups are returned if none of them has data.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testNoData() throws Exception
+    {
+        AtomicInteger finds = new AtomicInteger();
+        SatisfactionIndex index = new SatisfactionIndex(16,
+            (category, properties, countTimeSpans, ids) -> New.list(group(1, TimeSpan.get(0L, 100L))), groupIds ->
+            {
+                finds.incrementAndGet();
+                return -1;
+            });
+
+        assertArrayEquals(new int[0], query(index, TimeSpan.get(0L, 100L)));
+        assertArrayEquals(new int[0], query(index, TimeSpan.get(0L, 100L)));
+        assertEquals(1, finds.get());
+
+        // Adding data to the group makes it satisfy the query.
+        index.cacheModified(new CacheModificationReport(ourCategory,
+                new long[] { CacheIdUtilities.getCombinedId(1, 7) }, Collections.emptySet()));
+        assertArrayEquals(new int[] { 1 }, query(index, TimeSpan.get(0L, 100L)));
+        assertEquals(1, finds.get());
+        assertEquals(1L, index.getLoadCount());
+    }
+
+    /**
+     * Test that new groups are loaded by id and added to the loaded groups,
+     * rather than causing all of the groups to be reloaded.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testNewGroup() throws Exception
+    {
+        List<SatisfactionIndex.Group> groups = New.list(group(1, TimeSpan.get(0L, 100L)));
+        List<int[]> loadedIds = New.list();
+        SatisfactionIndex index = new SatisfactionIndex(16, (category, properties, countTimeSpans, ids) ->
+        {
+            loadedIds.add(ids);
+            return groups.stream().filter(g -> ids == null || Arrays.stream(ids).anyMatch(id -> id == g.getGroupId()))
+                    .collect(Collectors.toList());
+        }, groupIds -> groupIds[0]);
+
+        assertArrayEquals(new int[0], query(index, TimeSpan.get(200L, 300L)));
+
+        groups.add(group(2, TimeSpan.get(200L, 300L)));
+        index.cacheModified(new CacheModificationReport(ourCategory,
+                new long[] { CacheIdUtilities.getCombinedId(2, 1) }, Collections.emptySet()));
+        assertArrayEquals(new int[] { 2 }, query(index, TimeSpan.get(200L, 300L)));
+        assertArrayEquals(new int[] { 1 }, query(index, TimeSpan.get(0L, 100L)));
+        assertEquals(1L, index.getLoadCount());
+        assertEquals(1L, index.getAddedLoadCount());
+        assertArrayEquals(new int[] { 2 }, loadedIds.get(1));
+
+        // A new group that has no data yet is added too.
+        groups.add(group(3, TimeSpan.get(300L, 400L)));
+        index.addGroup(ourCategory, 3);
+        assertArrayEquals(new int[] { 3 }, query(index, TimeSpan.get(300L, 400L)));
+        assertEquals(1L, index.getLoadCount());
+        assertEquals(2L, index.getAddedLoadCount());
+
+        // Changes in another category do not affect the index.
+        DataModelCategory other = new DataModelCategory("other", "other", "other");
+        index.cacheModified(new CacheModificationReport(other, new long[] { CacheIdUtilities.getCombinedId(4, 1) },
+                Collections.emptySet()));
+        index.addGroup(other, 5);
+        assertArrayEquals(new int[] { 2 }, query(index, TimeSpan.get(200L, 300L)));
+        assertEquals(1L, index.getLoadCount());
+        assertEquals(2L, index.getAddedLoadCount());
+
+        // A new group that is removed before it is loaded is not loaded.
+        index.addGroup(ourCategory, 6);
+        index.removeGroups(new int[] { 6 });
+        assertArrayEquals(new int[] { 2 }, query(index, TimeSpan.get(200L, 300L)));
+        assertEquals(2L, index.getAddedLoadCount());
+    }
+
+    /**
+     * Test that the time span index finds the same groups as checking every
+     * group.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testTimeSpanIndex() throws Exception
+    {
+        Random random = new Random(7L);
+        List<SatisfactionIndex.Group> groups = New.list();
+        for (int groupId = 1; groupId <= 500; ++groupId)
+        {
+            long start = random.nextInt(100_000);
+            TimeSpan span = groupId % 50 == 0 ? TimeSpan.newUnboundedEndTimeSpan(start)
+                    : TimeSpan.get(start, start + random.nextInt(groupId % 7 == 0 ? 5_000 : 500));
+            groups.add(group(groupId, span));
+        }
+        SatisfactionIndex index = new SatisfactionIndex(16, (category, properties, countTimeSpans, ids) -> groups,
+                groupIds -> groupIds[0]);
+
+        for (int i = 0; i < 200; ++i)
+        {
+            long start = random.nextInt(110_000) - 5_000;
+            TimeSpan span = i == 0 ? TimeSpan.newUnboundedStartTimeSpan(start)
+                    : TimeSpan.get(start, start + random.nextInt(i % 2 == 0 ? 100 : 10_000));
+            int[] expected = groups.stream().filter(g -> ((TimeSpan)g.getValues()[0]).overlaps(span))
+                    .mapToInt(SatisfactionIndex.Group::getGroupId).toArray();
+            assertArrayEquals(span.toString(), expected, query(index, span));
+        }
+        assertEquals(1L, index.getLoadCount());
+    }
+
+    /**
+     * Test that the geometry index finds the same groups as checking every
+     * group.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testGeometryIndex() throws Exception
+    {
+        GeometryFactory factory = new GeometryFactory();
+        Random random = new Random(11L);
+        List<SatisfactionIndex.Group> groups = New.list();
+        for (int groupId = 1; groupId <= 500; ++groupId)
+        {
+            double x = random.nextDouble() * 340. - 170.;
+            double y = random.nextDouble() * 160. - 80.;
+            double size = random.nextDouble() * 10.;
+            Geometry box = factory.toGeometry(new Envelope(x, x + size, y, y + size));
+            groups.add(new SatisfactionIndex.Group(groupId, Long.MAX_VALUE, false, new Object[] { box }));
+        }
+        SatisfactionIndex index = new SatisfactionIndex(16, (category, properties, countTimeSpans, ids) -> groups,
+                groupIds -> groupIds[0]);
+
+        for (int i = 0; i < 100; ++i)
+        {
+            double x = random.nextDouble() * 340. - 170.;
+            double y = random.nextDouble() * 160. - 80.;
+            Geometry operand = i % 2 == 0 ? factory.createPoint(new Coordinate(x, y))
+                    : factory.toGeometry(new Envelope(x, x + 20., y, y + 20.));
+            GeometryMatcher matcher = new GeometryMatcher("geom", GeometryMatcher.OperatorType.INTERSECTS, operand);
+            int[] expected = groups.stream().filter(g -> ((Geometry)g.getValues()[0]).intersects(operand))
+                    .mapToInt(SatisfactionIndex.Group::getGroupId).toArray();
+            assertArrayEquals(operand.toString(), expected, query(index, matcher));
+        }
+        assertEquals(1L, index.getLoadCount());
+    }
+
+    /**
+     * Test removing groups and clearing the index.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testRemove() throws Exception
+    {
+        SatisfactionIndex index = new SatisfactionIndex(16, (category, properties, countTimeSpans,
+                ids) -> New.list(group(1, TimeSpan.get(0L, 100L)), group(2, TimeSpan.get(0L, 100L))),
+                groupIds -> groupIds[groupIds.length - 1]);
+
+        assertArrayEquals(new int[] { 1, 2 }, query(index, TimeSpan.get(0L, 100L)));
+
+        index.removeGroups(new int[] { 1 });
+        assertArrayEquals(new int[] { 2 }, query(index, TimeSpan.get(0L, 100L)));
+        assertEquals(1L, index.getLoadCount());
+
+        index.clear();
+        assertArrayEquals(new int[] { 1, 2 }, query(index, TimeSpan.get(0L, 100L)));
+        assertEquals(2L, index.getLoadCount());
+    }
+
+    /**
+     * Test that the index declines queries that it cannot answer.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testUnsupported() throws Exception
+    {
+        SatisfactionIndex index = new SatisfactionIndex(16, (category, properties, countTimeSpans, ids) ->
+        {
+            throw new AssertionError("Unexpected load.");
+        }, groupIds -> -1);
+
+        IntervalPropertyMatcher<?> matcher = new GeneralIntervalPropertyMatcher<>(
+                new PropertyDescriptor<>("key", String.class), "value");
+        Map<PropertyDescriptor<?>, List<?>> resultMap = New.map();
+        resultMap.put(matcher.getPropertyDescriptor(), New.list());
+        assertNull(index.getGroupIds(ourCategory, Collections.singleton(matcher), resultMap));
+
+        SatisfactionIndex disabled = new SatisfactionIndex(0, (category, properties, countTimeSpans, ids) ->
+        {
+            throw new AssertionError("Unexpected load.");
+        }, groupIds -> -1);
+        TimeSpanMatcher timeMatcher = new TimeSpanMatcher(ourTimeProperty, TimeSpan.get(0L, 100L));
+        resultMap.clear();
+        resultMap.put(timeMatcher.getPropertyDescriptor(), New.list());
+        assertNull(disabled.getGroupIds(ourCategory, Collections.singleton(timeMatcher), resultMap));
+    }
+
+    /**
+     * Create an unexpired group with a time span value.
+     *
+     * @param groupId The group id.
+     * @param timeSpan The time span.
+     * @return The group.
+     */
+    private SatisfactionIndex.Group group(int groupId, TimeSpan timeSpan)
+    {
+        return new SatisfactionIndex.Group(groupId, Long.MAX_VALUE, true, new Object[] { timeSpan });
+    }
+
+    /**
+     * Query the index with a time span and check the returned values.
+     *
+     * @param index The index.
+     * @param timeSpan The time span.
+     * @return The group ids.
+     * @throws Exception If the query fails.
+     */
+    private int[] query(SatisfactionIndex index, TimeSpan timeSpan) throws Exception
+    {
+        return query(index, new TimeSpanMatcher(ourTimeProperty, timeSpan));
+    }
+
+    /**
+     * Query the index with a parameter and check the returned values.
+     *
+     * @param index The index.
+     * @param matcher The parameter.
+     * @return The group ids.
+     * @throws Exception If the query fails.
+     */
+    private int[] query(SatisfactionIndex index, IntervalPropertyMatcher<?> matcher) throws Exception
+    {
+        Collection<IntervalPropertyMatcher<?>> parameters = Collections.singleton(matcher);
+        Map<PropertyDescriptor<?>, List<?>> resultMap = New.map();
+        resultMap.put(matcher.getPropertyDescriptor(), New.list());
+        int[] groupIds = index.getGroupIds(ourCategory, parameters, resultMap);
+        assertEquals(groupIds.length, resultMap.get(matcher.getPropertyDescriptor()).size());
+        return groupIds;
+    }
+}
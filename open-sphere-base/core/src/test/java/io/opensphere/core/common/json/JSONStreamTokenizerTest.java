@@ -0,0 +1,181 @@
+package io.opensphere.core.common.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import io.opensphere.core.common.json.JSONStreamTokenizer.Token;
+
+/** Tests for {@link JSONStreamTokenizer}. */
+public class JSONStreamTokenizerTest
+{
+    /**
+     * Tests tokenizing a document with every kind of token.
+     *
+     * @throws IOException if the test fails
+     * @throws JSONSaxParseException if the test fails
+     */
+    @Test
+    public void testTokens() throws IOException, JSONSaxParseException
+    {
+        JSONStreamTokenizer tokenizer = create(
+                "{\"a\": [1, -2.5e3, true, false, null], \"b\\\"\": {\"c\": \"x\\u00e9\\n\u00fc\u4e2d\uD83D\uDE00\"}, \"d\": []}");
+
+        Assert.assertEquals(Token.OBJECT_START, tokenizer.next());
+        Assert.assertEquals(Token.KEY, tokenizer.next());
+        Assert.assertTrue(tokenizer.textEquals("a"));
+        Assert.assertEquals(Token.ARRAY_START, tokenizer.next());
+        Assert.assertEquals(Token.NUMBER, tokenizer.next());
+        Assert.assertEquals(1L, tokenizer.getLong());
+        Assert.assertEquals(Token.NUMBER, tokenizer.next());
+        Assert.assertEquals(-2500., tokenizer.getDouble(), 0.);
+        Assert.assertEquals("-2.5e3", tokenizer.getString());
+        Assert.assertEquals(Token.TRUE, tokenizer.next());
+        Assert.assertTrue(tokenizer.getBoolean());
+        Assert.assertEquals(Token.FALSE, tokenizer.next());
+        Assert.assertEquals(Token.NULL, tokenizer.next());
+        Assert.assertEquals(Token.ARRAY_END, tokenizer.next());
+        Assert.assertEquals(Token.KEY, tokenizer.next());
+        Assert.assertEquals("b\"", tokenizer.getString());
+        Assert.assertEquals(Token.OBJECT_START, tokenizer.next());
+        Assert.assertEquals(Token.KEY, tokenizer.next());
+        Assert.assertEquals(Token.STRING, tokenizer.next());
+        Assert.assertEquals("x\u00e9\n\u00fc\u4e2d\uD83D\uDE00", tokenizer.getString());
+        Assert.assertEquals(Token.OBJECT_END, tokenizer.next());
+        Assert.assertEquals(Token.KEY, tokenizer.next());
+        Assert.assertEquals(Token.ARRAY_START, tokenizer.next());
+        Assert.assertEquals(Token.ARRAY_END, tokenizer.next());
+        Assert.assertEquals(Token.OBJECT_END, tokenizer.next());
+        Assert.assertEquals(Token.END_DOCUMENT, tokenizer.next());
+    }
+
+    /**
+     * Tests that numbers convert to the same doubles as
+     * {@link Double#parseDouble(String)}.
+     *
+     * @throws IOException if the test fails
+     * @throws JSONSaxParseException if the test fails
+     */
+    @Test
+    public void testNumbers() throws IOException, JSONSaxParseException
+    {
+        String[] fixed = { "0", "-0", "0.0", "1e308", "1.7976931348623157e308", "1.8e308", "4.9e-324", "2.2250738585072014e-308",
+            "1e-400", "-77.036871999999988", "38.897675699999998", "9007199254740993", "123456789012345678901234567890",
+            "0.000000000000000000000000000001", "1E+2", "7.2057594037927933e16", "2.0e-7", };
+        for (String text : fixed)
+        {
+            assertNumber(text);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; ++i)
+        {
+            double value;
+            switch (i % 4)
+            {
+                case 0:
+                    value = Double.longBitsToDouble(random.nextLong());
+                    break;
+                case 1:
+                    value = (random.nextDouble() - .5) * 360.;
+                    break;
+                case 2:
+                    value = random.nextInt(1_000_000) / 1000.;
+                    break;
+                default:
+                    value = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+                    break;
+            }
+            if (!Double.isNaN(value) && !Double.isInfinite(value))
+            {
+                assertNumber(Double.toString(value));
+                assertNumber(String.format("%.17g", Double.valueOf(value)).trim());
+            }
+        }
+    }
+
+    /**
+     * Tests reading arrays of positions.
+     *
+     * @throws IOException if the test fails
+     * @throws JSONSaxParseException if the test fails
+     */
+    @Test
+    public void testReadPositionArrays() throws IOException, JSONSaxParseException
+    {
+        JSONStreamTokenizer tokenizer = create("{\"rings\": [[[1, 2], [3.5, 4, 10, null]], [[-5, 6], [7, 8], [9, 10]]], \"x\": 1}");
+        Assert.assertEquals(Token.OBJECT_START, tokenizer.next());
+        Assert.assertEquals(Token.KEY, tokenizer.next());
+        Assert.assertEquals(Token.ARRAY_START, tokenizer.next());
+
+        TDoubleArrayList coordinates = new TDoubleArrayList();
+        TIntArrayList partEnds = new TIntArrayList();
+        Assert.assertEquals(2, tokenizer.readPositionArrays(coordinates, partEnds));
+        Assert.assertArrayEquals(new double[] { 1, 2, 3.5, 4, -5, 6, 7, 8, 9, 10 }, coordinates.toArray(), 0.);
+        Assert.assertArrayEquals(new int[] { 4, 10 }, partEnds.toArray());
+
+        Assert.assertEquals(Token.KEY, tokenizer.next());
+        Assert.assertTrue(tokenizer.textEquals("x"));
+    }
+
+    /**
+     * Tests that malformed documents fail.
+     *
+     * @throws IOException if the test fails
+     */
+    @Test
+    public void testMalformed() throws IOException
+    {
+        String[] documents = { "{\"a\": 1", "{\"a\": tru}", "{\"a\": 1]", "{\"a\": \"abc", "{\"a\": -}", "{\"a\": 1.}", "{\"a\": #}",
+            "{\"a\": \"\\q\"}", };
+        for (String document : documents)
+        {
+            JSONStreamTokenizer tokenizer = create(document);
+            try
+            {
+                while (tokenizer.next() != Token.END_DOCUMENT)
+                {
+                    // Keep reading.
+                }
+                Assert.fail("Expected failure for " + document);
+            }
+            catch (JSONSaxParseException e)
+            {
+                Assert.assertEquals(1, e.getLine());
+            }
+        }
+    }
+
+    /**
+     * Asserts that a number is tokenized and converted like the JDK.
+     *
+     * @param text the number text
+     * @throws IOException if the test fails
+     * @throws JSONSaxParseException if the test fails
+     */
+    private static void assertNumber(String text) throws IOException, JSONSaxParseException
+    {
+        JSONStreamTokenizer tokenizer = create("[" + text + "]");
+        tokenizer.next();
+        Assert.assertEquals(Token.NUMBER, tokenizer.next());
+        Assert.assertEquals(text, Double.doubleToLongBits(Double.parseDouble(text)),
+                Double.doubleToLongBits(tokenizer.getDouble()));
+    }
+
+    /**
+     * Creates a tokenizer for a document.
+     *
+     * @param document the document
+     * @return the tokenizer
+     */
+    private static JSONStreamTokenizer create(String document)
+    {
+        return new JSONStreamTokenizer(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,165 @@
+package io.opensphere.core.data;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.opensphere.core.cache.Cache;
+import io.opensphere.core.cache.matcher.PropertyMatcher;
+import io.opensphere.core.cache.util.IntervalPropertyValueSet;
+import io.opensphere.core.cache.util.PropertyDescriptor;
+import io.opensphere.core.data.util.DataModelCategory;
+import io.opensphere.core.data.util.OrderSpecifier;
+import io.opensphere.core.data.util.QueryTracker.QueryStatus;
+import io.opensphere.core.data.util.Satisfaction;
+import io.opensphere.core.data.util.SimpleQuery;
+
+/**
+ * Tests for {@link CachingDataRegistryDataProvider}.
+ */
+public class CachingDataRegistryDataProviderTest
+{
+    /** The executor for queries, which has a single thread. */
+    private ThreadPoolExecutor myExecutor;
+
+    /** The future returned by the asynchronous provider. */
+    private final CompletableFuture<Void> myFuture = new CompletableFuture<>();
+
+    /** The object under test. */
+    private CachingDataRegistryDataProvider myProvider;
+
+    /**
+     * Create the object under test.
+     */
+    @Before
+    public void setUp()
+    {
+        myExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        Cache cache = EasyMock.createNiceMock(Cache.class);
+        EasyMock.replay(cache);
+        myProvider = new CachingDataRegistryDataProvider(new TestAsyncProvider(), myExecutor, cache);
+    }
+
+    /**
+     * Shut down the executor.
+     */
+    @After
+    public void tearDown()
+    {
+        myExecutor.shutdownNow();
+    }
+
+    /**
+     * Tests that an asynchronous query does not hold the executor's thread and
+     * that the tracker is updated when the query completes.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testQueryAsync() throws InterruptedException
+    {
+        DefaultQueryTracker tracker = query();
+
+        CountDownLatch latch = new CountDownLatch(1);
+        myExecutor.execute(latch::countDown);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(QueryStatus.RUNNING, tracker.getQueryStatus());
+
+        myFuture.complete(null);
+        Assert.assertEquals(QueryStatus.SUCCESS, tracker.getQueryStatus());
+    }
+
+    /**
+     * Tests that cancelling the tracker cancels an asynchronous query.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testQueryAsyncCancel() throws InterruptedException
+    {
+        DefaultQueryTracker tracker = query();
+
+        tracker.cancel(true);
+        Assert.assertTrue(myFuture.isCancelled());
+        Assert.assertEquals(QueryStatus.CANCELLED, tracker.getQueryStatus());
+    }
+
+    /**
+     * Tests that a failed asynchronous query fails the tracker.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testQueryAsyncFailure() throws InterruptedException
+    {
+        DefaultQueryTracker tracker = query();
+
+        QueryException exception = new QueryException("test");
+        myFuture.completeExceptionally(exception);
+        Assert.assertEquals(QueryStatus.FAILED, tracker.getQueryStatus());
+        Assert.assertSame(exception, tracker.getException());
+    }
+
+    /**
+     * Send a query to the provider and wait for the executor to start it.
+     *
+     * @return The query tracker.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    private DefaultQueryTracker query() throws InterruptedException
+    {
+        DataModelCategory category = new DataModelCategory("source", "family", "category");
+        DefaultQueryTracker tracker = new DefaultQueryTracker(
+                new SimpleQuery<>(category, PropertyDescriptor.create("key", String.class)), false);
+        myProvider.query(tracker, false, new DataRegistryListenerManager());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        myExecutor.execute(latch::countDown);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        return tracker;
+    }
+
+    /**
+     * An asynchronous provider that returns the test's future.
+     */
+    private final class TestAsyncProvider implements AsyncDataRegistryDataProvider
+    {
+        @Override
+        public Collection<? extends Satisfaction> getSatisfaction(DataModelCategory dataModelCategory,
+                Collection<? extends IntervalPropertyValueSet> intervalSets)
+        {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public String getThreadPoolName()
+        {
+            return "test";
+        }
+
+        @Override
+        public boolean providesDataFor(DataModelCategory category)
+        {
+            return true;
+        }
+
+        @Override
+        public CompletableFuture<Void> queryAsync(DataModelCategory category, Collection<? extends Satisfaction> satisfactions,
+                List<? extends PropertyMatcher<?>> parameters, List<? extends OrderSpecifier> orderSpecifiers, int limit,
+                Collection<? extends PropertyDescriptor<?>> propertyDescriptors, CacheDepositReceiver queryReceiver)
+        {
+            return myFuture;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package io.opensphere.core.event;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.util.collections.New;
+
+/** Test for {@link EventManagerImpl}. */
+public class EventManagerImplTest
+{
+    /**
+     * Test that by default all subscribers receive events on one thread in the
+     * same order.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testDefaultDelivery() throws InterruptedException
+    {
+        EventManagerImpl manager = new EventManagerImpl();
+        int count = 100;
+        CountDownLatch latch = new CountDownLatch(2 * count);
+        List<String> received = New.list();
+        EventListener<CountEvent> listener1 = event ->
+        {
+            received.add("a" + event.getCount());
+            latch.countDown();
+        };
+        EventListener<CountEvent> listener2 = event ->
+        {
+            received.add("b" + event.getCount());
+            latch.countDown();
+        };
+        manager.subscribe(CountEvent.class, listener1);
+        manager.subscribe(CountEvent.class, listener2);
+
+        for (int index = 0; index < count; ++index)
+        {
+            manager.publishEvent(new CountEvent(index));
+        }
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int index = 0; index < count; ++index)
+        {
+            Assert.assertEquals("a" + index, received.get(2 * index));
+            Assert.assertEquals("b" + index, received.get(2 * index + 1));
+        }
+    }
+
+    /**
+     * Test that with several delivery threads each subscriber still receives
+     * events in publication order, and that subscribers of super types receive
+     * them too.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testOrderedDelivery() throws InterruptedException
+    {
+        EventManagerImpl manager = new EventManagerImpl(4);
+        int count = 1000;
+        CountDownLatch latch = new CountDownLatch(3 * count);
+        List<Integer> received1 = New.list();
+        List<Integer> received2 = New.list();
+        List<Integer> receivedSuper = New.list();
+        EventListener<CountEvent> listener1 = event ->
+        {
+            received1.add(Integer.valueOf(event.getCount()));
+            latch.countDown();
+        };
+        EventListener<CountEvent> listener2 = event ->
+        {
+            received2.add(Integer.valueOf(event.getCount()));
+            latch.countDown();
+        };
+        EventListener<Event> superListener = event ->
+        {
+            receivedSuper.add(Integer.valueOf(((CountEvent)event).getCount()));
+            latch.countDown();
+        };
+        manager.subscribe(CountEvent.class, listener1);
+        manager.subscribe(CountEvent.class, listener2);
+        manager.subscribe(Event.class, superListener);
+
+        for (int index = 0; index < count; ++index)
+        {
+            manager.publishEvent(new CountEvent(index));
+        }
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (List<Integer> received : List.of(received1, received2, receivedSuper))
+        {
+            Assert.assertEquals(count, received.size());
+            for (int index = 0; index < count; ++index)
+            {
+                Assert.assertEquals(index, received.get(index).intValue());
+            }
+        }
+        Assert.assertEquals(3 * count, manager.getDispatchMetrics().getDeliveredCount());
+        Assert.assertEquals(0, manager.getDispatchMetrics().getQueueDepth());
+    }
+
+    /**
+     * Test that events with a consolidator are delivered as one consolidated
+     * event after the coalescing interval.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testCoalescing() throws InterruptedException
+    {
+        EventManagerImpl manager = new EventManagerImpl();
+        manager.setConsolidator(CountEvent.class, new CountConsolidator(Integer.MAX_VALUE), null);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Integer> totals = New.list();
+        EventListener<TotalEvent> totalListener = event ->
+        {
+            totals.add(Integer.valueOf(event.getTotal()));
+            latch.countDown();
+        };
+        AtomicInteger uncoalesced = new AtomicInteger();
+        EventListener<CountEvent> countListener = event -> uncoalesced.incrementAndGet();
+        manager.subscribe(TotalEvent.class, totalListener);
+        manager.subscribe(CountEvent.class, countListener);
+
+        for (int index = 1; index <= 100; ++index)
+        {
+            manager.publishEvent(new CountEvent(index));
+        }
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        Assert.assertEquals(List.of(Integer.valueOf(5050)), totals);
+        Assert.assertEquals(0, uncoalesced.get());
+    }
+
+    /**
+     * Test that publishing a barrier event delivers the coalesced events
+     * first, and that a consolidator that cannot take an event starts a new
+     * consolidated event.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testCoalescingOrder() throws InterruptedException
+    {
+        EventManagerImpl manager = new EventManagerImpl(1, TimeUnit.MINUTES.toMillis(1));
+        manager.setConsolidator(CountEvent.class, new CountConsolidator(10), TotalEvent.class);
+
+        CountDownLatch latch = new CountDownLatch(4);
+        List<String> received = New.list();
+        EventListener<Event> listener = event ->
+        {
+            received.add(event.getDescription());
+            latch.countDown();
+        };
+        manager.subscribe(Event.class, listener);
+
+        manager.publishEvent(new CountEvent(4));
+        manager.publishEvent(new CountEvent(5));
+        manager.publishEvent(new CountEvent(6));
+        manager.publishEvent(new TotalEvent(-1));
+        manager.publishEvent(new CountEvent(7));
+        manager.setConsolidator(CountEvent.class, null, null);
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(List.of("Total 9", "Total 6", "Total -1", "Total 7"), received);
+    }
+
+    /**
+     * Test that unsubscribed listeners are not notified.
+     *
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testUnsubscribe() throws InterruptedException
+    {
+        EventManagerImpl manager = new EventManagerImpl();
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger removedCount = new AtomicInteger();
+        EventListener<CountEvent> removed = event -> removedCount.incrementAndGet();
+        EventListener<CountEvent> kept = event -> latch.countDown();
+        manager.subscribe(CountEvent.class, removed);
+        manager.subscribe(CountEvent.class, kept);
+        manager.unsubscribe(CountEvent.class, removed);
+
+        manager.publishEvent(new CountEvent(0));
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(0, removedCount.get());
+        Assert.assertEquals(1, manager.getSubscribers(CountEvent.class).size());
+    }
+
+    /**
+     * Consolidator that sums the counts of {@link CountEvent}s, starting a new
+     * total when a limit would be exceeded.
+     */
+    private static class CountConsolidator implements EventConsolidator<CountEvent>
+    {
+        /** If any events were added. */
+        private boolean myHadEvents;
+
+        /** The largest total. */
+        private final int myLimit;
+
+        /** The total. */
+        private int myTotal;
+
+        /**
+         * Constructor.
+         *
+         * @param limit The largest total.
+         */
+        public CountConsolidator(int limit)
+        {
+            myLimit = limit;
+        }
+
+        @Override
+        public void addEvent(CountEvent event)
+        {
+            myTotal += event.getCount();
+            myHadEvents = true;
+        }
+
+        @Override
+        public void addEvents(Collection<CountEvent> events)
+        {
+            events.forEach(this::addEvent);
+        }
+
+        @Override
+        public boolean canConsolidate(CountEvent event)
+        {
+            return (long)myTotal + event.getCount() <= myLimit;
+        }
+
+        @Override
+        public Event createConsolidatedEvent()
+        {
+            return new TotalEvent(myTotal);
+        }
+
+        @Override
+        public boolean hadEvents()
+        {
+            return myHadEvents;
+        }
+
+        @Override
+        public EventConsolidator<CountEvent> newInstance()
+        {
+            return new CountConsolidator(myLimit);
+        }
+
+        @Override
+        public void reset()
+        {
+            myTotal = 0;
+            myHadEvents = false;
+        }
+    }
+
+    /** Event carrying a count. */
+    private static class CountEvent extends AbstractSingleStateEvent
+    {
+        /** The count. */
+        private final int myCount;
+
+        /**
+         * Constructor.
+         *
+         * @param count The count.
+         */
+        public CountEvent(int count)
+        {
+            myCount = count;
+        }
+
+        /**
+         * Get the count.
+         *
+         * @return The count.
+         */
+        public int getCount()
+        {
+            return myCount;
+        }
+
+        @Override
+        public String getDescription()
+        {
+            return "Count " + myCount;
+        }
+    }
+
+    /** Event carrying the total of coalesced counts. */
+    private static class TotalEvent extends AbstractSingleStateEvent
+    {
+        /** The total. */
+        private final int myTotal;
+
+        /**
+         * Constructor.
+         *
+         * @param total The total.
+         */
+        public TotalEvent(int total)
+        {
+            myTotal = total;
+        }
+
+        /**
+         * Get the total.
+         *
+         * @return The total.
+         */
+        public int getTotal()
+        {
+            return myTotal;
+        }
+
+        @Override
+        public String getDescription()
+        {
+            return "Total " + myTotal;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.opensphere.core.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.util.collections.New;
+
+/**
+ * Tests for {@link StreamingExportEngine}.
+ */
+public class StreamingExportEngineTest
+{
+    /**
+     * Tests that a formatting failure stops the export.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testFormatFailure() throws IOException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            StreamingExportEngine engine = new StreamingExportEngine(executor, 4);
+            List<Integer> written = New.list();
+            engine.export(new CollectionExportCursor<>(numbers(100), 10), (batch, offset) ->
+            {
+                if (batch.contains(Integer.valueOf(55)))
+                {
+                    throw new ExportException("bad batch");
+                }
+                return batch.get(0);
+            }, written::add, null);
+            Assert.fail("Expected an exception");
+        }
+        catch (ExportException e)
+        {
+            Assert.assertEquals("bad batch", e.getMessage());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that batches are written in cursor order even when they finish
+     * formatting out of order.
+     *
+     * @throws IOException If the test fails.
+     * @throws ExportException If the test fails.
+     */
+    @Test
+    public void testOrder() throws IOException, ExportException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            StreamingExportEngine engine = new StreamingExportEngine(executor, 8);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int count;
+            try (ExportChannelWriter writer = new ExportChannelWriter(Channels.newChannel(out), StandardCharsets.UTF_8))
+            {
+                count = engine.export(new CollectionExportCursor<>(numbers(50000), 997), (batch, offset) ->
+                {
+                    Assert.assertEquals(offset, batch.get(0).intValue());
+                    if (offset % 2 == 0)
+                    {
+                        Thread.yield();
+                    }
+                    return batch.stream().map(i -> i + "\u00e9\n").collect(Collectors.joining());
+                }, writer, null);
+            }
+
+            Assert.assertEquals(50000, count);
+            String expected = numbers(50000).stream().map(i -> i + "\u00e9\n").collect(Collectors.joining());
+            Assert.assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests exporting nothing.
+     *
+     * @throws IOException If the test fails.
+     * @throws ExportException If the test fails.
+     */
+    @Test
+    public void testEmpty() throws IOException, ExportException
+    {
+        List<Object> written = New.list();
+        int count = StreamingExportEngine.getDefault().export(new CollectionExportCursor<>(Collections.emptyList(), 10),
+            (batch, offset) -> batch, written::add, null);
+        Assert.assertEquals(0, count);
+        Assert.assertTrue(written.isEmpty());
+    }
+
+    /**
+     * Creates a list of sequential numbers.
+     *
+     * @param count The number of numbers.
+     * @return The numbers.
+     */
+    private static List<Integer> numbers(int count)
+    {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,150 @@
+package io.opensphere.core.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.model.GeographicPosition;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.util.jts.JTSUtilities;
+
+/**
+ * Test for {@link SimplificationLevels}.
+ */
+public class SimplificationLevelsTest
+{
+    /**
+     * Test that the levels of a noisy line are nested, get coarser, and keep
+     * the end points.
+     */
+    @Test
+    public void testLine()
+    {
+        Random random = new Random(1L);
+        List<GeographicPosition> line = new ArrayList<>();
+        for (int index = 0; index < 2000; ++index)
+        {
+            line.add(position(index * .01 + random.nextDouble() * .001, Math.sin(index * .01) + random.nextDouble() * .001));
+        }
+
+        SimplificationLevels levels = SimplificationLevels.create(Collections.singletonList(line), 2);
+        Assert.assertTrue(levels.getLevelCount() > 4);
+
+        int[] previous = null;
+        for (int level = 0; level < levels.getLevelCount(); ++level)
+        {
+            int[] indices = levels.getIndices(level, 0);
+            Assert.assertEquals(0, indices[0]);
+            Assert.assertEquals(line.size() - 1, indices[indices.length - 1]);
+            if (previous == null)
+            {
+                Assert.assertTrue(indices.length < line.size());
+            }
+            else
+            {
+                Assert.assertTrue(indices.length < previous.length);
+                Assert.assertTrue(levels.getResolution(level) >= levels.getResolution(level - 1));
+                int[] finer = previous;
+                Assert.assertTrue(Arrays.stream(indices).allMatch(index -> Arrays.binarySearch(finer, index) >= 0));
+            }
+            previous = indices;
+
+            Assert.assertEquals(level, levels.selectLevel(levels.getResolution(level)));
+        }
+
+        Assert.assertEquals(-1, levels.selectLevel(levels.getResolution(0) / 2.));
+        Assert.assertEquals(levels.getLevelCount() - 1, levels.selectLevel(Double.MAX_VALUE));
+        Assert.assertSame(line, levels.selectVertices(line, -1, 0));
+        Assert.assertEquals(line.get(previous[1]), levels.selectVertices(line, levels.getLevelCount() - 1, 0).get(1));
+    }
+
+    /**
+     * Test that collinear vertices are removed at the first level.
+     */
+    @Test
+    public void testCollinear()
+    {
+        List<GeographicPosition> line = new ArrayList<>();
+        for (int index = 0; index < 10; ++index)
+        {
+            line.add(position(index, index * 2.));
+        }
+        SimplificationLevels levels = SimplificationLevels.create(Collections.singletonList(line), 2);
+        Assert.assertEquals(1, levels.getLevelCount());
+        Assert.assertArrayEquals(new int[] { 0, 9 }, levels.getIndices(0, 0));
+        Assert.assertEquals(0, levels.selectLevel(0.));
+    }
+
+    /**
+     * Test that a polygon with a hole close to its boundary stays valid at
+     * every level, and that vertices shared between the rings are kept.
+     */
+    @Test
+    public void testTopology()
+    {
+        Random random = new Random(2L);
+        List<GeographicPosition> outer = new ArrayList<>();
+        for (int index = 0; index < 1000; ++index)
+        {
+            double angle = 2. * Math.PI * index / 1000;
+            double radius = 10. + random.nextDouble() * .5;
+            outer.add(position(radius * Math.cos(angle), radius * Math.sin(angle)));
+        }
+        outer.add(outer.get(0));
+
+        // A hole that hugs part of the outer ring.
+        List<GeographicPosition> hole = new ArrayList<>();
+        for (int index = 0; index <= 200; ++index)
+        {
+            double angle = .5 * Math.PI * index / 200;
+            double radius = 9.4 + random.nextDouble() * .1;
+            hole.add(position(radius * Math.cos(angle), radius * Math.sin(angle)));
+        }
+        hole.add(position(5., 5.));
+        hole.add(hole.get(0));
+
+        // A second hole that touches the first at one vertex.
+        GeographicPosition shared = position(-5., -5.);
+        List<GeographicPosition> hole2 = Arrays.asList(shared, position(-6., -5.), position(-6., -6.), position(-5., -6.5),
+                position(-5., -6.), shared);
+        List<GeographicPosition> hole3 = Arrays.asList(shared, position(-4., -5.), position(-4., -4.), position(-4.5, -4.2),
+                position(-5., -4.), shared);
+
+        List<List<GeographicPosition>> parts = Arrays.asList(outer, hole, hole2, hole3);
+        SimplificationLevels levels = SimplificationLevels.create(parts, 4);
+        Assert.assertTrue(levels.getLevelCount() > 3);
+        Assert.assertEquals(-10.5, levels.getBoundingBox().getLowerLeft().getLatLonAlt().getLonD(), .5);
+
+        for (int level = 0; level < levels.getLevelCount(); ++level)
+        {
+            List<List<GeographicPosition>> holes = new ArrayList<>();
+            for (int part = 1; part < parts.size(); ++part)
+            {
+                holes.add(levels.selectVertices(parts.get(part), level, part));
+                Assert.assertTrue(levels.getIndices(level, part).length >= 4);
+            }
+            List<GeographicPosition> simplified = levels.selectVertices(outer, level, 0);
+            Assert.assertTrue(simplified.size() >= 4);
+            Assert.assertTrue("Level " + level + " is not valid", JTSUtilities.createJTSPolygon(simplified, holes).isValid());
+            Assert.assertTrue(holes.get(1).contains(shared));
+            Assert.assertTrue(holes.get(2).contains(shared));
+        }
+    }
+
+    /**
+     * Create a position.
+     *
+     * @param lon The longitude.
+     * @param lat The latitude.
+     * @return The position.
+     */
+    private GeographicPosition position(double lon, double lat)
+    {
+        return new GeographicPosition(LatLonAlt.createFromDegrees(lat, lon));
+    }
+}
@@ -0,0 +1,439 @@
+package io.opensphere.core.geometry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.geometry.TileGeometry.Builder;
+import io.opensphere.core.geometry.renderproperties.DefaultTileRenderProperties;
+import io.opensphere.core.math.Ellipsoid;
+import io.opensphere.core.math.Vector3d;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.model.GeographicPosition;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.projection.Projection;
+import io.opensphere.core.viewer.Viewer;
+
+/** Tests for {@link TileRequestScheduler}. */
+public class TileRequestSchedulerTest
+{
+    /** Tests computing the priority of a request. */
+    @Test
+    public void testComputePriority()
+    {
+        Assert.assertEquals(100., TileRequestScheduler.computePriority(100., 0., 1.), 0.);
+        Assert.assertEquals(50., TileRequestScheduler.computePriority(100., 1., 1.), 0.);
+        Assert.assertTrue(
+                TileRequestScheduler.computePriority(200., 0., 1.) > TileRequestScheduler.computePriority(100., 0., 1.));
+        Assert.assertTrue(
+                TileRequestScheduler.computePriority(100., 1., 1.) > TileRequestScheduler.computePriority(100., 2., 1.));
+    }
+
+    /**
+     * Tests that requests for tiles that have left the view are cancelled and
+     * are resubmitted when the tiles come back into view.
+     */
+    @Test
+    public void testReprioritize()
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            TileRequestScheduler scheduler = new TileRequestScheduler(executor, executor, 0, 1);
+            TestRequest near = new TestRequest(createTile(0.), "server", null);
+            TestRequest far = new TestRequest(createTile(1.), "server", null);
+            TestRequest gone = new TestRequest(createTile(2.), "server", null);
+            scheduler.submit(far);
+            scheduler.submit(near);
+            scheduler.submit(gone);
+
+            Ellipsoid nearEllipsoid = createEllipsoid(new Vector3d(1., 0., 0.));
+            Ellipsoid farEllipsoid = createEllipsoid(new Vector3d(10., 0., 0.));
+            Ellipsoid goneEllipsoid = createEllipsoid(new Vector3d(-10., 0., 0.));
+            Projection projection = EasyMock.createMock(Projection.class);
+            EasyMock.expect(projection.getBoundingEllipsoid(near.getBounds(), Vector3d.ORIGIN, false)).andReturn(nearEllipsoid)
+                    .anyTimes();
+            EasyMock.expect(projection.getBoundingEllipsoid(far.getBounds(), Vector3d.ORIGIN, false)).andReturn(farEllipsoid)
+                    .anyTimes();
+            EasyMock.expect(projection.getBoundingEllipsoid(gone.getBounds(), Vector3d.ORIGIN, false)).andReturn(goneEllipsoid)
+                    .anyTimes();
+            Viewer viewer = createViewer(nearEllipsoid, farEllipsoid, goneEllipsoid, false);
+            EasyMock.replay(projection, nearEllipsoid, farEllipsoid, goneEllipsoid, viewer);
+
+            scheduler.reprioritize(viewer, projection);
+            Assert.assertEquals(1, gone.getCancelCount());
+            Assert.assertEquals(0, near.getCancelCount());
+            Assert.assertEquals(1L, scheduler.getCancelledCount());
+            Assert.assertEquals(2, scheduler.getQueueSize());
+            Assert.assertEquals(0, gone.getResubmitCount());
+
+            EasyMock.reset(viewer);
+            viewer = createViewer(nearEllipsoid, farEllipsoid, goneEllipsoid, true);
+            EasyMock.replay(viewer);
+            scheduler.reprioritize(viewer, projection);
+            Assert.assertEquals(1, gone.getResubmitCount());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that a running request for a tile that has left the view is
+     * cancelled and its thread interrupted.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testReprioritizeRunning() throws Exception
+    {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try
+        {
+            TileRequestScheduler scheduler = new TileRequestScheduler(executor, executor, 1, 1);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch interrupted = new CountDownLatch(1);
+            TestRequest gone = new TestRequest(createTile(2.), "server", () ->
+            {
+                started.countDown();
+                try
+                {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted.countDown();
+                }
+            });
+            Future<?> future = scheduler.submit(gone);
+            Assert.assertTrue(started.await(1, TimeUnit.MINUTES));
+            Assert.assertEquals(1, scheduler.getActiveCount());
+
+            Ellipsoid goneEllipsoid = createEllipsoid(new Vector3d(-10., 0., 0.));
+            Projection projection = EasyMock.createMock(Projection.class);
+            EasyMock.expect(projection.getBoundingEllipsoid(gone.getBounds(), Vector3d.ORIGIN, false)).andReturn(goneEllipsoid)
+                    .anyTimes();
+            Viewer viewer = EasyMock.createMock(Viewer.class);
+            EasyMock.expect(viewer.getModelIntersection()).andReturn(Vector3d.ORIGIN).anyTimes();
+            EasyMock.expect(Boolean.valueOf(viewer.isInView(EasyMock.eq(goneEllipsoid), EasyMock.anyDouble())))
+                    .andReturn(Boolean.FALSE).anyTimes();
+            EasyMock.expect(Double.valueOf(viewer.getPixelWidth(goneEllipsoid))).andReturn(Double.valueOf(256.)).anyTimes();
+            EasyMock.replay(projection, goneEllipsoid, viewer);
+
+            scheduler.reprioritize(viewer, projection);
+            Assert.assertTrue(interrupted.await(1, TimeUnit.MINUTES));
+            Assert.assertTrue(future.isCancelled());
+            Assert.assertEquals(1, gone.getCancelCount());
+            Assert.assertEquals(1L, scheduler.getCancelledCount());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that completed prefetch requests are asked to release their
+     * images once their lifetime has passed.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testReleasePrefetched() throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            TileRequestScheduler scheduler = new TileRequestScheduler(executor, executor, 1, 1);
+            TestRequest prefetch = new TestRequest(createTile(0.), "server", null);
+            prefetch.setPrefetch(true);
+            TestRequest request = new TestRequest(createTile(1.), "server", null);
+            scheduler.submit(prefetch).get(1, TimeUnit.MINUTES);
+            scheduler.submit(request).get(1, TimeUnit.MINUTES);
+
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+            while (scheduler.getActiveCount() > 0 && System.nanoTime() < deadline)
+            {
+                Thread.sleep(10L);
+            }
+            Assert.assertEquals(0, scheduler.getActiveCount());
+
+            scheduler.releaseExpiredPrefetches(System.nanoTime());
+            Assert.assertEquals(0, prefetch.getReleaseCount());
+
+            long expired = System.nanoTime() + TileRequestScheduler.PREFETCH_LIFETIME_NANOSECONDS + 1L;
+            scheduler.releaseExpiredPrefetches(expired);
+            Assert.assertEquals(1, prefetch.getReleaseCount());
+            Assert.assertEquals(0, request.getReleaseCount());
+
+            scheduler.releaseExpiredPrefetches(expired);
+            Assert.assertEquals(1, prefetch.getReleaseCount());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that the number of requests that run at once for each server is
+     * limited and that the metrics are updated.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testServerConcurrency() throws Exception
+    {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try
+        {
+            TileRequestScheduler scheduler = new TileRequestScheduler(executor, executor, 4, 1);
+            CountDownLatch started = new CountDownLatch(2);
+            CountDownLatch release = new CountDownLatch(1);
+            TestRequest a1 = new TestRequest(createTile(0.), "a", () -> block(started, release));
+            TestRequest a2 = new TestRequest(createTile(1.), "a", () -> block(started, release));
+            TestRequest b1 = new TestRequest(createTile(2.), "b", () -> block(started, release));
+
+            Future<?> f1 = scheduler.submit(a1);
+            Future<?> f2 = scheduler.submit(a2);
+            Future<?> f3 = scheduler.submit(b1);
+            Assert.assertTrue(started.await(1, TimeUnit.MINUTES));
+            Assert.assertEquals(2, scheduler.getActiveCount());
+            Assert.assertEquals(1, scheduler.getQueueSize());
+
+            release.countDown();
+            f1.get(1, TimeUnit.MINUTES);
+            f2.get(1, TimeUnit.MINUTES);
+            f3.get(1, TimeUnit.MINUTES);
+
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+            while (scheduler.getCompletedCount() < 3L && System.nanoTime() < deadline)
+            {
+                Thread.sleep(10L);
+            }
+            Assert.assertEquals(3L, scheduler.getCompletedCount());
+            Assert.assertEquals(0, scheduler.getQueueSize());
+            Assert.assertEquals(0, scheduler.getActiveCount());
+            Assert.assertTrue(scheduler.getAverageLatencyMilliseconds() >= 0.);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Count down a latch and wait for another one.
+     *
+     * @param started The latch to count down.
+     * @param release The latch to wait for.
+     */
+    private void block(CountDownLatch started, CountDownLatch release)
+    {
+        started.countDown();
+        try
+        {
+            release.await(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Create a mock ellipsoid.
+     *
+     * @param center The center.
+     * @return The ellipsoid.
+     */
+    private Ellipsoid createEllipsoid(Vector3d center)
+    {
+        Ellipsoid ellipsoid = EasyMock.createMock(Ellipsoid.class);
+        EasyMock.expect(ellipsoid.getCenter()).andReturn(center).anyTimes();
+        EasyMock.expect(ellipsoid.getXAxis()).andReturn(new Vector3d(1., 0., 0.)).anyTimes();
+        EasyMock.expect(ellipsoid.getYAxis()).andReturn(new Vector3d(0., 1., 0.)).anyTimes();
+        EasyMock.expect(ellipsoid.getZAxis()).andReturn(new Vector3d(0., 0., 1.)).anyTimes();
+        return ellipsoid;
+    }
+
+    /**
+     * Create a tile.
+     *
+     * @param lonD The western longitude of the tile.
+     * @return The tile.
+     */
+    private TileGeometry createTile(double lonD)
+    {
+        Builder<GeographicPosition> builder = new Builder<>();
+        builder.setBounds(
+                new GeographicBoundingBox(LatLonAlt.createFromDegrees(10., lonD), LatLonAlt.createFromDegrees(11., lonD + 1.)));
+        builder.setImageManager(new ImageManager("image", null));
+        return new TileGeometry(builder, new DefaultTileRenderProperties(10, true, true), null);
+    }
+
+    /**
+     * Create a mock viewer.
+     *
+     * @param near The ellipsoid of the near tile, which is in view.
+     * @param far The ellipsoid of the far tile, which is in view.
+     * @param gone The ellipsoid of the tile which may be out of view.
+     * @param goneInView If the last tile is in view.
+     * @return The viewer.
+     */
+    private Viewer createViewer(Ellipsoid near, Ellipsoid far, Ellipsoid gone, boolean goneInView)
+    {
+        Viewer viewer = EasyMock.createMock(Viewer.class);
+        EasyMock.expect(viewer.getModelIntersection()).andReturn(Vector3d.ORIGIN).anyTimes();
+        EasyMock.expect(Boolean.valueOf(viewer.isInView(EasyMock.eq(near), EasyMock.anyDouble()))).andReturn(Boolean.TRUE)
+                .anyTimes();
+        EasyMock.expect(Boolean.valueOf(viewer.isInView(EasyMock.eq(far), EasyMock.anyDouble()))).andReturn(Boolean.TRUE)
+                .anyTimes();
+        EasyMock.expect(Boolean.valueOf(viewer.isInView(EasyMock.eq(gone), EasyMock.anyDouble())))
+                .andReturn(Boolean.valueOf(goneInView)).anyTimes();
+        EasyMock.expect(Double.valueOf(viewer.getPixelWidth(EasyMock.anyObject(Ellipsoid.class)))).andReturn(Double.valueOf(256.))
+                .anyTimes();
+        return viewer;
+    }
+
+    /** A tile request for testing. */
+    private static class TestRequest implements Runnable, TileRequestScheduler.TileRequest
+    {
+        /** The number of times the request was cancelled. */
+        private int myCancelCount;
+
+        /** If the request is a prefetch. */
+        private boolean myPrefetch;
+
+        /** The number of times the request was asked to release its image. */
+        private int myReleaseCount;
+
+        /** The number of times the request was resubmitted. */
+        private int myResubmitCount;
+
+        /** The work to do, or {@code null}. */
+        private final Runnable myRunnable;
+
+        /** The server. */
+        private final Object myServer;
+
+        /** The tile. */
+        private final TileGeometry myTile;
+
+        /**
+         * Constructor.
+         *
+         * @param tile The tile.
+         * @param server The server.
+         * @param runnable The work to do, or {@code null}.
+         */
+        public TestRequest(TileGeometry tile, Object server, Runnable runnable)
+        {
+            myTile = tile;
+            myServer = server;
+            myRunnable = runnable;
+        }
+
+        @Override
+        public void cancel()
+        {
+            ++myCancelCount;
+        }
+
+        /**
+         * Get the bounds of the tile.
+         *
+         * @return The bounds.
+         */
+        public GeographicBoundingBox getBounds()
+        {
+            return (GeographicBoundingBox)myTile.getBounds();
+        }
+
+        /**
+         * Get the number of times the request was cancelled.
+         *
+         * @return The count.
+         */
+        public int getCancelCount()
+        {
+            return myCancelCount;
+        }
+
+        /**
+         * Get the number of times the request was asked to release its image.
+         *
+         * @return The count.
+         */
+        public int getReleaseCount()
+        {
+            return myReleaseCount;
+        }
+
+        /**
+         * Get the number of times the request was resubmitted.
+         *
+         * @return The count.
+         */
+        public int getResubmitCount()
+        {
+            return myResubmitCount;
+        }
+
+        @Override
+        public Object getServer()
+        {
+            return myServer;
+        }
+
+        @Override
+        public Object getSubject()
+        {
+            return myTile;
+        }
+
+        @Override
+        public boolean isPrefetch()
+        {
+            return myPrefetch;
+        }
+
+        @Override
+        public void releaseIfUnused()
+        {
+            ++myReleaseCount;
+        }
+
+        @Override
+        public void resubmit(ExecutorService executor)
+        {
+            ++myResubmitCount;
+        }
+
+        /**
+         * Set if the request is a prefetch.
+         *
+         * @param prefetch If the request is a prefetch.
+         */
+        public void setPrefetch(boolean prefetch)
+        {
+            myPrefetch = prefetch;
+        }
+
+        @Override
+        public void run()
+        {
+            if (myRunnable != null)
+            {
+                myRunnable.run();
+            }
+        }
+    }
+}
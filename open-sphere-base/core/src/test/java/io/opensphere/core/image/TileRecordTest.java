@@ -0,0 +1,165 @@
+package io.opensphere.core.image;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.util.collections.MappedObjectPool;
+
+/** Tests for {@link TileRecord}. */
+public class TileRecordTest
+{
+    /**
+     * Tests writing and reading a DDS tile.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testDDS() throws IOException
+    {
+        DDSImage dds = createDDS();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TileRecord.write(dds, out);
+
+        ByteBuffer expected = dds.getByteBuffer();
+        Assert.assertEquals(TileRecord.HEADER_SIZE + expected.remaining(), out.size());
+
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertTrue(TileRecord.isTileRecord(in));
+        Image image = TileRecord.read(in, null);
+        Assert.assertTrue(image instanceof DDSImage);
+        Assert.assertEquals(dds.getWidth(), image.getWidth());
+        Assert.assertEquals(dds.getHeight(), image.getHeight());
+        Assert.assertEquals(dds.getCompressionType(), image.getCompressionType());
+        Assert.assertEquals(expected, image.getByteBuffer());
+        Assert.assertTrue(image.getByteBuffer().isDirect());
+        image.dispose();
+    }
+
+    /**
+     * Tests that a serialized image is not mistaken for a tile record.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testLegacy() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(out))
+        {
+            oos.writeObject(createDDS());
+        }
+
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertFalse(TileRecord.isTileRecord(in));
+        Assert.assertEquals(0xAC, in.read());
+    }
+
+    /**
+     * Tests writing and reading a PNG tile.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testPng() throws IOException
+    {
+        BufferedImage source = createImage();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(source, "png", png);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TileRecord.writePng(png.toByteArray(), source.getWidth(), source.getHeight(), out);
+
+        Image image = TileRecord.read(new ByteArrayInputStream(out.toByteArray()), null);
+        Assert.assertEquals(source.getWidth(), image.getWidth());
+        Assert.assertEquals(source.getHeight(), image.getHeight());
+    }
+
+    /**
+     * Tests that a thread that is set to be unpooled does not take buffers
+     * from the pool, so it cannot be blocked by an exhausted pool.
+     *
+     * @throws IOException If the test fails.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testUnpooled() throws IOException, InterruptedException
+    {
+        DDSImage dds = createDDS();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TileRecord.write(dds, out);
+        Integer length = Integer.valueOf(dds.getByteBuffer().remaining());
+
+        MappedObjectPool<Integer, ByteBuffer> pool = new MappedObjectPool<>(Integer.class,
+                key -> ByteBuffer.allocateDirect(key.intValue()), 1, 1, null);
+        ByteBuffer taken = pool.take(length);
+
+        Assert.assertTrue(TileRecord.isThreadPooled());
+        TileRecord.setThreadPooled(false);
+        try
+        {
+            Assert.assertFalse(TileRecord.isThreadPooled());
+            Image image = TileRecord.read(new ByteArrayInputStream(out.toByteArray()), pool);
+            Assert.assertEquals(dds.getByteBuffer(), image.getByteBuffer());
+            Assert.assertNotSame(taken, image.getByteBuffer());
+            image.dispose();
+            Assert.assertNull(pool.poll(length));
+        }
+        finally
+        {
+            TileRecord.setThreadPooled(true);
+        }
+        Assert.assertTrue(TileRecord.isThreadPooled());
+        pool.surrender(length, taken);
+    }
+
+    /**
+     * Create a DXT1 test image with a minimal DDS header.
+     *
+     * @return The image.
+     */
+    private DDSImage createDDS()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(DDSImage.DDS_HEADER_SIZE + 128).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("DDS ".getBytes(StandardCharsets.US_ASCII));
+        buffer.putInt(4, 124);
+        buffer.putInt(12, 16);
+        buffer.putInt(16, 16);
+        buffer.putInt(28, 1);
+        buffer.position(84);
+        buffer.put("DXT1".getBytes(StandardCharsets.US_ASCII));
+        for (int i = DDSImage.DDS_HEADER_SIZE; i < buffer.capacity(); ++i)
+        {
+            buffer.put(i, (byte)i);
+        }
+        buffer.clear();
+        return new DDSImage(buffer);
+    }
+
+    /**
+     * Create a test image.
+     *
+     * @return The image.
+     */
+    private BufferedImage createImage()
+    {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_4BYTE_ABGR);
+        for (int x = 0; x < 16; ++x)
+        {
+            image.setRGB(x, x, 0xFF00FF00);
+        }
+        return image;
+    }
+}
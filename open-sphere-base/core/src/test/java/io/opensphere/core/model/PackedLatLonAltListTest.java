@@ -0,0 +1,72 @@
+package io.opensphere.core.model;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.model.Altitude.ReferenceLevel;
+import io.opensphere.core.model.PackedLatLonAltList.Precision;
+
+/** Test for {@link PackedLatLonAltList}. */
+public class PackedLatLonAltListTest
+{
+    /**
+     * Tests that the list behaves like a list of {@link LatLonAlt}s.
+     */
+    @Test
+    public void testListBehavior()
+    {
+        List<LatLonAlt> expected = new LinkedList<>();
+        PackedLatLonAltList packed = new PackedLatLonAltList(Precision.DOUBLE, 1);
+        for (int i = 0; i < 100; ++i)
+        {
+            LatLonAlt lla = LatLonAlt.createFromDegreesMeters(i * .5, -i * 1.25, i * 10., ReferenceLevel.TERRAIN);
+            expected.add(lla);
+            packed.add(lla);
+        }
+        Assert.assertEquals(expected, packed);
+        Assert.assertEquals(expected.hashCode(), packed.hashCode());
+
+        LatLonAlt ellipsoid = LatLonAlt.createFromDegreesMeters(10., 20., 30., ReferenceLevel.ELLIPSOID);
+        expected.add(5, ellipsoid);
+        packed.add(5, ellipsoid);
+        Assert.assertEquals(expected, packed);
+        Assert.assertEquals(ReferenceLevel.ELLIPSOID, packed.getReferenceLevel(5));
+        Assert.assertEquals(ReferenceLevel.TERRAIN, packed.getReferenceLevel(6));
+
+        Assert.assertEquals(expected.remove(0), packed.remove(0));
+        Assert.assertTrue(packed.remove(ellipsoid));
+        expected.remove(ellipsoid);
+        Assert.assertEquals(expected, packed);
+        Assert.assertEquals(expected.get(10).getLatD(), packed.getLatD(10), 0.);
+        Assert.assertEquals(expected.get(10).getLonD(), packed.getLonD(10), 0.);
+        Assert.assertEquals(expected.get(10).getAltM(), packed.getAltM(10), 0.);
+
+        PackedLatLonAltList copy = PackedLatLonAltList.copyOf(packed);
+        packed.trimToSize();
+        Assert.assertEquals(packed, copy);
+        Assert.assertEquals(Precision.DOUBLE, copy.getPrecision());
+
+        packed.clear();
+        Assert.assertTrue(packed.isEmpty());
+        Assert.assertEquals(expected.size(), copy.size());
+    }
+
+    /**
+     * Tests single precision storage.
+     */
+    @Test
+    public void testFloat()
+    {
+        PackedLatLonAltList packed = new PackedLatLonAltList(Precision.FLOAT, 0);
+        packed.add(45.123456789, -120.987654321, 100.5, ReferenceLevel.ELLIPSOID);
+
+        LatLonAlt lla = packed.get(0);
+        Assert.assertEquals(45.123456789, lla.getLatD(), 1e-5);
+        Assert.assertEquals(-120.987654321, lla.getLonD(), 1e-5);
+        Assert.assertEquals(100.5, lla.getAltM(), 0.);
+        Assert.assertEquals(ReferenceLevel.ELLIPSOID, lla.getAltitudeReference());
+    }
+}
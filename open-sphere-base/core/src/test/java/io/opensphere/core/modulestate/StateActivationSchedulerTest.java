@@ -0,0 +1,124 @@
+package io.opensphere.core.modulestate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.util.collections.New;
+
+/**
+ * Tests for {@link StateActivationScheduler}.
+ */
+public class StateActivationSchedulerTest
+{
+    /** Module name for testing. */
+    private static final String FILTERS = "Filters";
+
+    /** Module name for testing. */
+    private static final String LAYERS = "Layers";
+
+    /** Module name for testing. */
+    private static final String VIEW = "View";
+
+    /**
+     * Tests that a cancelled activation does not start any more controllers
+     * and reports the ones that were started.
+     */
+    @Test
+    public void testCancel()
+    {
+        ModuleStateController filters = createController(false);
+        ModuleStateController layers = createController(false, FILTERS);
+        EasyMock.replay(filters, layers);
+
+        Map<String, List<ModuleStateController>> controllers = New.insertionOrderMap();
+        controllers.put(LAYERS, Collections.singletonList(layers));
+        controllers.put(FILTERS, Collections.singletonList(filters));
+
+        StateActivationScheduler.Result result = new StateActivationScheduler(2).activate("state", controllers, controller ->
+        {
+            throw new InterruptedException();
+        });
+
+        Assert.assertTrue(result.isCancelled());
+        Assert.assertEquals(Collections.singletonList(filters), result.getStarted());
+    }
+
+    /**
+     * Tests that independent modules are activated at the same time.
+     */
+    @Test
+    public void testConcurrent()
+    {
+        ModuleStateController filters = createController(false);
+        ModuleStateController view = createController(false);
+        EasyMock.replay(filters, view);
+
+        Map<String, List<ModuleStateController>> controllers = New.insertionOrderMap();
+        controllers.put(FILTERS, Collections.singletonList(filters));
+        controllers.put(VIEW, Collections.singletonList(view));
+
+        // Each activation waits for the other to start.
+        CountDownLatch latch = new CountDownLatch(2);
+        StateActivationScheduler.Result result = new StateActivationScheduler(2).activate("state", controllers, controller ->
+        {
+            latch.countDown();
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        });
+
+        Assert.assertFalse(result.isCancelled());
+        Assert.assertEquals(2, result.getStarted().size());
+        Assert.assertEquals(2, result.getTimings().size());
+    }
+
+    /**
+     * Tests that modules are activated after the modules they depend on, and
+     * that controllers that always activate are activated last.
+     */
+    @Test
+    public void testDependencyOrder()
+    {
+        ModuleStateController filters = createController(false);
+        ModuleStateController layers1 = createController(false, FILTERS);
+        ModuleStateController layers2 = createController(false, FILTERS);
+        ModuleStateController view = createController(true);
+        EasyMock.replay(filters, layers1, layers2, view);
+
+        Map<String, List<ModuleStateController>> controllers = New.insertionOrderMap();
+        controllers.put(VIEW, Collections.singletonList(view));
+        controllers.put(LAYERS, Arrays.asList(layers1, layers2));
+        controllers.put(FILTERS, Collections.singletonList(filters));
+
+        List<ModuleStateController> activated = Collections.synchronizedList(New.list());
+        StateActivationScheduler.Result result = new StateActivationScheduler(4).activate("state", controllers,
+                activated::add);
+
+        Assert.assertFalse(result.isCancelled());
+        Assert.assertEquals(Arrays.asList(filters, layers1, layers2, view), activated);
+        Assert.assertEquals(activated, result.getStarted());
+    }
+
+    /**
+     * Creates a controller.
+     *
+     * @param alwaysActivate If the controller always activates.
+     * @param dependencies The modules the controller depends on.
+     * @return The controller.
+     */
+    private static ModuleStateController createController(boolean alwaysActivate, String... dependencies)
+    {
+        ModuleStateController controller = EasyMock.createMock(ModuleStateController.class);
+        controller.getActivationDependencies();
+        EasyMock.expectLastCall().andReturn(Arrays.asList(dependencies)).anyTimes();
+        EasyMock.expect(Boolean.valueOf(controller.isAlwaysActivateState())).andReturn(Boolean.valueOf(alwaysActivate))
+                .anyTimes();
+        return controller;
+    }
+}
@@ -0,0 +1,239 @@
+package io.opensphere.core.pipeline.processor;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.geometry.ConstrainableGeometry;
+import io.opensphere.core.geometry.Geometry;
+import io.opensphere.core.geometry.constraint.MutableConstraints;
+import io.opensphere.core.geometry.constraint.TimeConstraint;
+import io.opensphere.core.model.time.TimeSpan;
+import io.opensphere.core.util.collections.New;
+
+/**
+ * Tests for {@link TimeIndexedGeometrySet}.
+ */
+public class TimeIndexedGeometrySetTest
+{
+    /**
+     * Tests that the candidates for some time spans are exactly the
+     * geometries that overlap them, plus the geometries that cannot be
+     * indexed.
+     */
+    @Test
+    public void testRemoveCandidates()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+
+        List<Geometry> timed = New.list();
+        for (int i = 0; i < 200; ++i)
+        {
+            timed.add(createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(i * 1000L, i * 1000L + 500L))));
+        }
+        Geometry keyed = createGeometry(support, TimeConstraint.getTimeConstraint("key", TimeSpan.get(0L, 1L)));
+        Geometry unconstrained = support.createMock(Geometry.class);
+
+        support.replayAll();
+
+        TimeIndexedGeometrySet set = new TimeIndexedGeometrySet();
+        set.addAll(timed);
+        set.add(keyed);
+        set.add(unconstrained);
+        Assert.assertFalse(set.add(timed.get(0)));
+        Assert.assertEquals(timed.size() + 2, set.size());
+
+        Collection<TimeSpan> spans = New.list(TimeSpan.get(10200L, 20200L), TimeSpan.get(150000L, 150001L));
+        List<Geometry> candidates = set.removeCandidates(spans);
+
+        Set<Geometry> expected = New.set(keyed, unconstrained);
+        for (Geometry geom : timed)
+        {
+            if (((ConstrainableGeometry)geom).getConstraints().getTimeConstraint().check(spans))
+            {
+                expected.add(geom);
+            }
+        }
+        Assert.assertEquals(14, expected.size());
+        Assert.assertEquals(expected, New.set(candidates));
+        Assert.assertEquals(expected.size(), candidates.size());
+        Assert.assertEquals(timed.size() + 2 - expected.size(), set.size());
+        for (Geometry geom : candidates)
+        {
+            Assert.assertFalse(set.contains(geom));
+        }
+
+        Assert.assertTrue(set.removeCandidates(spans).isEmpty());
+
+        support.verifyAll();
+    }
+
+    /**
+     * Tests that getting the candidates for some time spans does not remove
+     * them.
+     */
+    @Test
+    public void testGetCandidates()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+
+        Geometry first = createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(0L, 10L)));
+        Geometry second = createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(20L, 30L)));
+        Geometry keyed = createGeometry(support, TimeConstraint.getTimeConstraint("key", TimeSpan.get(100L, 101L)));
+
+        support.replayAll();
+
+        TimeIndexedGeometrySet set = new TimeIndexedGeometrySet();
+        set.addAll(New.list(first, second, keyed));
+
+        Assert.assertEquals(New.set(keyed, second), set.getCandidates(New.list(TimeSpan.get(15L, 25L))));
+        Assert.assertEquals(New.set(keyed, first, second),
+                set.getCandidates(New.list(TimeSpan.get(5L, 6L), TimeSpan.get(25L, 26L))));
+        Assert.assertEquals(New.set(keyed, first, second), set.getCandidates(New.list(TimeSpan.TIMELESS)));
+        Assert.assertEquals(3, set.size());
+
+        support.verifyAll();
+    }
+
+    /**
+     * Tests that when a time span moves, only the geometries that enter or
+     * leave it are candidates, not every geometry in the old and new spans.
+     */
+    @Test
+    public void testGetChangeCandidates()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+
+        List<Geometry> timed = New.list();
+        for (int i = 0; i < 200; ++i)
+        {
+            timed.add(createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(i * 1000L, i * 1000L + 500L))));
+        }
+        Geometry covering = createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(0L, 1000000L)));
+        Geometry timeless = createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.TIMELESS));
+        Geometry unconstrained = support.createMock(Geometry.class);
+        Geometry keyed = createGeometry(support, TimeConstraint.getTimeConstraint("key", TimeSpan.get(0L, 1L)));
+
+        support.replayAll();
+
+        TimeIndexedGeometrySet set = new TimeIndexedGeometrySet();
+        set.addAll(timed);
+        set.addAll(New.list(covering, timeless, unconstrained, keyed));
+
+        TimeSpan oldSpan = TimeSpan.get(10200L, 20200L);
+        TimeSpan newSpan = TimeSpan.get(11200L, 21200L);
+        List<Geometry> indexed = New.list(timed);
+        indexed.add(covering);
+        Set<Geometry> expected = New.set(keyed);
+        for (Geometry geom : indexed)
+        {
+            TimeConstraint constraint = ((ConstrainableGeometry)geom).getConstraints().getTimeConstraint();
+            if (constraint.check(oldSpan) != constraint.check(newSpan))
+            {
+                expected.add(geom);
+            }
+        }
+        Assert.assertEquals(New.set(timed.get(10), timed.get(21), keyed), expected);
+        Assert.assertEquals(expected, set.getChangeCandidates(oldSpan, newSpan));
+        Assert.assertEquals(expected, set.getChangeCandidates(newSpan, oldSpan));
+
+        // Growing the span only finds the geometries at the new edges.
+        Assert.assertEquals(New.set(timed.get(9), keyed),
+                set.getChangeCandidates(oldSpan, TimeSpan.get(9200L, 20800L)));
+
+        Assert.assertEquals(New.set(keyed), set.getChangeCandidates(oldSpan, oldSpan));
+        Assert.assertEquals(timed.size() + 4, set.size());
+
+        support.verifyAll();
+    }
+
+    /**
+     * Tests that the longest duration is reduced when the geometries with the
+     * longest durations are removed.
+     */
+    @Test
+    public void testMaxDuration()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+
+        Geometry shortOne = createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(0L, 10L)));
+        Geometry longOne = createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(0L, 1000L)));
+        Geometry longTwo = createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(500L, 1500L)));
+
+        support.replayAll();
+
+        TimeIndexedGeometrySet set = new TimeIndexedGeometrySet();
+        set.addAll(New.list(shortOne, longOne, longTwo));
+        Assert.assertEquals(1000L, set.getMaxDuration());
+
+        set.remove(longOne);
+        Assert.assertEquals(1000L, set.getMaxDuration());
+
+        for (Iterator<Geometry> iter = set.iterator(); iter.hasNext();)
+        {
+            if (iter.next() == longTwo)
+            {
+                iter.remove();
+            }
+        }
+        Assert.assertEquals(10L, set.getMaxDuration());
+
+        set.clear();
+        Assert.assertEquals(0L, set.getMaxDuration());
+
+        support.verifyAll();
+    }
+
+    /**
+     * Tests removing geometries.
+     */
+    @Test
+    public void testRemove()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+
+        Geometry first = createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(0L, 10L)));
+        Geometry second = createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(0L, 20L)));
+        Geometry third = createGeometry(support, TimeConstraint.getTimeConstraint(TimeSpan.get(30L, 40L)));
+
+        support.replayAll();
+
+        TimeIndexedGeometrySet set = new TimeIndexedGeometrySet();
+        set.addAll(New.list(first, second, third));
+
+        Assert.assertTrue(set.removeAll(New.list(second)));
+        Assert.assertFalse(set.remove(second));
+
+        for (Iterator<Geometry> iter = set.iterator(); iter.hasNext();)
+        {
+            if (iter.next() == third)
+            {
+                iter.remove();
+            }
+        }
+        Assert.assertEquals(New.list(first), set.removeCandidates(New.list(TimeSpan.get(0L, 100L))));
+        Assert.assertTrue(set.isEmpty());
+
+        support.verifyAll();
+    }
+
+    /**
+     * Creates a geometry with a time constraint.
+     *
+     * @param support Used to create the mock.
+     * @param constraint The time constraint.
+     * @return The geometry.
+     */
+    private ConstrainableGeometry createGeometry(EasyMockSupport support, TimeConstraint constraint)
+    {
+        ConstrainableGeometry geometry = support.createMock(ConstrainableGeometry.class);
+        EasyMock.expect(geometry.getConstraints()).andReturn(new MutableConstraints(constraint)).anyTimes();
+        return geometry;
+    }
+}
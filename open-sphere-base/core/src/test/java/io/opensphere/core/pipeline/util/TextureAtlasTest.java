@@ -0,0 +1,300 @@
+package io.opensphere.core.pipeline.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jogamp.opengl.util.texture.TextureCoords;
+
+import io.opensphere.core.pipeline.util.TextureAtlas.Region;
+
+/**
+ * Test for {@link TextureAtlas}.
+ */
+public class TextureAtlasTest
+{
+    /**
+     * Test packing many images of different sizes.
+     */
+    @Test
+    public void testPacking()
+    {
+        TextureAtlas<Integer> atlas = new TextureAtlas<>(256, 1, 8);
+        Random random = new Random(1L);
+        List<Region> regions = new ArrayList<>();
+        List<BufferedImage> images = new ArrayList<>();
+        for (int i = 0; i < 300; ++i)
+        {
+            BufferedImage image = createImage(4 + random.nextInt(28), 4 + random.nextInt(28), new Color(i * 0x10101 + 0x80));
+            Region region = atlas.acquire(Integer.valueOf(i), () -> image);
+            Assert.assertNotNull(region);
+            Assert.assertEquals(image.getWidth(), region.getWidth());
+            Assert.assertEquals(image.getHeight(), region.getHeight());
+            regions.add(region);
+            images.add(image);
+        }
+        Assert.assertEquals(300, atlas.size());
+        Assert.assertTrue(atlas.getPages().size() > 1);
+
+        assertNoOverlaps(regions, 1);
+        for (int i = 0; i < regions.size(); ++i)
+        {
+            assertPixels(images.get(i), regions.get(i));
+        }
+    }
+
+    /**
+     * Test that acquiring an image that is already in the atlas reuses its
+     * region.
+     */
+    @Test
+    public void testReacquire()
+    {
+        TextureAtlas<String> atlas = new TextureAtlas<>(64, 0, 1);
+        BufferedImage image = createImage(16, 8, Color.RED);
+        Region region = atlas.acquire("a", () -> image);
+        Assert.assertSame(region, atlas.acquire("a", () ->
+        {
+            throw new AssertionError("Image should not be loaded again.");
+        }));
+        Assert.assertSame(region, atlas.get("a"));
+
+        // Still referenced once, so it cannot be evicted.
+        atlas.release("a");
+        Assert.assertEquals(0, atlas.evictUnused());
+        atlas.release("a");
+        Assert.assertEquals(1, atlas.evictUnused());
+        Assert.assertNull(atlas.get("a"));
+        Assert.assertEquals(0, atlas.size());
+    }
+
+    /**
+     * Test that unused images are evicted when space is needed, least
+     * recently released first, and that images in use are kept.
+     */
+    @Test
+    public void testEviction()
+    {
+        TextureAtlas<Integer> atlas = new TextureAtlas<>(64, 0, 1);
+        for (int i = 0; i < 16; ++i)
+        {
+            Assert.assertNotNull(atlas.acquire(Integer.valueOf(i), () -> createImage(16, 16, Color.BLUE)));
+        }
+        Assert.assertNull(atlas.acquire(Integer.valueOf(16), () -> createImage(16, 16, Color.GREEN)));
+
+        atlas.release(Integer.valueOf(3));
+        atlas.release(Integer.valueOf(7));
+        BufferedImage image = createImage(16, 16, Color.GREEN);
+        Region region = atlas.acquire(Integer.valueOf(16), () -> image);
+        Assert.assertNotNull(region);
+        Assert.assertNull(atlas.get(Integer.valueOf(3)));
+        Assert.assertNotNull(atlas.get(Integer.valueOf(7)));
+        assertPixels(image, region);
+
+        // An image that was released can be used again until it is evicted.
+        Assert.assertNotNull(atlas.acquire(Integer.valueOf(7), () -> null));
+        Assert.assertNull(atlas.acquire(Integer.valueOf(17), () -> createImage(16, 16, Color.GREEN)));
+
+        List<Region> regions = new ArrayList<>();
+        for (int i = 0; i < 17; ++i)
+        {
+            if (i != 3)
+            {
+                regions.add(atlas.get(Integer.valueOf(i)));
+            }
+        }
+        assertNoOverlaps(regions, 0);
+    }
+
+    /**
+     * Test that neighboring freed rectangles are merged so that a larger image
+     * can use the space left by smaller ones.
+     */
+    @Test
+    public void testFreeRectMerging()
+    {
+        TextureAtlas<Integer> atlas = new TextureAtlas<>(64, 0, 1);
+        for (int i = 0; i < 16; ++i)
+        {
+            Assert.assertNotNull(atlas.acquire(Integer.valueOf(i), () -> createImage(16, 16, Color.BLUE)));
+        }
+
+        // Images 0 and 1 are side by side in the first row.
+        atlas.release(Integer.valueOf(0));
+        atlas.release(Integer.valueOf(1));
+        Region wide = atlas.acquire(Integer.valueOf(16), () -> createImage(32, 16, Color.GREEN));
+        Assert.assertNotNull(wide);
+        Assert.assertEquals(0, wide.getX());
+        Assert.assertEquals(0, wide.getY());
+
+        // Images 2 and 6 are one above the other in the third column.
+        atlas.release(Integer.valueOf(2));
+        atlas.release(Integer.valueOf(6));
+        Region tall = atlas.acquire(Integer.valueOf(17), () -> createImage(16, 32, Color.GREEN));
+        Assert.assertNotNull(tall);
+        Assert.assertEquals(32, tall.getX());
+        Assert.assertEquals(0, tall.getY());
+
+        List<Region> regions = new ArrayList<>();
+        for (int i = 3; i < 18; ++i)
+        {
+            if (i != 6)
+            {
+                regions.add(atlas.get(Integer.valueOf(i)));
+            }
+        }
+        assertNoOverlaps(regions, 0);
+    }
+
+    /**
+     * Test that the dirty bounds of a page cover the pixels that changed.
+     */
+    @Test
+    public void testDirtyBounds()
+    {
+        TextureAtlas<String> atlas = new TextureAtlas<>(64, 1, 1);
+        atlas.acquire("a", () -> createImage(10, 10, Color.RED));
+        Region region = atlas.acquire("b", () -> createImage(20, 10, Color.RED));
+        TextureAtlas.Page page = region.getPage();
+
+        Rectangle bounds = page.takeDirtyBounds();
+        Assert.assertTrue(bounds.contains(new Rectangle(region.getX(), region.getY(), 20, 10)));
+        Assert.assertNull(page.takeDirtyBounds());
+
+        Assert.assertTrue(atlas.remove("b"));
+        Assert.assertFalse(atlas.remove("b"));
+        Assert.assertNull(atlas.get("b"));
+        bounds = page.takeDirtyBounds();
+        Assert.assertTrue(bounds.contains(new Rectangle(region.getX(), region.getY(), 20, 10)));
+        Assert.assertEquals(0, page.getImage().getRGB(region.getX(), region.getY()));
+        Assert.assertEquals(1, atlas.size());
+    }
+
+    /**
+     * Test that a page is reset when all of its images are evicted, so that
+     * images of a different shape can be packed.
+     */
+    @Test
+    public void testPageReset()
+    {
+        TextureAtlas<Integer> atlas = new TextureAtlas<>(64, 0, 1);
+        for (int i = 0; i < 4; ++i)
+        {
+            atlas.acquire(Integer.valueOf(i), () -> createImage(32, 32, Color.BLUE));
+            atlas.release(Integer.valueOf(i));
+        }
+        int version = atlas.getPages().get(0).getVersion();
+
+        Region region = atlas.acquire(Integer.valueOf(4), () -> createImage(64, 64, Color.GREEN));
+        Assert.assertNotNull(region);
+        Assert.assertEquals(0, region.getX());
+        Assert.assertEquals(0, region.getY());
+        Assert.assertEquals(1, atlas.size());
+        Assert.assertEquals(1, atlas.getPages().get(0).getRegionCount());
+        Assert.assertTrue(atlas.getPages().get(0).getVersion() > version);
+    }
+
+    /**
+     * Test that images too large for a page are rejected.
+     */
+    @Test
+    public void testTooLarge()
+    {
+        TextureAtlas<String> atlas = new TextureAtlas<>(64, 1, 4);
+        Assert.assertNull(atlas.acquire("a", () -> createImage(63, 10, Color.RED)));
+        Assert.assertNotNull(atlas.acquire("b", () -> createImage(62, 10, Color.RED)));
+        Assert.assertEquals(1, atlas.size());
+    }
+
+    /**
+     * Test the texture coordinates of a region.
+     */
+    @Test
+    public void testTextureCoords()
+    {
+        TextureAtlas<String> atlas = new TextureAtlas<>(128, 2, 1);
+        atlas.acquire("a", () -> createImage(30, 20, Color.RED));
+        Region region = atlas.acquire("b", () -> createImage(10, 40, Color.RED));
+
+        TextureCoords coords = region.getTextureCoords();
+        Assert.assertEquals(region.getX() / 128f, coords.left(), 0f);
+        Assert.assertEquals((region.getX() + 10) / 128f, coords.right(), 0f);
+        Assert.assertEquals(region.getY() / 128f, coords.top(), 0f);
+        Assert.assertEquals((region.getY() + 40) / 128f, coords.bottom(), 0f);
+    }
+
+    /**
+     * Assert that the padded regions do not overlap and are within their
+     * pages.
+     *
+     * @param regions The regions.
+     * @param padding The padding.
+     */
+    private void assertNoOverlaps(List<Region> regions, int padding)
+    {
+        for (int i = 0; i < regions.size(); ++i)
+        {
+            Region a = regions.get(i);
+            int size = a.getPage().getImage().getWidth();
+            Assert.assertTrue(a.getX() - padding >= 0 && a.getY() - padding >= 0);
+            Assert.assertTrue(a.getX() + a.getWidth() + padding <= size && a.getY() + a.getHeight() + padding <= size);
+            for (int j = i + 1; j < regions.size(); ++j)
+            {
+                Region b = regions.get(j);
+                if (a.getPage() == b.getPage())
+                {
+                    boolean separate = a.getX() + a.getWidth() + padding <= b.getX() - padding
+                            || b.getX() + b.getWidth() + padding <= a.getX() - padding
+                            || a.getY() + a.getHeight() + padding <= b.getY() - padding
+                            || b.getY() + b.getHeight() + padding <= a.getY() - padding;
+                    Assert.assertTrue("Regions " + i + " and " + j + " overlap", separate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Assert that a region contains the pixels of an image.
+     *
+     * @param image The image.
+     * @param region The region.
+     */
+    private void assertPixels(BufferedImage image, Region region)
+    {
+        BufferedImage page = region.getPage().getImage();
+        for (int y = 0; y < image.getHeight(); ++y)
+        {
+            for (int x = 0; x < image.getWidth(); ++x)
+            {
+                Assert.assertEquals(image.getRGB(x, y), page.getRGB(region.getX() + x, region.getY() + y));
+            }
+        }
+    }
+
+    /**
+     * Create a test image.
+     *
+     * @param width The width.
+     * @param height The height.
+     * @param color The color.
+     * @return The image.
+     */
+    private BufferedImage createImage(int width, int height, Color color)
+    {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLACK);
+        g.drawLine(0, 0, width - 1, height - 1);
+        g.dispose();
+        return image;
+    }
+}
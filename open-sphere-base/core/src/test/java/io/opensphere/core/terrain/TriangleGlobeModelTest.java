@@ -0,0 +1,136 @@
+package io.opensphere.core.terrain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.MapManager;
+import io.opensphere.core.math.Vector3d;
+import io.opensphere.core.model.Altitude.ReferenceLevel;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.projection.ProjectionChangeSupport;
+import io.opensphere.core.projection.impl.Earth3D;
+import io.opensphere.core.viewer.impl.AbstractDynamicViewer;
+import io.opensphere.core.viewer.impl.DynamicViewer.KMLCompatibleCamera;
+import io.opensphere.core.viewer.impl.Viewer3D;
+
+/**
+ * Test for {@link TriangleGlobeModel}.
+ */
+public class TriangleGlobeModelTest
+{
+    /**
+     * Test that parallel split/merge passes produce the same mesh as serial
+     * passes as the view zooms in and back out.
+     */
+    @Test
+    public void testParallelSplitMergeMatchesSerial()
+    {
+        Earth3D earth = new Earth3D();
+        Viewer3D viewer = createViewer(earth);
+
+        TriangleGlobeModel serial = new TriangleGlobeModel(6, 22, earth);
+        serial.setSplitMergePool(null);
+        TriangleGlobeModel parallel = new TriangleGlobeModel(6, 22, earth);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        parallel.setSplitMergePool(pool);
+        try
+        {
+            int initialCount = getLeaves(serial).size();
+            for (double altitudeM : new double[] { 5000000., 200000., 20000., 2000., 200000., 5000000. })
+            {
+                KMLCompatibleCamera camera = new KMLCompatibleCamera(
+                        LatLonAlt.createFromDegreesMeters(35., -100., altitudeM, ReferenceLevel.ELLIPSOID), 10., 40., 0.);
+                viewer.setPosition(viewer.getViewerPosition(camera));
+
+                serial.updateModelForView(viewer);
+                parallel.updateModelForView(viewer);
+
+                Assert.assertTrue(TerrainTriangleUtilities.locateDifferences(serial.getNorthBottom(), parallel.getNorthBottom())
+                        .isEmpty());
+                Assert.assertTrue(TerrainTriangleUtilities.locateDifferences(serial.getSouthBottom(), parallel.getSouthBottom())
+                        .isEmpty());
+
+                List<TerrainTriangle> serialLeaves = getLeaves(serial);
+                List<TerrainTriangle> parallelLeaves = getLeaves(parallel);
+                Assert.assertEquals(serialLeaves.size(), parallelLeaves.size());
+                if (altitudeM < 100000.)
+                {
+                    Assert.assertTrue(serialLeaves.size() > initialCount);
+                }
+                for (int index = 0; index < serialLeaves.size(); ++index)
+                {
+                    TerrainTriangle expected = serialLeaves.get(index);
+                    TerrainTriangle actual = parallelLeaves.get(index);
+                    Assert.assertEquals(expected.getVertexA().getModelCoordinates(), actual.getVertexA().getModelCoordinates());
+                    Assert.assertEquals(expected.getVertexB().getModelCoordinates(), actual.getVertexB().getModelCoordinates());
+                    Assert.assertEquals(expected.getVertexC().getModelCoordinates(), actual.getVertexC().getModelCoordinates());
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Create a viewer for the globe.
+     *
+     * @param earth The projection.
+     * @return The viewer.
+     */
+    private Viewer3D createViewer(Earth3D earth)
+    {
+        AbstractDynamicViewer.Builder builder = new AbstractDynamicViewer.Builder().maxZoom(1000000.).minZoom(1.);
+        builder.modelWidth(earth.getModelWidth());
+        builder.modelHeight(earth.getModelHeight());
+
+        MapManager mapManager = EasyMock.createMock(MapManager.class);
+        EasyMock.expect(mapManager.getProjection(Viewer3D.class)).andReturn(earth).anyTimes();
+        EasyMock.expect(mapManager.getProjectionChangeSupport()).andReturn(new ProjectionChangeSupport()).anyTimes();
+        EasyMock.replay(mapManager);
+
+        Viewer3D viewer = new Viewer3D(builder, false);
+        viewer.setMapContext(mapManager);
+        viewer.reshape(1200, 900);
+        return viewer;
+    }
+
+    /**
+     * Get the leaf triangles of a model in traversal order.
+     *
+     * @param model The model.
+     * @return The leaves.
+     */
+    private List<TerrainTriangle> getLeaves(TriangleGlobeModel model)
+    {
+        List<TerrainTriangle> leaves = new ArrayList<>();
+        addLeaves(model.getNorthBottom(), leaves);
+        addLeaves(model.getSouthBottom(), leaves);
+        return leaves;
+    }
+
+    /**
+     * Add the leaves of a tree to a list.
+     *
+     * @param triangle The root of the tree.
+     * @param leaves The leaves.
+     */
+    private void addLeaves(TerrainTriangle triangle, List<TerrainTriangle> leaves)
+    {
+        if (triangle.getLeftChild() == null)
+        {
+            leaves.add(triangle);
+        }
+        else
+        {
+            addLeaves(triangle.getLeftChild(), leaves);
+            addLeaves(triangle.getRightChild(), leaves);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package io.opensphere.core.terrain.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.image.StreamingImage;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.terrain.util.ElevationTileCache.TileKey;
+
+/** Test for {@link ElevationTileCache}. */
+public class ElevationTileCacheTest
+{
+    /** The missing data value. */
+    private static final double MISSING = -32768.;
+
+    /** The bounds of the test tiles. */
+    private static final GeographicBoundingBox BOUNDS = new GeographicBoundingBox(LatLonAlt.createFromDegrees(0., 0.),
+            LatLonAlt.createFromDegrees(2., 2.));
+
+    /**
+     * Creates a BIL image.
+     *
+     * @param values The elevations, in row-major order starting at the
+     *            north-west corner.
+     * @return The image.
+     */
+    private static StreamingImage<String> createImage(short... values)
+    {
+        ByteBuffer buf = ByteBuffer.allocate(values.length * 2);
+        for (short value : values)
+        {
+            buf.putShort(value);
+        }
+        byte[] bytes = buf.array();
+        int size = (int)Math.sqrt(values.length);
+        return new StreamingImage<>(key -> new ByteArrayInputStream(bytes), "test", size, size);
+    }
+
+    /**
+     * Tests decoding and sampling grids.
+     */
+    @Test
+    public void testGetGrid()
+    {
+        ElevationTileCache cache = new ElevationTileCache(null, 1 << 20);
+        BilSrtmImageReader reader = new BilSrtmImageReader(BOUNDS, MISSING, "EPSG:4326", "elev");
+        StreamingImage<String> image = createImage((short)0, (short)10, (short)20, (short)30, (short)40, (short)50, (short)60,
+                (short)70, (short)80);
+        TileKey key = new TileKey("elev", 0, BOUNDS);
+
+        ElevationGrid grid = cache.getGrid(key, reader, image, BOUNDS);
+        Assert.assertEquals(3, grid.getColumns());
+        Assert.assertEquals(3, grid.getRows());
+        Assert.assertEquals(0., grid.getElevationM(2., 0.), 0.);
+        Assert.assertEquals(80., grid.getElevationM(0., 2.), 0.);
+        Assert.assertEquals(40., grid.getElevationM(1., 1.), 1e-9);
+        Assert.assertEquals(30., grid.getElevationM(1.5, 1.5), 1e-9);
+        Assert.assertEquals(MISSING, grid.getElevationM(3., 1.), 0.);
+
+        double[] lats = { 1., 3., 0. };
+        double[] lons = { 1., 1., 0. };
+        double[] elevations = new double[3];
+        Assert.assertEquals(2, grid.getElevationsM(lats, lons, elevations, 0, 3));
+        Assert.assertArrayEquals(new double[] { 40., 0., 60. }, elevations, 1e-9);
+
+        Assert.assertSame(grid, cache.getGrid(key, reader, image, BOUNDS));
+        Assert.assertNotSame(grid, cache.getGrid(key, reader, createImage(new short[9]), BOUNDS));
+        Assert.assertEquals(grid.getSizeBytes(), cache.getSizeBytes());
+    }
+
+    /**
+     * Tests that missing posts are excluded from interpolation.
+     */
+    @Test
+    public void testMissingData()
+    {
+        ElevationTileCache cache = new ElevationTileCache(null, 1 << 20);
+        BilSrtmImageReader reader = new BilSrtmImageReader(BOUNDS, MISSING, "EPSG:4326", "elev");
+        short missing = (short)MISSING;
+        StreamingImage<String> image = createImage(missing, (short)10, missing, missing, missing, missing, missing, missing,
+                missing);
+
+        ElevationGrid grid = cache.getGrid(new TileKey("elev", 0, BOUNDS), reader, image, BOUNDS);
+        Assert.assertEquals(10., grid.getElevationM(1.5, 0.5), 0.);
+        Assert.assertEquals(MISSING, grid.getElevationM(0.5, 0.5), 0.);
+    }
+
+    /**
+     * Tests eviction and invalidation.
+     */
+    @Test
+    public void testEviction()
+    {
+        long gridBytes = 9 * Float.BYTES;
+        ElevationTileCache cache = new ElevationTileCache(null, gridBytes * 2);
+        BilSrtmImageReader reader = new BilSrtmImageReader(BOUNDS, MISSING, "EPSG:4326", "elev");
+        TileKey key1 = new TileKey("elev", 1, BOUNDS);
+        TileKey key2 = new TileKey("elev", 2, BOUNDS);
+        TileKey key3 = new TileKey("other", 3, BOUNDS);
+
+        Assert.assertNotNull(cache.getGrid(key1, reader, createImage(new short[9]), BOUNDS));
+        Assert.assertNotNull(cache.getGrid(key2, reader, createImage(new short[9]), BOUNDS));
+        Assert.assertNotNull(cache.get(key1));
+        Assert.assertNotNull(cache.getGrid(key3, reader, createImage(new short[9]), BOUNDS));
+
+        Assert.assertNotNull(cache.get(key1));
+        Assert.assertNull(cache.get(key2));
+        Assert.assertNotNull(cache.get(key3));
+        Assert.assertEquals(gridBytes * 2, cache.getSizeBytes());
+
+        cache.invalidate("elev");
+        Assert.assertNull(cache.get(key1));
+        Assert.assertNotNull(cache.get(key3));
+        Assert.assertEquals(gridBytes, cache.getSizeBytes());
+
+        cache.clear();
+        Assert.assertEquals(0L, cache.getSizeBytes());
+    }
+
+    /**
+     * Tests that evicted grids and closing the cache delete the grid files.
+     *
+     * @throws IOException If the test directory cannot be created.
+     */
+    @Test
+    public void testClose() throws IOException
+    {
+        File directory = Files.createTempDirectory("elevationTest").toFile();
+        long gridBytes = 9 * Float.BYTES;
+        ElevationTileCache cache = new ElevationTileCache(directory, gridBytes);
+        BilSrtmImageReader reader = new BilSrtmImageReader(BOUNDS, MISSING, "EPSG:4326", "elev");
+
+        Assert.assertNotNull(cache.getGrid(new TileKey("elev", 1, BOUNDS), reader, createImage(new short[9]), BOUNDS));
+        Assert.assertNotNull(cache.getGrid(new TileKey("elev", 2, BOUNDS), reader, createImage(new short[9]), BOUNDS));
+        Assert.assertEquals(1, directory.list().length);
+
+        cache.close();
+        Assert.assertEquals(0, directory.list().length);
+        Assert.assertTrue(directory.delete());
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 import io.opensphere.core.util.Utilities;
 import io.opensphere.core.util.rangeset.DefaultRangedLongSet;
 import io.opensphere.core.util.rangeset.ImmutableRangedLongSet;
+import io.opensphere.core.util.rangeset.RangedLongSet;
 import io.opensphere.mantle.controller.event.AbstractDataTypeControllerEvent;
 import io.opensphere.mantle.data.DataTypeInfo;
 
@@ -58,6 +59,26 @@ public class DataElementsAddedEvent extends AbstractDataTypeControllerEvent
         myAreMappable = areMappable;
     }
 
+    /**
+     * Instantiates a new DataElementsAddedEvent.
+     *
+     * @param dti the new current {@link DataTypeInfo}.
+     * @param addedDataElementIds the ids that were added
+     * @param areMappable the are mappable
+     * @param source the source of the change.
+     */
+    public DataElementsAddedEvent(DataTypeInfo dti, RangedLongSet addedDataElementIds, boolean areMappable, Object source)
+    {
+        super(source);
+        Utilities.checkNull(dti, "dti");
+        Utilities.checkNull(addedDataElementIds, "ids");
+        myType = dti;
+        DefaultRangedLongSet ids = new DefaultRangedLongSet();
+        ids.add(addedDataElementIds);
+        myAddedDataElementIdSet = new ImmutableRangedLongSet(ids);
+        myAreMappable = areMappable;
+    }
+
     /**
      * Are mappable.
      *
@@ -1,6 +1,7 @@
 package io.opensphere.mantle.data.analysis;
 
 import io.opensphere.mantle.util.columnanalyzer.ColumnAnalyzerData;
+import io.opensphere.mantle.util.columnanalyzer.ColumnSketch;
 
 /**
  * The Interface ColumnAnalysis.
@@ -30,7 +31,32 @@ public interface ColumnAnalysis
     Class<?> getDeterminedClass();
 
     /**
-     * Gets the unique value count.
+     * Gets the largest numeric value seen in the column.
+     *
+     * @return the max value, or NaN if no numeric values have been seen or no
+     *         sketch has been recorded
+     */
+    double getMaxValue();
+
+    /**
+     * Gets the smallest numeric value seen in the column.
+     *
+     * @return the min value, or NaN if no numeric values have been seen or no
+     *         sketch has been recorded
+     */
+    double getMinValue();
+
+    /**
+     * Gets the sketch of distinct counts, ranges, types and frequent values
+     * accumulated across all the batches analyzed for the column.
+     *
+     * @return the sketch, or null if none has been recorded
+     */
+    ColumnSketch getSketch();
+
+    /**
+     * Gets the unique value count. Once the exact count exceeds its tracking
+     * threshold this is the sketch's estimate of the distinct values.
      *
      * @return the unique value count
      */
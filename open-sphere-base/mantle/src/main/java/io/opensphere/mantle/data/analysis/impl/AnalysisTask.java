@@ -24,6 +24,7 @@ import io.opensphere.mantle.data.impl.specialkey.TimeKey;
 import io.opensphere.mantle.util.MantleToolboxUtils;
 import io.opensphere.mantle.util.columnanalyzer.ColumnAnalyzerData;
 import io.opensphere.mantle.util.columnanalyzer.ColumnDataAnalyzer;
+import io.opensphere.mantle.util.columnanalyzer.ColumnSketch;
 import io.opensphere.mantle.util.columnanalyzer.DataTypeColumnAnalyzerDataSet;
 
 /**
@@ -103,6 +104,10 @@ public class AnalysisTask implements Runnable
                 // Also cache the column name to column index in a map for
                 // faster lookup.
                 final Map<String, ColumnDataAnalyzer> columnNameToDataAnalyzerMap = New.map();
+                final Map<String, ColumnSketch> columnNameToSketchMap = New.map();
+                // Columns whose exact unique value tracking has saturated are
+                // only sketched; the sketch answers for them from then on.
+                final Set<String> sketchOnlyColumns = New.set();
                 final TObjectIntHashMap<String> colunNameToColumnIndexMap = new TObjectIntHashMap<>(myColumnsToAnalyze.size());
                 final MetaDataInfo mdi = myDTI.getMetaDataInfo();
                 for (String column : myColumnsToAnalyze)
@@ -115,6 +120,11 @@ public class AnalysisTask implements Runnable
                         myDataSet.setAnalyzerDataForColumnKey(cad);
                     }
                     columnNameToDataAnalyzerMap.put(column, new ColumnDataAnalyzer(cad));
+                    if (cad.isUniqueValueTrackingSaturated())
+                    {
+                        sketchOnlyColumns.add(column);
+                    }
+                    columnNameToSketchMap.put(column, new ColumnSketch());
                     int colIndex = mdi.getKeyIndex(column);
                     colunNameToColumnIndexMap.put(column, colIndex);
                 }
@@ -126,8 +136,20 @@ public class AnalysisTask implements Runnable
                     @Override
                     public void finalizeQuery()
                     {
-                        myColumnsToAnalyze.stream().map(c -> columnNameToDataAnalyzerMap.get(c))
-                                .forEach(a -> a.determineColumnClassFromData());
+                        myColumnsToAnalyze.stream().filter(c -> !sketchOnlyColumns.contains(c))
+                                .map(c -> columnNameToDataAnalyzerMap.get(c)).forEach(a -> a.determineColumnClassFromData());
+
+                        // Fold this batch's sketches into the ones recorded
+                        // for earlier batches.
+                        for (Map.Entry<String, ColumnSketch> entry : columnNameToSketchMap.entrySet())
+                        {
+                            ColumnDataAnalyzer analyzer = columnNameToDataAnalyzerMap.get(entry.getKey());
+                            analyzer.getData().mergeSketch(entry.getValue());
+                            if (sketchOnlyColumns.contains(entry.getKey()))
+                            {
+                                analyzer.determineColumnClassFromData(analyzer.getData().getSketch());
+                            }
+                        }
                     }
 
                     @Override
@@ -144,7 +166,11 @@ public class AnalysisTask implements Runnable
                                 if (index < metaData.size())
                                 {
                                     Object mdValue = metaData.get(index);
-                                    analyzer.considerValue(mdValue);
+                                    if (!sketchOnlyColumns.contains(column))
+                                    {
+                                        analyzer.considerValue(mdValue);
+                                    }
+                                    columnNameToSketchMap.get(column).considerValue(mdValue);
                                 }
                             }
                         }
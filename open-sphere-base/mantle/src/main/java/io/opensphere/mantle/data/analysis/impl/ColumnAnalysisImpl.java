@@ -4,6 +4,7 @@ import io.opensphere.mantle.data.analysis.ColumnAnalysis;
 import io.opensphere.mantle.util.columnanalyzer.ColumnAnalyzerData;
 import io.opensphere.mantle.util.columnanalyzer.ColumnAnalyzerData.ColumnClass;
 import io.opensphere.mantle.util.columnanalyzer.ColumnDataAnalyzer;
+import io.opensphere.mantle.util.columnanalyzer.ColumnSketch;
 
 /**
  * The Class ColumnAnalysisImpl.
@@ -29,6 +30,15 @@ public class ColumnAnalysisImpl implements ColumnAnalysis
     /** The Is string. */
     private final boolean myIsString;
 
+    /** The sketch recorded for the column, or null. */
+    private final ColumnSketch mySketch;
+
+    /**
+     * Whether the exact unique value tracking is saturated and the sketch
+     * answers in its place.
+     */
+    private boolean mySketchAnswers;
+
     /**
      * Instantiates a new column analysis impl.
      *
@@ -38,15 +48,26 @@ public class ColumnAnalysisImpl implements ColumnAnalysis
     {
         myData = data;
         ColumnDataAnalyzer analyzer = new ColumnDataAnalyzer(data);
-        analyzer.determineColumnClassFromData();
-        ColumnClass cc = myData.getColumnClass();
-        myDetermination = myData.mustBeString() ? Determination.DETERMINED : Determination.INSUFFICENT_DATA;
+        boolean mustBeString = myData.mustBeString();
+        long numValuesConsidered = myData.getNumValuesConsidered();
+
+        // The analysis task stops feeding the exact tracker once it is
+        // saturated, so the sketch has the values considered since.
+        mySketch = myData.getSketch();
+        mySketchAnswers = myData.isUniqueValueTrackingSaturated() && mySketch != null && mySketch.getCount() > 0;
+        ColumnClass cc = analyzer.determineColumnClassFromData(mySketchAnswers ? mySketch : null);
+        if (mySketchAnswers)
+        {
+            mustBeString = cc == ColumnClass.STRING;
+            numValuesConsidered = Math.max(numValuesConsidered, mySketch.getCount());
+        }
+        myDetermination = mustBeString ? Determination.DETERMINED : Determination.INSUFFICENT_DATA;
         myDeterminedClass = String.class;
 
-        if (myData.getNumValuesConsidered() > ColumnAnalyzerData.DETERMINATION_THRESHOLD)
+        if (numValuesConsidered > ColumnAnalyzerData.DETERMINATION_THRESHOLD)
         {
             myIsEnumCandidate = analyzer.hasLessThanMaxUniqueValues();
-            myDeterminedClass = myData.mustBeString() ? String.class : cc.getRepresentativeClass();
+            myDeterminedClass = mustBeString ? String.class : cc.getRepresentativeClass();
             myDetermination = Determination.DETERMINED;
         }
         myIsString = myDeterminedClass == String.class;
@@ -66,6 +87,7 @@ public class ColumnAnalysisImpl implements ColumnAnalysis
         myIsString = isString;
         myDeterminedClass = detClass;
         myIsEnumCandidate = false;
+        mySketch = null;
     }
 
     @Override
@@ -86,9 +108,31 @@ public class ColumnAnalysisImpl implements ColumnAnalysis
         return myDeterminedClass;
     }
 
+    @Override
+    public double getMaxValue()
+    {
+        return mySketch == null ? Double.NaN : mySketch.getMaxValue();
+    }
+
+    @Override
+    public double getMinValue()
+    {
+        return mySketch == null ? Double.NaN : mySketch.getMinValue();
+    }
+
+    @Override
+    public ColumnSketch getSketch()
+    {
+        return mySketch;
+    }
+
     @Override
     public int getUniqueValueCount()
     {
+        if (mySketchAnswers)
+        {
+            return (int)Math.min(mySketch.getDistinctCountEstimate(), Integer.MAX_VALUE);
+        }
         return myData == null ? 0 : myData.getUniqueValueCount();
     }
 
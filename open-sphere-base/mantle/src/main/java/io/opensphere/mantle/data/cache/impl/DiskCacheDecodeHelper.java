@@ -2,6 +2,7 @@ package io.opensphere.mantle.data.cache.impl;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import org.apache.log4j.Logger;
@@ -27,20 +28,30 @@ public final class DiskCacheDecodeHelper
      */
     public static DynamicMetaDataList decodeDynamicMetaDataList(ObjectInputStream ois) throws IOException
     {
-        DynamicMetaDataList dmdl = null;
-        int typeHashCode = ois.readInt();
-        Class<DynamicMetaDataList> cl = DynamicMetaDataClassRegistry.getInstance().getDynamicClassForHashCode(typeHashCode);
-        try
-        {
-            dmdl = cl.getDeclaredConstructor().newInstance();
-        }
-        catch (ReflectiveOperationException e)
+        DynamicMetaDataList dmdl = createDynamicMetaDataList(ois.readInt());
+        if (dmdl != null)
         {
-            LOGGER.error("Failed to create DynamicMetaDataList", e);
+            dmdl.decode(ois);
         }
+        return dmdl;
+    }
+
+    /**
+     * Decode dynamic meta data list which was encoded in its fixed-layout
+     * binary form.
+     *
+     * @param ois the ois
+     * @return the dynamic meta data list
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static DynamicMetaDataList decodeBinaryDynamicMetaDataList(ObjectInputStream ois) throws IOException
+    {
+        DynamicMetaDataList dmdl = createDynamicMetaDataList(ois.readInt());
+        byte[] bytes = new byte[ois.readInt()];
+        ois.readFully(bytes);
         if (dmdl != null)
         {
-            dmdl.decode(ois);
+            dmdl.decode(ByteBuffer.wrap(bytes));
         }
         return dmdl;
     }
@@ -68,6 +79,10 @@ public final class DiskCacheDecodeHelper
             {
                 result.setMetaData(decodeDynamicMetaDataList(oos));
             }
+            else if (et == EncodeType.DYNAMIC_METADATALIST_BINARY)
+            {
+                result.setMetaData(decodeBinaryDynamicMetaDataList(oos));
+            }
             else
             {
                 result.setMetaData(DiskDecodeHelper.decodeMetaDataListInternal(oos));
@@ -103,10 +118,34 @@ public final class DiskCacheDecodeHelper
             {
                 return decodeDynamicMetaDataList(oos);
             }
+            else if (et == EncodeType.DYNAMIC_METADATALIST_BINARY)
+            {
+                return decodeBinaryDynamicMetaDataList(oos);
+            }
         }
         return null;
     }
 
+    /**
+     * Create an empty instance of the dynamic meta data list class for a type.
+     *
+     * @param typeHashCode the type hash code
+     * @return the dynamic meta data list, or null if it could not be created
+     */
+    private static DynamicMetaDataList createDynamicMetaDataList(int typeHashCode)
+    {
+        Class<DynamicMetaDataList> cl = DynamicMetaDataClassRegistry.getInstance().getDynamicClassForHashCode(typeHashCode);
+        try
+        {
+            return cl.getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            LOGGER.error("Failed to create DynamicMetaDataList", e);
+            return null;
+        }
+    }
+
     /**
      * Instantiates a new disk encode helper.
      */
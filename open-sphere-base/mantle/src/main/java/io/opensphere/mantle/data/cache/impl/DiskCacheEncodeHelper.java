@@ -2,6 +2,7 @@ package io.opensphere.mantle.data.cache.impl;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import io.opensphere.mantle.data.element.DynamicMetaDataList;
@@ -63,9 +64,21 @@ public final class DiskCacheEncodeHelper
      */
     private static void encodeDynamicMetaDataList(ObjectOutputStream oos, DynamicMetaDataList dmdl) throws IOException
     {
-        EncodeType.DYNAMIC_METADATALIST.encode(oos);
-        oos.writeInt(dmdl.getTypeHashCode());
-        dmdl.encode(oos);
+        if (dmdl.supportsBinaryEncoding())
+        {
+            byte[] bytes = new byte[dmdl.getEncodedSize()];
+            dmdl.encode(ByteBuffer.wrap(bytes));
+            EncodeType.DYNAMIC_METADATALIST_BINARY.encode(oos);
+            oos.writeInt(dmdl.getTypeHashCode());
+            oos.writeInt(bytes.length);
+            oos.write(bytes);
+        }
+        else
+        {
+            EncodeType.DYNAMIC_METADATALIST.encode(oos);
+            oos.writeInt(dmdl.getTypeHashCode());
+            dmdl.encode(oos);
+        }
     }
 
     /**
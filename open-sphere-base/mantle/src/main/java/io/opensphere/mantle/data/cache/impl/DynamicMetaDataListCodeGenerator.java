@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -295,6 +296,7 @@ public class DynamicMetaDataListCodeGenerator
         sb.append("import ").append(IOException.class.getName()).append(";\n");
         sb.append("import ").append(ObjectOutputStream.class.getName()).append(";\n");
         sb.append("import ").append(ObjectInputStream.class.getName()).append(";\n");
+        sb.append("import ").append(ByteBuffer.class.getName()).append(";\n");
         sb.append("import ").append(Collections.class.getName()).append(";\n");
         sb.append("import ").append(Serializable.class.getName()).append(";\n");
         sb.append("import ").append(EncodeType.class.getName()).append(";\n");
@@ -367,6 +369,10 @@ public class DynamicMetaDataListCodeGenerator
         sb.append('\n');
         generateDecodeFunction(sb);
         sb.append('\n');
+        generateBinaryCodecFunctions(sb);
+        sb.append('\n');
+        generateTypedAccessorFunctions(sb);
+        sb.append('\n');
         generateEqualsFunction(sb);
         sb.append('\n');
         generateHashCodeFunction(sb);
@@ -455,6 +461,136 @@ public class DynamicMetaDataListCodeGenerator
         return myFullClassName;
     }
 
+    /**
+     * Generate the fixed-layout binary encoding functions. The primitive
+     * fields are written first, in column order, so each has a fixed offset;
+     * the string fields follow, each preceded by its length or -1 if it is
+     * null. Lists with columns of arbitrary object types do not support the
+     * binary encoding.
+     *
+     * @param sb the sb
+     */
+    private void generateBinaryCodecFunctions(StringBuilder sb)
+    {
+        boolean supported = !myFieldNameToFieldDecleratorMap.containsValue(DecleratorType.OBJECT);
+        sb.append("  @Override\n");
+        sb.append("  public boolean supportsBinaryEncoding()\n");
+        sb.append(SINGLE_INDENT).append(OPEN_BRACKET_NEWLINE);
+        sb.append("    return ").append(supported).append(";\n");
+        sb.append(SINGLE_INDENT).append(CLOSE_BRACKET_NEWLINE);
+        sb.append('\n');
+
+        if (!supported)
+        {
+            for (String signature : new String[] { "int getEncodedSize()", "void encode(ByteBuffer buffer)",
+                "void decode(ByteBuffer buffer)" })
+            {
+                sb.append("  @Override\n");
+                sb.append("  public ").append(signature).append('\n');
+                sb.append(SINGLE_INDENT).append(OPEN_BRACKET_NEWLINE);
+                sb.append("    throw new UnsupportedOperationException(\"").append(myClassName)
+                        .append(" has object columns which cannot be binary encoded.\");\n");
+                sb.append(SINGLE_INDENT).append(CLOSE_BRACKET_NEWLINE);
+            }
+            return;
+        }
+
+        int fixedSize = 0;
+        StringBuilder encode = new StringBuilder(256);
+        StringBuilder decode = new StringBuilder(256);
+        StringBuilder size = new StringBuilder(64);
+        for (String fieldName : myFieldNameList)
+        {
+            DecleratorType decl = myFieldNameToFieldDecleratorMap.get(fieldName);
+            switch (decl)
+            {
+                case BOOLEAN:
+                    fixedSize += Byte.BYTES;
+                    encode.append("    buffer.put(").append(fieldName).append(");\n");
+                    decode.append("    ").append(fieldName).append(" = buffer.get();\n");
+                    break;
+                case DOUBLE:
+                    fixedSize += Double.BYTES;
+                    encode.append("    buffer.putDouble(").append(fieldName).append(");\n");
+                    decode.append("    ").append(fieldName).append(" = buffer.getDouble();\n");
+                    break;
+                case FLOAT:
+                    fixedSize += Float.BYTES;
+                    encode.append("    buffer.putFloat(").append(fieldName).append(");\n");
+                    decode.append("    ").append(fieldName).append(" = buffer.getFloat();\n");
+                    break;
+                case BYTE:
+                case SHORT:
+                    fixedSize += Short.BYTES;
+                    encode.append("    buffer.putShort(").append(fieldName).append(");\n");
+                    decode.append("    ").append(fieldName).append(" = buffer.getShort();\n");
+                    break;
+                case INTEGER:
+                case DYNAMIC_ENUMERATION_KEY:
+                    fixedSize += Integer.BYTES;
+                    encode.append("    buffer.putInt(").append(fieldName).append(");\n");
+                    decode.append("    ").append(fieldName).append(" = buffer.getInt();\n");
+                    break;
+                case DATE:
+                case DATE_ALT:
+                case LONG:
+                    fixedSize += Long.BYTES;
+                    encode.append("    buffer.putLong(").append(fieldName).append(");\n");
+                    decode.append("    ").append(fieldName).append(" = buffer.getLong();\n");
+                    break;
+                default:
+                    break;
+            }
+        }
+        for (String fieldName : myFieldNameList)
+        {
+            DecleratorType decl = myFieldNameToFieldDecleratorMap.get(fieldName);
+            if (decl == DecleratorType.STRING || decl == DecleratorType.BYTE_STRING)
+            {
+                fixedSize += Integer.BYTES;
+                size.append("    size += ").append(fieldName).append(" == null ? 0 : ").append(fieldName).append(".length;\n");
+                encode.append("    if (").append(fieldName).append(" == null)\n");
+                encode.append("    {\n");
+                encode.append("      buffer.putInt(-1);\n");
+                encode.append("    }\n");
+                encode.append("    else\n");
+                encode.append("    {\n");
+                encode.append("      buffer.putInt(").append(fieldName).append(".length);\n");
+                encode.append("      buffer.put(").append(fieldName).append(");\n");
+                encode.append("    }\n");
+                decode.append("    length = buffer.getInt();\n");
+                decode.append("    ").append(fieldName).append(" = length < 0 ? null : new byte[length];\n");
+                decode.append("    if (length > 0)\n");
+                decode.append("    {\n");
+                decode.append("      buffer.get(").append(fieldName).append(");\n");
+                decode.append("    }\n");
+            }
+        }
+
+        sb.append("  @Override\n");
+        sb.append("  public int getEncodedSize()\n");
+        sb.append(SINGLE_INDENT).append(OPEN_BRACKET_NEWLINE);
+        sb.append("    int size = ").append(fixedSize).append(";\n");
+        sb.append(size);
+        sb.append("    return size;\n");
+        sb.append(SINGLE_INDENT).append(CLOSE_BRACKET_NEWLINE);
+        sb.append('\n');
+
+        sb.append("  @Override\n");
+        sb.append("  public void encode(ByteBuffer buffer)\n");
+        sb.append(SINGLE_INDENT).append(OPEN_BRACKET_NEWLINE);
+        sb.append(encode);
+        sb.append(SINGLE_INDENT).append(CLOSE_BRACKET_NEWLINE);
+        sb.append('\n');
+
+        sb.append("  @Override\n");
+        sb.append("  public void decode(ByteBuffer buffer)\n");
+        sb.append(SINGLE_INDENT).append(OPEN_BRACKET_NEWLINE);
+        sb.append("    int length;\n");
+        sb.append(decode);
+        sb.append(SINGLE_INDENT).append(CLOSE_BRACKET_NEWLINE);
+    }
+
     /**
      * Generate data type info key function.
      *
@@ -825,6 +961,145 @@ public class DynamicMetaDataListCodeGenerator
         sb.append(SINGLE_INDENT).append(CLOSE_BRACKET_NEWLINE);
     }
 
+    /**
+     * Generate the typed accessors, which read the primitive fields directly
+     * rather than boxing them. Columns of arbitrary object types fall back to
+     * the boxing implementations in the super class.
+     *
+     * @param sb the sb
+     */
+    private void generateTypedAccessorFunctions(StringBuilder sb)
+    {
+        StringBuilder isNull = new StringBuilder(256);
+        StringBuilder isNumber = new StringBuilder(256);
+        StringBuilder getDouble = new StringBuilder(256);
+        StringBuilder getLong = new StringBuilder(256);
+        StringBuilder getBoolean = new StringBuilder(256);
+        for (int i = 0; i < myNumKeys; i++)
+        {
+            String fieldName = myFieldNameList.get(i);
+            DecleratorType decl = myFieldNameToFieldDecleratorMap.get(fieldName);
+            if (decl == DecleratorType.OBJECT)
+            {
+                continue;
+            }
+            String nullCheck = getNullCheck(decl, fieldName);
+            String caseLabel = "      case " + i + ": ";
+            isNull.append(caseLabel).append("return ").append(nullCheck).append(";\n");
+            switch (decl)
+            {
+                case BOOLEAN:
+                    isNumber.append(caseLabel).append("return false;\n");
+                    getDouble.append(caseLabel).append("return ").append(nullCheck).append(" ? Double.NaN : ").append(fieldName)
+                            .append(";\n");
+                    getLong.append(caseLabel).append("return ").append(nullCheck).append(" ? 0L : ").append(fieldName)
+                            .append(";\n");
+                    getBoolean.append(caseLabel).append("return ").append(fieldName).append(" == 1;\n");
+                    break;
+                case DOUBLE:
+                case FLOAT:
+                    isNumber.append(caseLabel).append("return true;\n");
+                    getDouble.append(caseLabel).append("return ").append(fieldName).append(";\n");
+                    getLong.append(caseLabel).append("return ").append(nullCheck).append(" ? 0L : (long)").append(fieldName)
+                            .append(";\n");
+                    getBoolean.append(caseLabel).append("return false;\n");
+                    break;
+                case BYTE:
+                case SHORT:
+                case INTEGER:
+                case LONG:
+                    isNumber.append(caseLabel).append("return true;\n");
+                    getDouble.append(caseLabel).append("return ").append(nullCheck).append(" ? Double.NaN : ").append(fieldName)
+                            .append(";\n");
+                    getLong.append(caseLabel).append("return ").append(nullCheck).append(" ? 0L : ").append(fieldName)
+                            .append(";\n");
+                    getBoolean.append(caseLabel).append("return false;\n");
+                    break;
+                case DATE:
+                case DATE_ALT:
+                    isNumber.append(caseLabel).append("return false;\n");
+                    getDouble.append(caseLabel).append("return ").append(nullCheck).append(" ? Double.NaN : ").append(fieldName)
+                            .append(";\n");
+                    getLong.append(caseLabel).append("return ").append(nullCheck).append(" ? 0L : ").append(fieldName)
+                            .append(";\n");
+                    getBoolean.append(caseLabel).append("return false;\n");
+                    break;
+                default:
+                    isNumber.append(caseLabel).append("return false;\n");
+                    getDouble.append(caseLabel).append("return Double.NaN;\n");
+                    getLong.append(caseLabel).append("return 0L;\n");
+                    getBoolean.append(caseLabel).append("return false;\n");
+                    break;
+            }
+        }
+
+        appendIndexSwitch(sb, "boolean isNull(int index)", isNull, "return super.isNull(index);");
+        sb.append('\n');
+        appendIndexSwitch(sb, "boolean isNumber(int index)", isNumber, "return super.isNumber(index);");
+        sb.append('\n');
+        appendIndexSwitch(sb, "double getDouble(int index)", getDouble, "return super.getDouble(index);");
+        sb.append('\n');
+        appendIndexSwitch(sb, "long getLong(int index)", getLong, "return super.getLong(index);");
+        sb.append('\n');
+        appendIndexSwitch(sb, "boolean getBoolean(int index)", getBoolean, "return super.getBoolean(index);");
+    }
+
+    /**
+     * Gets the expression which determines if a field holds the null value.
+     *
+     * @param decl the declerator type of the field
+     * @param fieldName the field name
+     * @return the expression
+     */
+    private String getNullCheck(DecleratorType decl, String fieldName)
+    {
+        switch (decl)
+        {
+            case BOOLEAN:
+                return fieldName + " == -1";
+            case DOUBLE:
+                return "Double.isNaN(" + fieldName + ")";
+            case FLOAT:
+                return "Float.isNaN(" + fieldName + ")";
+            case BYTE:
+            case SHORT:
+                return fieldName + " == Short.MIN_VALUE";
+            case INTEGER:
+                return fieldName + " == Integer.MIN_VALUE";
+            case LONG:
+                return fieldName + " == Long.MIN_VALUE";
+            case DATE:
+            case DATE_ALT:
+                return fieldName + " == -1L";
+            case DYNAMIC_ENUMERATION_KEY:
+                return fieldName + " == 0";
+            default:
+                return fieldName + " == null";
+        }
+    }
+
+    /**
+     * Append a method which switches on the index argument.
+     *
+     * @param sb the sb
+     * @param signature the method signature
+     * @param cases the cases of the switch
+     * @param defaultStatement the statement for the default case
+     */
+    private void appendIndexSwitch(StringBuilder sb, String signature, StringBuilder cases, String defaultStatement)
+    {
+        sb.append("  @Override\n");
+        sb.append("  public ").append(signature).append('\n');
+        sb.append(SINGLE_INDENT).append(OPEN_BRACKET_NEWLINE);
+        sb.append("    checkIndexForOutOfBounds(index);\n");
+        sb.append("    switch (index)\n");
+        sb.append("    {\n");
+        sb.append(cases);
+        sb.append("      default: ").append(defaultStatement).append('\n');
+        sb.append("    }\n");
+        sb.append(SINGLE_INDENT).append(CLOSE_BRACKET_NEWLINE);
+    }
+
     /**
      * Generate the method which uses a regular express to search for a integer
      * imbedded within the string.
@@ -1296,7 +1571,7 @@ public class DynamicMetaDataListCodeGenerator
         sb.append(" : val instanceof ByteString ? ((ByteString)val).getData() : ByteString.getBytes(val.toString());\n");
         genSetPortionForType(sb, "      ", DecleratorType.BYTE_STRING, "valToAssign");
         sb.append("    }\n");
-        // Object generic
+        // Object generic
         sb.append("    else\n");
         sb.append("    {\n");
         genSetPortionForType(sb, "      ", DecleratorType.OBJECT, "val");
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -19,6 +20,16 @@ public interface DynamicMetaDataList extends List<Object>, MetaDataProvider, Ser
      */
     void decode(ObjectInputStream ois) throws IOException;
 
+    /**
+     * Decode from the fixed-layout binary form written by
+     * {@link #encode(ByteBuffer)}.
+     *
+     * @param buffer the buffer, positioned at the start of the encoded list
+     * @throws UnsupportedOperationException if
+     *             {@link #supportsBinaryEncoding()} is false
+     */
+    void decode(ByteBuffer buffer);
+
     /**
      * Encode.
      *
@@ -27,6 +38,28 @@ public interface DynamicMetaDataList extends List<Object>, MetaDataProvider, Ser
      */
     void encode(ObjectOutputStream oos) throws IOException;
 
+    /**
+     * Encode to a fixed-layout binary form. The primitive columns are written
+     * first at fixed offsets, followed by the length and bytes of each string
+     * column.
+     *
+     * @param buffer the buffer, which must have at least
+     *            {@link #getEncodedSize()} bytes remaining
+     * @throws UnsupportedOperationException if
+     *             {@link #supportsBinaryEncoding()} is false
+     */
+    void encode(ByteBuffer buffer);
+
+    /**
+     * Gets the value at the specified index as a boolean without boxing it.
+     *
+     * @param index the index
+     * @return the value, or false if the column is not a boolean column or the
+     *         value is null
+     * @throws IndexOutOfBoundsException if index is out of bounds.
+     */
+    boolean getBoolean(int index);
+
     /**
      * Gets the class at the specified index.
      *
@@ -43,6 +76,47 @@ public interface DynamicMetaDataList extends List<Object>, MetaDataProvider, Ser
      */
     String getDataTypeInfoKey();
 
+    /**
+     * Gets the value at the specified index as a double without boxing it.
+     * Numeric and boolean columns are converted directly, and time columns
+     * are given in milliseconds since the epoch.
+     *
+     * @param index the index
+     * @return the value, or {@link Double#NaN} if the column is not a numeric,
+     *         boolean, or time column or the value is null
+     * @throws IndexOutOfBoundsException if index is out of bounds.
+     */
+    double getDouble(int index);
+
+    /**
+     * Gets the number of bytes written by {@link #encode(ByteBuffer)}.
+     *
+     * @return the encoded size
+     * @throws UnsupportedOperationException if
+     *             {@link #supportsBinaryEncoding()} is false
+     */
+    int getEncodedSize();
+
+    /**
+     * Gets the index of a key.
+     *
+     * @param key the key
+     * @return the index, or -1 if the key is not in this list
+     */
+    int getKeyIndex(String key);
+
+    /**
+     * Gets the value at the specified index as a long without boxing it.
+     * Floating point values are truncated, and time columns are given in
+     * milliseconds since the epoch.
+     *
+     * @param index the index
+     * @return the value, or 0 if the column is not a numeric, boolean, or time
+     *         column or the value is null
+     * @throws IndexOutOfBoundsException if index is out of bounds.
+     */
+    long getLong(int index);
+
     /**
      * Gets the hash code for the specific data type setup which is a
      * combination of the data type key, and the number and names of the
@@ -59,6 +133,26 @@ public interface DynamicMetaDataList extends List<Object>, MetaDataProvider, Ser
      */
     int getVersion();
 
+    /**
+     * Determines if the value at the specified index is null.
+     *
+     * @param index the index
+     * @return true if the value is null
+     * @throws IndexOutOfBoundsException if index is out of bounds.
+     */
+    boolean isNull(int index);
+
+    /**
+     * Determines if the column at the specified index holds numbers, meaning
+     * that {@link #get(int)} returns a {@link Number} when the value is not
+     * null, and {@link #getDouble(int)} gives the same value without boxing.
+     *
+     * @param index the index
+     * @return true if the column is numeric
+     * @throws IndexOutOfBoundsException if index is out of bounds.
+     */
+    boolean isNumber(int index);
+
     /**
      * Returns a new instance of this DynamicMetaDataList in an filled out with
      * the state of the {@link MetaDataProvider}.
@@ -92,4 +186,13 @@ public interface DynamicMetaDataList extends List<Object>, MetaDataProvider, Ser
      * @param provider the provider of the values
      */
     void setEqualTo(MetaDataProvider provider);
+
+    /**
+     * Determines if this list can be encoded with
+     * {@link #encode(ByteBuffer)}, which is not possible if it has columns of
+     * arbitrary object types.
+     *
+     * @return true if the binary encoding is supported
+     */
+    boolean supportsBinaryEncoding();
 }
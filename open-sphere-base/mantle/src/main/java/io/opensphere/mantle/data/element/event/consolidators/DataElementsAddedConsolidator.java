@@ -0,0 +1,84 @@
+package io.opensphere.mantle.data.element.event.consolidators;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import io.opensphere.core.event.Event;
+import io.opensphere.core.event.EventConsolidator;
+import io.opensphere.core.util.rangeset.DefaultRangedLongSet;
+import io.opensphere.mantle.controller.event.impl.DataElementsAddedEvent;
+import io.opensphere.mantle.data.DataTypeInfo;
+
+/**
+ * Consolidates the {@link DataElementsAddedEvent}s for one data type, source
+ * and mappability into a single event carrying all of their ids.
+ */
+public class DataElementsAddedConsolidator implements EventConsolidator<DataElementsAddedEvent>
+{
+    /** The mappability of the events added. */
+    private boolean myAreMappable;
+
+    /** The ids of the events added. */
+    private final DefaultRangedLongSet myIds = new DefaultRangedLongSet();
+
+    /** The source of the events added. */
+    private Object mySource;
+
+    /** The data type of the events added. */
+    private DataTypeInfo myType;
+
+    @Override
+    public void addEvent(DataElementsAddedEvent event)
+    {
+        if (event != null)
+        {
+            myIds.add(event.getAddedDataElementIds());
+            myType = event.getType();
+            myAreMappable = event.areMappable();
+            mySource = event.getSource();
+        }
+    }
+
+    @Override
+    public void addEvents(Collection<DataElementsAddedEvent> events)
+    {
+        if (events != null)
+        {
+            events.forEach(this::addEvent);
+        }
+    }
+
+    @Override
+    public boolean canConsolidate(DataElementsAddedEvent event)
+    {
+        return myType == null || Objects.equals(myType, event.getType()) && myAreMappable == event.areMappable()
+                && Objects.equals(mySource, event.getSource());
+    }
+
+    @Override
+    public Event createConsolidatedEvent()
+    {
+        return new DataElementsAddedEvent(myType, myIds, myAreMappable, mySource);
+    }
+
+    @Override
+    public boolean hadEvents()
+    {
+        return myType != null;
+    }
+
+    @Override
+    public EventConsolidator<DataElementsAddedEvent> newInstance()
+    {
+        return new DataElementsAddedConsolidator();
+    }
+
+    @Override
+    public void reset()
+    {
+        myIds.clear();
+        myType = null;
+        myAreMappable = false;
+        mySource = null;
+    }
+}
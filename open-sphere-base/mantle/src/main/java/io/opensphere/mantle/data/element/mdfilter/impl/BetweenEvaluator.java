@@ -52,6 +52,18 @@ public class BetweenEvaluator extends AbstractEvaluator
         myMax = max;
     }
 
+    @Override
+    public boolean evaluateNumber(double dataValue)
+    {
+        return dataValue >= myMin && dataValue < myMax;
+    }
+
+    @Override
+    public boolean isNumeric()
+    {
+        return true;
+    }
+
     @Override
     public boolean evaluate(Object dataValue)
     {
@@ -59,6 +59,18 @@ public abstract class ComparisonEvaluator extends AbstractEvaluator
      */
     public abstract boolean compareAsNumber(Number valueToEvaluate);
 
+    @Override
+    public boolean evaluateNumber(double valueToEvaluate)
+    {
+        return compareAsNumber(Double.valueOf(valueToEvaluate));
+    }
+
+    @Override
+    public boolean isNumeric()
+    {
+        return getValueAsDouble() != null;
+    }
+
     @Override
     public boolean evaluate(Object rhs)
     {
@@ -15,6 +15,7 @@ import io.opensphere.core.datafilter.DataFilterOperators.Conditional;
 import io.opensphere.core.model.time.DayOfWeek;
 import io.opensphere.core.util.collections.New;
 import io.opensphere.mantle.data.element.DataElement;
+import io.opensphere.mantle.data.element.DynamicMetaDataList;
 import io.opensphere.mantle.data.element.MetaDataProvider;
 import io.opensphere.mantle.data.impl.specialkey.TimeKey;
 import io.opensphere.mantle.util.dynenum.DynamicEnumerationKey;
@@ -99,6 +100,16 @@ public class DataFilterCriteriaEvaluator
         {
             return false;
         }
+        if (myFieldFunction == null && myEvaluator.isNumeric() && metaDataProvider instanceof DynamicMetaDataList)
+        {
+            // Compare numeric columns of generated lists without boxing.
+            DynamicMetaDataList list = (DynamicMetaDataList)metaDataProvider;
+            int index = list.getKeyIndex(myField);
+            if (index >= 0 && list.isNumber(index) && !list.isNull(index))
+            {
+                return myEvaluator.evaluateNumber(list.getDouble(index));
+            }
+        }
         Object value = metaDataProvider.getValue(myField);
         if (value instanceof DynamicEnumerationKey)
         {
@@ -20,6 +20,18 @@ public class EqualsEvaluator extends AbstractEvaluator
         super(value);
     }
 
+    @Override
+    public boolean evaluateNumber(double dataValue)
+    {
+        return getValueAsDouble().doubleValue() == dataValue;
+    }
+
+    @Override
+    public boolean isNumeric()
+    {
+        return getValueAsDouble() != null;
+    }
+
     @Override
     public boolean evaluate(Object dataValue)
     {
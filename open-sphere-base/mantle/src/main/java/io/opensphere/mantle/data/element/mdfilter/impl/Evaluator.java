@@ -13,4 +13,29 @@ public interface Evaluator
      * @return true, if successful
      */
     boolean evaluate(Object valueToEvaluate);
+
+    /**
+     * Evaluate a numeric value without boxing it. This is only used when
+     * {@link #isNumeric()} is true, in which case it must give the same result
+     * as {@link #evaluate(Object)} would for any {@link Number} with the same
+     * double value.
+     *
+     * @param valueToEvaluate the value to evaluate
+     * @return true, if successful
+     */
+    default boolean evaluateNumber(double valueToEvaluate)
+    {
+        return evaluate(Double.valueOf(valueToEvaluate));
+    }
+
+    /**
+     * Get if numeric data values may be evaluated with
+     * {@link #evaluateNumber(double)}.
+     *
+     * @return true if the evaluator supports primitive numeric evaluation
+     */
+    default boolean isNumeric()
+    {
+        return false;
+    }
 }
@@ -32,11 +32,17 @@ public class GreaterThanEvaluator extends ComparisonEvaluator
 
     @Override
     public boolean compareAsNumber(Number valueToEvaluate)
+    {
+        return evaluateNumber(valueToEvaluate.doubleValue());
+    }
+
+    @Override
+    public boolean evaluateNumber(double valueToEvaluate)
     {
         if (orEqual)
         {
-            return valueToEvaluate.doubleValue() >= getValueAsDouble().doubleValue();
+            return valueToEvaluate >= getValueAsDouble().doubleValue();
         }
-        return valueToEvaluate.doubleValue() > getValueAsDouble().doubleValue();
+        return valueToEvaluate > getValueAsDouble().doubleValue();
     }
 }
@@ -22,4 +22,16 @@ public class Inverse implements Evaluator
     {
         return !delegate.evaluate(rhs);
     }
+
+    @Override
+    public boolean evaluateNumber(double rhs)
+    {
+        return !delegate.evaluateNumber(rhs);
+    }
+
+    @Override
+    public boolean isNumeric()
+    {
+        return delegate.isNumeric();
+    }
 }
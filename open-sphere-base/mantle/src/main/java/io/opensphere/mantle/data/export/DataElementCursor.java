@@ -0,0 +1,109 @@
+package io.opensphere.mantle.data.export;
+
+import java.util.Collections;
+import java.util.List;
+
+import io.opensphere.core.Toolbox;
+import io.opensphere.core.export.ExportCursor;
+import io.opensphere.core.export.ExportException;
+import io.opensphere.core.export.StreamingExportEngine;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.mantle.data.DataTypeInfo;
+import io.opensphere.mantle.data.cache.DataElementCache;
+import io.opensphere.mantle.data.element.DataElement;
+import io.opensphere.mantle.data.util.DataElementLookupException;
+import io.opensphere.mantle.data.util.DataElementLookupUtils;
+import io.opensphere.mantle.util.MantleToolboxUtils;
+
+/**
+ * An {@link ExportCursor} over the data elements of a layer. The element ids
+ * are taken from the {@link DataElementCache} when the cursor is created, and
+ * the elements are looked up one batch at a time as the cursor advances.
+ */
+public class DataElementCursor implements ExportCursor<DataElement>
+{
+    /** The number of elements in each batch. */
+    private final int myBatchSize;
+
+    /** The ids of the elements. */
+    private final long[] myIds;
+
+    /** Looks up the elements. */
+    private final DataElementLookupUtils myLookupUtils;
+
+    /** The index of the next id to look up. */
+    private int myPosition;
+
+    /** The layer. */
+    private final DataTypeInfo myType;
+
+    /**
+     * Constructor that uses the default batch size.
+     *
+     * @param toolbox The system toolbox.
+     * @param type The layer.
+     */
+    public DataElementCursor(Toolbox toolbox, DataTypeInfo type)
+    {
+        this(MantleToolboxUtils.getMantleToolbox(toolbox).getDataElementCache(),
+                MantleToolboxUtils.getDataElementLookupUtils(toolbox), type, StreamingExportEngine.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cache The data element cache.
+     * @param lookupUtils Looks up the elements.
+     * @param type The layer.
+     * @param batchSize The number of elements in each batch.
+     */
+    public DataElementCursor(DataElementCache cache, DataElementLookupUtils lookupUtils, DataTypeInfo type, int batchSize)
+    {
+        myIds = cache.getElementIdsForTypeAsArray(type);
+        myLookupUtils = lookupUtils;
+        myType = type;
+        myBatchSize = batchSize;
+    }
+
+    @Override
+    public int getCount()
+    {
+        return myIds.length;
+    }
+
+    /**
+     * Gets the first element of the layer without advancing the cursor.
+     *
+     * @return The first element, or null if the layer has no elements.
+     */
+    public DataElement getFirst()
+    {
+        return myIds.length == 0 ? null : myLookupUtils.getDataElement(myIds[0], myType, myType.getTypeKey());
+    }
+
+    @Override
+    public List<DataElement> nextBatch() throws ExportException
+    {
+        if (myPosition >= myIds.length)
+        {
+            return Collections.emptyList();
+        }
+
+        int end = Math.min(myIds.length, myPosition + myBatchSize);
+        List<Long> ids = New.list(end - myPosition);
+        for (int index = myPosition; index < end; ++index)
+        {
+            ids.add(Long.valueOf(myIds[index]));
+        }
+        myPosition = end;
+
+        try
+        {
+            return myLookupUtils.getDataElements(ids, myType, myType.getTypeKey(), true);
+        }
+        catch (DataElementLookupException e)
+        {
+            throw new ExportException("Failed to look up elements for " + myType.getDisplayName() + ": " + e, e);
+        }
+    }
+}
@@ -1,13 +1,13 @@
 package io.opensphere.mantle.data.geom.impl;
 
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 
 import io.opensphere.core.model.GeographicBoundingBox;
 import io.opensphere.core.model.LatLonAlt;
 import io.opensphere.core.model.LineType;
+import io.opensphere.core.model.PackedLatLonAltList;
 import io.opensphere.core.projection.Projection;
 import io.opensphere.mantle.data.MapVisualizationType;
 import io.opensphere.mantle.data.geom.MapPathGeometrySupport;
@@ -29,13 +29,13 @@ public abstract class AbstractMapPathGeometrySupport extends AbstractDefaultMapG
     /** Line width. */
     private int myLineWidth = 2;
 
-    /** Location list. */
-    private final List<LatLonAlt> myLocations;
+    /** Location list, packed to avoid storing an object per location. */
+    private final PackedLatLonAltList myLocations;
 
     /** Default constructor. */
     public AbstractMapPathGeometrySupport()
     {
-        myLocations = new LinkedList<>();
+        myLocations = new PackedLatLonAltList();
     }
 
     /**
@@ -46,9 +46,7 @@ public abstract class AbstractMapPathGeometrySupport extends AbstractDefaultMapG
     public AbstractMapPathGeometrySupport(AbstractMapPathGeometrySupport source)
     {
         super(source);
-        myLocations = new LinkedList<>();
-        // TODO need to create copies of the locations as well?
-        myLocations.addAll(source.myLocations);
+        myLocations = PackedLatLonAltList.copyOf(source.myLocations);
         myLineType = source.myLineType;
         myLineWidth = source.myLineWidth;
     }
@@ -84,7 +82,7 @@ public abstract class AbstractMapPathGeometrySupport extends AbstractDefaultMapG
      */
     public AbstractMapPathGeometrySupport(List<? extends LatLonAlt> locations)
     {
-        myLocations = new LinkedList<>(locations);
+        myLocations = PackedLatLonAltList.copyOf(locations);
     }
 
     /**
@@ -107,7 +105,7 @@ public abstract class AbstractMapPathGeometrySupport extends AbstractDefaultMapG
      */
     public AbstractMapPathGeometrySupport(List<LatLonAlt> locations, int lineWidth, LineType type)
     {
-        myLocations = new LinkedList<>(locations);
+        myLocations = PackedLatLonAltList.copyOf(locations);
         myLineWidth = lineWidth;
         myLineType = type == null ? LineType.STRAIGHT_LINE : type;
     }
@@ -1,13 +1,13 @@
 package io.opensphere.mantle.data.geom.impl;
 
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 
 import io.opensphere.core.model.GeographicBoundingBox;
 import io.opensphere.core.model.LatLonAlt;
 import io.opensphere.core.model.LineType;
+import io.opensphere.core.model.PackedLatLonAltList;
 import io.opensphere.core.projection.Projection;
 import io.opensphere.mantle.data.MapVisualizationType;
 import io.opensphere.mantle.data.geom.MapPathGeometrySupport;
@@ -27,13 +27,13 @@ public abstract class AbstractSimpleMapPathGeometrySupport extends AbstractSimpl
     /** Line width. */
     private int myLineWidth = 2;
 
-    /** Location list. */
-    private final List<LatLonAlt> myLocations;
+    /** Location list, packed to avoid storing an object per location. */
+    private final PackedLatLonAltList myLocations;
 
     /** Default constructor. */
     public AbstractSimpleMapPathGeometrySupport()
     {
-        myLocations = new LinkedList<>();
+        myLocations = new PackedLatLonAltList();
     }
 
     /**
@@ -47,8 +47,7 @@ public abstract class AbstractSimpleMapPathGeometrySupport extends AbstractSimpl
         myLineType = source.myLineType;
         myLineWidth = source.myLineWidth;
 
-        // TODO make this a deep copy:
-        myLocations = new LinkedList<>(source.myLocations);
+        myLocations = PackedLatLonAltList.copyOf(source.myLocations);
     }
 
     /**
@@ -82,7 +81,7 @@ public abstract class AbstractSimpleMapPathGeometrySupport extends AbstractSimpl
      */
     public AbstractSimpleMapPathGeometrySupport(List<? extends LatLonAlt> locations)
     {
-        myLocations = new LinkedList<>(locations);
+        myLocations = PackedLatLonAltList.copyOf(locations);
     }
 
     /**
@@ -106,7 +105,7 @@ public abstract class AbstractSimpleMapPathGeometrySupport extends AbstractSimpl
      */
     public AbstractSimpleMapPathGeometrySupport(List<? extends LatLonAlt> locations, int lineWidth, LineType type)
     {
-        myLocations = new LinkedList<>(locations);
+        myLocations = PackedLatLonAltList.copyOf(locations);
         myLineWidth = lineWidth;
         myLineType = type == null ? LineType.STRAIGHT_LINE : type;
     }
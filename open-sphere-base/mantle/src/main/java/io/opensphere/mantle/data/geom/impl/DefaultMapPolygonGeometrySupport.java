@@ -2,9 +2,11 @@ package io.opensphere.mantle.data.geom.impl;
 
 import java.awt.Color;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.model.PackedLatLonAltList;
 import io.opensphere.core.util.collections.New;
 import io.opensphere.mantle.data.MapVisualizationType;
 import io.opensphere.mantle.data.geom.MapGeometrySupport;
@@ -71,7 +73,7 @@ public class DefaultMapPolygonGeometrySupport extends AbstractMapPathGeometrySup
         {
             for (List<? extends LatLonAlt> hole : holes)
             {
-                myHoles.add(New.unmodifiableList(hole));
+                myHoles.add(Collections.unmodifiableList(PackedLatLonAltList.copyOf(hole)));
             }
         }
     }
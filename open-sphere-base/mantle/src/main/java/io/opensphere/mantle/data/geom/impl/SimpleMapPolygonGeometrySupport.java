@@ -2,9 +2,11 @@ package io.opensphere.mantle.data.geom.impl;
 
 import java.awt.Color;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.model.PackedLatLonAltList;
 import io.opensphere.core.util.collections.New;
 import io.opensphere.mantle.data.MapVisualizationType;
 import io.opensphere.mantle.data.geom.MapPolygonGeometrySupport;
@@ -69,7 +71,7 @@ public class SimpleMapPolygonGeometrySupport extends AbstractSimpleMapPathGeomet
         {
             for (List<? extends LatLonAlt> hole : holes)
             {
-                myHoles.add(New.unmodifiableList(hole));
+                myHoles.add(Collections.unmodifiableList(PackedLatLonAltList.copyOf(hole)));
             }
         }
     }
@@ -2,9 +2,11 @@ package io.opensphere.mantle.data.impl;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -98,6 +100,74 @@ public abstract class AbstractDynamicMetaDataList implements DynamicMetaDataList
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void decode(ByteBuffer buffer)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void encode(ByteBuffer buffer)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean getBoolean(int index)
+    {
+        return Boolean.TRUE.equals(get(index));
+    }
+
+    @Override
+    public double getDouble(int index)
+    {
+        Object value = get(index);
+        if (value instanceof Number)
+        {
+            return ((Number)value).doubleValue();
+        }
+        else if (value instanceof Boolean)
+        {
+            return ((Boolean)value).booleanValue() ? 1. : 0.;
+        }
+        else if (value instanceof Date)
+        {
+            return ((Date)value).getTime();
+        }
+        return Double.NaN;
+    }
+
+    @Override
+    public int getEncodedSize()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getKeyIndex(String key)
+    {
+        return getKeys().indexOf(key);
+    }
+
+    @Override
+    public long getLong(int index)
+    {
+        Object value = get(index);
+        if (value instanceof Number)
+        {
+            return ((Number)value).longValue();
+        }
+        else if (value instanceof Boolean)
+        {
+            return ((Boolean)value).booleanValue() ? 1L : 0L;
+        }
+        else if (value instanceof Date)
+        {
+            return ((Date)value).getTime();
+        }
+        return 0L;
+    }
+
     @Override
     public int indexOf(Object arg0)
     {
@@ -110,6 +180,18 @@ public abstract class AbstractDynamicMetaDataList implements DynamicMetaDataList
         return false;
     }
 
+    @Override
+    public boolean isNull(int index)
+    {
+        return get(index) == null;
+    }
+
+    @Override
+    public boolean isNumber(int index)
+    {
+        return Number.class.isAssignableFrom(getClass(index));
+    }
+
     @Override
     public Iterator<Object> iterator()
     {
@@ -229,6 +311,12 @@ public abstract class AbstractDynamicMetaDataList implements DynamicMetaDataList
         return result;
     }
 
+    @Override
+    public boolean supportsBinaryEncoding()
+    {
+        return false;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <T> T[] toArray(T[] arg0)
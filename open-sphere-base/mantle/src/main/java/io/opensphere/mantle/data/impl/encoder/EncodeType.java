@@ -67,6 +67,9 @@ public enum EncodeType
     /** DYNAMIC_METADATALIST. */
     DYNAMIC_METADATALIST(100),
 
+    /** DYNAMIC_METADATALIST in its fixed-layout binary form. */
+    DYNAMIC_METADATALIST_BINARY(103),
+
     /** The FLOAT. */
     FLOAT_OBJ(11),
 
@@ -9,6 +9,8 @@ import io.opensphere.core.util.lang.StringUtilities;
 import io.opensphere.mantle.MantleToolbox;
 import io.opensphere.mantle.controller.DataGroupController;
 import io.opensphere.mantle.controller.DataTypeController;
+import io.opensphere.mantle.controller.event.AbstractDataTypeControllerEvent;
+import io.opensphere.mantle.controller.event.impl.DataElementsAddedEvent;
 import io.opensphere.mantle.controller.impl.DataGroupControllerImpl;
 import io.opensphere.mantle.controller.impl.DataTypeControllerImpl;
 import io.opensphere.mantle.data.ColumnTypeDetector;
@@ -22,6 +24,7 @@ import io.opensphere.mantle.data.columns.gui.ColumnMappingOptionsProvider;
 import io.opensphere.mantle.data.columns.gui.ColumnMappingResourcesImpl;
 import io.opensphere.mantle.data.dynmeta.DynamicDataElementMetadataManager;
 import io.opensphere.mantle.data.dynmeta.impl.DynamicMetadataManagerImpl;
+import io.opensphere.mantle.data.element.event.consolidators.DataElementsAddedConsolidator;
 import io.opensphere.mantle.data.geom.factory.MapGeometrySupportConverterRegistry;
 import io.opensphere.mantle.data.geom.factory.impl.MapGeometrySupportConverterRegistryImpl;
 import io.opensphere.mantle.data.geom.style.VisualizationStyleController;
@@ -135,6 +138,8 @@ public class MantleToolboxImpl implements MantleToolbox
         AbstractDynamicMetaDataList.setDynamicEnumRegistry(myDynamicEnumerationRegistry);
         myDataElementCache = new DataElementCacheImpl(aToolbox, MantleCacheUtils.getElementCacheConfiguration(pluginProperties),
                 (DynamicMetadataManagerImpl)myDynamicColumnManager, myDynamicEnumerationRegistry);
+        aToolbox.getEventManager().setConsolidator(DataElementsAddedEvent.class, new DataElementsAddedConsolidator(),
+                AbstractDataTypeControllerEvent.class);
         myColumnTypeDetector = new ColumnTypeDetectorImpl();
         myDataTypeController = new DataTypeControllerImpl(aToolbox, (DataElementCacheImpl)myDataElementCache,
                 myColumnTypeDetector);
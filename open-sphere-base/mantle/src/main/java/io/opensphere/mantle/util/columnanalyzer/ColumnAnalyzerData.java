@@ -1,5 +1,6 @@
 package io.opensphere.mantle.util.columnanalyzer;
 
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Set;
 
@@ -75,6 +76,10 @@ public class ColumnAnalyzerData
     @XmlAttribute(name = "longCount")
     private int myLongCount;
 
+    /** The encoded {@link ColumnSketch} for the column. */
+    @XmlElement(name = "sketch", required = false)
+    private byte[] mySketch;
+
     /** The number of values considered. */
     @XmlElement(name = "numValsConsidered")
     private int myNumValuesConsidered;
@@ -181,7 +186,7 @@ public class ColumnAnalyzerData
                 && myDoubleCount == other.myDoubleCount && myFloatCount == other.myFloatCount && myIntCount == other.myIntCount
                 && myLongCount == other.myLongCount && myNumValuesConsidered == other.myNumValuesConsidered
                 && myTotalValuesProcessed == other.myTotalValuesProcessed && myUniqueValueCount == other.myUniqueValueCount
-                && Objects.equals(myUniqueValuesSet, other.myUniqueValuesSet);
+                && Objects.equals(myUniqueValuesSet, other.myUniqueValuesSet) && Arrays.equals(mySketch, other.mySketch);
     }
 
     /**
@@ -264,6 +269,16 @@ public class ColumnAnalyzerData
         return myNumValuesConsidered;
     }
 
+    /**
+     * Decodes the sketch of the values seen in this column.
+     *
+     * @return the sketch, or null if no sketch has been recorded
+     */
+    public ColumnSketch getSketch()
+    {
+        return ColumnSketch.fromBytes(mySketch);
+    }
+
     /**
      * Gets the total values processed.
      *
@@ -326,6 +341,7 @@ public class ColumnAnalyzerData
         result = prime * result + myUniqueValueCount;
         result = prime * result + HashCodeHelper.getHashCode(myTypeName);
         result = prime * result + HashCodeHelper.getHashCode(myUniqueValuesSet);
+        result = prime * result + Arrays.hashCode(mySketch);
         return result;
     }
 
@@ -453,6 +469,38 @@ public class ColumnAnalyzerData
         return myColumnClass == ColumnClass.STRING;
     }
 
+    /**
+     * Checks if the exact unique value tracking has exceeded its threshold and
+     * stopped tracking values. Once it has, the recorded sketch answers for
+     * the values considered since.
+     *
+     * @return true, if the unique value tracking is saturated
+     */
+    public boolean isUniqueValueTrackingSaturated()
+    {
+        return myUniqueValueCount == MAX_UNIQUE_REACHED;
+    }
+
+    /**
+     * Merges a sketch of newly considered values into the sketch recorded for
+     * this column.
+     *
+     * @param sketch the sketch to merge
+     */
+    public void mergeSketch(ColumnSketch sketch)
+    {
+        ColumnSketch merged = getSketch();
+        if (merged == null)
+        {
+            merged = sketch;
+        }
+        else
+        {
+            merged.merge(sketch);
+        }
+        mySketch = merged.toBytes();
+    }
+
     /**
      * Must be string if values have been considered and none-were convertible
      * to boolean or any other numeric type.
@@ -578,6 +626,7 @@ public class ColumnAnalyzerData
         myTotalValuesProcessed = other.myTotalValuesProcessed;
         myUniqueValueCount = other.myUniqueValueCount;
         myUniqueValuesSet = New.set(other.myUniqueValuesSet);
+        mySketch = other.mySketch == null ? null : other.mySketch.clone();
     }
 
     /**
@@ -674,6 +723,11 @@ public class ColumnAnalyzerData
                 .append("\n" + "   Bool  : ").append(myAllBooleans ? "ALL" : "NOT_ALL").append(" Count: ").append(myBooleanCount)
                 .append('\n');
         uniqueValuesToString(sb);
+        ColumnSketch sketch = getSketch();
+        if (sketch != null)
+        {
+            sb.append("\n   ").append(sketch);
+        }
         return sb.toString();
     }
 
@@ -685,8 +739,8 @@ public class ColumnAnalyzerData
     private void uniqueValuesToString(StringBuilder sb)
     {
         sb.append("   Unique Values: Count: ").append(
-                getUniqueValueCount() == 1000 ? "COUNT EXCEEDS TRACKING THRESHOLD" : Integer.valueOf(getUniqueValueCount()));
-        if (getUniqueValueCount() > 0 && getUniqueValueCount() != 1000)
+                isUniqueValueTrackingSaturated() ? "COUNT EXCEEDS TRACKING THRESHOLD" : Integer.valueOf(getUniqueValueCount()));
+        if (getUniqueValueCount() > 0 && !isUniqueValueTrackingSaturated())
         {
             sb.append('\n');
             StringBuilder sb2 = null;
@@ -785,5 +839,32 @@ public class ColumnAnalyzerData
         {
             return myClass;
         }
+
+        /**
+         * Gets the narrowest column class that can represent the values of
+         * both this class and another.
+         *
+         * @param other the other column class
+         * @return the widened column class
+         */
+        public ColumnClass widen(ColumnClass other)
+        {
+            if (this == other)
+            {
+                return this;
+            }
+            if (this == BOOLEAN || other == BOOLEAN || this == STRING || other == STRING)
+            {
+                return STRING;
+            }
+            for (ColumnClass numeric : new ColumnClass[] { DOUBLE, FLOAT, LONG })
+            {
+                if (this == numeric || other == numeric)
+                {
+                    return numeric;
+                }
+            }
+            return INTEGER;
+        }
     }
 }
@@ -181,6 +181,26 @@ public class ColumnDataAnalyzer
         return myData.getColumnClass();
     }
 
+    /**
+     * Gets the column class from the data, widened to cover the values in a
+     * sketch. The sketch answers for the values considered after the exact
+     * unique value tracking saturated, which are no longer given to this
+     * analyzer.
+     *
+     * @param sketch the sketch, or null
+     * @return the column class
+     */
+    public ColumnClass determineColumnClassFromData(ColumnSketch sketch)
+    {
+        ColumnClass columnClass = determineColumnClassFromData();
+        if (sketch != null && sketch.getCount() > 0)
+        {
+            ColumnClass sketched = sketch.getDeterminedColumnClass();
+            myData.setColumnClass(myData.getNumValuesConsidered() > 0 ? columnClass.widen(sketched) : sketched);
+        }
+        return myData.getColumnClass();
+    }
+
     /**
      * Gets the column name.
      *
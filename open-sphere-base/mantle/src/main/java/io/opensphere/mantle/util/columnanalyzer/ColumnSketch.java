@@ -0,0 +1,606 @@
+package io.opensphere.mantle.util.columnanalyzer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.opensphere.mantle.util.columnanalyzer.ColumnAnalyzerData.ColumnClass;
+
+/**
+ * A mergeable, fixed-size summary of the values seen in a single column. The
+ * sketch tracks an approximate distinct count (HyperLogLog), numeric and
+ * lexical min/max, a histogram of the detected value types, and the most
+ * frequent values (Space-Saving).
+ * <p>
+ * A sketch may be updated incrementally as elements arrive, and sketches built
+ * for separate batches (or on separate threads) may be combined with
+ * {@link #merge(ColumnSketch)}. The sketch is not thread safe; each worker
+ * should update its own instance and merge the results.
+ */
+public class ColumnSketch
+{
+    /** The HyperLogLog precision (number of index bits). */
+    private static final int HLL_PRECISION = 11;
+
+    /** The number of HyperLogLog registers. */
+    private static final int HLL_REGISTERS = 1 << HLL_PRECISION;
+
+    /** The maximum number of values tracked by the top-k summary. */
+    public static final int TOP_K_CAPACITY = 32;
+
+    /** The version of the binary encoding. */
+    private static final byte VERSION = 1;
+
+    /** The number of string values considered. */
+    private long myCount;
+
+    /** The number of null or empty values seen. */
+    private long myEmptyCount;
+
+    /** The HyperLogLog registers. */
+    private final byte[] myRegisters = new byte[HLL_REGISTERS];
+
+    /** The lexically greatest value. */
+    private String myMaxString;
+
+    /** The maximum numeric value, NaN if no numeric values have been seen. */
+    private double myMaxValue = Double.NaN;
+
+    /** The lexically least value. */
+    private String myMinString;
+
+    /** The minimum numeric value, NaN if no numeric values have been seen. */
+    private double myMinValue = Double.NaN;
+
+    /**
+     * The top-k counters, each value maps to a two element array of {count,
+     * error}.
+     */
+    private final Map<String, long[]> myTopK = new LinkedHashMap<>();
+
+    /** Counts of values by detected type, indexed by ColumnClass ordinal. */
+    private final long[] myTypeCounts = new long[ColumnClass.values().length];
+
+    /**
+     * Decodes a sketch from the form produced by {@link #toBytes()}.
+     *
+     * @param bytes the encoded sketch
+     * @return the decoded sketch, or null if the bytes are null or not a valid
+     *         encoding
+     */
+    public static ColumnSketch fromBytes(byte[] bytes)
+    {
+        if (bytes == null || bytes.length == 0)
+        {
+            return null;
+        }
+        ColumnSketch sketch = new ColumnSketch();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes)))
+        {
+            if (in.readByte() != VERSION)
+            {
+                return null;
+            }
+            sketch.myCount = in.readLong();
+            sketch.myEmptyCount = in.readLong();
+            int typeCount = in.readUnsignedByte();
+            for (int i = 0; i < typeCount; ++i)
+            {
+                long value = in.readLong();
+                if (i < sketch.myTypeCounts.length)
+                {
+                    sketch.myTypeCounts[i] = value;
+                }
+            }
+            sketch.myMinValue = in.readDouble();
+            sketch.myMaxValue = in.readDouble();
+            sketch.myMinString = in.readBoolean() ? in.readUTF() : null;
+            sketch.myMaxString = in.readBoolean() ? in.readUTF() : null;
+            readRegisters(in, sketch.myRegisters);
+            int topKSize = in.readUnsignedByte();
+            for (int i = 0; i < topKSize; ++i)
+            {
+                String value = in.readUTF();
+                sketch.myTopK.put(value, new long[] { in.readLong(), in.readLong() });
+            }
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+        return sketch;
+    }
+
+    /**
+     * Computes a well distributed 64-bit hash of a string.
+     *
+     * @param value the value
+     * @return the hash
+     */
+    static long hash64(String value)
+    {
+        // FNV-1a over the UTF-16 code units, finished with the MurmurHash3
+        // 64-bit avalanche so that the high bits are well mixed.
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); ++i)
+        {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Classifies a non-empty value using the same precedence as
+     * {@link ColumnDataAnalyzer#determineColumnClassFromData()}.
+     *
+     * @param value the value
+     * @return the narrowest column class that can represent the value
+     */
+    static ColumnClass classify(String value)
+    {
+        char first = value.charAt(0);
+        if (first >= '0' && first <= '9' || first == '-' || first == '+' || first == '.')
+        {
+            try
+            {
+                long longValue = Long.parseLong(value);
+                return longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE ? ColumnClass.INTEGER
+                        : ColumnClass.LONG;
+            }
+            catch (NumberFormatException e)
+            {
+                try
+                {
+                    double doubleValue = Double.parseDouble(value);
+                    if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue))
+                    {
+                        return ColumnClass.STRING;
+                    }
+                    return Float.isInfinite((float)doubleValue) ? ColumnClass.DOUBLE : ColumnClass.FLOAT;
+                }
+                catch (NumberFormatException e2)
+                {
+                    return ColumnClass.STRING;
+                }
+            }
+        }
+        return "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value) ? ColumnClass.BOOLEAN : ColumnClass.STRING;
+    }
+
+    /**
+     * Reads the HyperLogLog registers, which are written either densely or as
+     * (index, value) pairs depending on which is smaller.
+     *
+     * @param in the input
+     * @param registers the registers to populate
+     * @throws IOException if the input cannot be read
+     */
+    private static void readRegisters(DataInputStream in, byte[] registers) throws IOException
+    {
+        int nonZero = in.readUnsignedShort();
+        if (nonZero == registers.length)
+        {
+            in.readFully(registers);
+        }
+        else
+        {
+            for (int i = 0; i < nonZero; ++i)
+            {
+                int index = in.readUnsignedShort();
+                registers[index] = in.readByte();
+            }
+        }
+    }
+
+    /**
+     * Considers a value, updating all of the statistics.
+     *
+     * @param obj the value, may be null
+     */
+    public void considerValue(Object obj)
+    {
+        String value = obj == null ? null : obj.toString();
+        if (value == null || value.isEmpty())
+        {
+            myEmptyCount++;
+            return;
+        }
+        myCount++;
+
+        long hash = hash64(value);
+        int index = (int)(hash >>> 64 - HLL_PRECISION);
+        int rank = Long.numberOfLeadingZeros(hash << HLL_PRECISION | 1L << HLL_PRECISION - 1) + 1;
+        if (rank > myRegisters[index])
+        {
+            myRegisters[index] = (byte)rank;
+        }
+
+        ColumnClass type = obj instanceof Boolean ? ColumnClass.BOOLEAN : classify(value);
+        myTypeCounts[type.ordinal()]++;
+        if (type != ColumnClass.STRING && type != ColumnClass.BOOLEAN)
+        {
+            double number = obj instanceof Number ? ((Number)obj).doubleValue() : Double.parseDouble(value);
+            myMinValue = Double.isNaN(myMinValue) ? number : Math.min(myMinValue, number);
+            myMaxValue = Double.isNaN(myMaxValue) ? number : Math.max(myMaxValue, number);
+        }
+        if (myMinString == null || value.compareTo(myMinString) < 0)
+        {
+            myMinString = value;
+        }
+        if (myMaxString == null || value.compareTo(myMaxString) > 0)
+        {
+            myMaxString = value;
+        }
+
+        offerTopK(value, 1, 0);
+    }
+
+    /**
+     * Gets the estimated number of distinct non-empty values.
+     *
+     * @return the distinct count estimate
+     */
+    public long getDistinctCountEstimate()
+    {
+        double sum = 0.;
+        int zeros = 0;
+        for (byte register : myRegisters)
+        {
+            sum += 1. / (1L << register);
+            if (register == 0)
+            {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1. + 1.079 / HLL_REGISTERS);
+        double estimate = alpha * HLL_REGISTERS * HLL_REGISTERS / sum;
+        if (estimate <= 2.5 * HLL_REGISTERS && zeros > 0)
+        {
+            estimate = HLL_REGISTERS * Math.log((double)HLL_REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Gets the number of null or empty values seen.
+     *
+     * @return the empty count
+     */
+    public long getEmptyCount()
+    {
+        return myEmptyCount;
+    }
+
+    /**
+     * Gets the lexically greatest value seen.
+     *
+     * @return the max string, or null if no values have been seen
+     */
+    public String getMaxString()
+    {
+        return myMaxString;
+    }
+
+    /**
+     * Gets the maximum numeric value seen.
+     *
+     * @return the max value, or NaN if no numeric values have been seen
+     */
+    public double getMaxValue()
+    {
+        return myMaxValue;
+    }
+
+    /**
+     * Gets the lexically least value seen.
+     *
+     * @return the min string, or null if no values have been seen
+     */
+    public String getMinString()
+    {
+        return myMinString;
+    }
+
+    /**
+     * Gets the minimum numeric value seen.
+     *
+     * @return the min value, or NaN if no numeric values have been seen
+     */
+    public double getMinValue()
+    {
+        return myMinValue;
+    }
+
+    /**
+     * Gets the most frequent values with their estimated counts, in descending
+     * order of count. The counts are over-estimates by at most the count of
+     * the least frequent tracked value.
+     *
+     * @param k the maximum number of values to return
+     * @return the top values
+     */
+    public List<Map.Entry<String, Long>> getTopValues(int k)
+    {
+        List<Map.Entry<String, Long>> result = new ArrayList<>(myTopK.size());
+        for (Map.Entry<String, long[]> entry : myTopK.entrySet())
+        {
+            result.add(Map.entry(entry.getKey(), Long.valueOf(entry.getValue()[0])));
+        }
+        result.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    /**
+     * Gets the number of non-empty values considered.
+     *
+     * @return the count
+     */
+    public long getCount()
+    {
+        return myCount;
+    }
+
+    /**
+     * Gets the number of values that were detected as the given type.
+     *
+     * @param columnClass the column class
+     * @return the count for that type
+     */
+    public long getTypeCount(ColumnClass columnClass)
+    {
+        return myTypeCounts[columnClass.ordinal()];
+    }
+
+    /**
+     * Determines the narrowest column class that can represent every value
+     * seen, following the histogram rather than a full re-scan.
+     *
+     * @return the column class
+     */
+    public ColumnClass getDeterminedColumnClass()
+    {
+        long booleans = getTypeCount(ColumnClass.BOOLEAN);
+        long ints = getTypeCount(ColumnClass.INTEGER);
+        long longs = ints + getTypeCount(ColumnClass.LONG);
+        long floats = longs + getTypeCount(ColumnClass.FLOAT);
+        long doubles = floats + getTypeCount(ColumnClass.DOUBLE);
+        ColumnClass result = ColumnClass.STRING;
+        if (myCount > 0)
+        {
+            if (booleans == myCount)
+            {
+                result = ColumnClass.BOOLEAN;
+            }
+            else if (ints == myCount)
+            {
+                result = ColumnClass.INTEGER;
+            }
+            else if (longs == myCount)
+            {
+                result = ColumnClass.LONG;
+            }
+            else if (floats == myCount)
+            {
+                result = ColumnClass.FLOAT;
+            }
+            else if (doubles == myCount)
+            {
+                result = ColumnClass.DOUBLE;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merges another sketch into this one. The result is the same as if this
+     * sketch had considered all of the values considered by the other, except
+     * that the top-k counts remain approximate.
+     *
+     * @param other the other sketch
+     */
+    public void merge(ColumnSketch other)
+    {
+        if (other == null || other == this)
+        {
+            return;
+        }
+        myCount += other.myCount;
+        myEmptyCount += other.myEmptyCount;
+        for (int i = 0; i < HLL_REGISTERS; ++i)
+        {
+            if (other.myRegisters[i] > myRegisters[i])
+            {
+                myRegisters[i] = other.myRegisters[i];
+            }
+        }
+        for (int i = 0; i < myTypeCounts.length; ++i)
+        {
+            myTypeCounts[i] += other.myTypeCounts[i];
+        }
+        if (!Double.isNaN(other.myMinValue))
+        {
+            myMinValue = Double.isNaN(myMinValue) ? other.myMinValue : Math.min(myMinValue, other.myMinValue);
+            myMaxValue = Double.isNaN(myMaxValue) ? other.myMaxValue : Math.max(myMaxValue, other.myMaxValue);
+        }
+        if (other.myMinString != null && (myMinString == null || other.myMinString.compareTo(myMinString) < 0))
+        {
+            myMinString = other.myMinString;
+        }
+        if (other.myMaxString != null && (myMaxString == null || other.myMaxString.compareTo(myMaxString) > 0))
+        {
+            myMaxString = other.myMaxString;
+        }
+        for (Map.Entry<String, long[]> entry : other.myTopK.entrySet())
+        {
+            offerTopK(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+    }
+
+    /**
+     * Encodes the sketch in a compact binary form suitable for persistence.
+     *
+     * @return the encoded sketch
+     */
+    public byte[] toBytes()
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(baos))
+        {
+            out.writeByte(VERSION);
+            out.writeLong(myCount);
+            out.writeLong(myEmptyCount);
+            out.writeByte(myTypeCounts.length);
+            for (long typeCount : myTypeCounts)
+            {
+                out.writeLong(typeCount);
+            }
+            out.writeDouble(myMinValue);
+            out.writeDouble(myMaxValue);
+            writeOptionalString(out, myMinString);
+            writeOptionalString(out, myMaxString);
+            writeRegisters(out);
+            out.writeByte(myTopK.size());
+            for (Map.Entry<String, long[]> entry : myTopK.entrySet())
+            {
+                out.writeUTF(truncate(entry.getKey()));
+                out.writeLong(entry.getValue()[0]);
+                out.writeLong(entry.getValue()[1]);
+            }
+        }
+        catch (IOException e)
+        {
+            // Writing to a byte array cannot fail.
+            throw new IllegalStateException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("ColumnSketch: Count[").append(myCount).append("] Empty[").append(myEmptyCount).append("] Distinct~[")
+                .append(getDistinctCountEstimate()).append("] Class[").append(getDeterminedColumnClass()).append(']');
+        if (!Double.isNaN(myMinValue))
+        {
+            sb.append(" Range[").append(myMinValue).append(", ").append(myMaxValue).append(']');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Adds counts for a value to the Space-Saving summary. When the summary
+     * is full the least frequent value is evicted and its count inherited as
+     * error by the new value.
+     *
+     * @param value the value
+     * @param count the count to add
+     * @param error the error of the count
+     */
+    private void offerTopK(String value, long count, long error)
+    {
+        long[] counter = myTopK.get(value);
+        if (counter != null)
+        {
+            counter[0] += count;
+            counter[1] += error;
+        }
+        else if (myTopK.size() < TOP_K_CAPACITY)
+        {
+            myTopK.put(value, new long[] { count, error });
+        }
+        else
+        {
+            Map.Entry<String, long[]> min = null;
+            for (Map.Entry<String, long[]> entry : myTopK.entrySet())
+            {
+                if (min == null || entry.getValue()[0] < min.getValue()[0])
+                {
+                    min = entry;
+                }
+            }
+            long minCount = min.getValue()[0];
+            myTopK.remove(min.getKey());
+            myTopK.put(value, new long[] { minCount + count, minCount + error });
+        }
+    }
+
+    /**
+     * Truncates a value so that it can be written with
+     * {@link DataOutputStream#writeUTF(String)}.
+     *
+     * @param value the value
+     * @return the possibly truncated value
+     */
+    private static String truncate(String value)
+    {
+        // At most three bytes per char keeps this well within the 64K limit.
+        final int maxChars = 1024;
+        return value.length() > maxChars ? value.substring(0, maxChars) : value;
+    }
+
+    /**
+     * Writes a string preceded by a presence flag.
+     *
+     * @param out the output
+     * @param value the value, may be null
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeOptionalString(DataOutputStream out, String value) throws IOException
+    {
+        out.writeBoolean(value != null);
+        if (value != null)
+        {
+            out.writeUTF(truncate(value));
+        }
+    }
+
+    /**
+     * Writes the HyperLogLog registers, sparsely if fewer than a third of them
+     * are set.
+     *
+     * @param out the output
+     * @throws IOException if the output cannot be written
+     */
+    private void writeRegisters(DataOutputStream out) throws IOException
+    {
+        int nonZero = 0;
+        for (byte register : myRegisters)
+        {
+            if (register != 0)
+            {
+                nonZero++;
+            }
+        }
+        if (nonZero * 3 >= HLL_REGISTERS)
+        {
+            out.writeShort(HLL_REGISTERS);
+            out.write(myRegisters);
+        }
+        else
+        {
+            out.writeShort(nonZero);
+            for (int i = 0; i < HLL_REGISTERS; ++i)
+            {
+                if (myRegisters[i] != 0)
+                {
+                    out.writeShort(i);
+                    out.writeByte(myRegisters[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.opensphere.mantle.data.analysis.impl;
+
+import java.util.function.IntFunction;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.mantle.data.analysis.ColumnAnalysis.Determination;
+import io.opensphere.mantle.util.columnanalyzer.ColumnAnalyzerData;
+import io.opensphere.mantle.util.columnanalyzer.ColumnDataAnalyzer;
+import io.opensphere.mantle.util.columnanalyzer.ColumnSketch;
+
+/** Tests for {@link ColumnAnalysisImpl}. */
+public class ColumnAnalysisImplTest
+{
+    /** Tests a column with few distinct values, which is answered exactly. */
+    @Test
+    public void testExact()
+    {
+        ColumnAnalysisImpl analysis = new ColumnAnalysisImpl(analyze(20000, i -> Integer.valueOf(i % 10)));
+
+        Assert.assertEquals(Determination.DETERMINED, analysis.getDetermination());
+        Assert.assertEquals(Integer.class, analysis.getDeterminedClass());
+        Assert.assertEquals(10, analysis.getUniqueValueCount());
+        Assert.assertTrue(analysis.isEnumCandidate());
+        Assert.assertEquals(0., analysis.getMinValue(), 0.);
+        Assert.assertEquals(9., analysis.getMaxValue(), 0.);
+    }
+
+    /**
+     * Tests that once the exact tracking saturates, the sketch answers for
+     * the values that were only sketched.
+     */
+    @Test
+    public void testSaturated()
+    {
+        ColumnAnalyzerData data = analyze(20000, Integer::valueOf);
+        Assert.assertTrue(data.isUniqueValueTrackingSaturated());
+        Assert.assertTrue(data.getNumValuesConsidered() < ColumnAnalyzerData.DETERMINATION_THRESHOLD);
+
+        ColumnAnalysisImpl analysis = new ColumnAnalysisImpl(data);
+
+        Assert.assertEquals(Determination.DETERMINED, analysis.getDetermination());
+        Assert.assertEquals(Integer.class, analysis.getDeterminedClass());
+        Assert.assertFalse(analysis.isString());
+        Assert.assertFalse(analysis.isEnumCandidate());
+        Assert.assertEquals(20000, analysis.getUniqueValueCount(), 20000 * 0.05);
+        Assert.assertEquals(0., analysis.getMinValue(), 0.);
+        Assert.assertEquals(19999., analysis.getMaxValue(), 0.);
+    }
+
+    /**
+     * Tests that values only seen by the sketch widen the class determined by
+     * the exact tracking.
+     */
+    @Test
+    public void testSaturatedWidening()
+    {
+        ColumnAnalyzerData data = analyze(20000, i -> i < 10000 ? (Object)Integer.valueOf(i) : "value" + i);
+
+        ColumnAnalysisImpl analysis = new ColumnAnalysisImpl(data);
+
+        Assert.assertEquals(Determination.DETERMINED, analysis.getDetermination());
+        Assert.assertEquals(String.class, analysis.getDeterminedClass());
+        Assert.assertTrue(analysis.isString());
+    }
+
+    /**
+     * Analyzes values the way the analysis task does, giving them to the
+     * exact analyzer only until its unique value tracking saturates.
+     *
+     * @param count the number of values
+     * @param values the values by index
+     * @return the analyzer data
+     */
+    private ColumnAnalyzerData analyze(int count, IntFunction<Object> values)
+    {
+        ColumnAnalyzerData data = new ColumnAnalyzerData("type", "column");
+        ColumnDataAnalyzer analyzer = new ColumnDataAnalyzer(data);
+        ColumnSketch sketch = new ColumnSketch();
+        for (int i = 0; i < count; ++i)
+        {
+            Object value = values.apply(i);
+            if (!data.isUniqueValueTrackingSaturated())
+            {
+                analyzer.considerValue(value);
+            }
+            sketch.considerValue(value);
+        }
+        data.mergeSketch(sketch);
+        analyzer.determineColumnClassFromData(data.isUniqueValueTrackingSaturated() ? data.getSketch() : null);
+        return data;
+    }
+}
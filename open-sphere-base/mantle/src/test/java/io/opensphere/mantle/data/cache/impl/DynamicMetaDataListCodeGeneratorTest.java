@@ -0,0 +1,126 @@
+package io.opensphere.mantle.data.cache.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.util.collections.New;
+import io.opensphere.mantle.data.DataTypeInfo;
+import io.opensphere.mantle.data.MetaDataInfo;
+import io.opensphere.mantle.data.element.DynamicMetaDataList;
+import io.opensphere.mantle.util.compiler.DynamicCompiler;
+
+/** Tests for {@link DynamicMetaDataListCodeGenerator}. */
+public class DynamicMetaDataListCodeGeneratorTest
+{
+    /** The key names. */
+    private static final List<String> KEYS = Arrays.asList("DOUBLE", "INT", "FLAG", "NAME", "TIME");
+
+    /**
+     * Tests the typed accessors and the binary encoding of a generated class.
+     *
+     * @throws Exception If the class cannot be generated.
+     */
+    @Test
+    public void testTypedAccessorsAndBinaryEncoding() throws Exception
+    {
+        Class<?> cl = compile(Double.class, Integer.class, Boolean.class, String.class, Date.class);
+
+        DynamicMetaDataList list = (DynamicMetaDataList)cl.getDeclaredConstructor().newInstance();
+        Assert.assertTrue(list.supportsBinaryEncoding());
+        Assert.assertEquals(2, list.getKeyIndex("FLAG"));
+        Assert.assertEquals(-1, list.getKeyIndex("MISSING"));
+        for (int i = 0; i < KEYS.size(); i++)
+        {
+            Assert.assertTrue(list.isNull(i));
+        }
+        Assert.assertTrue(Double.isNaN(list.getDouble(0)));
+
+        list.set(0, Double.valueOf(2.5));
+        list.set(1, Integer.valueOf(-7));
+        list.set(2, Boolean.TRUE);
+        list.set(3, "tom");
+        list.set(4, new Date(1000L));
+
+        Assert.assertTrue(list.isNumber(0));
+        Assert.assertTrue(list.isNumber(1));
+        Assert.assertFalse(list.isNumber(2));
+        Assert.assertFalse(list.isNumber(3));
+        Assert.assertEquals(2.5, list.getDouble(0), 0.);
+        Assert.assertEquals(2L, list.getLong(0));
+        Assert.assertEquals(-7., list.getDouble(1), 0.);
+        Assert.assertTrue(list.getBoolean(2));
+        Assert.assertTrue(Double.isNaN(list.getDouble(3)));
+        Assert.assertEquals(1000L, list.getLong(4));
+
+        ByteBuffer buffer = ByteBuffer.allocate(list.getEncodedSize());
+        list.encode(buffer);
+        Assert.assertFalse(buffer.hasRemaining());
+
+        buffer.flip();
+        DynamicMetaDataList decoded = (DynamicMetaDataList)cl.getDeclaredConstructor().newInstance();
+        decoded.decode(buffer);
+        Assert.assertEquals(list, decoded);
+        Assert.assertEquals("tom", decoded.get(3));
+        Assert.assertEquals(new Date(1000L), decoded.get(4));
+
+        list.set(3, null);
+        buffer = ByteBuffer.allocate(list.getEncodedSize());
+        list.encode(buffer);
+        buffer.flip();
+        decoded.decode(buffer);
+        Assert.assertNull(decoded.get(3));
+    }
+
+    /**
+     * Tests that a class with object columns does not support the binary
+     * encoding.
+     *
+     * @throws Exception If the class cannot be generated.
+     */
+    @Test
+    public void testObjectColumn() throws Exception
+    {
+        Class<?> cl = compile(Double.class, Integer.class, Boolean.class, String.class, Object.class);
+
+        DynamicMetaDataList list = (DynamicMetaDataList)cl.getDeclaredConstructor().newInstance();
+        Assert.assertFalse(list.supportsBinaryEncoding());
+        list.set(0, Double.valueOf(1.));
+        Assert.assertEquals(1., list.getDouble(0), 0.);
+        Assert.assertTrue(list.isNull(4));
+    }
+
+    /**
+     * Generate and compile a class for the given column types.
+     *
+     * @param types The types of the columns.
+     * @return The class.
+     * @throws Exception If the class cannot be compiled.
+     */
+    private Class<?> compile(Class<?>... types) throws Exception
+    {
+        Map<String, Class<?>> classes = New.map();
+        for (int i = 0; i < types.length; i++)
+        {
+            classes.put(KEYS.get(i), types[i]);
+        }
+
+        MetaDataInfo mdi = EasyMock.createNiceMock(MetaDataInfo.class);
+        EasyMock.expect(mdi.getKeyNames()).andReturn(KEYS).anyTimes();
+        EasyMock.expect(mdi.getKeyClassTypeMap()).andReturn(classes).anyTimes();
+        DataTypeInfo dti = EasyMock.createNiceMock(DataTypeInfo.class);
+        EasyMock.expect(dti.getMetaDataInfo()).andReturn(mdi).anyTimes();
+        EasyMock.expect(dti.getTypeKey()).andReturn("test").anyTimes();
+        EasyMock.replay(mdi, dti);
+
+        String name = "GeneratorTest" + Math.abs(Arrays.hashCode(types));
+        DynamicMetaDataListCodeGenerator generator = new DynamicMetaDataListCodeGenerator(name, 1, dti, 42);
+        return new DynamicCompiler().compileToClass(generator.getFullyQualifiedClassName(), generator.generateSource());
+    }
+}
@@ -0,0 +1,58 @@
+package io.opensphere.mantle.data.element.event.consolidators;
+
+import java.util.Arrays;
+
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.mantle.controller.event.impl.DataElementsAddedEvent;
+import io.opensphere.mantle.data.DataTypeInfo;
+
+/** Tests for {@link DataElementsAddedConsolidator}. */
+public class DataElementsAddedConsolidatorTest
+{
+    /** Tests that events for one type are merged into one event. */
+    @Test
+    public void testConsolidate()
+    {
+        DataTypeInfo type = EasyMock.createMock(DataTypeInfo.class);
+        Object source = new Object();
+        DataElementsAddedConsolidator consolidator = new DataElementsAddedConsolidator();
+        Assert.assertFalse(consolidator.hadEvents());
+
+        DataElementsAddedEvent first = new DataElementsAddedEvent(type, new long[] { 1, 2, 3 }, true, source);
+        Assert.assertTrue(consolidator.canConsolidate(first));
+        consolidator.addEvent(first);
+        DataElementsAddedEvent second = new DataElementsAddedEvent(type, Arrays.asList(Long.valueOf(4), Long.valueOf(10)), true,
+                source);
+        Assert.assertTrue(consolidator.canConsolidate(second));
+        consolidator.addEvent(second);
+        Assert.assertTrue(consolidator.hadEvents());
+
+        DataElementsAddedEvent consolidated = (DataElementsAddedEvent)consolidator.createConsolidatedEvent();
+        Assert.assertSame(type, consolidated.getType());
+        Assert.assertSame(source, consolidated.getSource());
+        Assert.assertTrue(consolidated.areMappable());
+        Assert.assertArrayEquals(new long[] { 1, 2, 3, 4, 10 }, consolidated.getAddedDataElementIds().getValues());
+
+        consolidator.reset();
+        Assert.assertFalse(consolidator.hadEvents());
+    }
+
+    /** Tests that events that differ in type, source or mappability are not merged. */
+    @Test
+    public void testCanConsolidate()
+    {
+        DataTypeInfo type = EasyMock.createMock(DataTypeInfo.class);
+        DataTypeInfo otherType = EasyMock.createMock(DataTypeInfo.class);
+        Object source = new Object();
+        DataElementsAddedConsolidator consolidator = new DataElementsAddedConsolidator();
+        consolidator.addEvent(new DataElementsAddedEvent(type, new long[] { 1 }, true, source));
+
+        Assert.assertFalse(consolidator.canConsolidate(new DataElementsAddedEvent(otherType, new long[] { 2 }, true, source)));
+        Assert.assertFalse(consolidator.canConsolidate(new DataElementsAddedEvent(type, new long[] { 2 }, false, source)));
+        Assert.assertFalse(consolidator.canConsolidate(new DataElementsAddedEvent(type, new long[] { 2 }, true, new Object())));
+        Assert.assertTrue(consolidator.canConsolidate(new DataElementsAddedEvent(type, new long[] { 2 }, true, source)));
+    }
+}
@@ -0,0 +1,117 @@
+package io.opensphere.mantle.util.columnanalyzer;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.mantle.util.columnanalyzer.ColumnAnalyzerData.ColumnClass;
+
+/** Tests for {@link ColumnSketch}. */
+public class ColumnSketchTest
+{
+    /** Tests the distinct count estimate. */
+    @Test
+    public void testDistinctCount()
+    {
+        ColumnSketch sketch = new ColumnSketch();
+        for (int i = 0; i < 100000; ++i)
+        {
+            sketch.considerValue("value" + i % 20000);
+        }
+        long estimate = sketch.getDistinctCountEstimate();
+        Assert.assertTrue(String.valueOf(estimate), Math.abs(estimate - 20000) < 20000 * .1);
+
+        ColumnSketch small = new ColumnSketch();
+        for (int i = 0; i < 1000; ++i)
+        {
+            small.considerValue(Integer.valueOf(i % 10));
+        }
+        Assert.assertEquals(10, small.getDistinctCountEstimate());
+    }
+
+    /** Tests type detection, min/max and empty values. */
+    @Test
+    public void testTypesAndRange()
+    {
+        ColumnSketch sketch = new ColumnSketch();
+        sketch.considerValue("5");
+        sketch.considerValue("-12");
+        sketch.considerValue(null);
+        sketch.considerValue("");
+        Assert.assertEquals(ColumnClass.INTEGER, sketch.getDeterminedColumnClass());
+        Assert.assertEquals(2, sketch.getEmptyCount());
+
+        sketch.considerValue("10000000000");
+        Assert.assertEquals(ColumnClass.LONG, sketch.getDeterminedColumnClass());
+
+        sketch.considerValue("2.5");
+        Assert.assertEquals(ColumnClass.FLOAT, sketch.getDeterminedColumnClass());
+        Assert.assertEquals(-12., sketch.getMinValue(), 0.);
+        Assert.assertEquals(1e10, sketch.getMaxValue(), 0.);
+
+        sketch.considerValue("abc");
+        Assert.assertEquals(ColumnClass.STRING, sketch.getDeterminedColumnClass());
+        Assert.assertEquals(1, sketch.getTypeCount(ColumnClass.STRING));
+        Assert.assertEquals("-12", sketch.getMinString());
+        Assert.assertEquals("abc", sketch.getMaxString());
+
+        ColumnSketch bools = new ColumnSketch();
+        bools.considerValue("TRUE");
+        bools.considerValue(Boolean.FALSE);
+        Assert.assertEquals(ColumnClass.BOOLEAN, bools.getDeterminedColumnClass());
+        Assert.assertTrue(Double.isNaN(bools.getMinValue()));
+    }
+
+    /** Tests that merged sketches match a single sketch of all the values. */
+    @Test
+    public void testMerge()
+    {
+        ColumnSketch all = new ColumnSketch();
+        ColumnSketch first = new ColumnSketch();
+        ColumnSketch second = new ColumnSketch();
+        for (int i = 0; i < 5000; ++i)
+        {
+            String value = i % 7 == 0 ? "common" : Integer.toString(i);
+            all.considerValue(value);
+            (i % 2 == 0 ? first : second).considerValue(value);
+        }
+        first.merge(second);
+
+        Assert.assertEquals(all.getCount(), first.getCount());
+        Assert.assertEquals(all.getDistinctCountEstimate(), first.getDistinctCountEstimate());
+        Assert.assertEquals(all.getDeterminedColumnClass(), first.getDeterminedColumnClass());
+        Assert.assertEquals(all.getMinValue(), first.getMinValue(), 0.);
+        Assert.assertEquals(all.getMaxValue(), first.getMaxValue(), 0.);
+
+        List<Map.Entry<String, Long>> top = first.getTopValues(1);
+        Assert.assertEquals("common", top.get(0).getKey());
+        Assert.assertTrue(top.get(0).getValue().longValue() >= 5000 / 7);
+    }
+
+    /** Tests the binary encoding. */
+    @Test
+    public void testToFromBytes()
+    {
+        ColumnSketch sketch = new ColumnSketch();
+        for (int i = 0; i < 300; ++i)
+        {
+            sketch.considerValue(Double.valueOf(i * .5));
+        }
+        sketch.considerValue("x");
+
+        byte[] bytes = sketch.toBytes();
+        ColumnSketch decoded = ColumnSketch.fromBytes(bytes);
+        Assert.assertEquals(sketch.getCount(), decoded.getCount());
+        Assert.assertEquals(sketch.getDistinctCountEstimate(), decoded.getDistinctCountEstimate());
+        Assert.assertEquals(sketch.getTypeCount(ColumnClass.FLOAT), decoded.getTypeCount(ColumnClass.FLOAT));
+        Assert.assertEquals(sketch.getMaxValue(), decoded.getMaxValue(), 0.);
+        Assert.assertEquals(sketch.getMaxString(), decoded.getMaxString());
+        Assert.assertEquals(sketch.getTopValues(5), decoded.getTopValues(5));
+        Assert.assertArrayEquals(bytes, decoded.toBytes());
+
+        Assert.assertNull(ColumnSketch.fromBytes(null));
+        Assert.assertNull(ColumnSketch.fromBytes(new byte[] { 99 }));
+    }
+}
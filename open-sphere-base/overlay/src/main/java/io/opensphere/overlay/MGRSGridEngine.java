@@ -0,0 +1,359 @@
+package io.opensphere.overlay;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import io.opensphere.core.mgrs.UTM;
+import io.opensphere.core.mgrs.UTM.Hemisphere;
+import io.opensphere.core.model.GeographicPosition;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.util.collections.New;
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * Generates the corners of MGRS grid cells. The corners of a block of cells
+ * are computed as a lattice with primitive UTM math, so that corners which
+ * are shared by neighboring cells are only converted once and no intermediate
+ * {@link UTM} objects are created. Large lattices are computed in parallel.
+ * <p>
+ * Lattices are cached per zoom band (the size of the cells) so that panning
+ * back and forth over the same area does not regenerate them, and so that
+ * the many lattices of a fine band do not evict the few lattices of a coarse
+ * band.
+ */
+class MGRSGridEngine
+{
+    /**
+     * The number of lattices which are cached in each band, which may be set
+     * with the {@code opensphere.mgrs.latticeCacheSize} system property.
+     */
+    static final int BAND_CACHE_SIZE = Integer.getInteger("opensphere.mgrs.latticeCacheSize", 64).intValue();
+
+    /** The number of corners at which a lattice is computed in parallel. */
+    static final int PARALLEL_THRESHOLD = 1024;
+
+    /** The cached lattices, by band. */
+    @GuardedBy("myBands")
+    private final Map<Double, Map<LatticeKey, CornerLattice>> myBands = New.map();
+
+    /**
+     * Compute the corners of a lattice of cells.
+     *
+     * @param zone The UTM zone.
+     * @param hemisphere The hemisphere.
+     * @param swEasting The easting of the south-west corner of the lattice.
+     * @param swNorthing The northing of the south-west corner of the lattice.
+     * @param step The size of each cell in meters.
+     * @param columns The number of cells in the east-west direction.
+     * @param rows The number of cells in the north-south direction.
+     * @return The lattice.
+     */
+    static CornerLattice computeLattice(int zone, Hemisphere hemisphere, double swEasting, double swNorthing, double step,
+            int columns, int rows)
+    {
+        int stride = columns + 1;
+        double[] latLonD = new double[stride * (rows + 1) << 1];
+        IntStream rowIndices = IntStream.rangeClosed(0, rows);
+        if (stride * (rows + 1) >= PARALLEL_THRESHOLD)
+        {
+            rowIndices = rowIndices.parallel();
+        }
+        rowIndices.forEach(row ->
+        {
+            double northing = swNorthing + step * row;
+            for (int column = 0; column <= columns; ++column)
+            {
+                UTM.convertToLatLon(zone, hemisphere, swEasting + step * column, northing, latLonD,
+                        (row * stride + column) << 1);
+            }
+        });
+        return new CornerLattice(columns, rows, latLonD);
+    }
+
+    /** Remove all of the cached lattices. */
+    public void clear()
+    {
+        synchronized (myBands)
+        {
+            myBands.clear();
+        }
+    }
+
+    /**
+     * Get the corners of a lattice of cells, computing them if they are not
+     * cached.
+     *
+     * @param zone The UTM zone.
+     * @param hemisphere The hemisphere.
+     * @param swEasting The easting of the south-west corner of the lattice.
+     * @param swNorthing The northing of the south-west corner of the lattice.
+     * @param step The size of each cell in meters.
+     * @param columns The number of cells in the east-west direction.
+     * @param rows The number of cells in the north-south direction.
+     * @return The lattice.
+     */
+    public CornerLattice getLattice(int zone, Hemisphere hemisphere, double swEasting, double swNorthing, double step,
+            int columns, int rows)
+    {
+        LatticeKey key = new LatticeKey(zone, hemisphere, swEasting, swNorthing, step, columns, rows);
+        Map<LatticeKey, CornerLattice> band;
+        synchronized (myBands)
+        {
+            band = myBands.computeIfAbsent(Double.valueOf(step), k -> new BandCache(BAND_CACHE_SIZE));
+            CornerLattice lattice = band.get(key);
+            if (lattice != null)
+            {
+                return lattice;
+            }
+        }
+
+        CornerLattice lattice = computeLattice(zone, hemisphere, swEasting, swNorthing, step, columns, rows);
+        synchronized (myBands)
+        {
+            band.put(key, lattice);
+        }
+        return lattice;
+    }
+
+    /**
+     * Get the number of lattices which are cached.
+     *
+     * @return The number of lattices.
+     */
+    public int getCachedLatticeCount()
+    {
+        synchronized (myBands)
+        {
+            return myBands.values().stream().mapToInt(Map::size).sum();
+        }
+    }
+
+    /** The lattices which are cached for one band, in least recently used order. */
+    private static final class BandCache extends LinkedHashMap<LatticeKey, CornerLattice>
+    {
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** The maximum number of lattices. */
+        private final int myCapacity;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity The maximum number of lattices.
+         */
+        public BandCache(int capacity)
+        {
+            super(16, .75f, true);
+            myCapacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LatticeKey, CornerLattice> eldest)
+        {
+            return size() > myCapacity;
+        }
+    }
+
+    /**
+     * The corners of a block of grid cells. Corner {@code (column, row)} is
+     * the south-west corner of cell {@code (column, row)}, counting east and
+     * north from the south-west corner of the block.
+     */
+    static final class CornerLattice
+    {
+        /** The number of cells in the east-west direction. */
+        private final int myColumns;
+
+        /** The latitudes and longitudes of the corners in degrees. */
+        private final double[] myLatLonD;
+
+        /**
+         * The corner positions, which are created when they are first
+         * requested. The positions are immutable, so racing to create one is
+         * harmless.
+         */
+        private final GeographicPosition[] myPositions;
+
+        /** The number of cells in the north-south direction. */
+        private final int myRows;
+
+        /**
+         * Constructor.
+         *
+         * @param columns The number of cells in the east-west direction.
+         * @param rows The number of cells in the north-south direction.
+         * @param latLonD The latitudes and longitudes of the corners in
+         *            degrees, in row-major order starting at the south-west
+         *            corner.
+         */
+        public CornerLattice(int columns, int rows, double[] latLonD)
+        {
+            myColumns = columns;
+            myRows = rows;
+            myLatLonD = latLonD;
+            myPositions = new GeographicPosition[(columns + 1) * (rows + 1)];
+        }
+
+        /**
+         * Get the number of cells in the east-west direction.
+         *
+         * @return The number of columns.
+         */
+        public int getColumns()
+        {
+            return myColumns;
+        }
+
+        /**
+         * Get the latitude of a corner.
+         *
+         * @param column The column of the corner.
+         * @param row The row of the corner.
+         * @return The latitude in degrees.
+         */
+        public double getLatD(int column, int row)
+        {
+            return myLatLonD[index(column, row) << 1];
+        }
+
+        /**
+         * Get the longitude of a corner. This is not normalized.
+         *
+         * @param column The column of the corner.
+         * @param row The row of the corner.
+         * @return The longitude in degrees.
+         */
+        public double getLonD(int column, int row)
+        {
+            return myLatLonD[(index(column, row) << 1) + 1];
+        }
+
+        /**
+         * Get the normalized position of a corner.
+         *
+         * @param column The column of the corner.
+         * @param row The row of the corner.
+         * @return The position.
+         */
+        public GeographicPosition getPosition(int column, int row)
+        {
+            int index = index(column, row);
+            GeographicPosition position = myPositions[index];
+            if (position == null)
+            {
+                position = new GeographicPosition(
+                        LatLonAlt.createFromDegrees(myLatLonD[index << 1], myLatLonD[(index << 1) + 1]).getNormalized());
+                myPositions[index] = position;
+            }
+            return position;
+        }
+
+        /**
+         * Get the number of cells in the north-south direction.
+         *
+         * @return The number of rows.
+         */
+        public int getRows()
+        {
+            return myRows;
+        }
+
+        /**
+         * Get the index of a corner.
+         *
+         * @param column The column of the corner.
+         * @param row The row of the corner.
+         * @return The index.
+         */
+        private int index(int column, int row)
+        {
+            if (column < 0 || column > myColumns || row < 0 || row > myRows)
+            {
+                throw new IndexOutOfBoundsException("Corner (" + column + ", " + row + ") is outside of the lattice.");
+            }
+            return row * (myColumns + 1) + column;
+        }
+    }
+
+    /** The key for a cached lattice. */
+    private static final class LatticeKey
+    {
+        /** The number of cells in the east-west direction. */
+        private final int myColumns;
+
+        /** The hemisphere. */
+        private final Hemisphere myHemisphere;
+
+        /** The number of cells in the north-south direction. */
+        private final int myRows;
+
+        /** The size of each cell in meters. */
+        private final double myStep;
+
+        /** The easting of the south-west corner. */
+        private final double mySWEasting;
+
+        /** The northing of the south-west corner. */
+        private final double mySWNorthing;
+
+        /** The UTM zone. */
+        private final int myZone;
+
+        /**
+         * Constructor.
+         *
+         * @param zone The UTM zone.
+         * @param hemisphere The hemisphere.
+         * @param swEasting The easting of the south-west corner.
+         * @param swNorthing The northing of the south-west corner.
+         * @param step The size of each cell in meters.
+         * @param columns The number of cells in the east-west direction.
+         * @param rows The number of cells in the north-south direction.
+         */
+        public LatticeKey(int zone, Hemisphere hemisphere, double swEasting, double swNorthing, double step, int columns,
+                int rows)
+        {
+            myZone = zone;
+            myHemisphere = hemisphere;
+            mySWEasting = swEasting;
+            mySWNorthing = swNorthing;
+            myStep = step;
+            myColumns = columns;
+            myRows = rows;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass())
+            {
+                return false;
+            }
+            LatticeKey other = (LatticeKey)obj;
+            return myZone == other.myZone && myHemisphere == other.myHemisphere && myColumns == other.myColumns
+                    && myRows == other.myRows && Double.compare(mySWEasting, other.mySWEasting) == 0
+                    && Double.compare(mySWNorthing, other.mySWNorthing) == 0 && Double.compare(myStep, other.myStep) == 0;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + myZone;
+            result = prime * result + myHemisphere.hashCode();
+            result = prime * result + myColumns;
+            result = prime * result + myRows;
+            result = prime * result + Double.hashCode(mySWEasting);
+            result = prime * result + Double.hashCode(mySWNorthing);
+            result = prime * result + Double.hashCode(myStep);
+            return result;
+        }
+    }
+}
@@ -43,6 +43,7 @@ import io.opensphere.core.model.LineType;
 import io.opensphere.core.model.Position;
 import io.opensphere.core.projection.Projection;
 import io.opensphere.core.projection.impl.HammerProjection;
+import io.opensphere.core.util.MathUtil;
 import io.opensphere.core.viewer.Viewer;
 
 /**
@@ -66,6 +67,9 @@ public class MGRSTransformer extends DefaultTransformer
     /** If I'm enabled to display or not. */
     private boolean myEnabled;
 
+    /** The engine which generates and caches the corners of grid cells. */
+    private final MGRSGridEngine myGridEngine = new MGRSGridEngine();
+
     /** The MGRS sub grid geometries. */
     private final Set<GridGeometry> myGridGeometries = Collections.synchronizedSet(new HashSet<GridGeometry>());
 
@@ -689,6 +693,11 @@ public class MGRSTransformer extends DefaultTransformer
                     // Find neighboring UTM zones that are visible
                     List<UTMZone> visibleUTMZones = findNeighbors();
 
+                    // The squares of each zone are independent, so generate
+                    // the squares of newly visible zones in parallel.
+                    visibleUTMZones.parallelStream().filter(zone -> zone.getMGRSSquares().isEmpty())
+                            .forEach(UTMZone::findSquares);
+
                     for (UTMZone zone : visibleUTMZones)
                     {
                         zone.displayGridGeometries();
@@ -822,6 +831,18 @@ public class MGRSTransformer extends DefaultTransformer
         /** The easting/northing labels I hold for my children. */
         private List<LabelGeometry> myChildLabels = new ArrayList<>();
 
+        /**
+         * The easting labels which have been created for my children, which
+         * are created as they come into view.
+         */
+        private final Map<Integer, LabelGeometry> myEastingLabelCache = new HashMap<>();
+
+        /**
+         * The northing labels which have been created for my children, which
+         * are created as they come into view.
+         */
+        private final Map<Integer, LabelGeometry> myNorthingLabelCache = new HashMap<>();
+
         /** The children northing labels. */
         private final SortedMap<Integer, GeographicPosition> myChildNorthingLabels = new TreeMap<>();
 
@@ -917,9 +938,13 @@ public class MGRSTransformer extends DefaultTransformer
          * @param northing The northing.
          * @param size The size of the grid.
          * @param border If this sub grid is adjacent to my border.
+         * @param corners The corners of my sub grids.
+         * @param column The column of the sub grid in the corners.
+         * @param row The row of the sub grid in the corners.
          * @return The newly created grid geometry.
          */
-        private GridGeometry createSubGrid(double easting, double northing, double size, boolean border)
+        private GridGeometry createSubGrid(double easting, double northing, double size, boolean border,
+                MGRSGridEngine.CornerLattice corners, int column, int row)
         {
             GridGeometry newGrid = new GridGeometry();
 
@@ -933,17 +958,10 @@ public class MGRSTransformer extends DefaultTransformer
             newGrid.setText(null);
             newGrid.setOnBorder(border);
 
-            UTM utm = new UTM(getZone(), getHemisphere(), easting, northing);
-            GeographicPosition swPos = utm.convertToLatLon();
-
-            utm = new UTM(getZone(), getHemisphere(), easting, northing + size);
-            GeographicPosition nwPos = utm.convertToLatLon();
-
-            utm = new UTM(getZone(), getHemisphere(), easting + size, northing + size);
-            GeographicPosition nePos = utm.convertToLatLon();
-
-            utm = new UTM(getZone(), getHemisphere(), easting + size, northing);
-            GeographicPosition sePos = utm.convertToLatLon();
+            GeographicPosition swPos = corners.getPosition(column, row);
+            GeographicPosition nwPos = corners.getPosition(column, row + 1);
+            GeographicPosition nePos = corners.getPosition(column + 1, row + 1);
+            GeographicPosition sePos = corners.getPosition(column + 1, row);
 
             if (!getBoundingBox().contains(swPos, 0) && !getBoundingBox().contains(nwPos, 0)
                     && !getBoundingBox().contains(nePos, 0) && !getBoundingBox().contains(sePos, 0))
@@ -1080,6 +1098,8 @@ public class MGRSTransformer extends DefaultTransformer
             Set<GridGeometry> result = new HashSet<>(100);
 
             double gridStep = parent.getSize() / 10;
+            MGRSGridEngine.CornerLattice corners = myGridEngine.getLattice(parent.getZone(), parent.getHemisphere(),
+                    parent.getSWEasting(), parent.getSWNorthing(), gridStep, 10, 10);
             for (int i = 0; i < 10; i++)
             {
                 double easting = parent.getSWEasting() + gridStep * i;
@@ -1088,7 +1108,7 @@ public class MGRSTransformer extends DefaultTransformer
                     double northing = parent.getSWNorthing() + gridStep * j;
                     boolean border = i == 9 || j == 9;
 
-                    GridGeometry subgrid = parent.createSubGrid(easting, northing, gridStep, border);
+                    GridGeometry subgrid = parent.createSubGrid(easting, northing, gridStep, border, corners, i, j);
                     if (subgrid != null)
                     {
                         result.add(subgrid);
@@ -1372,67 +1392,85 @@ public class MGRSTransformer extends DefaultTransformer
         }
 
         /**
-         * Draw the easting/northing labels for mgrs sub grids.
+         * Draw the easting/northing labels for mgrs sub grids. Only the labels
+         * which are in view are created; labels which come into view later are
+         * created and added when a sub grid in that area is drawn.
          */
         private void drawEastingNorthingLabels()
         {
-            /* Check to see if labels have already been drawn or there are not
-             * enough sub grids to warrant drawing the labels. */
-            if (!myParent.isGridLabelsDrawn() && myParent.getChildren().size() > 50)
+            // Check to see if there are enough sub grids to warrant drawing the
+            // labels.
+            if (myParent.getChildren() == null || myParent.getChildren().size() <= 50)
+            {
+                return;
+            }
+
+            if (!myParent.isGridLabelsDrawn())
+            {
+                myParent.getChildLabels().clear();
+            }
+
+            List<LabelGeometry> labels = new ArrayList<>();
+            int index = 0;
+            for (Entry<Integer, GeographicPosition> northingEntry : myParent.getChildNorthingLabels().entrySet())
             {
-                // If we already have labels, use them
-                if (!myParent.getChildLabels().isEmpty())
+                /* Want to skip the middle northing value since it will be
+                 * right on top of easting value. */
+                if (index++ != 5)
                 {
-                    publishGeometries(myParent.getChildLabels(), Collections.<LabelGeometry>emptySet());
-                    myParent.setGridLabelsDrawn(true);
+                    addLabelIfInView(northingEntry, myParent.myNorthingLabelCache, labels);
                 }
-                else
-                // find labels
-                {
-                    List<LabelGeometry> labels = new ArrayList<>();
-                    LabelGeometry.Builder<GeographicPosition> labelBuilder = new LabelGeometry.Builder<>();
-                    LabelRenderProperties props = new DefaultLabelRenderProperties(ZOrderRenderProperties.TOP_Z, true, false);
-                    props.setColor(Color.ORANGE);
-                    labelBuilder.setFont("Arial-9");
-                    labelBuilder.setHorizontalAlignment(.5f);
-                    labelBuilder.setVerticalAlignment(.5f);
-
-                    if (!myParent.getChildNorthingLabels().isEmpty())
-                    {
-                        int index = 0;
-                        for (Entry<Integer, GeographicPosition> northingEntry : myParent.getChildNorthingLabels().entrySet())
-                        {
-                            /* Want to skip the middle northing value since it
-                             * will be right on top of easting value. */
-                            if (index != 5)
-                            {
-                                labelBuilder.setText(northingEntry.getKey().toString());
-                                labelBuilder.setPosition(northingEntry.getValue());
-
-                                LabelGeometry labelGeometry = new LabelGeometry(labelBuilder, props, null);
-                                labels.add(labelGeometry);
-                            }
-                            index++;
-                        }
-                    }
+            }
+            for (Entry<Integer, GeographicPosition> eastingEntry : myParent.getChildEastingLabels().entrySet())
+            {
+                addLabelIfInView(eastingEntry, myParent.myEastingLabelCache, labels);
+            }
 
-                    if (!myParent.getChildEastingLabels().isEmpty())
-                    {
-                        for (Entry<Integer, GeographicPosition> eastingEntry : myParent.getChildEastingLabels().entrySet())
-                        {
-                            labelBuilder.setText(eastingEntry.getKey().toString());
-                            labelBuilder.setPosition(eastingEntry.getValue());
+            if (!labels.isEmpty())
+            {
+                publishGeometries(labels, Collections.<LabelGeometry>emptySet());
+                myParent.getChildLabels().addAll(labels);
+            }
+            myParent.setGridLabelsDrawn(true);
+        }
 
-                            LabelGeometry labelGeometry = new LabelGeometry(labelBuilder, props, null);
-                            labels.add(labelGeometry);
-                        }
-                    }
-                    publishGeometries(labels, Collections.<LabelGeometry>emptySet());
+        /**
+         * Add an easting or northing label to a list if it is in view and is
+         * not already displayed. The label is created the first time it is in
+         * view.
+         *
+         * @param entry The easting or northing and the position of its label.
+         * @param cache The labels which have already been created.
+         * @param labels The list of labels to add to.
+         */
+        private void addLabelIfInView(Entry<Integer, GeographicPosition> entry, Map<Integer, LabelGeometry> cache,
+                List<LabelGeometry> labels)
+        {
+            if (myViewBBox != null && !myViewBBox.contains(entry.getValue(), 0))
+            {
+                return;
+            }
 
-                    myParent.setChildLabels(labels);
-                    myParent.setGridLabelsDrawn(true);
-                }
+            LabelGeometry label = cache.get(entry.getKey());
+            if (label == null)
+            {
+                LabelGeometry.Builder<GeographicPosition> labelBuilder = new LabelGeometry.Builder<>();
+                LabelRenderProperties props = new DefaultLabelRenderProperties(ZOrderRenderProperties.TOP_Z, true, false);
+                props.setColor(Color.ORANGE);
+                labelBuilder.setFont("Arial-9");
+                labelBuilder.setHorizontalAlignment(.5f);
+                labelBuilder.setVerticalAlignment(.5f);
+                labelBuilder.setText(entry.getKey().toString());
+                labelBuilder.setPosition(entry.getValue());
+
+                label = new LabelGeometry(labelBuilder, props, null);
+                cache.put(entry.getKey(), label);
             }
+            else if (myParent.getChildLabels().contains(label))
+            {
+                return;
+            }
+            labels.add(label);
         }
 
         /**
@@ -1441,9 +1479,14 @@ public class MGRSTransformer extends DefaultTransformer
          */
         private void drawLabels()
         {
-            List<LabelGeometry> labels = new ArrayList<>();
-            if (getText() != null)
+            if (getText() != null && !myMGRSLabels.isEmpty())
+            {
+                // My label does not change, so show it again.
+                publishGeometries(myMGRSLabels, Collections.<LabelGeometry>emptySet());
+            }
+            else if (getText() != null)
             {
+                List<LabelGeometry> labels = new ArrayList<>();
                 LabelGeometry.Builder<GeographicPosition> labelBuilder = new LabelGeometry.Builder<>();
                 LabelRenderProperties props = new DefaultLabelRenderProperties(ZOrderRenderProperties.TOP_Z, true, false);
                 props.setColor(Color.ORANGE);
@@ -1459,7 +1502,7 @@ public class MGRSTransformer extends DefaultTransformer
 
                 myMGRSLabels = labels;
             }
-            else if (myParent != null && !myParent.isGridLabelsDrawn())
+            else if (myParent != null)
             {
                 drawEastingNorthingLabels();
             }
@@ -1470,6 +1513,14 @@ public class MGRSTransformer extends DefaultTransformer
          */
         private void drawLines()
         {
+            // My segments do not change, so show the lines again if they have
+            // already been created.
+            if (!myMGRSLines.isEmpty())
+            {
+                publishGeometries(myMGRSLines, Collections.<PolylineGeometry>emptySet());
+                return;
+            }
+
             PolylineGeometry.Builder<Position> lineBuilder = new PolylineGeometry.Builder<>();
             PolylineRenderProperties props = new DefaultPolylineRenderProperties(ZOrderRenderProperties.TOP_Z, true, true);
             props.setColor(LINE_COLOR);
@@ -1607,21 +1658,18 @@ public class MGRSTransformer extends DefaultTransformer
          * @param swEasting The south west easting.
          * @param swNorthing The south west northing.
          * @param size The size of the grid geometry.
+         * @param corners The corners of the squares in the zone.
+         * @param column The column of the square in the corners.
+         * @param row The row of the square in the corners.
          * @return A new GridGeometry.
          */
-        private GridGeometry createGridGeometry(UTMZone parentZone, double swEasting, double swNorthing, double size)
+        private GridGeometry createGridGeometry(UTMZone parentZone, double swEasting, double swNorthing, double size,
+                MGRSGridEngine.CornerLattice corners, int column, int row)
         {
-            UTM utm = new UTM(parentZone.getZone(), parentZone.getHemisphere(), swEasting, swNorthing);
-            GeographicPosition swPos = utm.convertToLatLon();
-
-            utm = new UTM(parentZone.getZone(), parentZone.getHemisphere(), swEasting, swNorthing + size);
-            GeographicPosition nwPos = utm.convertToLatLon();
-
-            utm = new UTM(parentZone.getZone(), parentZone.getHemisphere(), swEasting + size, swNorthing + size);
-            GeographicPosition nePos = utm.convertToLatLon();
-
-            utm = new UTM(parentZone.getZone(), parentZone.getHemisphere(), swEasting + size, swNorthing);
-            GeographicPosition sePos = utm.convertToLatLon();
+            GeographicPosition swPos = corners.getPosition(column, row);
+            GeographicPosition nwPos = corners.getPosition(column, row + 1);
+            GeographicPosition nePos = corners.getPosition(column + 1, row + 1);
+            GeographicPosition sePos = corners.getPosition(column + 1, row);
 
             // As we get closer to the poles, there are pie shaped zones that
             // will have child grids outside the parent.
@@ -1691,7 +1739,9 @@ public class MGRSTransformer extends DefaultTransformer
 
         /**
          * Given the parent, easting, and northing values, determine the mgrs
-         * name of this zone.
+         * name of this zone. The center of a square at the edge of a zone may
+         * be outside of the range accepted by {@link UTM}; it is clamped into
+         * that range, which does not change the 100 km column or row.
          *
          * @param parentZone The parent zone.
          * @param easting The easting value.
@@ -1700,7 +1750,8 @@ public class MGRSTransformer extends DefaultTransformer
          */
         private String determineName(UTMZone parentZone, double easting, double northing)
         {
-            UTM utm = new UTM(parentZone.getZone(), parentZone.getHemisphere(), easting, northing);
+            UTM utm = new UTM(parentZone.getZone(), parentZone.getHemisphere(),
+                    MathUtil.clamp(easting, UTM.MIN_EASTING, UTM.MAX_EASTING), MathUtil.clamp(northing, 0., UTM.MAX_NORTHING));
             MGRSConverter parser = new MGRSConverter();
             String mgrsString = parser.createString(utm);
             String mgrsName = "";
@@ -1754,11 +1805,17 @@ public class MGRSTransformer extends DefaultTransformer
                 maxEasting += MGRSConverter.ONEHT;
             }
 
-            for (double easting = startEasting; easting < maxEasting; easting += MGRSConverter.ONEHT)
+            int columns = (int)Math.ceil((maxEasting - startEasting) / MGRSConverter.ONEHT);
+            int rows = (int)Math.ceil((maxNorthing - startNorthing) / MGRSConverter.ONEHT);
+            MGRSGridEngine.CornerLattice corners = MGRSGridEngine.computeLattice(getZone(), getHemisphere(), startEasting,
+                    startNorthing, MGRSConverter.ONEHT, columns, rows);
+            for (int column = 0; column < columns; ++column)
             {
-                for (double northing = startNorthing; northing < maxNorthing; northing += MGRSConverter.ONEHT)
+                double easting = startEasting + MGRSConverter.ONEHT * column;
+                for (int row = 0; row < rows; ++row)
                 {
-                    GridGeometry geom = createGridGeometry(this, easting, northing, MGRSConverter.ONEHT);
+                    double northing = startNorthing + MGRSConverter.ONEHT * row;
+                    GridGeometry geom = createGridGeometry(this, easting, northing, MGRSConverter.ONEHT, corners, column, row);
 
                     if (geom != null)
                     {
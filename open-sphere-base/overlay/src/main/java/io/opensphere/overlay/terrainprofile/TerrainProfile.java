@@ -536,12 +536,14 @@ public class TerrainProfile extends AbstractOverlayWindow
             myMaxElevation = 0.;
             myMinElevation = highNumber;
 
-            // Loop through terrain profile points to find elevations and set
-            // min/max elevations
-            for (GeographicPosition original : myGeoPoints)
+            // Sample all of the profile points at once, then loop through
+            // them to set min/max elevations
+            double[] elevations = TerrainUtil.getInstance()
+                    .getElevationsInMeters(getTransformer().getToolbox().getMapManager(), myGeoPoints);
+            for (int i = 0; i < myGeoPoints.size(); ++i)
             {
-                double elevation = TerrainUtil.getInstance().getElevationInMeters(getTransformer().getToolbox().getMapManager(),
-                        original);
+                GeographicPosition original = myGeoPoints.get(i);
+                double elevation = elevations[i];
 
                 LatLonAlt lla = LatLonAlt.createFromDegreesMeters(original.getLatLonAlt().getLatD(),
                         original.getLatLonAlt().getLonD(), elevation, Altitude.ReferenceLevel.ELLIPSOID);
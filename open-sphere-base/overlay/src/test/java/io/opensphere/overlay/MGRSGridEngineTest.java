@@ -0,0 +1,64 @@
+package io.opensphere.overlay;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.mgrs.UTM;
+import io.opensphere.core.mgrs.UTM.Hemisphere;
+import io.opensphere.core.model.GeographicPosition;
+
+/** Test for {@link MGRSGridEngine}. */
+public class MGRSGridEngineTest
+{
+    /**
+     * Tests that the corners of a lattice match the UTM conversion.
+     */
+    @Test
+    public void testLattice()
+    {
+        MGRSGridEngine engine = new MGRSGridEngine();
+        MGRSGridEngine.CornerLattice lattice = engine.getLattice(18, Hemisphere.NORTH, 300000., 4300000., 10000., 10, 10);
+        Assert.assertEquals(10, lattice.getColumns());
+        Assert.assertEquals(10, lattice.getRows());
+
+        for (int column = 0; column <= 10; column += 5)
+        {
+            for (int row = 0; row <= 10; row += 5)
+            {
+                GeographicPosition expected = new UTM(18, Hemisphere.NORTH, 300000. + column * 10000., 4300000. + row * 10000.)
+                        .convertToLatLon();
+                Assert.assertEquals(expected, lattice.getPosition(column, row));
+            }
+        }
+
+        Assert.assertSame(lattice, engine.getLattice(18, Hemisphere.NORTH, 300000., 4300000., 10000., 10, 10));
+        Assert.assertEquals(1, engine.getCachedLatticeCount());
+
+        engine.getLattice(18, Hemisphere.NORTH, 300000., 4300000., 1000., 10, 10);
+        Assert.assertEquals(2, engine.getCachedLatticeCount());
+
+        engine.clear();
+        Assert.assertEquals(0, engine.getCachedLatticeCount());
+    }
+
+    /**
+     * Tests that a lattice which is computed in parallel matches one which is
+     * computed serially.
+     */
+    @Test
+    public void testParallel()
+    {
+        MGRSGridEngine.CornerLattice large = MGRSGridEngine.computeLattice(33, Hemisphere.SOUTH, 200000., 6000000., 1000., 100,
+                100);
+        MGRSGridEngine.CornerLattice small = MGRSGridEngine.computeLattice(33, Hemisphere.SOUTH, 250000., 6050000., 1000., 10,
+                10);
+        for (int column = 0; column <= 10; ++column)
+        {
+            for (int row = 0; row <= 10; ++row)
+            {
+                Assert.assertEquals(small.getLatD(column, row), large.getLatD(column + 50, row + 50), 0.);
+                Assert.assertEquals(small.getLonD(column, row), large.getLonD(column + 50, row + 50), 0.);
+            }
+        }
+    }
+}
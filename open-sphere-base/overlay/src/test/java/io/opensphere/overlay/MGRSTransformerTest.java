@@ -0,0 +1,224 @@
+package io.opensphere.overlay;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.opensphere.core.MapManager;
+import io.opensphere.core.geometry.Geometry;
+import io.opensphere.core.geometry.LabelGeometry;
+import io.opensphere.core.math.Vector2i;
+import io.opensphere.core.mgrs.MGRSConverter;
+import io.opensphere.core.mgrs.UTM;
+import io.opensphere.core.mgrs.UTM.Hemisphere;
+import io.opensphere.core.model.Altitude.ReferenceLevel;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.model.GeographicPosition;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.projection.impl.EquirectangularProjection;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.viewer.impl.AbstractDynamicViewer;
+import io.opensphere.core.viewer.impl.Viewer2D;
+import io.opensphere.core.viewer.impl.Viewer2D.ViewerPosition2D;
+
+/** Test for {@link MGRSTransformer}. */
+public class MGRSTransformerTest
+{
+    /** The scale at which the 100 km squares are drawn. */
+    private static final double SQUARE_SCALE = 20.;
+
+    /** The scale at which the 10 km sub grids and their labels are drawn. */
+    private static final double SUB_GRID_SCALE = 160.;
+
+    /** The geometries added by the last update. */
+    private final List<Geometry> myAdds = New.list();
+
+    /** The projection. */
+    private final EquirectangularProjection myProjection = new EquirectangularProjection();
+
+    /** The geometries removed by the last update. */
+    private final List<Geometry> myRemoves = New.list();
+
+    /** The transformer being tested. */
+    private MGRSTransformer myTransformer;
+
+    /** The viewer. */
+    private Viewer2D myViewer;
+
+    /** Set up the viewer and the transformer. */
+    @Before
+    public void setUp()
+    {
+        AbstractDynamicViewer.Builder builder = new AbstractDynamicViewer.Builder().maxZoom(1000000.).minZoom(1.);
+        builder.modelWidth(myProjection.getModelWidth());
+        builder.modelHeight(myProjection.getModelHeight());
+        MapManager mapManager = EasyMock.createMock(MapManager.class);
+        EasyMock.expect(mapManager.getProjection(Viewer2D.class)).andReturn(myProjection).anyTimes();
+        EasyMock.replay(mapManager);
+
+        myViewer = new Viewer2D(builder, false);
+        myViewer.setMapContext(mapManager);
+        myViewer.reshape(800, 600);
+
+        myTransformer = new MGRSTransformer();
+        myTransformer.open();
+        myTransformer.addSubscriber((source, adds, removes) ->
+        {
+            myAdds.addAll(adds);
+            myRemoves.addAll(removes);
+        });
+        moveTo(6.4, SQUARE_SCALE);
+        myTransformer.display(myViewer, myProjection);
+    }
+
+    /**
+     * Test that the squares at the edges of zones near the equator, whose
+     * centers are outside of the easting range accepted by {@link UTM}, are
+     * generated and named.
+     */
+    @Test
+    public void testEdgeOfZoneSquares()
+    {
+        List<String> names = getLabelText(myAdds);
+
+        // The west edge of zone 32 and the east edge of zone 31.
+        Assert.assertTrue(names.contains(getSquareName(32, 150000.)));
+        Assert.assertTrue(names.contains(getSquareName(31, 850000.)));
+    }
+
+    /**
+     * Test that the easting and northing labels of the sub grids are only
+     * created when they are in view, and are added as they come into view.
+     */
+    @Test
+    public void testLazyLabels()
+    {
+        update(6.4, SUB_GRID_SCALE);
+        GeographicBoundingBox firstView = getViewBounds();
+        List<LabelGeometry> firstLabels = getLabels(myAdds);
+        Assert.assertFalse(firstLabels.isEmpty());
+        for (LabelGeometry label : firstLabels)
+        {
+            Assert.assertTrue(firstView.contains((GeographicPosition)label.getPosition(), 0.));
+        }
+
+        update(6.6, SUB_GRID_SCALE);
+        GeographicBoundingBox secondView = getViewBounds();
+        List<LabelGeometry> newLabels = getLabels(myAdds);
+        Assert.assertFalse(newLabels.isEmpty());
+        for (LabelGeometry label : newLabels)
+        {
+            Assert.assertFalse(firstLabels.contains(label));
+            Assert.assertFalse(firstView.contains((GeographicPosition)label.getPosition(), 0.));
+            Assert.assertTrue(secondView.contains((GeographicPosition)label.getPosition(), 0.));
+        }
+    }
+
+    /**
+     * Test that the geometries of a grid that leaves the view and comes back
+     * are published again rather than re-created.
+     */
+    @Test
+    public void testRepublish()
+    {
+        update(6.4, SUB_GRID_SCALE);
+        Set<Geometry> first = Collections.newSetFromMap(new IdentityHashMap<>());
+        first.addAll(myAdds);
+
+        update(6.6, SUB_GRID_SCALE);
+        Assert.assertFalse(myRemoves.isEmpty());
+        Set<Geometry> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removed.addAll(myRemoves);
+        Assert.assertTrue(first.containsAll(removed));
+
+        update(6.4, SUB_GRID_SCALE);
+        Assert.assertEquals(removed.size(), myAdds.size());
+        Assert.assertTrue(myAdds.stream().allMatch(removed::contains));
+    }
+
+    /**
+     * Get the labels in some geometries.
+     *
+     * @param geometries The geometries.
+     * @return The labels.
+     */
+    private List<LabelGeometry> getLabels(Collection<Geometry> geometries)
+    {
+        return geometries.stream().filter(g -> g instanceof LabelGeometry).map(g -> (LabelGeometry)g).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the text of the labels in some geometries.
+     *
+     * @param geometries The geometries.
+     * @return The label text.
+     */
+    private List<String> getLabelText(Collection<Geometry> geometries)
+    {
+        return getLabels(geometries).stream().map(LabelGeometry::getText).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the name of the 100 km square in the first row north of the equator
+     * with a given easting, using an easting in the same column that
+     * {@link UTM} accepts.
+     *
+     * @param zone The UTM zone.
+     * @param easting The easting of the center of the square.
+     * @return The name.
+     */
+    private String getSquareName(int zone, double easting)
+    {
+        double validEasting = easting < UTM.MIN_EASTING ? UTM.MIN_EASTING : UTM.MAX_EASTING;
+        return new MGRSConverter().createString(new UTM(zone, Hemisphere.NORTH, validEasting, 50000.)).substring(3, 5);
+    }
+
+    /**
+     * Get the bounds of the current view.
+     *
+     * @return The bounds.
+     */
+    private GeographicBoundingBox getViewBounds()
+    {
+        GeographicPosition lowerLeft = myProjection.convertToPosition(myViewer.windowToModelCoords(Vector2i.ORIGIN),
+                ReferenceLevel.ELLIPSOID);
+        GeographicPosition upperRight = myProjection.convertToPosition(
+                myViewer.windowToModelCoords(new Vector2i(myViewer.getViewportWidth(), myViewer.getViewportHeight())),
+                ReferenceLevel.ELLIPSOID);
+        return new GeographicBoundingBox(lowerLeft, upperRight);
+    }
+
+    /**
+     * Move the viewer to a position on the equator.
+     *
+     * @param lon The longitude of the center of the view.
+     * @param scale The scale of the view.
+     */
+    private void moveTo(double lon, double scale)
+    {
+        GeographicPosition center = new GeographicPosition(LatLonAlt.createFromDegrees(.5, lon));
+        myViewer.setPosition(new ViewerPosition2D(myProjection.convertToModel(center, myProjection.getModelCenter()), scale));
+    }
+
+    /**
+     * Move the viewer and update the grid.
+     *
+     * @param lon The longitude of the center of the view.
+     * @param scale The scale of the view.
+     */
+    private void update(double lon, double scale)
+    {
+        moveTo(lon, scale);
+        myAdds.clear();
+        myRemoves.clear();
+        myTransformer.updateGrid(myViewer, myProjection);
+    }
+}
@@ -4,7 +4,6 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -39,6 +38,7 @@ import io.opensphere.core.image.DDSImage;
 import io.opensphere.core.image.Image;
 import io.opensphere.core.image.ImageFormatUnknownException;
 import io.opensphere.core.image.ImageIOImage;
+import io.opensphere.core.image.TileRecord;
 import io.opensphere.core.model.GeographicBoundingBox;
 import io.opensphere.core.model.LatLonAlt;
 import io.opensphere.core.model.ZYXImageKey;
@@ -140,9 +140,9 @@ public abstract class XYZTileEnvoy extends AbstractEnvoy implements DataRegistry
                     reader.copyStream(imageOut);
                     Image image = ImageIOImage.read(new ByteArrayInputStream(imageOut.toByteArray()), false);
                     DDSImage ddsImage = ((ImageIOImage)image).asDDSImage();
-                    ByteArrayOutputStream out = new ByteArrayOutputStream();
-                    ObjectOutputStream output = new ObjectOutputStream(out);
-                    output.writeObject(ddsImage);
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(
+                            TileRecord.HEADER_SIZE + (int)ddsImage.getSizeInBytes());
+                    TileRecord.write(ddsImage, out);
                     InputStream ddsStream = new ByteArrayInputStream(out.toByteArray());
 
                     Collection<PropertyAccessor<InputStream, ?>> imageAccessors = New.collection();
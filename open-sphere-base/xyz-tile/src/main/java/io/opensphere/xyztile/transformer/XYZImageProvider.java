@@ -1,10 +1,14 @@
 package io.opensphere.xyztile.transformer;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
+import java.util.Collections;
 import java.util.List;
 import java.util.ServiceLoader;
 import java.util.concurrent.Executor;
@@ -13,15 +17,18 @@ import org.apache.log4j.Logger;
 
 import io.opensphere.auxiliary.cache.jdbc.CustomObjectInputStream;
 import io.opensphere.core.cache.ClassProvider;
+import io.opensphere.core.cache.accessor.InputStreamAccessor;
 import io.opensphere.core.cache.matcher.PropertyMatcher;
 import io.opensphere.core.cache.matcher.ZYXKeyPropertyMatcher;
 import io.opensphere.core.data.DataRegistry;
 import io.opensphere.core.data.util.DataModelCategory;
 import io.opensphere.core.data.util.QueryTracker;
 import io.opensphere.core.data.util.SimpleQuery;
+import io.opensphere.core.image.DDSImage;
 import io.opensphere.core.image.Image;
 import io.opensphere.core.image.ImageProvider;
 import io.opensphere.core.image.StreamingDDSImage;
+import io.opensphere.core.image.TileRecord;
 import io.opensphere.core.model.ZYXImageKey;
 import io.opensphere.core.util.collections.CollectionUtilities;
 import io.opensphere.core.util.collections.LazyMap.Factory;
@@ -39,19 +46,23 @@ public class XYZImageProvider implements ImageProvider<ZYXImageKey>
     /** Procrastinating executor used to clean up the byte buffer pool. */
     private static final Executor CLEANUP_EXECUTOR = CommonTimer.createProcrastinatingExecutor(10000, 30000);
 
+    /** The accessor used to replace legacy tiles with tile records. */
+    private static final InputStreamAccessor<InputStream> IMAGE_STREAM_ACCESSOR = InputStreamAccessor
+            .getHomogeneousAccessor(XYZTileUtils.IMAGE_PROPERTY_DESCRIPTOR);
+
     /**
      * Used to log messages.
      */
     private static final Logger LOGGER = Logger.getLogger(XYZImageProvider.class);
 
-    /** Pool of byte buffers shared by all layer image providers. */
+    /** Pool of direct byte buffers shared by all layer image providers. */
     private static final MappedObjectPool<Integer, ByteBuffer> ourByteBufferPool = new MappedObjectPool<Integer, ByteBuffer>(
             Integer.class, new Factory<Integer, ByteBuffer>()
             {
                 @Override
                 public ByteBuffer create(Integer capacity)
                 {
-                    return ByteBuffer.allocate(capacity.intValue());
+                    return ByteBuffer.allocateDirect(capacity.intValue());
                 }
             }, 20, 20, CLEANUP_EXECUTOR);
 
@@ -100,19 +111,29 @@ public class XYZImageProvider implements ImageProvider<ZYXImageKey>
             try
             {
                 InputStream stream = query.getResults().get(0);
-
-                StreamingDDSImage.setThreadByteBufferPool(ourByteBufferPool);
-                try (ObjectInputStream ois = new CustomObjectInputStream(myClassProvider, stream))
+                if (!stream.markSupported())
                 {
-                    image = (Image)ois.readObject();
+                    stream = new BufferedInputStream(stream);
                 }
-                catch (ClassNotFoundException e)
+
+                if (TileRecord.isTileRecord(stream))
                 {
-                    LOGGER.error(e, e);
+                    try
+                    {
+                        image = TileRecord.read(stream, ourByteBufferPool);
+                    }
+                    finally
+                    {
+                        stream.close();
+                    }
                 }
-                finally
+                else
                 {
-                    StreamingDDSImage.setThreadByteBufferPool(null);
+                    image = readLegacyImage(stream);
+                    if (image instanceof DDSImage)
+                    {
+                        migrate(tracker, (DDSImage)image);
+                    }
                 }
             }
             catch (ClosedByInterruptException e)
@@ -134,4 +155,57 @@ public class XYZImageProvider implements ImageProvider<ZYXImageKey>
 
         return image;
     }
+
+    /**
+     * Replace a tile which was cached as a serialized image with a tile
+     * record, so that subsequent reads do not need to deserialize it.
+     *
+     * @param tracker The tracker for the query which returned the tile.
+     * @param image The image which was read from the tile.
+     */
+    private void migrate(QueryTracker tracker, DDSImage image)
+    {
+        long[] ids = tracker.getIds();
+        if (ids == null || ids.length == 0)
+        {
+            return;
+        }
+
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(TileRecord.HEADER_SIZE + (int)image.getSizeInBytes());
+            TileRecord.write(image, out);
+            myRegistry.updateModels(new long[] { ids[0] }, Collections.singleton(new ByteArrayInputStream(out.toByteArray())),
+                    Collections.singleton(IMAGE_STREAM_ACCESSOR), null);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            LOGGER.warn("Failed to migrate cached tile: " + e, e);
+        }
+    }
+
+    /**
+     * Read a tile which was cached as a serialized image.
+     *
+     * @param stream The stream.
+     * @return The image, or {@code null} if its class could not be found.
+     * @throws IOException If the stream cannot be read.
+     */
+    private Image readLegacyImage(InputStream stream) throws IOException
+    {
+        StreamingDDSImage.setThreadByteBufferPool(ourByteBufferPool);
+        try (ObjectInputStream ois = new CustomObjectInputStream(myClassProvider, stream))
+        {
+            return (Image)ois.readObject();
+        }
+        catch (ClassNotFoundException e)
+        {
+            LOGGER.error(e, e);
+            return null;
+        }
+        finally
+        {
+            StreamingDDSImage.setThreadByteBufferPool(null);
+        }
+    }
 }
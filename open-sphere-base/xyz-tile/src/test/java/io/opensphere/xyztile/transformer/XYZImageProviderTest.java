@@ -8,6 +8,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
 
 import javax.imageio.ImageIO;
 
@@ -24,6 +25,7 @@ import io.opensphere.core.data.util.SimpleQuery;
 import io.opensphere.core.image.DDSImage;
 import io.opensphere.core.image.Image;
 import io.opensphere.core.image.ImageFormatUnknownException;
+import io.opensphere.core.image.TileRecord;
 import io.opensphere.core.model.GeographicBoundingBox;
 import io.opensphere.core.model.LatLonAlt;
 import io.opensphere.core.model.ZYXImageKey;
@@ -52,14 +54,38 @@ public class XYZImageProviderTest
             0, new XYZServerInfo("serverName", "http://mapbox.geointapps.org"));
 
     /**
-     * Tests providing an image.
+     * Tests providing an image which was cached as a serialized object, which
+     * should be migrated to a tile record.
      */
     @Test
     public void testImage()
     {
         EasyMockSupport support = new EasyMockSupport();
 
-        DataRegistry registry = createRegistry(support, true);
+        DataRegistry registry = createRegistry(support, true, false);
+        registry.updateModels(EasyMock.aryEq(new long[] { 7L }), EasyMock.anyObject(), EasyMock.anyObject(),
+                EasyMock.isNull());
+
+        support.replayAll();
+
+        XYZImageProvider provider = new XYZImageProvider(registry, ourLayer);
+        Image image = provider.getImage(ourImageKey);
+
+        assertTrue(image instanceof DDSImage);
+        assertTrue(((DDSImage)image).getByteBuffer().remaining() > 0);
+
+        support.verifyAll();
+    }
+
+    /**
+     * Tests providing an image which was cached as a tile record.
+     */
+    @Test
+    public void testTileRecord()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+
+        DataRegistry registry = createRegistry(support, true, true);
 
         support.replayAll();
 
@@ -80,7 +106,7 @@ public class XYZImageProviderTest
     {
         EasyMockSupport support = new EasyMockSupport();
 
-        DataRegistry registry = createRegistry(support, false);
+        DataRegistry registry = createRegistry(support, false, false);
 
         support.replayAll();
 
@@ -98,9 +124,11 @@ public class XYZImageProviderTest
      * @param support Used to create the mock.
      * @param returnResults True if image should be returned in the query, false
      *            if not.
+     * @param tileRecord True if the image should be returned as a tile record,
+     *            false if it should be returned as a serialized object.
      * @return The mocked data registry.
      */
-    private DataRegistry createRegistry(EasyMockSupport support, boolean returnResults)
+    private DataRegistry createRegistry(EasyMockSupport support, boolean returnResults, boolean tileRecord)
     {
         DataRegistry registry = support.createMock(DataRegistry.class);
         QueryTracker tracker = support.createMock(QueryTracker.class);
@@ -108,9 +136,13 @@ public class XYZImageProviderTest
         {
             EasyMock.expect(tracker.getException()).andReturn(null);
         }
+        else if (!tileRecord)
+        {
+            EasyMock.expect(tracker.getIds()).andReturn(new long[] { 7L });
+        }
 
         EasyMock.expect(registry.performQuery(EasyMock.isA(SimpleQuery.class)))
-                .andAnswer(() -> queryAnswer(tracker, returnResults));
+                .andAnswer(() -> queryAnswer(tracker, returnResults, tileRecord));
 
         return registry;
     }
@@ -121,11 +153,14 @@ public class XYZImageProviderTest
      * @param tracker An easy mocked {@link QueryTracker} to return.
      * @param returnResults True if image should be returned in the query, false
      *            if not.
+     * @param tileRecord True if the image should be returned as a tile record.
      * @return The passed in {@link QueryTracker}.
      * @throws IOException Bad IO.
      * @throws ImageFormatUnknownException Bad image.
+     * @throws ClassNotFoundException Bad image.
      */
-    private QueryTracker queryAnswer(QueryTracker tracker, boolean returnResults) throws IOException, ImageFormatUnknownException
+    private QueryTracker queryAnswer(QueryTracker tracker, boolean returnResults, boolean tileRecord)
+        throws IOException, ImageFormatUnknownException, ClassNotFoundException
     {
         @SuppressWarnings("unchecked")
         SimpleQuery<InputStream> query = (SimpleQuery<InputStream>)EasyMock.getCurrentArguments()[0];
@@ -152,6 +187,17 @@ public class XYZImageProviderTest
             byte[] imageBytes = output.toByteArray();
 
             InputStream input = Image.getDDSImageStream(new ByteArrayInputStream(imageBytes), "png", imageBytes.length, null);
+            if (tileRecord)
+            {
+                DDSImage image;
+                try (ObjectInputStream ois = new ObjectInputStream(input))
+                {
+                    image = (DDSImage)ois.readObject();
+                }
+                ByteArrayOutputStream recordOut = new ByteArrayOutputStream();
+                TileRecord.write(image, recordOut);
+                input = new ByteArrayInputStream(recordOut.toByteArray());
+            }
 
             receiver.receive(New.list(input));
         }
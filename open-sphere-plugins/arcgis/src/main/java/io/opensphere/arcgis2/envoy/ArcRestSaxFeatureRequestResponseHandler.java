@@ -2,6 +2,7 @@ package io.opensphere.arcgis2.envoy;
 
 import java.awt.Color;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
@@ -18,11 +19,17 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.text.StringEscapeUtils;
 import org.apache.log4j.Logger;
 
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
 import io.opensphere.arcgis2.envoy.ArcConstants.ArcSaxState;
 import io.opensphere.arcgis2.esri.EsriFullLayer.EsriGeometryType;
 import io.opensphere.core.common.json.JSONSaxHandler;
 import io.opensphere.core.common.json.JSONSaxParseException;
-import io.opensphere.core.common.json.JSONSaxParser;
+import io.opensphere.core.common.json.JSONStreamTokenizer;
+import io.opensphere.core.common.json.JSONStreamTokenizer.Token;
+import io.opensphere.core.common.json.obj.JSONSaxBooleanValue;
+import io.opensphere.core.common.json.obj.JSONSaxNullValue;
+import io.opensphere.core.common.json.obj.JSONSaxNumberValue;
 import io.opensphere.core.common.json.obj.JSONSaxPrimitiveValue;
 import io.opensphere.core.common.json.obj.JSONSaxTextValue;
 import io.opensphere.core.common.util.SimpleDateFormatHelper;
@@ -49,7 +56,9 @@ import io.opensphere.mantle.data.impl.specialkey.TimeKey;
 
 /**
  * The Class ArcRestSaxFeatureRequestResponseHandler uses a sax parser to
- * translate results from a JSON-formatted Arc REST data query.
+ * translate results from a JSON-formatted Arc REST data query. Responses are
+ * read with a {@link JSONStreamTokenizer}, which drives the same handler
+ * callbacks, except that coordinates are read straight into primitive lists.
  */
 @SuppressWarnings("PMD.GodClass")
 public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
@@ -72,6 +81,9 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
     /** Consumer of translated points, tracks, and polygons. */
     private final Aggregator<MapDataElement> myConsumer;
 
+    /** Reused buffer of x/y pairs for the paths or rings of a geometry. */
+    private final TDoubleArrayList myCoordinates = new TDoubleArrayList();
+
     /** My current attribute name. */
     private String myCurrentAttributeName;
 
@@ -111,6 +123,9 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
     /** Count of processed features. */
     private int myFeatureCount;
 
+    /** Reused buffer of the end indices of each path or ring. */
+    private final TIntArrayList myPartEnds = new TIntArrayList();
+
     /** List of lists of points. */
     private final List<List<LatLonAlt>> myPointListList = New.list();
 
@@ -336,9 +351,10 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
      */
     public void handleResponse(File file) throws JSONSaxParseException, IOException
     {
-        JSONSaxParser aParser = new JSONSaxParser(this);
-        aParser.parse(file);
-        myConsumer.processAll();
+        try (InputStream inputStream = new FileInputStream(file))
+        {
+            handleResponse(inputStream);
+        }
     }
 
     /**
@@ -353,8 +369,15 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
      */
     public void handleResponse(InputStream inputStream) throws JSONSaxParseException, IOException
     {
-        JSONSaxParser aParser = new JSONSaxParser(this);
-        aParser.parse(inputStream);
+        try
+        {
+            parse(new JSONStreamTokenizer(inputStream));
+        }
+        catch (JSONSaxParseException e)
+        {
+            fatalError(e);
+            throw e;
+        }
         myConsumer.processAll();
     }
 
@@ -494,22 +517,22 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
                 collectAttributes(value);
                 break;
             case COLLECT_POINT_X_VALUE:
-                collectPointX(value);
+                collectPointX(value.getDouble());
                 break;
             case COLLECT_POINT_Y_VALUE:
-                collectPointY(value);
+                collectPointY(value.getDouble());
                 break;
             case COLLECT_TRACK_PATH_X:
-                collectTrackPathX(value);
+                collectTrackPathX(value.getDouble());
                 break;
             case COLLECT_TRACK_PATH_Y:
-                collectTrackPathY(value);
+                collectTrackPathY(value.getDouble());
                 break;
             case COLLECT_POLYGON_RING_X:
-                collectPolygonRingX(value);
+                collectPolygonRingX(value.getDouble());
                 break;
             case COLLECT_POLYGON_RING_Y:
-                collectPolygonRingY(value);
+                collectPolygonRingY(value.getDouble());
                 break;
             default:
                 break;
@@ -758,9 +781,9 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
      *
      * @param value The value.
      */
-    private void collectPointX(JSONSaxPrimitiveValue value)
+    private void collectPointX(double value)
     {
-        myCurrentLon = value.getDouble();
+        myCurrentLon = value;
         if (LOGGER.isTraceEnabled())
         {
             LOGGER.trace("->COLLECTED POINT X VALUE(LON): " + myCurrentLon);
@@ -773,9 +796,9 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
      *
      * @param value The value.
      */
-    private void collectPointY(JSONSaxPrimitiveValue value)
+    private void collectPointY(double value)
     {
-        myCurrentLat = value.getDouble();
+        myCurrentLat = value;
         if (LOGGER.isTraceEnabled())
         {
             LOGGER.trace("->COLLECTED POINT Y VALUE(LAT): " + myCurrentLon);
@@ -790,9 +813,9 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
      *
      * @param value The value.
      */
-    private void collectPolygonRingX(JSONSaxPrimitiveValue value)
+    private void collectPolygonRingX(double value)
     {
-        myCurrentLon = value.getDouble();
+        myCurrentLon = value;
         myState = ArcSaxState.COLLECT_POLYGON_RING_Y;
     }
 
@@ -801,9 +824,9 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
      *
      * @param value The value.
      */
-    private void collectPolygonRingY(JSONSaxPrimitiveValue value)
+    private void collectPolygonRingY(double value)
     {
-        myCurrentLat = value.getDouble();
+        myCurrentLat = value;
         myCurrentPoints.add(LatLonAlt.createFromDegrees(myCurrentLat, myCurrentLon));
         myState = ArcSaxState.COLLECT_POLYGON_RING_X;
     }
@@ -813,9 +836,9 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
      *
      * @param value The value.
      */
-    private void collectTrackPathX(JSONSaxPrimitiveValue value)
+    private void collectTrackPathX(double value)
     {
-        myCurrentLon = value.getDouble();
+        myCurrentLon = value;
         myState = ArcSaxState.COLLECT_TRACK_PATH_Y;
     }
 
@@ -824,13 +847,83 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
      *
      * @param value The value.
      */
-    private void collectTrackPathY(JSONSaxPrimitiveValue value)
+    private void collectTrackPathY(double value)
     {
-        myCurrentLat = value.getDouble();
+        myCurrentLat = value;
         myCurrentPoints.add(LatLonAlt.createFromDegrees(myCurrentLat, myCurrentLon));
         myState = ArcSaxState.COLLECT_TRACK_PATH_X;
     }
 
+    /**
+     * Reads the paths or rings of a polyline or polygon geometry into the
+     * current point lists. The tokenizer must be positioned at the start of
+     * the outer array.
+     *
+     * @param tokenizer the tokenizer
+     * @throws IOException if the response cannot be read
+     * @throws JSONSaxParseException if the arrays are malformed
+     */
+    private void collectPositions(JSONStreamTokenizer tokenizer) throws IOException, JSONSaxParseException
+    {
+        myCoordinates.resetQuick();
+        myPartEnds.resetQuick();
+        tokenizer.readPositionArrays(myCoordinates, myPartEnds);
+        int start = 0;
+        for (int part = 0; part < myPartEnds.size(); ++part)
+        {
+            int end = myPartEnds.getQuick(part);
+            List<LatLonAlt> points = New.list((end - start) / 2);
+            for (int index = start; index < end; index += 2)
+            {
+                points.add(LatLonAlt.createFromDegrees(myCoordinates.getQuick(index + 1), myCoordinates.getQuick(index)));
+            }
+            myPointListList.add(points);
+            start = end;
+        }
+    }
+
+    /**
+     * Collects a value from the tokenizer. Coordinates are read without
+     * creating intermediate objects, and values in states that do not use
+     * them are skipped without conversion.
+     *
+     * @param tokenizer the tokenizer, positioned at a value token
+     * @param token the value token
+     */
+    private void collectValue(JSONStreamTokenizer tokenizer, Token token)
+    {
+        switch (myState)
+        {
+            case COLLECT_GEOMETRY_TYPE:
+                collectGeometry(createValue(tokenizer, token));
+                break;
+            case COLLECT_ATTRIBUTES:
+                // The tokenizer has already decoded any escapes.
+                myCurrentAttributes.add(Pair.create(myCurrentAttributeName, createValue(tokenizer, token)));
+                break;
+            case COLLECT_POINT_X_VALUE:
+                collectPointX(tokenizer.getDouble());
+                break;
+            case COLLECT_POINT_Y_VALUE:
+                collectPointY(tokenizer.getDouble());
+                break;
+            case COLLECT_TRACK_PATH_X:
+                collectTrackPathX(tokenizer.getDouble());
+                break;
+            case COLLECT_TRACK_PATH_Y:
+                collectTrackPathY(tokenizer.getDouble());
+                break;
+            case COLLECT_POLYGON_RING_X:
+                collectPolygonRingX(tokenizer.getDouble());
+                break;
+            case COLLECT_POLYGON_RING_Y:
+                collectPolygonRingY(tokenizer.getDouble());
+                break;
+            default:
+                break;
+        }
+    }
+
     /**
      * Reformat a JSON primitive date into a java Date object.
      *
@@ -1111,6 +1204,29 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
         return trackList;
     }
 
+    /**
+     * Creates a primitive value for the current token.
+     *
+     * @param tokenizer the tokenizer
+     * @param token the value token
+     * @return the value
+     */
+    private JSONSaxPrimitiveValue createValue(JSONStreamTokenizer tokenizer, Token token)
+    {
+        switch (token)
+        {
+            case NUMBER:
+                return new JSONSaxNumberValue(tokenizer.getString());
+            case TRUE:
+            case FALSE:
+                return new JSONSaxBooleanValue(tokenizer.getString());
+            case NULL:
+                return new JSONSaxNullValue(tokenizer.getString());
+            default:
+                return new JSONSaxTextValue(tokenizer.getString());
+        }
+    }
+
     /**
      * Determine element color.
      *
@@ -1192,6 +1308,51 @@ public class ArcRestSaxFeatureRequestResponseHandler implements JSONSaxHandler
         return polygons;
     }
 
+    /**
+     * Drives the handler callbacks from a tokenizer.
+     *
+     * @param tokenizer the tokenizer
+     * @throws IOException if the response cannot be read
+     * @throws JSONSaxParseException if the response is malformed
+     */
+    private void parse(JSONStreamTokenizer tokenizer) throws IOException, JSONSaxParseException
+    {
+        documentStart();
+        for (Token token = tokenizer.next(); token != Token.END_DOCUMENT; token = tokenizer.next())
+        {
+            switch (token)
+            {
+                case OBJECT_START:
+                    objectStart();
+                    break;
+                case OBJECT_END:
+                    objectEnd();
+                    break;
+                case ARRAY_START:
+                    if (myRelativeArrayDepth == 0
+                            && (myState == ArcSaxState.COLLECT_TRACK_PATH_X || myState == ArcSaxState.COLLECT_POLYGON_RING_X))
+                    {
+                        collectPositions(tokenizer);
+                    }
+                    else
+                    {
+                        arrayStart();
+                    }
+                    break;
+                case ARRAY_END:
+                    arrayEnd();
+                    break;
+                case KEY:
+                    key(tokenizer.getString());
+                    break;
+                default:
+                    collectValue(tokenizer, token);
+                    break;
+            }
+        }
+        documentEnd();
+    }
+
     /**
      * Utility function for extracting and converting dates as they are found in
      * the JSON response. Several formats are tried.
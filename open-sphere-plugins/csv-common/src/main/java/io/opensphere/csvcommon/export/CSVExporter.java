@@ -1,19 +1,20 @@
 package io.opensphere.csvcommon.export;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.util.Collection;
 import java.util.List;
-import java.util.function.Function;
 
 import org.apache.commons.text.StringEscapeUtils;
 import org.apache.log4j.Logger;
 
 import io.opensphere.core.export.AbstractExporter;
+import io.opensphere.core.export.CollectionExportCursor;
+import io.opensphere.core.export.ExportChannelWriter;
+import io.opensphere.core.export.ExportException;
+import io.opensphere.core.export.StreamingExportEngine;
 import io.opensphere.core.util.MimeType;
-import io.opensphere.core.util.collections.StreamUtilities;
 import io.opensphere.core.util.lang.StringUtilities;
 
 /** A generic CSV exporter that exports a collection of lists. */
@@ -25,28 +26,58 @@ public class CSVExporter extends AbstractExporter
     /** Name of the UTF-8 Charset. */
     private static final String UTF8_NAME = "UTF-8";
 
-    /** Function to format a cell. */
-    private static final Function<Object, String> FORMAT_CELL = new Function<Object, String>()
+    /**
+     * Appends a row of cells to a CSV document, followed by a line separator.
+     *
+     * @param sb The document.
+     * @param cells The cells.
+     */
+    static void appendRow(StringBuilder sb, Collection<?> cells)
     {
-        @Override
-        public String apply(Object cell)
+        boolean first = true;
+        for (Object cell : cells)
         {
-            String translate = "";
+            if (!first)
+            {
+                sb.append(',');
+            }
+            first = false;
             if (cell != null)
             {
                 try
                 {
-                    translate = StringEscapeUtils.escapeCsv(cell.toString());
+                    sb.append(StringEscapeUtils.escapeCsv(cell.toString()));
                 }
                 catch (StringIndexOutOfBoundsException e)
                 {
                     LOGGER.error(e, e);
                 }
             }
+        }
+        sb.append(System.lineSeparator());
+    }
 
-            return translate;
+    /**
+     * Writes the byte order mark if the default charset is UTF-8.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the stream cannot be written.
+     */
+    static void writeByteOrderMark(FileOutputStream out) throws IOException
+    {
+        // Note:  On Windows, files encoded in UTF-8 that do not have the
+        // "Byte Order Mark" may not be interpreted correctly by native
+        // applications (Excel and LibreOffice are known examples).
+        // Therefore, we include the BOM even though standard pratice in
+        // Java is to omit it.
+        if (StringUtilities.DEFAULT_CHARSET.name().equals(UTF8_NAME))
+        {
+            // "Byte Order Mark" for UTF-8:  EF BB BF
+            out.write(0xef);
+            out.write(0xbb);
+            out.write(0xbf);
         }
-    };
+    }
 
     @Override
     public boolean canExport(Class<?> target)
@@ -55,29 +86,24 @@ public class CSVExporter extends AbstractExporter
     }
 
     @Override
-    public File export(File file) throws IOException
+    public File export(File file) throws IOException, ExportException
     {
         try (FileOutputStream out = new FileOutputStream(getExportFiles(file).iterator().next()))
         {
-            // Note:  On Windows, files encoded in UTF-8 that do not have the
-            // "Byte Order Mark" may not be interpreted correctly by native
-            // applications (Excel and LibreOffice are known examples).
-            // Therefore, we include the BOM even though standard pratice in
-            // Java is to omit it.
-            if (StringUtilities.DEFAULT_CHARSET.name().equals(UTF8_NAME))
-            {
-                // "Byte Order Mark" for UTF-8:  EF BB BF
-                out.write(0xef);
-                out.write(0xbb);
-                out.write(0xbf);
-            }
-            BufferedWriter w = new BufferedWriter(new OutputStreamWriter(out, StringUtilities.DEFAULT_CHARSET.newEncoder()));
-            for (Object obj : getObjects())
+            writeByteOrderMark(out);
+            try (ExportChannelWriter writer = new ExportChannelWriter(out.getChannel(), StringUtilities.DEFAULT_CHARSET))
             {
-                w.write(StringUtilities.join(",", StreamUtilities.map((List<?>)obj, FORMAT_CELL)));
-                w.newLine();
+                StreamingExportEngine.getDefault().export(
+                        new CollectionExportCursor<>(getObjects(), StreamingExportEngine.DEFAULT_BATCH_SIZE), (batch, offset) ->
+                        {
+                            StringBuilder sb = new StringBuilder(batch.size() * 64);
+                            for (Object row : batch)
+                            {
+                                appendRow(sb, (List<?>)row);
+                            }
+                            return sb;
+                        }, writer, null);
             }
-            w.flush();
         }
 
         return file;
@@ -31,6 +31,12 @@ import mil.nga.geopackage.validate.GeoPackageValidate;
  */
 public class GeoPackageImporter implements FileOrURLImporter
 {
+    /**
+     * True if imported geopackages are read directly from their files rather
+     * than having their tiles and features copied into the registry.
+     */
+    private static final boolean DIRECT_READ = Boolean.getBoolean("opensphere.geopackage.directRead");
+
     /**
      * Importer for layers.
      */
@@ -56,7 +62,7 @@ public class GeoPackageImporter implements FileOrURLImporter
      */
     public GeoPackageImporter(DataRegistry registry, UIRegistry uiRegistry, Set<String> alreadyImported)
     {
-        myLayerImporter = new LayerImporter(registry);
+        myLayerImporter = new LayerImporter(registry, DIRECT_READ);
         myTileImporter = new TileImporter(new TileRowImporterImpl(registry));
         myUIRegistry = uiRegistry;
         ThreadUtilities.runBackground(() ->
@@ -0,0 +1,280 @@
+package io.opensphere.geopackage.importer.feature;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.geopackage.util.GeoPackageCoordinateUtils;
+import mil.nga.geopackage.BoundingBox;
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.extension.index.RTreeIndexExtension;
+import mil.nga.geopackage.features.user.FeatureDao;
+import mil.nga.geopackage.features.user.FeatureResultSet;
+import mil.nga.geopackage.features.user.FeatureRow;
+import mil.nga.geopackage.geom.GeoPackageGeometryData;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.proj.Projection;
+import mil.nga.sf.proj.ProjectionConstants;
+import mil.nga.sf.proj.ProjectionFactory;
+import mil.nga.sf.proj.ProjectionTransform;
+import mil.nga.sf.util.GeometryEnvelopeBuilder;
+
+/**
+ * Reads the features of a geopackage feature table that fall within a
+ * bounding box, straight from the geopackage file. If the table has an R-tree
+ * spatial index the index is used to find the features, otherwise each
+ * feature's envelope is checked.
+ * <p>
+ * The table is read in batches ordered by feature id. The geopackage is only
+ * locked while a batch is queried, so other readers of the same file (such as
+ * the tile provider) are not held up by a long read.
+ */
+public class BoundingBoxFeatureReader
+{
+    /**
+     * The default number of rows queried at a time.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * The geodetic projection the bounding boxes are in.
+     */
+    private static final Projection GEODETIC = ProjectionFactory.getProjection(ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM);
+
+    /**
+     * The number of rows queried at a time.
+     */
+    private final int myBatchSize;
+
+    /**
+     * Imports data for a single row.
+     */
+    private final RowImporter myRowImporter = new RowImporter();
+
+    /**
+     * Constructs a new reader.
+     */
+    public BoundingBoxFeatureReader()
+    {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a new reader.
+     *
+     * @param batchSize The number of rows queried at a time.
+     */
+    BoundingBoxFeatureReader(int batchSize)
+    {
+        myBatchSize = batchSize;
+    }
+
+    /**
+     * Checks if a feature's envelope intersects a bounding box. Both must be
+     * in the same projection.
+     *
+     * @param envelope The feature's envelope.
+     * @param box The bounding box.
+     * @return True if they intersect.
+     */
+    static boolean intersects(GeometryEnvelope envelope, BoundingBox box)
+    {
+        return envelope.getMinX() <= box.getMaxLongitude() && envelope.getMaxX() >= box.getMinLongitude()
+                && envelope.getMinY() <= box.getMaxLatitude() && envelope.getMaxY() >= box.getMinLatitude();
+    }
+
+    /**
+     * Reads the features within the bounding box that have not been read yet,
+     * handing them to the consumer a batch at a time. Reading stops once
+     * {@code maxFeatures} features have been read for the table, or when the
+     * consumer returns false.
+     *
+     * @param geoPackage The open geopackage.
+     * @param table The name of the feature table.
+     * @param boundingBox The bounding box to read features for.
+     * @param loadedIds The ids of the features that have already been read,
+     *            the ids of the newly read features are added to it.
+     * @param maxFeatures The maximum size of {@code loadedIds}.
+     * @param consumer Receives each batch of newly read features, and returns
+     *            false if no more features should be read.
+     */
+    public void readFeatures(GeoPackage geoPackage, String table, GeographicBoundingBox boundingBox, Set<Long> loadedIds,
+            int maxFeatures, Predicate<? super List<Map<String, Serializable>>> consumer)
+    {
+        FeatureDao dao;
+        String indexTable;
+        synchronized (geoPackage)
+        {
+            dao = geoPackage.getFeatureDao(table);
+            RTreeIndexExtension rTree = new RTreeIndexExtension(geoPackage);
+            indexTable = rTree.has(table) ? rTree.getRTreeTableName(table, dao.getGeometryColumnName()) : null;
+        }
+
+        BoundingBox tableBox = toBoundingBox(boundingBox).transform(GEODETIC.getTransformation(dao.getProjection()));
+        readFeatures(geoPackage, dao, tableBox, indexTable, loadedIds, maxFeatures, consumer);
+    }
+
+    /**
+     * Reads the features within the bounding box that have not been read yet,
+     * a batch at a time.
+     *
+     * @param lock The object to lock while a batch is queried.
+     * @param dao The feature table dao.
+     * @param tableBox The bounding box to read features for, in the table's
+     *            projection.
+     * @param indexTable The name of the table's R-tree index table, or null
+     *            if it has none.
+     * @param loadedIds The ids of the features that have already been read,
+     *            the ids of the newly read features are added to it.
+     * @param maxFeatures The maximum size of {@code loadedIds}.
+     * @param consumer Receives each batch of newly read features, and returns
+     *            false if no more features should be read.
+     */
+    void readFeatures(Object lock, FeatureDao dao, BoundingBox tableBox, String indexTable, Set<Long> loadedIds, int maxFeatures,
+            Predicate<? super List<Map<String, Serializable>>> consumer)
+    {
+        ProjectionTransform toGeodetic = dao.getProjection().getTransformation(ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM);
+        String idColumn = quote(dao.getTable().getPkColumn().getName());
+        String where = buildWhere(idColumn, indexTable);
+        String orderBy = idColumn + " ASC";
+        String limit = String.valueOf(myBatchSize);
+
+        long lastId = Long.MIN_VALUE;
+        boolean more = true;
+        while (more && loadedIds.size() < maxFeatures)
+        {
+            List<Map<String, Serializable>> batch = New.list();
+            int rowCount = 0;
+            synchronized (lock)
+            {
+                FeatureResultSet resultSet = dao.query(where, buildWhereArgs(lastId, tableBox, indexTable), null, null, orderBy,
+                        limit);
+                try
+                {
+                    while (resultSet.moveToNext() && loadedIds.size() < maxFeatures)
+                    {
+                        rowCount++;
+                        FeatureRow row = resultSet.getRow();
+                        lastId = row.getId();
+                        if (indexTable == null)
+                        {
+                            GeometryEnvelope envelope = getEnvelope(row);
+                            if (envelope == null || !intersects(envelope, tableBox))
+                            {
+                                continue;
+                            }
+                        }
+                        if (loadedIds.add(Long.valueOf(lastId)))
+                        {
+                            batch.add(myRowImporter.importRow(row, toGeodetic));
+                        }
+                    }
+                }
+                finally
+                {
+                    resultSet.close();
+                }
+            }
+
+            more = rowCount == myBatchSize;
+            if (!batch.isEmpty() && !consumer.test(batch))
+            {
+                more = false;
+            }
+        }
+    }
+
+    /**
+     * Builds the where clause that selects the next batch of rows.
+     *
+     * @param idColumn The quoted name of the feature id column.
+     * @param indexTable The name of the R-tree index table, or null if there
+     *            is none.
+     * @return The where clause.
+     */
+    private static String buildWhere(String idColumn, String indexTable)
+    {
+        StringBuilder where = new StringBuilder(idColumn).append(" > ?");
+        if (indexTable != null)
+        {
+            where.append(" AND ").append(idColumn).append(" IN (SELECT id FROM ").append(quote(indexTable))
+                    .append(" WHERE minx <= ? AND maxx >= ? AND miny <= ? AND maxy >= ?)");
+        }
+        return where.toString();
+    }
+
+    /**
+     * Builds the arguments for the where clause.
+     *
+     * @param lastId The id of the last row that was read.
+     * @param tableBox The bounding box in the table's projection.
+     * @param indexTable The name of the R-tree index table, or null if there
+     *            is none.
+     * @return The arguments.
+     */
+    private static String[] buildWhereArgs(long lastId, BoundingBox tableBox, String indexTable)
+    {
+        if (indexTable == null)
+        {
+            return new String[] { String.valueOf(lastId) };
+        }
+        return new String[] { String.valueOf(lastId), String.valueOf(tableBox.getMaxLongitude()),
+            String.valueOf(tableBox.getMinLongitude()), String.valueOf(tableBox.getMaxLatitude()),
+            String.valueOf(tableBox.getMinLatitude()), };
+    }
+
+    /**
+     * Quotes a table or column name for use in SQL.
+     *
+     * @param name The name.
+     * @return The quoted name.
+     */
+    private static String quote(String name)
+    {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Gets the envelope of a feature's geometry.
+     *
+     * @param row The feature.
+     * @return The envelope, or null if the feature has no geometry.
+     */
+    private GeometryEnvelope getEnvelope(FeatureRow row)
+    {
+        GeometryEnvelope envelope = null;
+        GeoPackageGeometryData geometryData = row.getGeometry();
+        if (geometryData != null)
+        {
+            envelope = geometryData.getEnvelope();
+            if (envelope == null && geometryData.getGeometry() != null)
+            {
+                envelope = GeometryEnvelopeBuilder.buildEnvelope(geometryData.getGeometry());
+            }
+        }
+
+        return envelope;
+    }
+
+    /**
+     * Converts the geographic bounding box to a geopackage bounding box. A box
+     * that crosses the antimeridian is widened to all longitudes.
+     *
+     * @param boundingBox The geographic bounding box.
+     * @return The geopackage bounding box.
+     */
+    private BoundingBox toBoundingBox(GeographicBoundingBox boundingBox)
+    {
+        BoundingBox box = GeoPackageCoordinateUtils.getInstance().getBoundingBox(boundingBox);
+        if (boundingBox.crossesAntimeridian())
+        {
+            box = new BoundingBox(-180., boundingBox.getMinLatD(), 180., boundingBox.getMaxLatD());
+        }
+
+        return box;
+    }
+}
@@ -17,6 +17,13 @@ import mil.nga.geopackage.features.user.FeatureDao;
  */
 public class FeatureImporter
 {
+    /**
+     * The number of rows imported for a layer that is read directly from the
+     * geopackage file. These rows are only used to describe the layer's
+     * columns; the features themselves are loaded as they come into view.
+     */
+    public static final int DIRECT_READ_SAMPLE_SIZE = 100;
+
     /**
      * Imports all the data for a given feature table.
      */
@@ -37,7 +44,8 @@ public class FeatureImporter
         {
             String featureTable = entry.getKey();
             FeatureDao featureDao = geopackage.getFeatureDao(featureTable);
-            List<Map<String, Serializable>> importedData = myTableImporter.importFeatures(featureDao, ta, model);
+            int limit = entry.getValue().isDirectRead() ? DIRECT_READ_SAMPLE_SIZE : Integer.MAX_VALUE;
+            List<Map<String, Serializable>> importedData = myTableImporter.importFeatures(featureDao, ta, model, limit);
             entry.getValue().getData().addAll(importedData);
 
             if (ta.isCancelled())
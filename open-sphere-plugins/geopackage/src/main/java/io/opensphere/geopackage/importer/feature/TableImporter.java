@@ -33,17 +33,42 @@ public class TableImporter
      * @return The imported data.
      */
     public List<Map<String, Serializable>> importFeatures(FeatureDao dao, CancellableTaskActivity ta, ProgressModel model)
+    {
+        return importFeatures(dao, ta, model, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Imports up to a maximum number of features from the given feature dao.
+     * When there is a maximum, only that many rows are queried.
+     *
+     * @param dao Contains the feature data to import.
+     * @param ta The task activity to check if user has cancelled the import.
+     * @param model The model used by the import classes
+     * @param limit The maximum number of features to import.
+     * @return The imported data.
+     */
+    public List<Map<String, Serializable>> importFeatures(FeatureDao dao, CancellableTaskActivity ta, ProgressModel model,
+            int limit)
     {
         List<Map<String, Serializable>> importedTable = New.list();
 
-        FeatureResultSet resultSet = dao.queryForAll();
-        ProjectionTransform toGeodetic = dao.getProjection().getTransformation(ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM);
-        while (resultSet.moveToNext() && !ta.isCancelled())
+        FeatureResultSet resultSet = limit == Integer.MAX_VALUE ? dao.queryForAll()
+                : dao.query(null, null, null, null, null, String.valueOf(limit));
+        try
+        {
+            ProjectionTransform toGeodetic = dao.getProjection()
+                    .getTransformation(ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM);
+            while (importedTable.size() < limit && resultSet.moveToNext() && !ta.isCancelled())
+            {
+                FeatureRow row = resultSet.getRow();
+                Map<String, Serializable> importedRow = myRowImporter.importRow(row, toGeodetic);
+                importedTable.add(importedRow);
+                model.setCompletedCount(model.getCompletedCount() + 1);
+            }
+        }
+        finally
         {
-            FeatureRow row = resultSet.getRow();
-            Map<String, Serializable> importedRow = myRowImporter.importRow(row, toGeodetic);
-            importedTable.add(importedRow);
-            model.setCompletedCount(model.getCompletedCount() + 1);
+            resultSet.close();
         }
 
         return importedTable;
@@ -50,6 +50,12 @@ public class LayerImporter
      */
     private final FeatureImporter myFeatureImporter = new FeatureImporter();
 
+    /**
+     * True if the imported layers are read directly from the geopackage file
+     * instead of having their data copied into the registry.
+     */
+    private final boolean myDirectRead;
+
     /**
      * Used to save the imported data.
      */
@@ -61,8 +67,22 @@ public class LayerImporter
      * @param registry Used to save the imported data.
      */
     public LayerImporter(DataRegistry registry)
+    {
+        this(registry, false);
+    }
+
+    /**
+     * Constructs a new layer importer.
+     *
+     * @param registry Used to save the imported data.
+     * @param directRead True if the imported layers are read directly from the
+     *            geopackage file instead of having their data copied into the
+     *            registry.
+     */
+    public LayerImporter(DataRegistry registry, boolean directRead)
     {
         myRegistry = registry;
+        myDirectRead = directRead;
     }
 
     /**
@@ -86,7 +106,11 @@ public class LayerImporter
         for (String featureTable : featureTables)
         {
             FeatureDao featureDao = geopackage.getFeatureDao(featureTable);
-            GeoPackageFeatureLayer featureLayer = new GeoPackageFeatureLayer(packageName, path, featureTable, featureDao.count());
+            // Only a sample of the rows is imported for direct read layers.
+            int recordCount = myDirectRead ? Math.min(featureDao.count(), FeatureImporter.DIRECT_READ_SAMPLE_SIZE)
+                    : featureDao.count();
+            GeoPackageFeatureLayer featureLayer = new GeoPackageFeatureLayer(packageName, path, featureTable, recordCount);
+            featureLayer.setDirectRead(myDirectRead);
             layers.add(featureLayer);
             featureLayers.put(featureTable, featureLayer);
         }
@@ -108,7 +132,9 @@ public class LayerImporter
         for (String tile : tiles)
         {
             TileDao tileDao = geopackage.getTileDao(tile);
-            layers.add(buildTileLayer(tileDao, packageName, path, tile, extensions));
+            GeoPackageTileLayer tileLayer = buildTileLayer(tileDao, packageName, path, tile, extensions);
+            tileLayer.setDirectRead(myDirectRead);
+            layers.add(tileLayer);
         }
 
         ProgressModel model = new ProgressModel();
@@ -28,7 +28,8 @@ import mil.nga.geopackage.tiles.user.TileRow;
  * Imports a single tile from a Geopackage file and saves the info into the
  * registry. A {@link GeoPackageTile} will be saved seperately from the actual
  * tile image. The {@link GeoPackageTile} will contain metadata about the tile
- * while the image deposit will contain the bytes of the image.
+ * while the image deposit will contain the bytes of the image. Images are not
+ * saved for layers that are read directly from the geopackage file.
  */
 public class TileRowImporterImpl implements TileRowImporter
 {
@@ -78,7 +79,7 @@ public class TileRowImporterImpl implements TileRowImporter
         String tileKey = generateTileKey(tile);
 
         depositTile(layer, tileKey, tile);
-        if (tileRow.getTileData() != null)
+        if (tileRow.getTileData() != null && !layer.isDirectRead())
         {
             InputStream imageData = myEncoder.encodeImage(tileRow.getTileData());
             depositImage(layer, tileKey, imageData);
@@ -0,0 +1,206 @@
+package io.opensphere.geopackage.mantle;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+import org.apache.log4j.Logger;
+
+import io.opensphere.core.MapManager;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.concurrent.ProcrastinatingExecutor;
+import io.opensphere.core.viewer.ViewChangeSupport.ViewChangeListener;
+import io.opensphere.geopackage.importer.feature.BoundingBoxFeatureReader;
+import io.opensphere.geopackage.model.GeoPackageLayer;
+import io.opensphere.geopackage.util.GeoPackageOpener;
+import mil.nga.geopackage.GeoPackage;
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * Loads the features of active layers that are read directly from their
+ * geopackage file. Only the features within the visible bounding box are read,
+ * and as the view moves the features that come into view are read and added
+ * to the layer a batch at a time. Features that have been added are not read
+ * again. At most {@code opensphere.geopackage.maxDirectFeatures} features are
+ * loaded for a layer; once a layer reaches that limit no more of its features
+ * are read until it is deactivated.
+ */
+public class DirectFeatureLoader implements LayerActivationListener
+{
+    /**
+     * Used to log messages.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DirectFeatureLoader.class);
+
+    /**
+     * The maximum number of features loaded for a layer.
+     */
+    private static final int MAX_FEATURES = Integer.getInteger("opensphere.geopackage.maxDirectFeatures", 200_000).intValue();
+
+    /**
+     * The ids of the features that have been added, for each active layer.
+     */
+    @GuardedBy("myLoadedIds")
+    private final Map<GeoPackageDataTypeInfo, Set<Long>> myLoadedIds = New.map();
+
+    /**
+     * Runs the loads, waiting for the view to settle.
+     */
+    private final Executor myExecutor = new ProcrastinatingExecutor("GeoPackageFeatureLoader", 300);
+
+    /**
+     * Adds the loaded features to their layer.
+     */
+    private final BiConsumer<GeoPackageDataTypeInfo, Collection<Map<String, Serializable>>> myFeatureAdder;
+
+    /**
+     * Used to get the visible bounding box.
+     */
+    private final MapManager myMapManager;
+
+    /**
+     * Reads the features from the geopackage file.
+     */
+    private final BoundingBoxFeatureReader myReader = new BoundingBoxFeatureReader();
+
+    /**
+     * Requests a load when the view changes.
+     */
+    private final ViewChangeListener myViewListener = (viewer, type) -> requestLoad();
+
+    /**
+     * Constructs a new loader.
+     *
+     * @param mapManager Used to get the visible bounding box.
+     * @param featureAdder Adds the loaded features to their layer.
+     */
+    public DirectFeatureLoader(MapManager mapManager,
+            BiConsumer<GeoPackageDataTypeInfo, Collection<Map<String, Serializable>>> featureAdder)
+    {
+        myMapManager = mapManager;
+        myFeatureAdder = featureAdder;
+    }
+
+    @Override
+    public void layerActivated(GeoPackageDataTypeInfo layer)
+    {
+        synchronized (myLoadedIds)
+        {
+            if (myLoadedIds.containsKey(layer))
+            {
+                return;
+            }
+            if (myLoadedIds.isEmpty())
+            {
+                myMapManager.getViewChangeSupport().addViewChangeListener(myViewListener);
+            }
+            // Keep the file open while the layer is active.
+            GeoPackageOpener.getInstance().acquire(layer.getLayer().getPackageFile());
+            myLoadedIds.put(layer, New.set());
+        }
+        requestLoad();
+    }
+
+    @Override
+    public void layerDeactivated(GeoPackageDataTypeInfo layer)
+    {
+        synchronized (myLoadedIds)
+        {
+            if (myLoadedIds.remove(layer) != null)
+            {
+                GeoPackageOpener.getInstance().release(layer.getLayer().getPackageFile());
+                if (myLoadedIds.isEmpty())
+                {
+                    myMapManager.getViewChangeSupport().removeViewChangeListener(myViewListener);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the features in view for each active layer and adds the ones that
+     * have not been added yet.
+     */
+    private void loadVisible()
+    {
+        GeographicBoundingBox view = myMapManager.getVisibleBoundingBox();
+        if (view == null)
+        {
+            return;
+        }
+
+        Collection<GeoPackageDataTypeInfo> layers;
+        synchronized (myLoadedIds)
+        {
+            layers = New.list(myLoadedIds.keySet());
+        }
+
+        for (GeoPackageDataTypeInfo layer : layers)
+        {
+            Set<Long> loadedIds;
+            synchronized (myLoadedIds)
+            {
+                loadedIds = myLoadedIds.get(layer);
+            }
+            if (loadedIds != null && loadedIds.size() < MAX_FEATURES)
+            {
+                loadLayer(layer, view, loadedIds);
+            }
+        }
+    }
+
+    /**
+     * Reads the features in view for a layer and adds the ones that have not
+     * been added yet.
+     *
+     * @param layer The layer.
+     * @param view The visible bounding box.
+     * @param loadedIds The ids of the features that have been added.
+     */
+    private void loadLayer(GeoPackageDataTypeInfo layer, GeographicBoundingBox view, Set<Long> loadedIds)
+    {
+        GeoPackageLayer packageLayer = layer.getLayer();
+        GeoPackage geoPackage = GeoPackageOpener.getInstance().acquire(packageLayer.getPackageFile());
+        try
+        {
+            myReader.readFeatures(geoPackage, packageLayer.getName(), view, loadedIds, MAX_FEATURES, features ->
+            {
+                boolean active;
+                synchronized (myLoadedIds)
+                {
+                    active = myLoadedIds.get(layer) == loadedIds;
+                }
+                if (active)
+                {
+                    myFeatureAdder.accept(layer, features);
+                }
+                return active;
+            });
+            if (loadedIds.size() >= MAX_FEATURES)
+            {
+                LOGGER.warn("Loaded the maximum of " + MAX_FEATURES + " features for " + packageLayer.getName()
+                        + ", no more features will be read for it.");
+            }
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.error("Failed to read features for " + packageLayer.getName() + " from " + packageLayer.getPackageFile(), e);
+        }
+        finally
+        {
+            GeoPackageOpener.getInstance().release(packageLayer.getPackageFile());
+        }
+    }
+
+    /**
+     * Requests that the features in view be loaded once the view settles.
+     */
+    private void requestLoad()
+    {
+        myExecutor.execute(this::loadVisible);
+    }
+}
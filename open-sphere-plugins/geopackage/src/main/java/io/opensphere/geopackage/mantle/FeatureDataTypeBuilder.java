@@ -1,6 +1,7 @@
 package io.opensphere.geopackage.mantle;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +20,7 @@ import io.opensphere.mantle.data.DataTypeInfo;
 import io.opensphere.mantle.data.MapVisualizationInfo;
 import io.opensphere.mantle.data.MapVisualizationType;
 import io.opensphere.mantle.data.MetaDataInfo;
+import io.opensphere.mantle.data.TimeExtents;
 import io.opensphere.mantle.data.element.DataElement;
 import io.opensphere.mantle.data.element.MapDataElement;
 import io.opensphere.mantle.data.impl.DefaultDataTypeInfo;
@@ -43,6 +45,12 @@ public class FeatureDataTypeBuilder implements LayerActivationListener
      */
     private final DataTypeController myDataTypeController;
 
+    /**
+     * Loads the features in view for layers that are read directly from the
+     * geopackage file.
+     */
+    private final DirectFeatureLoader myDirectLoader;
+
     /**
      * Used to get the projection in order to set the location of the layer so
      * that a user can double click on it and fly to it.
@@ -76,6 +84,7 @@ public class FeatureDataTypeBuilder implements LayerActivationListener
         myOrderManager = orderManagerRegistry.getOrderManager(DefaultOrderCategory.DEFAULT_FEATURE_LAYER_FAMILY,
                 DefaultOrderCategory.FEATURE_CATEGORY);
         myMapManager = mapManager;
+        myDirectLoader = new DirectFeatureLoader(mapManager, this::addFeatures);
     }
 
     /**
@@ -107,9 +116,37 @@ public class FeatureDataTypeBuilder implements LayerActivationListener
         GeoPackageFeatureLayer featureLayer = (GeoPackageFeatureLayer)layer.getLayer();
         myDataTypeController.addDataType(featureLayer.getPackageFile(), featureLayer.getName(), layer, this);
 
+        if (featureLayer.isDirectRead())
+        {
+            myDirectLoader.layerActivated(layer);
+        }
+        else
+        {
+            addFeatures(layer, featureLayer.getData());
+        }
+    }
+
+    @Override
+    public void layerDeactivated(GeoPackageDataTypeInfo layer)
+    {
+        if (layer.getLayer().isDirectRead())
+        {
+            myDirectLoader.layerDeactivated(layer);
+        }
+        myDataTypeController.removeDataType(layer, this);
+    }
+
+    /**
+     * Creates {@link DataElement}s for the rows and adds them to the layer.
+     *
+     * @param layer The layer the rows belong to.
+     * @param rows The rows to add.
+     */
+    void addFeatures(GeoPackageDataTypeInfo layer, Collection<Map<String, Serializable>> rows)
+    {
         List<DataElement> elements = New.list();
         TimeSpan layerSpan = TimeSpan.TIMELESS;
-        for (Map<String, Serializable> row : featureLayer.getData())
+        for (Map<String, Serializable> row : rows)
         {
             DataElement element = myDataElementPopulator.populateDataElement(row, layer);
             if (layerSpan == TimeSpan.TIMELESS)
@@ -173,14 +210,9 @@ public class FeatureDataTypeBuilder implements LayerActivationListener
         }
     }
 
-    @Override
-    public void layerDeactivated(GeoPackageDataTypeInfo layer)
-    {
-        myDataTypeController.removeDataType(layer, this);
-    }
-
     /**
-     * Sets the time extents on the layer.
+     * Sets the time extents on the layer, including any extents from features
+     * that were added earlier.
      *
      * @param layerSpan The calculated layer span.
      * @param layer The layer.
@@ -189,7 +221,13 @@ public class FeatureDataTypeBuilder implements LayerActivationListener
     {
         if (layerSpan != TimeSpan.TIMELESS)
         {
-            layer.setTimeExtents(new DefaultTimeExtents(layerSpan), this);
+            TimeSpan span = layerSpan;
+            TimeExtents existing = layer.getTimeExtents();
+            if (existing != null && existing.getExtent() != null && !existing.getExtent().isTimeless())
+            {
+                span = span.simpleUnion(existing.getExtent());
+            }
+            layer.setTimeExtents(new DefaultTimeExtents(span), this);
         }
     }
 }
@@ -49,11 +49,16 @@ public class LayerActivationHandler implements LayerActivationListener
     @Override
     public void layerActivated(GeoPackageDataTypeInfo layer)
     {
-        String packageFile = layer.getLayer().getPackageFile();
-        GeoPackage geoPackage = GeoPackageManager.open(new File(packageFile));
-        GeoPackageImageEnvoy envoy = new GeoPackageImageEnvoy(myToolbox, geoPackage);
+        // Layers read directly from the file do not query the registry for
+        // their images, so they do not need an envoy.
+        if (!layer.getLayer().isDirectRead())
+        {
+            String packageFile = layer.getLayer().getPackageFile();
+            GeoPackage geoPackage = GeoPackageManager.open(new File(packageFile));
+            GeoPackageImageEnvoy envoy = new GeoPackageImageEnvoy(myToolbox, geoPackage);
 
-        myEnvoyRegistry.addObjectsForSource(packageFile, New.list(envoy));
+            myEnvoyRegistry.addObjectsForSource(packageFile, New.list(envoy));
+        }
         myTileActivationListener.layerActivated(layer);
     }
 
@@ -16,6 +16,12 @@ public class GeoPackageLayer implements Serializable
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * True if the layer's tiles and features are read straight from the
+     * geopackage file instead of from data copied into the registry.
+     */
+    private boolean myDirectRead;
+
     /**
      * The layer type.
      */
@@ -108,4 +114,26 @@ public class GeoPackageLayer implements Serializable
     {
         return myRecordCount;
     }
+
+    /**
+     * Indicates if the layer's tiles and features are read straight from the
+     * geopackage file instead of from data copied into the registry.
+     *
+     * @return True if the layer is read directly from the file.
+     */
+    public boolean isDirectRead()
+    {
+        return myDirectRead;
+    }
+
+    /**
+     * Sets if the layer's tiles and features are read straight from the
+     * geopackage file instead of from data copied into the registry.
+     *
+     * @param directRead True if the layer is read directly from the file.
+     */
+    public void setDirectRead(boolean directRead)
+    {
+        myDirectRead = directRead;
+    }
 }
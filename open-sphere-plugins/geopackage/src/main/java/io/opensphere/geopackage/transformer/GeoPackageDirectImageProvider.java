@@ -0,0 +1,96 @@
+package io.opensphere.geopackage.transformer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import io.opensphere.core.image.Image;
+import io.opensphere.core.image.ImageFormatUnknownException;
+import io.opensphere.core.image.ImageProvider;
+import io.opensphere.core.image.ImageReader;
+import io.opensphere.core.image.StreamingImage;
+import io.opensphere.core.model.ZYXImageKey;
+import io.opensphere.geopackage.model.GeoPackageTileLayer;
+import io.opensphere.geopackage.util.Constants;
+import io.opensphere.geopackage.util.GeoPackageOpener;
+
+/**
+ * The {@link ImageProvider} for layers that are read directly from their
+ * geopackage file. The tile is read from the layer's tile table by its zoom
+ * level, column and row, without going through the data registry.
+ */
+public class GeoPackageDirectImageProvider implements ImageProvider<ZYXImageKey>
+{
+    /**
+     * Used to log messages.
+     */
+    private static final Logger LOGGER = Logger.getLogger(GeoPackageDirectImageProvider.class);
+
+    /**
+     * If the geopackage layer has a terrain extension applied, this reader will
+     * know how to read the terrain image.
+     */
+    private final ImageReader myImageReader;
+
+    /**
+     * The layer we are providing images for.
+     */
+    private final GeoPackageTileLayer myLayer;
+
+    /**
+     * Used to notify the user of the ongoing queries.
+     */
+    private final GeoPackageQueryTracker myTracker;
+
+    /**
+     * Constructs a new direct geopackage image provider.
+     *
+     * @param layer The layer we are providing images for.
+     * @param queryTracker Used to notify the user of the ongoing queries.
+     */
+    public GeoPackageDirectImageProvider(GeoPackageTileLayer layer, GeoPackageQueryTracker queryTracker)
+    {
+        myLayer = layer;
+        myTracker = queryTracker;
+        myImageReader = GeoPackageImageProvider.findImageReader(layer);
+    }
+
+    @Override
+    public Image getImage(ZYXImageKey key)
+    {
+        Image image = null;
+        myTracker.upCounter();
+        try
+        {
+            byte[] tileData = GeoPackageOpener.getInstance().readTile(myLayer.getPackageFile(), myLayer.getName(), key.getX(),
+                    key.getY(), key.getZ());
+            if (tileData != null)
+            {
+                if (myImageReader != null)
+                {
+                    image = myImageReader.readImage(ByteBuffer.wrap(tileData));
+                }
+                else if (StringUtils.isNotEmpty(myLayer.getExtensions().get(Constants.TERRAIN_EXTENSION)))
+                {
+                    image = new StreamingImage<>(new GeoPackageStreamingImageProvider(ByteBuffer.wrap(tileData)), key, 512, 512);
+                }
+                else
+                {
+                    image = Image.read(new ByteArrayInputStream(tileData), tileData.length, null, true, false, null);
+                }
+            }
+        }
+        catch (ImageFormatUnknownException e)
+        {
+            LOGGER.error("Could not read tile " + key + " from " + myLayer.getPackageFile() + ": " + e, e);
+        }
+        finally
+        {
+            myTracker.subtractCounter();
+        }
+
+        return image;
+    }
+}
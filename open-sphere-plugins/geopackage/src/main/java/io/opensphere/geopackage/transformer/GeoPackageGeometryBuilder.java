@@ -19,6 +19,7 @@ import io.opensphere.core.geometry.ImageManager;
 import io.opensphere.core.geometry.TerrainTileGeometry;
 import io.opensphere.core.geometry.TileGeometry;
 import io.opensphere.core.geometry.renderproperties.TileRenderProperties;
+import io.opensphere.core.image.ImageProvider;
 import io.opensphere.core.model.GeographicPosition;
 import io.opensphere.core.model.ZYXImageKey;
 import io.opensphere.core.terrain.util.ElevationImageReader;
@@ -173,9 +174,11 @@ public class GeoPackageGeometryBuilder
             GeoPackageQueryTracker queryTracker)
     {
         builder.setBounds(tile.getBoundingBox());
+        ImageProvider<ZYXImageKey> imageProvider = layer.isDirectRead()
+                ? new GeoPackageDirectImageProvider(layer, queryTracker)
+                : new GeoPackageImageProvider(myRegistry, layer, queryTracker);
         ImageManager imageManager = new ImageManager(
-                new ZYXImageKey((int)tile.getZoomLevel(), tile.getY(), tile.getX(), tile.getBoundingBox()),
-                new GeoPackageImageProvider(myRegistry, layer, queryTracker));
+                new ZYXImageKey((int)tile.getZoomLevel(), tile.getY(), tile.getX(), tile.getBoundingBox()), imageProvider);
         builder.setImageManager(imageManager);
         if (layer.getMaxZoomLevel() > tile.getZoomLevel())
         {
@@ -62,7 +62,7 @@ public class GeoPackageImageProvider implements ImageProvider<ZYXImageKey>
      * If the geopackage layer has a terrain extension applied, this reader will
      * know how to read the terrain image.
      */
-    private ImageReader myImageReader;
+    private final ImageReader myImageReader;
 
     /**
      * The layer we are providing images for.
@@ -91,20 +91,34 @@ public class GeoPackageImageProvider implements ImageProvider<ZYXImageKey>
         myRegistry = registry;
         myLayer = layer;
         myTracker = queryTracker;
+        myImageReader = findImageReader(layer);
+    }
 
-        if (myLayer.getExtensions().containsKey(Constants.TERRAIN_EXTENSION))
+    /**
+     * Finds the reader for the terrain images of a layer.
+     *
+     * @param layer The layer.
+     * @return The reader, or null if the layer does not have a terrain
+     *         extension or its terrain does not need a special reader.
+     */
+    static ImageReader findImageReader(GeoPackageTileLayer layer)
+    {
+        ImageReader imageReader = null;
+        if (layer.getExtensions().containsKey(Constants.TERRAIN_EXTENSION))
         {
-            String imageFormat = myLayer.getExtensions().get(Constants.TERRAIN_EXTENSION);
+            String imageFormat = layer.getExtensions().get(Constants.TERRAIN_EXTENSION);
             ServiceLoader<ImageReader> loader = ServiceLoader.load(ImageReader.class);
             for (ImageReader reader : loader)
             {
                 if (imageFormat.equals(reader.getImageFormat()))
                 {
-                    myImageReader = reader;
+                    imageReader = reader;
                     break;
                 }
             }
         }
+
+        return imageReader;
     }
 
     @Override
@@ -14,6 +14,7 @@ import io.opensphere.core.util.collections.New;
 import io.opensphere.geopackage.mantle.GeoPackageDataTypeInfo;
 import io.opensphere.geopackage.mantle.LayerActivationListener;
 import io.opensphere.geopackage.model.GeoPackageTileLayer;
+import io.opensphere.geopackage.util.GeoPackageOpener;
 import io.opensphere.mantle.data.impl.DefaultTileLevelController;
 
 /**
@@ -55,6 +56,12 @@ public class GeoPackageLayerTransformer extends DefaultTransformer implements La
         if (isOpen())
         {
             GeoPackageTileLayer tileLayer = (GeoPackageTileLayer)layer.getLayer();
+            if (tileLayer.isDirectRead() && !myGeometries.containsKey(layer.getTypeKey()))
+            {
+                // Keep the file open while the layer is active so tile reads
+                // do not have to reopen it.
+                GeoPackageOpener.getInstance().acquire(tileLayer.getPackageFile());
+            }
             TileRenderProperties props = layer.getMapVisualizationInfo().getTileRenderProperties();
             GeoPackageDivider divider = new GeoPackageDivider(tileLayer);
             List<AbstractTileGeometry<?>> initialGeometries = myGeometryBuilder.buildGeometries(tileLayer,
@@ -86,9 +93,16 @@ public class GeoPackageLayerTransformer extends DefaultTransformer implements La
     public void layerDeactivated(GeoPackageDataTypeInfo layer)
     {
         List<AbstractTileGeometry<?>> geometries = myGeometries.remove(layer.getTypeKey());
-        if (geometries != null && !geometries.isEmpty())
+        if (geometries != null)
         {
-            publishGeometries(New.collection(), geometries);
+            if (!geometries.isEmpty())
+            {
+                publishGeometries(New.collection(), geometries);
+            }
+            if (layer.getLayer().isDirectRead())
+            {
+                GeoPackageOpener.getInstance().release(layer.getLayer().getPackageFile());
+            }
         }
     }
 
@@ -0,0 +1,213 @@
+package io.opensphere.geopackage.util;
+
+import java.io.File;
+import java.util.Map;
+
+import io.opensphere.core.util.collections.New;
+import mil.nga.geopackage.GeoPackage;
+import mil.nga.geopackage.manager.GeoPackageManager;
+import mil.nga.geopackage.tiles.user.TileDao;
+import mil.nga.geopackage.tiles.user.TileRow;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Keeps geopackage files open while layers are reading directly from them.
+ * Each file is opened once no matter how many of its layers are active, and is
+ * closed when the last user releases it. Callers should synchronize on the
+ * returned {@link GeoPackage} while querying it, since its connection is
+ * shared.
+ */
+@ThreadSafe
+public final class GeoPackageOpener
+{
+    /**
+     * The instance of this class.
+     */
+    private static final GeoPackageOpener ourInstance = new GeoPackageOpener();
+
+    /**
+     * The open geopackages keyed by file path.
+     */
+    @GuardedBy("this")
+    private final Map<String, OpenPackage> myOpenPackages = New.map();
+
+    /**
+     * Gets the instance of this class.
+     *
+     * @return The instance of this class.
+     */
+    public static GeoPackageOpener getInstance()
+    {
+        return ourInstance;
+    }
+
+    /**
+     * Not constructible.
+     */
+    private GeoPackageOpener()
+    {
+    }
+
+    /**
+     * Gets the open geopackage for the file, opening it if this is the first
+     * request for it. Every call must be paired with a call to
+     * {@link #release(String)}.
+     *
+     * @param packageFile The path to the geopackage file.
+     * @return The open geopackage.
+     */
+    public GeoPackage acquire(String packageFile)
+    {
+        return acquireOpenPackage(packageFile).getGeoPackage();
+    }
+
+    /**
+     * Reads a single tile's image bytes straight from a tile table.
+     *
+     * @param packageFile The path to the geopackage file.
+     * @param table The name of the tile table.
+     * @param column The tile's column.
+     * @param row The tile's row.
+     * @param zoomLevel The tile's zoom level.
+     * @return The tile data, or null if the table does not have the tile.
+     */
+    public byte[] readTile(String packageFile, String table, long column, long row, long zoomLevel)
+    {
+        OpenPackage openPackage = acquireOpenPackage(packageFile);
+        try
+        {
+            GeoPackage geoPackage = openPackage.getGeoPackage();
+            synchronized (geoPackage)
+            {
+                TileRow tileRow = openPackage.getTileDao(table).queryForTile(column, row, zoomLevel);
+                return tileRow == null ? null : tileRow.getTileData();
+            }
+        }
+        finally
+        {
+            release(packageFile);
+        }
+    }
+
+    /**
+     * Releases a geopackage acquired with {@link #acquire(String)}, closing
+     * it if nothing else is using it.
+     *
+     * @param packageFile The path to the geopackage file.
+     */
+    public void release(String packageFile)
+    {
+        OpenPackage toClose = null;
+        synchronized (this)
+        {
+            OpenPackage openPackage = myOpenPackages.get(packageFile);
+            if (openPackage != null && openPackage.decrementCount() <= 0)
+            {
+                myOpenPackages.remove(packageFile);
+                toClose = openPackage;
+            }
+        }
+
+        if (toClose != null)
+        {
+            GeoPackage geoPackage = toClose.getGeoPackage();
+            synchronized (geoPackage)
+            {
+                geoPackage.close();
+            }
+        }
+    }
+
+    /**
+     * Gets the open package for the file, opening it if needed, and
+     * increments its reference count.
+     *
+     * @param packageFile The path to the geopackage file.
+     * @return The open package.
+     */
+    private synchronized OpenPackage acquireOpenPackage(String packageFile)
+    {
+        OpenPackage openPackage = myOpenPackages.get(packageFile);
+        if (openPackage == null)
+        {
+            openPackage = new OpenPackage(GeoPackageManager.open(new File(packageFile)));
+            myOpenPackages.put(packageFile, openPackage);
+        }
+        openPackage.incrementCount();
+
+        return openPackage;
+    }
+
+    /**
+     * An open geopackage, the number of users it has, and its tile daos.
+     */
+    private static class OpenPackage
+    {
+        /**
+         * The number of users of the geopackage, guarded by the opener.
+         */
+        private int myCount;
+
+        /**
+         * The open geopackage.
+         */
+        private final GeoPackage myGeoPackage;
+
+        /**
+         * The tile daos that have been created, keyed by table name.
+         */
+        @GuardedBy("myGeoPackage")
+        private final Map<String, TileDao> myTileDaos = New.map();
+
+        /**
+         * Constructs a new open package.
+         *
+         * @param geoPackage The open geopackage.
+         */
+        public OpenPackage(GeoPackage geoPackage)
+        {
+            myGeoPackage = geoPackage;
+        }
+
+        /**
+         * Decrements the number of users.
+         *
+         * @return The new number of users.
+         */
+        public int decrementCount()
+        {
+            return --myCount;
+        }
+
+        /**
+         * Gets the open geopackage.
+         *
+         * @return The geopackage.
+         */
+        public GeoPackage getGeoPackage()
+        {
+            return myGeoPackage;
+        }
+
+        /**
+         * Gets the dao for a tile table, creating it the first time it is
+         * requested. Must be called while synchronized on the geopackage.
+         *
+         * @param table The name of the tile table.
+         * @return The tile dao.
+         */
+        public TileDao getTileDao(String table)
+        {
+            return myTileDaos.computeIfAbsent(table, myGeoPackage::getTileDao);
+        }
+
+        /**
+         * Increments the number of users.
+         */
+        public void incrementCount()
+        {
+            ++myCount;
+        }
+    }
+}
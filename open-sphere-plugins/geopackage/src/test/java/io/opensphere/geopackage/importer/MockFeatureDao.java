@@ -1,6 +1,7 @@
 package io.opensphere.geopackage.importer;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import io.opensphere.core.util.collections.New;
 import io.opensphere.core.util.taskactivity.CancellableTaskActivity;
@@ -30,6 +31,11 @@ public class MockFeatureDao extends FeatureDao
      */
     private final CancellableTaskActivity myTa;
 
+    /**
+     * The number of limited queries that have been made.
+     */
+    private int myQueryCount;
+
     /**
      * Constructs a new mock.
      *
@@ -92,9 +98,34 @@ public class MockFeatureDao extends FeatureDao
         return new MockFeatureRow(getTable(), null);
     }
 
+    /**
+     * Supports the queries used to read a limited number of rows, optionally
+     * with a where clause whose first argument is the id the rows must be
+     * greater than.
+     */
+    @Override
+    public FeatureResultSet query(String where, String[] whereArgs, String groupBy, String having, String orderBy, String limit)
+    {
+        myQueryCount++;
+        long minId = where == null ? Long.MIN_VALUE : Long.parseLong(whereArgs[0]);
+        List<MockFeatureRow> rows = myData.stream().filter(r -> r.getId() > minId).limit(Long.parseLong(limit))
+                .collect(Collectors.toList());
+        return new MockFeatureResultSet(rows, myTa);
+    }
+
     @Override
     public FeatureResultSet queryForAll()
     {
         return new MockFeatureResultSet(myData, myTa);
     }
+
+    /**
+     * Gets the number of limited queries that have been made.
+     *
+     * @return The number of queries.
+     */
+    public int getQueryCount()
+    {
+        return myQueryCount;
+    }
 }
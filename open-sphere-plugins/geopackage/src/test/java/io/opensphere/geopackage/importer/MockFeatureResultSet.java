@@ -40,6 +40,11 @@ public class MockFeatureResultSet extends FeatureResultSet
         myTa = ta;
     }
 
+    @Override
+    public void close()
+    {
+    }
+
     @Override
     public FeatureRow getRow()
     {
@@ -0,0 +1,204 @@
+package io.opensphere.geopackage.importer.feature;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.easymock.EasyMockSupport;
+import org.junit.Test;
+
+import io.opensphere.core.util.collections.New;
+import io.opensphere.geopackage.importer.MockFeatureDao;
+import io.opensphere.geopackage.importer.MockGeoPackageConnection;
+import mil.nga.geopackage.BoundingBox;
+import mil.nga.geopackage.core.contents.Contents;
+import mil.nga.geopackage.core.contents.ContentsDataType;
+import mil.nga.geopackage.core.srs.SpatialReferenceSystem;
+import mil.nga.geopackage.features.columns.GeometryColumns;
+import mil.nga.geopackage.features.user.FeatureColumn;
+import mil.nga.geopackage.features.user.FeatureTable;
+import mil.nga.geopackage.features.user.MockFeatureRow;
+import mil.nga.sf.GeometryEnvelope;
+import mil.nga.sf.GeometryType;
+import mil.nga.sf.proj.ProjectionConstants;
+
+/**
+ * Unit test for the {@link BoundingBoxFeatureReader} class.
+ */
+@SuppressWarnings("boxing")
+public class BoundingBoxFeatureReaderTest
+{
+    /**
+     * The bounding box the tests read, containing the first three features.
+     */
+    private static final BoundingBox BOX = new BoundingBox(0, 0, 3.5, 3.5);
+
+    /**
+     * The object locked while the dao is queried.
+     */
+    private final Object myLock = new Object();
+
+    /**
+     * Tests checking if a feature's envelope is within a bounding box.
+     */
+    @Test
+    public void testIntersects()
+    {
+        BoundingBox box = new BoundingBox(-10, -5, 10, 5);
+
+        assertTrue(BoundingBoxFeatureReader.intersects(new GeometryEnvelope(-1, -1, 1, 1), box));
+        assertTrue(BoundingBoxFeatureReader.intersects(new GeometryEnvelope(9, 4, 20, 20), box));
+        assertTrue(BoundingBoxFeatureReader.intersects(new GeometryEnvelope(-20, -20, 20, 20), box));
+        assertTrue(BoundingBoxFeatureReader.intersects(new GeometryEnvelope(10, 5, 10, 5), box));
+
+        assertFalse(BoundingBoxFeatureReader.intersects(new GeometryEnvelope(11, -1, 12, 1), box));
+        assertFalse(BoundingBoxFeatureReader.intersects(new GeometryEnvelope(-1, 6, 1, 7), box));
+        assertFalse(BoundingBoxFeatureReader.intersects(new GeometryEnvelope(-12, -7, -11, -6), box));
+    }
+
+    /**
+     * Tests reading the features within a bounding box a batch at a time,
+     * without holding the lock while the batches are consumed.
+     */
+    @Test
+    public void testReadFeatures()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+        MockFeatureDao dao = createTestData(support);
+        support.replayAll();
+
+        Set<Long> loadedIds = New.set();
+        List<List<Map<String, Serializable>>> batches = New.list();
+        new BoundingBoxFeatureReader(2).readFeatures(myLock, dao, BOX, null, loadedIds, Integer.MAX_VALUE, batch ->
+        {
+            assertFalse(Thread.holdsLock(myLock));
+            batches.add(batch);
+            return true;
+        });
+
+        assertEquals(3, dao.getQueryCount());
+        assertEquals(2, batches.size());
+        assertEquals(New.list("value1", "value2"), getValues(batches.get(0)));
+        assertEquals(New.list("value3"), getValues(batches.get(1)));
+        assertEquals(New.set(1L, 2L, 3L), loadedIds);
+
+        support.verifyAll();
+    }
+
+    /**
+     * Tests that features that have already been read are not read again.
+     */
+    @Test
+    public void testReadFeaturesAlreadyLoaded()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+        MockFeatureDao dao = createTestData(support);
+        support.replayAll();
+
+        Set<Long> loadedIds = New.set(2L);
+        List<Map<String, Serializable>> features = New.list();
+        new BoundingBoxFeatureReader(2).readFeatures(myLock, dao, BOX, null, loadedIds, Integer.MAX_VALUE, features::addAll);
+
+        assertEquals(New.list("value1", "value3"), getValues(features));
+        assertEquals(New.set(1L, 2L, 3L), loadedIds);
+
+        support.verifyAll();
+    }
+
+    /**
+     * Tests that reading stops once the maximum number of features have been
+     * read.
+     */
+    @Test
+    public void testReadFeaturesMax()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+        MockFeatureDao dao = createTestData(support);
+        support.replayAll();
+
+        Set<Long> loadedIds = New.set();
+        List<Map<String, Serializable>> features = New.list();
+        new BoundingBoxFeatureReader(10).readFeatures(myLock, dao, BOX, null, loadedIds, 2, features::addAll);
+
+        assertEquals(New.list("value1", "value2"), getValues(features));
+        assertEquals(New.set(1L, 2L), loadedIds);
+
+        support.verifyAll();
+    }
+
+    /**
+     * Tests that reading stops when the consumer asks it to.
+     */
+    @Test
+    public void testReadFeaturesStop()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+        MockFeatureDao dao = createTestData(support);
+        support.replayAll();
+
+        Set<Long> loadedIds = New.set();
+        List<Map<String, Serializable>> features = New.list();
+        new BoundingBoxFeatureReader(2).readFeatures(myLock, dao, BOX, null, loadedIds, Integer.MAX_VALUE, batch ->
+        {
+            features.addAll(batch);
+            return false;
+        });
+
+        assertEquals(1, dao.getQueryCount());
+        assertEquals(New.list("value1", "value2"), getValues(features));
+
+        support.verifyAll();
+    }
+
+    /**
+     * Create data to test with, five point features with ids 1 through 5 at
+     * the coordinates (id, id).
+     *
+     * @param support Used to create mocks.
+     * @return The test data.
+     */
+    private MockFeatureDao createTestData(EasyMockSupport support)
+    {
+        FeatureTable table = new FeatureTable("test", New.list(FeatureColumn.createPrimaryKeyColumn(0, "key"),
+                FeatureColumn.createGeometryColumn(1, "geom", GeometryType.POINT, false, null)));
+
+        List<MockFeatureRow> rows = New.list();
+        for (int i = 1; i <= 5; i++)
+        {
+            Map<String, Object> tableData = New.map();
+            tableData.put("column1", "value" + i);
+            rows.add(new MockFeatureRow(table, i, new mil.nga.sf.Point(i, i), tableData));
+        }
+
+        MockGeoPackageConnection db = new MockGeoPackageConnection(support.createMock(Connection.class));
+
+        GeometryColumns geometry = new GeometryColumns();
+        Contents contents = new Contents();
+        contents.setDataType(ContentsDataType.FEATURES);
+
+        geometry.setContents(contents);
+        geometry.setSrs(new SpatialReferenceSystem());
+        geometry.getSrs().setOrganization(ProjectionConstants.AUTHORITY_EPSG);
+        geometry.getSrs().setOrganizationCoordsysId(ProjectionConstants.EPSG_WORLD_GEODETIC_SYSTEM);
+
+        return new MockFeatureDao(db, geometry, rows, null);
+    }
+
+    /**
+     * Gets the column1 values of the read features.
+     *
+     * @param features The read features.
+     * @return The values.
+     */
+    private List<Serializable> getValues(List<Map<String, Serializable>> features)
+    {
+        return features.stream().map(f -> f.get("column1")).collect(Collectors.toList());
+    }
+}
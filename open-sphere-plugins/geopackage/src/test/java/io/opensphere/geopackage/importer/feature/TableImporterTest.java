@@ -112,6 +112,32 @@ public class TableImporterTest
         support.verifyAll();
     }
 
+    /**
+     * Tests importing only the first rows of a feature table.
+     */
+    @Test
+    public void testImportFeaturesLimit()
+    {
+        EasyMockSupport support = new EasyMockSupport();
+
+        CancellableTaskActivity ta = new CancellableTaskActivity();
+        MockFeatureDao dao = createTestData(support, null);
+        ProgressModel model = new ProgressModel();
+
+        support.replayAll();
+
+        TableImporter importer = new TableImporter();
+
+        List<Map<String, Serializable>> importedRows = importer.importFeatures(dao, ta, model, 2);
+
+        assertEquals(2, model.getCompletedCount());
+        assertEquals(2, importedRows.size());
+        assertEquals("value0", importedRows.get(0).get("column1"));
+        assertEquals("value1", importedRows.get(1).get("column1"));
+
+        support.verifyAll();
+    }
+
     /**
      * Create data to test with.
      *
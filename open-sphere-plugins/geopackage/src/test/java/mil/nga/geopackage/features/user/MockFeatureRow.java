@@ -24,6 +24,11 @@ public class MockFeatureRow extends FeatureRow
      */
     private GeoPackageGeometryData myGeometry;
 
+    /**
+     * The test id.
+     */
+    private long myId;
+
     /**
      * Constructs a new mock feature row.
      *
@@ -57,6 +62,20 @@ public class MockFeatureRow extends FeatureRow
         myData = data;
     }
 
+    /**
+     * Constructs a new mock feature row.
+     *
+     * @param table The test table.
+     * @param id The test id to return.
+     * @param geometry The test geometry to return.
+     * @param data The test data for this row.
+     */
+    public MockFeatureRow(FeatureTable table, long id, Geometry geometry, Map<String, Object> data)
+    {
+        this(table, geometry, data);
+        myId = id;
+    }
+
     @Override
     public String[] getColumnNames()
     {
@@ -76,6 +95,12 @@ public class MockFeatureRow extends FeatureRow
         return new FeatureColumn(0, "geom", GeoPackageDataType.BLOB, null, true, null, false, GeometryType.POINT);
     }
 
+    @Override
+    public long getId()
+    {
+        return myId;
+    }
+
     @Override
     public Object getValue(String columnName)
     {
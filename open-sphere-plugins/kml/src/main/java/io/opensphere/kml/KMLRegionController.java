@@ -1,24 +1,21 @@
 package io.opensphere.kml;
 
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import net.jcip.annotations.GuardedBy;
 import net.jcip.annotations.ThreadSafe;
 
-import de.micromata.opengis.kml.v_2_2_0.NetworkLink;
 import de.micromata.opengis.kml.v_2_2_0.Region;
 import de.micromata.opengis.kml.v_2_2_0.ViewRefreshMode;
 import io.opensphere.core.Toolbox;
 import io.opensphere.core.math.Vector2i;
 import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.model.LatLonAlt;
 import io.opensphere.core.util.MathUtil;
-import io.opensphere.core.util.collections.CollectionUtilities;
+import io.opensphere.core.util.collections.New;
 import io.opensphere.core.util.lang.Nulls;
+import io.opensphere.core.viewer.Viewer;
+import io.opensphere.kml.KMLRegionIndex.RegionEntry;
 import io.opensphere.kml.common.model.KMLController;
 import io.opensphere.kml.common.model.KMLDataEvent;
 import io.opensphere.kml.common.model.KMLDataSource;
@@ -26,23 +23,32 @@ import io.opensphere.kml.common.model.KMLFeature;
 import io.opensphere.kml.common.model.KMLMapController;
 import io.opensphere.kml.common.util.KMLDataRegistryHelper;
 import io.opensphere.kml.common.util.KMLDataSourceUtils;
-import io.opensphere.kml.common.util.KMLSpatialTemporalUtils;
 
 /**
- * Region Controller.
+ * Region Controller. Features with regions are kept in a {@link KMLRegionIndex}
+ * so that a view change only evaluates the regions whose activation can have
+ * changed. Network links whose regions are predicted to become active from the
+ * motion of the view are prefetched.
  */
 @ThreadSafe
 public class KMLRegionController implements KMLController
 {
+    /** The maximum number of network links to prefetch for a view change. */
+    private static final int MAX_PREFETCH_COUNT = 8;
+
     /** The toolbox. */
     private final Toolbox myToolbox;
 
     /** The mantle controller. */
     private final KMLMapController myMantleController;
 
-    /** The set of features being managed by the controller. */
+    /** The index of the features being managed by the controller. */
+    @GuardedBy("this")
+    private final KMLRegionIndex myIndex = new KMLRegionIndex();
+
+    /** The visible bounding box for the previous view change. */
     @GuardedBy("this")
-    private final Set<KMLFeature> myFeatures;
+    private GeographicBoundingBox myPreviousBoundingBox;
 
     /** The current visible bounding box. */
     @GuardedBy("this")
@@ -58,7 +64,6 @@ public class KMLRegionController implements KMLController
     {
         myToolbox = toolbox;
         myMantleController = mantleController;
-        myFeatures = new HashSet<>();
     }
 
     @Override
@@ -68,7 +73,7 @@ public class KMLRegionController implements KMLController
         {
             if (isValidRegion(feature))
             {
-                myFeatures.add(feature);
+                myIndex.add(feature);
             }
         }
         handleViewChangedInternal();
@@ -81,7 +86,7 @@ public class KMLRegionController implements KMLController
         {
             if (isValidRegion(feature))
             {
-                myFeatures.remove(feature);
+                myIndex.remove(feature);
             }
         }
     }
@@ -100,90 +105,156 @@ public class KMLRegionController implements KMLController
      */
     private void handleViewChangedInternal()
     {
-        if (myFeatures.isEmpty())
+        if (myIndex.isEmpty())
         {
             return;
         }
 
-        Map<Boolean, List<KMLFeature>> featureTypeMap = myFeatures.stream()
-                .collect(Collectors.<KMLFeature>partitioningBy(f -> f.getFeature() instanceof NetworkLink));
-        List<KMLFeature> networkLinkFeatures = featureTypeMap.get(Boolean.TRUE);
-        List<KMLFeature> otherFeatures = featureTypeMap.get(Boolean.FALSE);
-
-        // Network Links: Load non-loaded data source if the region is active
-        if (CollectionUtilities.hasContent(networkLinkFeatures))
+        GeographicBoundingBox visibleBoundingBox = getVisibleBoundingBox();
+        List<KMLFeature> changedFeatures = New.list();
+        for (RegionEntry entry : myIndex.getCandidates(visibleBoundingBox))
         {
-            for (KMLFeature feature : networkLinkFeatures)
+            KMLFeature feature = entry.getFeature();
+            if (entry.isNetworkLink())
             {
+                // Network Links: Load non-loaded data source if the region is
+                // active
                 KMLDataSource dataSource = feature.getResultingDataSource();
-                if (!dataSource.isLoaded())
+                if (dataSource.isLoaded())
                 {
-                    boolean isRegionActive = isRegionActive(feature.getRegion());
-                    feature.setRegionActive(isRegionActive);
+                    myIndex.setActive(entry, false);
+                    continue;
+                }
+                boolean isRegionActive = isRegionActive(entry, visibleBoundingBox);
+                myIndex.setActive(entry, isRegionActive);
+                feature.setRegionActive(isRegionActive);
 
-                    ViewRefreshMode viewRefreshMode = KMLDataSourceUtils.getViewRefreshMode(dataSource);
-                    if (isRegionActive && (viewRefreshMode == ViewRefreshMode.ON_REGION || viewRefreshMode == null))
-                    {
-                        KMLDataRegistryHelper.queryAndActivate(myToolbox.getDataRegistry(), dataSource, dataSource.getPath(),
-                                Nulls.STRING);
-                    }
+                if (isRegionActive && isLoadedOnRegion(dataSource))
+                {
+                    KMLDataRegistryHelper.queryAndActivate(myToolbox.getDataRegistry(), dataSource, dataSource.getPath(),
+                            Nulls.STRING);
                 }
             }
+            else
+            {
+                // Overlays and Placemarks: update the visibility of the
+                // features whose region state changed
+                boolean isRegionActive = isRegionActive(entry, visibleBoundingBox);
+                if (isRegionActive != feature.isRegionActive() || !entry.isEvaluated())
+                {
+                    feature.setRegionActive(isRegionActive);
+                    changedFeatures.add(feature);
+                }
+                myIndex.setActive(entry, isRegionActive);
+            }
         }
 
-        // Overlays and Placemarks: update the visibility of the features
-        if (CollectionUtilities.hasContent(otherFeatures))
+        if (!changedFeatures.isEmpty())
         {
-            setRegionActive(otherFeatures);
+            myMantleController.updateFeatureVisibility(changedFeatures);
         }
+
+        prefetch(visibleBoundingBox);
     }
 
     /**
-     * Sets the region active flag and updates the feature visibility as
-     * necessary.
+     * Determines if the data source for a network link is loaded when its
+     * region becomes active.
      *
-     * @param features The features
+     * @param dataSource The data source.
+     * @return Whether the data source is loaded on region.
      */
-    private void setRegionActive(Collection<? extends KMLFeature> features)
+    private static boolean isLoadedOnRegion(KMLDataSource dataSource)
     {
-        for (KMLFeature feature : features)
-        {
-            boolean isRegionActive = isRegionActive(feature.getRegion());
-            if (isRegionActive != feature.isRegionActive())
-            {
-                feature.setRegionActive(isRegionActive);
-            }
-        }
-        myMantleController.updateFeatureVisibility(features);
+        ViewRefreshMode viewRefreshMode = KMLDataSourceUtils.getViewRefreshMode(dataSource);
+        return viewRefreshMode == ViewRefreshMode.ON_REGION || viewRefreshMode == null;
     }
 
     /**
-     * Determines if the region is active for the given data source.
+     * Determines if the region is active for the given view. The level of
+     * detail is only computed for regions in view.
      *
-     * @param region The region
+     * @param entry The index entry for the region
+     * @param visibleBoundingBox The visible bounding box
      * @return Whether the region is active
      */
-    private boolean isRegionActive(Region region)
+    private boolean isRegionActive(RegionEntry entry, GeographicBoundingBox visibleBoundingBox)
     {
-        boolean isRegionActive = false;
-
-        GeographicBoundingBox regionBbox = KMLSpatialTemporalUtils.caclulateGeographicBoundingBox(region.getLatLonAltBox());
+        GeographicBoundingBox regionBbox = entry.getBoundingBox();
+        return visibleBoundingBox.intersects(regionBbox)
+                && KMLRegionIndex.isLodSatisfied(getLod(regionBbox), entry.getMinLod(), entry.getMaxLod(), entry.isActive());
+    }
 
-        // Determine if the level of detail is satisfied
-        double regionLod = getLod(regionBbox);
-        double minLod = region.getLod().getMinLodPixels();
-        double maxLod = region.getLod().getMaxLodPixels();
-        boolean isLodSatisfied = minLod < regionLod && (regionLod < maxLod || maxLod == -1 || maxLod == 0);
+    /**
+     * Prefetch the network links whose regions are predicted to become active
+     * if the view keeps moving the way it moved since the last view change.
+     *
+     * @param visibleBoundingBox The visible bounding box
+     */
+    private void prefetch(GeographicBoundingBox visibleBoundingBox)
+    {
+        GeographicBoundingBox previous = myPreviousBoundingBox;
+        myPreviousBoundingBox = visibleBoundingBox;
+        if (previous == null || previous.equals(visibleBoundingBox) || previous.crossesAntimeridian()
+                || visibleBoundingBox.crossesAntimeridian())
+        {
+            return;
+        }
 
-        if (isLodSatisfied)
+        GeographicBoundingBox predicted = predictBoundingBox(previous, visibleBoundingBox);
+        Viewer viewer = myToolbox.getMapManager().getStandardViewer();
+        int count = 0;
+        for (RegionEntry entry : myIndex.getEntriesInView(predicted))
         {
-            // Determine if the region is in view
-            boolean isRegionInView = getVisibleBoundingBox().intersects(regionBbox);
+            if (count >= MAX_PREFETCH_COUNT)
+            {
+                break;
+            }
+            if (!entry.isNetworkLink() || entry.isActive() || entry.isPrefetched())
+            {
+                continue;
+            }
+            KMLDataSource dataSource = entry.getFeature().getResultingDataSource();
+            if (dataSource == null || dataSource.isLoaded() || !isLoadedOnRegion(dataSource))
+            {
+                continue;
+            }
 
-            isRegionActive = isRegionInView;
+            // Estimate the region's size on the screen from its share of the
+            // predicted view.
+            GeographicBoundingBox regionBbox = entry.getBoundingBox();
+            double lod = Math.max(regionBbox.getDeltaLonD() / predicted.getDeltaLonD() * viewer.getViewportWidth(),
+                    regionBbox.getDeltaLatD() / predicted.getDeltaLatD() * viewer.getViewportHeight());
+            if (KMLRegionIndex.isLodSatisfied(lod, entry.getMinLod(), entry.getMaxLod(), false))
+            {
+                entry.setPrefetched(true);
+                KMLDataRegistryHelper.queryAndPrefetch(myToolbox.getDataRegistry(), dataSource, dataSource.getPath());
+                ++count;
+            }
         }
+    }
 
-        return isRegionActive;
+    /**
+     * Predict the next visible bounding box by repeating the pan and zoom
+     * between the previous and current bounding boxes.
+     *
+     * @param previous The previous visible bounding box
+     * @param current The current visible bounding box
+     * @return The predicted bounding box
+     */
+    private static GeographicBoundingBox predictBoundingBox(GeographicBoundingBox previous, GeographicBoundingBox current)
+    {
+        double centerLat = 2 * current.getCenterLatitudeD() - previous.getCenterLatitudeD();
+        double centerLon = 2 * current.getCenterLongitudeD() - previous.getCenterLongitudeD();
+        double halfHeight = current.getDeltaLatD() * current.getDeltaLatD() / Math.max(previous.getDeltaLatD(), 1e-9) / 2;
+        double halfWidth = current.getDeltaLonD() * current.getDeltaLonD() / Math.max(previous.getDeltaLonD(), 1e-9) / 2;
+        halfHeight = Math.max(halfHeight, 1e-6);
+        halfWidth = Math.max(halfWidth, 1e-6);
+        return new GeographicBoundingBox(
+                LatLonAlt.createFromDegrees(MathUtil.clamp(centerLat - halfHeight, -90., 90.),
+                        MathUtil.clamp(centerLon - halfWidth, -180., 180.)),
+                LatLonAlt.createFromDegrees(MathUtil.clamp(centerLat + halfHeight, -90., 90.),
+                        MathUtil.clamp(centerLon + halfWidth, -180., 180.)));
     }
 
     /**
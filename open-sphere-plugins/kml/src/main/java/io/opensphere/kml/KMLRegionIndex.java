@@ -0,0 +1,434 @@
+package io.opensphere.kml;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import de.micromata.opengis.kml.v_2_2_0.NetworkLink;
+import de.micromata.opengis.kml.v_2_2_0.Region;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.kml.common.model.KMLFeature;
+import io.opensphere.kml.common.util.KMLSpatialTemporalUtils;
+
+/**
+ * Spatial index of the KML features that have regions. Features are bucketed
+ * in a coarse geographic grid by their region's {@code LatLonAltBox}, so that
+ * a view change only needs to look at the regions that are in view, the
+ * regions that were active for the previous view, and regions that have not
+ * been evaluated yet. A region that was out of view and is still out of view
+ * cannot have become active.
+ */
+@NotThreadSafe
+class KMLRegionIndex
+{
+    /**
+     * The fraction by which the LOD limits are widened for an active region
+     * and narrowed for an inactive one, so regions near a limit do not toggle
+     * on every small zoom.
+     */
+    static final double LOD_HYSTERESIS = .1;
+
+    /** The size of a grid cell in degrees. */
+    private static final double CELL_SIZE_DEGREES = 10.;
+
+    /** The number of grid columns. */
+    private static final int COLUMNS = 36;
+
+    /**
+     * Regions that cover more than this many cells are kept in a separate
+     * list instead of being added to every cell.
+     */
+    private static final int MAX_CELLS_PER_ENTRY = 64;
+
+    /** The number of grid rows. */
+    private static final int ROWS = 18;
+
+    /** The entries for regions that were active after the last evaluation. */
+    private final Set<RegionEntry> myActiveEntries = New.set();
+
+    /** The grid cells, by row then column. */
+    private final List<Set<RegionEntry>> myCells = New.list(ROWS * COLUMNS);
+
+    /** The entries by feature. */
+    private final Map<KMLFeature, RegionEntry> myEntries = New.map();
+
+    /** The entries that are too large to put in the grid. */
+    private final Set<RegionEntry> myLargeEntries = New.set();
+
+    /** The entries that have not been evaluated yet. */
+    private final Set<RegionEntry> myPendingEntries = New.set();
+
+    /**
+     * Get if a region's level of detail is satisfied, with hysteresis.
+     *
+     * @param lod The size of the region on the screen in pixels.
+     * @param minLod The region's minimum LOD pixels.
+     * @param maxLod The region's maximum LOD pixels; -1 or 0 mean no maximum.
+     * @param wasActive If the region is currently active.
+     * @return If the level of detail is satisfied.
+     */
+    static boolean isLodSatisfied(double lod, double minLod, double maxLod, boolean wasActive)
+    {
+        double margin = wasActive ? -LOD_HYSTERESIS : LOD_HYSTERESIS;
+        return minLod * (1. + margin) < lod && (maxLod == -1 || maxLod == 0 || lod < maxLod * (1. - margin));
+    }
+
+    /**
+     * Get the grid column for a longitude.
+     *
+     * @param lon The longitude in degrees.
+     * @return The column.
+     */
+    private static int getColumn(double lon)
+    {
+        return Math.max(0, Math.min(COLUMNS - 1, (int)Math.floor((lon + 180.) / CELL_SIZE_DEGREES)));
+    }
+
+    /**
+     * Get the grid row for a latitude.
+     *
+     * @param lat The latitude in degrees.
+     * @return The row.
+     */
+    private static int getRow(double lat)
+    {
+        return Math.max(0, Math.min(ROWS - 1, (int)Math.floor((lat + 90.) / CELL_SIZE_DEGREES)));
+    }
+
+    /** Constructor. */
+    public KMLRegionIndex()
+    {
+        for (int index = 0; index < ROWS * COLUMNS; ++index)
+        {
+            myCells.add(null);
+        }
+    }
+
+    /**
+     * Add a feature. The feature must have a region with a
+     * {@code LatLonAltBox} and a {@code Lod}.
+     *
+     * @param feature The feature.
+     */
+    public void add(KMLFeature feature)
+    {
+        if (myEntries.containsKey(feature))
+        {
+            return;
+        }
+        Region region = feature.getRegion();
+        GeographicBoundingBox bbox = KMLSpatialTemporalUtils.caclulateGeographicBoundingBox(region.getLatLonAltBox());
+        RegionEntry entry = new RegionEntry(feature, bbox, region.getLod().getMinLodPixels(),
+                region.getLod().getMaxLodPixels());
+        myEntries.put(feature, entry);
+        myPendingEntries.add(entry);
+
+        if (isLarge(bbox))
+        {
+            myLargeEntries.add(entry);
+        }
+        else
+        {
+            forEachCell(bbox, cell ->
+            {
+                Set<RegionEntry> set = myCells.get(cell);
+                if (set == null)
+                {
+                    set = New.set();
+                    myCells.set(cell, set);
+                }
+                set.add(entry);
+            });
+        }
+    }
+
+    /**
+     * Get the entries whose activation may have changed for a new view: the
+     * entries in view, the entries that were active, and the entries that
+     * have not been evaluated yet.
+     *
+     * @param view The visible bounding box.
+     * @return The entries.
+     */
+    public Collection<RegionEntry> getCandidates(GeographicBoundingBox view)
+    {
+        Set<RegionEntry> candidates = New.insertionOrderSet(getEntriesInView(view));
+        candidates.addAll(myActiveEntries);
+        candidates.addAll(myPendingEntries);
+        myPendingEntries.clear();
+        return candidates;
+    }
+
+    /**
+     * Get the entries whose regions intersect a bounding box.
+     *
+     * @param view The bounding box.
+     * @return The entries.
+     */
+    public Collection<RegionEntry> getEntriesInView(GeographicBoundingBox view)
+    {
+        Set<RegionEntry> result = New.insertionOrderSet();
+        forEachCell(view, cell ->
+        {
+            Set<RegionEntry> set = myCells.get(cell);
+            if (set != null)
+            {
+                for (RegionEntry entry : set)
+                {
+                    if (view.intersects(entry.getBoundingBox()))
+                    {
+                        result.add(entry);
+                    }
+                }
+            }
+        });
+        for (RegionEntry entry : myLargeEntries)
+        {
+            if (view.intersects(entry.getBoundingBox()))
+            {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get if there are no features in the index.
+     *
+     * @return If the index is empty.
+     */
+    public boolean isEmpty()
+    {
+        return myEntries.isEmpty();
+    }
+
+    /**
+     * Remove a feature.
+     *
+     * @param feature The feature.
+     */
+    public void remove(KMLFeature feature)
+    {
+        RegionEntry entry = myEntries.remove(feature);
+        if (entry != null)
+        {
+            myActiveEntries.remove(entry);
+            myPendingEntries.remove(entry);
+            if (!myLargeEntries.remove(entry))
+            {
+                forEachCell(entry.getBoundingBox(), cell ->
+                {
+                    Set<RegionEntry> set = myCells.get(cell);
+                    if (set != null && set.remove(entry) && set.isEmpty())
+                    {
+                        myCells.set(cell, null);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Record the result of evaluating an entry.
+     *
+     * @param entry The entry.
+     * @param active If the region is active.
+     */
+    public void setActive(RegionEntry entry, boolean active)
+    {
+        entry.myActive = active;
+        entry.myEvaluated = true;
+        if (active)
+        {
+            myActiveEntries.add(entry);
+        }
+        else
+        {
+            myActiveEntries.remove(entry);
+        }
+    }
+
+    /**
+     * Call a procedure for each grid cell that a bounding box covers.
+     *
+     * @param bbox The bounding box.
+     * @param procedure The procedure, which is given the cell index.
+     */
+    private void forEachCell(GeographicBoundingBox bbox, IntConsumer procedure)
+    {
+        int minRow = getRow(bbox.getMinLatD());
+        int maxRow = getRow(bbox.getMaxLatD());
+        int minColumn;
+        int maxColumn;
+        if (bbox.crossesAntimeridian())
+        {
+            minColumn = 0;
+            maxColumn = COLUMNS - 1;
+        }
+        else
+        {
+            minColumn = getColumn(bbox.getMinLonD());
+            maxColumn = getColumn(bbox.getMaxLonD());
+        }
+        for (int row = minRow; row <= maxRow; ++row)
+        {
+            for (int column = minColumn; column <= maxColumn; ++column)
+            {
+                procedure.accept(row * COLUMNS + column);
+            }
+        }
+    }
+
+    /**
+     * Get if a bounding box covers too many cells to be put in the grid.
+     *
+     * @param bbox The bounding box.
+     * @return If the box is large.
+     */
+    private boolean isLarge(GeographicBoundingBox bbox)
+    {
+        if (bbox.crossesAntimeridian())
+        {
+            return true;
+        }
+        int rows = getRow(bbox.getMaxLatD()) - getRow(bbox.getMinLatD()) + 1;
+        int columns = getColumn(bbox.getMaxLonD()) - getColumn(bbox.getMinLonD()) + 1;
+        return rows * columns > MAX_CELLS_PER_ENTRY;
+    }
+
+    /** A feature in the index along with its region's limits and state. */
+    static final class RegionEntry
+    {
+        /** If the region was active after the last evaluation. */
+        private boolean myActive;
+
+        /** The bounding box of the region. */
+        private final GeographicBoundingBox myBoundingBox;
+
+        /** If the region has been evaluated. */
+        private boolean myEvaluated;
+
+        /** The feature. */
+        private final KMLFeature myFeature;
+
+        /** The maximum LOD pixels. */
+        private final double myMaxLod;
+
+        /** The minimum LOD pixels. */
+        private final double myMinLod;
+
+        /** If the feature's network link has been prefetched. */
+        private boolean myPrefetched;
+
+        /**
+         * Constructor.
+         *
+         * @param feature The feature.
+         * @param boundingBox The bounding box of the region.
+         * @param minLod The minimum LOD pixels.
+         * @param maxLod The maximum LOD pixels.
+         */
+        RegionEntry(KMLFeature feature, GeographicBoundingBox boundingBox, double minLod, double maxLod)
+        {
+            myFeature = feature;
+            myBoundingBox = boundingBox;
+            myMinLod = minLod;
+            myMaxLod = maxLod;
+        }
+
+        /**
+         * Get the bounding box of the region.
+         *
+         * @return The bounding box.
+         */
+        public GeographicBoundingBox getBoundingBox()
+        {
+            return myBoundingBox;
+        }
+
+        /**
+         * Get the feature.
+         *
+         * @return The feature.
+         */
+        public KMLFeature getFeature()
+        {
+            return myFeature;
+        }
+
+        /**
+         * Get the maximum LOD pixels.
+         *
+         * @return The maximum LOD pixels.
+         */
+        public double getMaxLod()
+        {
+            return myMaxLod;
+        }
+
+        /**
+         * Get the minimum LOD pixels.
+         *
+         * @return The minimum LOD pixels.
+         */
+        public double getMinLod()
+        {
+            return myMinLod;
+        }
+
+        /**
+         * Get if the region was active after the last evaluation.
+         *
+         * @return If the region is active.
+         */
+        public boolean isActive()
+        {
+            return myActive;
+        }
+
+        /**
+         * Get if the region has been evaluated.
+         *
+         * @return If the region has been evaluated.
+         */
+        public boolean isEvaluated()
+        {
+            return myEvaluated;
+        }
+
+        /**
+         * Get if the feature is a network link.
+         *
+         * @return If the feature is a network link.
+         */
+        public boolean isNetworkLink()
+        {
+            return myFeature.getFeature() instanceof NetworkLink;
+        }
+
+        /**
+         * Get if the feature's network link has been prefetched.
+         *
+         * @return If the network link has been prefetched.
+         */
+        public boolean isPrefetched()
+        {
+            return myPrefetched;
+        }
+
+        /**
+         * Set if the feature's network link has been prefetched.
+         *
+         * @param prefetched If the network link has been prefetched.
+         */
+        public void setPrefetched(boolean prefetched)
+        {
+            myPrefetched = prefetched;
+        }
+    }
+}
@@ -253,6 +253,31 @@ public final class KMLDataRegistryHelper
         return tracker;
     }
 
+    /**
+     * Query the data registry for some KML data without activating it, so that
+     * it is loaded before it is needed.
+     *
+     * @param dataRegistry The data registry.
+     * @param dataSource The data source.
+     * @param url The url.
+     * @return The tracker for the query.
+     */
+    public static QueryTracker queryAndPrefetch(DataRegistry dataRegistry, KMLDataSource dataSource, String url)
+    {
+        DataModelCategory dataModelCategory = getKmlCategory(dataSource, Nulls.STRING);
+        SimpleIdQuery query = new SimpleIdQuery(dataModelCategory, url, URL_PROPERTY_DESCRIPTOR);
+        QueryTracker tracker = dataRegistry.submitQuery(query);
+        tracker.addListener(new QueryTrackerListenerAdapter()
+        {
+            @Override
+            public void statusChanged(QueryTracker queryTracker, QueryStatus status)
+            {
+                queryTracker.logException();
+            }
+        });
+        return tracker;
+    }
+
     /**
      * Query the data registry for some KML data and deactivate the data.
      *
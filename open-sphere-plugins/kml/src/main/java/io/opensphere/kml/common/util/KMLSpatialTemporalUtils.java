@@ -3,7 +3,6 @@ package io.opensphere.kml.common.util;
 import java.awt.Color;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -34,6 +33,7 @@ import io.opensphere.core.image.Image;
 import io.opensphere.core.model.Altitude;
 import io.opensphere.core.model.GeographicBoundingBox;
 import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.model.PackedLatLonAltList;
 import io.opensphere.core.model.ScreenBoundingBox;
 import io.opensphere.core.model.ScreenPosition;
 import io.opensphere.core.util.ColorUtilities;
@@ -264,12 +264,15 @@ public final class KMLSpatialTemporalUtils
      */
     public static List<LatLonAlt> convertCoordinates(List<Coordinate> coordinates, AltitudeMode altitudeMode)
     {
-        List<LatLonAlt> locations = new ArrayList<>(coordinates.size());
+        PackedLatLonAltList locations = new PackedLatLonAltList(PackedLatLonAltList.DEFAULT_PRECISION, coordinates.size());
         Altitude.ReferenceLevel referenceLevel = convertAltitudeMode(altitudeMode);
         boolean isZeroAltitude = isZeroAltitude(altitudeMode);
         for (Coordinate coordinate : coordinates)
         {
-            locations.add(convertCoordinate(coordinate, referenceLevel, isZeroAltitude));
+            double altitude = isZeroAltitude || Double.isNaN(coordinate.getAltitude()) ? 0.0 : coordinate.getAltitude();
+            // Perform a simple normalization for performance reasons
+            double normalizedLon = coordinate.getLongitude() > 180. ? coordinate.getLongitude() - 360. : coordinate.getLongitude();
+            locations.add(coordinate.getLatitude(), normalizedLon, altitude, referenceLevel);
         }
         return locations;
     }
@@ -626,23 +629,6 @@ public final class KMLSpatialTemporalUtils
         return altitudeMode == AltitudeMode.ABSOLUTE ? Altitude.ReferenceLevel.ELLIPSOID : Altitude.ReferenceLevel.TERRAIN;
     }
 
-    /**
-     * Convert an JAK Coordinate to a Core LatLonAlt.
-     *
-     * @param coordinate The Coordinate
-     * @param referenceLevel The altitude reference level
-     * @param isZeroAltitude Whether to use zero altitude
-     * @return The equivalent LatLonAlt
-     */
-    private static LatLonAlt convertCoordinate(Coordinate coordinate, Altitude.ReferenceLevel referenceLevel,
-            boolean isZeroAltitude)
-    {
-        double altitude = isZeroAltitude || Double.isNaN(coordinate.getAltitude()) ? 0.0 : coordinate.getAltitude();
-        // Perform a simple normalization for performance reasons
-        double normalizedLon = coordinate.getLongitude() > 180. ? coordinate.getLongitude() - 360. : coordinate.getLongitude();
-        return LatLonAlt.createFromDegreesMeters(coordinate.getLatitude(), normalizedLon, altitude, referenceLevel);
-    }
-
     /**
      * Produces a Calendar from the given matcher.
      *
@@ -4,14 +4,24 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import javax.imageio.ImageIO;
+import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
 
 import org.apache.log4j.Logger;
 
@@ -25,8 +35,14 @@ import de.micromata.opengis.kml.v_2_2_0.Kml;
 import de.micromata.opengis.kml.v_2_2_0.Placemark;
 import de.micromata.opengis.kml.v_2_2_0.Style;
 import de.micromata.opengis.kml.v_2_2_0.TimeSpan;
+import io.opensphere.core.export.ExportChannelWriter;
+import io.opensphere.core.export.ExportCursor;
+import io.opensphere.core.export.ExportException;
+import io.opensphere.core.export.StreamingExportEngine;
+import io.opensphere.core.util.JAXBContextHelper;
 import io.opensphere.core.util.XMLUtilities;
 import io.opensphere.core.util.lang.StringUtilities;
+import io.opensphere.core.util.taskactivity.CancellableTaskActivity;
 import io.opensphere.mantle.data.DataTypeInfo;
 import io.opensphere.mantle.data.SpecialKey;
 import io.opensphere.mantle.data.element.DataElement;
@@ -44,6 +60,12 @@ public class KML22Exporter implements KMLExporter
     /** Used to log any messages. */
     private static final Logger LOGGER = Logger.getLogger(KML22Exporter.class);
 
+    /** Matches the end tag of a folder. */
+    private static final Pattern FOLDER_END = Pattern.compile("</([\\w.-]+:)?Folder>");
+
+    /** The qualified name of a placemark element. */
+    private static final QName PLACEMARK_QNAME = new QName("http://www.opengis.net/kml/2.2", "Placemark");
+
     /** The kml. */
     private Kml myKML;
 
@@ -66,18 +88,80 @@ public class KML22Exporter implements KMLExporter
     private transient int myMissingNameCounter = 1;
 
     @Override
-    public void generateKMLDocument(DataTypeInfo dti, Collection<? extends DataElement> points, Collection<String> columnNames,
-            SimpleDateFormat dateFormat, KMLExportOptionsModel preExportModel)
+    public File exportKML(File file, DataTypeInfo dti, ExportCursor<? extends DataElement> cursor,
+            Collection<String> columnNames, SimpleDateFormat dateFormat, KMLExportOptionsModel preExportModel,
+            CancellableTaskActivity activity)
+        throws IOException, ExportException
     {
-        Document kmlDoc = new Document();
-        kmlDoc.setName(preExportModel.getTitleText());
-        kmlDoc.setVisibility(Boolean.TRUE);
+        // Write the document around an empty folder, streaming the
+        // placemarks into the folder.
+        Document kmlDoc = createDocument(preExportModel);
+        Folder folder = new Folder();
+        folder.setName("Data Folder");
+        kmlDoc.addToFeature(folder);
+        Kml kml = new Kml();
+        kml.setFeature(kmlDoc);
 
-        if (!preExportModel.isDot())
+        String skeleton;
+        try
         {
-            setIconProperties(preExportModel);
-            kmlDoc.getStyleSelector().add(createIcon());
+            skeleton = XMLUtilities.writeXMLObjectToString(kml);
+        }
+        catch (JAXBException e)
+        {
+            throw new ExportException("Failed to create KML document: " + e, e);
+        }
+        int split = -1;
+        for (Matcher matcher = FOLDER_END.matcher(skeleton); matcher.find();)
+        {
+            split = matcher.start();
+        }
+        if (split == -1)
+        {
+            throw new ExportException("Failed to create KML document: no folder in " + skeleton);
+        }
+
+        File outputFile = myExportAsKmz ? getKmzFile(file) : file;
+        try (FileOutputStream out = new FileOutputStream(outputFile))
+        {
+            ZipOutputStream zip = null;
+            WritableByteChannel channel;
+            if (myExportAsKmz)
+            {
+                zip = new ZipOutputStream(out);
+                zip.setComment("Created with OpenSphere KML 22 Exporter");
+                zip.putNextEntry(new ZipEntry("doc.kml"));
+                channel = Channels.newChannel(zip);
+            }
+            else
+            {
+                channel = out.getChannel();
+            }
+
+            try (ExportChannelWriter writer = new ExportChannelWriter(channel, StandardCharsets.UTF_8))
+            {
+                writer.write(skeleton.substring(0, split));
+                StreamingExportEngine.getDefault().export(cursor,
+                        (batch, offset) -> formatPlacemarks(dti, batch, offset, columnNames, dateFormat, preExportModel),
+                        writer, activity);
+                writer.write(skeleton.substring(split));
+            }
+
+            if (zip != null)
+            {
+                zip.closeEntry();
+                writeIconsToStream(zip, new File(myIconFile));
+                zip.finish();
+            }
         }
+        return outputFile;
+    }
+
+    @Override
+    public void generateKMLDocument(DataTypeInfo dti, Collection<? extends DataElement> points, Collection<String> columnNames,
+            SimpleDateFormat dateFormat, KMLExportOptionsModel preExportModel)
+    {
+        Document kmlDoc = createDocument(preExportModel);
 
         Folder folder = createFolder(dti, points, columnNames, dateFormat, preExportModel);
         kmlDoc.addToFeature(folder);
@@ -92,13 +176,7 @@ public class KML22Exporter implements KMLExporter
         File outputFile = file;
         if (myExportAsKmz)
         {
-            String fileName = file.getAbsolutePath();
-            if (fileName.endsWith(".kml"))
-            {
-                int index = fileName.lastIndexOf(".kml");
-                fileName = new StringBuilder(fileName).replace(index, index + 4, ".kmz").toString();
-                outputFile = new File(fileName);
-            }
+            outputFile = getKmzFile(file);
             ZipOutputStream out = new ZipOutputStream(new FileOutputStream(outputFile));
             writeKmlToStream(out, myKML);
             writeIconsToStream(out, new File(myIconFile));
@@ -111,6 +189,87 @@ public class KML22Exporter implements KMLExporter
         return outputFile;
     }
 
+    /**
+     * Creates the kml document, without any features.
+     *
+     * @param preExportModel the pre export options model
+     * @return the document
+     */
+    private Document createDocument(KMLExportOptionsModel preExportModel)
+    {
+        Document kmlDoc = new Document();
+        kmlDoc.setName(preExportModel.getTitleText());
+        kmlDoc.setVisibility(Boolean.TRUE);
+
+        if (!preExportModel.isDot())
+        {
+            setIconProperties(preExportModel);
+            kmlDoc.getStyleSelector().add(createIcon());
+        }
+        return kmlDoc;
+    }
+
+    /**
+     * Formats a batch of data elements as placemark elements.
+     *
+     * @param dti the data type info
+     * @param points the data element points
+     * @param offset the index of the first point among all the points
+     * @param columnNames the column names
+     * @param dateFormat the format of the date field, which is copied since
+     *            batches are formatted concurrently
+     * @param preExportModel the model for the pre export options
+     * @return the placemark elements
+     * @throws ExportException if the placemarks cannot be marshalled
+     */
+    private CharSequence formatPlacemarks(DataTypeInfo dti, List<? extends DataElement> points, int offset,
+            Collection<String> columnNames, SimpleDateFormat dateFormat, KMLExportOptionsModel preExportModel)
+        throws ExportException
+    {
+        String timeName = dti.getMetaDataInfo().getTimeKey();
+        SimpleDateFormat kmlDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        SimpleDateFormat batchDateFormat = (SimpleDateFormat)dateFormat.clone();
+        StringWriter writer = new StringWriter(points.size() * 512);
+        try
+        {
+            Marshaller marshaller = JAXBContextHelper.getCachedContext(Kml.class).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+            int count = offset;
+            for (DataElement dPt : points)
+            {
+                count++;
+                Placemark placemark = createPlacemark(dti, dPt, count, columnNames, batchDateFormat, timeName, kmlDateFormat,
+                        preExportModel);
+                marshaller.marshal(new JAXBElement<>(PLACEMARK_QNAME, Placemark.class, placemark), writer);
+            }
+        }
+        catch (JAXBException e)
+        {
+            throw new ExportException("Failed to create KML placemarks: " + e, e);
+        }
+        return writer.getBuffer();
+    }
+
+    /**
+     * Gets the kmz file to write for a kml file.
+     *
+     * @param file the kml file
+     * @return the kmz file
+     */
+    private File getKmzFile(File file)
+    {
+        File outputFile = file;
+        String fileName = file.getAbsolutePath();
+        if (fileName.endsWith(".kml"))
+        {
+            int index = fileName.lastIndexOf(".kml");
+            fileName = new StringBuilder(fileName).replace(index, index + 4, ".kmz").toString();
+            outputFile = new File(fileName);
+        }
+        return outputFile;
+    }
+
     /**
      * Sets the icon properties.
      *
@@ -258,37 +417,58 @@ public class KML22Exporter implements KMLExporter
         for (DataElement dPt : points)
         {
             count++;
-            Placemark placemark = new Placemark();
-            if (myExportAsKmz)
-            {
-                placemark.setStyleUrl("#" + new File(myIconFile).getName());
-            }
-            if (dPt.getTimeSpan() != null)
-            {
-                placemark.setTimePrimitive(createTimeSpan(kmlDateFormat, dPt));
-            }
-            placemark.setGeometry(KML22GeometryCreatorUtilities.createGeometry(dti, dPt));
-            placemark.setId(Integer.toString(count));
-            if (preExportModel.isMetadataField())
-            {
-                placemark.setName(getMetadataField(preExportModel, dPt));
-            }
-            else
-            {
-                // set name as prefix + one up counter
-                placemark.setName(preExportModel.getRecordText() + Integer.toString(count));
-            }
-
-            if (!columnNames.isEmpty())
-            {
-                ExtendedData data = createExtendedData(dti, columnNames, dateFormat, timeName, dPt);
-                placemark.setExtendedData(data);
-            }
-            folder.getFeature().add(placemark);
+            folder.getFeature().add(
+                    createPlacemark(dti, dPt, count, columnNames, dateFormat, timeName, kmlDateFormat, preExportModel));
         }
         return folder;
     }
 
+    /**
+     * Creates the placemark for a data element.
+     *
+     * @param dti the data type info
+     * @param dPt the data element
+     * @param count the one-up number of the data element
+     * @param columnNames the column names
+     * @param dateFormat the format of the date field
+     * @param timeName the time key
+     * @param kmlDateFormat the kml date format
+     * @param preExportModel the model for the pre export options
+     * @return the placemark
+     */
+    private Placemark createPlacemark(DataTypeInfo dti, DataElement dPt, int count, Collection<String> columnNames,
+            SimpleDateFormat dateFormat, String timeName, SimpleDateFormat kmlDateFormat,
+            KMLExportOptionsModel preExportModel)
+    {
+        Placemark placemark = new Placemark();
+        if (myExportAsKmz)
+        {
+            placemark.setStyleUrl("#" + new File(myIconFile).getName());
+        }
+        if (dPt.getTimeSpan() != null)
+        {
+            placemark.setTimePrimitive(createTimeSpan(kmlDateFormat, dPt));
+        }
+        placemark.setGeometry(KML22GeometryCreatorUtilities.createGeometry(dti, dPt));
+        placemark.setId(Integer.toString(count));
+        if (preExportModel.isMetadataField())
+        {
+            placemark.setName(getMetadataField(preExportModel, dPt));
+        }
+        else
+        {
+            // set name as prefix + one up counter
+            placemark.setName(preExportModel.getRecordText() + Integer.toString(count));
+        }
+
+        if (!columnNames.isEmpty())
+        {
+            ExtendedData data = createExtendedData(dti, columnNames, dateFormat, timeName, dPt);
+            placemark.setExtendedData(data);
+        }
+        return placemark;
+    }
+
     /**
      * Creates the extended data.
      *
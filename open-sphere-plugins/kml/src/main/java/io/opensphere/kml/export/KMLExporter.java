@@ -5,6 +5,9 @@ import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
 
+import io.opensphere.core.export.ExportCursor;
+import io.opensphere.core.export.ExportException;
+import io.opensphere.core.util.taskactivity.CancellableTaskActivity;
 import io.opensphere.mantle.data.DataTypeInfo;
 import io.opensphere.mantle.data.element.DataElement;
 
@@ -13,6 +16,28 @@ import io.opensphere.mantle.data.element.DataElement;
  */
 public interface KMLExporter
 {
+    /**
+     * Export a layer to a kml file, reading and formatting the placemarks in
+     * batches so the whole document is never in memory.
+     *
+     * @param outputFile the output file
+     * @param dti the dti
+     * @param cursor the cursor over the points
+     * @param columnNames the column names
+     * @param dateFormat the meta data date format
+     * @param preExportModel the pre export options model
+     * @param activity the activity that receives progress and can cancel the
+     *            export
+     * @return the actual file written to
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @throws ExportException If the points cannot be read or the export is
+     *             cancelled.
+     */
+    File exportKML(File outputFile, DataTypeInfo dti, ExportCursor<? extends DataElement> cursor,
+            Collection<String> columnNames, SimpleDateFormat dateFormat, KMLExportOptionsModel preExportModel,
+            CancellableTaskActivity activity)
+        throws IOException, ExportException;
+
     /**
      * Generate kml document.
      *
@@ -10,13 +10,15 @@ import java.util.Map;
 import javax.swing.JOptionPane;
 
 import io.opensphere.core.export.AbstractExporter;
+import io.opensphere.core.export.ExportException;
 import io.opensphere.core.preferences.ListToolPreferences;
 import io.opensphere.core.util.MimeType;
 import io.opensphere.core.util.collections.CollectionUtilities;
 import io.opensphere.core.util.swing.EventQueueUtilities;
+import io.opensphere.core.util.taskactivity.CancellableTaskActivity;
 import io.opensphere.mantle.data.DataTypeInfo;
 import io.opensphere.mantle.data.element.DataElement;
-import io.opensphere.mantle.util.MantleToolboxUtils;
+import io.opensphere.mantle.data.export.DataElementCursor;
 
 /**
  * An exporter that exports a layer to a KML file.
@@ -56,7 +58,7 @@ public class KMLFileLayerExporter extends AbstractExporter
     }
 
     @Override
-    public File export(File file) throws IOException
+    public File export(File file) throws IOException, ExportException
     {
         File kmlFile = null;
         Collection<DataTypeInfo> dataTypes = getElements();
@@ -66,13 +68,18 @@ public class KMLFileLayerExporter extends AbstractExporter
             int timePrecision = getToolbox().getPreferencesRegistry().getPreferences(ListToolPreferences.class)
                     .getInt(ListToolPreferences.LIST_TOOL_TIME_PRECISION_DIGITS, 0);
             SimpleDateFormat dateFormatter = ListToolPreferences.getSimpleDateFormatForPrecision(timePrecision);
-            List<DataElement> dataElements = MantleToolboxUtils.getDataElementLookupUtils(getToolbox())
-                    .getDataElements(dataType);
-            List<String> columnNames = dataElements.iterator().next().getMetaData().getKeys();
+            DataElementCursor cursor = new DataElementCursor(getToolbox(), dataType);
+            DataElement first = cursor.getFirst();
+            List<String> columnNames = first == null ? dataType.getMetaDataInfo().getKeyNames()
+                    : first.getMetaData().getKeys();
 
-            KMLExporter kmlExporter = new KML22Exporter();
-            kmlExporter.generateKMLDocument(dataType, dataElements, columnNames, dateFormatter, myModel);
-            kmlFile = kmlExporter.writeKMLToFile(file);
+            try (CancellableTaskActivity activity = CancellableTaskActivity
+                    .createActive("Exporting " + dataType.getDisplayName() + " to KML"))
+            {
+                getToolbox().getUIRegistry().getMenuBarRegistry().addTaskActivity(activity);
+                KMLExporter kmlExporter = new KML22Exporter();
+                kmlFile = kmlExporter.exportKML(file, dataType, cursor, columnNames, dateFormatter, myModel, activity);
+            }
         }
 
         EventQueueUtilities.runOnEDT(() ->JOptionPane.showMessageDialog(getToolbox().getUIRegistry().getMainFrameProvider().get(),
@@ -0,0 +1,120 @@
+package io.opensphere.kml;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.micromata.opengis.kml.v_2_2_0.LatLonAltBox;
+import de.micromata.opengis.kml.v_2_2_0.Placemark;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.kml.KMLRegionIndex.RegionEntry;
+import io.opensphere.kml.common.model.KMLDataSource;
+import io.opensphere.kml.common.model.KMLFeature;
+
+/** Tests for {@link KMLRegionIndex}. */
+public class KMLRegionIndexTest
+{
+    /** Test that only entries in view, active, or pending are candidates. */
+    @Test
+    public void testCandidates()
+    {
+        KMLRegionIndex index = new KMLRegionIndex();
+        KMLFeature east = createFeature(10, 10, 11, 11);
+        KMLFeature west = createFeature(10, -100, 11, -99);
+        KMLFeature global = createFeature(-80, -170, 80, 170);
+        index.add(east);
+        index.add(west);
+        index.add(global);
+
+        GeographicBoundingBox eastView = box(0, 0, 20, 20);
+        Collection<KMLFeature> candidates = features(index.getCandidates(eastView));
+        Assert.assertEquals(3, candidates.size());
+        for (RegionEntry entry : index.getCandidates(box(-90, -180, 90, 180)))
+        {
+            index.setActive(entry, entry.getFeature() == east);
+        }
+
+        GeographicBoundingBox westView = box(0, -105, 20, -95);
+        candidates = features(index.getCandidates(westView));
+        Assert.assertTrue(candidates.contains(west));
+        Assert.assertTrue(candidates.contains(global));
+        Assert.assertTrue("The active region must be re-evaluated", candidates.contains(east));
+
+        for (RegionEntry entry : index.getCandidates(westView))
+        {
+            index.setActive(entry, false);
+        }
+        candidates = features(index.getCandidates(box(-60, 60, -50, 70)));
+        Assert.assertEquals(1, candidates.size());
+        Assert.assertTrue(candidates.contains(global));
+
+        index.remove(global);
+        Assert.assertTrue(index.getCandidates(box(-60, 60, -50, 70)).isEmpty());
+        Assert.assertFalse(index.isEmpty());
+    }
+
+    /** Test the LOD hysteresis. */
+    @Test
+    public void testLodHysteresis()
+    {
+        Assert.assertFalse(KMLRegionIndex.isLodSatisfied(105, 100, 1000, false));
+        Assert.assertTrue(KMLRegionIndex.isLodSatisfied(115, 100, 1000, false));
+        Assert.assertTrue(KMLRegionIndex.isLodSatisfied(95, 100, 1000, true));
+        Assert.assertFalse(KMLRegionIndex.isLodSatisfied(85, 100, 1000, true));
+
+        Assert.assertFalse(KMLRegionIndex.isLodSatisfied(950, 100, 1000, false));
+        Assert.assertTrue(KMLRegionIndex.isLodSatisfied(1050, 100, 1000, true));
+        Assert.assertFalse(KMLRegionIndex.isLodSatisfied(1150, 100, 1000, true));
+
+        Assert.assertTrue(KMLRegionIndex.isLodSatisfied(1e6, 100, -1, false));
+        Assert.assertTrue(KMLRegionIndex.isLodSatisfied(1e6, 100, 0, false));
+    }
+
+    /**
+     * Create a bounding box.
+     *
+     * @param minLat The minimum latitude.
+     * @param minLon The minimum longitude.
+     * @param maxLat The maximum latitude.
+     * @param maxLon The maximum longitude.
+     * @return The box.
+     */
+    private static GeographicBoundingBox box(double minLat, double minLon, double maxLat, double maxLon)
+    {
+        return new GeographicBoundingBox(LatLonAlt.createFromDegrees(minLat, minLon),
+                LatLonAlt.createFromDegrees(maxLat, maxLon));
+    }
+
+    /**
+     * Create a placemark feature with a region.
+     *
+     * @param minLat The minimum latitude.
+     * @param minLon The minimum longitude.
+     * @param maxLat The maximum latitude.
+     * @param maxLon The maximum longitude.
+     * @return The feature.
+     */
+    private static KMLFeature createFeature(double minLat, double minLon, double maxLat, double maxLon)
+    {
+        Placemark placemark = new Placemark();
+        placemark.createAndSetRegion().withLatLonAltBox(
+                new LatLonAltBox().withSouth(minLat).withWest(minLon).withNorth(maxLat)
+                        .withEast(maxLon))
+                .createAndSetLod().withMinLodPixels(128).withMaxLodPixels(-1);
+        return new KMLFeature(placemark, new KMLDataSource());
+    }
+
+    /**
+     * Get the features for some entries.
+     *
+     * @param entries The entries.
+     * @return The features.
+     */
+    private static Collection<KMLFeature> features(Collection<RegionEntry> entries)
+    {
+        return entries.stream().map(RegionEntry::getFeature).collect(Collectors.toList());
+    }
+}
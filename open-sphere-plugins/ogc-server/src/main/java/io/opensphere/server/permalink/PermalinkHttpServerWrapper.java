@@ -7,6 +7,7 @@ import java.net.Proxy;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import io.opensphere.core.server.ContentType;
 import io.opensphere.core.server.HttpServer;
@@ -110,6 +111,13 @@ public class PermalinkHttpServerWrapper implements PermalinkHttpServer
         return myServer.sendGet(url, response);
     }
 
+    @Override
+    public CompletableFuture<CancellableInputStream> sendGetAsync(URL url, Map<String, String> extraHeaderValues,
+            ResponseValues response)
+    {
+        return myServer.sendGetAsync(url, extraHeaderValues, response);
+    }
+
     @Override
     public CancellableInputStream sendPost(URL url, InputStream postData, Map<String, String> extraHeaderValues,
             ResponseValues response, ContentType contentType)
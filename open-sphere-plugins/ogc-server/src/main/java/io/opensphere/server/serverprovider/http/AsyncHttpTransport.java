@@ -0,0 +1,820 @@
+package io.opensphere.server.serverprovider.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.Authenticator;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.log4j.Logger;
+
+import com.bitsys.common.http.auth.Credentials;
+import com.bitsys.common.http.auth.UsernamePasswordCredentials;
+import com.bitsys.common.http.client.DefaultHttpClient;
+import com.bitsys.common.http.client.HttpClient;
+import com.bitsys.common.http.client.HttpClientOptions;
+import com.bitsys.common.http.client.ProxyConfig;
+import com.bitsys.common.http.entity.HttpEntity;
+import com.bitsys.common.http.entity.InputStreamEntity;
+import com.bitsys.common.http.header.ContentType;
+import com.bitsys.common.http.message.Abortable;
+import com.bitsys.common.http.message.BasicHttpResponse;
+import com.bitsys.common.http.message.HttpRequest;
+import com.bitsys.common.http.message.HttpRequestFactory;
+import com.bitsys.common.http.message.HttpResponse;
+import com.bitsys.common.http.proxy.ProxyHostConfig;
+import com.bitsys.common.http.proxy.ProxyHostConfig.ProxyType;
+import com.bitsys.common.http.util.cache.HttpResponseCache;
+
+import io.opensphere.core.NetworkConfigurationManager;
+import io.opensphere.core.event.EventManager;
+import io.opensphere.core.net.NetworkReceiveEvent;
+import io.opensphere.core.net.NetworkTransmitEvent;
+import io.opensphere.core.server.ResponseValues;
+import io.opensphere.core.util.io.CancellableInputStream;
+import io.opensphere.server.serverprovider.ProxySelectorImpl;
+import io.opensphere.server.serverprovider.http.header.HeaderValues;
+import io.opensphere.server.serverprovider.http.requestors.RequestorProvider;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * An asynchronous transport for the get requests of one server, built on
+ * {@link java.net.http.HttpClient}. Requests are multiplexed over HTTP/2 where
+ * the server supports it and responses are delivered through
+ * {@link CompletableFuture}s, so a few threads can keep hundreds of requests
+ * in flight. Requests beyond the in-flight limit are queued.
+ * <p>
+ * The transport is configured from the client of the server's synchronous
+ * requestors: it uses the client's SSL context, so it presents the same client
+ * certificate and trusts the same servers, the client's proxy resolver and
+ * proxy credentials, the client's timeouts and the client's response cache.
+ * The client is read for every request, so changes made through
+ * {@link RequestorProvider#setTimeouts(int, int)} apply.
+ * <p>
+ * Bodies with a known length of up to {@value #MAX_BUFFERED_BODY} bytes are
+ * received in full before the future completes, so no thread waits for them.
+ * Larger bodies are streamed.
+ * <p>
+ * The transport does not have the interactive credential handling or the
+ * lenient host name verification of the synchronous requestors. Requests that
+ * are rejected for authentication or that fail the TLS handshake are sent
+ * again through the synchronous requestor, and later requests to a host that
+ * asked for credentials are sent through it directly.
+ */
+@ThreadSafe
+public class AsyncHttpTransport
+{
+    /** The largest body with a known length that is received in full. */
+    static final long MAX_BUFFERED_BODY = 1L << 20;
+
+    /** The logger. */
+    private static final Logger LOGGER = Logger.getLogger(AsyncHttpTransport.class);
+
+    /** The headers that {@link java.net.http.HttpClient} does not allow to be set. */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    /** The number of requests that have completed. */
+    private final AtomicLong myCompletedCount = new AtomicLong();
+
+    /** The manager through which events are sent. */
+    private final EventManager myEventManager;
+
+    /** The executor for the response callbacks. */
+    private final Executor myExecutor;
+
+    /** The number of requests that were sent through the synchronous requestor. */
+    private final AtomicLong myFallbackCount = new AtomicLong();
+
+    /** The executor for the requests sent through the synchronous requestor. */
+    private final Executor myFallbackExecutor;
+
+    /** Contains the header values. */
+    private final HeaderValues myHeaderValues;
+
+    /** The client that was built for {@link #myRequestorClient}. */
+    @GuardedBy("this")
+    private java.net.http.HttpClient myHttpClient;
+
+    /** The connect timeout in seconds that {@link #myHttpClient} was built with. */
+    @GuardedBy("this")
+    private int myHttpClientConnectTimeout;
+
+    /** The permits for requests in flight. */
+    private final Semaphore myInFlightPermits;
+
+    /** The maximum number of requests in flight. */
+    private final int myMaxInFlight;
+
+    /** The network configuration manager. */
+    private final NetworkConfigurationManager myNetworkConfigurationManager;
+
+    /** Requests waiting for a permit. */
+    private final Queue<PendingRequest> myPending = new ConcurrentLinkedQueue<>();
+
+    /** The client that {@link #myHttpClient} was built for. */
+    @GuardedBy("this")
+    private HttpClient myRequestorClient;
+
+    /** Provides the synchronous requestors and their client. */
+    private final RequestorProvider myRequestorProvider;
+
+    /** The hosts and ports that have asked for server credentials. */
+    private final Set<String> myServerAuthenticationHosts = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor.
+     *
+     * @param requestorProvider Provides the synchronous requestors and the
+     *            client whose configuration is used.
+     * @param headerValues Contains the header values.
+     * @param eventManager The manager through which events are sent.
+     * @param networkConfigurationManager The network configuration manager.
+     * @param executor The executor for the response callbacks.
+     * @param fallbackExecutor The executor for the requests sent through the
+     *            synchronous requestor, which block.
+     * @param maxInFlight The maximum number of requests in flight.
+     */
+    public AsyncHttpTransport(RequestorProvider requestorProvider, HeaderValues headerValues, EventManager eventManager,
+            NetworkConfigurationManager networkConfigurationManager, Executor executor, Executor fallbackExecutor,
+            int maxInFlight)
+    {
+        myRequestorProvider = requestorProvider;
+        myHeaderValues = headerValues;
+        myEventManager = eventManager;
+        myNetworkConfigurationManager = networkConfigurationManager;
+        myExecutor = executor;
+        myFallbackExecutor = fallbackExecutor;
+        myMaxInFlight = maxInFlight;
+        myInFlightPermits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Gets the number of requests that have completed.
+     *
+     * @return The count.
+     */
+    public long getCompletedCount()
+    {
+        return myCompletedCount.get();
+    }
+
+    /**
+     * Gets the number of requests that were sent through the synchronous
+     * requestor.
+     *
+     * @return The count.
+     */
+    public long getFallbackCount()
+    {
+        return myFallbackCount.get();
+    }
+
+    /**
+     * Gets the number of requests in flight.
+     *
+     * @return The count.
+     */
+    public int getInFlightCount()
+    {
+        return myMaxInFlight - myInFlightPermits.availablePermits();
+    }
+
+    /**
+     * Gets the number of requests waiting to be sent.
+     *
+     * @return The count.
+     */
+    public int getQueuedCount()
+    {
+        return myPending.size();
+    }
+
+    /**
+     * Sends a get request. Cancelling the returned future or the returned
+     * stream aborts the request.
+     *
+     * @param url The url, which should include any parameters.
+     * @param extraHeaderValues Header values to add to the request header.
+     * @param response The response values to populate.
+     * @return The future response stream.
+     */
+    public CompletableFuture<CancellableInputStream> sendGet(URL url, Map<String, String> extraHeaderValues,
+            ResponseValues response)
+    {
+        HttpClient client = myRequestorProvider.getClient();
+        if (!(client instanceof DefaultHttpClient) || myServerAuthenticationHosts.contains(getAuthority(url)))
+        {
+            return fallback(url, extraHeaderValues, response);
+        }
+
+        HttpRequest request;
+        try
+        {
+            request = HttpRequestFactory.getInstance().get(url.toURI());
+        }
+        catch (URISyntaxException e)
+        {
+            return CompletableFuture.failedFuture(e);
+        }
+        for (Map.Entry<String, String> extraHeader : extraHeaderValues.entrySet())
+        {
+            request.getHeaders().put(extraHeader.getKey(), extraHeader.getValue());
+        }
+        if (request.getHeaderValue("Accept-Encoding") == null)
+        {
+            request.getHeaders().put("Accept-Encoding", myHeaderValues.getEncoding());
+        }
+        request.getHeaders().put("User-Agent", myHeaderValues.getUserAgent());
+        if (request.getHeaderValue("Accept") == null)
+        {
+            request.getHeaders().put("Accept", myHeaderValues.getAccept());
+        }
+
+        String transactionId = null;
+        if (myNetworkConfigurationManager.isNetworkMonitorEnabled())
+        {
+            transactionId = UUID.randomUUID().toString();
+            NetworkTransmitEvent transmitEvent = new NetworkTransmitEvent(request, client.getOptions(), transactionId);
+            transmitEvent.setCookieStore(client.getCookieStore());
+            myEventManager.publishEvent(transmitEvent);
+        }
+
+        DefaultHttpClient defaultClient = (DefaultHttpClient)client;
+        HttpResponseCache cache = client.getOptions().getResponseCache();
+        CompletableFuture<HttpResponse> future = cache == null ? send(defaultClient, request)
+                : cache.executeAsync(request, r -> send(defaultClient, r));
+
+        String receiveId = transactionId;
+        CompletableFuture<CancellableInputStream> result = new CompletableFuture<>();
+        future.whenComplete((httpResponse, error) ->
+        {
+            if (receiveId != null && httpResponse != null)
+            {
+                myEventManager.publishEvent(new NetworkReceiveEvent(httpResponse, receiveId));
+            }
+            complete(url, extraHeaderValues, request, httpResponse, error, response, result);
+        });
+        result.whenComplete((stream, error) ->
+        {
+            if (result.isCancelled())
+            {
+                request.abort();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Completes the future for a request.
+     *
+     * @param url The url.
+     * @param extraHeaderValues The extra header values of the request.
+     * @param request The request.
+     * @param httpResponse The response, or {@code null} if the request failed.
+     * @param error The error, or {@code null} if the request succeeded.
+     * @param response The response values to populate.
+     * @param result The future to complete.
+     */
+    private void complete(URL url, Map<String, String> extraHeaderValues, HttpRequest request, HttpResponse httpResponse,
+            Throwable error, ResponseValues response, CompletableFuture<CancellableInputStream> result)
+    {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (httpResponse != null && httpResponse.getStatusCode() == 401)
+        {
+            myServerAuthenticationHosts.add(getAuthority(url));
+        }
+        if (result.isDone())
+        {
+            closeQuietly(httpResponse);
+        }
+        else if (cause instanceof SSLException
+                || cause instanceof IOException && myServerAuthenticationHosts.contains(getAuthority(url))
+                || httpResponse != null && (httpResponse.getStatusCode() == 401 || httpResponse.getStatusCode() == 407))
+        {
+            if (LOGGER.isDebugEnabled())
+            {
+                LOGGER.debug("Sending " + url + " through the synchronous requestor: "
+                        + (cause == null ? String.valueOf(httpResponse.getStatusCode()) : cause.toString()));
+            }
+            closeQuietly(httpResponse);
+            fallback(url, extraHeaderValues, response).whenComplete((stream, e) ->
+            {
+                if (e != null)
+                {
+                    result.completeExceptionally(e);
+                }
+                else if (!result.complete(stream) && stream != null)
+                {
+                    stream.cancel();
+                }
+            });
+        }
+        else if (cause != null)
+        {
+            result.completeExceptionally(cause instanceof IOException || cause instanceof URISyntaxException ? cause
+                    : new IOException(cause.getMessage(), cause));
+        }
+        else
+        {
+            try
+            {
+                CancellableInputStream stream = toStream(request, httpResponse, response);
+                if (!result.complete(stream) && stream != null)
+                {
+                    stream.cancel();
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                closeQuietly(httpResponse);
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Sends requests that are waiting for a permit.
+     */
+    private void drain()
+    {
+        while (!myPending.isEmpty() && myInFlightPermits.tryAcquire())
+        {
+            PendingRequest pending = myPending.poll();
+            if (pending == null || !pending.start())
+            {
+                myInFlightPermits.release();
+            }
+        }
+    }
+
+    /**
+     * Sends a request through the synchronous requestor on the fallback
+     * executor.
+     *
+     * @param url The url.
+     * @param extraHeaderValues The extra header values.
+     * @param response The response values to populate.
+     * @return The future response stream.
+     */
+    private CompletableFuture<CancellableInputStream> fallback(URL url, Map<String, String> extraHeaderValues,
+            ResponseValues response)
+    {
+        myFallbackCount.incrementAndGet();
+        CompletableFuture<CancellableInputStream> result = new CompletableFuture<>();
+        myFallbackExecutor.execute(() ->
+        {
+            try
+            {
+                result.complete(myRequestorProvider.getRequestor().sendGet(url, extraHeaderValues, response));
+            }
+            catch (IOException | URISyntaxException | RuntimeException e)
+            {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Gets the client for the configuration of a requestor client, building
+     * it if the requestor client or its connect timeout has changed.
+     *
+     * @param client The requestor client.
+     * @return The client.
+     */
+    private synchronized java.net.http.HttpClient getHttpClient(DefaultHttpClient client)
+    {
+        HttpClientOptions options = client.getOptions();
+        if (myHttpClient == null || myRequestorClient != client || myHttpClientConnectTimeout != options.getConnectTimeout())
+        {
+            java.net.http.HttpClient.Builder builder = java.net.http.HttpClient.newBuilder().version(Version.HTTP_2)
+                    .followRedirects(Redirect.NORMAL).sslContext(client.getSslContext())
+                    .sslParameters(new SSLParameters(options.getSslConfig().getEnabledCipherSuites(),
+                            options.getSslConfig().getEnabledProtocols()))
+                    .proxy(new ResolverProxySelector(options))
+                    .authenticator(new ProxyAuthenticator(options, myServerAuthenticationHosts))
+                    .executor(myExecutor);
+            if (options.getConnectTimeout() > 0)
+            {
+                builder.connectTimeout(Duration.ofSeconds(options.getConnectTimeout()));
+            }
+            myHttpClient = builder.build();
+            myRequestorClient = client;
+            myHttpClientConnectTimeout = options.getConnectTimeout();
+        }
+        return myHttpClient;
+    }
+
+    /**
+     * Sends a request when a permit is available. The request is converted
+     * before this method returns.
+     *
+     * @param client The requestor client whose configuration is used.
+     * @param request The request.
+     * @return The future response.
+     */
+    private CompletableFuture<HttpResponse> send(DefaultHttpClient client, HttpRequest request)
+    {
+        java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(request.getURI()).GET();
+        int readTimeout = client.getOptions().getReadTimeout();
+        if (readTimeout > 0)
+        {
+            builder.timeout(Duration.ofSeconds(readTimeout));
+        }
+        for (Map.Entry<String, String> header : request.getHeaders().entries())
+        {
+            if (RESTRICTED_HEADERS.contains(header.getKey().toLowerCase(Locale.ROOT)))
+            {
+                LOGGER.debug("Not sending restricted header " + header.getKey() + " to " + request.getURI());
+            }
+            else
+            {
+                builder.header(header.getKey(), header.getValue());
+            }
+        }
+        java.net.http.HttpRequest httpRequest;
+        try
+        {
+            httpRequest = builder.build();
+        }
+        catch (IllegalArgumentException e)
+        {
+            return CompletableFuture.failedFuture(new IOException(e.getMessage(), e));
+        }
+
+        PendingRequest pending = new PendingRequest(getHttpClient(client), httpRequest);
+        request.setAbortable(pending);
+        myPending.add(pending);
+        drain();
+        return pending.getFuture();
+    }
+
+    /**
+     * Populates the response values and creates the stream for a response.
+     *
+     * @param request The request.
+     * @param httpResponse The response.
+     * @param response The response values to populate.
+     * @return The stream, or {@code null} if the response has no body.
+     * @throws IOException If the body cannot be decoded.
+     */
+    private CancellableInputStream toStream(HttpRequest request, HttpResponse httpResponse, ResponseValues response)
+        throws IOException
+    {
+        response.setResponseCode(httpResponse.getStatusCode());
+        response.setResponseMessage(httpResponse.getStatusMessage());
+        response.setHeader(httpResponse.getHeaders().asMap());
+
+        HttpEntity entity = httpResponse.getEntity();
+        if (entity == null)
+        {
+            return null;
+        }
+        response.setContentLength(entity.getContentLength());
+
+        InputStream returnData = entity.getContent();
+        String encoding = response.getHeaderValue("Content-Encoding");
+        if (encoding != null && encoding.contains(myHeaderValues.getZippedEncoding()))
+        {
+            returnData = new GZIPInputStream(returnData);
+        }
+        InputStream stream = returnData;
+        return new CancellableInputStream(request.getURI().toString(), stream, () ->
+        {
+            request.abort();
+            closeQuietly(stream);
+        });
+    }
+
+    /**
+     * Closes a resource, logging any failure.
+     *
+     * @param closeable The resource, which may be {@code null}.
+     */
+    private static void closeQuietly(AutoCloseable closeable)
+    {
+        if (closeable != null)
+        {
+            try
+            {
+                closeable.close();
+            }
+            catch (Exception e)
+            {
+                LOGGER.debug("Failed to close: " + e, e);
+            }
+        }
+    }
+
+    /**
+     * Gets the host and port of a url, using the default port of its protocol
+     * if it does not have one.
+     *
+     * @param url The url.
+     * @return The host and port.
+     */
+    private static String getAuthority(URL url)
+    {
+        return getAuthority(url.getHost(), url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+    }
+
+    /**
+     * Gets the key of a host and port.
+     *
+     * @param host The host.
+     * @param port The port.
+     * @return The key.
+     */
+    private static String getAuthority(String host, int port)
+    {
+        return host.toLowerCase(Locale.ROOT) + ":" + port;
+    }
+
+    /**
+     * Creates the handler for response bodies, which receives bodies of known
+     * length of up to {@link #MAX_BUFFERED_BODY} bytes in full and streams
+     * the others.
+     *
+     * @return The body handler.
+     */
+    private static BodyHandler<InputStream> createBodyHandler()
+    {
+        return responseInfo ->
+        {
+            long length = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1L);
+            return length >= 0L && length <= MAX_BUFFERED_BODY
+                    ? BodySubscribers.mapping(BodySubscribers.ofByteArray(), ByteArrayInputStream::new)
+                    : BodySubscribers.ofInputStream();
+        };
+    }
+
+    /**
+     * Converts a response to the response type of the requestor client.
+     *
+     * @param httpResponse The response.
+     * @return The converted response.
+     */
+    private static HttpResponse toResponse(java.net.http.HttpResponse<InputStream> httpResponse)
+    {
+        java.net.http.HttpHeaders headers = httpResponse.headers();
+        String contentType = headers.firstValue("Content-Type").orElse(null);
+        InputStreamEntity entity = new InputStreamEntity(httpResponse.body(),
+                headers.firstValueAsLong("Content-Length").orElse(-1L),
+                contentType == null ? null : ContentType.parse(contentType));
+        entity.setContentEncoding(headers.firstValue("Content-Encoding").orElse(null));
+
+        String reason = EnglishReasonPhraseCatalog.INSTANCE.getReason(httpResponse.statusCode(), Locale.ENGLISH);
+        BasicHttpResponse response = new BasicHttpResponse(httpResponse.statusCode(), reason == null ? "" : reason, entity);
+        for (Map.Entry<String, List<String>> header : headers.map().entrySet())
+        {
+            if (!header.getKey().startsWith(":"))
+            {
+                response.getHeaders().putAll(header.getKey(), header.getValue());
+            }
+        }
+        return response;
+    }
+
+    /**
+     * A request waiting to be sent. It is also the abortable of the request,
+     * so aborting the request cancels it whether it is waiting or in flight.
+     */
+    private final class PendingRequest implements Abortable
+    {
+        /** Whether the request has been aborted. */
+        private final AtomicBoolean myAborted = new AtomicBoolean();
+
+        /** The client. */
+        private final java.net.http.HttpClient myClient;
+
+        /** The future response. */
+        private final CompletableFuture<HttpResponse> myFuture = new CompletableFuture<>();
+
+        /** The request. */
+        private final java.net.http.HttpRequest myRequest;
+
+        /** The future of the exchange once it has been sent. */
+        private volatile CompletableFuture<java.net.http.HttpResponse<InputStream>> myExchange;
+
+        /**
+         * Constructor.
+         *
+         * @param client The client.
+         * @param request The request.
+         */
+        public PendingRequest(java.net.http.HttpClient client, java.net.http.HttpRequest request)
+        {
+            myClient = client;
+            myRequest = request;
+        }
+
+        @Override
+        public void abort()
+        {
+            if (myAborted.compareAndSet(false, true))
+            {
+                CompletableFuture<java.net.http.HttpResponse<InputStream>> exchange = myExchange;
+                if (exchange != null)
+                {
+                    exchange.cancel(true);
+                }
+                myFuture.cancel(true);
+            }
+        }
+
+        /**
+         * Gets the future response.
+         *
+         * @return The future.
+         */
+        public CompletableFuture<HttpResponse> getFuture()
+        {
+            return myFuture;
+        }
+
+        @Override
+        public boolean isAborted()
+        {
+            return myAborted.get();
+        }
+
+        /**
+         * Sends the request unless it has been aborted. The caller must hold
+         * a permit, which is released when the exchange completes.
+         *
+         * @return {@code true} if the request was sent, {@code false} if the
+         *         permit was not used.
+         */
+        public boolean start()
+        {
+            if (isAborted())
+            {
+                return false;
+            }
+            CompletableFuture<java.net.http.HttpResponse<InputStream>> exchange;
+            try
+            {
+                exchange = myClient.sendAsync(myRequest, createBodyHandler());
+            }
+            catch (RuntimeException e)
+            {
+                exchange = CompletableFuture.failedFuture(e);
+            }
+            myExchange = exchange;
+            if (isAborted())
+            {
+                exchange.cancel(true);
+            }
+            exchange.whenComplete((httpResponse, error) ->
+            {
+                myInFlightPermits.release();
+                myCompletedCount.incrementAndGet();
+                drain();
+                if (error != null)
+                {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+                            : error;
+                    myFuture.completeExceptionally(cause instanceof UncheckedIOException ? cause.getCause() : cause);
+                }
+                else if (!myFuture.complete(toResponse(httpResponse)))
+                {
+                    closeQuietly(httpResponse.body());
+                }
+            });
+            return true;
+        }
+    }
+
+    /**
+     * Authenticates to proxies with the credentials of the proxy
+     * configuration of the requestor client. Servers that ask for credentials
+     * are recorded so their requests can be sent through the synchronous
+     * requestor, which asks the user.
+     */
+    private static final class ProxyAuthenticator extends Authenticator
+    {
+        /** The client options. */
+        private final HttpClientOptions myOptions;
+
+        /** The hosts and ports that have asked for server credentials. */
+        private final Set<String> myServerAuthenticationHosts;
+
+        /**
+         * Constructor.
+         *
+         * @param options The client options.
+         * @param serverAuthenticationHosts The hosts and ports that have asked
+         *            for server credentials, to which hosts are added.
+         */
+        public ProxyAuthenticator(HttpClientOptions options, Set<String> serverAuthenticationHosts)
+        {
+            myOptions = options;
+            myServerAuthenticationHosts = serverAuthenticationHosts;
+        }
+
+        @Override
+        protected PasswordAuthentication getPasswordAuthentication()
+        {
+            ProxyConfig proxyConfig = myOptions.getProxyConfig();
+            Credentials credentials = proxyConfig == null ? null : proxyConfig.getCredentials();
+            if (getRequestorType() == RequestorType.PROXY && credentials instanceof UsernamePasswordCredentials)
+            {
+                UsernamePasswordCredentials userCredentials = (UsernamePasswordCredentials)credentials;
+                return new PasswordAuthentication(userCredentials.getUserName(), userCredentials.getPassword());
+            }
+            if (getRequestorType() == RequestorType.SERVER && getRequestingHost() != null)
+            {
+                myServerAuthenticationHosts.add(getAuthority(getRequestingHost(), getRequestingPort()));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Selects proxies with the proxy resolver of the requestor client.
+     */
+    private static final class ResolverProxySelector extends ProxySelector
+    {
+        /** The client options. */
+        private final HttpClientOptions myOptions;
+
+        /**
+         * Constructor.
+         *
+         * @param options The client options.
+         */
+        public ResolverProxySelector(HttpClientOptions options)
+        {
+            myOptions = options;
+        }
+
+        @Override
+        public void connectFailed(URI uri, SocketAddress sa, IOException ioe)
+        {
+            LOGGER.debug("Failed to connect to proxy " + sa + " for " + uri + ": " + ioe);
+        }
+
+        @Override
+        public List<Proxy> select(URI uri)
+        {
+            ProxyConfig proxyConfig = myOptions.getProxyConfig();
+            if (proxyConfig == null || proxyConfig.getProxyResolver() == null)
+            {
+                return Collections.singletonList(Proxy.NO_PROXY);
+            }
+            Collection<ProxyHostConfig> configs;
+            try
+            {
+                configs = proxyConfig.getProxyResolver().getProxyServer(uri.toURL());
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            if (configs == null || configs.isEmpty())
+            {
+                return Collections.singletonList(Proxy.NO_PROXY);
+            }
+            ProxyHostConfig config = configs.iterator().next();
+            if (config.getProxyType() == ProxyType.SOCKS)
+            {
+                throw new UnsupportedOperationException("'" + config.getProxyType() + "' proxying is not supported!");
+            }
+            return Collections.singletonList(ProxySelectorImpl.getProxy(config));
+        }
+    }
+}
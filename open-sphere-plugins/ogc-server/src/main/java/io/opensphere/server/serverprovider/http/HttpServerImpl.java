@@ -8,6 +8,7 @@ import java.net.Proxy;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import com.bitsys.common.http.proxy.ProxyHostConfig;
 
@@ -42,6 +43,12 @@ public class HttpServerImpl implements HttpServer
      */
     private final RequestorProvider myRequestorProvider;
 
+    /**
+     * The transport for asynchronous get requests, or {@code null} if they
+     * are sent synchronously.
+     */
+    private final AsyncHttpTransport myAsyncTransport;
+
     /**
      * Constructs an HttpServerImpl.
      *
@@ -52,10 +59,27 @@ public class HttpServerImpl implements HttpServer
      *            communicate with an http server.
      */
     public HttpServerImpl(String host, String protocol, RequestorProvider requestorProvider)
+    {
+        this(host, protocol, requestorProvider, null);
+    }
+
+    /**
+     * Constructs an HttpServerImpl.
+     *
+     * @param host The server host name.
+     * @param protocol The protocol used to connect to the server, e.g. http or
+     *            https.
+     * @param requestorProvider Provides the different requestors used to
+     *            communicate with an http server.
+     * @param asyncTransport The transport for asynchronous get requests, or
+     *            {@code null} to send them synchronously.
+     */
+    public HttpServerImpl(String host, String protocol, RequestorProvider requestorProvider, AsyncHttpTransport asyncTransport)
     {
         myHost = host;
         myProtocol = protocol;
         myRequestorProvider = requestorProvider;
+        myAsyncTransport = asyncTransport;
     }
 
     @Override
@@ -148,6 +172,17 @@ public class HttpServerImpl implements HttpServer
         return myRequestorProvider.getRequestor().sendGet(url, extraHeaderValues, response);
     }
 
+    @Override
+    public CompletableFuture<CancellableInputStream> sendGetAsync(URL url, Map<String, String> extraHeaderValues,
+            ResponseValues response)
+    {
+        if (myAsyncTransport == null)
+        {
+            return HttpServer.super.sendGetAsync(url, extraHeaderValues, response);
+        }
+        return myAsyncTransport.sendGet(url, extraHeaderValues, response);
+    }
+
     @Override
     public CancellableInputStream sendGet(URL url, ResponseValues response) throws IOException, URISyntaxException
     {
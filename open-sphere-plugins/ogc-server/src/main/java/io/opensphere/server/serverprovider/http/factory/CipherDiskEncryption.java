@@ -0,0 +1,101 @@
+package io.opensphere.server.serverprovider.http.factory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
+
+import com.bitsys.common.http.util.cache.HttpResponseCache.DiskEncryption;
+
+import io.opensphere.core.util.security.CipherFactory;
+
+/**
+ * Encrypts the responses the HTTP response cache stores on disk using the
+ * ciphers provided by the application's {@link CipherFactory}. Each file
+ * starts with the cipher transformation and algorithm parameters needed to
+ * decrypt it, followed by the encrypted response.
+ */
+class CipherDiskEncryption implements DiskEncryption
+{
+    /** The largest encoded algorithm parameters that will be read. */
+    private static final int MAX_PARAMETERS_LENGTH = 1024;
+
+    /** The factory that provides the ciphers. */
+    private final CipherFactory myCipherFactory;
+
+    /**
+     * Constructor.
+     *
+     * @param cipherFactory The factory that provides the ciphers.
+     */
+    public CipherDiskEncryption(CipherFactory cipherFactory)
+    {
+        myCipherFactory = cipherFactory;
+    }
+
+    @Override
+    public OutputStream encrypt(OutputStream out) throws IOException
+    {
+        Cipher cipher;
+        try
+        {
+            cipher = myCipherFactory.initCipher(Cipher.ENCRYPT_MODE);
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new IOException("Failed to initialize the cipher: " + e, e);
+        }
+
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeUTF(cipher.getAlgorithm());
+        AlgorithmParameters params = cipher.getParameters();
+        if (params == null)
+        {
+            dataOut.writeUTF("");
+        }
+        else
+        {
+            byte[] encoded = params.getEncoded();
+            dataOut.writeUTF(params.getAlgorithm());
+            dataOut.writeInt(encoded.length);
+            dataOut.write(encoded);
+        }
+        return new CipherOutputStream(out, cipher);
+    }
+
+    @Override
+    public InputStream decrypt(InputStream in) throws IOException
+    {
+        DataInputStream dataIn = new DataInputStream(in);
+        String transformation = dataIn.readUTF();
+        String paramsAlgorithm = dataIn.readUTF();
+        try
+        {
+            AlgorithmParameters params = null;
+            if (!paramsAlgorithm.isEmpty())
+            {
+                int length = dataIn.readInt();
+                if (length < 0 || length > MAX_PARAMETERS_LENGTH)
+                {
+                    throw new IOException("Invalid algorithm parameters length: " + length);
+                }
+                byte[] encoded = new byte[length];
+                dataIn.readFully(encoded);
+                params = AlgorithmParameters.getInstance(paramsAlgorithm);
+                params.init(encoded);
+            }
+            return new CipherInputStream(in, myCipherFactory.initCipher(Cipher.DECRYPT_MODE, transformation, params));
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new IOException("Failed to initialize the cipher: " + e, e);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package io.opensphere.server.serverprovider.http.factory;
 
 import java.awt.Component;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import com.bitsys.common.http.client.DefaultHttpClient;
@@ -9,11 +13,15 @@ import com.bitsys.common.http.client.HttpClient;
 import io.opensphere.core.NetworkConfigurationManager;
 import io.opensphere.core.SecurityManager;
 import io.opensphere.core.Toolbox;
+import io.opensphere.core.event.EventManager;
 import io.opensphere.core.preferences.PreferencesRegistry;
 import io.opensphere.core.server.HttpServer;
+import io.opensphere.core.util.lang.NamedThreadFactory;
 import io.opensphere.server.serverprovider.SecurityComponentsProvider;
 import io.opensphere.server.serverprovider.ServerFactory;
+import io.opensphere.server.serverprovider.http.AsyncHttpTransport;
 import io.opensphere.server.serverprovider.http.HttpServerImpl;
+import io.opensphere.server.serverprovider.http.header.HeaderValues;
 import io.opensphere.server.serverprovider.http.header.HeaderValuesImpl;
 import io.opensphere.server.serverprovider.http.requestors.RequestorProviderImpl;
 import io.opensphere.server.toolbox.ServerToolbox;
@@ -26,6 +34,27 @@ import io.opensphere.server.toolbox.ServerToolboxUtils;
  */
 public class HttpServerFactory implements ServerFactory
 {
+    /**
+     * Whether asynchronous get requests use the asynchronous transport rather
+     * than the synchronous requestors.
+     */
+    private static final boolean ourAsyncEnabled = Boolean.parseBoolean(System.getProperty("opensphere.http.async", "true"));
+
+    /** The maximum number of asynchronous requests in flight per server. */
+    private static final int ourAsyncMaxInFlight = Integer.getInteger("opensphere.http.async.maxInFlight", 256).intValue();
+
+    /** The number of threads shared by the asynchronous transports. */
+    private static final int ourAsyncThreadCount = Integer.getInteger("opensphere.http.async.threads", 4).intValue();
+
+    /** The executor for the response callbacks of the asynchronous transports. */
+    private static Executor ourAsyncExecutor;
+
+    /**
+     * The executor for the asynchronous requests that are sent through the
+     * synchronous requestors.
+     */
+    private static Executor ourFallbackExecutor;
+
     /**
      * Creates an HttpServer connection based on the specified protocol and
      * host.
@@ -67,12 +96,42 @@ public class HttpServerFactory implements ServerFactory
         new CertificateConfigurer().configure(parameters);
         new TimeoutsConfigurer().configure(parameters, prefsRegistry, serverTools);
         new ConnectionPoolConfigurer().configure(httpClient);
+        new ResponseCacheConfigurer().configure(httpClient, securityManager);
 
-        RequestorProviderImpl provider = new RequestorProviderImpl(httpClient,
-                new HeaderValuesImpl(toolbox.getGeometryRegistry().getRenderingCapabilities().getRendererIdentifier()),
-                toolbox.getEventManager(), toolbox.getSystemToolbox().getNetworkConfigurationManager());
-        HttpServerImpl server = new HttpServerImpl(host, protocol, provider);
+        HeaderValues headerValues = new HeaderValuesImpl(
+                toolbox.getGeometryRegistry().getRenderingCapabilities().getRendererIdentifier());
+        EventManager eventManager = toolbox.getEventManager();
+        RequestorProviderImpl provider = new RequestorProviderImpl(httpClient, headerValues, eventManager,
+                networkConfigurationManager);
+        AsyncHttpTransport asyncTransport = null;
+        if (ourAsyncEnabled)
+        {
+            initializeExecutors();
+            asyncTransport = new AsyncHttpTransport(provider, headerValues, eventManager, networkConfigurationManager,
+                    ourAsyncExecutor, ourFallbackExecutor, ourAsyncMaxInFlight);
+        }
+        HttpServerImpl server = new HttpServerImpl(host, protocol, provider, asyncTransport);
 
         return server;
     }
+
+    /**
+     * Creates the executors shared by the asynchronous transports if they
+     * have not been created.
+     */
+    private static synchronized void initializeExecutors()
+    {
+        if (ourAsyncExecutor == null)
+        {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(ourAsyncThreadCount, ourAsyncThreadCount, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new NamedThreadFactory("AsyncHttp"));
+            executor.allowCoreThreadTimeOut(true);
+            ourAsyncExecutor = executor;
+
+            ThreadPoolExecutor fallbackExecutor = new ThreadPoolExecutor(ourAsyncThreadCount, ourAsyncThreadCount, 60,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("AsyncHttpFallback"));
+            fallbackExecutor.allowCoreThreadTimeOut(true);
+            ourFallbackExecutor = fallbackExecutor;
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package io.opensphere.server.serverprovider.http.factory;
+
+import java.io.File;
+
+import com.bitsys.common.http.client.HttpClient;
+import com.bitsys.common.http.util.cache.HttpResponseCache;
+
+import io.opensphere.core.CipherChangeListener;
+import io.opensphere.core.SecurityManager;
+import io.opensphere.core.util.lang.StringUtilities;
+
+/**
+ * Configures the HttpClient object to use the HTTP response cache shared by
+ * all servers. Responses are kept in memory and in the
+ * <code>httpcache</code> directory under the runtime directory, so that
+ * resources which are unchanged on the server are revalidated instead of
+ * downloaded again, even across restarts. The responses on disk are
+ * encrypted with the application's cipher, and discarded when the cipher
+ * changes.
+ */
+public class ResponseCacheConfigurer
+{
+    /** The maximum number of bytes of responses kept in memory. */
+    static final long ourMemoryBytes = Long.getLong("opensphere.http.cache.memoryBytes", 32L << 20).longValue();
+
+    /** The maximum number of bytes of responses stored on disk. */
+    static final long ourDiskBytes = Long.getLong("opensphere.http.cache.diskBytes", 256L << 20).longValue();
+
+    /** The maximum size of a response that will be stored. */
+    static final long ourMaxEntryBytes = Long.getLong("opensphere.http.cache.maxEntryBytes", 16L << 20).longValue();
+
+    /** The response cache shared by all clients. */
+    private static HttpResponseCache ourCache;
+
+    /**
+     * Clears the shared cache when the cipher changes. The security manager
+     * only holds a weak reference to it.
+     */
+    private static CipherChangeListener ourCipherChangeListener;
+
+    /**
+     * Configures the client to use the shared response cache, unless the
+     * cache has been disabled by setting its budgets to zero.
+     *
+     * @param client The client to configure.
+     * @param securityManager The security manager that provides the cipher
+     *            for the responses stored on disk.
+     */
+    public void configure(HttpClient client, SecurityManager securityManager)
+    {
+        client.getOptions().setResponseCache(getCache(securityManager));
+    }
+
+    /**
+     * Gets the shared response cache, creating it if necessary.
+     *
+     * @param securityManager The security manager that provides the cipher
+     *            for the responses stored on disk.
+     * @return The cache, or {@code null} if caching is disabled.
+     */
+    static synchronized HttpResponseCache getCache(SecurityManager securityManager)
+    {
+        if (ourCache == null && (ourMemoryBytes > 0L || ourDiskBytes > 0L))
+        {
+            HttpResponseCache cache = new HttpResponseCache(ourMemoryBytes, getDirectory(), ourDiskBytes, ourMaxEntryBytes,
+                    new CipherDiskEncryption(securityManager.getCipherFactory()));
+            ourCipherChangeListener = () -> cache.clear(null);
+            securityManager.addCipherChangeListener(ourCipherChangeListener);
+            ourCache = cache;
+        }
+        return ourCache;
+    }
+
+    /**
+     * Gets the directory for responses stored on disk.
+     *
+     * @return The directory, or {@code null} if responses are not stored on
+     *         disk.
+     */
+    private static File getDirectory()
+    {
+        String path = System.getProperty("opensphere.http.cache.dir");
+        if (path == null)
+        {
+            String runtime = System.getProperty("opensphere.path.runtime");
+            path = runtime == null ? null : runtime + File.separator + "httpcache";
+        }
+        return path == null || ourDiskBytes <= 0L ? null
+                : new File(StringUtilities.expandProperties(path, System.getProperties()));
+    }
+}
@@ -5,6 +5,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
 
 import com.bitsys.common.http.client.HttpClient;
 import com.bitsys.common.http.message.HttpRequest;
@@ -17,11 +18,16 @@ import io.opensphere.core.util.io.CancellableInputStream;
 import io.opensphere.server.serverprovider.http.header.HeaderValues;
 
 /**
- * Sends a get request to the server.
- *
+ * Sends a get request to the server. Identical requests that are in flight at
+ * the same time are collapsed into one network call by the
+ * {@link RequestCoalescer}. Each requestor has its own coalescer, so requests
+ * are only collapsed with requests sent through the same client.
  */
 public class GetRequestorImpl extends BaseRequestor implements GetRequestor
 {
+    /** Collapses identical requests sent through this requestor. */
+    private final RequestCoalescer myCoalescer = new RequestCoalescer(RequestCoalescer.DEFAULT_MAX_BYTES);
+
     /**
      * Constructs a get requestor.
      *
@@ -45,13 +51,15 @@ public class GetRequestorImpl extends BaseRequestor implements GetRequestor
         {
             request.getHeaders().put(extraHeader.getKey(), extraHeader.getValue());
         }
-        return super.executeRequest(request, responseValues);
+        String key = extraHeaderValues.isEmpty() ? url.toString() : url.toString() + new TreeMap<>(extraHeaderValues);
+        return myCoalescer.execute(key, responseValues, values -> super.executeRequest(request, values));
     }
 
     @Override
     public CancellableInputStream sendGet(URL url, ResponseValues responseValues) throws IOException, URISyntaxException
     {
         HttpRequest request = HttpRequestFactory.getInstance().get(url.toURI());
-        return super.executeRequest(request, responseValues);
+        return myCoalescer.execute(url.toString(), responseValues,
+                values -> super.executeRequest(request, values));
     }
 }
@@ -0,0 +1,336 @@
+package io.opensphere.server.serverprovider.http.requestors;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import io.opensphere.core.server.ResponseValues;
+import io.opensphere.core.util.Utilities;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.io.CancellableInputStream;
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Collapses identical requests that are in flight at the same time into one
+ * network call. The first caller for a key (the leader) sends the request.
+ * Callers that ask for the same key before the leader has received the
+ * response (the followers) wait for it instead of sending their own request.
+ * If any followers are waiting, the leader reads the response body into memory
+ * and each caller gets its own stream over the same bytes; otherwise the
+ * leader's stream is returned untouched, so requests that are not duplicated
+ * are not buffered.
+ * <p>
+ * If the leader fails, the response is not successful (such as an
+ * authentication challenge) or the response is too large to buffer, the
+ * followers send their own requests.
+ * <p>
+ * Only requests sent with the same client may be coalesced, so each get
+ * requestor has its own coalescer.
+ */
+@ThreadSafe
+public class RequestCoalescer
+{
+    /** The default maximum number of bytes that are buffered for the followers. */
+    public static final int DEFAULT_MAX_BYTES = Integer.getInteger("opensphere.http.coalesce.maxBytes", 32 << 20).intValue();
+
+    /** The logger. */
+    private static final Logger LOGGER = Logger.getLogger(RequestCoalescer.class);
+
+    /** The requests in flight, keyed by request key. */
+    @GuardedBy("myFlights")
+    private final Map<String, Flight> myFlights = New.map();
+
+    /** The maximum number of bytes that are buffered for the followers. */
+    private final int myMaxBytes;
+
+    /** The number of requests that were sent to the network. */
+    private final AtomicLong myNetworkCount = new AtomicLong();
+
+    /** The number of requests that were answered by another request. */
+    private final AtomicLong mySavedCount = new AtomicLong();
+
+    /** The number of response bytes that did not have to be transferred. */
+    private final AtomicLong mySavedBytes = new AtomicLong();
+
+    /**
+     * The interface for the object that sends the request to the network.
+     */
+    @FunctionalInterface
+    public interface Call
+    {
+        /**
+         * Sends the request.
+         *
+         * @param responseValues The response values to populate.
+         * @return The response stream, which may be {@code null}.
+         * @throws IOException If the request fails.
+         */
+        CancellableInputStream execute(ResponseValues responseValues) throws IOException;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxBytes The maximum number of bytes that are buffered for the
+     *            followers.
+     */
+    public RequestCoalescer(int maxBytes)
+    {
+        myMaxBytes = maxBytes;
+    }
+
+    /**
+     * Executes a request, or waits for an identical request that is already
+     * in flight.
+     *
+     * @param key The key identifying identical requests.
+     * @param responseValues The response values to populate.
+     * @param call The object that sends the request to the network.
+     * @return The response stream, which may be {@code null}.
+     * @throws IOException If the request fails.
+     */
+    public CancellableInputStream execute(String key, ResponseValues responseValues, Call call) throws IOException
+    {
+        Flight flight;
+        boolean leader;
+        synchronized (myFlights)
+        {
+            flight = myFlights.get(key);
+            leader = flight == null;
+            if (leader)
+            {
+                flight = new Flight();
+                myFlights.put(key, flight);
+            }
+            else
+            {
+                ++flight.myFollowerCount;
+            }
+        }
+
+        return leader ? lead(key, flight, responseValues, call) : follow(key, flight, responseValues, call);
+    }
+
+    /**
+     * Gets the number of requests that were sent to the network.
+     *
+     * @return The count.
+     */
+    public long getNetworkCount()
+    {
+        return myNetworkCount.get();
+    }
+
+    /**
+     * Gets the number of response bytes that did not have to be transferred
+     * because a request was answered by another request.
+     *
+     * @return The number of bytes.
+     */
+    public long getSavedBytes()
+    {
+        return mySavedBytes.get();
+    }
+
+    /**
+     * Gets the number of requests that were answered by another request.
+     *
+     * @return The count.
+     */
+    public long getSavedCount()
+    {
+        return mySavedCount.get();
+    }
+
+    /**
+     * Copy response values. The header values are copied so that each caller
+     * gets its own.
+     *
+     * @param from The values to copy.
+     * @param to The values to populate.
+     */
+    private void copy(ResponseValues from, ResponseValues to)
+    {
+        to.setResponseCode(from.getResponseCode());
+        to.setResponseMessage(from.getResponseMessage());
+        to.setContentLength(from.getContentLength());
+        if (from.getHeader() != null)
+        {
+            Map<String, Collection<String>> header = New.map(from.getHeader().size());
+            for (Map.Entry<String, Collection<String>> entry : from.getHeader().entrySet())
+            {
+                header.put(entry.getKey(), New.list(entry.getValue()));
+            }
+            to.setHeader(header);
+        }
+    }
+
+    /**
+     * Wait for the leader of a flight and return a stream over its response.
+     *
+     * @param key The key identifying identical requests.
+     * @param flight The flight.
+     * @param responseValues The response values to populate.
+     * @param call The object that sends the request if the leader fails.
+     * @return The response stream, which may be {@code null}.
+     * @throws IOException If the request fails.
+     */
+    private CancellableInputStream follow(String key, Flight flight, ResponseValues responseValues, Call call)
+        throws IOException
+    {
+        try
+        {
+            flight.myDone.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + key);
+        }
+
+        if (!flight.myShared)
+        {
+            myNetworkCount.incrementAndGet();
+            return call.execute(responseValues);
+        }
+
+        mySavedCount.incrementAndGet();
+        copy(flight.myResponseValues, responseValues);
+        if (flight.myBody == null)
+        {
+            return null;
+        }
+        mySavedBytes.addAndGet(flight.myBody.length);
+        return new CancellableInputStream(key, new ByteArrayInputStream(flight.myBody), null);
+    }
+
+    /**
+     * Send the request for a flight and share the response with any
+     * followers.
+     *
+     * @param key The key identifying identical requests.
+     * @param flight The flight.
+     * @param responseValues The response values to populate.
+     * @param call The object that sends the request.
+     * @return The response stream, which may be {@code null}.
+     * @throws IOException If the request fails.
+     */
+    private CancellableInputStream lead(String key, Flight flight, ResponseValues responseValues, Call call)
+        throws IOException
+    {
+        try
+        {
+            myNetworkCount.incrementAndGet();
+            CancellableInputStream stream = call.execute(responseValues);
+
+            int followerCount;
+            synchronized (myFlights)
+            {
+                myFlights.remove(key);
+                followerCount = flight.myFollowerCount;
+            }
+            if (followerCount == 0 || !isSuccess(responseValues.getResponseCode()))
+            {
+                return stream;
+            }
+
+            flight.myResponseValues = new ResponseValues();
+            copy(responseValues, flight.myResponseValues);
+            if (stream == null)
+            {
+                flight.myShared = true;
+                return null;
+            }
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int count;
+            try
+            {
+                while (buffer.size() <= myMaxBytes && (count = stream.read(chunk)) >= 0)
+                {
+                    buffer.write(chunk, 0, count);
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                // Nobody else will see the stream, so release the connection.
+                stream.cancel();
+                Utilities.closeQuietly(stream);
+                throw e;
+            }
+            if (buffer.size() > myMaxBytes)
+            {
+                LOGGER.debug("Response for " + key + " is too large to share with " + followerCount + " waiting requests.");
+                return new CancellableInputStream(key, new SequenceInputStream(
+                        new ByteArrayInputStream(buffer.toByteArray()), stream), stream::cancel);
+            }
+            stream.close();
+
+            flight.myBody = buffer.toByteArray();
+            flight.myShared = true;
+            if (LOGGER.isDebugEnabled())
+            {
+                LOGGER.debug("Shared " + flight.myBody.length + " bytes for " + key + " with " + followerCount
+                        + " waiting requests.");
+            }
+            return new CancellableInputStream(key, new ByteArrayInputStream(flight.myBody), null);
+        }
+        finally
+        {
+            synchronized (myFlights)
+            {
+                myFlights.remove(key, flight);
+            }
+            flight.myDone.countDown();
+        }
+    }
+
+    /**
+     * Gets if a response code is a success code, which may be shared with the
+     * followers.
+     *
+     * @param responseCode The response code.
+     * @return True if the response may be shared.
+     */
+    private static boolean isSuccess(int responseCode)
+    {
+        return responseCode >= HttpURLConnection.HTTP_OK && responseCode < HttpURLConnection.HTTP_MULT_CHOICE;
+    }
+
+    /**
+     * A request in flight. The follower count is guarded by the flight map;
+     * the other fields are written by the leader before the latch is released
+     * and read by the followers after it.
+     */
+    private static class Flight
+    {
+        /**
+         * The response body, or {@code null} if there was no body or the
+         * response is not shared.
+         */
+        private byte[] myBody;
+
+        /** Latch that is released when the leader is done. */
+        private final CountDownLatch myDone = new CountDownLatch(1);
+
+        /** The number of followers waiting for the response. */
+        private int myFollowerCount;
+
+        /** A copy of the leader's response values. */
+        private ResponseValues myResponseValues;
+
+        /** Whether the response is shared with the followers. */
+        private boolean myShared;
+    }
+}
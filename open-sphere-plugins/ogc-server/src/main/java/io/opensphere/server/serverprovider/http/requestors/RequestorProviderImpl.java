@@ -208,6 +208,7 @@ public class RequestorProviderImpl implements RequestorProvider
         myClient.getOptions().setProxyConfig(options.getProxyConfig());
         myClient.getOptions().setReadTimeout(options.getReadTimeout());
         myClient.getOptions().setSslConfig(options.getSslConfig());
+        myClient.getOptions().setResponseCache(options.getResponseCache());
     }
 
     /**
@@ -0,0 +1,377 @@
+package io.opensphere.server.serverprovider.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.bitsys.common.http.client.DefaultHttpClient;
+import com.bitsys.common.http.util.cache.HttpResponseCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.opensphere.core.NetworkConfigurationManager;
+import io.opensphere.core.event.EventManager;
+import io.opensphere.core.server.ResponseValues;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.io.CancellableInputStream;
+import io.opensphere.server.serverprovider.http.header.HeaderValues;
+import io.opensphere.server.serverprovider.http.requestors.GetRequestor;
+import io.opensphere.server.serverprovider.http.requestors.RequestorProvider;
+
+/**
+ * Tests {@link AsyncHttpTransport} against a local server.
+ */
+public class AsyncHttpTransportTest
+{
+    /** The body returned by the server. */
+    private static final String BODY = "tile data";
+
+    /** The client whose configuration the transport uses. */
+    private DefaultHttpClient myClient;
+
+    /** The executor for the transport. */
+    private ExecutorService myExecutor;
+
+    /** The number of requests received by the server. */
+    private final AtomicInteger myRequestCount = new AtomicInteger();
+
+    /** The local server. */
+    private HttpServer myServer;
+
+    /**
+     * Starts the local server.
+     *
+     * @throws IOException If the server cannot be started.
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        myServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        myServer.setExecutor(Executors.newCachedThreadPool());
+        myServer.start();
+        myExecutor = Executors.newFixedThreadPool(2);
+        myClient = new DefaultHttpClient();
+    }
+
+    /**
+     * Stops the local server.
+     *
+     * @throws IOException If the client cannot be closed.
+     */
+    @After
+    public void tearDown() throws IOException
+    {
+        myServer.stop(0);
+        myExecutor.shutdownNow();
+        myClient.close();
+    }
+
+    /**
+     * Tests that a cancelled request is aborted and releases its permit.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test(expected = CancellationException.class)
+    public void testCancel() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(1);
+        myServer.createContext("/slow", exchange ->
+        {
+            received.countDown();
+            await(release);
+            respond(exchange, 200, BODY.getBytes(StandardCharsets.UTF_8), Collections.emptyMap());
+        });
+
+        AsyncHttpTransport transport = createTransport(null, 1);
+        CompletableFuture<CancellableInputStream> future = transport.sendGet(url("/slow"), Collections.emptyMap(),
+                new ResponseValues());
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals(1, transport.getInFlightCount());
+
+        future.cancel(true);
+        for (int i = 0; i < 500 && transport.getInFlightCount() > 0; ++i)
+        {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        assertEquals(0, transport.getInFlightCount());
+        future.get();
+    }
+
+    /**
+     * Tests that a fresh response is served by the response cache.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testResponseCache() throws Exception
+    {
+        myServer.createContext("/cached", exchange -> respond(exchange, 200, BODY.getBytes(StandardCharsets.UTF_8),
+                Map.of("Cache-Control", "max-age=60", "Content-Type", "text/plain")));
+        myClient.getOptions().setResponseCache(new HttpResponseCache(1 << 20, 1 << 16));
+
+        AsyncHttpTransport transport = createTransport(null, 4);
+        assertEquals(BODY, read(transport.sendGet(url("/cached"), Collections.emptyMap(), new ResponseValues())));
+
+        ResponseValues response = new ResponseValues();
+        assertEquals(BODY, read(transport.sendGet(url("/cached"), Collections.emptyMap(), response)));
+        assertEquals(200, response.getResponseCode());
+        assertEquals(1, myRequestCount.get());
+        assertEquals(1, transport.getCompletedCount());
+    }
+
+    /**
+     * Tests a get request and its headers.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testSendGet() throws Exception
+    {
+        Map<String, String> requestHeaders = New.map();
+        myServer.createContext("/tile", exchange ->
+        {
+            exchange.getRequestHeaders().forEach((k, v) -> requestHeaders.put(k.toLowerCase(), v.get(0)));
+            respond(exchange, 200, BODY.getBytes(StandardCharsets.UTF_8), Map.of("Content-Type", "text/plain"));
+        });
+
+        AsyncHttpTransport transport = createTransport(null, 4);
+        ResponseValues response = new ResponseValues();
+        CompletableFuture<CancellableInputStream> future = transport.sendGet(url("/tile"),
+                Map.of("Accept", "application/vnd.quantized-mesh"), response);
+
+        assertEquals(BODY, read(future));
+        assertEquals(200, response.getResponseCode());
+        assertEquals("OK", response.getResponseMessage());
+        assertEquals(BODY.length(), response.getContentLength());
+        assertEquals("text/plain", response.getHeaderValue("Content-Type"));
+        assertEquals("application/vnd.quantized-mesh", requestHeaders.get("accept"));
+        assertEquals("test-agent", requestHeaders.get("user-agent"));
+        assertEquals("gzip", requestHeaders.get("accept-encoding"));
+        assertEquals(1, transport.getCompletedCount());
+        assertEquals(0, transport.getFallbackCount());
+    }
+
+    /**
+     * Tests that many requests complete with one permit, waiting in the queue
+     * while the permit is in use.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testSendGetQueued() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        myServer.createContext("/queued", exchange ->
+        {
+            await(release);
+            respond(exchange, 200, BODY.getBytes(StandardCharsets.UTF_8), Collections.emptyMap());
+        });
+
+        AsyncHttpTransport transport = createTransport(null, 1);
+        int count = 20;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; ++i)
+        {
+            futures[i] = transport.sendGet(url("/queued?i=" + i), Collections.emptyMap(), new ResponseValues());
+        }
+        assertEquals(1, transport.getInFlightCount());
+        assertEquals(count - 1, transport.getQueuedCount());
+
+        release.countDown();
+        CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<?> future : futures)
+        {
+            assertEquals(BODY, read((CancellableInputStream)future.get()));
+        }
+        assertEquals(count, transport.getCompletedCount());
+        assertEquals(count, myRequestCount.get());
+        assertEquals(0, transport.getInFlightCount());
+        assertEquals(0, transport.getQueuedCount());
+    }
+
+    /**
+     * Tests that a zipped response is unzipped.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testSendGetZipped() throws Exception
+    {
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(zipped))
+        {
+            out.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+        myServer.createContext("/zipped",
+                exchange -> respond(exchange, 200, zipped.toByteArray(), Map.of("Content-Encoding", "gzip")));
+
+        AsyncHttpTransport transport = createTransport(null, 4);
+        assertEquals(BODY, read(transport.sendGet(url("/zipped"), Collections.emptyMap(), new ResponseValues())));
+    }
+
+    /**
+     * Tests that a request that requires authentication is sent through the
+     * synchronous requestor, and that later requests to the host are sent
+     * through it directly.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testUnauthorizedFallback() throws Exception
+    {
+        myServer.createContext("/secure", exchange -> respond(exchange, 401, new byte[0],
+                Map.of("WWW-Authenticate", "Basic realm=\"test\"")));
+
+        URL url = url("/secure");
+        ResponseValues response = new ResponseValues();
+        CancellableInputStream expected = new CancellableInputStream(new ByteArrayInputStream(new byte[0]), null);
+        GetRequestor requestor = EasyMock.createMock(GetRequestor.class);
+        EasyMock.expect(requestor.sendGet(url, Collections.emptyMap(), response)).andReturn(expected).times(2);
+        EasyMock.replay(requestor);
+
+        AsyncHttpTransport transport = createTransport(requestor, 4);
+        assertSame(expected, transport.sendGet(url, Collections.emptyMap(), response).get(5, TimeUnit.SECONDS));
+        assertEquals(1, transport.getFallbackCount());
+
+        assertSame(expected, transport.sendGet(url, Collections.emptyMap(), response).get(5, TimeUnit.SECONDS));
+        assertEquals(2, transport.getFallbackCount());
+        assertEquals(1, myRequestCount.get());
+        EasyMock.verify(requestor);
+    }
+
+    /**
+     * Waits for a latch, ignoring interruption.
+     *
+     * @param latch The latch.
+     */
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads a response stream as a string.
+     *
+     * @param future The future stream.
+     * @return The string.
+     * @throws InterruptedException If the test is interrupted.
+     * @throws ExecutionException If the request failed.
+     * @throws TimeoutException If the request did not complete.
+     * @throws IOException If the stream cannot be read.
+     */
+    private static String read(CompletableFuture<CancellableInputStream> future)
+        throws InterruptedException, ExecutionException, TimeoutException, IOException
+    {
+        return read(future.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Reads a response stream as a string.
+     *
+     * @param stream The stream.
+     * @return The string.
+     * @throws IOException If the stream cannot be read.
+     */
+    private static String read(InputStream stream) throws IOException
+    {
+        try (InputStream in = stream)
+        {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Sends a response from the local server.
+     *
+     * @param exchange The exchange.
+     * @param code The response code.
+     * @param body The body.
+     * @param headers The response headers.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void respond(HttpExchange exchange, int code, byte[] body, Map<String, String> headers) throws IOException
+    {
+        myRequestCount.incrementAndGet();
+        headers.forEach((k, v) -> exchange.getResponseHeaders().add(k, v));
+        exchange.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Creates the transport under test.
+     *
+     * @param requestor The synchronous requestor, or {@code null} if it is not
+     *            used.
+     * @param maxInFlight The maximum number of requests in flight.
+     * @return The transport.
+     */
+    private AsyncHttpTransport createTransport(GetRequestor requestor, int maxInFlight)
+    {
+        RequestorProvider provider = EasyMock.createNiceMock(RequestorProvider.class);
+        EasyMock.expect(provider.getClient()).andReturn(myClient).anyTimes();
+        EasyMock.expect(provider.getRequestor()).andReturn(requestor).anyTimes();
+
+        HeaderValues headerValues = EasyMock.createNiceMock(HeaderValues.class);
+        EasyMock.expect(headerValues.getAccept()).andReturn("*/*").anyTimes();
+        EasyMock.expect(headerValues.getEncoding()).andReturn("gzip").anyTimes();
+        EasyMock.expect(headerValues.getUserAgent()).andReturn("test-agent").anyTimes();
+        EasyMock.expect(headerValues.getZippedEncoding()).andReturn("gzip").anyTimes();
+
+        NetworkConfigurationManager networkConfigurationManager = EasyMock.createNiceMock(NetworkConfigurationManager.class);
+        EventManager eventManager = EasyMock.createNiceMock(EventManager.class);
+        EasyMock.replay(provider, headerValues, networkConfigurationManager, eventManager);
+
+        return new AsyncHttpTransport(provider, headerValues, eventManager, networkConfigurationManager, myExecutor, myExecutor,
+                maxInFlight);
+    }
+
+    /**
+     * Gets the url of a path on the local server.
+     *
+     * @param path The path.
+     * @return The url.
+     * @throws IOException If the url is malformed.
+     */
+    private URL url(String path) throws IOException
+    {
+        return new URL("http://localhost:" + myServer.getAddress().getPort() + path);
+    }
+}
@@ -0,0 +1,54 @@
+package io.opensphere.server.serverprovider.http.factory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.KeyGenerator;
+
+import org.junit.Test;
+
+import io.opensphere.core.util.io.StreamReader;
+import io.opensphere.core.util.security.CipherFactory;
+import io.opensphere.core.util.security.DefaultSecretKeyProvider;
+
+/**
+ * Tests the {@link CipherDiskEncryption}.
+ */
+public class CipherDiskEncryptionTest
+{
+    /**
+     * Tests that encrypted data is not stored in the clear and decrypts to the
+     * original data.
+     *
+     * @throws GeneralSecurityException If the key cannot be generated.
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testRoundTrip() throws GeneralSecurityException, IOException
+    {
+        CipherFactory factory = new CipherFactory(
+                new DefaultSecretKeyProvider(KeyGenerator.getInstance("AES").generateKey()), "AES/CBC/PKCS5Padding");
+        CipherDiskEncryption encryption = new CipherDiskEncryption(factory);
+        String data = "HTTP/1.1 200 OK cached response body";
+
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        try (OutputStream out = encryption.encrypt(stored))
+        {
+            out.write(data.getBytes(StandardCharsets.UTF_8));
+        }
+        assertFalse(new String(stored.toByteArray(), StandardCharsets.ISO_8859_1).contains("cached response body"));
+
+        try (InputStream in = encryption.decrypt(new ByteArrayInputStream(stored.toByteArray())))
+        {
+            assertEquals(data, new StreamReader(in).readStreamIntoString(StandardCharsets.UTF_8));
+        }
+    }
+}
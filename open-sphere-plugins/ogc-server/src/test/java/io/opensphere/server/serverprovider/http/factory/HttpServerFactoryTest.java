@@ -23,6 +23,7 @@ import com.bitsys.common.http.client.HttpClientOptions;
 import com.bitsys.common.http.client.ProxyConfig;
 import com.bitsys.common.http.proxy.ProxyHostConfig;
 
+import io.opensphere.core.CipherChangeListener;
 import io.opensphere.core.NetworkConfigurationManager;
 import io.opensphere.core.PluginToolboxRegistry;
 import io.opensphere.core.SecurityManager;
@@ -219,6 +220,9 @@ public class HttpServerFactoryTest
     private SecurityManager createSecurityManager(final EasyMockSupport support)
     {
         final SecurityManager securityManager = support.createMock(SecurityManager.class);
+        EasyMock.expect(securityManager.getCipherFactory()).andReturn(null).anyTimes();
+        securityManager.addCipherChangeListener(EasyMock.isA(CipherChangeListener.class));
+        EasyMock.expectLastCall().anyTimes();
 
         return securityManager;
     }
@@ -0,0 +1,378 @@
+package io.opensphere.server.serverprovider.http.requestors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import io.opensphere.core.server.ResponseValues;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.io.CancellableInputStream;
+
+/**
+ * Tests the {@link RequestCoalescer} class.
+ */
+public class RequestCoalescerTest
+{
+    /** The response body. */
+    private static final byte[] ourBody = "response".getBytes();
+
+    /**
+     * Tests that identical requests in flight at the same time share one
+     * network call.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testCoalesce() throws Exception
+    {
+        RequestCoalescer coalescer = new RequestCoalescer(1024);
+        AtomicInteger callCount = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        RequestCoalescer.Call call = values ->
+        {
+            callCount.incrementAndGet();
+            try
+            {
+                release.await(1, TimeUnit.MINUTES);
+            }
+            catch (InterruptedException e)
+            {
+                throw new IOException(e);
+            }
+            values.setResponseCode(200);
+            values.setResponseMessage("OK");
+            values.setHeader(Collections.singletonMap("Content-Type", New.list("text/plain")));
+            return new CancellableInputStream(new ByteArrayInputStream(ourBody), null);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            List<ResponseValues> responseValues = New.list();
+            List<Future<byte[]>> futures = New.list();
+            List<Thread> threads = New.list();
+            for (int i = 0; i < 3; ++i)
+            {
+                ResponseValues values = new ResponseValues();
+                responseValues.add(values);
+                futures.add(executor.submit(() ->
+                {
+                    synchronized (threads)
+                    {
+                        threads.add(Thread.currentThread());
+                    }
+                    try (InputStream stream = coalescer.execute("key", values, call))
+                    {
+                        return IOUtils.toByteArray(stream);
+                    }
+                }));
+            }
+
+            waitForWaiters(threads, 3);
+            release.countDown();
+            for (int i = 0; i < futures.size(); ++i)
+            {
+                assertEquals(new String(ourBody), new String(futures.get(i).get(1, TimeUnit.MINUTES)));
+                assertEquals(200, responseValues.get(i).getResponseCode());
+            }
+            assertNotSame(responseValues.get(0).getHeader().get("content-type"),
+                    responseValues.get(1).getHeader().get("content-type"));
+            assertNotSame(responseValues.get(1).getHeader().get("content-type"),
+                    responseValues.get(2).getHeader().get("content-type"));
+            assertEquals(1, callCount.get());
+            assertEquals(1L, coalescer.getNetworkCount());
+            assertEquals(2L, coalescer.getSavedCount());
+            assertEquals(2L * ourBody.length, coalescer.getSavedBytes());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that the stream of a request that is not duplicated is returned
+     * untouched.
+     *
+     * @throws IOException If the test fails.
+     */
+    @Test
+    public void testNotDuplicated() throws IOException
+    {
+        RequestCoalescer coalescer = new RequestCoalescer(1024);
+        CancellableInputStream stream = new CancellableInputStream(new ByteArrayInputStream(ourBody), null);
+
+        assertSame(stream, coalescer.execute("key", new ResponseValues(), values -> stream));
+        assertSame(stream, coalescer.execute("key", new ResponseValues(), values -> stream));
+        assertEquals(2L, coalescer.getNetworkCount());
+        assertEquals(0L, coalescer.getSavedCount());
+    }
+
+    /**
+     * Tests that waiting requests send their own requests when the leader
+     * fails.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testLeaderFails() throws Exception
+    {
+        RequestCoalescer coalescer = new RequestCoalescer(1024);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> threads = New.list();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Future<?> leader = executor.submit(() ->
+            {
+                synchronized (threads)
+                {
+                    threads.add(Thread.currentThread());
+                }
+                return coalescer.execute("key", new ResponseValues(), values ->
+                {
+                    try
+                    {
+                        release.await(1, TimeUnit.MINUTES);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        throw new IOException(e);
+                    }
+                    throw new IOException("failed");
+                });
+            });
+            Future<byte[]> follower = executor.submit(() ->
+            {
+                synchronized (threads)
+                {
+                    threads.add(Thread.currentThread());
+                }
+                try (InputStream stream = coalescer.execute("key", new ResponseValues(),
+                        values -> new CancellableInputStream(new ByteArrayInputStream(ourBody), null)))
+                {
+                    return IOUtils.toByteArray(stream);
+                }
+            });
+
+            waitForWaiters(threads, 2);
+            release.countDown();
+            try
+            {
+                leader.get(1, TimeUnit.MINUTES);
+                fail("Expected an exception.");
+            }
+            catch (ExecutionException e)
+            {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+            assertEquals(new String(ourBody), new String(follower.get(1, TimeUnit.MINUTES)));
+            assertEquals(2L, coalescer.getNetworkCount());
+            assertEquals(0L, coalescer.getSavedCount());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that the leader's stream is cancelled and closed if reading the
+     * response to share it fails.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testLeaderReadFails() throws Exception
+    {
+        RequestCoalescer coalescer = new RequestCoalescer(1024);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        InputStream failing = new InputStream()
+        {
+            @Override
+            public int read() throws IOException
+            {
+                throw new IOException("connection reset");
+            }
+
+            @Override
+            public void close()
+            {
+                closed.set(true);
+            }
+        };
+        List<Thread> threads = New.list();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            Future<?> leader = executor.submit(() ->
+            {
+                synchronized (threads)
+                {
+                    threads.add(Thread.currentThread());
+                }
+                return coalescer.execute("key", new ResponseValues(), values ->
+                {
+                    try
+                    {
+                        release.await(1, TimeUnit.MINUTES);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        throw new IOException(e);
+                    }
+                    values.setResponseCode(HttpURLConnection.HTTP_OK);
+                    return new CancellableInputStream(failing, () -> cancelled.set(true));
+                });
+            });
+            Future<byte[]> follower = executor.submit(() ->
+            {
+                synchronized (threads)
+                {
+                    threads.add(Thread.currentThread());
+                }
+                try (InputStream stream = coalescer.execute("key", new ResponseValues(),
+                        values -> new CancellableInputStream(new ByteArrayInputStream(ourBody), null)))
+                {
+                    return IOUtils.toByteArray(stream);
+                }
+            });
+
+            waitForWaiters(threads, 2);
+            release.countDown();
+            try
+            {
+                leader.get(1, TimeUnit.MINUTES);
+                fail("Expected an exception.");
+            }
+            catch (ExecutionException e)
+            {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+            assertTrue(cancelled.get());
+            assertTrue(closed.get());
+            assertEquals(new String(ourBody), new String(follower.get(1, TimeUnit.MINUTES)));
+            assertEquals(2L, coalescer.getNetworkCount());
+            assertEquals(0L, coalescer.getSavedCount());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that an unsuccessful response is not shared, so waiting requests
+     * send their own requests.
+     *
+     * @throws Exception If the test fails.
+     */
+    @Test
+    public void testUnsuccessfulNotShared() throws Exception
+    {
+        RequestCoalescer coalescer = new RequestCoalescer(1024);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> threads = New.list();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            ResponseValues leaderValues = new ResponseValues();
+            Future<?> leader = executor.submit(() ->
+            {
+                synchronized (threads)
+                {
+                    threads.add(Thread.currentThread());
+                }
+                return coalescer.execute("key", leaderValues, values ->
+                {
+                    try
+                    {
+                        release.await(1, TimeUnit.MINUTES);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        throw new IOException(e);
+                    }
+                    values.setResponseCode(HttpURLConnection.HTTP_UNAUTHORIZED);
+                    return null;
+                });
+            });
+            ResponseValues followerValues = new ResponseValues();
+            Future<byte[]> follower = executor.submit(() ->
+            {
+                synchronized (threads)
+                {
+                    threads.add(Thread.currentThread());
+                }
+                try (InputStream stream = coalescer.execute("key", followerValues, values ->
+                {
+                    values.setResponseCode(HttpURLConnection.HTTP_OK);
+                    return new CancellableInputStream(new ByteArrayInputStream(ourBody), null);
+                }))
+                {
+                    return IOUtils.toByteArray(stream);
+                }
+            });
+
+            waitForWaiters(threads, 2);
+            release.countDown();
+            leader.get(1, TimeUnit.MINUTES);
+            assertEquals(new String(ourBody), new String(follower.get(1, TimeUnit.MINUTES)));
+            assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED, leaderValues.getResponseCode());
+            assertEquals(HttpURLConnection.HTTP_OK, followerValues.getResponseCode());
+            assertEquals(2L, coalescer.getNetworkCount());
+            assertEquals(0L, coalescer.getSavedCount());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait until the given number of threads are blocked.
+     *
+     * @param threads The threads.
+     * @param count The number of threads.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    private void waitForWaiters(List<Thread> threads, int count) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (System.nanoTime() < deadline)
+        {
+            synchronized (threads)
+            {
+                if (threads.size() == count && threads.stream()
+                        .allMatch(t -> t.getState() == Thread.State.WAITING || t.getState() == Thread.State.TIMED_WAITING))
+                {
+                    return;
+                }
+            }
+            Thread.sleep(10L);
+        }
+        fail("Threads did not block.");
+    }
+}
@@ -17,16 +17,19 @@ import io.opensphere.core.common.shapefile.utils.ShapefileRecord;
 import io.opensphere.core.common.shapefile.v2.ESRIShapefile;
 import io.opensphere.core.common.shapefile.v2.ESRIShapefile.Mode;
 import io.opensphere.core.export.AbstractExporter;
+import io.opensphere.core.export.ExportException;
+import io.opensphere.core.export.StreamingExportEngine;
 import io.opensphere.core.model.time.TimeSpan;
 import io.opensphere.core.preferences.ListToolPreferences;
 import io.opensphere.core.util.MimeType;
 import io.opensphere.core.util.collections.CollectionUtilities;
 import io.opensphere.core.util.collections.New;
 import io.opensphere.core.util.swing.EventQueueUtilities;
+import io.opensphere.core.util.taskactivity.CancellableTaskActivity;
 import io.opensphere.mantle.data.DataTypeInfo;
 import io.opensphere.mantle.data.MetaDataInfo;
 import io.opensphere.mantle.data.element.DataElement;
-import io.opensphere.mantle.util.MantleToolboxUtils;
+import io.opensphere.mantle.data.export.DataElementCursor;
 import io.opensphere.mantle.util.TimeSpanUtility;
 
 /**
@@ -42,12 +45,10 @@ public class ShapeFileExporter extends AbstractExporter
     }
 
     @Override
-    public File export(File file) throws IOException
+    public File export(File file) throws IOException, ExportException
     {
         DataTypeInfo dataType = getElements().iterator().next();
         MetaDataInfo metaData = dataType.getMetaDataInfo();
-        List<DataElement> dataElements = MantleToolboxUtils.getDataElementLookupUtils(getToolbox())
-                .getDataElements(dataType);
         final File esriFile = ShapeFileExportUtilities.enforceSuffix(file);
 
         ESRIShapefile shapefile = new ESRIShapefile(Mode.WRITE, esriFile.getAbsolutePath());
@@ -67,16 +68,32 @@ public class ShapeFileExporter extends AbstractExporter
             columnNames.remove(latIndex);
         }
 
-        TObjectIntMap<String> colNameToLengthMap = determineMaxCharsForColumn(columnNames, dataElements);
-        shapefile.setMetadataHeader(
-                ShapeFileExportUtilities.getMetadataHeader(metaData, columnNames, colNameToLengthMap, getToolbox()));
-
         int timePrecision = getToolbox().getPreferencesRegistry().getPreferences(ListToolPreferences.class)
                 .getInt(ListToolPreferences.LIST_TOOL_TIME_PRECISION_DIGITS, 0);
         SimpleDateFormat dateFormatter = ListToolPreferences.getSimpleDateFormatForPrecision(timePrecision);
-        for (DataElement element : dataElements)
+
+        try (CancellableTaskActivity activity = CancellableTaskActivity
+                .createActive("Exporting " + dataType.getDisplayName() + " to Shapefile"))
         {
-            shapefile.add(createShapefileRecord(element, columnNames, dateFormatter));
+            getToolbox().getUIRegistry().getMenuBarRegistry().addTaskActivity(activity);
+
+            // The column widths are needed before the first record is
+            // written, so the elements are read twice.
+            TObjectIntMap<String> colNameToLengthMap = new TObjectIntHashMap<>();
+            StreamingExportEngine.getDefault().export(new DataElementCursor(getToolbox(), dataType),
+                    (batch, offset) -> determineMaxCharsForColumn(columnNames, batch),
+                    lengths -> mergeMaxChars(colNameToLengthMap, lengths), activity);
+            shapefile.setMetadataHeader(
+                    ShapeFileExportUtilities.getMetadataHeader(metaData, columnNames, colNameToLengthMap, getToolbox()));
+
+            StreamingExportEngine.getDefault().export(new DataElementCursor(getToolbox(), dataType),
+                    (batch, offset) -> createShapefileRecords(batch, columnNames, dateFormatter), shapefile::addAll,
+                    activity);
+        }
+        catch (ExportException | RuntimeException e)
+        {
+            shapefile.close();
+            throw e;
         }
 
         shapefile.getPrj().writeProjection();
@@ -116,6 +133,27 @@ public class ShapeFileExporter extends AbstractExporter
         return MimeType.SHAPE;
     }
 
+    /**
+     * Creates the Shapefile records for a batch of elements.
+     *
+     * @param elements the data elements for the records
+     * @param columnNames the column names of the layer
+     * @param dateFormatter the date formatter, which is copied since batches
+     *            are formatted concurrently
+     * @return the shapefile records
+     */
+    private List<ShapefileRecord> createShapefileRecords(List<? extends DataElement> elements, List<String> columnNames,
+            SimpleDateFormat dateFormatter)
+    {
+        SimpleDateFormat formatter = (SimpleDateFormat)dateFormatter.clone();
+        List<ShapefileRecord> records = New.list(elements.size());
+        for (DataElement element : elements)
+        {
+            records.add(createShapefileRecord(element, columnNames, formatter));
+        }
+        return records;
+    }
+
     /**
      * Creates the Shapefile record.
      *
@@ -156,7 +194,8 @@ public class ShapeFileExporter extends AbstractExporter
      * @param dataElements the list of data elements
      * @return the map of column name to max length
      */
-    private TObjectIntMap<String> determineMaxCharsForColumn(List<String> columnNames, List<DataElement> dataElements)
+    private TObjectIntMap<String> determineMaxCharsForColumn(List<String> columnNames,
+            List<? extends DataElement> dataElements)
     {
         TObjectIntMap<String> colNameToLengthMap = new TObjectIntHashMap<>();
 
@@ -177,6 +216,24 @@ public class ShapeFileExporter extends AbstractExporter
         return colNameToLengthMap;
     }
 
+    /**
+     * Merges the maximum lengths of a batch into the overall maximum lengths.
+     *
+     * @param colNameToLengthMap the overall map of column name to max length
+     * @param batchLengths the batch's map of column name to max length
+     */
+    private void mergeMaxChars(TObjectIntMap<String> colNameToLengthMap, TObjectIntMap<String> batchLengths)
+    {
+        batchLengths.forEachEntry((column, length) ->
+        {
+            if (!colNameToLengthMap.containsKey(column) || colNameToLengthMap.get(column) < length)
+            {
+                colNameToLengthMap.put(column, length);
+            }
+            return true;
+        });
+    }
+
     /**
      * Gets the stored DataTypeInfo for the layer.
      *
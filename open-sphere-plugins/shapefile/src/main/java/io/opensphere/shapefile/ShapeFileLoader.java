@@ -27,7 +27,9 @@ import io.opensphere.core.common.shapefile.utils.ShapefileRecord;
 import io.opensphere.core.common.shapefile.v2.ESRIShapefile;
 import io.opensphere.core.common.shapefile.v2.projection.ProjectionPortion;
 import io.opensphere.core.dialog.alertviewer.event.UserMessageEvent;
+import io.opensphere.core.model.Altitude.ReferenceLevel;
 import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.model.PackedLatLonAltList;
 import io.opensphere.core.model.time.TimeSpan;
 import io.opensphere.core.server.HttpServer;
 import io.opensphere.core.util.MathUtil;
@@ -152,10 +154,10 @@ public class ShapeFileLoader
      */
     protected List<LatLonAlt> extractLocations(Point2D.Double[] points, int startIndex, int endIndex)
     {
-        List<LatLonAlt> pointList = New.list(endIndex - startIndex);
+        PackedLatLonAltList pointList = new PackedLatLonAltList(PackedLatLonAltList.DEFAULT_PRECISION, endIndex - startIndex + 1);
         for (int i = startIndex; i <= endIndex; i++)
         {
-            pointList.add(LatLonAlt.createFromDegrees(points[i].y, points[i].x));
+            pointList.add(points[i].y, points[i].x, 0., ReferenceLevel.TERRAIN);
         }
         return pointList;
     }
@@ -3,12 +3,14 @@ package io.opensphere.stkterrain.envoy;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
-import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -24,8 +26,8 @@ import io.opensphere.core.cache.matcher.PropertyMatcher;
 import io.opensphere.core.cache.matcher.ZYXKeyPropertyMatcher;
 import io.opensphere.core.cache.util.IntervalPropertyValueSet;
 import io.opensphere.core.cache.util.PropertyDescriptor;
+import io.opensphere.core.data.AsyncDataRegistryDataProvider;
 import io.opensphere.core.data.CacheDepositReceiver;
-import io.opensphere.core.data.DataRegistryDataProvider;
 import io.opensphere.core.data.QueryException;
 import io.opensphere.core.data.util.DataModelCategory;
 import io.opensphere.core.data.util.OrderSpecifier;
@@ -45,9 +47,10 @@ import io.opensphere.stkterrain.util.Constants;
 
 /**
  * Envoy that goes out to an STK Terrain Server and gets a QuantizedMesh tile
- * for given TMS coordinates.
+ * for given TMS coordinates. Tiles are requested asynchronously, so the
+ * envoy's threads do not wait for the server.
  */
-public class QuantizedMeshEnvoy extends AbstractEnvoy implements DataRegistryDataProvider
+public class QuantizedMeshEnvoy extends AbstractEnvoy implements AsyncDataRegistryDataProvider
 {
     /**
      * The url to an STK Terrain Server.
@@ -93,10 +96,9 @@ public class QuantizedMeshEnvoy extends AbstractEnvoy implements DataRegistryDat
     }
 
     @Override
-    public void query(DataModelCategory category, Collection<? extends Satisfaction> satisfactions,
+    public CompletableFuture<Void> queryAsync(DataModelCategory category, Collection<? extends Satisfaction> satisfactions,
             List<? extends PropertyMatcher<?>> parameters, List<? extends OrderSpecifier> orderSpecifiers, int limit,
             Collection<? extends PropertyDescriptor<?>> propertyDescriptors, CacheDepositReceiver queryReceiver)
-        throws InterruptedException, QueryException
     {
         if (parameters.size() != 1 || !(parameters.get(0) instanceof ZYXKeyPropertyMatcher))
         {
@@ -107,65 +109,66 @@ public class QuantizedMeshEnvoy extends AbstractEnvoy implements DataRegistryDat
         ZYXImageKey key = param.getImageKey();
         TileSetMetadata metadata = getTileMetadata(category.getCategory());
 
-        if (metadata != null)
+        if (metadata == null)
         {
-            String tmsString = metadata.getTiles().get(0);
-            tmsString = tmsString.replace("{z}", String.valueOf(key.getZ()));
-            tmsString = tmsString.replace("{y}", String.valueOf(key.getY()));
-            tmsString = tmsString.replace("{x}", String.valueOf(key.getX()));
-            tmsString = tmsString.replace("{version}", String.valueOf(metadata.getVersion()));
+            return CompletableFuture
+                    .failedFuture(new QueryException("Could not retrieve terrain for " + category.toString() + " " + key.toString()));
+        }
+
+        String tmsString = metadata.getTiles().get(0);
+        tmsString = tmsString.replace("{z}", String.valueOf(key.getZ()));
+        tmsString = tmsString.replace("{y}", String.valueOf(key.getY()));
+        tmsString = tmsString.replace("{x}", String.valueOf(key.getX()));
+        tmsString = tmsString.replace("{version}", String.valueOf(metadata.getVersion()));
+
+        URL url;
+        try
+        {
+            url = new URL(myServerUrl + Constants.TILE_SETS_URL + "/" + category.getCategory() + Constants.TILES_URL + "/"
+                    + tmsString);
+        }
+        catch (MalformedURLException e)
+        {
+            return CompletableFuture.failedFuture(new QueryException(e.getMessage(), e));
+        }
+
+        HttpServer server = getToolbox().getServerProviderRegistry().getProvider(HttpServer.class).getServer(url);
+        ResponseValues response = new ResponseValues();
+        CompletableFuture<CancellableInputStream> request = server.sendGetAsync(url, Constants.QUANTIZED_MESH_ACCEPT_HEADER,
+                response);
 
-            try
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        result.whenComplete((v, e) ->
+        {
+            if (result.isCancelled())
             {
-                URL url = new URL(myServerUrl + Constants.TILE_SETS_URL + "/" + category.getCategory() + Constants.TILES_URL + "/"
-                        + tmsString);
-                HttpServer server = getToolbox().getServerProviderRegistry().getProvider(HttpServer.class).getServer(url);
-                ResponseValues response = new ResponseValues();
-                try
-                {
-                    try (CancellableInputStream stream = server.sendGet(url, Constants.QUANTIZED_MESH_ACCEPT_HEADER, response))
-                    {
-                        if (response.getResponseCode() == HttpURLConnection.HTTP_OK)
-                        {
-                            StreamReader meshReader = new StreamReader(stream);
-                            ByteBuffer buffer = meshReader.readStreamIntoBuffer();
-
-                            QuantizedMesh mesh = new QuantizedMesh(buffer);
-                            Collection<PropertyAccessor<QuantizedMesh, ?>> accessors = New.collection();
-                            accessors.add(SerializableAccessor.<QuantizedMesh, String>getSingletonAccessor(
-                                    Constants.KEY_PROPERTY_DESCRIPTOR, param.getOperand()));
-                            accessors.add(SerializableAccessor.<QuantizedMesh, QuantizedMesh>getSingletonAccessor(
-                                    Constants.QUANTIZED_MESH_PROPERTY_DESCRIPTOR, mesh));
-
-                            CacheDeposit<QuantizedMesh> deposit = new DefaultCacheDeposit<QuantizedMesh>(
-                                    new DataModelCategory(myServerUrl, category.getFamily(), category.getCategory()), accessors,
-                                    Collections.singleton(mesh), true, TimeInstant.get().plus(Constants.TILE_EXPIRATION).toDate(),
-                                    false);
-                            queryReceiver.receive(deposit);
-                        }
-                        else if (response.getResponseCode() != HttpURLConnection.HTTP_NOT_FOUND)
-                        {
-                            StreamReader errorMessageReader = new StreamReader(stream);
-                            throw new QueryException(url.toString() + " returned code " + response.getResponseCode() + " "
-                                    + response.getResponseMessage() + " message "
-                                    + errorMessageReader.readStreamIntoString(StringUtilities.DEFAULT_CHARSET));
-                        }
-                    }
-                }
-                catch (IOException | URISyntaxException | CacheException e)
-                {
-                    throw new QueryException(e.getMessage(), e);
-                }
+                request.cancel(true);
             }
-            catch (MalformedURLException e)
+        });
+        request.whenComplete((stream, error) ->
+        {
+            if (error != null)
             {
-                throw new QueryException(e.getMessage(), e);
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                result.completeExceptionally(
+                        cause instanceof CancellationException ? cause : new QueryException(cause.getMessage(), cause));
+                return;
             }
-        }
-        else
-        {
-            throw new QueryException("Could not retrieve terrain for " + category.toString() + " " + key.toString());
-        }
+            try (CancellableInputStream closeable = stream)
+            {
+                receive(category, param, url, response, stream, queryReceiver);
+                result.complete(null);
+            }
+            catch (QueryException e)
+            {
+                result.completeExceptionally(e);
+            }
+            catch (IOException | CacheException | RuntimeException e)
+            {
+                result.completeExceptionally(new QueryException(e.getMessage(), e));
+            }
+        });
+        return result;
     }
 
     /**
@@ -190,4 +193,49 @@ public class QuantizedMeshEnvoy extends AbstractEnvoy implements DataRegistryDat
 
         return metadata;
     }
+
+    /**
+     * Decodes a tile response and deposits the mesh. This runs on the thread
+     * that completes the response.
+     *
+     * @param category The data model category of the query.
+     * @param param The key of the tile.
+     * @param url The url of the tile.
+     * @param response The response values.
+     * @param stream The response stream, which may be {@code null} if the
+     *            response has no body.
+     * @param queryReceiver Receives the deposit.
+     * @throws IOException If the response cannot be read.
+     * @throws CacheException If the deposit fails.
+     * @throws QueryException If the server returned an error.
+     */
+    private void receive(DataModelCategory category, ZYXKeyPropertyMatcher param, URL url, ResponseValues response,
+            CancellableInputStream stream, CacheDepositReceiver queryReceiver)
+        throws IOException, CacheException, QueryException
+    {
+        if (response.getResponseCode() == HttpURLConnection.HTTP_OK)
+        {
+            StreamReader meshReader = new StreamReader(stream);
+            ByteBuffer buffer = meshReader.readStreamIntoBuffer();
+
+            QuantizedMesh mesh = new QuantizedMesh(buffer);
+            Collection<PropertyAccessor<QuantizedMesh, ?>> accessors = New.collection();
+            accessors.add(SerializableAccessor.<QuantizedMesh, String>getSingletonAccessor(Constants.KEY_PROPERTY_DESCRIPTOR,
+                    param.getOperand()));
+            accessors.add(SerializableAccessor.<QuantizedMesh, QuantizedMesh>getSingletonAccessor(
+                    Constants.QUANTIZED_MESH_PROPERTY_DESCRIPTOR, mesh));
+
+            CacheDeposit<QuantizedMesh> deposit = new DefaultCacheDeposit<QuantizedMesh>(
+                    new DataModelCategory(myServerUrl, category.getFamily(), category.getCategory()), accessors,
+                    Collections.singleton(mesh), true, TimeInstant.get().plus(Constants.TILE_EXPIRATION).toDate(), false);
+            queryReceiver.receive(deposit);
+        }
+        else if (response.getResponseCode() != HttpURLConnection.HTTP_NOT_FOUND)
+        {
+            String message = stream == null ? ""
+                    : new StreamReader(stream).readStreamIntoString(StringUtilities.DEFAULT_CHARSET);
+            throw new QueryException(url.toString() + " returned code " + response.getResponseCode() + " "
+                    + response.getResponseMessage() + " message " + message);
+        }
+    }
 }
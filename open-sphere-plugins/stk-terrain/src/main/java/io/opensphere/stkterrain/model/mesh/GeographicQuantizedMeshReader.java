@@ -1,6 +1,7 @@
 package io.opensphere.stkterrain.model.mesh;
 
 import java.io.Serializable;
+import java.nio.FloatBuffer;
 import java.util.List;
 
 import net.jcip.annotations.Immutable;
@@ -90,6 +91,74 @@ public class GeographicQuantizedMeshReader implements Serializable
         return elevation;
     }
 
+    /**
+     * Rasterizes the mesh into a grid of elevations. Each triangle is only
+     * visited once, so this is much faster than getting the elevation of each
+     * grid post individually.
+     *
+     * @param mesh the quantized mesh
+     * @param columns the number of posts in the east-west direction
+     * @param rows the number of posts in the north-south direction
+     * @param missingDataValue the value for posts not covered by the mesh
+     * @param grid the buffer which receives the elevations in meters, in
+     *            row-major order starting at the north-west corner
+     */
+    public void readGrid(QuantizedMesh mesh, int columns, int rows, float missingDataValue, FloatBuffer grid)
+    {
+        for (int i = 0, n = columns * rows; i < n; ++i)
+        {
+            grid.put(i, missingDataValue);
+        }
+
+        double minHeight = mesh.getHeader().getMinHeight();
+        double deltaHeight = mesh.getHeader().getMaxHeight() - minHeight;
+        double columnsPerCoord = (columns - 1) / (double)MAX_COORD;
+        double rowsPerCoord = (rows - 1) / (double)MAX_COORD;
+        Indices indexData = mesh.getIndexData();
+        VertexData vertexData = mesh.getVertexData();
+        for (int i = 0, n = indexData.getIndexCount(); i < n; i += 3)
+        {
+            int iA = indexData.getIndex(i);
+            int iB = indexData.getIndex(i + 1);
+            int iC = indexData.getIndex(i + 2);
+
+            // Grid coordinates of the vertices; rows increase to the south.
+            double xA = vertexData.getU(iA) * columnsPerCoord;
+            double yA = (MAX_COORD - vertexData.getV(iA)) * rowsPerCoord;
+            double xB = vertexData.getU(iB) * columnsPerCoord;
+            double yB = (MAX_COORD - vertexData.getV(iB)) * rowsPerCoord;
+            double xC = vertexData.getU(iC) * columnsPerCoord;
+            double yC = (MAX_COORD - vertexData.getV(iC)) * rowsPerCoord;
+            double denominator = (yB - yC) * (xA - xC) + (xC - xB) * (yA - yC);
+            if (MathUtil.isZero(denominator))
+            {
+                continue;
+            }
+
+            double hA = modelToGeo(vertexData.getHeight(iA), minHeight, deltaHeight);
+            double hB = modelToGeo(vertexData.getHeight(iB), minHeight, deltaHeight);
+            double hC = modelToGeo(vertexData.getHeight(iC), minHeight, deltaHeight);
+
+            int minCol = Math.max(0, (int)Math.ceil(Math.min(xA, Math.min(xB, xC))));
+            int maxCol = Math.min(columns - 1, (int)Math.floor(Math.max(xA, Math.max(xB, xC))));
+            int minRow = Math.max(0, (int)Math.ceil(Math.min(yA, Math.min(yB, yC))));
+            int maxRow = Math.min(rows - 1, (int)Math.floor(Math.max(yA, Math.max(yB, yC))));
+            for (int row = minRow; row <= maxRow; ++row)
+            {
+                for (int col = minCol; col <= maxCol; ++col)
+                {
+                    double wA = ((yB - yC) * (col - xC) + (xC - xB) * (row - yC)) / denominator;
+                    double wB = ((yC - yA) * (col - xC) + (xA - xC) * (row - yC)) / denominator;
+                    double wC = 1. - wA - wB;
+                    if (wA >= -MathUtil.DBL_EPSILON && wB >= -MathUtil.DBL_EPSILON && wC >= -MathUtil.DBL_EPSILON)
+                    {
+                        grid.put(row * columns + col, (float)(wA * hA + wB * hB + wC * hC));
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Gets the model triangle starting at the given index index.
      *
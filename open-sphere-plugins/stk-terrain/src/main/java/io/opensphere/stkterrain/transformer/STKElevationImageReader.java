@@ -1,5 +1,8 @@
 package io.opensphere.stkterrain.transformer;
 
+import java.awt.Dimension;
+import java.nio.FloatBuffer;
+
 import io.opensphere.core.image.Image;
 import io.opensphere.core.model.GeographicBoundingBox;
 import io.opensphere.core.model.GeographicPosition;
@@ -15,6 +18,12 @@ import io.opensphere.stkterrain.util.Constants;
  */
 public class STKElevationImageReader implements ElevationImageReader
 {
+    /**
+     * The number of posts on each side of the grid a mesh is rasterized into,
+     * which matches the resolution of the STK heightmap tiles.
+     */
+    private static final int GRID_SIZE = 65;
+
     /**
      * The bounds of this reader.
      */
@@ -69,6 +78,12 @@ public class STKElevationImageReader implements ElevationImageReader
         return myOrderId;
     }
 
+    @Override
+    public Dimension getGridSize(Image image)
+    {
+        return image instanceof QuantizedMesh ? new Dimension(GRID_SIZE, GRID_SIZE) : null;
+    }
+
     @Override
     public String getImageFormat()
     {
@@ -103,4 +118,15 @@ public class STKElevationImageReader implements ElevationImageReader
 
         return elevation;
     }
+
+    @Override
+    public void readGrid(Image image, GeographicBoundingBox bounds, FloatBuffer grid) throws ElevationImageReaderException
+    {
+        if (!(image instanceof QuantizedMesh))
+        {
+            throw new ElevationImageReaderException("Image is not a quantized mesh.");
+        }
+        new GeographicQuantizedMeshReader(bounds).readGrid((QuantizedMesh)image, GRID_SIZE, GRID_SIZE,
+                (float)getMissingDataValue(), grid);
+    }
 }
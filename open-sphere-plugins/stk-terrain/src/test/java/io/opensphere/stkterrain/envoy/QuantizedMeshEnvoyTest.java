@@ -12,6 +12,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.easymock.EasyMock;
 import org.easymock.EasyMockSupport;
@@ -151,6 +152,52 @@ public class QuantizedMeshEnvoyTest
         support.verifyAll();
     }
 
+    /**
+     * Tests that cancelling an asynchronous query cancels the request.
+     *
+     * @throws URISyntaxException Bad URI.
+     * @throws IOException Bad IO.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testQueryAsyncCancel() throws IOException, URISyntaxException
+    {
+        EasyMockSupport support = new EasyMockSupport();
+
+        CompletableFuture<CancellableInputStream> request = new CompletableFuture<>();
+        URL url = new URL(ourTestServer + "/" + ourTestTileSet + "/1/0/1.terrain?v=2.0");
+        HttpServer server = support.createMock(HttpServer.class);
+        EasyMock.expect(server.sendGetAsync(EasyMockHelper.eq(url), EasyMock.isA(Map.class), EasyMock.isA(ResponseValues.class)))
+                .andReturn(request);
+        ServerProvider<HttpServer> provider = support.createMock(ServerProvider.class);
+        EasyMock.expect(provider.getServer(EasyMockHelper.eq(url))).andReturn(server);
+        ServerProviderRegistry serverRegistry = support.createMock(ServerProviderRegistry.class);
+        EasyMock.expect(serverRegistry.getProvider(EasyMock.eq(HttpServer.class))).andReturn(provider);
+
+        TileSetMetadata metadata = createMetadata();
+        DataRegistry registry = support.createMock(DataRegistry.class);
+        EasyMock.expect(registry.performLocalQuery(EasyMock.isA(SimpleQuery.class))).andAnswer(() -> queryAnswer(metadata));
+        Toolbox toolbox = support.createMock(Toolbox.class);
+        EasyMock.expect(toolbox.getServerProviderRegistry()).andReturn(serverRegistry);
+        EasyMock.expect(toolbox.getDataRegistry()).andReturn(registry);
+        CacheDepositReceiver queryReceiver = support.createMock(CacheDepositReceiver.class);
+
+        support.replayAll();
+
+        QuantizedMeshEnvoy envoy = new QuantizedMeshEnvoy(toolbox, ourTestServer);
+
+        ZYXKeyPropertyMatcher matcher = new ZYXKeyPropertyMatcher(Constants.KEY_PROPERTY_DESCRIPTOR, ourKey);
+        CompletableFuture<Void> result = envoy.queryAsync(
+                new DataModelCategory(null, QuantizedMesh.class.getName(), ourTestTileSet), New.list(), New.list(matcher),
+                New.list(), -1, New.list(Constants.QUANTIZED_MESH_PROPERTY_DESCRIPTOR), queryReceiver);
+        assertFalse(result.isDone());
+
+        result.cancel(true);
+        assertTrue(request.isCancelled());
+
+        support.verifyAll();
+    }
+
     /**
      * Tests querying and an invalid response was returned.
      *
@@ -357,7 +404,7 @@ public class QuantizedMeshEnvoyTest
         if (metadata != null)
         {
             HttpServer server = support.createMock(HttpServer.class);
-            EasyMock.expect(server.sendGet(EasyMockHelper.eq(url), EasyMock.isA(Map.class),
+            EasyMock.expect(server.sendGetAsync(EasyMockHelper.eq(url), EasyMock.isA(Map.class),
                     EasyMock.isA(ResponseValues.class))).andAnswer(() -> sendGetAnswer(responseCode, exception));
 
             ServerProvider<HttpServer> provider = support.createMock(ServerProvider.class);
@@ -448,20 +495,19 @@ public class QuantizedMeshEnvoyTest
     }
 
     /**
-     * The answer for the sendGet mocked call.
+     * The answer for the sendGetAsync mocked call.
      *
      * @param responseCode The response code to return.
-     * @param exception The exception to throw or null if no exception should be
-     *            thrown.
-     * @return The input stream of data, or if the responseCode isn't 200 an
-     *         error message.
-     * @throws IOException The test exception to throw.
+     * @param exception The exception to complete the future with or null if
+     *            the request should succeed.
+     * @return The future input stream of data, or if the responseCode isn't
+     *         200 an error message.
      */
-    private CancellableInputStream sendGetAnswer(int responseCode, IOException exception) throws IOException
+    private CompletableFuture<CancellableInputStream> sendGetAnswer(int responseCode, IOException exception)
     {
         if (exception != null)
         {
-            throw exception;
+            return CompletableFuture.failedFuture(exception);
         }
 
         CancellableInputStream stream = null;
@@ -482,6 +528,6 @@ public class QuantizedMeshEnvoyTest
         ResponseValues responseValues = (ResponseValues)EasyMock.getCurrentArguments()[2];
         responseValues.setResponseCode(responseCode);
 
-        return stream;
+        return CompletableFuture.completedFuture(stream);
     }
 }
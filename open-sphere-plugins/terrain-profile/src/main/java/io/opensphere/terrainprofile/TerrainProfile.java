@@ -24,10 +24,8 @@ import io.opensphere.core.hud.framework.TransformerHelper;
 import io.opensphere.core.hud.framework.layout.GridLayout;
 import io.opensphere.core.hud.framework.layout.GridLayoutConstraints;
 import io.opensphere.core.math.Vector3d;
-import io.opensphere.core.model.Altitude;
 import io.opensphere.core.model.Altitude.ReferenceLevel;
 import io.opensphere.core.model.GeographicPosition;
-import io.opensphere.core.model.LatLonAlt;
 import io.opensphere.core.model.ScreenBoundingBox;
 import io.opensphere.core.model.ScreenPosition;
 import io.opensphere.core.projection.Projection;
@@ -35,7 +33,6 @@ import io.opensphere.core.units.UnitsProvider;
 import io.opensphere.core.units.UnitsProvider.UnitsChangeListener;
 import io.opensphere.core.units.length.Length;
 import io.opensphere.core.units.length.Meters;
-import io.opensphere.core.util.TerrainUtil;
 import io.opensphere.core.viewer.TrajectoryGenerator;
 import io.opensphere.core.viewer.TrajectoryGenerator.TrajectorySegment;
 import io.opensphere.core.viewer.Viewer;
@@ -44,18 +41,23 @@ import io.opensphere.core.viewer.Viewer.ViewerPosition;
 import io.opensphere.core.viewer.impl.DynamicViewer;
 import io.opensphere.core.viewer.impl.Viewer3D;
 import io.opensphere.overlay.util.AbstractOverlayWindow;
+import io.opensphere.terrainprofile.TerrainProfileEngine.ProfileResult;
 
 /** The terrain profile display. */
 public class TerrainProfile extends AbstractOverlayWindow
 {
-    /** The number of sample points to use from the terrain. */
-    private static final int ourSampleNumber = 200;
-
     /** The elevation label class. */
     private TerrainChartElevationLabel myElevationLabel;
 
-    /** Collection of points (in Lat/Lon) that contain positions. */
-    private final List<GeographicPosition> myElevations = new ArrayList<>();
+    /**
+     * Collection of points (in Lat/Lon) that contain positions. While a
+     * profile is being computed, this only contains the samples at the start
+     * of the profile which are available so far.
+     */
+    private volatile List<GeographicPosition> myElevations = Collections.emptyList();
+
+    /** The engine which computes the profile elevations. */
+    private final TerrainProfileEngine myEngine;
 
     /** Geographic equivalents of myPoints. */
     private final List<GeographicPosition> myGeoPoints = new ArrayList<>();
@@ -70,10 +72,10 @@ public class TerrainProfile extends AbstractOverlayWindow
     private final List<MapProfileListener> myMapListeners = new ArrayList<>();
 
     /** The maximum elevation of current profile. */
-    private double myMaxElevation;
+    private volatile double myMaxElevation;
 
     /** The minimum elevation of current profile. */
-    private double myMinElevation;
+    private volatile double myMinElevation;
 
     /** Our min/max label class. */
     private TerrainChartMinMaxLabel myMinMaxLabel;
@@ -81,6 +83,9 @@ public class TerrainProfile extends AbstractOverlayWindow
     /** Collection of points in model coords that describe profile line. */
     private final List<ViewerPosition> myPoints = new ArrayList<>();
 
+    /** The total number of samples in the current profile. */
+    private volatile int mySampleCount;
+
     /** The length units provider. */
     private final UnitsProvider<Length> myUnitsProvider;
 
@@ -112,11 +117,13 @@ public class TerrainProfile extends AbstractOverlayWindow
      * @param location The predetermined location.
      * @param resize The resize behavior.
      * @param unitsProvider The length units provider.
+     * @param engine The engine which computes the profile elevations.
      */
     public TerrainProfile(TransformerHelper hudTransformer, ScreenBoundingBox size, ToolLocation location, ResizeOption resize,
-            UnitsProvider<Length> unitsProvider)
+            UnitsProvider<Length> unitsProvider, TerrainProfileEngine engine)
     {
         super(hudTransformer, size, location, resize, ZOrderRenderProperties.TOP_Z - 40);
+        myEngine = engine;
         myUnitsProvider = unitsProvider;
         myUnitsProvider.addListener(myListener);
         myUnits = myUnitsProvider.getPreferredUnits();
@@ -276,15 +283,15 @@ public class TerrainProfile extends AbstractOverlayWindow
 
             // Make sure cursor point is within our geometry and we have
             // positions
-            if (pointInside(cursorPos) && !myElevations.isEmpty())
+            List<GeographicPosition> elevations = myElevations;
+            ScreenBoundingBox bbox = getDrawBounds();
+            int index = (int)((cursorPos.getX() - getAbsoluteLocation().getUpperLeft().getX()) / bbox.getWidth() * mySampleCount);
+            if (pointInside(cursorPos) && index >= 0 && index < elevations.size())
             {
-                ScreenBoundingBox bbox = getDrawBounds();
                 List<Geometry> newGeometries = new ArrayList<>();
 
-                double xScaleFactor = (cursorPos.getX() - getAbsoluteLocation().getUpperLeft().getX()) / bbox.getWidth();
-
                 // Get the point that corresponds to our location
-                GeographicPosition point = myElevations.get((int)(xScaleFactor * myElevations.size()));
+                GeographicPosition point = elevations.get(index);
 
                 // now draw horizontal and vertical line (start with vertical)
                 ScreenPosition bottom = new ScreenPosition((int)cursorPos.getX() - getAbsoluteLocation().getUpperLeft().getX(),
@@ -450,8 +457,10 @@ public class TerrainProfile extends AbstractOverlayWindow
             startGeoms.addAll(getGeometries());
             getGeometries().clear();
 
-            // Draw the graph
-            int size = myElevations.size();
+            // Draw the graph, leaving room for samples which are not
+            // available yet
+            List<GeographicPosition> elevations = myElevations;
+            int size = elevations.size();
             if (size > 2)
             {
                 ScreenBoundingBox bbox = getDrawBounds();
@@ -459,7 +468,7 @@ public class TerrainProfile extends AbstractOverlayWindow
                 List<ScreenPosition> positions = new ArrayList<>();
 
                 double xcoord = 0.;
-                double step = bbox.getWidth() / (size - 1.);
+                double step = bbox.getWidth() / (Math.max(size, mySampleCount) - 1.);
                 double scaleFactor = myMinElevation - myMaxElevation == 0. ? 0.
                         : bbox.getHeight() / (myMinElevation - myMaxElevation);
 
@@ -473,7 +482,7 @@ public class TerrainProfile extends AbstractOverlayWindow
                     else
                     {
                         screenPos = bbox.getUpperLeft().add(new Vector3d(xcoord,
-                                (myElevations.get(i).getLatLonAlt().getAltM() - myMaxElevation) * scaleFactor, 0d));
+                                (elevations.get(i).getLatLonAlt().getAltM() - myMaxElevation) * scaleFactor, 0d));
                     }
                     positions.add(screenPos);
 
@@ -502,15 +511,16 @@ public class TerrainProfile extends AbstractOverlayWindow
         }
 
         /**
-         * Calculate new terrain profile and draw it.
+         * Calculate new terrain profile and draw it. The elevations are
+         * computed in the background, and the chart is redrawn as they become
+         * available.
          *
          * @param profileEnds The end positions of the profile line.
          */
         public synchronized void redrawChartProfile(List<Vector3d> profileEnds)
         {
             drawMapProfile(profileEnds);
-            findElevations();
-            drawElevations();
+            myEngine.submit(myGeoPoints, this::showProfile);
         }
 
         /**
@@ -520,8 +530,8 @@ public class TerrainProfile extends AbstractOverlayWindow
          */
         private synchronized void drawMapProfile(List<Vector3d> profileEnds)
         {
-            findProfile(profileEnds);
             Projection projection = getTransformer().getToolbox().getMapManager().getProjection();
+            findProfile(profileEnds, projection);
             myGeoPoints.clear();
             for (ViewerPosition point : myPoints)
             {
@@ -530,38 +540,17 @@ public class TerrainProfile extends AbstractOverlayWindow
         }
 
         /**
-         * Create lat/lon (GeographicPosition) points from the terrain profile
-         * and determine min/max values.
+         * Show a complete or partial profile.
+         *
+         * @param result The profile.
          */
-        private void findElevations()
+        private synchronized void showProfile(ProfileResult result)
         {
-            myElevations.clear();
-
-            final double highNumber = 100000.;
-            myMaxElevation = 0.;
-            myMinElevation = highNumber;
-
-            // Loop through terrain profile points to find elevations and set
-            // min/max elevations
-            for (GeographicPosition original : myGeoPoints)
-            {
-                double elevation = TerrainUtil.getInstance().getElevationInMeters(getTransformer().getToolbox().getMapManager(),
-                        original);
-
-                LatLonAlt lla = LatLonAlt.createFromDegreesMeters(original.getLatLonAlt().getLatD(),
-                        original.getLatLonAlt().getLonD(), elevation, Altitude.ReferenceLevel.ELLIPSOID);
-
-                if (lla.getAltM() > myMaxElevation)
-                {
-                    myMaxElevation = lla.getAltM();
-                }
-                if (lla.getAltM() < myMinElevation)
-                {
-                    myMinElevation = lla.getAltM();
-                }
-                GeographicPosition geoPos = new GeographicPosition(lla);
-                myElevations.add(geoPos);
-            }
+            myMinElevation = result.getMinElevationM();
+            myMaxElevation = result.getMaxElevationM();
+            mySampleCount = result.getSampleCount();
+            myElevations = result.getElevations();
+            drawElevations();
         }
 
         /**
@@ -569,9 +558,14 @@ public class TerrainProfile extends AbstractOverlayWindow
          *
          * @param profileEnds A list containing two vectors pointing to the ends
          *            of the line.
+         * @param projection The projection used to find the geographic ends of
+         *            the line.
          */
-        private void findProfile(List<Vector3d> profileEnds)
+        private void findProfile(List<Vector3d> profileEnds, Projection projection)
         {
+            int sampleCount = myEngine.getSampleCount(projection.convertToPosition(profileEnds.get(0), ReferenceLevel.ELLIPSOID),
+                    projection.convertToPosition(profileEnds.get(1), ReferenceLevel.ELLIPSOID));
+
             MapManager mapMan = getTransformer().getToolbox().getMapManager();
             DynamicViewer view = mapMan.getStandardViewer();
             myPoints.clear();
@@ -580,7 +574,7 @@ public class TerrainProfile extends AbstractOverlayWindow
 
             List<TrajectorySegment> segments = new ArrayList<>(1);
             segments.add(new TrajectorySegment(view.getRightedView(profileEnds.get(0)), view.getRightedView(profileEnds.get(1)),
-                    ourSampleNumber));
+                    sampleCount));
             myPoints.addAll(flatGen.generateTrajectory(segments));
         }
     }
@@ -0,0 +1,276 @@
+package io.opensphere.terrainprofile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+
+import io.opensphere.core.math.WGS84EarthConstants;
+import io.opensphere.core.model.Altitude;
+import io.opensphere.core.model.GeographicBoundingBox;
+import io.opensphere.core.model.GeographicPosition;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.projection.GeographicBody3D;
+import io.opensphere.core.terrain.util.AbsoluteElevationProvider;
+import io.opensphere.core.terrain.util.ElevationManager;
+
+/**
+ * Computes terrain profiles on a background executor. The number of samples
+ * is chosen from the resolution of the terrain under the profile, the
+ * elevations are fetched in batches of neighboring samples (which generally
+ * fall within the same terrain tiles), and the partial profile is delivered
+ * to a listener after each batch. Submitting a new profile cancels the
+ * computation of the previous one.
+ */
+public class TerrainProfileEngine
+{
+    /** The number of samples fetched from the elevation manager at once. */
+    static final int BATCH_SIZE = 256;
+
+    /** The maximum number of samples in a profile. */
+    static final int MAX_SAMPLES = 20000;
+
+    /** The minimum number of samples in a profile. */
+    static final int MIN_SAMPLES = 200;
+
+    /** Logger reference. */
+    private static final Logger LOGGER = Logger.getLogger(TerrainProfileEngine.class);
+
+    /** Supplier for the current elevation manager. */
+    private final Supplier<ElevationManager> myElevationManagerSupplier;
+
+    /** The executor for computing profiles. */
+    private final ExecutorService myExecutor;
+
+    /** The id of the most recently submitted profile. */
+    private final AtomicLong myGeneration = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param elevationManagerSupplier Supplier for the current elevation
+     *            manager, which may supply {@code null} if there is no terrain.
+     * @param executor The executor for computing profiles.
+     */
+    public TerrainProfileEngine(Supplier<ElevationManager> elevationManagerSupplier, ExecutorService executor)
+    {
+        myElevationManagerSupplier = elevationManagerSupplier;
+        myExecutor = executor;
+    }
+
+    /** Cancel any profile which is being computed. */
+    public void cancel()
+    {
+        myGeneration.incrementAndGet();
+    }
+
+    /** Cancel any profile which is being computed and stop the executor. */
+    public void close()
+    {
+        cancel();
+        myExecutor.shutdownNow();
+    }
+
+    /**
+     * Get the number of samples to use for a profile, based on the length of
+     * the profile and the finest resolution of the terrain beneath it.
+     *
+     * @param start The start of the profile.
+     * @param end The end of the profile.
+     * @return The number of samples.
+     */
+    public int getSampleCount(GeographicPosition start, GeographicPosition end)
+    {
+        ElevationManager manager = myElevationManagerSupplier.get();
+        if (manager == null)
+        {
+            return MIN_SAMPLES;
+        }
+
+        GeographicBoundingBox bbox = new GeographicBoundingBox(
+                LatLonAlt.createFromDegrees(Math.min(start.getLatLonAlt().getLatD(), end.getLatLonAlt().getLatD()),
+                        Math.min(start.getLatLonAlt().getLonD(), end.getLatLonAlt().getLonD())),
+                LatLonAlt.createFromDegrees(Math.max(start.getLatLonAlt().getLatD(), end.getLatLonAlt().getLatD()),
+                        Math.max(start.getLatLonAlt().getLonD(), end.getLatLonAlt().getLonD())));
+        double resolutionM = manager.getHighestOverlappingResolution(bbox.asGeographicPolygon());
+        if (resolutionM <= 0.)
+        {
+            // Fall back to the provider at the middle of the profile.
+            AbsoluteElevationProvider provider = manager.getProviderForPosition(bbox.getCenter());
+            resolutionM = provider == null ? -1. : provider.getResolutionHintM();
+        }
+        if (resolutionM <= 0.)
+        {
+            return MIN_SAMPLES;
+        }
+
+        double lengthM = GeographicBody3D.greatCircleDistanceM(start.getLatLonAlt(), end.getLatLonAlt(),
+                WGS84EarthConstants.RADIUS_MEAN_M);
+        return (int)Math.max(MIN_SAMPLES, Math.min(MAX_SAMPLES, Math.ceil(lengthM / resolutionM) + 1));
+    }
+
+    /**
+     * Compute the elevations along a profile. Any profile which is still being
+     * computed is cancelled. The listener is called on the engine's executor
+     * after each batch of samples, unless the profile is cancelled.
+     *
+     * @param positions The sample positions along the profile.
+     * @param listener The listener for the partial and complete profile.
+     */
+    public void submit(List<? extends GeographicPosition> positions, ProfileListener listener)
+    {
+        long generation = myGeneration.incrementAndGet();
+        List<GeographicPosition> copy = Collections.unmodifiableList(new ArrayList<>(positions));
+        myExecutor.execute(() -> computeProfile(generation, copy, listener));
+    }
+
+    /**
+     * Compute the elevations along a profile, stopping if it is superseded.
+     *
+     * @param generation The id of the profile.
+     * @param positions The sample positions along the profile.
+     * @param listener The listener for the partial and complete profile.
+     */
+    private void computeProfile(long generation, List<GeographicPosition> positions, ProfileListener listener)
+    {
+        List<GeographicPosition> elevations = new ArrayList<>(positions.size());
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int from = 0; from < positions.size(); from += BATCH_SIZE)
+        {
+            if (generation != myGeneration.get())
+            {
+                return;
+            }
+
+            ElevationManager manager = myElevationManagerSupplier.get();
+            List<GeographicPosition> batch = positions.subList(from, Math.min(positions.size(), from + BATCH_SIZE));
+            double[] batchElevations;
+            try
+            {
+                batchElevations = manager == null ? new double[batch.size()] : manager.getElevationsM(batch, true);
+            }
+            catch (RuntimeException e)
+            {
+                LOGGER.error("Failed to get elevations for terrain profile: " + e, e);
+                return;
+            }
+
+            for (int i = 0; i < batch.size(); ++i)
+            {
+                double elevation = Math.max(0., batchElevations[i]);
+                min = Math.min(min, elevation);
+                max = Math.max(max, elevation);
+                LatLonAlt lla = batch.get(i).getLatLonAlt();
+                elevations.add(new GeographicPosition(LatLonAlt.createFromDegreesMeters(lla.getLatD(), lla.getLonD(), elevation,
+                        Altitude.ReferenceLevel.ELLIPSOID)));
+            }
+
+            if (generation != myGeneration.get())
+            {
+                return;
+            }
+            listener.profileUpdated(new ProfileResult(new ArrayList<>(elevations), positions.size(), min, max));
+        }
+    }
+
+    /** Listener for profile results. */
+    @FunctionalInterface
+    public interface ProfileListener
+    {
+        /**
+         * Called when more of the profile is available.
+         *
+         * @param result The profile so far.
+         */
+        void profileUpdated(ProfileResult result);
+    }
+
+    /** A complete or partial profile. */
+    public static final class ProfileResult
+    {
+        /** The positions which have been sampled, with their elevations. */
+        private final List<GeographicPosition> myElevations;
+
+        /** The maximum elevation sampled. */
+        private final double myMaxElevationM;
+
+        /** The minimum elevation sampled. */
+        private final double myMinElevationM;
+
+        /** The total number of samples in the profile. */
+        private final int mySampleCount;
+
+        /**
+         * Constructor.
+         *
+         * @param elevations The positions which have been sampled, with their
+         *            elevations.
+         * @param sampleCount The total number of samples in the profile.
+         * @param minElevationM The minimum elevation sampled.
+         * @param maxElevationM The maximum elevation sampled.
+         */
+        public ProfileResult(List<GeographicPosition> elevations, int sampleCount, double minElevationM, double maxElevationM)
+        {
+            myElevations = Collections.unmodifiableList(elevations);
+            mySampleCount = sampleCount;
+            myMinElevationM = minElevationM;
+            myMaxElevationM = maxElevationM;
+        }
+
+        /**
+         * Get the positions which have been sampled, with their elevations, in
+         * order along the profile.
+         *
+         * @return The sampled positions.
+         */
+        public List<GeographicPosition> getElevations()
+        {
+            return myElevations;
+        }
+
+        /**
+         * Get the maximum elevation sampled.
+         *
+         * @return The maximum elevation in meters.
+         */
+        public double getMaxElevationM()
+        {
+            return myMaxElevationM;
+        }
+
+        /**
+         * Get the minimum elevation sampled.
+         *
+         * @return The minimum elevation in meters.
+         */
+        public double getMinElevationM()
+        {
+            return myMinElevationM;
+        }
+
+        /**
+         * Get the total number of samples in the profile.
+         *
+         * @return The number of samples.
+         */
+        public int getSampleCount()
+        {
+            return mySampleCount;
+        }
+
+        /**
+         * Get whether all of the samples in the profile are available.
+         *
+         * @return true when the profile is complete.
+         */
+        public boolean isComplete()
+        {
+            return myElevations.size() == mySampleCount;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.opensphere.terrainprofile;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
 import io.opensphere.core.MapManager;
@@ -20,6 +21,7 @@ import io.opensphere.core.model.ScreenPosition;
 import io.opensphere.core.units.UnitsProvider;
 import io.opensphere.core.units.length.Length;
 import io.opensphere.core.util.concurrent.ProcrastinatingExecutor;
+import io.opensphere.core.util.lang.NamedThreadFactory;
 import io.opensphere.core.viewer.ViewChangeSupport;
 import io.opensphere.core.viewer.ViewChangeSupport.ViewChangeListener;
 import io.opensphere.core.viewer.Viewer;
@@ -30,6 +32,9 @@ import io.opensphere.core.viewer.impl.Viewer3D.ViewerPosition3D;
 /** Manager the items which will be rendered for the terrain profile. */
 public class TerrainProfileManager
 {
+    /** The engine which computes the profile elevations. */
+    private final TerrainProfileEngine myEngine;
+
     /** Helper class for handling publishing of geometries. */
     private final TransformerHelper myHelper;
 
@@ -71,12 +76,14 @@ public class TerrainProfileManager
         myHelper = helper;
         myTerrainProfileMarker = new TerrainProfileMarker(helper);
         myViewChangeExecutor = new ProcrastinatingExecutor(executor);
+        myEngine = new TerrainProfileEngine(() -> myHelper.getToolbox().getMapManager().getRawProjection().getElevationManager(),
+                Executors.newSingleThreadExecutor(new NamedThreadFactory("TerrainProfile")));
 
         ScreenPosition terrainUpLeft = new ScreenPosition(100, 700);
         ScreenPosition terrainLowRight = new ScreenPosition(350, 875);
         ScreenBoundingBox terrainProfileLocation = new ScreenBoundingBox(terrainUpLeft, terrainLowRight);
         myTerrainProfile = new TerrainProfile(myHelper, terrainProfileLocation, ToolLocation.SOUTHWEST,
-                ResizeOption.RESIZE_KEEP_FIXED_SIZE, unitsProvider);
+                ResizeOption.RESIZE_KEEP_FIXED_SIZE, unitsProvider, myEngine);
         myTerrainProfile.init();
         myTerrainProfile.moveToDefaultLocation();
         myTerrainProfile.display();
@@ -89,6 +96,7 @@ public class TerrainProfileManager
     {
         myHelper.getToolbox().getMapManager().getViewChangeSupport().removeViewChangeListener(myMainViewListener);
         myTerrainProfileMarker.close();
+        myEngine.close();
         if (myTerrainProfile != null)
         {
             myTerrainProfile.closeWindow();
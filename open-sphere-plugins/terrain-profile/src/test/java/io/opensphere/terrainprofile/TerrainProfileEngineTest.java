@@ -0,0 +1,187 @@
+package io.opensphere.terrainprofile;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.opensphere.core.model.GeographicPolygon;
+import io.opensphere.core.model.GeographicPosition;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.terrain.util.AbsoluteElevationProvider;
+import io.opensphere.core.terrain.util.ElevationManager;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.terrainprofile.TerrainProfileEngine.ProfileResult;
+
+/** Test for {@link TerrainProfileEngine}. */
+public class TerrainProfileEngineTest
+{
+    /**
+     * Tests that the number of samples follows the terrain resolution.
+     */
+    @Test
+    public void testGetSampleCount()
+    {
+        TestElevationManager manager = new TestElevationManager(10.);
+        TerrainProfileEngine engine = new TerrainProfileEngine(() -> manager, new ManualExecutor());
+
+        GeographicPosition start = new GeographicPosition(LatLonAlt.createFromDegrees(0., 0.));
+        int count = engine.getSampleCount(start, new GeographicPosition(LatLonAlt.createFromDegrees(0., .1)));
+        Assert.assertTrue(String.valueOf(count), count > 1100 && count < 1125);
+
+        Assert.assertEquals(TerrainProfileEngine.MAX_SAMPLES,
+                engine.getSampleCount(start, new GeographicPosition(LatLonAlt.createFromDegrees(0., 10.))));
+        Assert.assertEquals(TerrainProfileEngine.MIN_SAMPLES,
+                engine.getSampleCount(start, new GeographicPosition(LatLonAlt.createFromDegrees(0., .001))));
+
+        TerrainProfileEngine noHint = new TerrainProfileEngine(() -> new TestElevationManager(-1.), new ManualExecutor());
+        Assert.assertEquals(TerrainProfileEngine.MIN_SAMPLES,
+                noHint.getSampleCount(start, new GeographicPosition(LatLonAlt.createFromDegrees(0., .1))));
+    }
+
+    /**
+     * Tests that partial profiles are delivered in batches and that superseded
+     * profiles are cancelled.
+     */
+    @Test
+    public void testSubmit()
+    {
+        TestElevationManager manager = new TestElevationManager(10.);
+        ManualExecutor executor = new ManualExecutor();
+        TerrainProfileEngine engine = new TerrainProfileEngine(() -> manager, executor);
+
+        List<GeographicPosition> positions = New.list();
+        for (int i = 0; i < 600; ++i)
+        {
+            positions.add(new GeographicPosition(LatLonAlt.createFromDegrees(0., i * .001)));
+        }
+
+        List<ProfileResult> superseded = New.list();
+        List<ProfileResult> results = New.list();
+        engine.submit(positions, superseded::add);
+        engine.submit(positions, results::add);
+        executor.runAll();
+
+        Assert.assertTrue(superseded.isEmpty());
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals(TerrainProfileEngine.BATCH_SIZE, results.get(0).getElevations().size());
+        Assert.assertFalse(results.get(0).isComplete());
+
+        ProfileResult last = results.get(2);
+        Assert.assertTrue(last.isComplete());
+        Assert.assertEquals(600, last.getSampleCount());
+        Assert.assertEquals(0., last.getMinElevationM(), 0.);
+        Assert.assertEquals(299., last.getMaxElevationM(), 0.);
+        Assert.assertEquals(100., last.getElevations().get(400).getLatLonAlt().getAltM(), 0.);
+        Assert.assertEquals(3, manager.getBatchCount());
+    }
+
+    /** An elevation manager with a fixed resolution and linear elevations. */
+    private static class TestElevationManager extends ElevationManager
+    {
+        /** The number of batches requested. */
+        private int myBatchCount;
+
+        /** The resolution hint. */
+        private final double myResolutionM;
+
+        /**
+         * Constructor.
+         *
+         * @param resolutionM The resolution hint.
+         */
+        public TestElevationManager(double resolutionM)
+        {
+            myResolutionM = resolutionM;
+        }
+
+        /**
+         * Get the number of batches requested.
+         *
+         * @return The number of batches.
+         */
+        public int getBatchCount()
+        {
+            return myBatchCount;
+        }
+
+        @Override
+        public double[] getElevationsM(List<? extends GeographicPosition> positions, boolean approximate)
+        {
+            ++myBatchCount;
+            double[] result = new double[positions.size()];
+            for (int i = 0; i < result.length; ++i)
+            {
+                // One meter per thousandth of a degree, below zero in the
+                // first half of the profile.
+                result[i] = Math.round(positions.get(i).getLatLonAlt().getLonD() * 1000.) - 300.;
+            }
+            return result;
+        }
+
+        @Override
+        public double getHighestOverlappingResolution(GeographicPolygon region)
+        {
+            return myResolutionM;
+        }
+
+        @Override
+        public AbsoluteElevationProvider getProviderForPosition(GeographicPosition position)
+        {
+            return null;
+        }
+    }
+
+    /** An executor which runs tasks when asked. */
+    private static class ManualExecutor extends AbstractExecutorService
+    {
+        /** The tasks which have not been run. */
+        private final List<Runnable> myTasks = New.list();
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit)
+        {
+            return true;
+        }
+
+        @Override
+        public void execute(Runnable command)
+        {
+            myTasks.add(command);
+        }
+
+        @Override
+        public boolean isShutdown()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated()
+        {
+            return false;
+        }
+
+        /** Run the pending tasks. */
+        public void runAll()
+        {
+            while (!myTasks.isEmpty())
+            {
+                myTasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void shutdown()
+        {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow()
+        {
+            return New.list(myTasks);
+        }
+    }
+}
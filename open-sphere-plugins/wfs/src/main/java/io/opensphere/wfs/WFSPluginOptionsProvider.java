@@ -4,6 +4,8 @@ import java.awt.Color;
 import java.text.NumberFormat;
 
 import javax.swing.BorderFactory;
+import javax.swing.Box;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
@@ -33,6 +35,9 @@ public class WFSPluginOptionsProvider extends AbstractOptionsProvider
     /** The max features text field. */
     private JTextField myMaxFeaturesTF;
 
+    /** The paged load check box. */
+    private JCheckBox myPagedLoadCheckBox;
+
     /** The original max features text field border. */
     private Border myOriginalMaxFeaturesTFBorder;
 
@@ -67,6 +72,7 @@ public class WFSPluginOptionsProvider extends AbstractOptionsProvider
                     + NumberFormat.getIntegerInstance().format(WFSConstants.MAX_MAX_FEATURES) + ".";
             JOptionPane.showMessageDialog(myPanel, message, "Invalid Max Features Value", JOptionPane.ERROR_MESSAGE);
         }
+        myPreferences.putBoolean(WFSConstants.PAGED_LOAD_PREFERENCE, getPagedLoadCheckBox().isSelected(), this);
     }
 
     @Override
@@ -74,7 +80,10 @@ public class WFSPluginOptionsProvider extends AbstractOptionsProvider
     {
         if (myPanel == null)
         {
-            myPanel = new OptionsPanel(getMaxFeaturesPanel());
+            Box box = Box.createVerticalBox();
+            box.add(getMaxFeaturesPanel());
+            box.add(getPagedLoadCheckBox());
+            myPanel = new OptionsPanel(box);
         }
         return myPanel;
     }
@@ -84,6 +93,8 @@ public class WFSPluginOptionsProvider extends AbstractOptionsProvider
     {
         getMaxFeaturesTF().setText(Integer.toString(WFSConstants.DEFAULT_MAX_FEATURES));
         myPreferences.putInt(WFSConstants.MAX_FEATURES_PREFERENCE, WFSConstants.DEFAULT_MAX_FEATURES, this);
+        getPagedLoadCheckBox().setSelected(false);
+        myPreferences.putBoolean(WFSConstants.PAGED_LOAD_PREFERENCE, false, this);
     }
 
     /**
@@ -124,6 +135,24 @@ public class WFSPluginOptionsProvider extends AbstractOptionsProvider
         return myMaxFeaturesTF;
     }
 
+    /**
+     * Gets the paged load check box.
+     *
+     * @return the paged load check box
+     */
+    private JCheckBox getPagedLoadCheckBox()
+    {
+        if (myPagedLoadCheckBox == null)
+        {
+            myPagedLoadCheckBox = new JCheckBox("Download GML features in concurrent pages",
+                    WFSPreferenceUtilities.isPagedLoadEnabled(myPreferences));
+            myPagedLoadCheckBox.setToolTipText("Split each query into pages of "
+                    + NumberFormat.getIntegerInstance().format(WFSPreferenceUtilities.getPageSizeFromPreferences(myPreferences))
+                    + " features that are downloaded in parallel. The server must support startIndex paging.");
+        }
+        return myPagedLoadCheckBox;
+    }
+
     /**
      * Validate max features input.
      */
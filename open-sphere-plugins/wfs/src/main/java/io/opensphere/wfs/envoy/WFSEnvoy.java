@@ -11,11 +11,16 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLStreamException;
 
 import org.apache.avro.file.DataFileStream;
 import org.apache.avro.generic.GenericRecord;
@@ -39,6 +44,7 @@ import io.opensphere.core.util.XMLUtilities;
 import io.opensphere.core.util.collections.New;
 import io.opensphere.core.util.collections.StreamUtilities;
 import io.opensphere.core.util.io.CancellableInputStream;
+import io.opensphere.core.util.lang.NamedThreadFactory;
 import io.opensphere.core.util.lang.StringUtilities;
 import io.opensphere.core.util.lang.ThreadControl;
 import io.opensphere.core.util.taskactivity.TaskActivity;
@@ -56,10 +62,12 @@ import io.opensphere.wfs.config.WFSServerConfig.WFSServerState;
 import io.opensphere.wfs.consumer.FeatureConsumer;
 import io.opensphere.wfs.filter.WFSTimeFieldGetter;
 import io.opensphere.wfs.gml311.GmlSaxFeatureResponseHandler;
+import io.opensphere.wfs.gml311.GmlStaxFeatureParser;
 import io.opensphere.wfs.layer.WFSDataType;
 import io.opensphere.wfs.placenames.PlaceNameLayerManager;
 import io.opensphere.wfs.placenames.PlaceNameTile;
 import io.opensphere.wfs.placenames.PlaceNamesRequestEvent;
+import io.opensphere.wfs.util.WFSConstants;
 import io.opensphere.wfs.util.WFSPreferenceUtilities;
 import net.opengis.ows._100.DomainType;
 import net.opengis.ows._100.Operation;
@@ -88,6 +96,9 @@ public class WFSEnvoy extends AbstractWFSEnvoy
      */
     private OGCOutputFormat myDefaultOutputFormat = OGCOutputFormat.GML_311;
 
+    /** The executor used to download pages of features, created on demand. */
+    private ExecutorService myPageExecutor;
+
     /** A flag indicating whether this server supports HTTP Post. */
     private boolean myIsGetFeaturePostEnabled;
 
@@ -154,6 +165,12 @@ public class WFSEnvoy extends AbstractWFSEnvoy
 
         myPlaceNamesManager.removeServer(getServerConfig().getServerTitle());
 
+        if (myPageExecutor != null)
+        {
+            myPageExecutor.shutdownNow();
+            myPageExecutor = null;
+        }
+
         myWfsCapabilities = null;
     }
 
@@ -231,6 +248,25 @@ public class WFSEnvoy extends AbstractWFSEnvoy
         filterParams.setGeometryTagName(wfsType.getMetaDataInfo().getGeometryColumn());
         filterParams.setTimeFieldNames(WFSTimeFieldGetter.getTimeFieldNames(wfsType));
 
+        if (format == OGCOutputFormat.GML_311 && WFSPreferenceUtilities.isPagedLoadEnabled(myPreferences))
+        {
+            if (WFSEnvoyHelper.getPagingSortColumn(wfsType) == null)
+            {
+                if (LOGGER.isDebugEnabled())
+                {
+                    LOGGER.debug("Not paging request for [" + wfsType.getDisplayName()
+                            + "] because it has no identifier column to sort on.");
+                }
+            }
+            else
+            {
+                // Paging is done through GET requests, so simplify the geometry
+                // to avoid exceeding the HTTP GET character limit.
+                filterParams.setRegion(simplifyGeometry(geometry.buffer(0)));
+                return getFeaturesGmlPaged(wfsType, filterParams, maxFeatures);
+            }
+        }
+
         URL url;
         InputStream postRequest = null;
         try
@@ -520,6 +556,110 @@ public class WFSEnvoy extends AbstractWFSEnvoy
         return count;
     }
 
+    /**
+     * Request features via the GML 3.1.1 interface as concurrent pages, each
+     * parsed with a pull parser as it downloads.
+     *
+     * @param wfsType the {@link WFSDataType} for the layer
+     * @param filterParams the filter parameters for the query
+     * @param maxFeatures the maximum number of features for the whole query
+     * @return a count of {@link MapDataElement}s returned from the server
+     * @throws OGCServerException if a page cannot be retrieved or parsed
+     */
+    private int getFeaturesGmlPaged(WFSDataType wfsType, OGCFilterParameters filterParams, int maxFeatures)
+        throws OGCServerException
+    {
+        long t0 = System.nanoTime();
+        FeatureConsumer consumer = getConsumerManager().requestConsumer(wfsType, true);
+        WFSPagedFeatureLoader loader = new WFSPagedFeatureLoader(getPageExecutor(),
+                WFSPreferenceUtilities.getPageSizeFromPreferences(myPreferences),
+                WFSPreferenceUtilities.getPageConcurrencyFromPreferences(myPreferences), maxFeatures);
+        int count;
+        try
+        {
+            count = loader.load((startIndex, pageSize) -> getFeaturesGmlPage(wfsType, filterParams, consumer, startIndex, pageSize));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new OGCServerException("Cancelled paged request for " + wfsType.getDisplayName(), e);
+        }
+
+        if (LOGGER.isInfoEnabled())
+        {
+            LOGGER.info(StringUtilities.formatTimingMessage(
+                    "Retrieved " + count + " objects of type [" + wfsType.getDisplayName() + "] from server in ",
+                    System.nanoTime() - t0));
+        }
+        return count;
+    }
+
+    /**
+     * Requests and parses a single page of GML features.
+     *
+     * @param wfsType the {@link WFSDataType} for the layer
+     * @param filterParams the filter parameters for the query
+     * @param consumer the consumer of the parsed features
+     * @param startIndex the index of the first feature in the page
+     * @param pageSize the maximum number of features in the page
+     * @return the number of features read, including any without a geometry
+     * @throws OGCServerException if the page cannot be retrieved or parsed
+     */
+    private int getFeaturesGmlPage(WFSDataType wfsType, OGCFilterParameters filterParams, FeatureConsumer consumer,
+            int startIndex, int pageSize)
+        throws OGCServerException
+    {
+        URL url;
+        try
+        {
+            url = myEnvoyHelper.buildGetFeatureURL(filterParams, wfsType, getServerConfig(), startIndex, pageSize);
+        }
+        catch (MalformedURLException | UnsupportedEncodingException e)
+        {
+            throw new OGCServerException("Failed to build URL for feature request to server: " + e, e);
+        }
+        if (LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("Requesting page of features from server using URL: " + url);
+        }
+
+        OGCServerConnector connector = getConnector(url, getToolbox().getServerProviderRegistry());
+        try (InputStream is = connector.requestStream())
+        {
+            GmlStaxFeatureParser parser = new GmlStaxFeatureParser(wfsType, consumer);
+            int count = parser.parse(is);
+            if (parser.isInError())
+            {
+                throw new OGCServerException("Server reported an error for layer [" + wfsType.getTypeName() + "]: "
+                        + parser.getErrors(), null);
+            }
+            return count;
+        }
+        catch (XMLStreamException | IOException e)
+        {
+            throw new OGCServerException("Failed to read page of features for layer [" + wfsType.getTypeName()
+                    + "] starting at " + startIndex + ": " + e, e);
+        }
+    }
+
+    /**
+     * Gets the executor used to download pages of features.
+     *
+     * @return the executor
+     */
+    private synchronized ExecutorService getPageExecutor()
+    {
+        if (myPageExecutor == null)
+        {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(WFSConstants.MAX_PAGE_CONCURRENCY,
+                    WFSConstants.MAX_PAGE_CONCURRENCY, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new NamedThreadFactory("WFSPageLoader"));
+            executor.allowCoreThreadTimeOut(true);
+            myPageExecutor = executor;
+        }
+        return myPageExecutor;
+    }
+
     /**
      * Get a batch of Avro records and stuff them into the layer.
      *
@@ -264,6 +264,55 @@ public class WFSEnvoyHelper
     public URL buildGetFeatureURL(OGCFilterParameters filterParams, WFSDataType type, ServerConnectionParams conn,
             Preferences prefs)
         throws MalformedURLException, UnsupportedEncodingException
+    {
+        return buildGetFeatureURL(filterParams, type, conn, -1, filterParams.getMaxFeatures().intValue());
+    }
+
+    /**
+     * Gets the column used to sort paged GetFeature requests. Servers do not
+     * guarantee a stable order between requests unless one is asked for, so
+     * pages are sorted on the type's feature identifier or primary key column.
+     *
+     * @param type the type
+     * @return the column, or null if the type has no recognizable identifier
+     *         column
+     */
+    public static String getPagingSortColumn(WFSDataType type)
+    {
+        List<String> keys = type.getMetaDataInfo().getKeyNames();
+        for (String candidate : WFSConstants.PAGING_SORT_COLUMNS)
+        {
+            for (String key : keys)
+            {
+                if (candidate.equalsIgnoreCase(key))
+                {
+                    return key;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the URL for one page of a GetFeature request. The start index is
+     * a WFS 2.0 parameter that is also honored by common WFS 1.1.0 servers
+     * such as GeoServer. Pages are sorted on the column from
+     * {@link #getPagingSortColumn(WFSDataType)} so that they neither overlap
+     * nor skip features.
+     *
+     * @param filterParams the filter parameters
+     * @param type the type
+     * @param conn the connection
+     * @param startIndex the index of the first feature to return, or a
+     *            negative number to omit the parameter
+     * @param count the maximum number of features to return
+     * @return the URL
+     * @throws MalformedURLException the malformed url exception
+     * @throws UnsupportedEncodingException the unsupported encoding exception
+     */
+    public URL buildGetFeatureURL(OGCFilterParameters filterParams, WFSDataType type, ServerConnectionParams conn,
+            int startIndex, int count)
+        throws MalformedURLException, UnsupportedEncodingException
     {
         StringBuilder sb = new StringBuilder(buildBaseWfsURL(conn, WFSRequestType.GET_FEATURE));
         sb.append("&typename=").append(type.getTypeName());
@@ -274,7 +323,16 @@ public class WFSEnvoyHelper
             sb.append("&propertyname=").append(StringUtilities.join(",", columns));
         }
 
-        sb.append("&maxfeatures=").append(filterParams.getMaxFeatures().intValue());
+        sb.append("&maxfeatures=").append(count);
+        if (startIndex >= 0)
+        {
+            sb.append("&startindex=").append(startIndex);
+            String sortColumn = getPagingSortColumn(type);
+            if (sortColumn != null)
+            {
+                sb.append("&sortby=").append(URLEncoder.encode(sortColumn + " A", "UTF-8"));
+            }
+        }
         sb.append("&filter=").append(OGCFilterGenerator.buildQueryString(filterParams, type.getDisplayName()));
         sb.append("&outputformat=").append(URLEncoder.encode(filterParams.getOutputFormat(), "UTF-8"));
         if (OGCOutputFormat.isStreaming(filterParams.getOutputFormat()))
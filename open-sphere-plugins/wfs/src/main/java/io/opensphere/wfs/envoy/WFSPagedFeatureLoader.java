@@ -0,0 +1,212 @@
+package io.opensphere.wfs.envoy;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import io.opensphere.server.util.OGCServerException;
+
+/**
+ * Splits a feature query into pages by start index and loads them
+ * concurrently. A bounded window of pages is kept in flight; as soon as the
+ * oldest page finishes full, the next one is requested. Loading stops at the
+ * first page that comes back short, or when the maximum feature count is
+ * reached.
+ * <p>
+ * Each page is expected to hand its features to a thread safe consumer while
+ * it parses, so features stream into the cache while later pages are still
+ * downloading.
+ */
+public class WFSPagedFeatureLoader
+{
+    /** Logger reference. */
+    private static final Logger LOGGER = Logger.getLogger(WFSPagedFeatureLoader.class);
+
+    /** The maximum number of pages in flight. */
+    private final int myConcurrency;
+
+    /** The executor that downloads and parses pages. */
+    private final ExecutorService myExecutor;
+
+    /** The maximum total number of features to load. */
+    private final int myMaxFeatures;
+
+    /** The number of features requested per page. */
+    private final int myPageSize;
+
+    /**
+     * Constructor.
+     *
+     * @param executor the executor that downloads and parses pages
+     * @param pageSize the number of features requested per page
+     * @param concurrency the maximum number of pages in flight
+     * @param maxFeatures the maximum total number of features to load
+     */
+    public WFSPagedFeatureLoader(ExecutorService executor, int pageSize, int concurrency, int maxFeatures)
+    {
+        if (pageSize <= 0 || concurrency <= 0)
+        {
+            throw new IllegalArgumentException("Page size and concurrency must be positive.");
+        }
+        myExecutor = executor;
+        myPageSize = pageSize;
+        myConcurrency = concurrency;
+        myMaxFeatures = maxFeatures;
+    }
+
+    /**
+     * Loads all the pages of a query.
+     *
+     * @param pageLoader loads a single page
+     * @return the total number of features loaded
+     * @throws OGCServerException if a page fails to load
+     * @throws InterruptedException if the calling thread is interrupted, in
+     *             which case outstanding pages are cancelled
+     */
+    public int load(PageLoader pageLoader) throws OGCServerException, InterruptedException
+    {
+        Deque<Page> inFlight = new ArrayDeque<>(myConcurrency);
+        int nextStart = 0;
+        int pages = 0;
+        int total = 0;
+        boolean exhausted = false;
+        try
+        {
+            while (true)
+            {
+                while (!exhausted && inFlight.size() < myConcurrency && nextStart < myMaxFeatures)
+                {
+                    int count = Math.min(myPageSize, myMaxFeatures - nextStart);
+                    inFlight.add(submit(pageLoader, nextStart, count));
+                    nextStart += count;
+                    pages++;
+                }
+                Page page = inFlight.poll();
+                if (page == null)
+                {
+                    break;
+                }
+                int loaded = page.get();
+                total += loaded;
+                if (loaded < page.getCount())
+                {
+                    // Any pages after a short page are past the end of the
+                    // result set, so stop requesting more.
+                    exhausted = true;
+                }
+            }
+        }
+        finally
+        {
+            for (Page page : inFlight)
+            {
+                page.cancel();
+            }
+        }
+
+        if (LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("Loaded " + total + " features in " + pages + " pages");
+        }
+        return total;
+    }
+
+    /**
+     * Submits a page to the executor.
+     *
+     * @param pageLoader the page loader
+     * @param startIndex the index of the first feature
+     * @param count the number of features requested
+     * @return the page
+     */
+    private Page submit(PageLoader pageLoader, int startIndex, int count)
+    {
+        return new Page(myExecutor.submit(() -> Integer.valueOf(pageLoader.loadPage(startIndex, count))), count);
+    }
+
+    /** Loads a single page of features. */
+    @FunctionalInterface
+    public interface PageLoader
+    {
+        /**
+         * Requests and parses a page of features.
+         *
+         * @param startIndex the index of the first feature in the page
+         * @param count the maximum number of features in the page
+         * @return the number of features in the page, including any that
+         *         were not loaded (such as features without a geometry)
+         * @throws OGCServerException if the page cannot be loaded
+         */
+        int loadPage(int startIndex, int count) throws OGCServerException;
+    }
+
+    /** A page that has been submitted for loading. */
+    private static final class Page
+    {
+        /** The number of features requested. */
+        private final int myCount;
+
+        /** The future for the number of features loaded. */
+        private final Future<Integer> myFuture;
+
+        /**
+         * Constructor.
+         *
+         * @param future the future for the number of features loaded
+         * @param count the number of features requested
+         */
+        public Page(Future<Integer> future, int count)
+        {
+            myFuture = future;
+            myCount = count;
+        }
+
+        /** Cancels the page if it has not finished. */
+        public void cancel()
+        {
+            myFuture.cancel(true);
+        }
+
+        /**
+         * Waits for the page to load.
+         *
+         * @return the number of features loaded
+         * @throws OGCServerException if the page failed
+         * @throws InterruptedException if the wait is interrupted
+         */
+        public int get() throws OGCServerException, InterruptedException
+        {
+            try
+            {
+                return myFuture.get().intValue();
+            }
+            catch (ExecutionException e)
+            {
+                if (e.getCause() instanceof OGCServerException)
+                {
+                    throw (OGCServerException)e.getCause();
+                }
+                throw new OGCServerException("Failed to load page of features: " + e.getCause(), e.getCause());
+            }
+            catch (CancellationException e)
+            {
+                throw new OGCServerException("Page load was cancelled", e);
+            }
+        }
+
+        /**
+         * Gets the number of features requested.
+         *
+         * @return the count
+         */
+        public int getCount()
+        {
+            return myCount;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package io.opensphere.wfs.gml311;
+
+import java.awt.Color;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.opensphere.core.model.time.TimeSpan;
+import io.opensphere.mantle.data.LoadsTo;
+import io.opensphere.mantle.data.element.MapDataElement;
+import io.opensphere.mantle.data.element.MetaDataProvider;
+import io.opensphere.mantle.data.element.impl.DefaultMapDataElement;
+import io.opensphere.mantle.data.geom.MapGeometrySupport;
+import io.opensphere.mantle.data.impl.specialkey.EndTimeKey;
+import io.opensphere.mantle.data.impl.specialkey.TimeKey;
+import io.opensphere.wfs.layer.WFSDataType;
+import io.opensphere.wfs.layer.WFSMetaDataInfo;
+import io.opensphere.wfs.util.WFSConstants;
+
+/**
+ * Assembles {@link MapDataElement}s from the pieces of a parsed GML feature.
+ * Shared by the SAX and StAX GML feature parsers.
+ */
+public class GmlFeatureBuilder
+{
+    /** The default feature color. */
+    public static final Color DEFAULT_FEATURE_COLOR = Color.WHITE;
+
+    /** The end time column, or null if the type has none. */
+    private final String myEndKey;
+
+    /** Whether the layer is loaded to the timeline. */
+    private final boolean myIsTimeline;
+
+    /** The start time column, or null if the type has none. */
+    private final String myStartKey;
+
+    /** The DataTypeInfo for the type being requested. */
+    private final WFSDataType myType;
+
+    /**
+     * Constructor.
+     *
+     * @param type the WFS DataTypeInfo for the requested layer
+     */
+    public GmlFeatureBuilder(WFSDataType type)
+    {
+        myType = type;
+        myIsTimeline = type.getBasicVisualizationInfo().getSupportedLoadsToTypes().contains(LoadsTo.TIMELINE);
+        myStartKey = type.getMetaDataInfo().getKeyForSpecialType(TimeKey.DEFAULT);
+        myEndKey = type.getMetaDataInfo().getKeyForSpecialType(EndTimeKey.DEFAULT);
+    }
+
+    /**
+     * Creates a feature from the parsed pieces.
+     *
+     * @param featureId the feature id
+     * @param featureColor the color suggested by the feature
+     * @param mgs the feature geometry
+     * @param mdp the feature meta data
+     * @param timeHandler the handler that collected any GML time for the
+     *            feature
+     * @return the new element
+     */
+    public MapDataElement build(long featureId, Color featureColor, MapGeometrySupport mgs, MetaDataProvider mdp,
+            TimeHandler timeHandler)
+    {
+        TimeSpan span = buildTimeSpan(mdp, timeHandler);
+        mgs.setTimeSpan(span);
+        MapDataElement element = new DefaultMapDataElement(featureId, span, myType, mdp, mgs);
+        Color typeColor = myType.getBasicVisualizationInfo().getTypeColor().equals(DEFAULT_FEATURE_COLOR) ? featureColor
+                : myType.getBasicVisualizationInfo().getTypeColor();
+        element.getVisualizationState().setColor(typeColor);
+        return element;
+    }
+
+    /**
+     * Builds the time span.
+     *
+     * @param mdp The MetaDataProvider with all the column data in it.
+     * @param timeHandler the handler that collected any GML time for the
+     *            feature
+     * @return the time span
+     */
+    private TimeSpan buildTimeSpan(MetaDataProvider mdp, TimeHandler timeHandler)
+    {
+        if (!myIsTimeline)
+        {
+            return TimeSpan.TIMELESS;
+        }
+
+        TimeSpan returnSpan = null;
+
+        // First check for a special key that, for some layers, holds a special
+        // end time with no date attached.
+        String xtraSpecialKey = "TIMEDOWN";
+        Object xtraSpecialObj = mdp.getValue(xtraSpecialKey);
+        if (xtraSpecialObj instanceof String && StringUtils.isNotEmpty((String)xtraSpecialObj))
+        {
+            returnSpan = timeHandler.resolveTimeWithEndDay((String)xtraSpecialObj);
+        }
+        else
+        {
+            // Otherwise, pass in the start/stop from the MetaData and let the
+            // TimeManager sort it out.
+            Object startObj = mdp.getValue(myStartKey);
+            Object endObj = mdp.getValue(myEndKey);
+            String startString = startObj instanceof String && StringUtils.isNotEmpty((String)startObj) ? (String)startObj
+                    : null;
+            String endString = endObj instanceof String && StringUtils.isNotEmpty((String)endObj) ? (String)endObj : null;
+            returnSpan = timeHandler.resolveTimes(startString, endString);
+        }
+
+        if (((WFSMetaDataInfo)myType.getMetaDataInfo()).isDynamicTime())
+        {
+            mdp.setValue(WFSConstants.DEFAULT_TIME_FIELD, returnSpan);
+        }
+        return returnSpan;
+    }
+}
@@ -7,7 +7,7 @@ import org.apache.log4j.Logger;
 
 import io.opensphere.core.model.Altitude;
 import io.opensphere.core.model.LatLonAlt;
-import io.opensphere.core.util.collections.New;
+import io.opensphere.core.model.PackedLatLonAltList;
 import io.opensphere.mantle.data.geom.AbstractMapGeometrySupport;
 import io.opensphere.mantle.data.geom.impl.DefaultMapPolylineGeometrySupport;
 
@@ -23,7 +23,7 @@ public class GmlLinestringHandler extends AbstractGmlGeometryHandler
     protected static final String POSITION_LIST_TAG = "posList";
 
     /** List or translated points. */
-    private final List<LatLonAlt> myLatLonList = New.list();
+    private final PackedLatLonAltList myLatLonList = new PackedLatLonAltList();
 
     /**
      * Instantiates a new SAX handler for GML LineStrings.
@@ -96,7 +96,7 @@ public class GmlLinestringHandler extends AbstractGmlGeometryHandler
                     {
                         if (!hasError)
                         {
-                            myLatLonList.add(LatLonAlt.createFromDegrees(lat, lon, Altitude.ReferenceLevel.TERRAIN));
+                            myLatLonList.add(lat, lon, 0., Altitude.ReferenceLevel.TERRAIN);
                         }
                         positions = 0;
                     }
@@ -4,36 +4,24 @@ import java.awt.Color;
 import java.util.Collection;
 import java.util.Objects;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
-import io.opensphere.core.model.time.TimeSpan;
 import io.opensphere.core.util.Utilities;
 import io.opensphere.core.util.lang.StringUtilities;
-import io.opensphere.mantle.data.LoadsTo;
 import io.opensphere.mantle.data.MetaDataInfo;
-import io.opensphere.mantle.data.element.MapDataElement;
 import io.opensphere.mantle.data.element.MetaDataProvider;
-import io.opensphere.mantle.data.element.impl.DefaultMapDataElement;
 import io.opensphere.mantle.data.geom.MapGeometrySupport;
-import io.opensphere.mantle.data.impl.specialkey.EndTimeKey;
-import io.opensphere.mantle.data.impl.specialkey.TimeKey;
 import io.opensphere.wfs.consumer.FeatureConsumer;
 import io.opensphere.wfs.layer.WFSDataType;
-import io.opensphere.wfs.layer.WFSMetaDataInfo;
-import io.opensphere.wfs.util.WFSConstants;
 
 /**
  * The Class GmlSaxFeatureResponseHandler.
  */
 public class GmlSaxFeatureResponseHandler extends DefaultHandler
 {
-    /** The default feature color. */
-    private static final Color DEFAULT_FEATURE_COLOR = Color.WHITE;
-
     /** The Constant LOGGER. */
     private static final Logger LOGGER = Logger.getLogger(GmlSaxFeatureResponseHandler.class);
 
@@ -57,7 +45,10 @@ public class GmlSaxFeatureResponseHandler extends DefaultHandler
     private StringBuilder myCurrentValue;
 
     /** The Feature color. */
-    private Color myFeatureColor = DEFAULT_FEATURE_COLOR;
+    private Color myFeatureColor = GmlFeatureBuilder.DEFAULT_FEATURE_COLOR;
+
+    /** Assembles the parsed features. */
+    private final GmlFeatureBuilder myFeatureBuilder;
 
     /** The feature id. */
     private long myFeatureId;
@@ -98,6 +89,7 @@ public class GmlSaxFeatureResponseHandler extends DefaultHandler
         myErrorHandler = new GmlErrorHandler();
         myTimeHandler = new TimeHandler();
         myConsumer = consumer;
+        myFeatureBuilder = new GmlFeatureBuilder(type);
     }
 
     /**
@@ -305,61 +297,10 @@ public class GmlSaxFeatureResponseHandler extends DefaultHandler
     {
         MapGeometrySupport mgs = myCurrentGeometryHandler.getGeometry();
         MetaDataProvider mdp = myMetaDataHandler.getMetaDataProvider();
-        TimeSpan span = buildTimeSpan(mdp);
-        mgs.setTimeSpan(span);
-        MapDataElement element = new DefaultMapDataElement(myFeatureId, span, myType, mdp, mgs);
-        Color typeColor = myType.getBasicVisualizationInfo().getTypeColor().equals(DEFAULT_FEATURE_COLOR) ? myFeatureColor
-                : myType.getBasicVisualizationInfo().getTypeColor();
-        element.getVisualizationState().setColor(typeColor);
-        myConsumer.addFeature(element);
+        myConsumer.addFeature(myFeatureBuilder.build(myFeatureId, myFeatureColor, mgs, mdp, myTimeHandler));
         myFeatureCount++;
     }
 
-    /**
-     * Builds the time span.
-     *
-     * @param mdp The MetaDataProvider with all the column data in it.
-     *
-     * @return the time span
-     */
-    private TimeSpan buildTimeSpan(MetaDataProvider mdp)
-    {
-        if (!myType.getBasicVisualizationInfo().getSupportedLoadsToTypes().contains(LoadsTo.TIMELINE))
-        {
-            return TimeSpan.TIMELESS;
-        }
-
-        TimeSpan returnSpan = null;
-
-        // First check for a special key that, for some layers, holds a special
-        // end time with no date attached.
-        String xtraSpecialKey = "TIMEDOWN";
-        Object xtraSpecialObj = mdp.getValue(xtraSpecialKey);
-        if (xtraSpecialObj instanceof String && StringUtils.isNotEmpty((String)xtraSpecialObj))
-        {
-            returnSpan = myTimeHandler.resolveTimeWithEndDay((String)xtraSpecialObj);
-        }
-        else
-        {
-            // Otherwise, pass in the start/stop from the MetaData and let the
-            // TimeManager sort it out.
-            String startKey = myType.getMetaDataInfo().getKeyForSpecialType(TimeKey.DEFAULT);
-            String endKey = myType.getMetaDataInfo().getKeyForSpecialType(EndTimeKey.DEFAULT);
-            Object startObj = mdp.getValue(startKey);
-            Object endObj = mdp.getValue(endKey);
-            String startString = startObj instanceof String && StringUtils.isNotEmpty((String)startObj) ? (String)startObj
-                    : null;
-            String endString = endObj instanceof String && StringUtils.isNotEmpty((String)endObj) ? (String)endObj : null;
-            returnSpan = myTimeHandler.resolveTimes(startString, endString);
-        }
-
-        if (((WFSMetaDataInfo)myType.getMetaDataInfo()).isDynamicTime())
-        {
-            mdp.setValue(WFSConstants.DEFAULT_TIME_FIELD, returnSpan);
-        }
-        return returnSpan;
-    }
-
     /** Enum used to track the current parse State. */
     private enum State
     {
@@ -0,0 +1,350 @@
+package io.opensphere.wfs.gml311;
+
+import java.awt.Color;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.log4j.Logger;
+
+import io.opensphere.core.util.Utilities;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.core.util.lang.StringUtilities;
+import io.opensphere.mantle.data.MetaDataInfo;
+import io.opensphere.wfs.consumer.FeatureConsumer;
+import io.opensphere.wfs.layer.WFSDataType;
+
+/**
+ * Pull (StAX) parser for GML 3.1.1 WFS feature responses. This follows the
+ * same state machine as {@link GmlSaxFeatureResponseHandler}, but reads
+ * element text straight from the reader's character buffer into a single
+ * reused buffer and converts numeric columns without building intermediate
+ * strings. Features are handed to the consumer as soon as they close, so they
+ * reach the cache while the rest of the response is still downloading.
+ * <p>
+ * Instances are not thread safe, but may be reused for successive responses
+ * of the same type.
+ */
+public class GmlStaxFeatureParser
+{
+    /** The Constant LOGGER. */
+    private static final Logger LOGGER = Logger.getLogger(GmlStaxFeatureParser.class);
+
+    /** The GML namespace. */
+    private static final String GML_NAMESPACE = "http://www.opengis.net/gml";
+
+    /** GML tag that suggests the feature's color. */
+    private static final String TAG_FEATURE_COLOR = "styleVariation";
+
+    /** The consumer of the converted features. */
+    private final FeatureConsumer myConsumer;
+
+    /** The reused buffer holding the text of the current element. */
+    @SuppressWarnings("PMD.AvoidStringBufferField")
+    private final StringBuilder myCurrentValue = new StringBuilder(64);
+
+    /** The handler used to capture error output. */
+    private GmlErrorHandler myErrorHandler;
+
+    /** Assembles the parsed features. */
+    private final GmlFeatureBuilder myFeatureBuilder;
+
+    /** The factory for stream readers. */
+    private final XMLInputFactory myInputFactory;
+
+    /** The meta data column classes, keyed by column name. */
+    private final Map<String, Class<?>> myKeyClasses;
+
+    /** The name of the geometry column. */
+    private final String myGeometryColumn;
+
+    /** Handler for MetaData (column) data. */
+    private final MetaDataHandler myMetaDataHandler;
+
+    /** Handler for GML Time data (separate from Time columns in MetaData). */
+    private final TimeHandler myTimeHandler = new TimeHandler();
+
+    /** The DataTypeInfo for the type being requested. */
+    private final WFSDataType myType;
+
+    /**
+     * Constructor.
+     *
+     * @param type the WFS DataTypeInfo for the requested layer
+     * @param consumer the consumer of the converted features
+     */
+    public GmlStaxFeatureParser(WFSDataType type, FeatureConsumer consumer)
+    {
+        Utilities.checkNull(type, WFSDataType.class.getSimpleName());
+        Utilities.checkNull(type.getMetaDataInfo(), MetaDataInfo.class.getSimpleName());
+        Utilities.checkNull(consumer, "consumer");
+        myType = type;
+        myConsumer = consumer;
+        myMetaDataHandler = new MetaDataHandler(type.getMetaDataInfo());
+        myFeatureBuilder = new GmlFeatureBuilder(type);
+        myKeyClasses = New.map(type.getMetaDataInfo().getKeyClassTypeMap());
+        myGeometryColumn = type.getMetaDataInfo().getGeometryColumn();
+        myErrorHandler = new GmlErrorHandler();
+
+        myInputFactory = XMLInputFactory.newInstance();
+        myInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        myInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        myInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    /**
+     * Gets the errors collected from the last parsed document.
+     *
+     * @return the errors collected from the parsed document.
+     */
+    public Collection<GmlExceptionReport> getErrors()
+    {
+        return myErrorHandler.getExceptionReports();
+    }
+
+    /**
+     * Parses a response, adding each feature to the consumer. The consumer is
+     * flushed when the document ends, but the stream is not closed.
+     * <p>
+     * Features without a geometry are not handed to the consumer, but they
+     * are still counted, so that the count reflects how many features the
+     * server returned.
+     *
+     * @param stream the response stream
+     * @return the number of features read
+     * @throws XMLStreamException if the response is not well formed
+     */
+    public int parse(InputStream stream) throws XMLStreamException
+    {
+        myErrorHandler = new GmlErrorHandler();
+        XMLStreamReader reader = myInputFactory.createXMLStreamReader(stream);
+        try
+        {
+            return parse(reader);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * Tests to determine if the last parsed document was an error report.
+     *
+     * @return true if the parser found an error, false otherwise.
+     */
+    public boolean isInError()
+    {
+        // The handler only creates its report list once it sees a report.
+        return myErrorHandler.getExceptionReports() != null;
+    }
+
+    /**
+     * Reads the id from a feature element's gml:id attribute.
+     *
+     * @param reader the reader positioned at a start element
+     * @return the id string, or null if the element has no gml:id
+     */
+    private static String getGmlId(XMLStreamReader reader)
+    {
+        for (int i = 0; i < reader.getAttributeCount(); ++i)
+        {
+            if ("id".equals(reader.getAttributeLocalName(i)) && GML_NAMESPACE.equals(reader.getAttributeNamespace(i)))
+            {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses the events from a reader.
+     *
+     * @param reader the reader
+     * @return the number of features read
+     * @throws XMLStreamException if the response is not well formed
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private int parse(XMLStreamReader reader) throws XMLStreamException
+    {
+        int featureCount = 0;
+        State state = State.SEEK_FEATURE;
+        AbstractGmlGeometryHandler geometryHandler = null;
+        String layerNameTag = null;
+        long featureId = 0;
+        Color featureColor = GmlFeatureBuilder.DEFAULT_FEATURE_COLOR;
+        myMetaDataHandler.reset();
+        myTimeHandler.reset();
+
+        while (reader.hasNext())
+        {
+            int event = reader.next();
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE)
+            {
+                myCurrentValue.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+            else if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                String localName = reader.getLocalName();
+                String idString;
+                if (state == State.ERROR)
+                {
+                    myErrorHandler.handleOpeningTag(localName);
+                }
+                else if (state == State.SEEK_GEOMETRY)
+                {
+                    geometryHandler = GeometryHandlerFactory.getGeometryHandler(localName, myType.isLatBeforeLon());
+                    state = geometryHandler != null ? State.COLLECT_GEOMETRY : State.SEEK_FEATURE;
+                }
+                else if (state == State.COLLECT_GEOMETRY)
+                {
+                    geometryHandler.handleOpeningTag(localName);
+                }
+                else if ((idString = getGmlId(reader)) != null)
+                {
+                    featureId = parseFeatureId(idString);
+                    layerNameTag = localName;
+                    myMetaDataHandler.reset();
+                    myTimeHandler.reset();
+                    featureColor = GmlFeatureBuilder.DEFAULT_FEATURE_COLOR;
+                    geometryHandler = null;
+                }
+                else if (myTimeHandler.handlesTag(localName))
+                {
+                    state = State.COLLECT_TIME;
+                }
+                else if (localName.equals(myGeometryColumn))
+                {
+                    state = State.SEEK_GEOMETRY;
+                }
+                else if (myErrorHandler.handlesTag(localName))
+                {
+                    state = State.ERROR;
+                    myErrorHandler.handleOpeningTag(localName);
+                }
+                myCurrentValue.setLength(0);
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT)
+            {
+                String localName = reader.getLocalName();
+                Class<?> keyClass;
+                if (state == State.ERROR)
+                {
+                    myErrorHandler.handleClosingTag(localName, myCurrentValue.toString());
+                }
+                else if (state == State.COLLECT_GEOMETRY)
+                {
+                    if (geometryHandler.getTagName().equals(localName))
+                    {
+                        state = State.SEEK_FEATURE;
+                    }
+                    else
+                    {
+                        geometryHandler.handleClosingTag(localName, myCurrentValue.toString());
+                    }
+                }
+                else if (state == State.COLLECT_TIME)
+                {
+                    if (myTimeHandler.handlesTag(localName))
+                    {
+                        state = State.SEEK_FEATURE;
+                    }
+                    else
+                    {
+                        myTimeHandler.handleTimeData(localName, myCurrentValue.toString());
+                    }
+                }
+                else if (Objects.equals(layerNameTag, localName))
+                {
+                    state = State.SEEK_FEATURE;
+                    if (geometryHandler != null)
+                    {
+                        myConsumer.addFeature(myFeatureBuilder.build(featureId, featureColor, geometryHandler.getGeometry(),
+                                myMetaDataHandler.getMetaDataProvider(), myTimeHandler));
+                    }
+                    featureCount++;
+                }
+                else if (TAG_FEATURE_COLOR.equals(localName))
+                {
+                    featureColor = parseColor(featureColor);
+                }
+                else if ((keyClass = myKeyClasses.get(localName)) != null)
+                {
+                    myMetaDataHandler.handleMetaData(localName, keyClass, myCurrentValue);
+                }
+            }
+            else if (event == XMLStreamConstants.END_DOCUMENT)
+            {
+                myConsumer.flush();
+            }
+        }
+        return featureCount;
+    }
+
+    /**
+     * Parses the current value as a feature color.
+     *
+     * @param defaultColor the color to return if the value cannot be parsed
+     * @return the color
+     */
+    private Color parseColor(Color defaultColor)
+    {
+        try
+        {
+            return Color.decode(StringUtilities.concat("0x", myCurrentValue.substring(1)).toLowerCase());
+        }
+        catch (NumberFormatException | StringIndexOutOfBoundsException e)
+        {
+            LOGGER.warn("Failed to parse color [" + myCurrentValue + "] in GML feature.", e);
+            return defaultColor;
+        }
+    }
+
+    /**
+     * Parses the numeric id from a gml:id such as "layer.123".
+     *
+     * @param idString the id string
+     * @return the id, or 0 if it is not numeric
+     */
+    private static long parseFeatureId(String idString)
+    {
+        try
+        {
+            return Long.parseLong(idString, idString.lastIndexOf('.') + 1, idString.length(), 10);
+        }
+        catch (NumberFormatException e)
+        {
+            if (LOGGER.isDebugEnabled())
+            {
+                LOGGER.debug("Received non numeric feature ID: " + idString);
+            }
+            return 0;
+        }
+    }
+
+    /** Enum used to track the current parse State. */
+    private enum State
+    {
+        /** State while processing a Geometry element. */
+        COLLECT_GEOMETRY,
+
+        /** State while processing a time element. */
+        COLLECT_TIME,
+
+        /** State while waiting for a Feature element. */
+        SEEK_FEATURE,
+
+        /** State while waiting for the next Geometry Tag. */
+        SEEK_GEOMETRY,
+
+        /** State used when an error is reported as the response. */
+        ERROR,
+    }
+}
@@ -74,6 +74,50 @@ public class MetaDataHandler
         }
     }
 
+    /**
+     * Handle a MetaData key/value pair without first building a
+     * {@link String} for numeric columns. Integers are parsed directly from
+     * the character buffer, which may be reused by the caller once this
+     * returns.
+     *
+     * @param key the MetaData key
+     * @param keyType the class of the key, as reported by the
+     *            {@link MetaDataInfo}
+     * @param value the key's value
+     */
+    public void handleMetaData(String key, Class<?> keyType, CharSequence value)
+    {
+        try
+        {
+            if (Integer.class.equals(keyType))
+            {
+                int end = value.length();
+                int begin = 0;
+                while (begin < end && Character.isWhitespace(value.charAt(begin)))
+                {
+                    begin++;
+                }
+                while (end > begin && Character.isWhitespace(value.charAt(end - 1)))
+                {
+                    end--;
+                }
+                myProvider.setValue(key, Integer.valueOf(Integer.parseInt(value, begin, end, 10)));
+            }
+            else if (Double.class.equals(keyType))
+            {
+                myProvider.setValue(key, Double.valueOf(value.toString()));
+            }
+            else
+            {
+                myProvider.setValue(key, value.toString());
+            }
+        }
+        catch (NumberFormatException nfe)
+        {
+            LOGGER.warn("DescribeFeature said this value \'" + value + "\' was a number, however it is not parseable ", nfe);
+        }
+    }
+
     /**
      * Reset the current MetaDataProvider.
      */
@@ -1,6 +1,9 @@
 package io.opensphere.wfs.state;
 
+import java.util.Collection;
+
 import io.opensphere.core.Toolbox;
+import io.opensphere.core.modulestate.AbstractLayerStateController;
 import io.opensphere.core.modulestate.AbstractModuleStateController;
 import io.opensphere.server.toolbox.ServerToolbox;
 import io.opensphere.server.toolbox.WFSLayerConfigurationManager;
@@ -45,6 +48,12 @@ public abstract class BaseWFSStateController extends AbstractModuleStateControll
         myDeactivator = new WFSStateDeactivator(toolbox);
     }
 
+    @Override
+    public Collection<? extends String> getActivationDependencies()
+    {
+        return AbstractLayerStateController.LAYER_ACTIVATION_DEPENDENCIES;
+    }
+
     /**
      * Gets the value of the {@link #myToolbox} field.
      *
@@ -1,5 +1,9 @@
 package io.opensphere.wfs.util;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * The Class WFSConstants.
  */
@@ -23,6 +27,31 @@ public final class WFSConstants
     /** The maximum number of maximum features. */
     public static final int MAX_MAX_FEATURES = 2_000_000;
 
+    /** The preference for splitting GML queries into concurrent pages. */
+    public static final String PAGED_LOAD_PREFERENCE = "OGCServer.WFS.PagedLoad";
+
+    /** The preference for the number of features requested per page. */
+    public static final String PAGE_SIZE_PREFERENCE = "OGCServer.WFS.PageSize";
+
+    /** The Constant DEFAULT_PAGE_SIZE. */
+    public static final int DEFAULT_PAGE_SIZE = 10_000;
+
+    /** The preference for the number of pages downloaded concurrently. */
+    public static final String PAGE_CONCURRENCY_PREFERENCE = "OGCServer.WFS.PageConcurrency";
+
+    /** The Constant DEFAULT_PAGE_CONCURRENCY. */
+    public static final int DEFAULT_PAGE_CONCURRENCY = 4;
+
+    /** The maximum number of pages downloaded concurrently. */
+    public static final int MAX_PAGE_CONCURRENCY = 8;
+
+    /**
+     * Common names of feature identifier or primary key columns, in order of
+     * preference, used to give paged requests a stable sort order.
+     */
+    public static final List<String> PAGING_SORT_COLUMNS = Collections
+            .unmodifiableList(Arrays.asList("ogc_fid", "fid", "gid", "objectid", "featureid", "feature_id", "id"));
+
     /** Forbid instantiation of utility class. */
     private WFSConstants()
     {
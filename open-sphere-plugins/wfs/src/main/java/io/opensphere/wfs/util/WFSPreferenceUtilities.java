@@ -21,6 +21,42 @@ public final class WFSPreferenceUtilities
         return maxFeatures;
     }
 
+    /**
+     * Gets the number of pages to download concurrently from preferences.
+     *
+     * @param preferences the WFS preferences
+     * @return the page concurrency, between 1 and
+     *         {@link WFSConstants#MAX_PAGE_CONCURRENCY}
+     */
+    public static int getPageConcurrencyFromPreferences(Preferences preferences)
+    {
+        int concurrency = preferences.getInt(WFSConstants.PAGE_CONCURRENCY_PREFERENCE, WFSConstants.DEFAULT_PAGE_CONCURRENCY);
+        return Math.max(1, Math.min(concurrency, WFSConstants.MAX_PAGE_CONCURRENCY));
+    }
+
+    /**
+     * Gets the number of features per page from preferences.
+     *
+     * @param preferences the WFS preferences
+     * @return the page size
+     */
+    public static int getPageSizeFromPreferences(Preferences preferences)
+    {
+        int pageSize = preferences.getInt(WFSConstants.PAGE_SIZE_PREFERENCE, WFSConstants.DEFAULT_PAGE_SIZE);
+        return pageSize > 0 ? pageSize : WFSConstants.DEFAULT_PAGE_SIZE;
+    }
+
+    /**
+     * Gets whether GML queries should be split into concurrent pages.
+     *
+     * @param preferences the WFS preferences
+     * @return true if paged loading is enabled
+     */
+    public static boolean isPagedLoadEnabled(Preferences preferences)
+    {
+        return preferences.getBoolean(WFSConstants.PAGED_LOAD_PREFERENCE, false);
+    }
+
     /** Private constructor. */
     private WFSPreferenceUtilities()
     {
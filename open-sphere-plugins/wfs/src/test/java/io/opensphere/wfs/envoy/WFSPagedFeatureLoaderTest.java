@@ -0,0 +1,101 @@
+package io.opensphere.wfs.envoy;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.opensphere.server.util.OGCServerException;
+
+/** Tests for {@link WFSPagedFeatureLoader}. */
+public class WFSPagedFeatureLoaderTest
+{
+    /** The executor used by the tests. */
+    private ExecutorService myExecutor;
+
+    /** Creates the executor. */
+    @Before
+    public void setUp()
+    {
+        myExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    /** Shuts down the executor. */
+    @After
+    public void tearDown()
+    {
+        myExecutor.shutdownNow();
+    }
+
+    /**
+     * Tests that loading stops at the first short page.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testLoadStopsAtShortPage() throws Exception
+    {
+        final int available = 2_345;
+        List<Integer> starts = new CopyOnWriteArrayList<>();
+        WFSPagedFeatureLoader loader = new WFSPagedFeatureLoader(myExecutor, 500, 3, 100_000);
+        int count = loader.load((startIndex, pageSize) ->
+        {
+            starts.add(Integer.valueOf(startIndex));
+            return Math.max(0, Math.min(pageSize, available - startIndex));
+        });
+
+        Assert.assertEquals(available, count);
+        for (int start = 0; start < available; start += 500)
+        {
+            Assert.assertTrue(starts.contains(Integer.valueOf(start)));
+        }
+        // At most a window's worth of pages are requested past the end.
+        Assert.assertTrue(starts.size() <= 5 + 3);
+    }
+
+    /**
+     * Tests that the maximum feature count caps the requested pages.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testLoadHonorsMaxFeatures() throws Exception
+    {
+        List<Integer> sizes = new CopyOnWriteArrayList<>();
+        WFSPagedFeatureLoader loader = new WFSPagedFeatureLoader(myExecutor, 400, 2, 1_000);
+        int count = loader.load((startIndex, pageSize) ->
+        {
+            sizes.add(Integer.valueOf(pageSize));
+            return pageSize;
+        });
+
+        Assert.assertEquals(1_000, count);
+        Collections.sort(sizes);
+        Assert.assertEquals(List.of(Integer.valueOf(200), Integer.valueOf(400), Integer.valueOf(400)), sizes);
+    }
+
+    /**
+     * Tests that a failed page fails the load.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test(expected = OGCServerException.class)
+    public void testLoadFailure() throws Exception
+    {
+        WFSPagedFeatureLoader loader = new WFSPagedFeatureLoader(myExecutor, 100, 2, 1_000);
+        loader.load((startIndex, pageSize) ->
+        {
+            if (startIndex == 200)
+            {
+                throw new OGCServerException("bad page", null);
+            }
+            return pageSize;
+        });
+    }
+}
@@ -0,0 +1,301 @@
+package io.opensphere.wfs.gml311;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+
+import io.opensphere.core.Toolbox;
+import io.opensphere.core.model.LatLonAlt;
+import io.opensphere.core.util.collections.New;
+import io.opensphere.mantle.data.element.MapDataElement;
+import io.opensphere.mantle.data.geom.MapPointGeometrySupport;
+import io.opensphere.mantle.data.impl.DefaultMetaDataInfo;
+import io.opensphere.server.state.StateConstants;
+import io.opensphere.server.toolbox.LayerConfiguration;
+import io.opensphere.server.toolbox.ServerToolboxUtils;
+import io.opensphere.server.util.OGCServerException;
+import io.opensphere.wfs.consumer.FeatureConsumer;
+import io.opensphere.wfs.envoy.WFSPagedFeatureLoader;
+import io.opensphere.wfs.layer.WFSDataType;
+import io.opensphere.wfs.util.WFSTestToolbox;
+
+/**
+ * Test for {@link GmlStaxFeatureParser}.
+ */
+public class GmlStaxFeatureParserTest
+{
+    /** A GML 3.1.1 GetFeature response as written by GeoServer. */
+    private static final String GEOSERVER_RESPONSE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<wfs:FeatureCollection xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:wfs=\"http://www.opengis.net/wfs\""
+            + " xmlns:topp=\"http://www.openplans.org/topp\" xmlns:gml=\"http://www.opengis.net/gml\""
+            + " xmlns:ogc=\"http://www.opengis.net/ogc\" xmlns:ows=\"http://www.opengis.net/ows\""
+            + " xmlns:xlink=\"http://www.w3.org/1999/xlink\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+            + " numberOfFeatures=\"2\" timeStamp=\"2017-06-01T12:00:00.000Z\">\n"
+            + "  <gml:featureMembers>\n"
+            + "    <topp:cities gml:id=\"cities.12\">\n"
+            + "      <topp:the_geom>\n"
+            + "        <gml:Point srsName=\"urn:x-ogc:def:crs:EPSG:4326\" srsDimension=\"2\">\n"
+            + "          <gml:pos>38.9 -77.03</gml:pos>\n"
+            + "        </gml:Point>\n"
+            + "      </topp:the_geom>\n"
+            + "      <topp:NAME>Washington</topp:NAME>\n"
+            + "      <topp:POPULATION>705749</topp:POPULATION>\n"
+            + "    </topp:cities>\n"
+            + "    <topp:cities gml:id=\"cities.13\">\n"
+            + "      <topp:the_geom>\n"
+            + "        <gml:Point srsName=\"urn:x-ogc:def:crs:EPSG:4326\" srsDimension=\"2\">\n"
+            + "          <gml:pos>39.29 -76.61</gml:pos>\n"
+            + "        </gml:Point>\n"
+            + "      </topp:the_geom>\n"
+            + "      <topp:NAME><![CDATA[Baltimore]]></topp:NAME>\n"
+            + "      <topp:POPULATION>593490</topp:POPULATION>\n"
+            + "    </topp:cities>\n"
+            + "  </gml:featureMembers>\n"
+            + "</wfs:FeatureCollection>\n";
+
+    /** The host name. */
+    private static final String HOSTNAME = "localhost";
+
+    /** The name column. */
+    private static final String NAME_KEY = "NAME";
+
+    /** The population column. */
+    private static final String POPULATION_KEY = "POPULATION";
+
+    /** A test instantiation of the core toolbox. */
+    private static final Toolbox TOOLBOX = WFSTestToolbox.getToolbox();
+
+    /**
+     * Test parsing a GeoServer response.
+     *
+     * @throws XMLStreamException if the test document is not well formed
+     */
+    @Test
+    public void testParse() throws XMLStreamException
+    {
+        TestConsumer consumer = new TestConsumer();
+        GmlStaxFeatureParser parser = new GmlStaxFeatureParser(createType(), consumer);
+
+        assertEquals(2, parser.parse(toStream(GEOSERVER_RESPONSE)));
+        assertFalse(parser.isInError());
+        assertEquals(1, consumer.getFlushCount());
+
+        List<MapDataElement> features = consumer.getFeatures();
+        assertEquals(2, features.size());
+        assertFeature(features.get(0), 12, "Washington", 705749., 38.9, -77.03);
+        assertFeature(features.get(1), 13, "Baltimore", 593490., 39.29, -76.61);
+    }
+
+    /**
+     * Test that the feature id is found by namespace rather than by the
+     * "gml" prefix.
+     *
+     * @throws XMLStreamException if the test document is not well formed
+     */
+    @Test
+    public void testParseOtherGmlPrefix() throws XMLStreamException
+    {
+        String response = GEOSERVER_RESPONSE.replace("xmlns:gml=", "xmlns:g=").replace("gml:", "g:")
+                .replace("xmlns:xlink=", "xmlns:gml=\"http://example.com/notgml\" xmlns:xlink=");
+        TestConsumer consumer = new TestConsumer();
+        GmlStaxFeatureParser parser = new GmlStaxFeatureParser(createType(), consumer);
+
+        assertEquals(2, parser.parse(toStream(response)));
+        assertFeature(consumer.getFeatures().get(1), 13, "Baltimore", 593490., 39.29, -76.61);
+    }
+
+    /**
+     * Test that an id attribute outside of the GML namespace does not start a
+     * feature.
+     *
+     * @throws XMLStreamException if the test document is not well formed
+     */
+    @Test
+    public void testParseIdOutsideGmlNamespace() throws XMLStreamException
+    {
+        String response = GEOSERVER_RESPONSE.replace("gml:id=", "id=");
+        TestConsumer consumer = new TestConsumer();
+        GmlStaxFeatureParser parser = new GmlStaxFeatureParser(createType(), consumer);
+
+        assertEquals(0, parser.parse(toStream(response)));
+        assertTrue(consumer.getFeatures().isEmpty());
+    }
+
+    /**
+     * Test that a feature without a geometry is counted, so that a full page
+     * containing one does not stop paging early.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testPagingWithFeatureWithoutGeometry() throws Exception
+    {
+        String firstPage = GEOSERVER_RESPONSE.replaceFirst("(?s)<topp:the_geom>.*?</topp:the_geom>", "");
+        String secondPage = GEOSERVER_RESPONSE.replaceFirst("(?s)<topp:cities gml:id=\"cities.13\">.*?</topp:cities>", "")
+                .replace("cities.12", "cities.14");
+        TestConsumer consumer = new TestConsumer();
+        GmlStaxFeatureParser parser = new GmlStaxFeatureParser(createType(), consumer);
+        List<Integer> starts = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            WFSPagedFeatureLoader loader = new WFSPagedFeatureLoader(executor, 2, 1, 100);
+            int count = loader.load((startIndex, pageSize) ->
+            {
+                starts.add(Integer.valueOf(startIndex));
+                String page = startIndex == 0 ? firstPage : startIndex == 2 ? secondPage : "";
+                try
+                {
+                    return page.isEmpty() ? 0 : parser.parse(toStream(page));
+                }
+                catch (XMLStreamException e)
+                {
+                    throw new OGCServerException(e.getMessage(), e);
+                }
+            });
+
+            assertEquals(3, count);
+            assertEquals(List.of(Integer.valueOf(0), Integer.valueOf(2)), starts);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        List<MapDataElement> features = consumer.getFeatures();
+        assertEquals(2, features.size());
+        assertFeature(features.get(0), 13, "Baltimore", 593490., 39.29, -76.61);
+        assertFeature(features.get(1), 14, "Washington", 705749., 38.9, -77.03);
+    }
+
+    /**
+     * Test parsing an exception report.
+     *
+     * @throws XMLStreamException if the test document is not well formed
+     */
+    @Test
+    public void testParseError() throws XMLStreamException
+    {
+        String response = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<ows:ExceptionReport xmlns:ows=\"http://www.opengis.net/ows\" version=\"1.0.0\">\n"
+                + "  <ows:Exception exceptionCode=\"InvalidParameterValue\">\n"
+                + "    <ows:ExceptionText>Unknown type topp:cities</ows:ExceptionText>\n"
+                + "  </ows:Exception>\n"
+                + "</ows:ExceptionReport>\n";
+        TestConsumer consumer = new TestConsumer();
+        GmlStaxFeatureParser parser = new GmlStaxFeatureParser(createType(), consumer);
+
+        assertEquals(0, parser.parse(toStream(response)));
+        assertTrue(parser.isInError());
+    }
+
+    /**
+     * Asserts the contents of a parsed feature.
+     *
+     * @param feature the feature
+     * @param id the expected id
+     * @param name the expected name
+     * @param population the expected population
+     * @param lat the expected latitude
+     * @param lon the expected longitude
+     */
+    private static void assertFeature(MapDataElement feature, long id, String name, double population, double lat, double lon)
+    {
+        assertEquals(id, feature.getId());
+        assertEquals(name, feature.getMetaData().getValue(NAME_KEY));
+        assertEquals(Double.valueOf(population), feature.getMetaData().getValue(POPULATION_KEY));
+        assertTrue(feature.getMapGeometrySupport() instanceof MapPointGeometrySupport);
+        LatLonAlt location = ((MapPointGeometrySupport)feature.getMapGeometrySupport()).getLocation();
+        assertEquals(lat, location.getLatD(), 0.);
+        assertEquals(lon, location.getLonD(), 0.);
+    }
+
+    /**
+     * Creates the type for the test responses.
+     *
+     * @return the type
+     */
+    private WFSDataType createType()
+    {
+        String name = "topp:cities";
+        DefaultMetaDataInfo mdi = new DefaultMetaDataInfo();
+        mdi.addKey(NAME_KEY, String.class, this);
+        mdi.addKey(POPULATION_KEY, Double.class, this);
+        mdi.copyKeysToOriginalKeys();
+        mdi.setGeometryColumn("the_geom");
+
+        LayerConfiguration configuration = ServerToolboxUtils.getServerToolbox(TOOLBOX).getLayerConfigurationManager()
+                .getConfigurationFromName(StateConstants.WFS_LAYER_TYPE);
+
+        WFSDataType type = new WFSDataType(TOOLBOX, HOSTNAME, HOSTNAME + ":" + name, name, name, mdi, configuration);
+        type.setLatBeforeLon(true);
+        return type;
+    }
+
+    /**
+     * Gets a stream over a test document.
+     *
+     * @param document the document
+     * @return the stream
+     */
+    private static InputStream toStream(String document)
+    {
+        return new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Consumer that keeps the features it is given. */
+    private static class TestConsumer extends FeatureConsumer
+    {
+        /** The flushed features. */
+        private final List<MapDataElement> myFlushed = New.list();
+
+        /** The number of times the consumer has been flushed. */
+        private int myFlushCount;
+
+        /** Constructor. */
+        public TestConsumer()
+        {
+            super(Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void flush()
+        {
+            myFlushCount++;
+            myFlushed.addAll(consumeFeatures());
+        }
+
+        /**
+         * Gets the features that have been flushed.
+         *
+         * @return the features
+         */
+        public List<MapDataElement> getFeatures()
+        {
+            return myFlushed;
+        }
+
+        /**
+         * Gets the number of times the consumer has been flushed.
+         *
+         * @return the flush count
+         */
+        public int getFlushCount()
+        {
+            return myFlushCount;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package io.opensphere.wms.envoy;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -23,6 +24,7 @@ import io.opensphere.core.data.util.PropertyValueReceiver;
 import io.opensphere.core.image.Image;
 import io.opensphere.core.image.ImageProvider;
 import io.opensphere.core.image.StreamingDDSImage;
+import io.opensphere.core.image.TileRecord;
 import io.opensphere.core.util.collections.LazyMap.Factory;
 import io.opensphere.core.util.collections.MappedObjectPool;
 import io.opensphere.core.util.collections.New;
@@ -45,7 +47,7 @@ public class LayerImageProvider implements ImageProvider<TileImageKey>, Serializ
                 @Override
                 public ByteBuffer create(Integer capacity)
                 {
-                    return ByteBuffer.allocate(capacity.intValue());
+                    return ByteBuffer.allocateDirect(capacity.intValue());
                 }
             }, 20, 20, CLEANUP_EXECUTOR);
 
@@ -252,10 +254,18 @@ public class LayerImageProvider implements ImageProvider<TileImageKey>, Serializ
             {
                 LOGGER.warn("Multiple images (" + values.size() + ") returned for tile key.");
             }
-            for (InputStream inputStream : receiver.getValues())
+            for (InputStream value : receiver.getValues())
             {
+                InputStream inputStream = value.markSupported() ? value : new BufferedInputStream(value);
                 try
                 {
+                    if (TileRecord.isTileRecord(inputStream))
+                    {
+                        // Tiles cached as serialized images are still read
+                        // below until they expire.
+                        values.add(TileRecord.read(inputStream, ourByteBufferPool));
+                        continue;
+                    }
                     ObjectInputStream ois = new ObjectInputStream(inputStream);
                     try
                     {
@@ -9,6 +9,7 @@ import com.bitsys.fade.mist.state.v4.StateType;
 
 import io.opensphere.core.Plugin;
 import io.opensphere.core.Toolbox;
+import io.opensphere.core.modulestate.AbstractLayerStateController;
 import io.opensphere.core.modulestate.AbstractModuleStateController;
 import io.opensphere.core.util.collections.New;
 import io.opensphere.mantle.data.impl.DefaultDataGroupActivator;
@@ -90,6 +91,12 @@ public abstract class BaseWmsStateController extends AbstractModuleStateControll
         return myActivator.canActivate(state, isDataLayer());
     }
 
+    @Override
+    public Collection<? extends String> getActivationDependencies()
+    {
+        return AbstractLayerStateController.LAYER_ACTIVATION_DEPENDENCIES;
+    }
+
     @Override
     public void deactivateState(String id, Node node) throws InterruptedException
     {
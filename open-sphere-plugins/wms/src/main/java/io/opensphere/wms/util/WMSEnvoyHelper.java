@@ -4,7 +4,6 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -25,6 +24,7 @@ import io.opensphere.core.image.Image;
 import io.opensphere.core.image.ImageFormatUnknownException;
 import io.opensphere.core.image.ImageIOImage;
 import io.opensphere.core.image.ImageMetrics;
+import io.opensphere.core.image.TileRecord;
 import io.opensphere.core.server.HttpServer;
 import io.opensphere.core.server.ResponseValues;
 import io.opensphere.core.server.ServerProvider;
@@ -646,9 +646,9 @@ public final class WMSEnvoyHelper
             reader.copyStream(imageOut);
             final Image image = ImageIOImage.read(new ByteArrayInputStream(imageOut.toByteArray()), false);
             final DDSImage ddsImage = ((ImageIOImage)image).asDDSImage();
-            final ByteArrayOutputStream out = new ByteArrayOutputStream();
-            final ObjectOutputStream output = new ObjectOutputStream(out);
-            output.writeObject(ddsImage);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    TileRecord.HEADER_SIZE + (int)ddsImage.getSizeInBytes());
+            TileRecord.write(ddsImage, out);
             ddsStream = new ByteArrayInputStream(out.toByteArray());
         }
 